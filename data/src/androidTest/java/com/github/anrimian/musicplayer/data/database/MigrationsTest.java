@@ -3,6 +3,7 @@ package com.github.anrimian.musicplayer.data.database;
 import static android.Manifest.permission.READ_EXTERNAL_STORAGE;
 import static android.Manifest.permission.WRITE_EXTERNAL_STORAGE;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import android.app.Instrumentation;
 import android.content.ContentValues;
@@ -16,6 +17,8 @@ import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
 import androidx.test.platform.app.InstrumentationRegistry;
 import androidx.test.rule.GrantPermissionRule;
 
+import com.github.anrimian.musicplayer.data.database.dao.play_queue.ShufflePermutation;
+
 import org.junit.Rule;
 import org.junit.Test;
 
@@ -38,6 +41,380 @@ public class MigrationsTest {
                     AppDatabase.class.getCanonicalName(),
                     new FrameworkSQLiteOpenHelperFactory());
 
+    @Test
+    public void testMigrationFrom18To19() throws Exception {
+        SupportSQLiteDatabase db = testHelper.createDatabase(TEST_DB_NAME, 18);
+        //created on open of v18 database, unknown index fails validation of compositions
+        ExpressionIndexes.create(db);
+
+        ContentValues cv = new ContentValues();
+        cv.put("fileName", "file");
+        cv.put("filePath", "path");
+        cv.put("duration", 100);
+        cv.put("size", 100);
+        cv.put("dateAdded", 1);
+        cv.put("dateModified", 1);
+        long audioId = db.insert("compositions", SQLiteDatabase.CONFLICT_ABORT, cv);
+
+        cv = new ContentValues();
+        cv.put("type", "ALBUM_NAME");
+        cv.put("targetId", 1);
+        cv.put("newName", "name");
+        cv.put("createDate", 1);
+        long jobId = db.insert("edit_jobs", SQLiteDatabase.CONFLICT_ABORT, cv);
+
+        cv = new ContentValues();
+        cv.put("jobId", jobId);
+        cv.put("compositionId", audioId);
+        cv.put("fields", 1);
+        cv.put("state", "PENDING");
+        db.insert("edit_job_files", SQLiteDatabase.CONFLICT_ABORT, cv);
+        //file of already deleted composition
+        cv.put("compositionId", audioId + 1);
+        db.insert("edit_job_files", SQLiteDatabase.CONFLICT_ABORT, cv);
+
+        db = testHelper.runMigrationsAndValidate(TEST_DB_NAME,
+                19,
+                false,
+                Migrations.MIGRATION_18_19);
+
+        Cursor c = db.query("SELECT compositionId FROM edit_job_files");
+        assertEquals(1, c.getCount());
+        c.moveToFirst();
+        assertEquals(audioId, c.getLong(0));
+        c.close();
+
+        //job files are removed with composition
+        db.execSQL("PRAGMA foreign_keys = ON");
+        db.execSQL("DELETE FROM compositions WHERE id = " + audioId);
+
+        c = db.query("SELECT count() FROM edit_job_files");
+        c.moveToFirst();
+        assertEquals(0, c.getInt(0));
+        c.close();
+    }
+
+    @Test
+    public void testMigrationFrom17To18() throws Exception {
+        SupportSQLiteDatabase db = testHelper.createDatabase(TEST_DB_NAME, 17);
+        //created on open of v17 database, unknown index fails validation of compositions
+        ExpressionIndexes.create(db);
+
+        ContentValues cv = new ContentValues();
+        cv.put("fileName", "file");
+        cv.put("filePath", "path");
+        cv.put("duration", 100);
+        cv.put("size", 100);
+        cv.put("dateAdded", 1);
+        cv.put("dateModified", 1);
+        long audioId = db.insert("compositions", SQLiteDatabase.CONFLICT_ABORT, cv);
+
+        int[] shuffledPositions = { 2048, 5, 7000, 0 };
+        long[] queueIds = new long[shuffledPositions.length];
+        for (int i = 0; i < shuffledPositions.length; i++) {
+            ContentValues cvQueueItem = new ContentValues();
+            cvQueueItem.put("audioId", audioId);
+            cvQueueItem.put("position", i * 1024);
+            cvQueueItem.put("shuffledPosition", shuffledPositions[i]);
+            queueIds[i] = db.insert("play_queue", SQLiteDatabase.CONFLICT_ABORT, cvQueueItem);
+        }
+
+        db = testHelper.runMigrationsAndValidate(TEST_DB_NAME,
+                18,
+                false,
+                Migrations.MIGRATION_17_18);
+
+        Cursor c = db.query("SELECT seed FROM play_queue_shuffle WHERE id = 0");
+        c.moveToFirst();
+        ShufflePermutation permutation = new ShufflePermutation(c.getLong(0));
+        c.close();
+
+        //shuffle keys are mapped to the previous shuffled order
+        int[] expectedShuffledPositions = { 2048, 1024, 3072, 0 };
+        for (int i = 0; i < queueIds.length; i++) {
+            c = db.query("SELECT position, shuffledPosition FROM play_queue WHERE id = " + queueIds[i]);
+            c.moveToFirst();
+            assertEquals(i * 1024, c.getInt(c.getColumnIndex("position")));
+            assertEquals(expectedShuffledPositions[i],
+                    permutation.getPosition(c.getInt(c.getColumnIndex("shuffledPosition"))));
+            c.close();
+        }
+    }
+
+    @Test
+    public void testMigrationFrom16To17() throws Exception {
+        SupportSQLiteDatabase db = testHelper.createDatabase(TEST_DB_NAME, 16);
+
+        ContentValues cv = new ContentValues();
+        cv.put("fileName", "file");
+        cv.put("filePath", "path");
+        cv.put("duration", 100);
+        cv.put("size", 100);
+        cv.put("dateAdded", 1);
+        cv.put("dateModified", 1);
+        cv.put("lastScanDate", 5);
+        long scannedId = db.insert("compositions", SQLiteDatabase.CONFLICT_ABORT, cv);
+        cv.put("lastScanDate", 0);
+        long notScannedId = db.insert("compositions", SQLiteDatabase.CONFLICT_ABORT, cv);
+
+        db = testHelper.runMigrationsAndValidate(TEST_DB_NAME,
+                17,
+                false,
+                Migrations.MIGRATION_16_17);
+
+        Cursor c = db.query("SELECT count() FROM compositions WHERE id IN (?, ?)",
+                new Object[] { scannedId, notScannedId });
+        c.moveToFirst();
+        assertEquals(2, c.getInt(0));
+        c.close();
+
+        c = db.query("SELECT compositionId, lastScanDate FROM compositions_scan_state");
+        assertEquals(1, c.getCount());
+        c.moveToFirst();
+        assertEquals(scannedId, c.getLong(0));
+        assertEquals(5, c.getLong(1));
+        c.close();
+
+        //scan state is removed with composition
+        db.execSQL("PRAGMA foreign_keys = ON");
+        db.execSQL("DELETE FROM compositions WHERE id = " + scannedId);
+
+        c = db.query("SELECT count() FROM compositions_scan_state");
+        c.moveToFirst();
+        assertEquals(0, c.getInt(0));
+        c.close();
+    }
+
+    @Test
+    public void testMigrationFrom15To16() throws Exception {
+        SupportSQLiteDatabase db = testHelper.createDatabase(TEST_DB_NAME, 15);
+
+        db = testHelper.runMigrationsAndValidate(TEST_DB_NAME,
+                16,
+                false,
+                Migrations.MIGRATION_15_16);
+
+        ContentValues cv = new ContentValues();
+        cv.put("type", "ARTIST_NAME");
+        cv.put("targetId", 1);
+        cv.put("newName", "name");
+        cv.put("createDate", 1);
+        long jobId = db.insert("edit_jobs", SQLiteDatabase.CONFLICT_ABORT, cv);
+
+        cv = new ContentValues();
+        cv.put("jobId", jobId);
+        cv.put("compositionId", 1);
+        cv.put("fields", 1);
+        cv.put("state", "PENDING");
+        db.insert("edit_job_files", SQLiteDatabase.CONFLICT_ABORT, cv);
+
+        //job files are removed with job
+        db.execSQL("PRAGMA foreign_keys = ON");
+        db.execSQL("DELETE FROM edit_jobs WHERE id = " + jobId);
+
+        Cursor c = db.query("SELECT count() FROM edit_job_files");
+        c.moveToFirst();
+        assertEquals(0, c.getInt(0));
+        c.close();
+    }
+
+    @Test
+    public void testMigrationFrom14To15() throws Exception {
+        SupportSQLiteDatabase db = testHelper.createDatabase(TEST_DB_NAME, 14);
+
+        ContentValues cv = new ContentValues();
+        cv.put("fileName", "file");
+        cv.put("filePath", "path");
+        cv.put("duration", 100);
+        cv.put("size", 100);
+        cv.put("dateAdded", 1);
+        cv.put("dateModified", 1);
+        cv.put("lastScanDate", 1);
+        long id = db.insert("compositions", SQLiteDatabase.CONFLICT_ABORT, cv);
+
+        db = testHelper.runMigrationsAndValidate(TEST_DB_NAME,
+                15,
+                false,
+                Migrations.MIGRATION_14_15);
+
+        cv = new ContentValues();
+        cv.put("compositionId", id);
+        cv.put("dateModified", 1);
+        db.insert("artwork_thumbnails", SQLiteDatabase.CONFLICT_ABORT, cv);
+
+        Cursor c = db.query("SELECT hash FROM artwork_thumbnails WHERE compositionId = ?",
+                new Object[] { id });
+        c.moveToFirst();
+        assertTrue(c.isNull(0));
+        c.close();
+    }
+
+    @Test
+    public void testMigrationFrom13To14() throws Exception {
+        SupportSQLiteDatabase db = testHelper.createDatabase(TEST_DB_NAME, 13);
+
+        ContentValues cv = new ContentValues();
+        cv.put("fileName", "file");
+        cv.put("filePath", "path");
+        cv.put("duration", 100);
+        cv.put("size", 100);
+        cv.put("dateAdded", 1);
+        cv.put("dateModified", 1);
+        cv.put("lastScanDate", 1);
+        long id = db.insert("compositions", SQLiteDatabase.CONFLICT_ABORT, cv);
+
+        db = testHelper.runMigrationsAndValidate(TEST_DB_NAME,
+                14,
+                false,
+                Migrations.MIGRATION_13_14);
+
+        Cursor c = db.query("SELECT trackGain, trackPeak, lastLoudnessScanDate FROM compositions WHERE id = ?",
+                new Object[] { id });
+        c.moveToFirst();
+        assertTrue(c.isNull(0));
+        assertTrue(c.isNull(1));
+        assertTrue(c.isNull(2));
+        c.close();
+    }
+
+    @Test
+    public void testMigrationFrom12To13() throws Exception {
+        SupportSQLiteDatabase db = testHelper.createDatabase(TEST_DB_NAME, 12);
+        CompositionsSearchIndex.createTriggers(db);
+
+        db = testHelper.runMigrationsAndValidate(TEST_DB_NAME,
+                13,
+                false,
+                Migrations.MIGRATION_12_13);
+
+        Cursor c = db.query("SELECT name FROM sqlite_master WHERE type = 'trigger' AND name = ?",
+                new Object[] { "compositions_search_update" });
+        assertEquals(0, c.getCount());
+        c.close();
+    }
+
+    @Test
+    public void testMigrationFrom11To12() throws Exception {
+        SupportSQLiteDatabase db = testHelper.createDatabase(TEST_DB_NAME, 11);
+
+        ContentValues cvFolder = new ContentValues();
+        cvFolder.put("name", "parent");
+        long parentId = db.insert("folders", SQLiteDatabase.CONFLICT_ABORT, cvFolder);
+        cvFolder.put("name", "child");
+        cvFolder.put("parentId", parentId);
+        long childId = db.insert("folders", SQLiteDatabase.CONFLICT_ABORT, cvFolder);
+
+        ContentValues cv = new ContentValues();
+        cv.put("storageId", 1L);
+        cv.put("folderId", childId);
+        cv.put("title", "test title");
+        cv.put("filePath", "filePath");
+        cv.put("duration", 13);
+        cv.put("size", 100);
+        cv.put("dateAdded", 5L);
+        cv.put("dateModified", 0L);
+        db.insert("compositions", SQLiteDatabase.CONFLICT_ABORT, cv);
+
+        db = testHelper.runMigrationsAndValidate(TEST_DB_NAME,
+                12,
+                false,
+                Migrations.MIGRATION_11_12);
+
+        Cursor c = db.query("SELECT filesCount, totalSize, totalDuration, lastDateAdded FROM folders_stats WHERE folderId = ?",
+                new Object[] { parentId });
+        c.moveToFirst();
+        assertEquals(1, c.getInt(0));
+        assertEquals(100, c.getLong(1));
+        assertEquals(13, c.getLong(2));
+        assertEquals(5, c.getLong(3));
+        c.close();
+    }
+
+    @Test
+    public void testMigrationFrom10To11() throws Exception {
+        SupportSQLiteDatabase db = testHelper.createDatabase(TEST_DB_NAME, 10);
+
+        ContentValues cvArtist = new ContentValues();
+        cvArtist.put("name", "test artist");
+        long artistId = db.insert("artists", SQLiteDatabase.CONFLICT_ABORT, cvArtist);
+
+        ContentValues cv = new ContentValues();
+        cv.put("storageId", 1L);
+        cv.put("artistId", artistId);
+        cv.put("title", "test title");
+        cv.put("filePath", "filePath");
+        cv.put("duration", 13);
+        cv.put("size", 100);
+        cv.put("dateAdded", 0L);
+        cv.put("dateModified", 0L);
+        long compositionId = db.insert("compositions", SQLiteDatabase.CONFLICT_ABORT, cv);
+
+        db = testHelper.runMigrationsAndValidate(TEST_DB_NAME,
+                11,
+                false,
+                Migrations.MIGRATION_10_11);
+
+        Cursor c = db.query("SELECT rowid FROM compositions_search WHERE compositions_search MATCH ?",
+                new Object[] { "artist:test*" });
+        assertEquals(1, c.getCount());
+        c.moveToFirst();
+        assertEquals(compositionId, c.getLong(0));
+        c.close();
+    }
+
+    @Test
+    public void testMigrationFrom9To10() throws Exception {
+        testHelper.createDatabase(TEST_DB_NAME, 9);
+        SupportSQLiteDatabase db = testHelper.runMigrationsAndValidate(TEST_DB_NAME,
+                10,
+                false,
+                Migrations.MIGRATION_9_10);
+
+        //expression index is created on open and must not break validation of next migrations
+        ExpressionIndexes.create(db);
+        ExpressionIndexes.drop(db);
+    }
+
+    @Test
+    public void testMigrationFrom8To9() throws Exception {
+        SupportSQLiteDatabase db = testHelper.createDatabase(TEST_DB_NAME, 8);
+
+        ContentValues cv = new ContentValues();
+        cv.put("storageId", 1L);
+        cv.put("title", "title");
+        cv.put("filePath", "filePath");
+        cv.put("duration", 13);
+        cv.put("size", 100);
+        cv.put("dateAdded", 0L);
+        cv.put("dateModified", 0L);
+        long audioId = db.insert("compositions", SQLiteDatabase.CONFLICT_ABORT, cv);
+
+        int[] positions = { 0, 1, 3, 7 };
+        int[] shuffledPositions = { 2, 5, 0, 1 };
+        long[] queueIds = new long[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            ContentValues cvQueueItem = new ContentValues();
+            cvQueueItem.put("audioId", audioId);
+            cvQueueItem.put("position", positions[i]);
+            cvQueueItem.put("shuffledPosition", shuffledPositions[i]);
+            queueIds[i] = db.insert("play_queue", SQLiteDatabase.CONFLICT_ABORT, cvQueueItem);
+        }
+
+        testHelper.runMigrationsAndValidate(TEST_DB_NAME,
+                9,
+                false,
+                Migrations.MIGRATION_8_9);
+
+        int[] expectedPositions = { 0, 1024, 2048, 3072 };
+        int[] expectedShuffledPositions = { 3072, 2048, 0, 1024 };
+        for (int i = 0; i < queueIds.length; i++) {
+            Cursor c = db.query("SELECT position, shuffledPosition FROM play_queue WHERE id = " + queueIds[i]);
+            c.moveToFirst();
+            assertEquals(expectedPositions[i], c.getInt(c.getColumnIndex("position")));
+            assertEquals(expectedShuffledPositions[i], c.getInt(c.getColumnIndex("shuffledPosition")));
+        }
+    }
+
     @Test
     public void testMigrationFrom7To8() throws Exception {
         testHelper.createDatabase(TEST_DB_NAME, 7);
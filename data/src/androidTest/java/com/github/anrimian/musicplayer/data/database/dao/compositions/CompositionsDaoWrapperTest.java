@@ -1,24 +1,42 @@
 package com.github.anrimian.musicplayer.data.database.dao.compositions;
 
 import android.content.Context;
+import android.util.Log;
 
 import androidx.room.Room;
+import androidx.sqlite.db.SimpleSQLiteQuery;
 import androidx.test.platform.app.InstrumentationRegistry;
 
 import com.github.anrimian.musicplayer.data.database.AppDatabase;
+import com.github.anrimian.musicplayer.data.database.AppDatabaseCallback;
 import com.github.anrimian.musicplayer.data.database.dao.albums.AlbumsDao;
 import com.github.anrimian.musicplayer.data.database.dao.artist.ArtistsDao;
 import com.github.anrimian.musicplayer.data.database.entities.albums.AlbumEntity;
 import com.github.anrimian.musicplayer.data.database.entities.artist.ArtistEntity;
+import com.github.anrimian.musicplayer.data.database.entities.composition.CompositionEntity;
+import com.github.anrimian.musicplayer.data.database.observer.LibraryQueryObserver;
+import com.github.anrimian.musicplayer.domain.models.composition.Composition;
+import com.github.anrimian.musicplayer.domain.models.composition.FullComposition;
+import com.github.anrimian.musicplayer.domain.models.order.Order;
+import com.github.anrimian.musicplayer.domain.models.order.OrderType;
+import com.github.anrimian.musicplayer.domain.utils.paging.PageSource;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static com.github.anrimian.musicplayer.domain.utils.ListUtils.mapList;
+import static java.util.Arrays.asList;
 import static utils.TestDataProvider.composition;
 
 public class CompositionsDaoWrapperTest {
@@ -33,12 +51,18 @@ public class CompositionsDaoWrapperTest {
     @Before
     public void setUp() {
         Context context = InstrumentationRegistry.getInstrumentation().getContext();
-        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .addCallback(new AppDatabaseCallback())
+                .build();
         compositionsDao = db.compositionsDao();
         artistsDao = db.artistsDao();
         albumsDao = db.albumsDao();
 
-        daoWrapper = new CompositionsDaoWrapper(db, artistsDao, compositionsDao, albumsDao);
+        daoWrapper = new CompositionsDaoWrapper(db,
+                artistsDao,
+                compositionsDao,
+                albumsDao,
+                new LibraryQueryObserver(db, Schedulers.trampoline()));
     }
 
     @After
@@ -288,4 +312,198 @@ public class CompositionsDaoWrapperTest {
         assertEquals(secondAlbumId, newAlbumId);
         assertEquals(newAlbumId, compositionsDao.getAlbumId(compositionId));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void compositionNamesAfterArtistAndAlbumUpdateTest() {
+        long artistId = artistsDao.insertArtist(new ArtistEntity("test artist"));
+        long albumArtistId = artistsDao.insertArtist(new ArtistEntity("test album artist"));
+        long albumId = albumsDao.insert(new AlbumEntity(albumArtistId, "test album", 0, 0));
+        long compositionId = compositionsDao.insert(composition(artistId, albumId, "test title"));
+        compositionsDao.insert(composition(null, null, "test title2"));
+
+        daoWrapper.updateArtist(compositionId, "test artist2");
+        daoWrapper.updateAlbum(compositionId, "test album2");
+        daoWrapper.updateAlbumArtist(compositionId, "test album artist2");
+
+        FullComposition composition = compositionsDao.getCompositionObservable(compositionId)
+                .blockingFirst()
+                .get(0);
+        assertEquals("test artist2", composition.getArtist());
+        assertEquals("test album2", composition.getAlbum());
+        assertEquals("test album artist2", composition.getAlbumArtist());
+
+        List<Composition> compositions = compositionsDao.executeQuery(new SimpleSQLiteQuery(
+                CompositionsDao.getCompositionQuery(false)
+                        + CompositionsDaoWrapper.getOrderQuery(new Order(OrderType.NAME, false))));
+        assertEquals(2, compositions.size());
+        assertEquals("test artist2", compositions.get(0).getArtist());
+        assertEquals("test album2", compositions.get(0).getAlbum());
+        assertNull(compositions.get(1).getArtist());
+        assertNull(compositions.get(1).getAlbum());
+    }
+
+    @Test
+    public void compositionListPerformanceTest() {
+        int count = 50_000;
+        List<Long> artistIds = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            artistIds.add(artistsDao.insertArtist(new ArtistEntity("artist " + i)));
+        }
+        List<Long> albumIds = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            albumIds.add(albumsDao.insert(new AlbumEntity(artistIds.get(i % 1000), "album " + i, 0, 0)));
+        }
+        List<CompositionEntity> entities = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entities.add(composition(artistIds.get(i % 1000), albumIds.get(i % 5000), "title " + i));
+        }
+        compositionsDao.insert(entities);
+
+        //projection with correlated subqueries, as it was before joins
+        SimpleSQLiteQuery subqueryQuery = new SimpleSQLiteQuery("SELECT " +
+                "compositions.id AS id, " +
+                "compositions.storageId AS storageId, " +
+                "(SELECT name FROM artists WHERE id = artistId) as artist, " +
+                "(SELECT name FROM albums WHERE id = albumId) as album, " +
+                "(CASE WHEN title IS NULL OR title = '' THEN fileName ELSE title END) as title, " +
+                "compositions.duration AS duration, " +
+                "compositions.size AS size, " +
+                "compositions.dateAdded AS dateAdded, " +
+                "compositions.dateModified AS dateModified, " +
+                "compositions.corruptionType AS corruptionType " +
+                "FROM compositions ORDER BY dateAdded");
+        SimpleSQLiteQuery joinQuery = new SimpleSQLiteQuery(CompositionsDao.getCompositionQuery(false)
+                + CompositionsDaoWrapper.getOrderQuery(new Order(OrderType.ADD_TIME, false)));
+
+        //warm up
+        compositionsDao.executeQuery(subqueryQuery);
+        compositionsDao.executeQuery(joinQuery);
+
+        long startTime = System.nanoTime();
+        List<Composition> subqueryResult = compositionsDao.executeQuery(subqueryQuery);
+        long subqueryTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        List<Composition> joinResult = compositionsDao.executeQuery(joinQuery);
+        long joinTime = System.nanoTime() - startTime;
+
+        assertEquals(count, joinResult.size());
+        assertEquals(subqueryResult.get(count - 1).getArtist(), joinResult.get(count - 1).getArtist());
+        assertEquals(subqueryResult.get(count - 1).getAlbum(), joinResult.get(count - 1).getAlbum());
+        Log.d("KEK", "compositions: " + count
+                + ", subqueries: " + subqueryTime / 1_000_000 + " ms"
+                + ", joins: " + joinTime / 1_000_000 + " ms");
+    }
+
+    @Test
+    public void searchTest() {
+        long artistId = artistsDao.insertArtist(new ArtistEntity("Queen"));
+        long albumId = albumsDao.insert(new AlbumEntity(artistId, "A Night at the Opera", 0, 0));
+        long firstId = compositionsDao.insert(composition(artistId, albumId, "Bohemian Rhapsody"));
+        long secondId = compositionsDao.insert(composition(null, null, "Love of My Life"));
+        long thirdId = compositionsDao.insert(composition(null, null, "Queen of hearts"));
+
+        assertEquals(asList(firstId), searchIds("bohem"));
+        assertEquals(asList(firstId), searchIds("opera rhap"));
+        assertEquals(asList(secondId), searchIds("\"my love\""));
+        assertEquals(new ArrayList<>(), searchIds("unknown"));
+
+        //title matches first
+        assertEquals(asList(thirdId, firstId), searchIds("queen"));
+
+        daoWrapper.updateArtist(firstId, "Freddie");
+        assertEquals(asList(thirdId), searchIds("queen"));
+        assertEquals(asList(firstId), searchIds("fred"));
+
+        compositionsDao.delete(firstId);
+        assertEquals(new ArrayList<>(), searchIds("bohemian"));
+    }
+
+    @Test
+    public void searchPerformanceTest() {
+        int count = 100_000;
+        List<Long> artistIds = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            artistIds.add(artistsDao.insertArtist(new ArtistEntity("artist " + i)));
+        }
+        List<CompositionEntity> entities = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entities.add(composition(artistIds.get(i % 1000), null, "title " + i));
+        }
+        compositionsDao.insert(entities);
+
+        //search as it was before full text index
+        SimpleSQLiteQuery likeQuery = new SimpleSQLiteQuery(CompositionsDao.getCompositionQuery(false)
+                + "WHERE (title NOT NULL AND title LIKE ? OR artists.name NOT NULL AND artists.name LIKE ?)"
+                + CompositionsDaoWrapper.getOrderQuery(new Order(OrderType.NAME, false)),
+                new Object[] { "%title 4242%", "%title 4242%" });
+
+        compositionsDao.executeQuery(likeQuery);
+        daoWrapper.getAllObservable(new Order(OrderType.NAME, false), false, "title 4242")
+                .blockingFirst();
+
+        long startTime = System.nanoTime();
+        List<Composition> likeResult = compositionsDao.executeQuery(likeQuery);
+        long likeTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        List<Composition> ftsResult = daoWrapper.getAllObservable(new Order(OrderType.NAME, false),
+                false,
+                "title 4242").blockingFirst();
+        long ftsTime = System.nanoTime() - startTime;
+
+        assertEquals(likeResult.size(), ftsResult.size());
+        Log.d("KEK", "compositions: " + count
+                + ", like search: " + likeTime / 1_000_000 + " ms"
+                + ", fts search: " + ftsTime / 1_000_000 + " ms");
+    }
+
+    @Test
+    public void keysetPagesTest() {
+        List<CompositionEntity> entities = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            entities.add(composition(null, null, "title " + i % 20));
+        }
+        compositionsDao.insert(entities);
+
+        for (OrderType orderType: asList(OrderType.NAME, OrderType.ADD_TIME, OrderType.DURATION)) {
+            for (boolean reversed: new boolean[] { false, true }) {
+                Order order = new Order(orderType, reversed);
+                List<Composition> expected = daoWrapper.getAllObservable(order, false, null)
+                        .blockingFirst();
+                PageSource<Composition> pageSource = daoWrapper.getAllPageSource(order, false, null);
+
+                assertEquals(expected.size(), pageSource.getCount());
+
+                List<Composition> forward = new ArrayList<>(pageSource.loadRange(0, 30));
+                while (forward.size() < expected.size()) {
+                    forward.addAll(pageSource.loadAfter(forward.get(forward.size() - 1), 30));
+                }
+                //full list has no order of equal values, pages are ordered by id then
+                assertEquals(expected.size(), forward.size());
+                assertEquals(new HashSet<>(expected), new HashSet<>(forward));
+                if (orderType == OrderType.NAME) {
+                    assertEquals(mapList(expected, Composition::getTitle),
+                            mapList(forward, Composition::getTitle));
+                }
+
+                List<Composition> backward = new ArrayList<>(pageSource.loadRange(220, 30));
+                while (backward.size() < expected.size()) {
+                    backward.addAll(0, pageSource.loadBefore(backward.get(0), 30));
+                }
+                assertEquals(forward, backward);
+            }
+        }
+    }
+
+    private List<Long> searchIds(String searchText) {
+        List<Composition> compositions = daoWrapper.getAllObservable(new Order(OrderType.NAME, false),
+                false,
+                searchText).blockingFirst();
+        List<Long> ids = new ArrayList<>();
+        for (Composition composition: compositions) {
+            ids.add(composition.getId());
+        }
+        return ids;
+    }
+}
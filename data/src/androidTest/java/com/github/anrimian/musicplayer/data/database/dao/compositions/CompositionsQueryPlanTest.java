@@ -0,0 +1,149 @@
+package com.github.anrimian.musicplayer.data.database.dao.compositions;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.github.anrimian.musicplayer.data.database.AppDatabase;
+import com.github.anrimian.musicplayer.data.database.ExpressionIndexes;
+import com.github.anrimian.musicplayer.data.database.entities.composition.CompositionEntity;
+import com.github.anrimian.musicplayer.domain.models.order.Order;
+import com.github.anrimian.musicplayer.domain.models.order.OrderType;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Checks query plans of compositions queries against seeded database.
+ * Room doesn't keep query annotations at runtime, so sql of dao queries is duplicated here
+ */
+public class CompositionsQueryPlanTest {
+
+    private static final int SEED_COUNT = 100_000;
+
+    //"SCAN TABLE compositions" on old sqlite versions, "SCAN compositions" on new ones
+    private static final Pattern FULL_SCAN = Pattern.compile(
+            "SCAN (TABLE )?compositions(?! USING (COVERING )?INDEX)");
+
+    private AppDatabase db;
+    private SupportSQLiteDatabase sqlDb;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        sqlDb = db.getOpenHelper().getWritableDatabase();
+        ExpressionIndexes.create(sqlDb);
+
+        List<CompositionEntity> entities = new ArrayList<>(SEED_COUNT);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < SEED_COUNT; i++) {
+            entities.add(new CompositionEntity(null,
+                    null,
+                    null,
+                    i % 10 == 0? null : "title " + i,
+                    null,
+                    "file name " + i,
+                    "file path " + i,
+                    i * 1000L,
+                    i * 100L,
+                    (long) i,
+                    new Date(now - i),
+                    new Date(now - i * 2L),
+                    null));
+        }
+        db.compositionsDao().insert(entities);
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void storageIdLookupsTest() {
+        assertIndexSearch("SELECT id FROM compositions WHERE storageId = 1");
+        assertIndexSearch("SELECT * FROM compositions WHERE storageId IN (1, 2, 3)");
+        assertIndexSearch("UPDATE compositions SET title = 'test' WHERE storageId = 1");
+    }
+
+    @Test
+    public void storageCompositionsOrderTest() {
+        assertIndexOrder("SELECT storageId FROM compositions "
+                + "WHERE storageId NOTNULL "
+                + "ORDER BY storageId");
+        assertIndexOrder("SELECT * FROM compositions "
+                + "WHERE compositions.storageId NOTNULL "
+                + "ORDER BY compositions.storageId");
+    }
+
+    @Test
+    public void nextCompositionsToScanTest() {
+        assertIndexOrder("SELECT id FROM compositions "
+                + "LEFT JOIN compositions_scan_state ON compositions_scan_state.compositionId = compositions.id "
+                + "WHERE compositions_scan_state.lastScanDate IS NULL "
+                + "OR compositions_scan_state.lastScanDate < dateModified "
+                + "OR compositions_scan_state.lastScanDate < 0 "
+                + "ORDER BY dateModified DESC "
+                + "LIMIT 5");
+    }
+
+    @Test
+    public void compositionListOrdersTest() {
+        for (OrderType orderType: new OrderType[] {
+                OrderType.FILE_NAME, OrderType.ADD_TIME, OrderType.SIZE, OrderType.DURATION }) {
+            for (boolean reversed: new boolean[] { false, true }) {
+                assertIndexOrder(CompositionsDao.getCompositionQuery(false)
+                        + CompositionsDaoWrapper.getOrderQuery(new Order(orderType, reversed)));
+            }
+        }
+    }
+
+    @Test
+    public void compositionListTitleOrderTest() {
+        assumeTrue(ExpressionIndexes.isSqliteVersionAtLeast(sqlDb, 3, 9));
+        for (boolean useFileName: new boolean[] { false, true }) {
+            assertIndexOrder(CompositionsDao.getCompositionQuery(useFileName)
+                    + CompositionsDaoWrapper.getOrderQuery(new Order(OrderType.NAME, false)));
+        }
+    }
+
+    private void assertIndexSearch(String query) {
+        String plan = getQueryPlan(query);
+        assertFalse("full scan, plan: " + plan, FULL_SCAN.matcher(plan).find());
+    }
+
+    private void assertIndexOrder(String query) {
+        String plan = getQueryPlan(query);
+        assertFalse("full scan, plan: " + plan, FULL_SCAN.matcher(plan).find());
+        assertFalse("sort without index, plan: " + plan, plan.contains("TEMP B-TREE FOR ORDER BY"));
+        assertTrue("index not used, plan: " + plan, plan.contains("INDEX"));
+    }
+
+    private String getQueryPlan(String query) {
+        StringBuilder sb = new StringBuilder();
+        try (Cursor c = sqlDb.query("EXPLAIN QUERY PLAN " + query)) {
+            int detailIndex = c.getColumnIndex("detail");
+            while (c.moveToNext()) {
+                sb.append(c.getString(detailIndex));
+                sb.append("\n");
+            }
+        }
+        Log.d("KEK", query + "\n" + sb);
+        return sb.toString();
+    }
+}
@@ -1,34 +1,43 @@
 package com.github.anrimian.musicplayer.data.database.dao.compositions;
 
 import android.content.Context;
+import android.util.Log;
 
-import androidx.collection.LongSparseArray;
 import androidx.room.Room;
 import androidx.test.platform.app.InstrumentationRegistry;
 
 import com.github.anrimian.musicplayer.data.database.AppDatabase;
+import com.github.anrimian.musicplayer.data.database.AppDatabaseCallback;
 import com.github.anrimian.musicplayer.data.database.dao.albums.AlbumsDao;
 import com.github.anrimian.musicplayer.data.database.dao.artist.ArtistsDao;
 import com.github.anrimian.musicplayer.data.database.dao.folders.FoldersDao;
 import com.github.anrimian.musicplayer.data.database.entities.folder.FolderEntity;
 import com.github.anrimian.musicplayer.data.database.entities.folder.StorageFolder;
+import com.github.anrimian.musicplayer.data.database.observer.LibraryQueryObserver;
 import com.github.anrimian.musicplayer.data.models.changes.Change;
 import com.github.anrimian.musicplayer.data.repositories.scanner.folders.FolderNode;
 import com.github.anrimian.musicplayer.data.repositories.scanner.nodes.AddedNode;
+import com.github.anrimian.musicplayer.data.storage.providers.albums.StorageAlbum;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageComposition;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageFullComposition;
 import com.github.anrimian.musicplayer.data.utils.collections.AndroidCollectionUtils;
+import com.github.anrimian.musicplayer.data.utils.collections.LongHashMap;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
 
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
 import utils.TestDataProvider;
 
+import static com.github.anrimian.musicplayer.domain.utils.ListUtils.asList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static utils.TestDataProvider.composition;
 
 public class StorageCompositionsInserterTest {
@@ -45,7 +54,9 @@ public class StorageCompositionsInserterTest {
     @Before
     public void setUp() {
         Context context = InstrumentationRegistry.getInstrumentation().getContext();
-        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .addCallback(new AppDatabaseCallback())
+                .build();
         compositionsDao = db.compositionsDao();
         artistsDao = db.artistsDao();
         albumsDao = db.albumsDao();
@@ -53,7 +64,8 @@ public class StorageCompositionsInserterTest {
         compositionsDaoWrapper = new CompositionsDaoWrapper(db,
                 artistsDao,
                 compositionsDao,
-                albumsDao);
+                albumsDao,
+                new LibraryQueryObserver(db, Schedulers.trampoline()));
 
         inserter = new StorageCompositionsInserter(db,
                 compositionsDao,
@@ -88,7 +100,7 @@ public class StorageCompositionsInserterTest {
                 addedCompositions,
                 deletedCompositions,
                 changedCompositions,
-                new LongSparseArray<>(),
+                new LongHashMap<>(),
                 foldersToDelete);
 
         List<StorageFolder> folders = foldersDao.getAllFolders();
@@ -119,7 +131,7 @@ public class StorageCompositionsInserterTest {
                 addedCompositions,
                 deletedCompositions,
                 changedCompositions,
-                AndroidCollectionUtils.sparseArrayOf(compositionId, folder2Id),
+                AndroidCollectionUtils.hashMapOf(compositionId, folder2Id),
                 foldersToDelete);
 
         List<StorageFolder> folders = foldersDao.getAllFolders();
@@ -128,6 +140,101 @@ public class StorageCompositionsInserterTest {
         assertEquals("test folder 2", folder.getName());
     }
 
+    @Test
+    public void applyArtistAndAlbumChangesTest() {
+        inserter.applyChanges(new LinkedList<>(),
+                asList(storageComposition(1, "artist 1", "album 1", "album artist 1", 0)),
+                new ArrayList<>(),
+                new ArrayList<>(),
+                new LongHashMap<>(),
+                new LinkedList<>());
+        StorageComposition composition = compositionsDaoWrapper.selectAllAsStorageCompositions().get(0);
+        assertEquals("artist 1", composition.getArtist());
+
+        List<Change<StorageComposition, StorageFullComposition>> changedCompositions = new ArrayList<>();
+        changedCompositions.add(new Change<>(composition,
+                storageComposition(1, "artist 2", "album 2", "artist 2", 10)));
+        inserter.applyChanges(new LinkedList<>(),
+                new ArrayList<>(),
+                new ArrayList<>(),
+                changedCompositions,
+                new LongHashMap<>(),
+                new LinkedList<>());
+
+        composition = compositionsDaoWrapper.selectAllAsStorageCompositions().get(0);
+        assertEquals("artist 2", composition.getArtist());
+        assertEquals("album 2", composition.getAlbum());
+        assertEquals("artist 2", composition.getAlbumArtist());
+        assertEquals(10, composition.getDateModified().getTime());
+        assertNull(artistsDao.findArtistIdByName("artist 1"));
+        assertNull(artistsDao.findArtistIdByName("album artist 1"));
+        assertEquals(1, artistsDao.getAllArtists().size());
+        assertEquals(1, albumsDao.getAllAlbums().size());
+    }
+
+    @Test
+    public void changedCompositionsPerformanceTest() {
+        int count = 50_000;
+        List<StorageFullComposition> addedCompositions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            addedCompositions.add(storageComposition(i + 1,
+                    "artist " + i % 500,
+                    "album " + i % 2000,
+                    "artist " + i % 500,
+                    0));
+        }
+        StorageChangesTimings insertTimings = inserter.applyChanges(new LinkedList<>(),
+                addedCompositions,
+                new ArrayList<>(),
+                new ArrayList<>(),
+                new LongHashMap<>(),
+                new LinkedList<>());
+        Log.d("KEK", "insert " + count + ": " + insertTimings);
+
+        //media store reindex: every row is modified, part of rows gets new artist and album
+        List<Change<StorageComposition, StorageFullComposition>> changedCompositions = new ArrayList<>(count);
+        for (StorageComposition composition: compositionsDaoWrapper.selectAllAsStorageCompositions()) {
+            long id = composition.getStorageId();
+            boolean retagged = id % 10 == 0;
+            changedCompositions.add(new Change<>(composition, storageComposition(id,
+                    retagged? "new artist " + id % 100 : composition.getArtist(),
+                    retagged? "new album " + id % 300 : composition.getAlbum(),
+                    retagged? "new artist " + id % 100 : composition.getAlbumArtist(),
+                    1000)));
+        }
+        StorageChangesTimings updateTimings = inserter.applyChanges(new LinkedList<>(),
+                new ArrayList<>(),
+                new ArrayList<>(),
+                changedCompositions,
+                new LongHashMap<>(),
+                new LinkedList<>());
+        Log.d("KEK", "update " + count + ": " + updateTimings + ", total: " + updateTimings.getTotalMillis() + " ms");
+
+        List<StorageComposition> compositions = compositionsDaoWrapper.selectAllAsStorageCompositions();
+        assertEquals(count, compositions.size());
+        StorageComposition composition = compositions.get(9);
+        assertEquals("new artist 10", composition.getArtist());
+        assertEquals("new album 10", composition.getAlbum());
+        assertEquals(1000, composition.getDateModified().getTime());
+    }
+
+    private static StorageFullComposition storageComposition(long id,
+                                                             String artist,
+                                                             String album,
+                                                             String albumArtist,
+                                                             long dateModified) {
+        return new StorageFullComposition(artist,
+                "title " + id,
+                "file " + id,
+                "",
+                1000,
+                100,
+                id,
+                new Date(0),
+                new Date(dateModified),
+                new StorageAlbum(0, album, albumArtist, 0, 0));
+    }
+
 /*    @Test
     public void testDeleteFolderWithExistsCompositions() {
         long folder1Id = foldersDao.insertFolder(new FolderEntity(null, "test folder 1"));
@@ -145,7 +252,7 @@ public class StorageCompositionsInserterTest {
                 addedCompositions,
                 deletedCompositions,
                 changedCompositions,
-                new LongSparseArray<>(),
+                new LongHashMap<>(),
                 foldersToDelete);
     }*/
 }
\ No newline at end of file
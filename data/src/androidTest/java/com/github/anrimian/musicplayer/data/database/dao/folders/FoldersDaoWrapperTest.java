@@ -0,0 +1,326 @@
+package com.github.anrimian.musicplayer.data.database.dao.folders;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.github.anrimian.musicplayer.data.database.AppDatabase;
+import com.github.anrimian.musicplayer.data.database.AppDatabaseCallback;
+import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDao;
+import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDaoWrapper;
+import com.github.anrimian.musicplayer.data.database.entities.composition.CompositionEntity;
+import com.github.anrimian.musicplayer.data.database.entities.folder.FolderEntity;
+import com.github.anrimian.musicplayer.data.database.observer.LibraryQueryObserver;
+import com.github.anrimian.musicplayer.domain.models.composition.Composition;
+import com.github.anrimian.musicplayer.domain.models.folders.CompositionFileSource;
+import com.github.anrimian.musicplayer.domain.models.folders.FileSource;
+import com.github.anrimian.musicplayer.domain.models.folders.FolderFileSource;
+import com.github.anrimian.musicplayer.domain.models.order.Order;
+import com.github.anrimian.musicplayer.domain.models.order.OrderType;
+import com.github.anrimian.musicplayer.domain.utils.paging.PageSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+public class FoldersDaoWrapperTest {
+
+    private AppDatabase db;
+    private CompositionsDao compositionsDao;
+    private FoldersDao foldersDao;
+
+    private FoldersDaoWrapper daoWrapper;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .addCallback(new AppDatabaseCallback())
+                .build();
+        compositionsDao = db.compositionsDao();
+        foldersDao = db.foldersDao();
+
+        LibraryQueryObserver queryObserver = new LibraryQueryObserver(db, Schedulers.trampoline());
+        CompositionsDaoWrapper compositionsDaoWrapper = new CompositionsDaoWrapper(db,
+                db.artistsDao(),
+                compositionsDao,
+                db.albumsDao(),
+                queryObserver);
+        daoWrapper = new FoldersDaoWrapper(db, foldersDao, compositionsDaoWrapper, queryObserver);
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void folderStatsTest() {
+        long firstFolderId = foldersDao.insertFolder(new FolderEntity(null, "first"));
+        long childFolderId = foldersDao.insertFolder(new FolderEntity(firstFolderId, "child"));
+        long secondFolderId = foldersDao.insertFolder(new FolderEntity(null, "second"));
+
+        compositionsDao.insert(composition(firstFolderId, 10, 100));
+        long newestId = compositionsDao.insert(composition(childFolderId, 20, 300));
+        long childCompositionId = compositionsDao.insert(composition(childFolderId, 30, 200));
+        long secondCompositionId = compositionsDao.insert(composition(secondFolderId, 5, 50));
+
+        assertStats(firstFolderId, 3, 60, 300);
+        assertStats(childFolderId, 2, 50, 300);
+        assertStats(secondFolderId, 1, 5, 50);
+
+        //move folder
+        daoWrapper.updateFolderId(Collections.singletonList(
+                new FolderFileSource(childFolderId, "child", 2)), secondFolderId);
+        assertStats(firstFolderId, 1, 10, 100);
+        assertStats(secondFolderId, 3, 55, 300);
+
+        //delete last added composition
+        compositionsDao.delete(newestId);
+        assertStats(secondFolderId, 2, 35, 200);
+        assertStats(childFolderId, 1, 30, 200);
+
+        //move composition
+        compositionsDao.updateFolderId(childCompositionId, null);
+        assertStats(secondFolderId, 1, 5, 50);
+        assertStats(childFolderId, 0, 0, 0);
+
+        compositionsDao.updateFolderId(secondCompositionId, firstFolderId);
+        foldersDao.deleteFolder(secondFolderId);
+        assertStats(firstFolderId, 2, 15, 100);
+    }
+
+    @Test
+    public void folderListOrderTest() {
+        long firstFolderId = foldersDao.insertFolder(new FolderEntity(null, "first"));
+        long childFolderId = foldersDao.insertFolder(new FolderEntity(firstFolderId, "child"));
+        long secondFolderId = foldersDao.insertFolder(new FolderEntity(null, "second"));
+        compositionsDao.insert(composition(childFolderId, 10, 100));
+        compositionsDao.insert(composition(childFolderId, 10, 100));
+        compositionsDao.insert(composition(secondFolderId, 15, 200));
+
+        List<FolderFileSource> folders = getFolders(new Order(OrderType.SIZE, false));
+        assertEquals(secondFolderId, folders.get(0).getId());
+        assertEquals(1, folders.get(0).getFilesCount());
+        assertEquals(firstFolderId, folders.get(1).getId());
+        assertEquals(2, folders.get(1).getFilesCount());
+
+        folders = getFolders(new Order(OrderType.ADD_TIME, true));
+        assertEquals(secondFolderId, folders.get(0).getId());
+        assertEquals(firstFolderId, folders.get(1).getId());
+    }
+
+    @Test
+    public void filesPageSourceTest() {
+        long parentFolderId = foldersDao.insertFolder(new FolderEntity(null, "parent"));
+        long childFolderId = foldersDao.insertFolder(new FolderEntity(parentFolderId, "child"));
+        long secondChildFolderId = foldersDao.insertFolder(new FolderEntity(parentFolderId, "second child"));
+        compositionsDao.insert(composition(childFolderId, 10, 100));
+        compositionsDao.insert(composition(secondChildFolderId, 10, 100));
+        for (int i = 0; i < 5; i++) {
+            compositionsDao.insert(composition(parentFolderId, 10 + i, 100 + i));
+        }
+        Order order = new Order(OrderType.ADD_TIME, true);
+
+        List<FileSource> files = daoWrapper.getFilesObservable(parentFolderId, order, false, null)
+                .blockingFirst();
+        PageSource<FileSource> pageSource = daoWrapper.getFilesPageSource(parentFolderId,
+                order,
+                false,
+                null);
+
+        assertEquals(7, pageSource.getCount());
+        assertEquals(files, pageSource.loadRange(0, 10));
+        assertEquals(files.subList(2, 5), pageSource.loadAfter(files.get(1), 3));
+        assertEquals(files.subList(0, 3), pageSource.loadBefore(files.get(3), 3));
+    }
+
+    @Test
+    public void folderListPerformanceTest() {
+        List<Long> folderIds = new ArrayList<>();
+        db.runInTransaction(() -> {
+            for (int i = 0; i < 20; i++) {
+                long rootId = foldersDao.insertFolder(new FolderEntity(null, "root " + i));
+                for (int j = 0; j < 20; j++) {
+                    long folderId = foldersDao.insertFolder(new FolderEntity(rootId, "folder " + j));
+                    for (int k = 0; k < 5; k++) {
+                        folderIds.add(foldersDao.insertFolder(new FolderEntity(folderId, "child " + k)));
+                    }
+                }
+            }
+        });
+        int count = 50_000;
+        List<CompositionEntity> entities = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entities.add(composition(folderIds.get(i % folderIds.size()), i, i));
+        }
+        compositionsDao.insert(entities);
+
+        //listing with recursive aggregates, as it was before folders stats
+        SimpleSQLiteQuery recursiveQuery = new SimpleSQLiteQuery(FoldersDao.getRecursiveFolderQuery(null) +
+                "SELECT id, name, " +
+                "(SELECT count() FROM compositions WHERE folderId IN (SELECT childFolderId FROM allChildFolders WHERE rootFolderId = folders.id)) as filesCount " +
+                "FROM folders " +
+                "WHERE parentId IS NULL " +
+                "ORDER BY (SELECT sum(size) FROM compositions WHERE folderId IN (SELECT childFolderId FROM allChildFolders WHERE rootFolderId = folders.id))");
+        Order order = new Order(OrderType.SIZE, false);
+
+        foldersDao.getFolders(recursiveQuery);
+        getFolders(order);
+
+        long startTime = System.nanoTime();
+        List<FolderFileSource> recursiveResult = foldersDao.getFolders(recursiveQuery);
+        long recursiveTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        List<FolderFileSource> result = getFolders(order);
+        long statsTime = System.nanoTime() - startTime;
+
+        assertEquals(recursiveResult, result);
+        Log.d("KEK", "compositions: " + count
+                + ", recursive listing: " + recursiveTime / 1_000_000 + " ms"
+                + ", stats listing: " + statsTime / 1_000_000 + " ms");
+    }
+
+    @Test
+    public void folderPlayOrderTest() {
+        long firstFolderId = foldersDao.insertFolder(new FolderEntity(null, "first"));
+        long childFolderId = foldersDao.insertFolder(new FolderEntity(firstFolderId, "child"));
+        long secondFolderId = foldersDao.insertFolder(new FolderEntity(null, "second"));
+        foldersDao.insertFolder(new FolderEntity(null, "empty"));
+        long firstCompositionId = compositionsDao.insert(composition(firstFolderId, 10, 0));
+        long childCompositionId = compositionsDao.insert(composition(childFolderId, 20, 0));
+        long secondCompositionId = compositionsDao.insert(composition(secondFolderId, 5, 0));
+        long rootCompositionId = compositionsDao.insert(composition(null, 3, 0));
+        long smallRootCompositionId = compositionsDao.insert(composition(null, 1, 0));
+
+        Order order = new Order(OrderType.SIZE, false);
+        List<List<Long>> pages = daoWrapper.getAllCompositionsInFolderPages(null, order, false, 1)
+                .map(FoldersDaoWrapperTest::getIds)
+                .toList()
+                .blockingGet();
+
+        assertEquals(4, pages.size());
+        assertEquals(Collections.singletonList(secondCompositionId), pages.get(0));
+        assertEquals(Collections.singletonList(childCompositionId), pages.get(1));
+        assertEquals(Collections.singletonList(firstCompositionId), pages.get(2));
+        assertEquals(Arrays.asList(smallRootCompositionId, rootCompositionId), pages.get(3));
+
+        assertEquals(getIds(extractRecursively(null, order)),
+                getIds(daoWrapper.getAllCompositionsInFolder(null, order, false)));
+    }
+
+    @Test
+    public void folderPlayOrderPerformanceTest() {
+        List<Long> folderIds = new ArrayList<>();
+        db.runInTransaction(() -> {
+            for (int i = 0; i < 20; i++) {
+                long rootId = foldersDao.insertFolder(new FolderEntity(null, "root " + i));
+                for (int j = 0; j < 20; j++) {
+                    long folderId = foldersDao.insertFolder(new FolderEntity(rootId, "folder " + j));
+                    for (int k = 0; k < 5; k++) {
+                        folderIds.add(foldersDao.insertFolder(new FolderEntity(folderId, "child " + k)));
+                    }
+                }
+            }
+        });
+        int count = 50_000;
+        List<CompositionEntity> entities = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entities.add(composition(folderIds.get(i % folderIds.size()), i, i));
+        }
+        compositionsDao.insert(entities);
+        Order order = new Order(OrderType.SIZE, false);
+
+        //query per folder, as it was before single query extraction
+        long startTime = System.nanoTime();
+        List<Composition> recursiveResult = extractRecursively(null, order);
+        long recursiveTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        daoWrapper.getAllCompositionsInFolderPages(null, order, false, 500).blockingFirst();
+        long firstPageTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        List<Composition> result = daoWrapper.getAllCompositionsInFolder(null, order, false);
+        long allPagesTime = System.nanoTime() - startTime;
+
+        assertEquals(getIds(recursiveResult), getIds(result));
+        Log.d("KEK", "compositions: " + count
+                + ", recursive extraction: " + recursiveTime / 1_000_000 + " ms"
+                + ", first page: " + firstPageTime / 1_000_000 + " ms"
+                + ", all pages: " + allPagesTime / 1_000_000 + " ms");
+    }
+
+    private List<Composition> extractRecursively(Long folderId, Order order) {
+        List<Composition> result = new ArrayList<>();
+        for (FileSource fileSource: daoWrapper.getFilesObservable(folderId, order, false, null).blockingFirst()) {
+            if (fileSource instanceof FolderFileSource) {
+                result.addAll(extractRecursively(((FolderFileSource) fileSource).getId(), order));
+            } else {
+                result.add(((CompositionFileSource) fileSource).getComposition());
+            }
+        }
+        return result;
+    }
+
+    private List<FolderFileSource> getFolders(Order order) {
+        List<FileSource> files = daoWrapper.getFilesObservable(null, order, false, null)
+                .blockingFirst();
+        List<FolderFileSource> folders = new ArrayList<>();
+        for (FileSource fileSource: files) {
+            if (fileSource instanceof FolderFileSource) {
+                folders.add((FolderFileSource) fileSource);
+            }
+        }
+        return folders;
+    }
+
+    private void assertStats(long folderId, int filesCount, long totalSize, long lastDateAdded) {
+        try (Cursor c = db.query("SELECT filesCount, totalSize, lastDateAdded FROM folders_stats WHERE folderId = ?",
+                new Object[] { folderId })) {
+            c.moveToFirst();
+            assertEquals(filesCount, c.getInt(0));
+            assertEquals(totalSize, c.getLong(1));
+            assertEquals(lastDateAdded, c.getLong(2));
+        }
+    }
+
+    private static List<Long> getIds(List<Composition> compositions) {
+        List<Long> ids = new ArrayList<>(compositions.size());
+        for (Composition composition: compositions) {
+            ids.add(composition.getId());
+        }
+        return ids;
+    }
+
+    private static CompositionEntity composition(Long folderId, long size, long dateAdded) {
+        return new CompositionEntity(null,
+                null,
+                folderId,
+                "test title",
+                null,
+                "test file name",
+                "test file path",
+                100L,
+                size,
+                null,
+                new Date(dateAdded),
+                new Date(dateAdded),
+                null);
+    }
+}
@@ -9,11 +9,14 @@ import com.github.anrimian.musicplayer.data.database.AppDatabase;
 import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDao;
 import com.github.anrimian.musicplayer.data.database.entities.genres.GenreEntity;
 import com.github.anrimian.musicplayer.data.database.entities.genres.GenreEntryEntity;
+import com.github.anrimian.musicplayer.data.database.observer.LibraryQueryObserver;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -34,7 +37,10 @@ public class GenresDaoWrapperTest {
         compositionsDao = db.compositionsDao();
         genreDao = db.genreDao();
 
-        daoWrapper = new GenresDaoWrapper(db, genreDao, compositionsDao);
+        daoWrapper = new GenresDaoWrapper(db,
+                genreDao,
+                compositionsDao,
+                new LibraryQueryObserver(db, Schedulers.trampoline()));
     }
 
     @After
@@ -0,0 +1,319 @@
+package com.github.anrimian.musicplayer.data.database.dao.play_queue;
+
+import static com.github.anrimian.musicplayer.domain.Constants.NO_POSITION;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static utils.TestDataProvider.composition;
+import static utils.TestDataProvider.fakeComposition;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.github.anrimian.musicplayer.data.database.AppDatabase;
+import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDao;
+import com.github.anrimian.musicplayer.data.database.entities.play_queue.PlayQueueEntity;
+import com.github.anrimian.musicplayer.data.database.observer.LibraryQueryObserver;
+import com.github.anrimian.musicplayer.domain.models.composition.Composition;
+import com.github.anrimian.musicplayer.domain.models.play_queue.PlayQueueItem;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+public class PlayQueueDaoWrapperTest {
+
+    private AppDatabase db;
+    private CompositionsDao compositionsDao;
+    private PlayQueueDao playQueueDao;
+
+    private PlayQueueDaoWrapper daoWrapper;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        compositionsDao = db.compositionsDao();
+        playQueueDao = db.playQueueDao();
+
+        daoWrapper = new PlayQueueDaoWrapper(db,
+                playQueueDao,
+                new LibraryQueryObserver(db, Schedulers.trampoline()),
+                Schedulers.trampoline());
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void navigationMatchesDatabaseTest() {
+        daoWrapper.insertNewPlayQueue(insertCompositions(20), false, NO_POSITION);
+        long firstId = playQueueDao.getFirstItem();
+        daoWrapper.addCompositionsToQueue(insertCompositions(3), firstId);
+        daoWrapper.addCompositionsToEndQueue(insertCompositions(3));
+
+        long id = firstId;
+        for (int i = 0; i < 26; i++) {
+            Long expectedId = playQueueDao.getNextQueueItemId(id);
+            if (expectedId == null) {
+                expectedId = playQueueDao.getFirstItem();
+            }
+            long nextId = daoWrapper.getNextQueueItemId(id, false);
+            assertEquals((long) expectedId, nextId);
+            assertEquals(daoWrapper.getPosition(nextId, false), playQueueDao.getPosition(nextId));
+            id = nextId;
+        }
+
+        ShufflePermutation permutation = new ShufflePermutation(playQueueDao.getShuffleSeed());
+        List<Long> shuffledOrder = getItemIds(true);
+        id = shuffledOrder.get(0);
+        for (int i = 0; i < 26; i++) {
+            long nextId = daoWrapper.getNextQueueItemId(id, true);
+            assertEquals((long) shuffledOrder.get((i + 1) % shuffledOrder.size()), nextId);
+            assertEquals(daoWrapper.getPosition(nextId, true),
+                    permutation.getPosition(playQueueDao.getShuffledPosition(nextId)));
+            id = nextId;
+        }
+    }
+
+    @Test
+    public void reshuffleTest() {
+        daoWrapper.insertNewPlayQueue(insertCompositions(100), true, NO_POSITION);
+        List<PlayQueueEntity> items = playQueueDao.getPlayQueue();
+        List<Long> shuffledOrder = getItemIds(true);
+        long currentId = shuffledOrder.get(50);
+
+        daoWrapper.reshuffleQueue(currentId);
+
+        //only keys of current and previous first items are exchanged
+        List<PlayQueueEntity> newItems = playQueueDao.getPlayQueue();
+        int changedKeys = 0;
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals(items.get(i).getId(), newItems.get(i).getId());
+            assertEquals(items.get(i).getPosition(), newItems.get(i).getPosition());
+            if (items.get(i).getShuffledPosition() != newItems.get(i).getShuffledPosition()) {
+                changedKeys++;
+            }
+        }
+        assertTrue(changedKeys <= 2);
+
+        List<Long> newShuffledOrder = getItemIds(true);
+        assertNotEquals(shuffledOrder, newShuffledOrder);
+        assertEquals(currentId, (long) newShuffledOrder.get(0));
+        long id = currentId;
+        for (int i = 1; i < newShuffledOrder.size(); i++) {
+            id = daoWrapper.getNextQueueItemId(id, true);
+            assertEquals((long) newShuffledOrder.get(i), id);
+        }
+    }
+
+    @Test
+    public void addToEndOfLargeShuffledQueueTest() {
+        daoWrapper.insertNewPlayQueue(insertCompositions(40_000), false, NO_POSITION);
+        daoWrapper.reshuffleQueue(playQueueDao.getFirstItem());
+        List<PlayQueueEntity> items = playQueueDao.getPlayQueue();
+        List<Long> expectedShuffledOrder = getItemIds(true);
+
+        daoWrapper.addCompositionsToEndQueue(insertCompositions(100));
+
+        //existing items are not renumbered
+        List<PlayQueueEntity> newItems = playQueueDao.getPlayQueue();
+        assertEquals(items.size() + 100, newItems.size());
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals(items.get(i).getId(), newItems.get(i).getId());
+            assertEquals(items.get(i).getPosition(), newItems.get(i).getPosition());
+            assertEquals(items.get(i).getShuffledPosition(), newItems.get(i).getShuffledPosition());
+        }
+        List<Long> shuffledOrder = getItemIds(true);
+        assertEquals(expectedShuffledOrder, shuffledOrder.subList(0, items.size()));
+        assertEquals(shuffledOrder, getQueueIds(true));
+    }
+
+    @Test
+    public void shuffledQueueOrderTest() {
+        daoWrapper.insertNewPlayQueue(insertCompositions(100), true, NO_POSITION);
+        assertEquals(getItemIds(true), getQueueIds(true));
+
+        daoWrapper.reshuffleQueue(getItemIds(true).get(30));
+        assertEquals(getItemIds(true), getQueueIds(true));
+        assertEquals(getItemIds(false), getQueueIds(false));
+    }
+
+    @Test
+    public void startItemIsFirstInShuffledOrderTest() {
+        List<Composition> compositions = insertCompositions(20);
+
+        long itemId = daoWrapper.insertNewPlayQueue(compositions, true, 7);
+
+        assertEquals(compositions.get(7).getId(), playQueueDao.getItem(itemId).getAudioId());
+        assertEquals(itemId, (long) getItemIds(true).get(0));
+        assertEquals(0, daoWrapper.getIndexPosition(itemId, true));
+    }
+
+    @Test
+    public void playNextLinearTest() {
+        testPlayNext(false);
+    }
+
+    @Test
+    public void playNextShuffledTest() {
+        testPlayNext(true);
+    }
+
+    @Test
+    public void playNextLargeListTest() {
+        daoWrapper.insertNewPlayQueue(insertCompositions(5), false, NO_POSITION);
+        List<Long> expectedOrder = getItemIds(false);
+        List<Long> expectedShuffledOrder = getItemIds(true);
+        long currentId = expectedOrder.get(2);
+
+        long firstId = daoWrapper.addCompositionsToQueue(insertCompositions(3000), currentId);
+
+        for (int i = 0; i < 3000; i++) {
+            expectedOrder.add(3 + i, firstId + i);
+            expectedShuffledOrder.add(expectedShuffledOrder.indexOf(currentId) + 1 + i, firstId + i);
+        }
+        assertEquals(expectedOrder, getItemIds(false));
+        assertEquals(expectedShuffledOrder, getItemIds(true));
+    }
+
+    @Test
+    public void restoreDeletedItemTest() {
+        daoWrapper.insertNewPlayQueue(insertCompositions(5), false, NO_POSITION);
+        List<Long> expectedOrder = getItemIds(false);
+        long deletedId = expectedOrder.get(2);
+
+        daoWrapper.deleteItem(deletedId);
+        long addedId = daoWrapper.addCompositionsToQueue(insertCompositions(1), expectedOrder.get(1));
+        daoWrapper.restoreDeletedItem();
+
+        expectedOrder.add(2, addedId);
+        assertEquals(expectedOrder, getItemIds(false));
+        assertEquals(deletedId, daoWrapper.getNextQueueItemId(addedId, false));
+    }
+
+    @Test
+    public void swapItemsTest() {
+        daoWrapper.insertNewPlayQueue(insertCompositions(3), false, NO_POSITION);
+        long firstId = playQueueDao.getFirstItem();
+        long lastId = playQueueDao.getLastItem();
+
+        daoWrapper.swapItems(item(firstId), item(lastId), false);
+
+        assertEquals(firstId, daoWrapper.getNextQueueItemId(daoWrapper.getNextQueueItemId(lastId, false), false));
+        assertEquals(2, playQueueDao.getPosition(firstId));
+        assertEquals(0, playQueueDao.getPosition(lastId));
+    }
+
+    @Test
+    public void cascadeDeletionTest() {
+        List<Composition> compositions = insertCompositions(3);
+        daoWrapper.insertNewPlayQueue(compositions, false, NO_POSITION);
+        long firstId = playQueueDao.getFirstItem();
+        long lastId = playQueueDao.getLastItem();
+        daoWrapper.getNextQueueItemId(firstId, false);
+
+        compositionsDao.delete(compositions.get(1).getId());
+
+        assertEquals(lastId, (long) daoWrapper.getItemAtPosition(1, false));
+        assertEquals(lastId, daoWrapper.getNextQueueItemId(firstId, false));
+    }
+
+    @Test
+    public void skipLatencyTest() {
+        for (int count: new int[] { 1_000, 10_000, 50_000 }) {
+            daoWrapper.insertNewPlayQueue(insertCompositions(count), true, NO_POSITION);
+            long firstId = playQueueDao.getFirstItem();
+
+            //shuffled order is not available in sql, linear order is measured
+            long id = firstId;
+            long startTime = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                Long nextId = playQueueDao.getNextQueueItemId(id);
+                id = nextId == null? playQueueDao.getFirstItem() : nextId;
+                playQueueDao.getPosition(id);
+            }
+            long sqlTime = System.nanoTime() - startTime;
+
+            id = firstId;
+            startTime = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                id = daoWrapper.getNextQueueItemId(id, true);
+                daoWrapper.getPosition(id, true);
+            }
+            long indexTime = System.nanoTime() - startTime;
+
+            Log.d("KEK", "queue size: " + count
+                    + ", sql skip: " + sqlTime / count / 1000 + " us"
+                    + ", index skip: " + indexTime / count / 1000 + " us");
+        }
+    }
+
+    private void testPlayNext(boolean isShuffled) {
+        daoWrapper.insertNewPlayQueue(insertCompositions(5), isShuffled, NO_POSITION);
+        List<Long> expectedOrder = getItemIds(isShuffled);
+        long currentId = expectedOrder.get(2);
+
+        //enough to exhaust gap after current item
+        for (int i = 0; i < 15; i++) {
+            long id = daoWrapper.addCompositionsToQueue(insertCompositions(1), currentId);
+            expectedOrder.add(3, id);
+
+            assertEquals(expectedOrder, getItemIds(isShuffled));
+            assertEquals(id, daoWrapper.getNextQueueItemId(currentId, isShuffled));
+            assertEquals(3, daoWrapper.getIndexPosition(id, isShuffled));
+        }
+    }
+
+    //item ids in order of database positions, shuffle keys are mapped by stored seed
+    private List<Long> getItemIds(boolean isShuffled) {
+        List<PlayQueueEntity> items = playQueueDao.getPlayQueue();
+        if (isShuffled) {
+            ShufflePermutation permutation = new ShufflePermutation(playQueueDao.getShuffleSeed());
+            Collections.sort(items, (first, second) ->
+                    Integer.compare(permutation.getPosition(first.getShuffledPosition()),
+                            permutation.getPosition(second.getShuffledPosition())));
+        }
+        List<Long> ids = new ArrayList<>(items.size());
+        for (PlayQueueEntity item: items) {
+            ids.add(item.getId());
+        }
+        return ids;
+    }
+
+    private List<Long> getQueueIds(boolean isShuffled) {
+        List<PlayQueueItem> items = daoWrapper.getPlayQueueObservable(isShuffled, false)
+                .blockingFirst();
+        List<Long> ids = new ArrayList<>(items.size());
+        for (PlayQueueItem item: items) {
+            ids.add(item.getId());
+        }
+        return ids;
+    }
+
+    private List<Composition> insertCompositions(int count) {
+        List<Composition> compositions = new ArrayList<>(count);
+        db.runInTransaction(() -> {
+            for (int i = 0; i < count; i++) {
+                long id = compositionsDao.insert(composition(null, null, "test " + i));
+                compositions.add(fakeComposition(id));
+            }
+        });
+        return compositions;
+    }
+
+    private static PlayQueueItem item(long id) {
+        return new PlayQueueItem(id, fakeComposition(0));
+    }
+}
@@ -4,13 +4,13 @@ import android.Manifest;
 import android.content.Context;
 import android.util.Log;
 
-import androidx.collection.LongSparseArray;
 import androidx.test.platform.app.InstrumentationRegistry;
 import androidx.test.rule.GrantPermissionRule;
 
 import com.github.anrimian.musicplayer.data.storage.providers.playlists.StoragePlayList;
 import com.github.anrimian.musicplayer.data.storage.providers.playlists.StoragePlayListItem;
 import com.github.anrimian.musicplayer.data.storage.providers.playlists.StoragePlayListsProvider;
+import com.github.anrimian.musicplayer.data.utils.collections.LongHashMap;
 
 import org.junit.Before;
 import org.junit.Rule;
@@ -39,24 +39,23 @@ public class StoragePlayListProviderTest {
 
     @Test
     public void getPlayLists() {
-        LongSparseArray<StoragePlayList> playLists = storagePlayListsProvider.getPlayLists();
+        LongHashMap<StoragePlayList> playLists = storagePlayListsProvider.getPlayLists();
         assertNotNull(playLists);
     }
 
     @Test
     public void createAndDeletePlayListTest() {
-        TestObserver<LongSparseArray<StoragePlayList>> playListsObserver = storagePlayListsProvider.getPlayListsObservable()
+        TestObserver<LongHashMap<StoragePlayList>> playListsObserver = storagePlayListsProvider.getPlayListsObservable()
                 .test();
 
         StoragePlayList createdPlayList = storagePlayListsProvider.createPlayList("test playlist10");
         assertEquals("test playlist10", createdPlayList.getName());
 
-        LongSparseArray<StoragePlayList> map = storagePlayListsProvider.getPlayLists();
+        LongHashMap<StoragePlayList> map = storagePlayListsProvider.getPlayLists();
         if (map == null) {
-            map = new LongSparseArray<>();
+            map = new LongHashMap<>();
         }
-        for(int i = 0, size = map.size(); i < size; i++) {
-            StoragePlayList playList = map.valueAt(i);
+        for (StoragePlayList playList: map.values()) {
             if (playList.getName().equals("test playlist10")) {
                 storagePlayListsProvider.deletePlayList(playList.getStorageId());
             }
@@ -144,12 +143,11 @@ public class StoragePlayListProviderTest {
     }
 
     private StoragePlayList getPlayList(String name) {
-        LongSparseArray<StoragePlayList> map = storagePlayListsProvider.getPlayLists();
+        LongHashMap<StoragePlayList> map = storagePlayListsProvider.getPlayLists();
         if (map == null) {
-            map = new LongSparseArray<>();
+            map = new LongHashMap<>();
         }
-        for(int i = 0, size = map.size(); i < size; i++) {
-            StoragePlayList playList = map.valueAt(i);
+        for (StoragePlayList playList: map.values()) {
             if (playList.getName().equals(name)) {
                 return playList;
             }
@@ -158,12 +156,11 @@ public class StoragePlayListProviderTest {
     }
 
     private StoragePlayListItem findComposition(int index) {
-        LongSparseArray<StoragePlayList> map = storagePlayListsProvider.getPlayLists();
+        LongHashMap<StoragePlayList> map = storagePlayListsProvider.getPlayLists();
         if (map == null) {
-            map = new LongSparseArray<>();
+            map = new LongHashMap<>();
         }
-        for(int i = 0, size = map.size(); i < size; i++) {
-            StoragePlayList playList = map.valueAt(i);
+        for (StoragePlayList playList: map.values()) {
             List<StoragePlayListItem> items = storagePlayListsProvider.getPlayListItems(playList.getStorageId());
 
             if (index < items.size()) {
@@ -6,10 +6,10 @@ import android.Manifest;
 import android.content.Context;
 import android.util.Log;
 
-import androidx.collection.LongSparseArray;
 import androidx.test.rule.GrantPermissionRule;
 
 import com.github.anrimian.musicplayer.data.storage.providers.albums.StorageAlbumsProvider;
+import com.github.anrimian.musicplayer.data.utils.collections.LongHashMap;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -35,12 +35,11 @@ public class StorageMusicProviderTest {
 
     @Test
     public void testRepositoryReturnValues() {
-        LongSparseArray<StorageFullComposition> map = storageMusicProvider.getCompositions(0, false);
+        LongHashMap<StorageFullComposition> map = storageMusicProvider.getCompositions(0, false);
         if (map == null) {
-            map = new LongSparseArray<>();
+            map = new LongHashMap<>();
         }
-        for(int i = 0, size = map.size(); i < size; i++) {
-            StorageFullComposition composition = map.valueAt(i);
+        for (StorageFullComposition composition: map.values()) {
             System.out.println(composition);
             Assert.assertNotNull(composition.getRelativePath());
         }
@@ -58,7 +57,7 @@ public class StorageMusicProviderTest {
 
     private long load() {
         long startTime = System.currentTimeMillis();
-        LongSparseArray<StorageFullComposition> map = storageMusicProvider.getCompositions( 0, false);
+        LongHashMap<StorageFullComposition> map = storageMusicProvider.getCompositions( 0, false);
         if (map == null) {
             Log.d("KEK", "load failed");
         }
@@ -5,6 +5,7 @@ import android.os.Handler;
 
 import com.github.anrimian.musicplayer.data.controllers.music.equalizer.EqualizerController;
 import com.github.anrimian.musicplayer.data.controllers.music.error.PlayerErrorParser;
+import com.github.anrimian.musicplayer.data.controllers.music.loudness.LoudnessGainProvider;
 import com.github.anrimian.musicplayer.data.controllers.music.players.AndroidMediaPlayer;
 import com.github.anrimian.musicplayer.data.controllers.music.players.AppMediaPlayer;
 import com.github.anrimian.musicplayer.data.controllers.music.players.CompositeMediaPlayer;
@@ -15,12 +16,14 @@ import com.github.anrimian.musicplayer.domain.interactors.analytics.Analytics;
 import com.github.anrimian.musicplayer.domain.models.composition.source.CompositionSource;
 import com.github.anrimian.musicplayer.domain.models.composition.source.LibraryCompositionSource;
 import com.github.anrimian.musicplayer.domain.models.player.MediaPlayers;
+import com.github.anrimian.musicplayer.domain.models.player.PlaybackPosition;
 import com.github.anrimian.musicplayer.domain.models.player.events.PlayerEvent;
 import com.github.anrimian.musicplayer.domain.repositories.SettingsRepository;
 import com.github.anrimian.musicplayer.domain.repositories.UiStateRepository;
 import com.github.anrimian.musicplayer.domain.utils.functions.Function;
 
 import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nullable;
 
@@ -35,6 +38,9 @@ import io.reactivex.rxjava3.subjects.BehaviorSubject;
 
 public class MusicPlayerControllerImpl implements MusicPlayerController {
 
+    //position is saved on discontinuities and periodically while playing to survive process death
+    private static final long POSITION_SAVE_INTERVAL_MILLIS = 30000;
+
     private final AppMediaPlayer mediaPlayer;
     private final UiStateRepository uiStateRepository;
 
@@ -50,7 +56,8 @@ public class MusicPlayerControllerImpl implements MusicPlayerController {
                                      Scheduler ioScheduler,
                                      PlayerErrorParser playerErrorParser,
                                      Analytics analytics,
-                                     EqualizerController equalizerController) {
+                                     EqualizerController equalizerController,
+                                     LoudnessGainProvider loudnessGainProvider) {
         this.uiStateRepository = uiStateRepository;
 
         int[] mediaPlayers = settingsRepository.getEnabledMediaPlayers();
@@ -58,11 +65,11 @@ public class MusicPlayerControllerImpl implements MusicPlayerController {
         for (int playerId : mediaPlayers) {
             switch (playerId) {
                 case MediaPlayers.EXO_MEDIA_PLAYER: {
-                    mediaPlayerImpls.add(() -> new ExoMediaPlayer(context, sourceRepository, uiScheduler, ioScheduler, playerErrorParser, equalizerController));
+                    mediaPlayerImpls.add(() -> new ExoMediaPlayer(context, sourceRepository, uiScheduler, ioScheduler, playerErrorParser, equalizerController, loudnessGainProvider));
                     break;
                 }
                 case MediaPlayers.ANDROID_MEDIA_PLAYER: {
-                    mediaPlayerImpls.add(() -> new AndroidMediaPlayer(context, uiScheduler, sourceRepository, playerErrorParser, analytics, equalizerController));
+                    mediaPlayerImpls.add(() -> new AndroidMediaPlayer(context, uiScheduler, sourceRepository, playerErrorParser, analytics, equalizerController, loudnessGainProvider));
                     break;
                 }
             }
@@ -70,6 +77,11 @@ public class MusicPlayerControllerImpl implements MusicPlayerController {
         }
         mediaPlayer = new CompositeMediaPlayer(mediaPlayerImpls);
 
+        //noinspection ResultOfMethodCallIgnored
+        mediaPlayer.getPlaybackPositionObservable()
+                .switchMap(this::getPositionsToSave)
+                .subscribe(this::saveTrackPosition);
+
 //        mediaPlayer = new AndroidMediaPlayer(context, uiScheduler, sourceRepository, playerErrorParser, analytics, equalizerController);
 //        mediaPlayer = new ExoMediaPlayer(context, sourceRepository, uiScheduler, playerErrorParser, equalizerController);
     }
@@ -86,6 +98,11 @@ public class MusicPlayerControllerImpl implements MusicPlayerController {
         mediaPlayer.prepareToPlay(source, trackPosition, null);
     }
 
+    @Override
+    public void setNextSource(@Nullable CompositionSource source) {
+        mediaPlayer.setNextSource(source);
+    }
+
     @Override
     public void stop() {
         mediaPlayer.stop();
@@ -95,14 +112,11 @@ public class MusicPlayerControllerImpl implements MusicPlayerController {
     @Override
     public void pause() {
         mediaPlayer.pause();
-        //noinspection ResultOfMethodCallIgnored
-        mediaPlayer.getTrackPosition().subscribe(this::saveTrackPosition);
     }
 
     @Override
     public void seekTo(long position) {
         mediaPlayer.seekTo(position);
-        saveTrackPosition(position);
     }
 
     @Override
@@ -125,14 +139,14 @@ public class MusicPlayerControllerImpl implements MusicPlayerController {
     }
 
     @Override
-    public Observable<Long> getTrackPositionObservable() {
-        return mediaPlayer.getTrackPositionObservable();
+    public Observable<PlaybackPosition> getPlaybackPositionObservable() {
+        return mediaPlayer.getPlaybackPositionObservable();
     }
 
     @Override
     public void seekBy(long millis) {
         //noinspection ResultOfMethodCallIgnored
-        mediaPlayer.seekBy(millis).subscribe(this::saveTrackPosition);
+        mediaPlayer.seekBy(millis).subscribe();
     }
 
     @Override
@@ -161,6 +175,14 @@ public class MusicPlayerControllerImpl implements MusicPlayerController {
         return mediaPlayer.getSpeedChangeAvailableObservable();
     }
 
+    private Observable<Long> getPositionsToSave(PlaybackPosition position) {
+        if (!position.isPlaying()) {
+            return Observable.just(position.getPosition());
+        }
+        return Observable.interval(0, POSITION_SAVE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)
+                .map(o -> position.getCurrentPosition());
+    }
+
     private void saveTrackPosition(long position) {
         if (currentSource instanceof LibraryCompositionSource) {
             uiStateRepository.setTrackPosition(position);
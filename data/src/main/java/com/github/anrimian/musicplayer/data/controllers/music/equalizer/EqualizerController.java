@@ -4,6 +4,8 @@ import android.app.Activity;
 
 import com.github.anrimian.musicplayer.data.controllers.music.equalizer.external.ExternalEqualizer;
 import com.github.anrimian.musicplayer.data.controllers.music.equalizer.internal.InternalEqualizer;
+import com.github.anrimian.musicplayer.data.controllers.music.equalizer.software.SoftwareEqualizer;
+import com.github.anrimian.musicplayer.data.controllers.music.equalizer.software.SoftwareEqualizerAudioProcessor;
 import com.github.anrimian.musicplayer.domain.repositories.SettingsRepository;
 
 public class EqualizerController {
@@ -11,6 +13,7 @@ public class EqualizerController {
     private final SettingsRepository settingsRepository;
     private final ExternalEqualizer externalEqualizer;
     private final InternalEqualizer internalEqualizer;
+    private final SoftwareEqualizer softwareEqualizer;
 
     private int audioSessionId;
 
@@ -18,10 +21,12 @@ public class EqualizerController {
 
     public EqualizerController(SettingsRepository settingsRepository,
                                ExternalEqualizer externalEqualizer,
-                               InternalEqualizer internalEqualizer) {
+                               InternalEqualizer internalEqualizer,
+                               SoftwareEqualizer softwareEqualizer) {
         this.settingsRepository = settingsRepository;
         this.externalEqualizer = externalEqualizer;
         this.internalEqualizer = internalEqualizer;
+        this.softwareEqualizer = softwareEqualizer;
     }
 
     public void attachEqualizer(int audioSessionId) {
@@ -49,12 +54,19 @@ public class EqualizerController {
 
     public void enableEqualizer(int type) {
         settingsRepository.setSelectedEqualizerType(type);
-        currentEqualizer = selectEqualizerByType(type);
+        AppEqualizer equalizer = selectEqualizerByType(type);
+        if (currentEqualizer != null && currentEqualizer != equalizer) {
+            currentEqualizer.detachEqualizer(audioSessionId);
+        }
+        currentEqualizer = equalizer;
         currentEqualizer.attachEqualizer(audioSessionId);
     }
 
     public void launchExternalEqualizerSetup(Activity activity) {
         settingsRepository.setSelectedEqualizerType(EqualizerType.EXTERNAL);
+        if (currentEqualizer != null && currentEqualizer != externalEqualizer) {
+            currentEqualizer.detachEqualizer(audioSessionId);
+        }
         currentEqualizer = externalEqualizer;
         externalEqualizer.launchExternalEqualizerSetup(activity, this.audioSessionId);
     }
@@ -63,6 +75,10 @@ public class EqualizerController {
         return settingsRepository.getSelectedEqualizerType();
     }
 
+    public SoftwareEqualizerAudioProcessor getSoftwareEqualizerAudioProcessor() {
+        return softwareEqualizer.getAudioProcessor();
+    }
+
     private AppEqualizer selectEqualizerByType(int type) {
         switch (type) {
             case EqualizerType.EXTERNAL: {
@@ -71,6 +87,9 @@ public class EqualizerController {
             case EqualizerType.APP: {
                 return internalEqualizer;
             }
+            case EqualizerType.SOFTWARE: {
+                return softwareEqualizer;
+            }
             default: throw new IllegalStateException("unknown equalizer type: " + type);
         }
     }
@@ -4,4 +4,5 @@ public interface EqualizerType {
     int NONE = 0;
     int EXTERNAL = 1;
     int APP = 2;
+    int SOFTWARE = 3;
 }
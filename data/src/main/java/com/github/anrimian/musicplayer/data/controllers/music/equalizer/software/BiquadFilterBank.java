@@ -0,0 +1,269 @@
+package com.github.anrimian.musicplayer.data.controllers.music.equalizer.software;
+
+import java.util.Arrays;
+
+/**
+ * Graphic equalizer: chain of peaking biquad filters (RBJ cookbook) and preamp gain,
+ * processes interleaved float pcm in place.
+ *
+ * Gain changes are not applied at once: gains move to target values by small steps every
+ * {@link #RAMP_BLOCK_FRAMES} frames and preamp is also interpolated per sample inside the block,
+ * so there are no clicks when user moves sliders. Bands with zero gain are skipped.
+ *
+ * Setters can be called from any thread, processing is expected from one audio thread.
+ * Processing doesn't allocate memory, arrays are created only in {@link #configure(int, int)}.
+ */
+public class BiquadFilterBank {
+
+    public static final int[] CENTER_FREQUENCIES = {
+            31, 62, 125, 250, 500, 1000, 2000, 4000, 8000, 16000
+    };
+
+    static final int RAMP_BLOCK_FRAMES = 32;
+
+    //one octave bandwidth for octave spaced bands
+    private static final double Q = Math.sqrt(2);
+    private static final float GAIN_STEP_DB = 0.5f;
+    //bands too close to nyquist frequency are unstable
+    private static final double MAX_FREQUENCY_TO_NYQUIST_RATIO = 0.9;
+    //band with zero gain is skipped when its state decayed to this level
+    private static final double STATE_SILENCE_LEVEL = 1e-9;
+
+    private final int bandsCount;
+
+    private final float[] targetGains;
+    private volatile float targetPreampDb;
+    private volatile boolean targetsChanged;
+
+    private final float[] pendingGains;
+    private final float[] currentGains;
+    private float currentPreampDb;
+    private float currentPreampGain = 1f;
+    private boolean isRamping;
+    private final boolean[] isBandActive;
+    private boolean hasFlushingBands;
+
+    private final double[] cosW0;
+    private final double[] alpha;
+    private final boolean[] isBandSupported;
+
+    private final double[] b0;
+    private final double[] b1;
+    private final double[] b2;
+    private final double[] a1;
+    private final double[] a2;
+
+    private int channelCount;
+    //transposed direct form II state, [band * channelCount + channel]
+    private double[] z1 = new double[0];
+    private double[] z2 = new double[0];
+
+    public BiquadFilterBank() {
+        bandsCount = CENTER_FREQUENCIES.length;
+        targetGains = new float[bandsCount];
+        pendingGains = new float[bandsCount];
+        currentGains = new float[bandsCount];
+        cosW0 = new double[bandsCount];
+        alpha = new double[bandsCount];
+        isBandSupported = new boolean[bandsCount];
+        isBandActive = new boolean[bandsCount];
+        b0 = new double[bandsCount];
+        b1 = new double[bandsCount];
+        b2 = new double[bandsCount];
+        a1 = new double[bandsCount];
+        a2 = new double[bandsCount];
+    }
+
+    public int getBandsCount() {
+        return bandsCount;
+    }
+
+    public void setBandGain(int band, float gainDb) {
+        targetGains[band] = gainDb;
+        targetsChanged = true;
+    }
+
+    public void setPreampGain(float gainDb) {
+        targetPreampDb = gainDb;
+    }
+
+    /**
+     * Resets filters state and applies target gains without ramp
+     */
+    public void configure(int sampleRate, int channelCount) {
+        this.channelCount = channelCount;
+        z1 = new double[bandsCount * channelCount];
+        z2 = new double[bandsCount * channelCount];
+
+        double maxFrequency = sampleRate / 2d * MAX_FREQUENCY_TO_NYQUIST_RATIO;
+        for (int band = 0; band < bandsCount; band++) {
+            int frequency = CENTER_FREQUENCIES[band];
+            isBandSupported[band] = frequency < maxFrequency;
+            double w0 = 2 * Math.PI * frequency / sampleRate;
+            cosW0[band] = Math.cos(w0);
+            alpha[band] = Math.sin(w0) / (2 * Q);
+        }
+
+        targetsChanged = false;
+        System.arraycopy(targetGains, 0, pendingGains, 0, bandsCount);
+        System.arraycopy(pendingGains, 0, currentGains, 0, bandsCount);
+        currentPreampDb = targetPreampDb;
+        currentPreampGain = dbToGain(currentPreampDb);
+        isRamping = false;
+        hasFlushingBands = false;
+        for (int band = 0; band < bandsCount; band++) {
+            isBandActive[band] = isBandSupported[band] && currentGains[band] != 0f;
+            calculateCoefficients(band);
+        }
+    }
+
+    /**
+     * Clears filters state, for example after seek
+     */
+    public void reset() {
+        Arrays.fill(z1, 0);
+        Arrays.fill(z2, 0);
+    }
+
+    /**
+     * @param samples interleaved samples, result is written to the same array
+     * @param frameCount count of frames(samples of all channels) to process
+     */
+    public void process(float[] samples, int frameCount) {
+        int offset = 0;
+        while (frameCount > 0) {
+            int frames = Math.min(frameCount, RAMP_BLOCK_FRAMES);
+            updateGains();
+            for (int band = 0; band < bandsCount; band++) {
+                if (isBandActive[band]) {
+                    processBand(band, samples, offset, frames);
+                }
+            }
+            applyPreamp(samples, offset, frames);
+            offset += frames * channelCount;
+            frameCount -= frames;
+        }
+    }
+
+    private void processBand(int band, float[] samples, int offset, int frames) {
+        double b0 = this.b0[band];
+        double b1 = this.b1[band];
+        double b2 = this.b2[band];
+        double a1 = this.a1[band];
+        double a2 = this.a2[band];
+        int end = offset + frames * channelCount;
+        for (int channel = 0; channel < channelCount; channel++) {
+            int stateIndex = band * channelCount + channel;
+            double s1 = z1[stateIndex];
+            double s2 = z2[stateIndex];
+            for (int i = offset + channel; i < end; i += channelCount) {
+                double x = samples[i];
+                double y = b0 * x + s1;
+                s1 = b1 * x - a1 * y + s2;
+                s2 = b2 * x - a2 * y;
+                samples[i] = (float) y;
+            }
+            z1[stateIndex] = s1;
+            z2[stateIndex] = s2;
+        }
+    }
+
+    private void applyPreamp(float[] samples, int offset, int frames) {
+        float targetDb = targetPreampDb;
+        if (currentPreampDb == 0f && targetDb == 0f) {
+            return;
+        }
+        float gain = currentPreampGain;
+        float targetGain = gain;
+        if (currentPreampDb != targetDb) {
+            currentPreampDb = stepTo(currentPreampDb, targetDb);
+            targetGain = dbToGain(currentPreampDb);
+        }
+        float step = (targetGain - gain) / frames;
+        int end = offset + frames * channelCount;
+        for (int i = offset; i < end; i += channelCount) {
+            gain += step;
+            for (int channel = 0; channel < channelCount; channel++) {
+                samples[i + channel] *= gain;
+            }
+        }
+        currentPreampGain = targetGain;
+    }
+
+    private void updateGains() {
+        if (hasFlushingBands) {
+            //band with zero gain is identity filter, but its state still affects output
+            hasFlushingBands = false;
+            for (int band = 0; band < bandsCount; band++) {
+                if (isBandActive[band] && currentGains[band] == 0f) {
+                    if (isStateDecayed(band)) {
+                        isBandActive[band] = false;
+                    } else {
+                        hasFlushingBands = true;
+                    }
+                }
+            }
+        }
+        if (targetsChanged) {
+            targetsChanged = false;
+            System.arraycopy(targetGains, 0, pendingGains, 0, bandsCount);
+            isRamping = true;
+        }
+        if (!isRamping) {
+            return;
+        }
+        boolean hasChanges = false;
+        for (int band = 0; band < bandsCount; band++) {
+            float current = currentGains[band];
+            float target = pendingGains[band];
+            if (current == target) {
+                continue;
+            }
+            current = stepTo(current, target);
+            hasChanges |= current != target;
+            currentGains[band] = current;
+            calculateCoefficients(band);
+            if (current == 0f) {
+                hasFlushingBands = true;
+            } else {
+                isBandActive[band] = isBandSupported[band];
+            }
+        }
+        isRamping = hasChanges;
+    }
+
+    private static float stepTo(float current, float target) {
+        if (Math.abs(target - current) <= GAIN_STEP_DB) {
+            return target;
+        }
+        return current < target? current + GAIN_STEP_DB : current - GAIN_STEP_DB;
+    }
+
+    private static float dbToGain(float db) {
+        return (float) Math.pow(10, db / 20);
+    }
+
+    private boolean isStateDecayed(int band) {
+        for (int channel = 0; channel < channelCount; channel++) {
+            int stateIndex = band * channelCount + channel;
+            if (Math.abs(z1[stateIndex]) > STATE_SILENCE_LEVEL
+                    || Math.abs(z2[stateIndex]) > STATE_SILENCE_LEVEL) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void calculateCoefficients(int band) {
+        double a = Math.pow(10, currentGains[band] / 40);
+        double alpha = this.alpha[band];
+        double cosW0 = this.cosW0[band];
+        double a0 = 1 + alpha / a;
+        b0[band] = (1 + alpha * a) / a0;
+        b1[band] = (-2 * cosW0) / a0;
+        b2[band] = (1 - alpha * a) / a0;
+        a1[band] = (-2 * cosW0) / a0;
+        a2[band] = (1 - alpha / a) / a0;
+    }
+
+}
@@ -0,0 +1,155 @@
+package com.github.anrimian.musicplayer.data.controllers.music.equalizer.software;
+
+import static com.github.anrimian.musicplayer.data.repositories.equalizer.EqualizerStateRepository.NO_PRESET;
+import static com.github.anrimian.musicplayer.data.utils.rx.RxUtils.withDefaultValue;
+
+import com.github.anrimian.musicplayer.data.controllers.music.equalizer.AppEqualizer;
+import com.github.anrimian.musicplayer.data.repositories.equalizer.EqualizerStateRepository;
+import com.github.anrimian.musicplayer.domain.models.equalizer.Band;
+import com.github.anrimian.musicplayer.domain.models.equalizer.EqInitializationState;
+import com.github.anrimian.musicplayer.domain.models.equalizer.EqualizerConfig;
+import com.github.anrimian.musicplayer.domain.models.equalizer.EqualizerState;
+import com.github.anrimian.musicplayer.domain.models.equalizer.Preset;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.subjects.BehaviorSubject;
+
+/**
+ * Equalizer implemented in app audio pipeline, works only with exo player.
+ * Doesn't depend on audio session and device audio effects, so it is always available.
+ * Preamp is set automatically to compensate the highest band boost and avoid clipping.
+ */
+public class SoftwareEqualizer implements AppEqualizer {
+
+    private static final short LOWEST_BAND_LEVEL = -1500;
+    private static final short HIGHEST_BAND_LEVEL = 1500;
+
+    private static final String[] PRESET_NAMES = { "Flat", "Bass boost", "Treble boost", "Vocal" };
+    private static final short[][] PRESET_LEVELS = {
+            { 0, 0, 0, 0, 0, 0, 0, 0, 0, 0 },
+            { 600, 500, 400, 200, 0, 0, 0, 0, 0, 0 },
+            { 0, 0, 0, 0, 0, 0, 200, 400, 500, 600 },
+            { -200, -200, -100, 0, 200, 400, 400, 200, 0, -100 },
+    };
+
+    private final EqualizerStateRepository equalizerStateRepository;
+
+    private final BiquadFilterBank filterBank = new BiquadFilterBank();
+    private final SoftwareEqualizerAudioProcessor audioProcessor = new SoftwareEqualizerAudioProcessor(filterBank);
+
+    private final BehaviorSubject<EqualizerState> currentStateSubject = BehaviorSubject.create();
+
+    private volatile boolean isEnabled;
+
+    public SoftwareEqualizer(EqualizerStateRepository equalizerStateRepository) {
+        this.equalizerStateRepository = equalizerStateRepository;
+    }
+
+    /**
+     * @return processor for exo player audio sink, can be used by one player at a time
+     */
+    public SoftwareEqualizerAudioProcessor getAudioProcessor() {
+        return audioProcessor;
+    }
+
+    @Override
+    public void attachEqualizer(int audioSessionId) {
+        isEnabled = true;
+        applyEqualizerState(getEqualizerState());
+    }
+
+    @Override
+    public void detachEqualizer(int audioSessionId) {
+        isEnabled = false;
+        for (int i = 0; i < filterBank.getBandsCount(); i++) {
+            filterBank.setBandGain(i, 0f);
+        }
+        filterBank.setPreampGain(0f);
+    }
+
+    public Single<EqualizerConfig> getEqualizerConfig() {
+        return Single.fromCallable(this::createEqualizerConfig);
+    }
+
+    public Observable<EqualizerState> getEqualizerStateObservable() {
+        return withDefaultValue(currentStateSubject, this::getEqualizerState);
+    }
+
+    public Observable<EqInitializationState> getEqInitializationState() {
+        return Observable.just(EqInitializationState.INITIALIZED);
+    }
+
+    public void setBandLevel(short bandNumber, short level) {
+        EqualizerState equalizerState = getEqualizerState();
+        equalizerState.getBendLevels().put(bandNumber, level);
+        equalizerState.setCurrentPreset(NO_PRESET);
+        applyEqualizerState(equalizerState);
+        currentStateSubject.onNext(equalizerState);
+    }
+
+    public void saveBandLevel() {
+        EqualizerState equalizerState = currentStateSubject.getValue();
+        if (equalizerState != null) {
+            equalizerStateRepository.saveEqualizerState(equalizerState);
+        }
+    }
+
+    public void setPreset(Preset preset) {
+        short[] levels = PRESET_LEVELS[preset.getNumber()];
+        Map<Short, Short> bandLevels = new HashMap<>();
+        for (short i = 0; i < levels.length; i++) {
+            bandLevels.put(i, levels[i]);
+        }
+        EqualizerState equalizerState = new EqualizerState(preset.getNumber(), bandLevels);
+        applyEqualizerState(equalizerState);
+        equalizerStateRepository.saveEqualizerState(equalizerState);
+        currentStateSubject.onNext(equalizerState);
+    }
+
+    private EqualizerState getEqualizerState() {
+        EqualizerState equalizerState = currentStateSubject.getValue();
+        if (equalizerState == null) {
+            equalizerState = equalizerStateRepository.loadEqualizerState();
+        }
+        if (equalizerState == null) {
+            Map<Short, Short> bandLevels = new HashMap<>();
+            for (short i = 0; i < filterBank.getBandsCount(); i++) {
+                bandLevels.put(i, (short) 0);
+            }
+            equalizerState = new EqualizerState(NO_PRESET, bandLevels);
+        }
+        return equalizerState;
+    }
+
+    private void applyEqualizerState(EqualizerState equalizerState) {
+        if (!isEnabled) {
+            return;
+        }
+        short maxLevel = 0;
+        for (Map.Entry<Short, Short> band: equalizerState.getBendLevels().entrySet()) {
+            short level = band.getValue();
+            filterBank.setBandGain(band.getKey(), level / 100f);
+            maxLevel = (short) Math.max(maxLevel, level);
+        }
+        filterBank.setPreampGain(-maxLevel / 100f);
+    }
+
+    private EqualizerConfig createEqualizerConfig() {
+        List<Band> bands = new ArrayList<>();
+        for (short i = 0; i < filterBank.getBandsCount(); i++) {
+            //center frequency in milliHertz, as in android equalizer
+            bands.add(new Band(i, BiquadFilterBank.CENTER_FREQUENCIES[i] * 1000));
+        }
+        List<Preset> presets = new ArrayList<>();
+        for (short i = 0; i < PRESET_NAMES.length; i++) {
+            presets.add(new Preset(i, PRESET_NAMES[i]));
+        }
+        return new EqualizerConfig(LOWEST_BAND_LEVEL, HIGHEST_BAND_LEVEL, bands, presets);
+    }
+}
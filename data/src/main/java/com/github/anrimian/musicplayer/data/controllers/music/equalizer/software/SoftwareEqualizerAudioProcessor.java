@@ -0,0 +1,112 @@
+package com.github.anrimian.musicplayer.data.controllers.music.equalizer.software;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.audio.AudioProcessor;
+import com.google.android.exoplayer2.audio.BaseAudioProcessor;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Applies {@link BiquadFilterBank} to 16 bit or float pcm in exo player audio sink.
+ * Processor is always active after configuration, disabled equalizer is flat filter bank,
+ * so enable/disable doesn't require audio sink reconfiguration and is smooth.
+ */
+public class SoftwareEqualizerAudioProcessor extends BaseAudioProcessor {
+
+    private final BiquadFilterBank filterBank;
+
+    private float[] samples = new float[0];
+
+    private int configuredSampleRate = -1;
+    private int configuredChannelCount = -1;
+
+    public SoftwareEqualizerAudioProcessor(BiquadFilterBank filterBank) {
+        this.filterBank = filterBank;
+    }
+
+    @Override
+    protected AudioFormat onConfigure(AudioFormat inputAudioFormat)
+            throws UnhandledAudioFormatException {
+        if (inputAudioFormat.encoding != C.ENCODING_PCM_16BIT
+                && inputAudioFormat.encoding != C.ENCODING_PCM_FLOAT) {
+            throw new AudioProcessor.UnhandledAudioFormatException(inputAudioFormat);
+        }
+        return inputAudioFormat;
+    }
+
+    @Override
+    public void queueInput(ByteBuffer inputBuffer) {
+        int position = inputBuffer.position();
+        int limit = inputBuffer.limit();
+        int size = limit - position;
+        if (size == 0) {
+            return;
+        }
+        ByteBuffer outputBuffer = replaceOutputBuffer(size);
+        int channelCount = inputAudioFormat.channelCount;
+        if (inputAudioFormat.encoding == C.ENCODING_PCM_16BIT) {
+            int samplesCount = size / 2;
+            float[] samples = getSamplesBuffer(samplesCount);
+            for (int i = 0; i < samplesCount; i++) {
+                samples[i] = inputBuffer.getShort(position + i * 2) / 32768f;
+            }
+            filterBank.process(samples, samplesCount / channelCount);
+            for (int i = 0; i < samplesCount; i++) {
+                outputBuffer.putShort(toPcm16(samples[i]));
+            }
+        } else {
+            int samplesCount = size / 4;
+            float[] samples = getSamplesBuffer(samplesCount);
+            for (int i = 0; i < samplesCount; i++) {
+                samples[i] = inputBuffer.getFloat(position + i * 4);
+            }
+            filterBank.process(samples, samplesCount / channelCount);
+            for (int i = 0; i < samplesCount; i++) {
+                outputBuffer.putFloat(samples[i]);
+            }
+        }
+        inputBuffer.position(limit);
+        outputBuffer.flip();
+    }
+
+    @Override
+    protected void onFlush() {
+        //flush is called on seek too, filter bank is reconfigured only when format is changed
+        int sampleRate = inputAudioFormat.sampleRate;
+        int channelCount = inputAudioFormat.channelCount;
+        if (sampleRate == configuredSampleRate && channelCount == configuredChannelCount) {
+            filterBank.reset();
+            return;
+        }
+        configuredSampleRate = sampleRate;
+        configuredChannelCount = channelCount;
+        if (inputAudioFormat != AudioFormat.NOT_SET) {
+            filterBank.configure(sampleRate, channelCount);
+        }
+    }
+
+    @Override
+    protected void onReset() {
+        configuredSampleRate = -1;
+        configuredChannelCount = -1;
+        samples = new float[0];
+    }
+
+    private float[] getSamplesBuffer(int size) {
+        if (samples.length < size) {
+            samples = new float[size];
+        }
+        return samples;
+    }
+
+    private static short toPcm16(float sample) {
+        int value = Math.round(sample * 32768f);
+        if (value > Short.MAX_VALUE) {
+            return Short.MAX_VALUE;
+        }
+        if (value < Short.MIN_VALUE) {
+            return Short.MIN_VALUE;
+        }
+        return (short) value;
+    }
+}
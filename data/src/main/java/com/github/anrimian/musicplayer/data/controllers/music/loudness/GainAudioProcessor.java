@@ -0,0 +1,87 @@
+package com.github.anrimian.musicplayer.data.controllers.music.loudness;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.audio.AudioProcessor;
+import com.google.android.exoplayer2.audio.BaseAudioProcessor;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Applies gain to 16 bit or float pcm in exo player audio sink. New gain is reached by linear
+ * ramp over one input buffer, so gain change doesn't produce clicks.
+ * Gain can be set from any thread.
+ */
+public class GainAudioProcessor extends BaseAudioProcessor {
+
+    private volatile float targetGain = LoudnessGainProvider.NO_GAIN;
+    private float currentGain = LoudnessGainProvider.NO_GAIN;
+
+    public void setGain(float gain) {
+        targetGain = gain;
+    }
+
+    @Override
+    protected AudioFormat onConfigure(AudioFormat inputAudioFormat)
+            throws UnhandledAudioFormatException {
+        if (inputAudioFormat.encoding != C.ENCODING_PCM_16BIT
+                && inputAudioFormat.encoding != C.ENCODING_PCM_FLOAT) {
+            throw new AudioProcessor.UnhandledAudioFormatException(inputAudioFormat);
+        }
+        return inputAudioFormat;
+    }
+
+    @Override
+    public void queueInput(ByteBuffer inputBuffer) {
+        int position = inputBuffer.position();
+        int limit = inputBuffer.limit();
+        int size = limit - position;
+        if (size == 0) {
+            return;
+        }
+        ByteBuffer outputBuffer = replaceOutputBuffer(size);
+        float targetGain = this.targetGain;
+        float gain = currentGain;
+        if (gain == LoudnessGainProvider.NO_GAIN && targetGain == LoudnessGainProvider.NO_GAIN) {
+            outputBuffer.put(inputBuffer);
+            outputBuffer.flip();
+            return;
+        }
+        int channelCount = inputAudioFormat.channelCount;
+        boolean is16Bit = inputAudioFormat.encoding == C.ENCODING_PCM_16BIT;
+        int frameSize = (is16Bit ? 2 : 4) * channelCount;
+        int frameCount = size / frameSize;
+        float step = (targetGain - gain) / frameCount;
+        for (int frame = 0; frame < frameCount; frame++) {
+            gain += step;
+            int frameStart = position + frame * frameSize;
+            for (int channel = 0; channel < channelCount; channel++) {
+                if (is16Bit) {
+                    short sample = inputBuffer.getShort(frameStart + channel * 2);
+                    outputBuffer.putShort(toPcm16(sample * gain));
+                } else {
+                    float sample = inputBuffer.getFloat(frameStart + channel * 4);
+                    outputBuffer.putFloat(sample * gain);
+                }
+            }
+        }
+        currentGain = targetGain;
+        inputBuffer.position(limit);
+        outputBuffer.flip();
+    }
+
+    @Override
+    protected void onReset() {
+        currentGain = targetGain;
+    }
+
+    private static short toPcm16(float sample) {
+        int value = Math.round(sample);
+        if (value > Short.MAX_VALUE) {
+            return Short.MAX_VALUE;
+        }
+        if (value < Short.MIN_VALUE) {
+            return Short.MIN_VALUE;
+        }
+        return (short) value;
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.anrimian.musicplayer.data.controllers.music.loudness;
+
+import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDaoWrapper;
+import com.github.anrimian.musicplayer.data.models.composition.TrackGain;
+import com.github.anrimian.musicplayer.domain.models.composition.source.CompositionSource;
+import com.github.anrimian.musicplayer.domain.models.composition.source.LibraryCompositionSource;
+import com.github.anrimian.musicplayer.domain.repositories.SettingsRepository;
+
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.core.Single;
+
+/**
+ * Provides linear gain for composition from its replay gain value. Gain is limited by
+ * track peak to avoid clipping. Compositions without loudness data and external sources
+ * are played without gain.
+ */
+public class LoudnessGainProvider {
+
+    public static final float NO_GAIN = 1f;
+
+    private final CompositionsDaoWrapper compositionsDao;
+    private final SettingsRepository settingsRepository;
+    private final Scheduler scheduler;
+
+    public LoudnessGainProvider(CompositionsDaoWrapper compositionsDao,
+                                SettingsRepository settingsRepository,
+                                Scheduler scheduler) {
+        this.compositionsDao = compositionsDao;
+        this.settingsRepository = settingsRepository;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * @return gain of composition, updated when normalization setting is changed
+     */
+    public Observable<Float> getGainObservable(CompositionSource composition) {
+        return settingsRepository.getLoudnessNormalizationEnabledObservable()
+                .switchMapSingle(enabled -> {
+                    if (!enabled || !(composition instanceof LibraryCompositionSource)) {
+                        return Single.just(NO_GAIN);
+                    }
+                    long id = ((LibraryCompositionSource) composition).getComposition().getId();
+                    return Single.fromCallable(() -> compositionsDao.getTrackGain(id))
+                            .map(LoudnessGainProvider::toLinearGain)
+                            .subscribeOn(scheduler);
+                })
+                .distinctUntilChanged();
+    }
+
+    private static float toLinearGain(TrackGain trackGain) {
+        Float gainDb = trackGain.getTrackGain();
+        if (gainDb == null) {
+            return NO_GAIN;
+        }
+        float gain = (float) Math.pow(10, gainDb / 20);
+        Float peak = trackGain.getTrackPeak();
+        if (peak != null && peak > 0) {
+            gain = Math.min(gain, 1f / peak);
+        }
+        return gain;
+    }
+}
@@ -10,12 +10,14 @@ import android.os.Build;
 
 import com.github.anrimian.musicplayer.data.controllers.music.equalizer.EqualizerController;
 import com.github.anrimian.musicplayer.data.controllers.music.error.PlayerErrorParser;
+import com.github.anrimian.musicplayer.data.controllers.music.loudness.LoudnessGainProvider;
 import com.github.anrimian.musicplayer.data.models.composition.source.UriCompositionSource;
 import com.github.anrimian.musicplayer.data.storage.source.CompositionSourceProvider;
 import com.github.anrimian.musicplayer.data.utils.rx.RxUtils;
 import com.github.anrimian.musicplayer.domain.interactors.analytics.Analytics;
 import com.github.anrimian.musicplayer.domain.models.composition.source.CompositionSource;
 import com.github.anrimian.musicplayer.domain.models.composition.source.LibraryCompositionSource;
+import com.github.anrimian.musicplayer.domain.models.player.PlaybackPosition;
 import com.github.anrimian.musicplayer.domain.models.player.error.ErrorType;
 import com.github.anrimian.musicplayer.domain.models.player.events.ErrorEvent;
 import com.github.anrimian.musicplayer.domain.models.player.events.FinishedEvent;
@@ -23,7 +25,6 @@ import com.github.anrimian.musicplayer.domain.models.player.events.PlayerEvent;
 import com.github.anrimian.musicplayer.domain.models.player.events.PreparedEvent;
 
 import java.io.IOException;
-import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nullable;
 
@@ -37,7 +38,7 @@ import io.reactivex.rxjava3.subjects.PublishSubject;
 
 public class AndroidMediaPlayer implements AppMediaPlayer {
 
-    private final BehaviorSubject<Long> trackPositionSubject = BehaviorSubject.create();
+    private final BehaviorSubject<PlaybackPosition> playbackPositionSubject = BehaviorSubject.create();
     private final PublishSubject<PlayerEvent> playerEventSubject = PublishSubject.create();
 
     private final Context context;
@@ -46,14 +47,14 @@ public class AndroidMediaPlayer implements AppMediaPlayer {
     private final PlayerErrorParser playerErrorParser;
     private final Analytics analytics;
     private final EqualizerController equalizerController;
+    private final LoudnessGainProvider loudnessGainProvider;
 
     private final MediaPlayer mediaPlayer;
 
-    @Nullable
-    private Disposable trackPositionDisposable;
-
     @Nullable
     private Disposable preparationDisposable;
+    @Nullable
+    private Disposable gainDisposable;
 
     @Nullable
     private CompositionSource currentComposition;
@@ -61,6 +62,9 @@ public class AndroidMediaPlayer implements AppMediaPlayer {
     private boolean isSourcePrepared = false;
     private boolean playWhenReady = false;
     private boolean isPlaying = false;
+    private float playSpeed = 1f;
+    private float volume = 1f;
+    private float loudnessGain = LoudnessGainProvider.NO_GAIN;
 
     @Nullable
     private ErrorType previousErrorType;
@@ -71,13 +75,15 @@ public class AndroidMediaPlayer implements AppMediaPlayer {
                               CompositionSourceProvider sourceRepository,
                               PlayerErrorParser playerErrorParser,
                               Analytics analytics,
-                              EqualizerController equalizerController) {
+                              EqualizerController equalizerController,
+                              LoudnessGainProvider loudnessGainProvider) {
         this.context = context;
         this.uiScheduler = uiScheduler;
         this.sourceRepository = sourceRepository;
         this.playerErrorParser = playerErrorParser;
         this.analytics = analytics;
         this.equalizerController = equalizerController;
+        this.loudnessGainProvider = loudnessGainProvider;
         mediaPlayer = new MediaPlayer();
         mediaPlayer.setOnCompletionListener(mediaPlayer -> {
             if (currentComposition != null) {
@@ -105,7 +111,12 @@ public class AndroidMediaPlayer implements AppMediaPlayer {
                               @Nullable ErrorType previousErrorType) {
         this.currentComposition = composition;
         this.previousErrorType = previousErrorType;
-        trackPositionSubject.onNext(startPosition);
+        playbackPositionSubject.onNext(new PlaybackPosition(startPosition, playSpeed, false));
+        RxUtils.dispose(gainDisposable);
+        gainDisposable = loudnessGainProvider.getGainObservable(composition)
+                .onErrorReturnItem(LoudnessGainProvider.NO_GAIN)
+                .observeOn(uiScheduler)
+                .subscribe(this::onLoudnessGainChanged);
         RxUtils.dispose(preparationDisposable);
         preparationDisposable = Single.fromCallable(() -> composition)
                 .flatMapCompletable(this::prepareMediaSource)
@@ -115,6 +126,11 @@ public class AndroidMediaPlayer implements AppMediaPlayer {
                 .subscribe();
     }
 
+    @Override
+    public void setNextSource(@Nullable CompositionSource composition) {
+        //not supported, next composition is prepared after current is finished
+    }
+
     @Override
     public void stop() {
         if (!isPlaying) {
@@ -123,12 +139,12 @@ public class AndroidMediaPlayer implements AppMediaPlayer {
         if (isSourcePrepared) {
             seekTo(0);
         }
-        stopTracingTrackPosition();
         if (isSourcePrepared) {
             pausePlayer();
         }
         isPlaying = false;
         playWhenReady = false;
+        publishPlaybackPosition();
     }
 
     @Override
@@ -147,10 +163,10 @@ public class AndroidMediaPlayer implements AppMediaPlayer {
         if (!isPlaying) {
             return;
         }
-        stopTracingTrackPosition();
         pausePlayer();
         isPlaying = false;
         playWhenReady = false;
+        publishPlaybackPosition();
     }
 
     @Override
@@ -160,33 +176,23 @@ public class AndroidMediaPlayer implements AppMediaPlayer {
                 mediaPlayer.seekTo((int) position);
             }
         } catch (IllegalStateException ignored) {}
-        trackPositionSubject.onNext(position);
+        playbackPositionSubject.onNext(new PlaybackPosition(position, playSpeed, isPlaying));
     }
 
     @Override
     public void setVolume(float volume) {
-        try {
-            mediaPlayer.setVolume(volume, volume);
-        } catch (IllegalStateException ignored) {}
+        this.volume = volume;
+        applyVolume();
     }
 
     @Override
-    public Observable<Long> getTrackPositionObservable() {
-        return trackPositionSubject;
+    public Observable<PlaybackPosition> getPlaybackPositionObservable() {
+        return playbackPositionSubject;
     }
 
     @Override
     public Single<Long> getTrackPosition() {
-        return Single.fromCallable(() -> {
-            if (currentComposition == null) {
-                return 0L;
-            }
-            try {
-                return (long) mediaPlayer.getCurrentPosition();
-            } catch (IllegalStateException e) {
-                return 0L;
-            }
-        });
+        return Single.fromCallable(this::getCurrentPosition);
     }
 
     @Override
@@ -215,14 +221,16 @@ public class AndroidMediaPlayer implements AppMediaPlayer {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
             try {
                 mediaPlayer.setPlaybackParams(mediaPlayer.getPlaybackParams().setSpeed(speed));
+                playSpeed = speed;
             } catch (IllegalStateException ignored) {} //IllegalArgumentException - handle unsupported case
+            publishPlaybackPosition();
         }
     }
 
     @Override
     public void release() {
+        RxUtils.dispose(gainDisposable);
         equalizerController.detachEqualizer();
-        stopTracingTrackPosition();
         mediaPlayer.release();
     }
 
@@ -231,18 +239,31 @@ public class AndroidMediaPlayer implements AppMediaPlayer {
         return Observable.fromCallable(() -> Build.VERSION.SDK_INT >= Build.VERSION_CODES.M);
     }
 
-    private void startTracingTrackPosition() {
-        stopTracingTrackPosition();
-        trackPositionDisposable = Observable.interval(0, 1, TimeUnit.SECONDS)
-                .observeOn(uiScheduler)
-                .flatMapSingle(o -> getTrackPosition())
-                .subscribe(trackPositionSubject::onNext);
+    private void onLoudnessGainChanged(float gain) {
+        loudnessGain = gain;
+        applyVolume();
     }
 
-    private void stopTracingTrackPosition() {
-        if (trackPositionDisposable != null) {
-            trackPositionDisposable.dispose();
-            trackPositionDisposable = null;
+    //media player volume can't be above 1, so loud tracks are attenuated and quiet ones are not boosted
+    private void applyVolume() {
+        float playerVolume = volume * Math.min(loudnessGain, 1f);
+        try {
+            mediaPlayer.setVolume(playerVolume, playerVolume);
+        } catch (IllegalStateException ignored) {}
+    }
+
+    private void publishPlaybackPosition() {
+        playbackPositionSubject.onNext(new PlaybackPosition(getCurrentPosition(), playSpeed, isPlaying));
+    }
+
+    private long getCurrentPosition() {
+        if (currentComposition == null) {
+            return 0L;
+        }
+        try {
+            return mediaPlayer.getCurrentPosition();
+        } catch (IllegalStateException e) {
+            return 0L;
         }
     }
 
@@ -337,8 +358,8 @@ public class AndroidMediaPlayer implements AppMediaPlayer {
 
     private void start() {
         start(mediaPlayer);
-        startTracingTrackPosition();
         isPlaying = true;
+        publishPlaybackPosition();
     }
 
     private void pause(MediaPlayer mediaPlayer) {
@@ -1,6 +1,7 @@
 package com.github.anrimian.musicplayer.data.controllers.music.players;
 
 import com.github.anrimian.musicplayer.domain.models.composition.source.CompositionSource;
+import com.github.anrimian.musicplayer.domain.models.player.PlaybackPosition;
 import com.github.anrimian.musicplayer.domain.models.player.error.ErrorType;
 import com.github.anrimian.musicplayer.domain.models.player.events.PlayerEvent;
 
@@ -17,6 +18,8 @@ public interface AppMediaPlayer {
                        long startPosition,
                        @Nullable ErrorType previousErrorType);
 
+    void setNextSource(@Nullable CompositionSource composition);
+
     void stop();
 
     void resume();
@@ -27,7 +30,11 @@ public interface AppMediaPlayer {
 
     void setVolume(float volume);
 
-    Observable<Long> getTrackPositionObservable();
+    /**
+     * Emits position on play, pause, seek, speed and track changes, not on every tick.
+     * Position is emitted on every prepareToPlay() call
+     */
+    Observable<PlaybackPosition> getPlaybackPositionObservable();
 
     Single<Long> getTrackPosition();
 
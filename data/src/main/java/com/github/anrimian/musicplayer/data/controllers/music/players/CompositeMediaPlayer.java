@@ -1,6 +1,7 @@
 package com.github.anrimian.musicplayer.data.controllers.music.players;
 
 import com.github.anrimian.musicplayer.domain.models.composition.source.CompositionSource;
+import com.github.anrimian.musicplayer.domain.models.player.PlaybackPosition;
 import com.github.anrimian.musicplayer.domain.models.player.error.ErrorType;
 import com.github.anrimian.musicplayer.domain.models.player.events.ErrorEvent;
 import com.github.anrimian.musicplayer.domain.models.player.events.PlayerEvent;
@@ -22,14 +23,15 @@ public class CompositeMediaPlayer implements AppMediaPlayer {
     private final int startPlayerIndex = 0;
 
     private final PublishSubject<PlayerEvent> playerEventSubject = PublishSubject.create();
-    private final BehaviorSubject<Long> trackPositionSubject = BehaviorSubject.create();
+    private final BehaviorSubject<PlaybackPosition> playbackPositionSubject = BehaviorSubject.create();
     private final BehaviorSubject<Boolean> speedChangeAvailableSubject = BehaviorSubject.create();
     private final CompositeDisposable playerDisposable = new CompositeDisposable();
 
     private AppMediaPlayer currentPlayer;
     private int currentPlayerIndex;
 
-    private long currentTrackPosition;
+    @Nullable
+    private PlaybackPosition currentPosition;
 
     private float currentPlaySpeed = 1f;
 
@@ -48,7 +50,7 @@ public class CompositeMediaPlayer implements AppMediaPlayer {
     public void prepareToPlay(CompositionSource composition,
                               long startPosition,
                               @Nullable ErrorType previousErrorType) {
-        currentTrackPosition = startPosition;
+        currentPosition = new PlaybackPosition(startPosition, currentPlaySpeed, false);
 
         if (currentPlayerIndex != startPlayerIndex) {
             setPlayer(startPlayerIndex);
@@ -56,6 +58,11 @@ public class CompositeMediaPlayer implements AppMediaPlayer {
         currentPlayer.prepareToPlay(composition, startPosition, previousErrorType);
     }
 
+    @Override
+    public void setNextSource(@Nullable CompositionSource composition) {
+        currentPlayer.setNextSource(composition);
+    }
+
     @Override
     public void stop() {
         currentPlayer.stop();
@@ -82,8 +89,8 @@ public class CompositeMediaPlayer implements AppMediaPlayer {
     }
 
     @Override
-    public Observable<Long> getTrackPositionObservable() {
-        return trackPositionSubject;
+    public Observable<PlaybackPosition> getPlaybackPositionObservable() {
+        return playbackPositionSubject;
     }
 
     @Override
@@ -125,16 +132,23 @@ public class CompositeMediaPlayer implements AppMediaPlayer {
                 .flatMap(this::onPlayerEventReceived)
                 .subscribe(playerEventSubject::onNext)
         );
-        playerDisposable.add(currentPlayer.getTrackPositionObservable()
-                .subscribe(this::onTrackPositionReceived)
+        playerDisposable.add(currentPlayer.getPlaybackPositionObservable()
+                .subscribe(this::onPlaybackPositionReceived)
         );
         playerDisposable.add(currentPlayer.getSpeedChangeAvailableObservable()
                 .subscribe(speedChangeAvailableSubject::onNext));
     }
 
-    private void onTrackPositionReceived(long position) {
-        this.currentTrackPosition = position;
-        trackPositionSubject.onNext(position);
+    private void onPlaybackPositionReceived(PlaybackPosition position) {
+        this.currentPosition = position;
+        playbackPositionSubject.onNext(position);
+    }
+
+    private long getCurrentTrackPosition() {
+        if (currentPosition == null) {
+            return 0;
+        }
+        return currentPosition.getCurrentPosition();
     }
 
     private Observable<PlayerEvent> onPlayerEventReceived(PlayerEvent event) {
@@ -148,7 +162,7 @@ public class CompositeMediaPlayer implements AppMediaPlayer {
                     //don't switch player when we reached end of available players
                     if (newPlayerIndex >= 0 && newPlayerIndex < mediaPlayers.size()) {
                         setPlayer(newPlayerIndex);
-                        currentPlayer.prepareToPlay(errorEvent.getComposition(), currentTrackPosition, errorType);
+                        currentPlayer.prepareToPlay(errorEvent.getComposition(), getCurrentTrackPosition(), errorType);
                         return;
                     }
                 }
@@ -5,11 +5,16 @@ import android.net.Uri;
 
 import com.github.anrimian.musicplayer.data.controllers.music.equalizer.EqualizerController;
 import com.github.anrimian.musicplayer.data.controllers.music.error.PlayerErrorParser;
+import com.github.anrimian.musicplayer.data.controllers.music.loudness.GainAudioProcessor;
+import com.github.anrimian.musicplayer.data.controllers.music.loudness.LoudnessGainProvider;
 import com.github.anrimian.musicplayer.data.models.composition.source.UriCompositionSource;
 import com.github.anrimian.musicplayer.data.storage.source.CompositionSourceProvider;
+import com.github.anrimian.musicplayer.data.utils.exo_player.AudioProcessorsRenderersFactory;
 import com.github.anrimian.musicplayer.data.utils.exo_player.PlayerEventListener;
+import com.github.anrimian.musicplayer.data.utils.rx.RxUtils;
 import com.github.anrimian.musicplayer.domain.models.composition.source.CompositionSource;
 import com.github.anrimian.musicplayer.domain.models.composition.source.LibraryCompositionSource;
+import com.github.anrimian.musicplayer.domain.models.player.PlaybackPosition;
 import com.github.anrimian.musicplayer.domain.models.player.error.ErrorType;
 import com.github.anrimian.musicplayer.domain.models.player.events.ErrorEvent;
 import com.github.anrimian.musicplayer.domain.models.player.events.FinishedEvent;
@@ -40,7 +45,7 @@ import io.reactivex.rxjava3.subjects.PublishSubject;
 
 public class ExoMediaPlayer implements AppMediaPlayer {
 
-    private final BehaviorSubject<Long> trackPositionSubject = BehaviorSubject.create();
+    private final BehaviorSubject<PlaybackPosition> playbackPositionSubject = BehaviorSubject.create();
     private final PublishSubject<PlayerEvent> playerEventSubject = PublishSubject.create();
 
     private final Context context;
@@ -49,29 +54,45 @@ public class ExoMediaPlayer implements AppMediaPlayer {
     private final Scheduler ioScheduler;
     private final PlayerErrorParser playerErrorParser;
     private final EqualizerController equalizerController;
+    private final LoudnessGainProvider loudnessGainProvider;
+
+    private final GainAudioProcessor gainAudioProcessor = new GainAudioProcessor();
 
     private volatile ExoPlayer player;
 
     @Nullable
-    private Disposable trackPositionDisposable;
+    private Disposable nextSourceDisposable;
+    @Nullable
+    private Disposable gainDisposable;
 
     private CompositionSource currentComposition;
 
+    //composition added after current one for gapless transition
+    @Nullable
+    private CompositionSource nextComposition;
+    //composition which was started by player itself after previous one finished
+    @Nullable
+    private CompositionSource autoStartedComposition;
+
     private boolean isPreparing = false;
     private boolean playAfterPrepare = false;
 
+    private float playSpeed = 1f;
+
     public ExoMediaPlayer(Context context,
                           CompositionSourceProvider sourceRepository,
                           Scheduler uiScheduler,
                           Scheduler ioScheduler,
                           PlayerErrorParser playerErrorParser,
-                          EqualizerController equalizerController) {
+                          EqualizerController equalizerController,
+                          LoudnessGainProvider loudnessGainProvider) {
         this.context = context;
         this.playerErrorParser = playerErrorParser;
         this.sourceRepository = sourceRepository;
         this.uiScheduler = uiScheduler;
         this.ioScheduler = ioScheduler;
         this.equalizerController = equalizerController;
+        this.loudnessGainProvider = loudnessGainProvider;
     }
 
     @Override
@@ -83,9 +104,28 @@ public class ExoMediaPlayer implements AppMediaPlayer {
     public void prepareToPlay(CompositionSource composition,
                               long startPosition,
                               @Nullable ErrorType previousErrorType) {
+        RxUtils.dispose(nextSourceDisposable);
+        //pre-buffered item can't be played after another composition
+        nextComposition = null;
+        usePlayer(this::removeNextMediaItems);
+        if (composition.equals(autoStartedComposition)) {
+            //already playing after gapless transition, no need to reload source
+            autoStartedComposition = null;
+            currentComposition = composition;
+            if (startPosition != 0) {
+                seekTo(startPosition);
+            } else {
+                usePlayer(player -> publishPlaybackPosition());
+            }
+            playerEventSubject.onNext(new PreparedEvent(composition));
+            return;
+        }
+        autoStartedComposition = null;
+
         isPreparing = true;
         this.currentComposition = composition;
-        trackPositionSubject.onNext(startPosition);
+        subscribeOnLoudnessGain(composition);
+        playbackPositionSubject.onNext(new PlaybackPosition(startPosition, playSpeed, false));
         //cancel previous preparation?
         Single.fromCallable(() -> composition)
                 .flatMapCompletable(this::prepareMediaSource)
@@ -95,12 +135,37 @@ public class ExoMediaPlayer implements AppMediaPlayer {
                 .subscribe();
     }
 
+    @Override
+    public void setNextSource(@Nullable CompositionSource composition) {
+        RxUtils.dispose(nextSourceDisposable);
+        if (composition == null) {
+            usePlayer(player -> {
+                nextComposition = null;
+                removeNextMediaItems(player);
+            });
+            return;
+        }
+        nextSourceDisposable = getCompositionUri(composition)
+                .flatMap(this::createMediaSource)
+                .subscribeOn(ioScheduler)
+                .timeout(6, TimeUnit.SECONDS)
+                .observeOn(uiScheduler)
+                .doOnSuccess(mediaSource -> {
+                    ExoPlayer player = getPlayer();
+                    removeNextMediaItems(player);
+                    player.addMediaSource(mediaSource);
+                    nextComposition = composition;
+                })
+                .ignoreElement()
+                .onErrorComplete()//next composition will be prepared in usual way after current one
+                .subscribe();
+    }
+
     @Override
     public void stop() {
         Completable.fromRunnable(() -> {
             seekTo(0);
             pausePlayer();
-            stopTracingTrackPosition();
         }).subscribeOn(uiScheduler).subscribe();
     }
 
@@ -115,10 +180,9 @@ public class ExoMediaPlayer implements AppMediaPlayer {
 
     @Override
     public void pause() {
-        Completable.fromRunnable(() -> {
-            pausePlayer();
-            stopTracingTrackPosition();
-        }).subscribeOn(uiScheduler).subscribe();
+        Completable.fromRunnable(this::pausePlayer)
+                .subscribeOn(uiScheduler)
+                .subscribe();
     }
 
     @Override
@@ -126,10 +190,7 @@ public class ExoMediaPlayer implements AppMediaPlayer {
         Completable.fromRunnable(() -> {
             try {
                 getPlayer().seekTo(position);
-            } catch (IndexOutOfBoundsException ignored) {//crash inside exoplayer
-                return;
-            }
-            trackPositionSubject.onNext(position);
+            } catch (IndexOutOfBoundsException ignored) {}//crash inside exoplayer
         }).subscribeOn(uiScheduler).subscribe();
     }
 
@@ -141,8 +202,8 @@ public class ExoMediaPlayer implements AppMediaPlayer {
     }
 
     @Override
-    public Observable<Long> getTrackPositionObservable() {
-        return trackPositionSubject;
+    public Observable<PlaybackPosition> getPlaybackPositionObservable() {
+        return playbackPositionSubject;
     }
 
     @Override
@@ -169,6 +230,7 @@ public class ExoMediaPlayer implements AppMediaPlayer {
 
     @Override
     public void setPlaySpeed(float speed) {
+        playSpeed = speed;
         usePlayer(player -> {
             PlaybackParameters param = new PlaybackParameters(speed);
             player.setPlaybackParameters(param);
@@ -177,10 +239,10 @@ public class ExoMediaPlayer implements AppMediaPlayer {
 
     @Override
     public void release() {
+        RxUtils.dispose(gainDisposable);
         usePlayer(player -> {
 //            equalizerController.detachEqualizer();
             pausePlayer();
-            stopTracingTrackPosition();
             player.release();
         });
     }
@@ -194,7 +256,6 @@ public class ExoMediaPlayer implements AppMediaPlayer {
         Completable.fromRunnable(() -> {
             getPlayer().setPlayWhenReady(true);
             equalizerController.attachEqualizer(getPlayer().getAudioSessionId());
-            startTracingTrackPosition();
         }).subscribeOn(uiScheduler).subscribe();
     }
 
@@ -214,6 +275,39 @@ public class ExoMediaPlayer implements AppMediaPlayer {
         }
     }
 
+    private void onNextCompositionStarted() {
+        if (nextComposition == null) {
+            return;
+        }
+        CompositionSource finishedComposition = currentComposition;
+        currentComposition = nextComposition;
+        autoStartedComposition = nextComposition;
+        nextComposition = null;
+
+        //next source is already buffered by audio sink, so gain is switched a bit later
+        subscribeOnLoudnessGain(currentComposition);
+
+        ExoPlayer player = getPlayer();
+        player.removeMediaItems(0, player.getCurrentMediaItemIndex());
+        publishPlaybackPosition();
+        playerEventSubject.onNext(new FinishedEvent(finishedComposition));
+    }
+
+    private void subscribeOnLoudnessGain(CompositionSource composition) {
+        RxUtils.dispose(gainDisposable);
+        gainDisposable = loudnessGainProvider.getGainObservable(composition)
+                .onErrorReturnItem(LoudnessGainProvider.NO_GAIN)
+                .subscribe(gainAudioProcessor::setGain);
+    }
+
+    private void removeNextMediaItems(ExoPlayer player) {
+        int nextIndex = player.getCurrentMediaItemIndex() + 1;
+        int count = player.getMediaItemCount();
+        if (nextIndex < count) {
+            player.removeMediaItems(nextIndex, count);
+        }
+    }
+
     private void pausePlayer() {
         getPlayer().setPlayWhenReady(false);
         equalizerController.detachEqualizer();
@@ -234,19 +328,12 @@ public class ExoMediaPlayer implements AppMediaPlayer {
         }
     }
 
-    private void startTracingTrackPosition() {
-        stopTracingTrackPosition();
-        trackPositionDisposable = Observable.interval(0, 1, TimeUnit.SECONDS)
-                .observeOn(uiScheduler)
-                .map(o -> getPlayer().getCurrentPosition())
-                .subscribe(trackPositionSubject::onNext);
-    }
-
-    private void stopTracingTrackPosition() {
-        if (trackPositionDisposable != null) {
-            trackPositionDisposable.dispose();
-            trackPositionDisposable = null;
-        }
+    //called from player listener on discontinuities, position between them is extrapolated
+    private void publishPlaybackPosition() {
+        ExoPlayer player = getPlayer();
+        playbackPositionSubject.onNext(new PlaybackPosition(player.getCurrentPosition(),
+                player.getPlaybackParameters().speed,
+                player.isPlaying()));
     }
 
     private Completable prepareMediaSource(CompositionSource composition) {
@@ -256,6 +343,7 @@ public class ExoMediaPlayer implements AppMediaPlayer {
                 .timeout(6, TimeUnit.SECONDS)//read from uri can be freeze for some reason, check
                 .observeOn(uiScheduler)
                 .doOnSuccess(mediaSource -> {
+                    nextComposition = null;
                     getPlayer().setMediaSource(mediaSource);
                     getPlayer().prepare();
                 })
@@ -300,11 +388,18 @@ public class ExoMediaPlayer implements AppMediaPlayer {
             synchronized (this) {
                 if (player == null) {
 
-                    player = new ExoPlayer.Builder(context)
+                    AudioProcessorsRenderersFactory renderersFactory = new AudioProcessorsRenderersFactory(
+                            context,
+                            equalizerController.getSoftwareEqualizerAudioProcessor(),
+                            gainAudioProcessor
+                    );
+                    player = new ExoPlayer.Builder(context, renderersFactory)
                             .build();
 
                     PlayerEventListener playerEventListener = new PlayerEventListener(
                             () -> playerEventSubject.onNext(new FinishedEvent(currentComposition)),
+                            this::onNextCompositionStarted,
+                            this::publishPlaybackPosition,
                             this::sendErrorEvent
                     );
                     player.addListener(playerEventListener);
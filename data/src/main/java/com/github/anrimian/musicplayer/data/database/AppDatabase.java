@@ -7,20 +7,30 @@ import androidx.room.TypeConverters;
 import com.github.anrimian.musicplayer.data.database.converters.DateConverter;
 import com.github.anrimian.musicplayer.data.database.converters.EnumConverter;
 import com.github.anrimian.musicplayer.data.database.dao.albums.AlbumsDao;
+import com.github.anrimian.musicplayer.data.database.dao.artwork.ArtworkThumbnailsDao;
 import com.github.anrimian.musicplayer.data.database.dao.artist.ArtistsDao;
 import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDao;
+import com.github.anrimian.musicplayer.data.database.dao.edit.EditJobsDao;
 import com.github.anrimian.musicplayer.data.database.dao.folders.FoldersDao;
 import com.github.anrimian.musicplayer.data.database.dao.genre.GenreDao;
 import com.github.anrimian.musicplayer.data.database.dao.play_list.PlayListDao;
 import com.github.anrimian.musicplayer.data.database.dao.play_queue.PlayQueueDao;
 import com.github.anrimian.musicplayer.data.database.entities.albums.AlbumEntity;
 import com.github.anrimian.musicplayer.data.database.entities.artist.ArtistEntity;
+import com.github.anrimian.musicplayer.data.database.entities.artwork.ArtworkThumbnailEntity;
 import com.github.anrimian.musicplayer.data.database.entities.composition.CompositionEntity;
+import com.github.anrimian.musicplayer.data.database.entities.composition.CompositionScanStateEntity;
+import com.github.anrimian.musicplayer.data.database.entities.composition.CompositionSearchEntity;
+import com.github.anrimian.musicplayer.data.database.entities.edit.EditJobEntity;
+import com.github.anrimian.musicplayer.data.database.entities.edit.EditJobFileEntity;
 import com.github.anrimian.musicplayer.data.database.entities.folder.FolderEntity;
+import com.github.anrimian.musicplayer.data.database.entities.folder.FolderStatsEntity;
+import com.github.anrimian.musicplayer.data.database.entities.folder.FolderTreeEntity;
 import com.github.anrimian.musicplayer.data.database.entities.folder.IgnoredFolderEntity;
 import com.github.anrimian.musicplayer.data.database.entities.genres.GenreEntity;
 import com.github.anrimian.musicplayer.data.database.entities.genres.GenreEntryEntity;
 import com.github.anrimian.musicplayer.data.database.entities.play_queue.PlayQueueEntity;
+import com.github.anrimian.musicplayer.data.database.entities.play_queue.PlayQueueShuffleEntity;
 import com.github.anrimian.musicplayer.data.database.entities.playlist.PlayListEntity;
 import com.github.anrimian.musicplayer.data.database.entities.playlist.PlayListEntryEntity;
 
@@ -38,8 +48,16 @@ import com.github.anrimian.musicplayer.data.database.entities.playlist.PlayListE
         GenreEntity.class,
         GenreEntryEntity.class,
         IgnoredFolderEntity.class,
-        FolderEntity.class
-}, version = 8)
+        FolderEntity.class,
+        CompositionSearchEntity.class,
+        FolderTreeEntity.class,
+        FolderStatsEntity.class,
+        ArtworkThumbnailEntity.class,
+        EditJobEntity.class,
+        EditJobFileEntity.class,
+        CompositionScanStateEntity.class,
+        PlayQueueShuffleEntity.class
+}, version = 19)
 @TypeConverters({
         DateConverter.class,
         EnumConverter.class
@@ -52,4 +70,6 @@ public abstract class AppDatabase extends RoomDatabase {
     public abstract AlbumsDao albumsDao();
     public abstract GenreDao genreDao();
     public abstract FoldersDao foldersDao();
+    public abstract ArtworkThumbnailsDao artworkThumbnailsDao();
+    public abstract EditJobsDao editJobsDao();
 }
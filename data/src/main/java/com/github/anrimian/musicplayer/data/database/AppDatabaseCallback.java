@@ -0,0 +1,18 @@
+package com.github.anrimian.musicplayer.data.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * Creates schema objects which room can't declare
+ */
+public class AppDatabaseCallback extends RoomDatabase.Callback {
+
+    @Override
+    public void onOpen(@NonNull SupportSQLiteDatabase db) {
+        ExpressionIndexes.create(db);
+        CompositionsSearchIndex.createTriggers(db);
+        FoldersTreeIndex.createTriggers(db);
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.anrimian.musicplayer.data.database;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * Keeps compositions_search table in sync with compositions and names of their artists,
+ * albums and genres. Sync is done by triggers, so it covers every write path including
+ * foreign key actions. Triggers are created on database open, migrations which change
+ * them must drop old ones.
+ */
+public class CompositionsSearchIndex {
+
+    public static void createTriggers(SupportSQLiteDatabase database) {
+        createTrigger(database,
+                "compositions_search_insert",
+                "AFTER INSERT ON compositions",
+                getRefreshQuery("compositions.id = NEW.id"));
+        createTrigger(database,
+                "compositions_search_update",
+                "AFTER UPDATE OF title, fileName, artistId, albumId ON compositions "
+                        + "WHEN OLD.title IS NOT NEW.title "
+                        + "OR OLD.fileName IS NOT NEW.fileName "
+                        + "OR OLD.artistId IS NOT NEW.artistId "
+                        + "OR OLD.albumId IS NOT NEW.albumId",
+                getRefreshQuery("compositions.id = NEW.id"));
+        createTrigger(database,
+                "compositions_search_delete",
+                "AFTER DELETE ON compositions",
+                "DELETE FROM compositions_search WHERE rowid = OLD.id;");
+        createTrigger(database,
+                "compositions_search_artist_update",
+                "AFTER UPDATE OF name ON artists",
+                getRefreshQuery("compositions.artistId = NEW.id"));
+        createTrigger(database,
+                "compositions_search_album_update",
+                "AFTER UPDATE OF name ON albums",
+                getRefreshQuery("compositions.albumId = NEW.id"));
+        createTrigger(database,
+                "compositions_search_genre_update",
+                "AFTER UPDATE OF name ON genres",
+                getRefreshQuery("compositions.id IN (SELECT audioId FROM genre_entries WHERE genreId = NEW.id)"));
+        createTrigger(database,
+                "compositions_search_genre_entry_insert",
+                "AFTER INSERT ON genre_entries",
+                getRefreshQuery("compositions.id = NEW.audioId"));
+        createTrigger(database,
+                "compositions_search_genre_entry_delete",
+                "AFTER DELETE ON genre_entries",
+                getRefreshQuery("compositions.id = OLD.audioId"));
+    }
+
+    public static void rebuild(SupportSQLiteDatabase database) {
+        database.execSQL("DELETE FROM compositions_search");
+        database.execSQL(getInsertQuery("1"));
+    }
+
+    private static void createTrigger(SupportSQLiteDatabase database,
+                                      String name,
+                                      String event,
+                                      String body) {
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS `" + name + "` " + event
+                + " BEGIN " + body + " END");
+    }
+
+    private static String getRefreshQuery(String compositionsCondition) {
+        return "DELETE FROM compositions_search WHERE rowid IN "
+                + "(SELECT id FROM compositions WHERE " + compositionsCondition + "); "
+                + getInsertQuery(compositionsCondition) + ";";
+    }
+
+    private static String getInsertQuery(String compositionsCondition) {
+        return "INSERT INTO compositions_search(rowid, title, fileName, artist, album, genres) "
+                + "SELECT "
+                + "compositions.id, "
+                + "CASE WHEN compositions.title IS NULL OR compositions.title = '' "
+                + "THEN compositions.fileName ELSE compositions.title END, "
+                + "compositions.fileName, "
+                + "artists.name, "
+                + "albums.name, "
+                + "(SELECT group_concat(genres.name, ' ') FROM genre_entries "
+                + "INNER JOIN genres ON genres.id = genre_entries.genreId "
+                + "WHERE genre_entries.audioId = compositions.id) "
+                + "FROM compositions "
+                + "LEFT JOIN artists ON artists.id = compositions.artistId "
+                + "LEFT JOIN albums ON albums.id = compositions.albumId "
+                + "WHERE " + compositionsCondition;
+    }
+}
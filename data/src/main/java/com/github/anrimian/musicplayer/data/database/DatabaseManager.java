@@ -26,7 +26,19 @@ public class DatabaseManager {
                         Migrations.MIGRATION_4_5,
                         Migrations.MIGRATION_5_6,
                         Migrations.MIGRATION_6_7,
-                        Migrations.MIGRATION_7_8)
+                        Migrations.MIGRATION_7_8,
+                        Migrations.MIGRATION_8_9,
+                        Migrations.MIGRATION_9_10,
+                        Migrations.MIGRATION_10_11,
+                        Migrations.MIGRATION_11_12,
+                        Migrations.MIGRATION_12_13,
+                        Migrations.MIGRATION_13_14,
+                        Migrations.MIGRATION_14_15,
+                        Migrations.MIGRATION_15_16,
+                        Migrations.MIGRATION_16_17,
+                        Migrations.MIGRATION_17_18,
+                        Migrations.MIGRATION_18_19)
+                .addCallback(new AppDatabaseCallback())
                 .build();
     }
 }
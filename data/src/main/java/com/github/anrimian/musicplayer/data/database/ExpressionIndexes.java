@@ -0,0 +1,41 @@
+package com.github.anrimian.musicplayer.data.database;
+
+import android.database.Cursor;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * Indexes which room can't declare in entities.
+ * Room also fails schema validation on unknown indexes, so these indexes are created
+ * on database open and every migration must drop them first.
+ */
+public class ExpressionIndexes {
+
+    private static final String TITLE_SORT_INDEX = "index_compositions_sort_title";
+
+    public static void create(SupportSQLiteDatabase database) {
+        //expression indexes are supported since sqlite 3.9.0 (android 7.0)
+        if (!isSqliteVersionAtLeast(database, 3, 9)) {
+            return;
+        }
+        //same expression as name order in CompositionsDaoWrapper
+        database.execSQL("CREATE INDEX IF NOT EXISTS `" + TITLE_SORT_INDEX + "` ON `compositions` "
+                + "(CASE WHEN title IS NULL OR title = '' THEN fileName ELSE title END)");
+    }
+
+    public static void drop(SupportSQLiteDatabase database) {
+        database.execSQL("DROP INDEX IF EXISTS `" + TITLE_SORT_INDEX + "`");
+    }
+
+    public static boolean isSqliteVersionAtLeast(SupportSQLiteDatabase database, int major, int minor) {
+        try (Cursor c = database.query("SELECT sqlite_version()")) {
+            if (!c.moveToFirst()) {
+                return false;
+            }
+            String[] version = c.getString(0).split("\\.");
+            int actualMajor = Integer.parseInt(version[0]);
+            int actualMinor = version.length > 1? Integer.parseInt(version[1]) : 0;
+            return actualMajor > major || (actualMajor == major && actualMinor >= minor);
+        }
+    }
+}
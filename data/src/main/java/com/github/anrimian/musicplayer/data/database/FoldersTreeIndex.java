@@ -0,0 +1,140 @@
+package com.github.anrimian.musicplayer.data.database;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * Keeps folders_tree closure table and folders_stats aggregates in sync with folders and
+ * compositions. Sync is done by triggers, so folder listings don't walk folders hierarchy.
+ * Triggers are created on database open, migrations which change them must drop old ones.
+ *
+ * Folder can be deleted only without compositions, so deletion of compositions
+ * updates aggregates and folder deletion only cascades to its rows.
+ */
+public class FoldersTreeIndex {
+
+    public static void createTriggers(SupportSQLiteDatabase database) {
+        createTrigger(database,
+                "folders_tree_insert",
+                "AFTER INSERT ON folders",
+                "INSERT INTO folders_tree(ancestorId, descendantId) "
+                        + "SELECT ancestorId, NEW.id FROM folders_tree WHERE descendantId = NEW.parentId "
+                        + "UNION ALL SELECT NEW.id, NEW.id; "
+                        + "INSERT INTO folders_stats(folderId, filesCount, totalSize, totalDuration, lastDateAdded) "
+                        + "VALUES (NEW.id, 0, 0, 0, 0);");
+        createTrigger(database,
+                "folders_tree_move",
+                "AFTER UPDATE OF parentId ON folders WHEN OLD.parentId IS NOT NEW.parentId",
+                getSubtractQuery("OLD.parentId",
+                        movedFolderStats("filesCount"),
+                        movedFolderStats("totalSize"),
+                        movedFolderStats("totalDuration"))
+                        + "DELETE FROM folders_tree "
+                        + "WHERE descendantId IN (SELECT descendantId FROM folders_tree WHERE ancestorId = NEW.id) "
+                        + "AND ancestorId NOT IN (SELECT descendantId FROM folders_tree WHERE ancestorId = NEW.id); "
+                        + "INSERT INTO folders_tree(ancestorId, descendantId) "
+                        + "SELECT parents.ancestorId, children.descendantId "
+                        + "FROM folders_tree AS parents, folders_tree AS children "
+                        + "WHERE parents.descendantId = NEW.parentId AND children.ancestorId = NEW.id; "
+                        + getAddQuery("NEW.parentId",
+                        movedFolderStats("filesCount"),
+                        movedFolderStats("totalSize"),
+                        movedFolderStats("totalDuration"),
+                        movedFolderStats("lastDateAdded"))
+                        + getLastDateAddedRefreshQuery("OLD.parentId", movedFolderStats("lastDateAdded")));
+        createTrigger(database,
+                "folders_stats_composition_insert",
+                "AFTER INSERT ON compositions WHEN NEW.folderId IS NOT NULL",
+                getAddQuery("NEW.folderId", "1", "NEW.size", "NEW.duration", "coalesce(NEW.dateAdded, 0)"));
+        createTrigger(database,
+                "folders_stats_composition_update",
+                "AFTER UPDATE OF folderId, size, duration, dateAdded ON compositions "
+                        + "WHEN OLD.folderId IS NOT NEW.folderId "
+                        + "OR OLD.size != NEW.size "
+                        + "OR OLD.duration != NEW.duration "
+                        + "OR OLD.dateAdded IS NOT NEW.dateAdded",
+                getSubtractQuery("OLD.folderId", "1", "OLD.size", "OLD.duration")
+                        + getAddQuery("NEW.folderId", "1", "NEW.size", "NEW.duration", "coalesce(NEW.dateAdded, 0)")
+                        + getLastDateAddedRefreshQuery("OLD.folderId", "coalesce(OLD.dateAdded, 0)"));
+        createTrigger(database,
+                "folders_stats_composition_delete",
+                "AFTER DELETE ON compositions WHEN OLD.folderId IS NOT NULL",
+                getSubtractQuery("OLD.folderId", "1", "OLD.size", "OLD.duration")
+                        + getLastDateAddedRefreshQuery("OLD.folderId", "coalesce(OLD.dateAdded, 0)"));
+    }
+
+    public static void rebuild(SupportSQLiteDatabase database) {
+        database.execSQL("DELETE FROM folders_tree");
+        database.execSQL("INSERT INTO folders_tree(ancestorId, descendantId) "
+                + "WITH RECURSIVE tree(ancestorId, descendantId) AS ("
+                + "SELECT id, id FROM folders "
+                + "UNION ALL "
+                + "SELECT tree.ancestorId, folders.id FROM folders "
+                + "INNER JOIN tree ON folders.parentId = tree.descendantId"
+                + ") "
+                + "SELECT ancestorId, descendantId FROM tree");
+        database.execSQL("DELETE FROM folders_stats");
+        database.execSQL("INSERT INTO folders_stats(folderId, filesCount, totalSize, totalDuration, lastDateAdded) "
+                + "SELECT "
+                + "folders.id, "
+                + "count(compositions.id), "
+                + "coalesce(sum(compositions.size), 0), "
+                + "coalesce(sum(compositions.duration), 0), "
+                + "coalesce(max(compositions.dateAdded), 0) "
+                + "FROM folders "
+                + "LEFT JOIN folders_tree ON folders_tree.ancestorId = folders.id "
+                + "LEFT JOIN compositions ON compositions.folderId = folders_tree.descendantId "
+                + "GROUP BY folders.id");
+    }
+
+    private static void createTrigger(SupportSQLiteDatabase database,
+                                      String name,
+                                      String event,
+                                      String body) {
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS `" + name + "` " + event
+                + " BEGIN " + body + " END");
+    }
+
+    private static String getAddQuery(String folderId,
+                                      String count,
+                                      String size,
+                                      String duration,
+                                      String dateAdded) {
+        return "UPDATE folders_stats SET "
+                + "filesCount = filesCount + " + count + ", "
+                + "totalSize = totalSize + " + size + ", "
+                + "totalDuration = totalDuration + " + duration + ", "
+                + "lastDateAdded = max(lastDateAdded, " + dateAdded + ") "
+                + "WHERE folderId IN " + getAncestorsQuery(folderId) + "; ";
+    }
+
+    private static String getSubtractQuery(String folderId,
+                                           String count,
+                                           String size,
+                                           String duration) {
+        return "UPDATE folders_stats SET "
+                + "filesCount = filesCount - " + count + ", "
+                + "totalSize = totalSize - " + size + ", "
+                + "totalDuration = totalDuration - " + duration + " "
+                + "WHERE folderId IN " + getAncestorsQuery(folderId) + "; ";
+    }
+
+    //max can't be subtracted, so recalculate it for folders where removed date could be the last one.
+    //Uses (folderId, dateAdded) index of compositions for each child folder
+    private static String getLastDateAddedRefreshQuery(String folderId, String removedDateAdded) {
+        return "UPDATE folders_stats SET lastDateAdded = coalesce(("
+                + "SELECT max((SELECT max(dateAdded) FROM compositions WHERE folderId = folders_tree.descendantId)) "
+                + "FROM folders_tree "
+                + "WHERE folders_tree.ancestorId = folders_stats.folderId"
+                + "), 0) "
+                + "WHERE folderId IN " + getAncestorsQuery(folderId) + " "
+                + "AND lastDateAdded <= " + removedDateAdded + "; ";
+    }
+
+    private static String getAncestorsQuery(String folderId) {
+        return "(SELECT ancestorId FROM folders_tree WHERE descendantId = " + folderId + ")";
+    }
+
+    private static String movedFolderStats(String column) {
+        return "(SELECT " + column + " FROM folders_stats WHERE folderId = NEW.id)";
+    }
+}
@@ -17,11 +17,13 @@ import androidx.room.util.CursorUtil;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 
 import com.github.anrimian.musicplayer.data.database.converters.EnumConverter;
+import com.github.anrimian.musicplayer.data.database.dao.play_queue.ShufflePermutation;
 import com.github.anrimian.musicplayer.data.database.mappers.CompositionCorruptionDetector;
 import com.github.anrimian.musicplayer.data.storage.providers.albums.StorageAlbum;
 import com.github.anrimian.musicplayer.data.storage.providers.albums.StorageAlbumsProvider;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageFullComposition;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageMusicProvider;
+import com.github.anrimian.musicplayer.data.utils.collections.LongHashMap;
 import com.github.anrimian.musicplayer.domain.utils.FileUtils;
 
 import java.util.HashMap;
@@ -31,6 +33,177 @@ import java.util.Map;
 @SuppressLint("RestrictedApi")
 class Migrations {
 
+    static Migration MIGRATION_18_19 = new Migration(18, 19) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            ExpressionIndexes.drop(database);
+            database.execSQL("CREATE TABLE IF NOT EXISTS `edit_job_files_temp` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `jobId` INTEGER NOT NULL, `compositionId` INTEGER NOT NULL, `storageId` INTEGER, `fields` INTEGER NOT NULL, `state` TEXT NOT NULL, `filePath` TEXT, FOREIGN KEY(`jobId`) REFERENCES `edit_jobs`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE , FOREIGN KEY(`compositionId`) REFERENCES `compositions`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            String columns = "id, jobId, compositionId, storageId, fields, state, filePath";
+            //files of deleted compositions are not kept
+            database.execSQL("INSERT INTO edit_job_files_temp (" + columns + ") " +
+                    "SELECT " + columns + " FROM edit_job_files " +
+                    "WHERE compositionId IN (SELECT id FROM compositions)");
+            database.execSQL("DROP TABLE `edit_job_files`");
+            database.execSQL("ALTER TABLE `edit_job_files_temp` RENAME TO `edit_job_files`");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_edit_job_files_jobId` ON `edit_job_files` (`jobId`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_edit_job_files_compositionId` ON `edit_job_files` (`compositionId`)");
+        }
+    };
+
+    static Migration MIGRATION_17_18 = new Migration(17, 18) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            ExpressionIndexes.drop(database);
+            database.execSQL("CREATE TABLE IF NOT EXISTS `play_queue_shuffle` (`id` INTEGER NOT NULL, `seed` INTEGER NOT NULL, PRIMARY KEY(`id`))");
+            //current shuffled order is kept, so any seed fits
+            long seed = 0;
+            database.execSQL("INSERT INTO play_queue_shuffle (id, seed) VALUES (0, " + seed + ")");
+
+            //shuffled positions are replaced by keys which are mapped to the same order
+            int count;
+            try (Cursor c = database.query("SELECT count() FROM play_queue")) {
+                c.moveToFirst();
+                count = c.getInt(0);
+            }
+            if (count == 0) {
+                return;
+            }
+            int step = Math.min(1024, ShufflePermutation.MAX_POSITION / count);
+            ShufflePermutation permutation = new ShufflePermutation(seed);
+            database.execSQL("UPDATE play_queue SET shuffledPosition = -shuffledPosition - 1");
+            try (Cursor c = database.query("SELECT id FROM play_queue ORDER BY shuffledPosition DESC")) {
+                int position = 0;
+                while (c.moveToNext()) {
+                    ContentValues cv = new ContentValues();
+                    cv.put("shuffledPosition", permutation.getKey(position));
+                    database.update("play_queue",
+                            SQLiteDatabase.CONFLICT_ABORT,
+                            cv,
+                            "id = ?",
+                            new String[] { String.valueOf(c.getLong(0)) }
+                    );
+                    position += step;
+                }
+            }
+        }
+    };
+
+    static Migration MIGRATION_16_17 = new Migration(16, 17) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            ExpressionIndexes.drop(database);
+            //triggers of other tables refer to compositions, they are recreated on open
+            dropTriggers(database);
+
+            database.execSQL("CREATE TABLE IF NOT EXISTS `compositions_scan_state` (`compositionId` INTEGER NOT NULL, `lastScanDate` INTEGER NOT NULL, PRIMARY KEY(`compositionId`), FOREIGN KEY(`compositionId`) REFERENCES `compositions`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            database.execSQL("INSERT INTO compositions_scan_state (compositionId, lastScanDate) " +
+                    "SELECT id, lastScanDate FROM compositions WHERE lastScanDate > 0");
+
+            //remove lastScanDate column
+            database.execSQL("CREATE TABLE IF NOT EXISTS `compositions_temp` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `artistId` INTEGER, `albumId` INTEGER, `folderId` INTEGER, `storageId` INTEGER, `title` TEXT, `lyrics` TEXT, `fileName` TEXT, `filePath` TEXT, `duration` INTEGER NOT NULL, `size` INTEGER NOT NULL, `dateAdded` INTEGER, `dateModified` INTEGER, `corruptionType` TEXT, `trackGain` REAL, `trackPeak` REAL, `lastLoudnessScanDate` INTEGER, FOREIGN KEY(`artistId`) REFERENCES `artists`(`id`) ON UPDATE NO ACTION ON DELETE NO ACTION , FOREIGN KEY(`albumId`) REFERENCES `albums`(`id`) ON UPDATE NO ACTION ON DELETE NO ACTION , FOREIGN KEY(`folderId`) REFERENCES `folders`(`id`) ON UPDATE NO ACTION ON DELETE NO ACTION )");
+            String columns = "id, artistId, albumId, folderId, storageId, title, lyrics, fileName, " +
+                    "filePath, duration, size, dateAdded, dateModified, corruptionType, trackGain, " +
+                    "trackPeak, lastLoudnessScanDate";
+            database.execSQL("INSERT INTO compositions_temp (" + columns + ") " +
+                    "SELECT " + columns + " FROM compositions");
+            database.execSQL("DROP TABLE `compositions`");
+            database.execSQL("ALTER TABLE `compositions_temp` RENAME TO `compositions`");
+
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_compositions_artistId` ON `compositions` (`artistId`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_compositions_albumId` ON `compositions` (`albumId`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_compositions_folderId_dateAdded` ON `compositions` (`folderId`, `dateAdded`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_compositions_storageId` ON `compositions` (`storageId`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_compositions_fileName` ON `compositions` (`fileName`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_compositions_dateAdded` ON `compositions` (`dateAdded`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_compositions_dateModified` ON `compositions` (`dateModified`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_compositions_size` ON `compositions` (`size`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_compositions_duration` ON `compositions` (`duration`)");
+        }
+    };
+
+    static Migration MIGRATION_15_16 = new Migration(15, 16) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            ExpressionIndexes.drop(database);
+            database.execSQL("CREATE TABLE IF NOT EXISTS `edit_jobs` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `type` TEXT NOT NULL, `targetId` INTEGER NOT NULL, `newName` TEXT NOT NULL, `oldName` TEXT, `createDate` INTEGER NOT NULL)");
+            database.execSQL("CREATE TABLE IF NOT EXISTS `edit_job_files` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `jobId` INTEGER NOT NULL, `compositionId` INTEGER NOT NULL, `storageId` INTEGER, `fields` INTEGER NOT NULL, `state` TEXT NOT NULL, `filePath` TEXT, FOREIGN KEY(`jobId`) REFERENCES `edit_jobs`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_edit_job_files_jobId` ON `edit_job_files` (`jobId`)");
+        }
+    };
+
+    static Migration MIGRATION_14_15 = new Migration(14, 15) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            ExpressionIndexes.drop(database);
+            database.execSQL("CREATE TABLE IF NOT EXISTS `artwork_thumbnails` (`compositionId` INTEGER NOT NULL, `dateModified` INTEGER NOT NULL, `hash` TEXT, PRIMARY KEY(`compositionId`), FOREIGN KEY(`compositionId`) REFERENCES `compositions`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+        }
+    };
+
+    static Migration MIGRATION_13_14 = new Migration(13, 14) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            ExpressionIndexes.drop(database);
+            database.execSQL("ALTER TABLE compositions ADD COLUMN trackGain REAL");
+            database.execSQL("ALTER TABLE compositions ADD COLUMN trackPeak REAL");
+            database.execSQL("ALTER TABLE compositions ADD COLUMN lastLoudnessScanDate INTEGER");
+        }
+    };
+
+    static Migration MIGRATION_12_13 = new Migration(12, 13) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            ExpressionIndexes.drop(database);
+            //recreated with condition on open
+            database.execSQL("DROP TRIGGER IF EXISTS `compositions_search_update`");
+        }
+    };
+
+    static Migration MIGRATION_11_12 = new Migration(11, 12) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            ExpressionIndexes.drop(database);
+            database.execSQL("DROP INDEX IF EXISTS `index_compositions_folderId`");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_compositions_folderId_dateAdded` ON `compositions` (`folderId`, `dateAdded`)");
+            database.execSQL("CREATE TABLE IF NOT EXISTS `folders_tree` (`ancestorId` INTEGER NOT NULL, `descendantId` INTEGER NOT NULL, PRIMARY KEY(`ancestorId`, `descendantId`), FOREIGN KEY(`ancestorId`) REFERENCES `folders`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE , FOREIGN KEY(`descendantId`) REFERENCES `folders`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_folders_tree_descendantId` ON `folders_tree` (`descendantId`)");
+            database.execSQL("CREATE TABLE IF NOT EXISTS `folders_stats` (`folderId` INTEGER NOT NULL, `filesCount` INTEGER NOT NULL, `totalSize` INTEGER NOT NULL, `totalDuration` INTEGER NOT NULL, `lastDateAdded` INTEGER NOT NULL, PRIMARY KEY(`folderId`), FOREIGN KEY(`folderId`) REFERENCES `folders`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            FoldersTreeIndex.rebuild(database);
+        }
+    };
+
+    static Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            ExpressionIndexes.drop(database);
+            database.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `compositions_search` USING FTS4(`title` TEXT, `fileName` TEXT, `artist` TEXT, `album` TEXT, `genres` TEXT, tokenize=unicode61)");
+            CompositionsSearchIndex.rebuild(database);
+        }
+    };
+
+    static Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            ExpressionIndexes.drop(database);
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_compositions_storageId` ON `compositions` (`storageId`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_compositions_fileName` ON `compositions` (`fileName`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_compositions_dateAdded` ON `compositions` (`dateAdded`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_compositions_dateModified` ON `compositions` (`dateModified`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_compositions_size` ON `compositions` (`size`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_compositions_duration` ON `compositions` (`duration`)");
+        }
+    };
+
+    static Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            //spread play queue positions to leave gaps for inserted items
+            int positionStep = 1024;
+            database.execSQL("UPDATE play_queue SET position = -position - 1, shuffledPosition = -shuffledPosition - 1");
+            renumberPlayQueue(database, "position", positionStep);
+            renumberPlayQueue(database, "shuffledPosition", positionStep);
+        }
+    };
+
     static Migration MIGRATION_7_8 = new Migration(7, 8) {
         @Override
         public void migrate(@NonNull SupportSQLiteDatabase database) {
@@ -138,14 +311,14 @@ class Migrations {
 
                 StorageAlbumsProvider storageAlbumsProvider = new StorageAlbumsProvider(context);
                 StorageMusicProvider provider = new StorageMusicProvider(context, storageAlbumsProvider);
-                LongSparseArray<StorageFullComposition> storageCompositions;
+                LongHashMap<StorageFullComposition> storageCompositions;
                 if (hasFilePermission(context)) {
                     storageCompositions = provider.getCompositions(0, false);
                     if (storageCompositions == null) {
-                        storageCompositions = new LongSparseArray<>();
+                        storageCompositions = new LongHashMap<>();
                     }
                 } else {
-                    storageCompositions = new LongSparseArray<>();
+                    storageCompositions = new LongHashMap<>();
                 }
 
                 Map<String, Long> artistCache = new HashMap<>();
@@ -287,12 +460,11 @@ class Migrations {
                 StorageMusicProvider provider = new StorageMusicProvider(context, albumsProvider);
 
                 EnumConverter enumConverter = new EnumConverter();
-                LongSparseArray<StorageFullComposition> map = provider.getCompositions(0, false);
+                LongHashMap<StorageFullComposition> map = provider.getCompositions(0, false);
                 if (map == null) {
-                    map = new LongSparseArray<>();
+                    map = new LongHashMap<>();
                 }
-                for(int i = 0, size = map.size(); i < size; i++) {
-                    StorageFullComposition composition = map.valueAt(i);
+                for (StorageFullComposition composition: map.valuesSortedByKey()) {
                     ContentValues cv = new ContentValues();
                     cv.put("storageId", composition.getId());
                     cv.put("artist", composition.getArtist());
@@ -346,6 +518,39 @@ class Migrations {
         };
     }
 
+    //expects negated positions, so original order is descending
+    private static void renumberPlayQueue(SupportSQLiteDatabase database,
+                                          String column,
+                                          int step) {
+        try (Cursor c = database.query("SELECT id FROM play_queue ORDER BY " + column + " DESC")) {
+            int position = 0;
+            while (c.moveToNext()) {
+                ContentValues cv = new ContentValues();
+                cv.put(column, position);
+                database.update("play_queue",
+                        SQLiteDatabase.CONFLICT_ABORT,
+                        cv,
+                        "id = ?",
+                        new String[] { String.valueOf(c.getLong(0)) }
+                );
+                position += step;
+            }
+        }
+    }
+
+    //only triggers from AppDatabaseCallback are in main schema, room keeps its own in temp schema
+    private static void dropTriggers(SupportSQLiteDatabase database) {
+        LinkedList<String> triggers = new LinkedList<>();
+        try (Cursor c = database.query("SELECT name FROM sqlite_master WHERE type = 'trigger'")) {
+            while (c.moveToNext()) {
+                triggers.add(c.getString(0));
+            }
+        }
+        for (String trigger: triggers) {
+            database.execSQL("DROP TRIGGER IF EXISTS `" + trigger + "`");
+        }
+    }
+
     private static boolean hasFilePermission(Context context) {
         return ContextCompat.checkSelfPermission(context, Manifest.permission.READ_EXTERNAL_STORAGE)
                 == PackageManager.PERMISSION_GRANTED;
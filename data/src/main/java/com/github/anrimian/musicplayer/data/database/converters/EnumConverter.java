@@ -2,6 +2,8 @@ package com.github.anrimian.musicplayer.data.database.converters;
 
 import androidx.room.TypeConverter;
 
+import com.github.anrimian.musicplayer.data.database.entities.edit.EditJobFileState;
+import com.github.anrimian.musicplayer.data.database.entities.edit.EditJobType;
 import com.github.anrimian.musicplayer.domain.models.composition.CorruptionType;
 import com.github.anrimian.musicplayer.domain.models.order.OrderType;
 
@@ -40,4 +42,36 @@ public class EnumConverter {
         }
         return value.name();
     }
+
+    @TypeConverter
+    public EditJobType toEditJobType(@Nullable String name) {
+        if (name == null) {
+            return null;
+        }
+        return EditJobType.valueOf(name);
+    }
+
+    @TypeConverter
+    public String toName(@Nullable EditJobType value) {
+        if (value == null) {
+            return null;
+        }
+        return value.name();
+    }
+
+    @TypeConverter
+    public EditJobFileState toEditJobFileState(@Nullable String name) {
+        if (name == null) {
+            return null;
+        }
+        return EditJobFileState.valueOf(name);
+    }
+
+    @TypeConverter
+    public String toName(@Nullable EditJobFileState value) {
+        if (value == null) {
+            return null;
+        }
+        return value.name();
+    }
 }
@@ -25,8 +25,8 @@ public interface AlbumsDao {
     @Insert
     long insert(AlbumEntity entity);
 
-    @RawQuery(observedEntities = { ArtistEntity.class, CompositionEntity.class, AlbumEntity.class })
-    Observable<List<Album>> getAllObservable(SupportSQLiteQuery query);
+    @RawQuery
+    List<Album> getAll(SupportSQLiteQuery query);
 
     @RawQuery(observedEntities = { ArtistEntity.class, CompositionEntity.class, AlbumEntity.class })
     Observable<List<Composition>> getCompositionsInAlbumObservable(SimpleSQLiteQuery query);
@@ -81,12 +81,15 @@ public interface AlbumsDao {
     @Query("SELECT * FROM albums WHERE id = :id")
     AlbumEntity getAlbumEntity(long id);
 
+    @Query("SELECT * FROM albums")
+    List<AlbumEntity> getAllAlbums();
+
     @Query("DELETE FROM albums " +
             "WHERE id = :id AND (SELECT count() FROM compositions WHERE albumId = albums.id) = 0")
     void deleteEmptyAlbum(long id);
 
     @Query("DELETE FROM albums " +
-            "WHERE (SELECT count() FROM compositions WHERE albumId = albums.id) = 0")
+            "WHERE NOT EXISTS(SELECT 1 FROM compositions WHERE albumId = albums.id)")
     void deleteEmptyAlbums();
 
     @Query("SELECT name FROM albums")
@@ -105,7 +108,8 @@ public interface AlbumsDao {
         return "SELECT " +
                 CompositionsDao.getCompositionSelectionQuery(useFileName) +
                 "FROM compositions " +
-                "WHERE albumId = ? " +
+                CompositionsDao.getArtistAndAlbumJoinQuery() +
+                "WHERE compositions.albumId = ? " +
                 "ORDER BY fileName";
     }
 
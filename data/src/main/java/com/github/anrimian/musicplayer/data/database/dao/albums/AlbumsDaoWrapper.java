@@ -7,10 +7,14 @@ import androidx.sqlite.db.SimpleSQLiteQuery;
 import com.github.anrimian.musicplayer.data.database.AppDatabase;
 import com.github.anrimian.musicplayer.data.database.dao.artist.ArtistsDao;
 import com.github.anrimian.musicplayer.data.database.entities.artist.ArtistEntity;
+import com.github.anrimian.musicplayer.data.database.observer.LibraryQueryObserver;
+import com.github.anrimian.musicplayer.data.database.paging.DbPageSource;
+import com.github.anrimian.musicplayer.data.database.paging.KeysetQuery;
 import com.github.anrimian.musicplayer.data.models.composition.CompositionId;
 import com.github.anrimian.musicplayer.domain.models.albums.Album;
 import com.github.anrimian.musicplayer.domain.models.composition.Composition;
 import com.github.anrimian.musicplayer.domain.models.order.Order;
+import com.github.anrimian.musicplayer.domain.utils.paging.PageSource;
 
 import java.util.List;
 
@@ -18,26 +22,40 @@ import io.reactivex.rxjava3.core.Observable;
 
 public class AlbumsDaoWrapper {
 
+    private static final String[] ALBUMS_LIST_TABLES = { "albums", "artists", "compositions" };
+
     private final AppDatabase appDatabase;
     private final AlbumsDao albumsDao;
     private final ArtistsDao artistsDao;
+    private final LibraryQueryObserver queryObserver;
 
-    public AlbumsDaoWrapper(AppDatabase appDatabase, AlbumsDao albumsDao, ArtistsDao artistsDao) {
+    public AlbumsDaoWrapper(AppDatabase appDatabase,
+                            AlbumsDao albumsDao,
+                            ArtistsDao artistsDao,
+                            LibraryQueryObserver queryObserver) {
         this.appDatabase = appDatabase;
         this.albumsDao = albumsDao;
         this.artistsDao = artistsDao;
+        this.queryObserver = queryObserver;
     }
 
     public Observable<List<Album>> getAllObservable(Order order, String searchText) {
-        String query = "SELECT id as id," +
-                "name as name, " +
-                "(SELECT name FROM artists WHERE artists.id = albums.artistId) as artist, " +
-                "(SELECT count() FROM compositions WHERE albumId = albums.id) as compositionsCount " +
-                "FROM albums";
-        query += getSearchQuery();
+        String query = getAlbumsQuery();
+        query += " WHERE " + getSearchQuery();
         query += getOrderQuery(order);
         SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query, getSearchArgs(searchText, 3));
-        return albumsDao.getAllObservable(sqlQuery);
+        return queryObserver.createObservable(() -> albumsDao.getAll(sqlQuery), ALBUMS_LIST_TABLES);
+    }
+
+    public PageSource<Album> getAllPageSource(Order order, String searchText) {
+        KeysetQuery query = new KeysetQuery(getAlbumsQuery(), "albums", "albums.id")
+                .where(getSearchQuery(), (Object[]) getSearchArgs(searchText, 3))
+                .orderBy(getOrderExpression(order), order.isReversed());
+        return new DbPageSource<>(appDatabase,
+                query,
+                albumsDao::getAll,
+                Album::getId,
+                queryObserver.getChangesObservable(ALBUMS_LIST_TABLES));
     }
 
     public Observable<List<Album>> getAllAlbumsForArtistObservable(long artistId) {
@@ -94,26 +112,33 @@ public class AlbumsDaoWrapper {
         return albumsDao.isAlbumExists(name);
     }
 
+    private String getAlbumsQuery() {
+        return "SELECT id as id," +
+                "name as name, " +
+                "(SELECT name FROM artists WHERE artists.id = albums.artistId) as artist, " +
+                "(SELECT count() FROM compositions WHERE albumId = albums.id) as compositionsCount " +
+                "FROM albums";
+    }
+
     private String getOrderQuery(Order order) {
-        StringBuilder orderQuery = new StringBuilder(" ORDER BY ");
+        return " ORDER BY " + getOrderExpression(order) + " " + (order.isReversed()? "DESC" : "ASC");
+    }
+
+    //compositions count expression instead of alias, it is also selected for keyset anchor
+    private String getOrderExpression(Order order) {
         switch (order.getOrderType()) {
             case NAME: {
-                orderQuery.append("name");
-                break;
+                return "name";
             }
             case COMPOSITION_COUNT: {
-                orderQuery.append("compositionsCount");
-                break;
+                return "(SELECT count() FROM compositions WHERE albumId = albums.id)";
             }
             default: throw new IllegalStateException("unknown order type" + order);
         }
-        orderQuery.append(" ");
-        orderQuery.append(order.isReversed()? "DESC" : "ASC");
-        return orderQuery.toString();
     }
 
     private String getSearchQuery() {
-        return " WHERE (? IS NULL OR (name LIKE ? OR artist NOTNULL AND artist LIKE ?))";
+        return "(? IS NULL OR (name LIKE ? OR artist NOTNULL AND artist LIKE ?))";
     }
 
 }
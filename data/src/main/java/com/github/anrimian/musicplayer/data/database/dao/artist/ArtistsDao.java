@@ -22,8 +22,8 @@ import io.reactivex.rxjava3.core.Observable;
 @Dao
 public interface ArtistsDao {
 
-    @RawQuery(observedEntities = { ArtistEntity.class, CompositionEntity.class })
-    Observable<List<Artist>> getAllObservable(SupportSQLiteQuery query);
+    @RawQuery
+    List<Artist> getAll(SupportSQLiteQuery query);
 
     @Query("SELECT id as id," +
             "name as name, " +
@@ -49,6 +49,9 @@ public interface ArtistsDao {
     @Query("SELECT id FROM artists WHERE name = :name")
     Long findArtistIdByName(String name);
 
+    @Query("SELECT * FROM artists")
+    List<ArtistEntity> getAllArtists();
+
     @Insert()
     long insertArtist(ArtistEntity artistEntity);
 
@@ -59,8 +62,8 @@ public interface ArtistsDao {
     void deleteEmptyArtist(long id);
 
     @Query("DELETE FROM artists " +
-            "WHERE (SELECT count() FROM compositions WHERE artistId = artists.id) = 0 " +
-            "AND (SELECT count() FROM albums WHERE artistId = artists.id) = 0")
+            "WHERE NOT EXISTS(SELECT 1 FROM compositions WHERE artistId = artists.id) " +
+            "AND NOT EXISTS(SELECT 1 FROM albums WHERE artistId = artists.id)")
     void deleteEmptyArtists();
 
     @Query("UPDATE artists SET name = :name WHERE id = :id")
@@ -73,6 +76,7 @@ public interface ArtistsDao {
         return "SELECT " +
                 CompositionsDao.getCompositionSelectionQuery(useFileName) +
                 "FROM compositions " +
-                "WHERE artistId = ?";
+                CompositionsDao.getArtistAndAlbumJoinQuery() +
+                "WHERE compositions.artistId = ?";
     }
 }
@@ -4,10 +4,15 @@ import static com.github.anrimian.musicplayer.data.database.utils.DatabaseUtils.
 
 import androidx.sqlite.db.SimpleSQLiteQuery;
 
+import com.github.anrimian.musicplayer.data.database.AppDatabase;
+import com.github.anrimian.musicplayer.data.database.observer.LibraryQueryObserver;
+import com.github.anrimian.musicplayer.data.database.paging.DbPageSource;
+import com.github.anrimian.musicplayer.data.database.paging.KeysetQuery;
 import com.github.anrimian.musicplayer.data.models.composition.CompositionId;
 import com.github.anrimian.musicplayer.domain.models.artist.Artist;
 import com.github.anrimian.musicplayer.domain.models.composition.Composition;
 import com.github.anrimian.musicplayer.domain.models.order.Order;
+import com.github.anrimian.musicplayer.domain.utils.paging.PageSource;
 
 import java.util.List;
 
@@ -15,22 +20,37 @@ import io.reactivex.rxjava3.core.Observable;
 
 public class ArtistsDaoWrapper {
 
+    private static final String[] ARTISTS_LIST_TABLES = { "artists", "compositions", "albums" };
+
+    private final AppDatabase appDatabase;
     private final ArtistsDao artistsDao;
+    private final LibraryQueryObserver queryObserver;
 
-    public ArtistsDaoWrapper(ArtistsDao artistsDao) {
+    public ArtistsDaoWrapper(AppDatabase appDatabase,
+                             ArtistsDao artistsDao,
+                             LibraryQueryObserver queryObserver) {
+        this.appDatabase = appDatabase;
         this.artistsDao = artistsDao;
+        this.queryObserver = queryObserver;
     }
 
     public Observable<List<Artist>> getAllObservable(Order order, String searchText) {
-        String query = "SELECT id as id," +
-                "name as name, " +
-                "(SELECT count() FROM compositions WHERE artistId = artists.id) as compositionsCount, " +
-                "(SELECT count() FROM albums WHERE artistId = artists.id) as albumsCount " +
-                "FROM artists";
-        query += getSearchQuery();
+        String query = getArtistsQuery();
+        query += " WHERE " + getSearchQuery();
         query += getOrderQuery(order);
         SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query, getSearchArgs(searchText, 2));
-        return artistsDao.getAllObservable(sqlQuery);
+        return queryObserver.createObservable(() -> artistsDao.getAll(sqlQuery), ARTISTS_LIST_TABLES);
+    }
+
+    public PageSource<Artist> getAllPageSource(Order order, String searchText) {
+        KeysetQuery query = new KeysetQuery(getArtistsQuery(), "artists", "artists.id")
+                .where(getSearchQuery(), (Object[]) getSearchArgs(searchText, 2))
+                .orderBy(getOrderExpression(order), order.isReversed());
+        return new DbPageSource<>(appDatabase,
+                query,
+                artistsDao::getAll,
+                Artist::getId,
+                queryObserver.getChangesObservable(ARTISTS_LIST_TABLES));
     }
 
     public Observable<List<Composition>> getCompositionsByArtistObservable(long artistId, boolean useFileName) {
@@ -61,26 +81,33 @@ public class ArtistsDaoWrapper {
         return artistsDao.isArtistExists(name);
     }
 
+    private String getArtistsQuery() {
+        return "SELECT id as id," +
+                "name as name, " +
+                "(SELECT count() FROM compositions WHERE artistId = artists.id) as compositionsCount, " +
+                "(SELECT count() FROM albums WHERE artistId = artists.id) as albumsCount " +
+                "FROM artists";
+    }
+
     private String getOrderQuery(Order order) {
-        StringBuilder orderQuery = new StringBuilder(" ORDER BY ");
+        return " ORDER BY " + getOrderExpression(order) + " " + (order.isReversed()? "DESC" : "ASC");
+    }
+
+    //compositions count expression instead of alias, it is also selected for keyset anchor
+    private String getOrderExpression(Order order) {
         switch (order.getOrderType()) {
             case NAME: {
-                orderQuery.append("name");
-                break;
+                return "name";
             }
             case COMPOSITION_COUNT: {
-                orderQuery.append("compositionsCount");
-                break;
+                return "(SELECT count() FROM compositions WHERE artistId = artists.id)";
             }
             default: throw new IllegalStateException("unknown order type" + order);
         }
-        orderQuery.append(" ");
-        orderQuery.append(order.isReversed()? "DESC" : "ASC");
-        return orderQuery.toString();
     }
 
     private String getSearchQuery() {
-        return " WHERE (? IS NULL OR name LIKE ?)";
+        return "(? IS NULL OR name LIKE ?)";
     }
 
 }
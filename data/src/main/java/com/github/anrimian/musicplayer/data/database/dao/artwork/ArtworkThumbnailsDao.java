@@ -0,0 +1,18 @@
+package com.github.anrimian.musicplayer.data.database.dao.artwork;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.github.anrimian.musicplayer.data.database.entities.artwork.ArtworkThumbnailEntity;
+
+@Dao
+public interface ArtworkThumbnailsDao {
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insert(ArtworkThumbnailEntity entity);
+
+    @Query("SELECT * FROM artwork_thumbnails WHERE compositionId = :compositionId")
+    ArtworkThumbnailEntity selectThumbnail(long compositionId);
+}
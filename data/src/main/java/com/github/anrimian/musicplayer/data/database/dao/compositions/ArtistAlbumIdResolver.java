@@ -0,0 +1,118 @@
+package com.github.anrimian.musicplayer.data.database.dao.compositions;
+
+import com.github.anrimian.musicplayer.data.database.dao.albums.AlbumsDao;
+import com.github.anrimian.musicplayer.data.database.dao.artist.ArtistsDao;
+import com.github.anrimian.musicplayer.data.database.entities.albums.AlbumEntity;
+import com.github.anrimian.musicplayer.data.database.entities.artist.ArtistEntity;
+import com.github.anrimian.musicplayer.data.storage.providers.albums.StorageAlbum;
+import com.github.anrimian.musicplayer.domain.utils.Objects;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * In-memory name to id dictionary of artists and albums for bulk changes.
+ * Existing rows are loaded once, missing ones are inserted on first request.
+ * Must be used inside one transaction and dropped after it.
+ */
+class ArtistAlbumIdResolver {
+
+    private final ArtistsDao artistsDao;
+    private final AlbumsDao albumsDao;
+
+    @Nullable
+    private Map<String, Long> artistIds;
+    @Nullable
+    private Map<AlbumKey, Long> albumIds;
+
+    ArtistAlbumIdResolver(ArtistsDao artistsDao, AlbumsDao albumsDao) {
+        this.artistsDao = artistsDao;
+        this.albumsDao = albumsDao;
+    }
+
+    @Nullable
+    Long getOrInsertArtist(@Nullable String name) {
+        if (name == null) {
+            return null;
+        }
+        Map<String, Long> artistIds = getArtistIds();
+        Long artistId = artistIds.get(name);
+        if (artistId == null) {
+            artistId = artistsDao.insertArtist(new ArtistEntity(name));
+            artistIds.put(name, artistId);
+        }
+        return artistId;
+    }
+
+    @Nullable
+    Long getOrInsertAlbum(@Nullable StorageAlbum storageAlbum) {
+        if (storageAlbum == null || storageAlbum.getAlbum() == null) {
+            return null;
+        }
+        Long artistId = getOrInsertArtist(storageAlbum.getArtist());
+        AlbumKey key = new AlbumKey(artistId, storageAlbum.getAlbum());
+
+        Map<AlbumKey, Long> albumIds = getAlbumIds();
+        Long albumId = albumIds.get(key);
+        if (albumId == null) {
+            albumId = albumsDao.insert(new AlbumEntity(artistId,
+                    storageAlbum.getAlbum(),
+                    storageAlbum.getFirstYear(),
+                    storageAlbum.getLastYear()));
+            albumIds.put(key, albumId);
+        }
+        return albumId;
+    }
+
+    private Map<String, Long> getArtistIds() {
+        if (artistIds == null) {
+            artistIds = new HashMap<>();
+            for (ArtistEntity artist: artistsDao.getAllArtists()) {
+                artistIds.put(artist.getName(), artist.getId());
+            }
+        }
+        return artistIds;
+    }
+
+    private Map<AlbumKey, Long> getAlbumIds() {
+        if (albumIds == null) {
+            albumIds = new HashMap<>();
+            for (AlbumEntity album: albumsDao.getAllAlbums()) {
+                albumIds.put(new AlbumKey(album.getArtistId(), album.getName()), album.getId());
+            }
+        }
+        return albumIds;
+    }
+
+    private static class AlbumKey {
+
+        @Nullable
+        private final Long artistId;
+        private final String name;
+
+        AlbumKey(@Nullable Long artistId, String name) {
+            this.artistId = artistId;
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            AlbumKey albumKey = (AlbumKey) o;
+
+            if (!Objects.equals(artistId, albumKey.artistId)) return false;
+            return name.equals(albumKey.name);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = artistId != null ? artistId.hashCode() : 0;
+            result = 31 * result + name.hashCode();
+            return result;
+        }
+    }
+}
@@ -2,14 +2,14 @@ package com.github.anrimian.musicplayer.data.database.dao.compositions;
 
 import androidx.room.Dao;
 import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
 import androidx.room.RawQuery;
 import androidx.sqlite.db.SimpleSQLiteQuery;
-import androidx.sqlite.db.SupportSQLiteQuery;
 
-import com.github.anrimian.musicplayer.data.database.entities.albums.AlbumEntity;
-import com.github.anrimian.musicplayer.data.database.entities.artist.ArtistEntity;
 import com.github.anrimian.musicplayer.data.database.entities.composition.CompositionEntity;
+import com.github.anrimian.musicplayer.data.database.entities.composition.CompositionScanStateEntity;
+import com.github.anrimian.musicplayer.data.models.composition.TrackGain;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageComposition;
 import com.github.anrimian.musicplayer.domain.models.composition.Composition;
 import com.github.anrimian.musicplayer.domain.models.composition.CorruptionType;
@@ -18,45 +18,42 @@ import com.github.anrimian.musicplayer.domain.models.composition.FullComposition
 import java.util.Date;
 import java.util.List;
 
-import io.reactivex.rxjava3.core.Maybe;
 import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Single;
 
 @Dao
 public interface CompositionsDao {
 
     @Query("SELECT " +
-            "(SELECT name FROM artists WHERE id = artistId) as artist, " +
-            "title as title, " +
-            "(SELECT name FROM albums WHERE id = albumId) as album, " +
-            "(SELECT name FROM artists WHERE id = (SELECT artistId FROM albums WHERE id = albumId)) as albumArtist, " +
-            "lyrics as lyrics, " +
-            "fileName as fileName, " +
-            "duration as duration, " +
-            "size as size, " +
-            "id as id, " +
-            "storageId as storageId, " +
-            "dateAdded as dateAdded, " +
-            "dateModified as dateModified, " +
-            "corruptionType as corruptionType " +
+            "artists.name as artist, " +
+            "compositions.title as title, " +
+            "albums.name as album, " +
+            "albumArtists.name as albumArtist, " +
+            "compositions.lyrics as lyrics, " +
+            "compositions.fileName as fileName, " +
+            "compositions.duration as duration, " +
+            "compositions.size as size, " +
+            "compositions.id as id, " +
+            "compositions.storageId as storageId, " +
+            "compositions.dateAdded as dateAdded, " +
+            "compositions.dateModified as dateModified, " +
+            "compositions.corruptionType as corruptionType " +
             "FROM compositions " +
-            "WHERE id = :id " +
+            "LEFT JOIN artists ON artists.id = compositions.artistId " +
+            "LEFT JOIN albums ON albums.id = compositions.albumId " +
+            "LEFT JOIN artists AS albumArtists ON albumArtists.id = albums.artistId " +
+            "WHERE compositions.id = :id " +
             "LIMIT 1")
     Observable<List<FullComposition>> getCompositionObservable(long id);
 
-    @RawQuery(observedEntities = { CompositionEntity.class, ArtistEntity.class, AlbumEntity.class })
-    Observable<List<Composition>> getAllObservable(SupportSQLiteQuery query);
-
-    @RawQuery(observedEntities = { CompositionEntity.class, ArtistEntity.class, AlbumEntity.class })
-    Observable<List<Composition>> getAllInFolderObservable(SupportSQLiteQuery query);
-
     @RawQuery
     List<Composition> executeQuery(SimpleSQLiteQuery sqlQuery);
 
     @Query("SELECT " +
-            "(SELECT name FROM artists WHERE id = artistId) as artist, " +
-            "title as title, " +
-            "(SELECT name FROM albums WHERE id = albumId) as album, " +
-            "(SELECT name FROM artists WHERE id = (SELECT artistId FROM albums WHERE id = albumId)) as albumArtist, " +
+            "artists.name as artist, " +
+            "compositions.title as title, " +
+            "albums.name as album, " +
+            "albumArtists.name as albumArtist, " +
             "compositions.fileName as fileName, " +
             "compositions.filePath as filePath, " +
             "compositions.duration as duration, " +
@@ -66,17 +63,53 @@ public interface CompositionsDao {
             "compositions.folderId as folderId, " +
             "compositions.dateAdded as dateAdded, " +
             "compositions.dateModified as dateModified, " +
-            "compositions.lastScanDate as lastScanDate " +
-            "FROM compositions WHERE storageId NOTNULL")
+            "coalesce(compositions_scan_state.lastScanDate, 0) as lastScanDate " +
+            "FROM compositions " +
+            "LEFT JOIN compositions_scan_state ON compositions_scan_state.compositionId = compositions.id " +
+            "LEFT JOIN artists ON artists.id = compositions.artistId " +
+            "LEFT JOIN albums ON albums.id = compositions.albumId " +
+            "LEFT JOIN artists AS albumArtists ON albumArtists.id = albums.artistId " +
+            "WHERE compositions.storageId NOTNULL " +
+            "ORDER BY compositions.storageId")
     List<StorageComposition> selectAllAsStorageCompositions();
 
+    @Query("SELECT " +
+            "artists.name as artist, " +
+            "compositions.title as title, " +
+            "albums.name as album, " +
+            "albumArtists.name as albumArtist, " +
+            "compositions.fileName as fileName, " +
+            "compositions.filePath as filePath, " +
+            "compositions.duration as duration, " +
+            "compositions.size as size, " +
+            "compositions.id as id, " +
+            "compositions.storageId as storageId, " +
+            "compositions.folderId as folderId, " +
+            "compositions.dateAdded as dateAdded, " +
+            "compositions.dateModified as dateModified, " +
+            "coalesce(compositions_scan_state.lastScanDate, 0) as lastScanDate " +
+            "FROM compositions " +
+            "LEFT JOIN compositions_scan_state ON compositions_scan_state.compositionId = compositions.id " +
+            "LEFT JOIN artists ON artists.id = compositions.artistId " +
+            "LEFT JOIN albums ON albums.id = compositions.albumId " +
+            "LEFT JOIN artists AS albumArtists ON albumArtists.id = albums.artistId " +
+            "WHERE compositions.storageId IN (:storageIds)")
+    List<StorageComposition> selectAsStorageCompositions(List<Long> storageIds);
+
+    @Query("SELECT storageId FROM compositions WHERE storageId NOTNULL ORDER BY storageId")
+    List<Long> selectAllStorageIds();
+
     @Insert
     long insert(CompositionEntity entity);
 
     @Insert
     void insert(List<CompositionEntity> entities);
 
+    //room keeps this statement compiled, so bulk updates only rebind arguments
     @Query("UPDATE compositions SET " +
+            "artistId = :artistId, " +
+            "albumId = :albumId, " +
+            "folderId = :folderId, " +
             "title = :title, " +
             "fileName = :fileName, " +
             "filePath = :filePath, " +
@@ -84,15 +117,18 @@ public interface CompositionsDao {
             "size = :size, " +
             "dateAdded = :dateAdded, " +
             "dateModified = :dateModified " +
-            "WHERE storageId = :storageId")
-    void update(String title,
-                String fileName,
-                String filePath,
-                long duration,
-                long size,
-                Date dateAdded,
-                Date dateModified,
-                long storageId);
+            "WHERE id = :id")
+    void updateStorageData(long id,
+                           Long artistId,
+                           Long albumId,
+                           Long folderId,
+                           String title,
+                           String fileName,
+                           String filePath,
+                           long duration,
+                           long size,
+                           Date dateAdded,
+                           Date dateModified);
 
     @Query("DELETE FROM compositions WHERE id = :id")
     void delete(long id);
@@ -127,6 +163,9 @@ public interface CompositionsDao {
     @Query("SELECT storageId FROM compositions WHERE id = :id")
     Long getStorageId(long id);
 
+    @Query("SELECT dateModified FROM compositions WHERE id = :id")
+    Date getDateModified(long id);
+
     @Query("UPDATE compositions SET corruptionType = :corruptionType WHERE id = :id")
     void setCorruptionType(CorruptionType corruptionType, long id);
 
@@ -149,42 +188,84 @@ public interface CompositionsDao {
     long getCompositionsCount();
 
     @Query("SELECT " +
-            "(SELECT name FROM artists WHERE id = artistId) as artist, " +
-            "title as title, " +
-            "(SELECT name FROM albums WHERE id = albumId) as album, " +
-            "(SELECT name FROM artists WHERE id = (SELECT artistId FROM albums WHERE id = albumId)) as albumArtist, " +
-            "lyrics as lyrics, " +
-            "fileName as fileName, " +
-            "duration as duration, " +
-            "size as size, " +
-            "id as id, " +
-            "storageId as storageId, " +
-            "dateAdded as dateAdded, " +
-            "dateModified as dateModified, " +
-            "corruptionType as corruptionType " +
+            "artists.name as artist, " +
+            "compositions.title as title, " +
+            "albums.name as album, " +
+            "albumArtists.name as albumArtist, " +
+            "compositions.lyrics as lyrics, " +
+            "compositions.fileName as fileName, " +
+            "compositions.duration as duration, " +
+            "compositions.size as size, " +
+            "compositions.id as id, " +
+            "compositions.storageId as storageId, " +
+            "compositions.dateAdded as dateAdded, " +
+            "compositions.dateModified as dateModified, " +
+            "compositions.corruptionType as corruptionType " +
             "FROM compositions " +
-            "WHERE lastScanDate < dateModified OR lastScanDate < :lastCompleteScanTime " +
-            "ORDER BY dateModified DESC " +
-            "LIMIT 1")
-    Maybe<FullComposition> selectNextCompositionToScan(long lastCompleteScanTime);
+            "LEFT JOIN compositions_scan_state ON compositions_scan_state.compositionId = compositions.id " +
+            "LEFT JOIN artists ON artists.id = compositions.artistId " +
+            "LEFT JOIN albums ON albums.id = compositions.albumId " +
+            "LEFT JOIN artists AS albumArtists ON albumArtists.id = albums.artistId " +
+            "WHERE compositions_scan_state.lastScanDate IS NULL " +
+            "OR compositions_scan_state.lastScanDate < compositions.dateModified " +
+            "OR compositions_scan_state.lastScanDate < :lastCompleteScanTime " +
+            "ORDER BY compositions.dateModified DESC " +
+            "LIMIT :count")
+    Single<List<FullComposition>> selectNextCompositionsToScan(long lastCompleteScanTime, int count);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void setCompositionsScanState(List<CompositionScanStateEntity> states);
+
+    @Query("DELETE FROM compositions_scan_state")
+    void cleanLastFileScanTime();
 
-    @Query("UPDATE compositions SET lastScanDate = :time WHERE id = :id")
-    void setCompositionLastFileScanTime(long id, Date time);
+    //unchanged values are not written, write of the same value invalidates observed queries too
+    @Query("UPDATE compositions SET trackGain = :trackGain, trackPeak = :trackPeak " +
+            "WHERE id = :id " +
+            "AND (trackGain IS NOT :trackGain OR trackPeak IS NOT :trackPeak)")
+    void updateTrackGain(long id, Float trackGain, Float trackPeak);
 
-    @Query("UPDATE compositions SET lastScanDate = 0")
-    void cleanLastFileScanTime();
+    //keep analysis result of unchanged file
+    @Query("UPDATE compositions SET trackGain = NULL, trackPeak = NULL " +
+            "WHERE id = :id " +
+            "AND (trackGain NOTNULL OR trackPeak NOTNULL) " +
+            "AND (lastLoudnessScanDate IS NULL OR lastLoudnessScanDate < dateModified)")
+    void clearOutdatedTrackGain(long id);
+
+    @Query("SELECT trackGain, trackPeak FROM compositions WHERE id = :id")
+    TrackGain selectTrackGain(long id);
+
+    //file scanner goes first, gain can be read from tags
+    @Query("SELECT id FROM compositions " +
+            "INNER JOIN compositions_scan_state ON compositions_scan_state.compositionId = compositions.id " +
+            "WHERE trackGain IS NULL " +
+            "AND storageId NOTNULL " +
+            "AND (lastLoudnessScanDate IS NULL OR lastLoudnessScanDate < dateModified) " +
+            "AND compositions_scan_state.lastScanDate >= dateModified " +
+            "AND compositions_scan_state.lastScanDate >= :lastCompleteScanTime " +
+            "ORDER BY dateAdded DESC " +
+            "LIMIT 1")
+    Long selectNextCompositionIdToLoudnessScan(long lastCompleteScanTime);
+
+    @Query("UPDATE compositions SET " +
+            "trackGain = :trackGain, " +
+            "trackPeak = :trackPeak, " +
+            "lastLoudnessScanDate = :scanDate " +
+            "WHERE id = :id")
+    void setLoudnessScanResult(long id, Float trackGain, Float trackPeak, Date scanDate);
 
     static StringBuilder getCompositionQuery(boolean useFileName) {
         return new StringBuilder("SELECT " +
                 CompositionsDao.getCompositionSelectionQuery(useFileName) +
-                "FROM compositions");
+                "FROM compositions " +
+                CompositionsDao.getArtistAndAlbumJoinQuery());
     }
 
     static String getCompositionSelectionQuery(boolean useFileName) {
         return "compositions.id AS id, " +
                 "compositions.storageId AS storageId, " +
-                "(SELECT name FROM artists WHERE id = artistId) as artist, " +
-                "(SELECT name FROM albums WHERE id = albumId) as album, " +
+                "artists.name as artist, " +
+                "albums.name as album, " +
                 "(" + (useFileName? "fileName": "CASE WHEN title IS NULL OR title = '' THEN fileName ELSE title END") + ") as title, " +
                 "compositions.duration AS duration, " +
                 "compositions.size AS size, " +
@@ -193,5 +274,11 @@ public interface CompositionsDao {
                 "compositions.corruptionType AS corruptionType ";
     }
 
+    //joins names for getCompositionSelectionQuery(), "id" and "artistId" columns become ambiguous
+    static String getArtistAndAlbumJoinQuery() {
+        return "LEFT JOIN artists ON artists.id = compositions.artistId " +
+                "LEFT JOIN albums ON albums.id = compositions.albumId ";
+    }
+
 
 }
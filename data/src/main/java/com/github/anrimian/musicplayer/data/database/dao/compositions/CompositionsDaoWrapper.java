@@ -1,6 +1,6 @@
 package com.github.anrimian.musicplayer.data.database.dao.compositions;
 
-import static com.github.anrimian.musicplayer.data.database.utils.DatabaseUtils.getSearchArgs;
+import static com.github.anrimian.musicplayer.data.database.utils.DatabaseUtils.getFtsMatchQuery;
 import static com.github.anrimian.musicplayer.domain.Constants.TRIGGER;
 import static com.github.anrimian.musicplayer.domain.utils.TextUtils.isEmpty;
 
@@ -13,43 +13,61 @@ import com.github.anrimian.musicplayer.data.database.dao.artist.ArtistsDao;
 import com.github.anrimian.musicplayer.data.database.dao.folders.FoldersDao;
 import com.github.anrimian.musicplayer.data.database.entities.albums.AlbumEntity;
 import com.github.anrimian.musicplayer.data.database.entities.artist.ArtistEntity;
+import com.github.anrimian.musicplayer.data.database.entities.composition.CompositionScanStateEntity;
+import com.github.anrimian.musicplayer.data.database.observer.LibraryQueryObserver;
+import com.github.anrimian.musicplayer.data.database.paging.DbPageSource;
+import com.github.anrimian.musicplayer.data.database.paging.KeysetQuery;
+import com.github.anrimian.musicplayer.data.models.composition.TrackGain;
 import com.github.anrimian.musicplayer.data.models.exceptions.CompositionNotFoundException;
 import com.github.anrimian.musicplayer.data.storage.providers.music.FilePathComposition;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageComposition;
-import com.github.anrimian.musicplayer.data.utils.collections.AndroidCollectionUtils;
+import com.github.anrimian.musicplayer.data.utils.collections.LongHashMap;
 import com.github.anrimian.musicplayer.domain.models.composition.Composition;
 import com.github.anrimian.musicplayer.domain.models.composition.CorruptionType;
 import com.github.anrimian.musicplayer.domain.models.composition.FullComposition;
 import com.github.anrimian.musicplayer.domain.models.composition.source.CompositionSourceTags;
 import com.github.anrimian.musicplayer.domain.models.order.Order;
 import com.github.anrimian.musicplayer.domain.utils.Objects;
+import com.github.anrimian.musicplayer.domain.utils.paging.PageSource;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
 import javax.annotation.Nullable;
 
-import io.reactivex.rxjava3.core.Maybe;
 import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Single;
 import io.reactivex.rxjava3.subjects.BehaviorSubject;
 
 public class CompositionsDaoWrapper {
 
+    //sqlite limit for host parameters count
+    private static final int MAX_SELECTION_ARGS_COUNT = 999;
+
+    private static final String[] COMPOSITIONS_LIST_TABLES = {
+            "compositions", "artists", "albums", "compositions_search"
+    };
+
     private final AppDatabase appDatabase;
     private final CompositionsDao compositionsDao;
     private final ArtistsDao artistsDao;
     private final AlbumsDao albumsDao;
+    private final LibraryQueryObserver queryObserver;
 
     private final BehaviorSubject<Object> updateSubject = BehaviorSubject.createDefault(TRIGGER);
 
     public CompositionsDaoWrapper(AppDatabase appDatabase,
                                   ArtistsDao artistsDao,
                                   CompositionsDao compositionsDao,
-                                  AlbumsDao albumsDao) {
+                                  AlbumsDao albumsDao,
+                                  LibraryQueryObserver queryObserver) {
         this.appDatabase = appDatabase;
         this.artistsDao = artistsDao;
         this.compositionsDao = compositionsDao;
         this.albumsDao = albumsDao;
+        this.queryObserver = queryObserver;
     }
 
     public Observable<FullComposition> getCompositionObservable(long id) {
@@ -61,11 +79,42 @@ public class CompositionsDaoWrapper {
     public Observable<List<Composition>> getAllObservable(Order order,
                                                           boolean useFileName,
                                                           @Nullable String searchText) {
+        Object[] searchArgs = getSearchArgs(searchText, useFileName);
         StringBuilder query = CompositionsDao.getCompositionQuery(useFileName);
-        query.append(getSearchQuery(useFileName));
-        query.append(getOrderQuery(order));
-        SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query.toString(), getSearchArgs(searchText, 3));
-        return updateSubject.switchMap(o -> compositionsDao.getAllObservable(sqlQuery));
+        if (searchArgs.length > 0) {
+            query.append(" WHERE ");
+            query.append(getSearchQuery());
+        }
+        query.append(getSearchOrderQuery(order, searchArgs.length > 0));
+        SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query.toString(), searchArgs);
+        return updateSubject.switchMap(o -> queryObserver.createObservable(
+                () -> compositionsDao.executeQuery(sqlQuery),
+                COMPOSITIONS_LIST_TABLES));
+    }
+
+    public PageSource<Composition> getAllPageSource(Order order,
+                                                    boolean useFileName,
+                                                    @Nullable String searchText) {
+        KeysetQuery query = new KeysetQuery(CompositionsDao.getCompositionQuery(useFileName).toString(),
+                "compositions",
+                "compositions.id");
+        applySearchAndOrder(query, order, useFileName, searchText);
+        return createPageSource(query, Observable.merge(
+                queryObserver.getChangesObservable(COMPOSITIONS_LIST_TABLES),
+                updateSubject.skip(1)));
+    }
+
+    public PageSource<Composition> getCompositionsInFolderPageSource(Long folderId,
+                                                                     Order order,
+                                                                     boolean useFileName,
+                                                                     @Nullable String searchText) {
+        KeysetQuery query = new KeysetQuery(CompositionsDao.getCompositionQuery(useFileName).toString(),
+                "compositions",
+                "compositions.id");
+        query.where("compositions.folderId = " + folderId
+                + " OR (compositions.folderId IS NULL AND " + folderId + " IS NULL)");
+        applySearchAndOrder(query, order, useFileName, searchText);
+        return createPageSource(query, queryObserver.getChangesObservable(COMPOSITIONS_LIST_TABLES));
     }
 
     public void launchManualUpdate() {
@@ -76,17 +125,21 @@ public class CompositionsDaoWrapper {
                                                                            Order order,
                                                                            boolean useFileName,
                                                                            @Nullable String searchText) {
+        Object[] searchArgs = getSearchArgs(searchText, useFileName);
         StringBuilder query = CompositionsDao.getCompositionQuery(useFileName);
-        query.append(getSearchQuery(useFileName));
-        query.append(" AND ");
-        query.append("folderId = ");
+        query.append(" WHERE (folderId = ");
         query.append(folderId);
         query.append(" OR (folderId IS NULL AND ");
         query.append(folderId);
-        query.append(" IS NULL)");
-        query.append(getOrderQuery(order));
-        SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query.toString(), getSearchArgs(searchText, 3));
-        return compositionsDao.getAllInFolderObservable(sqlQuery);
+        query.append(" IS NULL))");
+        if (searchArgs.length > 0) {
+            query.append(" AND ");
+            query.append(getSearchQuery());
+        }
+        query.append(getSearchOrderQuery(order, searchArgs.length > 0));
+        SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query.toString(), searchArgs);
+        return queryObserver.createObservable(() -> compositionsDao.executeQuery(sqlQuery),
+                COMPOSITIONS_LIST_TABLES);
     }
 
     public List<Composition> getAllCompositionsInFolder(Long parentFolderId, boolean useFileName) {
@@ -99,21 +152,79 @@ public class CompositionsDaoWrapper {
         return compositionsDao.executeQuery(sqlQuery);
     }
 
-    public List<Composition> getCompositionsInFolder(Long parentFolderId, Order order, boolean useFileName) {
+    /**
+     * @param folderIds not empty list of folders in order of result,
+     *                  null folder can be only the last one
+     */
+    public List<Composition> getCompositionsInFolders(List<Long> folderIds, Order order, boolean useFileName) {
+        int size = folderIds.size();
+        boolean hasNullFolder = folderIds.get(size - 1) == null;
+        int idsCount = hasNullFolder? size - 1 : size;
+
         StringBuilder query = CompositionsDao.getCompositionQuery(useFileName);
-        query.append(" WHERE folderId = ");
-        query.append(parentFolderId);
-        query.append(" OR (folderId IS NULL AND ");
-        query.append(parentFolderId);
-        query.append(" IS NULL)");
-        query.append(getOrderQuery(order));
+        query.append(" WHERE ");
+        if (idsCount > 0) {
+            query.append("compositions.folderId IN (");
+            for (int i = 0; i < idsCount; i++) {
+                if (i > 0) {
+                    query.append(", ");
+                }
+                query.append(folderIds.get(i));
+            }
+            query.append(")");
+            if (hasNullFolder) {
+                query.append(" OR ");
+            }
+        }
+        if (hasNullFolder) {
+            query.append("compositions.folderId IS NULL");
+        }
+        query.append(" ORDER BY ");
+        if (size > 1) {
+            query.append("CASE compositions.folderId");
+            for (int i = 0; i < idsCount; i++) {
+                query.append(" WHEN ");
+                query.append(folderIds.get(i));
+                query.append(" THEN ");
+                query.append(i);
+            }
+            query.append(" ELSE ");
+            query.append(idsCount);
+            query.append(" END, ");
+        }
+        query.append(getOrderTerm(order));
         SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query.toString());
         return compositionsDao.executeQuery(sqlQuery);
     }
 
-    public LongSparseArray<StorageComposition> selectAllAsStorageCompositions() {
-        return AndroidCollectionUtils.mapToSparseArray(compositionsDao.selectAllAsStorageCompositions(),
-                StorageComposition::getStorageId);
+    /**
+     * @return compositions with storage id, sorted by storage id
+     */
+    public List<StorageComposition> selectAllAsStorageCompositions() {
+        return compositionsDao.selectAllAsStorageCompositions();
+    }
+
+    public LongHashMap<StorageComposition> selectAsStorageCompositions(List<Long> storageIds) {
+        LongHashMap<StorageComposition> result = new LongHashMap<>(storageIds.size());
+        for (int from = 0; from < storageIds.size(); from += MAX_SELECTION_ARGS_COUNT) {
+            int to = Math.min(from + MAX_SELECTION_ARGS_COUNT, storageIds.size());
+            for (StorageComposition composition: compositionsDao.selectAsStorageCompositions(storageIds.subList(from, to))) {
+                result.put(composition.getStorageId(), composition);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return sorted storage ids of all compositions
+     */
+    public long[] selectAllStorageIds() {
+        List<Long> storageIds = compositionsDao.selectAllStorageIds();
+        long[] result = new long[storageIds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = storageIds.get(i);
+        }
+        return result;
     }
 
     public long getStorageId(long compositionId) {
@@ -279,12 +390,14 @@ public class CompositionsDaoWrapper {
         compositionsDao.setCorruptionType(corruptionType, id);
     }
 
-    public Maybe<FullComposition> selectNextCompositionToScan(long lastCompleteScanTime) {
-        return compositionsDao.selectNextCompositionToScan(lastCompleteScanTime);
+    public Single<List<FullComposition>> selectNextCompositionsToScan(long lastCompleteScanTime,
+                                                                     int count) {
+        return compositionsDao.selectNextCompositionsToScan(lastCompleteScanTime, count);
     }
 
     public void setCompositionLastFileScanTime(FullComposition composition, Date time) {
-        compositionsDao.setCompositionLastFileScanTime(composition.getId(), time);
+        compositionsDao.setCompositionsScanState(Collections.singletonList(
+                new CompositionScanStateEntity(composition.getId(), time)));
     }
 
     public void cleanLastFileScanTime() {
@@ -292,71 +405,169 @@ public class CompositionsDaoWrapper {
     }
 
     public void updateCompositionBySourceTags(FullComposition composition, CompositionSourceTags tags) {
-        appDatabase.runInTransaction(() -> {
-            long id = composition.getId();
+        appDatabase.runInTransaction(() -> applySourceTags(composition, tags));
+    }
 
-            String tagTitle = tags.getTitle();
-            if (!isEmpty(tagTitle) && !Objects.equals(composition.getTitle(), tagTitle)) {
-                updateTitle(id, tagTitle);
+    /**
+     * Applies file scan results of the compositions batch in one transaction
+     * and marks all of them as scanned
+     *
+     * @param tagsMap read tags by composition id, compositions without tags are only marked as scanned
+     */
+    public void updateCompositionsBySourceTags(List<FullComposition> compositions,
+                                               LongSparseArray<CompositionSourceTags> tagsMap,
+                                               Date scanTime) {
+        appDatabase.runInTransaction(() -> {
+            List<CompositionScanStateEntity> scanStates = new ArrayList<>(compositions.size());
+            for (FullComposition composition: compositions) {
+                long id = composition.getId();
+                CompositionSourceTags tags = tagsMap.get(id);
+                if (tags != null) {
+                    applySourceTags(composition, tags);
+                }
+                scanStates.add(new CompositionScanStateEntity(id, scanTime));
             }
+            compositionsDao.setCompositionsScanState(scanStates);
+        });
+    }
 
-            String tagArtist = tags.getArtist();
-            if (!isEmpty(tagArtist) && !Objects.equals(composition.getArtist(), tagArtist)) {
-                updateArtist(id, tagArtist);
-            }
+    private void applySourceTags(FullComposition composition, CompositionSourceTags tags) {
+        long id = composition.getId();
 
-            String tagAlbum = tags.getAlbum();
-            if (!isEmpty(tagAlbum) && !Objects.equals(composition.getAlbum(), tagAlbum)) {
-                updateAlbum(id, tagAlbum);
-            }
+        String tagTitle = tags.getTitle();
+        if (!isEmpty(tagTitle) && !Objects.equals(composition.getTitle(), tagTitle)) {
+            updateTitle(id, tagTitle);
+        }
 
-            String tagAlbumArtist = tags.getAlbumArtist();
-            if (!isEmpty(tagAlbumArtist) && !Objects.equals(composition.getAlbumArtist(), tagAlbumArtist)) {
-                updateAlbumArtist(id, tagAlbumArtist);
-            }
+        String tagArtist = tags.getArtist();
+        if (!isEmpty(tagArtist) && !Objects.equals(composition.getArtist(), tagArtist)) {
+            updateArtist(id, tagArtist);
+        }
 
-            String tagLyrics = tags.getLyrics();
-            if (!isEmpty(tagLyrics) && !Objects.equals(composition.getLyrics(), tagLyrics)) {
-                updateLyrics(id, tagLyrics);
-            }
-        });
+        String tagAlbum = tags.getAlbum();
+        if (!isEmpty(tagAlbum) && !Objects.equals(composition.getAlbum(), tagAlbum)) {
+            updateAlbum(id, tagAlbum);
+        }
+
+        String tagAlbumArtist = tags.getAlbumArtist();
+        if (!isEmpty(tagAlbumArtist) && !Objects.equals(composition.getAlbumArtist(), tagAlbumArtist)) {
+            updateAlbumArtist(id, tagAlbumArtist);
+        }
+
+        String tagLyrics = tags.getLyrics();
+        if (!isEmpty(tagLyrics) && !Objects.equals(composition.getLyrics(), tagLyrics)) {
+            updateLyrics(id, tagLyrics);
+        }
+
+        Float tagTrackGain = tags.getTrackGain();
+        if (tagTrackGain != null) {
+            compositionsDao.updateTrackGain(id, tagTrackGain, tags.getTrackPeak());
+        } else {
+            compositionsDao.clearOutdatedTrackGain(id);
+        }
+    }
+
+    @Nullable
+    public Date getDateModified(long compositionId) {
+        return compositionsDao.getDateModified(compositionId);
+    }
+
+    public TrackGain getTrackGain(long compositionId) {
+        TrackGain trackGain = compositionsDao.selectTrackGain(compositionId);
+        return trackGain == null ? new TrackGain(null, null) : trackGain;
+    }
+
+    @Nullable
+    public Long selectNextCompositionIdToLoudnessScan(long lastCompleteScanTime) {
+        return compositionsDao.selectNextCompositionIdToLoudnessScan(lastCompleteScanTime);
+    }
+
+    /**
+     * @param trackGain null if analysis failed, composition will be analyzed again after change
+     */
+    public void setLoudnessScanResult(long id,
+                                      @Nullable Float trackGain,
+                                      @Nullable Float trackPeak,
+                                      Date scanDate) {
+        compositionsDao.setLoudnessScanResult(id, trackGain, trackPeak, scanDate);
+    }
+
+    private PageSource<Composition> createPageSource(KeysetQuery query,
+                                                     Observable<Object> invalidationObservable) {
+        return new DbPageSource<>(appDatabase,
+                query,
+                compositionsDao::executeQuery,
+                Composition::getId,
+                invalidationObservable);
+    }
+
+    //same order as getSearchOrderQuery()
+    private static void applySearchAndOrder(KeysetQuery query,
+                                            Order order,
+                                            boolean useFileName,
+                                            @Nullable String searchText) {
+        Object[] searchArgs = getSearchArgs(searchText, useFileName);
+        if (searchArgs.length > 0) {
+            query.where(getSearchQuery(), searchArgs[0]);
+            query.orderBy("CASE WHEN " + getSearchQuery() + " THEN 0 ELSE 1 END",
+                    false,
+                    searchArgs[1]);
+        }
+        query.orderBy(getOrderExpression(order), order.isReversed());
+    }
+
+    static String getOrderQuery(Order order) {
+        return " ORDER BY " + getOrderTerm(order);
     }
 
-    private String getOrderQuery(Order order) {
-        StringBuilder orderQuery = new StringBuilder(" ORDER BY ");
+    //compositions with matched title go first
+    private static String getSearchOrderQuery(Order order, boolean hasSearch) {
+        if (!hasSearch) {
+            return getOrderQuery(order);
+        }
+        return " ORDER BY CASE WHEN " + getSearchQuery() + " THEN 0 ELSE 1 END, " + getOrderTerm(order);
+    }
+
+    private static String getOrderTerm(Order order) {
+        return getOrderExpression(order) + " " + (order.isReversed()? "DESC" : "ASC");
+    }
+
+    private static String getOrderExpression(Order order) {
         switch (order.getOrderType()) {
             case NAME: {
-                orderQuery.append("CASE WHEN title IS NULL OR title = '' THEN fileName ELSE title END");
-                break;
+                return "CASE WHEN title IS NULL OR title = '' THEN fileName ELSE title END";
             }
             case FILE_NAME: {
-                orderQuery.append("fileName");
-                break;
+                return "fileName";
             }
             case ADD_TIME: {
-                orderQuery.append("dateAdded");
-                break;
+                return "dateAdded";
             }
             case SIZE: {
-                orderQuery.append("size");
-                break;
+                return "size";
             }
             case DURATION: {
-                orderQuery.append("duration");
-                break;
+                return "duration";
             }
             default: throw new IllegalStateException("unknown order type" + order);
         }
-        orderQuery.append(" ");
-        orderQuery.append(order.isReversed()? "DESC" : "ASC");
-        return orderQuery.toString();
     }
 
-    private StringBuilder getSearchQuery(boolean useFileName) {
-        StringBuilder sb = new StringBuilder(" WHERE (? IS NULL OR ");
-        sb.append(useFileName? "fileName": "CASE WHEN title IS NULL OR title = '' THEN fileName ELSE title END");
-        sb.append(" LIKE ? OR (artist NOTNULL AND artist LIKE ?))");
-        return sb;
+    private static String getSearchQuery() {
+        return "compositions.id IN "
+                + "(SELECT rowid FROM compositions_search WHERE compositions_search MATCH ?)";
+    }
+
+    //match query for filter and match query for title ranking, or empty array if there is no search
+    private static Object[] getSearchArgs(@Nullable String searchText, boolean useFileName) {
+        String matchQuery = getFtsMatchQuery(searchText, null);
+        if (matchQuery == null) {
+            return new Object[0];
+        }
+        return new Object[] {
+                matchQuery,
+                getFtsMatchQuery(searchText, useFileName? "fileName" : "title")
+        };
     }
 
 }
@@ -0,0 +1,54 @@
+package com.github.anrimian.musicplayer.data.database.dao.compositions;
+
+/**
+ * Duration of each phase of {@link StorageCompositionsInserter#applyChanges}
+ */
+public class StorageChangesTimings {
+
+    long foldersMillis;
+    long namesMillis;
+    long insertMillis;
+    long deleteMillis;
+    long updateMillis;
+    long cleanupMillis;
+
+    public long getFoldersMillis() {
+        return foldersMillis;
+    }
+
+    public long getNamesMillis() {
+        return namesMillis;
+    }
+
+    public long getInsertMillis() {
+        return insertMillis;
+    }
+
+    public long getDeleteMillis() {
+        return deleteMillis;
+    }
+
+    public long getUpdateMillis() {
+        return updateMillis;
+    }
+
+    public long getCleanupMillis() {
+        return cleanupMillis;
+    }
+
+    public long getTotalMillis() {
+        return foldersMillis + namesMillis + insertMillis + deleteMillis + updateMillis + cleanupMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "StorageChangesTimings{" +
+                "foldersMillis=" + foldersMillis +
+                ", namesMillis=" + namesMillis +
+                ", insertMillis=" + insertMillis +
+                ", deleteMillis=" + deleteMillis +
+                ", updateMillis=" + updateMillis +
+                ", cleanupMillis=" + cleanupMillis +
+                '}';
+    }
+}
@@ -1,17 +1,11 @@
 package com.github.anrimian.musicplayer.data.database.dao.compositions;
 
-import static com.github.anrimian.musicplayer.domain.utils.ListUtils.mapList;
-
 import android.database.sqlite.SQLiteException;
 
-import androidx.collection.LongSparseArray;
-
 import com.github.anrimian.musicplayer.data.database.AppDatabase;
 import com.github.anrimian.musicplayer.data.database.dao.albums.AlbumsDao;
 import com.github.anrimian.musicplayer.data.database.dao.artist.ArtistsDao;
 import com.github.anrimian.musicplayer.data.database.dao.folders.FoldersDao;
-import com.github.anrimian.musicplayer.data.database.entities.albums.AlbumEntity;
-import com.github.anrimian.musicplayer.data.database.entities.artist.ArtistEntity;
 import com.github.anrimian.musicplayer.data.database.entities.composition.CompositionEntity;
 import com.github.anrimian.musicplayer.data.database.entities.folder.FolderEntity;
 import com.github.anrimian.musicplayer.data.database.mappers.CompositionMapper;
@@ -19,14 +13,13 @@ import com.github.anrimian.musicplayer.data.models.changes.Change;
 import com.github.anrimian.musicplayer.data.repositories.scanner.FolderMerger;
 import com.github.anrimian.musicplayer.data.repositories.scanner.folders.FolderNode;
 import com.github.anrimian.musicplayer.data.repositories.scanner.nodes.AddedNode;
-import com.github.anrimian.musicplayer.data.storage.providers.albums.StorageAlbum;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageComposition;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageFullComposition;
+import com.github.anrimian.musicplayer.data.utils.collections.LongHashMap;
 import com.github.anrimian.musicplayer.domain.utils.Objects;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 public class StorageCompositionsInserter {
 
@@ -51,27 +44,40 @@ public class StorageCompositionsInserter {
         this.albumsDao = albumsDao;
     }
 
-    public void applyChanges(List<AddedNode> foldersToInsert,
-                             List<StorageFullComposition> addedCompositions,
-                             List<StorageComposition> deletedCompositions,
-                             List<Change<StorageComposition, StorageFullComposition>> changedCompositions,
-                             LongSparseArray<Long> addedFilesFolderMap,
-                             List<Long> foldersToDelete) {
+    /**
+     * Applies all changes in one transaction. Artist and album names are resolved through
+     * in-memory dictionary, empty artists and albums are deleted once at the end.
+     */
+    public StorageChangesTimings applyChanges(List<AddedNode> foldersToInsert,
+                                              List<StorageFullComposition> addedCompositions,
+                                              List<StorageComposition> deletedCompositions,
+                                              List<Change<StorageComposition, StorageFullComposition>> changedCompositions,
+                                              LongHashMap<Long> addedFilesFolderMap,
+                                              List<Long> foldersToDelete) {
         long previousCount = compositionsDao.getCompositionsCount();
 
+        StorageChangesTimings timings = new StorageChangesTimings();
         appDatabase.runInTransaction(() -> {
+            long startTime = System.nanoTime();
             addedFilesFolderMap.putAll(insertFolders(foldersToInsert));
+            timings.foldersMillis = millisSince(startTime);
+
             applyCompositionChanges(addedCompositions,
                     deletedCompositions,
                     changedCompositions,
-                    addedFilesFolderMap);
+                    addedFilesFolderMap,
+                    timings);
+
+            startTime = System.nanoTime();
             deleteFolders(foldersToDelete);
+            timings.foldersMillis += millisSince(startTime);
         });
 
         if (previousCount == 0) {
             //on first app launch room invalidation tracker can be not launched so call update manually
             compositionsDaoWrapper.launchManualUpdate();
         }
+        return timings;
     }
 
     private void deleteFolders(List<Long> folderIds) {
@@ -88,142 +94,107 @@ public class StorageCompositionsInserter {
     private void applyCompositionChanges(List<StorageFullComposition> addedCompositions,
                                          List<StorageComposition> deletedCompositions,
                                          List<Change<StorageComposition, StorageFullComposition>> changedCompositions,
-                                         LongSparseArray<Long> addedFilesFolderMap) {
-        insertCompositions(addedCompositions, addedFilesFolderMap);
-
+                                         LongHashMap<Long> addedFilesFolderMap,
+                                         StorageChangesTimings timings) {
+        long startTime = System.nanoTime();
+        ArtistAlbumIdResolver idResolver = new ArtistAlbumIdResolver(artistsDao, albumsDao);
+        int addedCount = addedCompositions.size();
+        Long[] addedArtistIds = new Long[addedCount];
+        Long[] addedAlbumIds = new Long[addedCount];
+        for (int i = 0; i < addedCount; i++) {
+            StorageFullComposition composition = addedCompositions.get(i);
+            addedArtistIds[i] = idResolver.getOrInsertArtist(composition.getArtist());
+            addedAlbumIds[i] = idResolver.getOrInsertAlbum(composition.getStorageAlbum());
+        }
+        int changedCount = changedCompositions.size();
+        Long[] changedArtistIds = new Long[changedCount];
+        Long[] changedAlbumIds = new Long[changedCount];
+        for (int i = 0; i < changedCount; i++) {
+            StorageFullComposition composition = changedCompositions.get(i).getObj();
+            changedArtistIds[i] = idResolver.getOrInsertArtist(composition.getArtist());
+            changedAlbumIds[i] = idResolver.getOrInsertAlbum(composition.getStorageAlbum());
+        }
+        timings.namesMillis = millisSince(startTime);
+
+        startTime = System.nanoTime();
+        insertCompositions(addedCompositions, addedArtistIds, addedAlbumIds, addedFilesFolderMap);
+        timings.insertMillis = millisSince(startTime);
+
+        startTime = System.nanoTime();
         for (StorageComposition composition: deletedCompositions) {
             compositionsDao.delete(composition.getId());
         }
+        timings.deleteMillis = millisSince(startTime);
 
-        for (Change<StorageComposition, StorageFullComposition> change: changedCompositions) {
-            handleCompositionUpdate(change, addedFilesFolderMap);
+        startTime = System.nanoTime();
+        for (int i = 0; i < changedCount; i++) {
+            updateComposition(changedCompositions.get(i),
+                    changedArtistIds[i],
+                    changedAlbumIds[i],
+                    addedFilesFolderMap);
         }
+        timings.updateMillis = millisSince(startTime);
+
+        startTime = System.nanoTime();
         albumsDao.deleteEmptyAlbums();
         artistsDao.deleteEmptyArtists();
 //        genresDao.deleteEmptyGenres();//not working properly here. Or just not working. Check
+        timings.cleanupMillis = millisSince(startTime);
     }
 
-    private void handleCompositionUpdate(Change<StorageComposition, StorageFullComposition> change,
-                                         LongSparseArray<Long> addedFilesFolderMap) {
+    private void updateComposition(Change<StorageComposition, StorageFullComposition> change,
+                                   Long artistId,
+                                   Long albumId,
+                                   LongHashMap<Long> addedFilesFolderMap) {
         StorageFullComposition composition = change.getObj();
         StorageComposition oldComposition = change.getOld();
-        long compositionId = oldComposition.getId();
-        long compositionStorageId = oldComposition.getStorageId();
-
-        String newAlbumName = null;
-        String newAlbumArtist = null;
-        StorageAlbum newAlbum = composition.getStorageAlbum();
-        if (newAlbum != null) {
-            newAlbumName = newAlbum.getAlbum();
-            newAlbumArtist = newAlbum.getArtist();
-        }
-        if (!Objects.equals(newAlbumName, oldComposition.getAlbum())) {
-            compositionsDaoWrapper.updateAlbum(compositionId, newAlbumName);
-        }
-        if (!Objects.equals(newAlbumArtist, oldComposition.getAlbumArtist())) {
-            compositionsDaoWrapper.updateAlbumArtist(compositionId, newAlbumArtist);
-        }
 
-        String newArtist = composition.getArtist();
-        if (!Objects.equals(newArtist, oldComposition.getArtist())) {
-            compositionsDaoWrapper.updateArtist(compositionId, newArtist);
-        }
-
-        Long newFolderId = addedFilesFolderMap.get(compositionStorageId);
-        if (!Objects.equals(newFolderId, FolderMerger.UNKNOWN_CURRENT_FOLDER_ID)
-                && !Objects.equals(oldComposition.getFolderId(), newFolderId)) {
-            compositionsDao.updateFolderId(compositionId, newFolderId);
+        Long folderId = addedFilesFolderMap.get(oldComposition.getStorageId());
+        if (Objects.equals(folderId, FolderMerger.UNKNOWN_CURRENT_FOLDER_ID)) {
+            folderId = oldComposition.getFolderId();
         }
 
-        compositionsDao.update(
+        compositionsDao.updateStorageData(
+                oldComposition.getId(),
+                artistId,
+                albumId,
+                folderId,
                 composition.getTitle(),
                 composition.getFileName(),
                 composition.getRelativePath(),
                 composition.getDuration(),
                 composition.getSize(),
                 composition.getDateAdded(),
-                composition.getDateModified(),
-                composition.getId()
+                composition.getDateModified()
         );
     }
 
     private void insertCompositions(List<StorageFullComposition> addedCompositions,
-                                    LongSparseArray<Long> addedFilesFolderMap) {
-        //optimization with cache, ~33% faster
-        Map<String, Long> artistsCache = new HashMap<>();
-        Map<String, Long> albumsCache = new HashMap<>();
-        //TODO can cause sqlite constraint exception, figure out how
-        compositionsDao.insert(mapList(
-                addedCompositions,
-                composition -> toCompositionEntity(composition, artistsCache, albumsCache, addedFilesFolderMap))
-        );
-    }
-
-    private CompositionEntity toCompositionEntity(StorageFullComposition composition,
-                                                  Map<String, Long> artistsCache,
-                                                  Map<String, Long> albumsCache,
-                                                  LongSparseArray<Long> addedFilesFolderMap) {
-        String artist = composition.getArtist();
-        Long artistId = getOrInsertArtist(artist, artistsCache);
-
-        Long albumId = null;
-        StorageAlbum storageAlbum = composition.getStorageAlbum();
-        if (storageAlbum != null) {
-            Long albumArtistId = getOrInsertArtist(storageAlbum.getArtist(), artistsCache);
-            albumId = getOrInsertAlbum(storageAlbum, albumArtistId, albumsCache);
-        }
-        Long folderId = addedFilesFolderMap.get(composition.getId());
-        if (Objects.equals(folderId, FolderMerger.UNKNOWN_CURRENT_FOLDER_ID)) {
-            folderId = null;
-        }
-        if (folderId != null && !foldersDao.isFolderExists(folderId)) {
-            //for some reason in folder id map can be non-existing folder id
-            //TODO fix non-existing folder id
-            //throw new IllegalStateException("target folder not exists");
-            folderId = null;
-        }
-        return CompositionMapper.toEntity(composition, artistId, albumId, folderId);
-    }
-
-    private Long getOrInsertAlbum(StorageAlbum storageAlbum,
-                                  Long albumArtistId,
-                                  Map<String, Long> albumsCache) {
-        String albumName = storageAlbum.getAlbum();
-
-        Long albumId = albumsCache.get(albumName);
-        if (albumId != null) {
-            return albumId;
-        }
-
-        albumId = albumsDao.findAlbum(albumArtistId, albumName);
-        if (albumId == null) {
-            albumId = albumsDao.insert(new AlbumEntity(albumArtistId,
-                    albumName,
-                    storageAlbum.getFirstYear(),
-                    storageAlbum.getLastYear()));
-        }
-        albumsCache.put(albumName, albumId);
-        return albumId;
-    }
-
-    private Long getOrInsertArtist(String artist, Map<String, Long> artistsCache) {
-        Long artistId = artistsCache.get(artist);
-        if (artistId != null) {
-            return artistId;
-        }
-        if (artist != null) {
-            artistId = artistsDao.findArtistIdByName(artist);
-            if (artistId == null) {
-                artistId = artistsDao.insertArtist(new ArtistEntity(artist));
+                                    Long[] artistIds,
+                                    Long[] albumIds,
+                                    LongHashMap<Long> addedFilesFolderMap) {
+        List<CompositionEntity> entities = new ArrayList<>(addedCompositions.size());
+        for (int i = 0; i < addedCompositions.size(); i++) {
+            StorageFullComposition composition = addedCompositions.get(i);
+            Long folderId = addedFilesFolderMap.get(composition.getId());
+            if (Objects.equals(folderId, FolderMerger.UNKNOWN_CURRENT_FOLDER_ID)) {
+                folderId = null;
             }
-            artistsCache.put(artist, artistId);
+            if (folderId != null && !foldersDao.isFolderExists(folderId)) {
+                //for some reason in folder id map can be non-existing folder id
+                //TODO fix non-existing folder id
+                //throw new IllegalStateException("target folder not exists");
+                folderId = null;
+            }
+            entities.add(CompositionMapper.toEntity(composition, artistIds[i], albumIds[i], folderId));
         }
-        return artistId;
+        //TODO can cause sqlite constraint exception, figure out how
+        compositionsDao.insert(entities);
     }
 
-    private LongSparseArray<Long> insertFolders(List<AddedNode> foldersToInsert) {
+    private LongHashMap<Long> insertFolders(List<AddedNode> foldersToInsert) {
         return appDatabase.runInTransaction(() -> {
-            LongSparseArray<Long> addedFilesFolderMap = new LongSparseArray<>();
+            LongHashMap<Long> addedFilesFolderMap = new LongHashMap<>();
             for (AddedNode node: foldersToInsert) {
                 insertNode(node.getFolderDbId(), node.getNode(), addedFilesFolderMap);
             }
@@ -233,7 +204,7 @@ public class StorageCompositionsInserter {
 
     private void insertNode(Long dbParentId,
                             FolderNode<Long> nodeToInsert,
-                            LongSparseArray<Long> addedFilesFolderMap) {
+                            LongHashMap<Long> addedFilesFolderMap) {
         String name = nodeToInsert.getKeyPath();
         if (name == null) {
             return;
@@ -247,4 +218,8 @@ public class StorageCompositionsInserter {
             insertNode(folderId, node, addedFilesFolderMap);
         }
     }
+
+    private static long millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
 }
@@ -0,0 +1,43 @@
+package com.github.anrimian.musicplayer.data.database.dao.edit;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+
+import com.github.anrimian.musicplayer.data.database.entities.edit.EditJobEntity;
+import com.github.anrimian.musicplayer.data.database.entities.edit.EditJobFileEntity;
+import com.github.anrimian.musicplayer.data.database.entities.edit.EditJobFileState;
+import com.github.anrimian.musicplayer.data.database.entities.edit.EditJobType;
+
+import java.util.List;
+
+@Dao
+public interface EditJobsDao {
+
+    @Insert
+    long insertJob(EditJobEntity job);
+
+    @Insert
+    void insertFiles(List<EditJobFileEntity> files);
+
+    @Query("SELECT * FROM edit_jobs ORDER BY id")
+    List<EditJobEntity> selectJobs();
+
+    @Query("SELECT * FROM edit_job_files WHERE jobId = :jobId AND state = :state ORDER BY id")
+    List<EditJobFileEntity> selectFiles(long jobId, EditJobFileState state);
+
+    @Query("SELECT count() FROM edit_job_files WHERE jobId = :jobId")
+    int selectFilesCount(long jobId);
+
+    @Query("UPDATE edit_job_files SET state = :state, filePath = :filePath WHERE id = :id")
+    void updateFileState(long id, EditJobFileState state, String filePath);
+
+    @Query("UPDATE edit_job_files SET state = :state WHERE id IN (:ids)")
+    void updateFilesState(List<Long> ids, EditJobFileState state);
+
+    @Query("DELETE FROM edit_jobs WHERE id = :id")
+    void deleteJob(long id);
+
+    @Query("DELETE FROM edit_jobs WHERE type = :type AND targetId = :targetId")
+    void deleteJobs(EditJobType type, long targetId);
+}
@@ -0,0 +1,85 @@
+package com.github.anrimian.musicplayer.data.database.dao.edit;
+
+import com.github.anrimian.musicplayer.data.database.AppDatabase;
+import com.github.anrimian.musicplayer.data.database.entities.edit.EditJobEntity;
+import com.github.anrimian.musicplayer.data.database.entities.edit.EditJobFileEntity;
+import com.github.anrimian.musicplayer.data.database.entities.edit.EditJobFileState;
+import com.github.anrimian.musicplayer.data.database.entities.edit.EditJobType;
+import com.github.anrimian.musicplayer.data.models.composition.CompositionId;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class EditJobsDaoWrapper {
+
+    private final AppDatabase appDatabase;
+    private final EditJobsDao editJobsDao;
+
+    public EditJobsDaoWrapper(AppDatabase appDatabase, EditJobsDao editJobsDao) {
+        this.appDatabase = appDatabase;
+        this.editJobsDao = editJobsDao;
+    }
+
+    /**
+     * Older jobs of the same target are removed, new job edits all current files of target and
+     * older job must not rename target back with its name on resume.
+     *
+     * @param files compositions and masks of their edited fields
+     */
+    public EditJobEntity createJob(EditJobEntity job, Map<CompositionId, Integer> files) {
+        return appDatabase.runInTransaction(() -> {
+            editJobsDao.deleteJobs(job.getType(), job.getTargetId());
+            long jobId = editJobsDao.insertJob(job);
+            job.setId(jobId);
+
+            List<EditJobFileEntity> entities = new ArrayList<>(files.size());
+            for (Map.Entry<CompositionId, Integer> entry: files.entrySet()) {
+                CompositionId composition = entry.getKey();
+                entities.add(new EditJobFileEntity(jobId,
+                        composition.getId(),
+                        composition.getStorageId(),
+                        entry.getValue(),
+                        EditJobFileState.PENDING,
+                        null));
+            }
+            editJobsDao.insertFiles(entities);
+            return job;
+        });
+    }
+
+    public List<EditJobEntity> getJobs() {
+        return editJobsDao.selectJobs();
+    }
+
+    public List<EditJobFileEntity> getFiles(long jobId, EditJobFileState state) {
+        return editJobsDao.selectFiles(jobId, state);
+    }
+
+    public int getFilesCount(long jobId) {
+        return editJobsDao.selectFilesCount(jobId);
+    }
+
+    public void setFileEdited(long id, String filePath) {
+        editJobsDao.updateFileState(id, EditJobFileState.EDITED, filePath);
+    }
+
+    public void setFilesScanned(List<Long> ids) {
+        editJobsDao.updateFilesState(ids, EditJobFileState.SCANNED);
+    }
+
+    public void setFileFailed(long id) {
+        editJobsDao.updateFileState(id, EditJobFileState.FAILED, null);
+    }
+
+    /**
+     * Removes job with library update in one transaction, so library update is not repeated
+     * on resume
+     */
+    public void completeJob(long jobId, Runnable libraryUpdate) {
+        appDatabase.runInTransaction(() -> {
+            libraryUpdate.run();
+            editJobsDao.deleteJob(jobId);
+        });
+    }
+}
@@ -7,9 +7,9 @@ import androidx.room.Query;
 import androidx.room.RawQuery;
 import androidx.sqlite.db.SupportSQLiteQuery;
 
-import com.github.anrimian.musicplayer.data.database.entities.composition.CompositionEntity;
 import com.github.anrimian.musicplayer.data.database.entities.folder.FolderEntity;
 import com.github.anrimian.musicplayer.data.database.entities.folder.IgnoredFolderEntity;
+import com.github.anrimian.musicplayer.data.database.entities.folder.PlayOrderFolder;
 import com.github.anrimian.musicplayer.data.database.entities.folder.StorageFolder;
 import com.github.anrimian.musicplayer.domain.models.folders.FolderFileSource;
 import com.github.anrimian.musicplayer.domain.models.folders.IgnoredFolder;
@@ -33,11 +33,11 @@ public interface FoldersDao {
     @Query("DELETE FROM ignored_folders WHERE relativePath = :path")
     void deleteIgnoredFolder(String path);
 
-    @RawQuery(observedEntities = { CompositionEntity.class, FolderEntity.class })
-    Observable<List<FolderFileSource>> getFoldersObservable(SupportSQLiteQuery query);
+    @RawQuery
+    List<FolderFileSource> getFolders(SupportSQLiteQuery query);
 
     @RawQuery
-    List<Long> getFoldersIds(SupportSQLiteQuery query);
+    List<PlayOrderFolder> getPlayOrderFolders(SupportSQLiteQuery query);
 
     @Query("SELECT id, name, " +
             "0 as filesCount " +//we don't use it for now
@@ -125,6 +125,22 @@ public interface FoldersDao {
     @Query("SELECT exists(SELECT 1 FROM folders WHERE id = :id LIMIT 1)")
     boolean isFolderExists(long id);
 
+    @Query("SELECT id " +
+            "FROM folders " +
+            "WHERE (parentId = :parentId OR (parentId IS NULL AND :parentId IS NULL)) " +
+            "AND name = :name " +
+            "LIMIT 1")
+    Long findFolderId(Long parentId, String name);
+
+    @Query("SELECT exists(" +
+            "SELECT 1 " +
+            "FROM folders " +
+            "WHERE id IN (:ids) " +
+            "AND NOT EXISTS(SELECT 1 FROM compositions WHERE folderId = folders.id) " +
+            "AND NOT EXISTS(SELECT 1 FROM folders AS childFolders WHERE childFolders.parentId = folders.id) " +
+            "LIMIT 1)")
+    boolean hasEmptyFolders(List<Long> ids);
+
     static String getRecursiveFolderQuery(Long parentFolderId) {
         return "WITH RECURSIVE allChildFolders(childFolderId, rootFolderId) AS (" +
                 "SELECT id as childFolderId, id as rootFolderId FROM folders WHERE parentId = " + parentFolderId + " OR (parentId IS NULL AND " + parentFolderId + " IS NULL)" +
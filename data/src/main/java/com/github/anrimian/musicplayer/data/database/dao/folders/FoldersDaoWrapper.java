@@ -11,13 +11,20 @@ import com.github.anrimian.musicplayer.data.database.AppDatabase;
 import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDaoWrapper;
 import com.github.anrimian.musicplayer.data.database.entities.folder.FolderEntity;
 import com.github.anrimian.musicplayer.data.database.entities.folder.IgnoredFolderEntity;
+import com.github.anrimian.musicplayer.data.database.entities.folder.PlayOrderFolder;
 import com.github.anrimian.musicplayer.data.database.entities.folder.StorageFolder;
+import com.github.anrimian.musicplayer.data.database.observer.LibraryQueryObserver;
+import com.github.anrimian.musicplayer.data.database.paging.DbPageSource;
+import com.github.anrimian.musicplayer.data.database.paging.KeysetQuery;
 import com.github.anrimian.musicplayer.domain.models.composition.Composition;
 import com.github.anrimian.musicplayer.domain.models.folders.CompositionFileSource;
 import com.github.anrimian.musicplayer.domain.models.folders.FileSource;
 import com.github.anrimian.musicplayer.domain.models.folders.FolderFileSource;
 import com.github.anrimian.musicplayer.domain.models.folders.IgnoredFolder;
 import com.github.anrimian.musicplayer.domain.models.order.Order;
+import com.github.anrimian.musicplayer.domain.utils.paging.ConcatPageSource;
+import com.github.anrimian.musicplayer.domain.utils.paging.MappedPageSource;
+import com.github.anrimian.musicplayer.domain.utils.paging.PageSource;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -30,16 +37,24 @@ import io.reactivex.rxjava3.core.Single;
 
 public class FoldersDaoWrapper {
 
+    //keeps sql statement size reasonable
+    private static final int MAX_FOLDERS_IN_PAGE = 500;
+
+    private static final String[] FOLDERS_LIST_TABLES = { "folders", "folders_stats" };
+
     private final AppDatabase appDatabase;
     private final FoldersDao foldersDao;
     private final CompositionsDaoWrapper compositionsDao;
+    private final LibraryQueryObserver queryObserver;
 
     public FoldersDaoWrapper(AppDatabase appDatabase,
                              FoldersDao foldersDao,
-                             CompositionsDaoWrapper compositionsDao) {
+                             CompositionsDaoWrapper compositionsDao,
+                             LibraryQueryObserver queryObserver) {
         this.appDatabase = appDatabase;
         this.foldersDao = foldersDao;
         this.compositionsDao = compositionsDao;
+        this.queryObserver = queryObserver;
     }
 
     public Observable<List<FileSource>> getFilesObservable(Long parentFolderId,
@@ -69,6 +84,38 @@ public class FoldersDaoWrapper {
                 });
     }
 
+    /**
+     * @return folders, then compositions of folder, the same order as in getFilesObservable()
+     */
+    public PageSource<FileSource> getFilesPageSource(Long parentFolderId,
+                                                     Order order,
+                                                     boolean useFileName,
+                                                     @Nullable String searchText) {
+        KeysetQuery foldersQuery = new KeysetQuery(getFoldersSelectQuery(),
+                "folders " + getFolderStatsJoinQuery(),
+                "folders.id")
+                .where("parentId = " + parentFolderId + " OR (parentId IS NULL AND " + parentFolderId + " IS NULL)")
+                .where("? IS NULL OR (name NOTNULL AND name LIKE ?)", (Object[]) getSearchArgs(searchText, 2))
+                .orderBy(getOrderColumn(order), order.isReversed());
+        PageSource<FileSource> foldersSource = new DbPageSource<>(appDatabase,
+                foldersQuery,
+                sqlQuery -> new ArrayList<>(foldersDao.getFolders(sqlQuery)),
+                source -> ((FolderFileSource) source).getId(),
+                queryObserver.getChangesObservable(FOLDERS_LIST_TABLES));
+
+        PageSource<FileSource> compositionsSource = new MappedPageSource<>(
+                compositionsDao.getCompositionsInFolderPageSource(parentFolderId,
+                        order,
+                        useFileName,
+                        searchText),
+                CompositionFileSource::new,
+                source -> ((CompositionFileSource) source).getComposition());
+
+        return new ConcatPageSource<>(foldersSource,
+                compositionsSource,
+                source -> source instanceof FolderFileSource);
+    }
+
     public Observable<FolderFileSource> getFolderObservable(long folderId) {
         return foldersDao.getFolderObservable(folderId)
                 .takeWhile(list -> !list.isEmpty())
@@ -89,27 +136,62 @@ public class FoldersDaoWrapper {
     public Single<List<Composition>> extractAllCompositionsFromFiles(Iterable<FileSource> fileSources,
                                                                      Order order,
                                                                      boolean useFileName) {
-        return Observable.fromIterable(fileSources)
-                .flatMap(fileSource -> fileSourceToComposition(fileSource, order, useFileName))
-                .collect(ArrayList::new, List::add);
+        return getAllCompositionsPages(fileSources, order, useFileName, Integer.MAX_VALUE)
+                .collect(ArrayList::new, List::addAll);
     }
 
     public List<Composition> getAllCompositionsInFolder(Long parentFolderId, Order order, boolean useFileName) {
-        List<Composition> result = new LinkedList<>();
+        return getAllCompositionsInFolderPages(parentFolderId, order, useFileName, Integer.MAX_VALUE)
+                .collect(ArrayList<Composition>::new, List::addAll)
+                .blockingGet();
+    }
 
-        String query = FoldersDao.getRecursiveFolderQuery(parentFolderId) +
-                "SELECT id " +
-                "FROM folders " +
-                "WHERE parentId = " + parentFolderId + " OR (parentId IS NULL AND " + parentFolderId + " IS NULL)";
-        query += getOrderQuery(order);
-        SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query);
-        List<Long> folders = foldersDao.getFoldersIds(sqlQuery);
-        for (Long id: folders) {
-            result.addAll(getAllCompositionsInFolder(id, order, useFileName));
+    /**
+     * Emits compositions from file sources in play order, folders are split into pages
+     * with about pageSize compositions.
+     */
+    public Observable<List<Composition>> getAllCompositionsPages(Iterable<FileSource> fileSources,
+                                                                 Order order,
+                                                                 boolean useFileName,
+                                                                 int pageSize) {
+        List<Observable<List<Composition>>> pages = new ArrayList<>();
+        List<Composition> compositions = new ArrayList<>();
+        for (FileSource fileSource: fileSources) {
+            if (fileSource instanceof CompositionFileSource) {
+                compositions.add(((CompositionFileSource) fileSource).getComposition());
+                continue;
+            }
+            if (fileSource instanceof FolderFileSource) {
+                if (!compositions.isEmpty()) {
+                    pages.add(Observable.just(compositions));
+                    compositions = new ArrayList<>();
+                }
+                pages.add(getAllCompositionsInFolderPages(((FolderFileSource) fileSource).getId(),
+                        order,
+                        useFileName,
+                        pageSize));
+                continue;
+            }
+            throw new IllegalStateException("unexpected file source: " + fileSource);
         }
+        if (!compositions.isEmpty()) {
+            pages.add(Observable.just(compositions));
+        }
+        return Observable.concat(pages);
+    }
 
-        result.addAll(compositionsDao.getCompositionsInFolder(parentFolderId, order, useFileName));
-        return result;
+    /**
+     * Emits compositions of folder and all its child folders in play order: child folders go
+     * before compositions of their parent, folders and compositions are sorted by given order.
+     * Each page contains compositions of one or more whole folders, about pageSize items.
+     */
+    public Observable<List<Composition>> getAllCompositionsInFolderPages(Long parentFolderId,
+                                                                         Order order,
+                                                                         boolean useFileName,
+                                                                         int pageSize) {
+        return Observable.defer(() -> Observable.fromIterable(getFolderPages(parentFolderId, order, pageSize)))
+                .map(folderIds -> compositionsDao.getCompositionsInFolders(folderIds, order, useFileName))
+                .filter(compositions -> !compositions.isEmpty());
     }
 
     public IgnoredFolder insert(String path) {
@@ -194,6 +276,15 @@ public class FoldersDaoWrapper {
         foldersDao.deleteIgnoredFolder(folder.getRelativePath());
     }
 
+    @Nullable
+    public Long findFolderId(@Nullable Long parentId, String name) {
+        return foldersDao.findFolderId(parentId, name);
+    }
+
+    public boolean hasEmptyFolders(List<Long> folderIds) {
+        return foldersDao.hasEmptyFolders(folderIds);
+    }
+
     public boolean isFolderWithNameExists(Long parentId, String name) {
         return foldersDao.isFolderWithNameExists(parentId, name);
     }
@@ -201,61 +292,119 @@ public class FoldersDaoWrapper {
     private Observable<List<FolderFileSource>> getFoldersObservable(Long parentFolderId,
                                                                     Order order,
                                                                     @Nullable String searchText) {
-        String query = FoldersDao.getRecursiveFolderQuery(parentFolderId) +
-                "SELECT id, name, " +
-                "(SELECT count() FROM compositions WHERE folderId IN (SELECT childFolderId FROM allChildFolders WHERE rootFolderId = folders.id)) as filesCount " +
-                "FROM folders " +
-                "WHERE parentId = " + parentFolderId + " OR (parentId IS NULL AND " + parentFolderId + " IS NULL)";
+        String query = getFoldersSelectQuery() +
+                " WHERE parentId = " + parentFolderId + " OR (parentId IS NULL AND " + parentFolderId + " IS NULL)";
 
         query += getSearchQuery();
         query += getOrderQuery(order);
         SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query, getSearchArgs(searchText, 2));
-        return foldersDao.getFoldersObservable(sqlQuery);
+        //files count is kept in folders_stats, so compositions table is not observed
+        return queryObserver.createObservable(() -> foldersDao.getFolders(sqlQuery),
+                FOLDERS_LIST_TABLES);
+    }
+
+    //parent folder goes after its child folders, in one list because null folder can be parent
+    private List<List<Long>> getFolderPages(Long parentFolderId, Order order, int pageSize) {
+        List<List<Long>> pages = new ArrayList<>();
+        List<Long> page = new ArrayList<>();
+        int pageFilesCount = 0;
+        for (PlayOrderFolder folder: getFoldersInPlayOrder(parentFolderId, order)) {
+            if (folder.getFilesCount() == 0) {
+                continue;
+            }
+            page.add(folder.getId());
+            pageFilesCount += folder.getFilesCount();
+            if (pageFilesCount >= pageSize || page.size() >= MAX_FOLDERS_IN_PAGE) {
+                pages.add(page);
+                page = new ArrayList<>();
+                pageFilesCount = 0;
+            }
+        }
+        page.add(parentFolderId);
+        pages.add(page);
+        return pages;
+    }
+
+    /**
+     * @return all child folders of parent folder, each folder goes after its child folders
+     */
+    private List<PlayOrderFolder> getFoldersInPlayOrder(Long parentFolderId, Order order) {
+        //recursive select with order by depth works as depth-first walk with sorted siblings
+        String query = "WITH RECURSIVE playOrder(id, depth, filesCount, orderKey) AS (" +
+                getPlayOrderFolderSelect("0", order) +
+                "WHERE parentId = " + parentFolderId + " OR (parentId IS NULL AND " + parentFolderId + " IS NULL) " +
+                "UNION ALL " +
+                getPlayOrderFolderSelect("playOrder.depth + 1", order) +
+                "INNER JOIN playOrder ON folders.parentId = playOrder.id " +
+                "ORDER BY 2 DESC, 4 " + getOrderDirection(order) +
+                ") " +
+                "SELECT id, depth, filesCount FROM playOrder";
+        List<PlayOrderFolder> folders = foldersDao.getPlayOrderFolders(new SimpleSQLiteQuery(query));
+
+        //depth-first walk lists parent before children, move parents after their subtree
+        List<PlayOrderFolder> result = new ArrayList<>(folders.size());
+        LinkedList<PlayOrderFolder> parents = new LinkedList<>();
+        for (PlayOrderFolder folder: folders) {
+            while (!parents.isEmpty() && parents.getLast().getDepth() >= folder.getDepth()) {
+                result.add(parents.removeLast());
+            }
+            parents.add(folder);
+        }
+        while (!parents.isEmpty()) {
+            result.add(parents.removeLast());
+        }
+        return result;
+    }
+
+    private String getPlayOrderFolderSelect(String depth, Order order) {
+        return "SELECT folders.id, " +
+                depth + ", " +
+                "(SELECT count() FROM compositions WHERE compositions.folderId = folders.id), " +
+                getOrderColumn(order) + " " +
+                "FROM folders " +
+                getFolderStatsJoinQuery();
+    }
+
+    private String getFoldersSelectQuery() {
+        return "SELECT id, name, " +
+                "folders_stats.filesCount as filesCount " +
+                "FROM folders " +
+                getFolderStatsJoinQuery();
     }
 
     private String getOrderQuery(Order order) {
-        StringBuilder orderQuery = new StringBuilder(" ORDER BY ");
+        return " ORDER BY " + getOrderColumn(order) + " " + getOrderDirection(order);
+    }
+
+    private String getOrderColumn(Order order) {
         switch (order.getOrderType()) {
             case NAME:
             case FILE_NAME: {
-                orderQuery.append("name");
-                break;
+                return "name";
             }
             case ADD_TIME: {
-                orderQuery.append("(SELECT max(dateAdded) FROM compositions WHERE folderId IN (SELECT childFolderId FROM allChildFolders WHERE rootFolderId = folders.id))");
-                break;
+                return "folders_stats.lastDateAdded";
             }
             case DURATION: {
-                orderQuery.append("(SELECT sum(duration) FROM compositions WHERE folderId IN (SELECT childFolderId FROM allChildFolders WHERE rootFolderId = folders.id))");
-                break;
+                return "folders_stats.totalDuration";
             }
             case SIZE: {
-                orderQuery.append("(SELECT sum(size) FROM compositions WHERE folderId IN (SELECT childFolderId FROM allChildFolders WHERE rootFolderId = folders.id))");
-                break;
+                return "folders_stats.totalSize";
             }
             default: throw new IllegalStateException("unknown order type" + order);
         }
-        orderQuery.append(" ");
-        orderQuery.append(order.isReversed()? "DESC" : "ASC");
-        return orderQuery.toString();
     }
 
-    private String getSearchQuery() {
-        return " AND (? IS NULL OR (name NOTNULL AND name LIKE ?))";
+    private String getOrderDirection(Order order) {
+        return order.isReversed()? "DESC" : "ASC";
     }
 
-    private Observable<Composition> fileSourceToComposition(FileSource fileSource, Order order, boolean useFileName) {
-        if (fileSource instanceof CompositionFileSource) {
-            return Observable.just(((CompositionFileSource) fileSource).getComposition());
-        }
-        if (fileSource instanceof FolderFileSource) {
-            return Observable.fromIterable(getAllCompositionsInFolder(
-                    ((FolderFileSource) fileSource).getId(),
-                    order,
-                    useFileName
-            ));
-        }
-        throw new IllegalStateException("unexpected file source: " + fileSource);
+    private String getFolderStatsJoinQuery() {
+        return "INNER JOIN folders_stats ON folders_stats.folderId = folders.id ";
+    }
+
+    private String getSearchQuery() {
+        return " AND (? IS NULL OR (name NOTNULL AND name LIKE ?))";
     }
 
     private Observable<Composition> fileSourceToComposition(FileSource fileSource, boolean useFilename) {
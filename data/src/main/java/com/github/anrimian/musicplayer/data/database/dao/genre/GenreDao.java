@@ -49,12 +49,8 @@ public interface GenreDao {
     @Insert
     void insertGenreEntry(GenreEntryEntity entity);
 
-    @RawQuery(observedEntities = {
-            GenreEntity.class,
-            GenreEntryEntity.class,
-            CompositionEntity.class
-    })
-    Observable<List<Genre>> getAllObservable(SupportSQLiteQuery query);
+    @RawQuery
+    List<Genre> getAll(SupportSQLiteQuery query);
 
     @RawQuery(observedEntities = { ArtistEntity.class, CompositionEntity.class, AlbumEntity.class, GenreEntryEntity.class })
     Observable<List<Composition>> getCompositionsInGenreObservable(SimpleSQLiteQuery query);
@@ -63,7 +59,8 @@ public interface GenreDao {
         return "SELECT " +
                 CompositionsDao.getCompositionSelectionQuery(useFileName) +
                 "FROM compositions " +
-                "WHERE id IN (SELECT audioId FROM genre_entries WHERE genreId = :genreId)";
+                CompositionsDao.getArtistAndAlbumJoinQuery() +
+                "WHERE compositions.id IN (SELECT audioId FROM genre_entries WHERE genreId = :genreId)";
     }
 
     @Query("SELECT " +
@@ -12,6 +12,7 @@ import com.github.anrimian.musicplayer.data.database.dao.compositions.Compositio
 import com.github.anrimian.musicplayer.data.database.entities.IdPair;
 import com.github.anrimian.musicplayer.data.database.entities.genres.GenreEntity;
 import com.github.anrimian.musicplayer.data.database.entities.genres.GenreEntryEntity;
+import com.github.anrimian.musicplayer.data.database.observer.LibraryQueryObserver;
 import com.github.anrimian.musicplayer.data.models.composition.CompositionId;
 import com.github.anrimian.musicplayer.data.storage.providers.genres.StorageGenre;
 import com.github.anrimian.musicplayer.data.storage.providers.genres.StorageGenreItem;
@@ -29,16 +30,21 @@ import io.reactivex.rxjava3.core.Observable;
 
 public class GenresDaoWrapper {
 
+    private static final String[] GENRES_LIST_TABLES = { "genres", "genre_entries", "compositions" };
+
     private final AppDatabase appDatabase;
     private final GenreDao genreDao;
     private final CompositionsDao compositionsDao;
+    private final LibraryQueryObserver queryObserver;
 
     public GenresDaoWrapper(AppDatabase appDatabase,
                             GenreDao genreDao,
-                            CompositionsDao compositionsDao) {
+                            CompositionsDao compositionsDao,
+                            LibraryQueryObserver queryObserver) {
         this.appDatabase = appDatabase;
         this.genreDao = genreDao;
         this.compositionsDao = compositionsDao;
+        this.queryObserver = queryObserver;
     }
 
     public void applyChanges(List<StorageGenre> addedGenres) {
@@ -68,7 +74,7 @@ public class GenresDaoWrapper {
         query += getSearchQuery();
         query += getOrderQuery(order);
         SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query, getSearchArgs(searchText, 2));
-        return genreDao.getAllObservable(sqlQuery);
+        return queryObserver.createObservable(() -> genreDao.getAll(sqlQuery), GENRES_LIST_TABLES);
     }
 
     public Observable<Genre> getGenreObservable(long genreId) {
@@ -161,6 +161,7 @@ public interface PlayListDao {
                 CompositionsDao.getCompositionSelectionQuery(useFileName) +
                 "FROM play_lists_entries " +
                 "INNER JOIN compositions ON play_lists_entries.audioId = compositions.id " +
+                CompositionsDao.getArtistAndAlbumJoinQuery() +
                 "WHERE play_lists_entries.playListId = ? " +
                 "ORDER BY orderPosition";
     }
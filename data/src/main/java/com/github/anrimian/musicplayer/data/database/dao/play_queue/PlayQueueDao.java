@@ -2,6 +2,7 @@ package com.github.anrimian.musicplayer.data.database.dao.play_queue;
 
 import androidx.room.Dao;
 import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
 import androidx.room.RawQuery;
 import androidx.room.Update;
@@ -13,6 +14,7 @@ import com.github.anrimian.musicplayer.data.database.entities.artist.ArtistEntit
 import com.github.anrimian.musicplayer.data.database.entities.composition.CompositionEntity;
 import com.github.anrimian.musicplayer.data.database.entities.play_queue.PlayQueueEntity;
 import com.github.anrimian.musicplayer.data.database.entities.play_queue.PlayQueueItemDto;
+import com.github.anrimian.musicplayer.data.database.entities.play_queue.PlayQueueShuffleEntity;
 
 import java.util.List;
 
@@ -24,8 +26,8 @@ public interface PlayQueueDao {
     @Query("SELECT * FROM play_queue ORDER BY position")
     List<PlayQueueEntity> getPlayQueue();
 
-    @RawQuery(observedEntities = { PlayQueueEntity.class, ArtistEntity.class, CompositionEntity.class, AlbumEntity.class })
-    Observable<List<PlayQueueItemDto>> getPlayQueueObservable(SupportSQLiteQuery query);
+    @RawQuery
+    List<PlayQueueItemDto> getPlayQueueItems(SupportSQLiteQuery query);
 
     @Query("SELECT id " +
             "FROM play_queue " +
@@ -33,15 +35,12 @@ public interface PlayQueueDao {
             "LIMIT 1")
     Long getItemIdAtPosition(int position);
 
-    @Query("SELECT id " +
-            "FROM play_queue " +
-            "WHERE shuffledPosition >= :position " +
-            "LIMIT 1")
-    Long getItemIdAtShuffledPosition(int position);
-
     @RawQuery(observedEntities = { PlayQueueEntity.class, ArtistEntity.class, CompositionEntity.class, AlbumEntity.class })
     Observable<PlayQueueItemDto[]> getItemObservable(SupportSQLiteQuery query);
 
+    @RawQuery
+    PlayQueueItemDto[] getItems(SupportSQLiteQuery query);
+
     @Insert
     long[] insertItems(List<PlayQueueEntity> playQueueEntityList);
 
@@ -69,9 +68,6 @@ public interface PlayQueueDao {
     @Query("SELECT position FROM play_queue WHERE id = :id")
     Observable<Integer> getPositionObservable(long id);
 
-    @Query("SELECT shuffledPosition FROM play_queue WHERE id = :id")
-    Observable<Integer> getShuffledPositionObservable(long id);
-
     @Query("WITH item AS (SELECT position FROM play_queue WHERE id = :id) " +
             "SELECT CASE WHEN item.position IS NULL " +
             "  THEN -1 " +
@@ -82,16 +78,6 @@ public interface PlayQueueDao {
             "LIMIT 1")
     Observable<Integer> getIndexPositionObservable(long id);
 
-    @Query("WITH item AS (SELECT shuffledPosition FROM play_queue WHERE id = :id) " +
-            "SELECT CASE WHEN item.shuffledPosition IS NULL " +
-            "  THEN -1 " +
-            "  ELSE (SELECT count() FROM play_queue WHERE shuffledPosition < item.shuffledPosition)" +
-            "END " +
-            "AS result " +
-            "FROM play_queue, item " +
-            "LIMIT 1")
-    Observable<Integer> getShuffledIndexPositionObservable(long id);
-
     @Query("UPDATE play_queue SET shuffledPosition = :shuffledPosition WHERE id = :id")
     void updateShuffledPosition(long id, int shuffledPosition);
 
@@ -99,41 +85,36 @@ public interface PlayQueueDao {
     void updateItemPosition(long itemId, int position);
 
     @Query("UPDATE play_queue " +
-            "SET position = position + :increaseBy " +
-            "WHERE position = :position")
-    void increasePosition(int increaseBy, int position);
+            "SET position = :position, shuffledPosition = :shuffledPosition " +
+            "WHERE id = :itemId")
+    void updateItemPositions(long itemId, int position, int shuffledPosition);
 
     @Query("UPDATE play_queue " +
-            "SET shuffledPosition = shuffledPosition + :increaseBy " +
-            "WHERE shuffledPosition = :position")
-    void increaseShuffledPosition(int increaseBy, int position);
+            "SET position = -position - :shift " +
+            "WHERE position >= :fromPosition")
+    void moveToNegativePositions(int fromPosition, int shift);
+
+    @Query("UPDATE play_queue SET position = -position WHERE position < 0")
+    void restoreNegativePositions();
+
+    @Query("UPDATE play_queue " +
+            "SET shuffledPosition = -shuffledPosition - :shift " +
+            "WHERE shuffledPosition >= :fromPosition")
+    void moveToNegativeShuffledPositions(int fromPosition, int shift);
 
     @Query("SELECT MAX(position) FROM play_queue")
     int getLastPosition();
 
-    @Query("SELECT MAX(shuffledPosition) FROM play_queue")
-    int getLastShuffledPosition();
-
     @Query("SELECT id " +
             "FROM play_queue " +
             "WHERE position = (SELECT MAX(position) FROM play_queue)")
     long getLastItem();
 
-    @Query("SELECT id " +
-            "FROM play_queue " +
-            "WHERE shuffledPosition = (SELECT MAX(shuffledPosition) FROM play_queue)")
-    long getLastShuffledItem();
-
     @Query("SELECT id " +
             "FROM play_queue " +
             "WHERE position = (SELECT MIN(position) FROM play_queue)")
     long getFirstItem();
 
-    @Query("SELECT id " +
-            "FROM play_queue " +
-            "WHERE shuffledPosition = (SELECT MIN(shuffledPosition) FROM play_queue)")
-    long getFirstShuffledItem();
-
     @Update
     void update(List<PlayQueueEntity> list);
 
@@ -146,15 +127,6 @@ public interface PlayQueueDao {
             "       (SELECT position FROM play_queue WHERE id = :currentItemId))")
     Long getNextQueueItemId(long currentItemId);
 
-    @Query("SELECT id " +
-            "FROM play_queue "+
-            "WHERE shuffledPosition = " +
-            "   (SELECT MIN(shuffledPosition) " +
-            "   FROM play_queue " +
-            "   WHERE shuffledPosition > " +
-            "       (SELECT shuffledPosition FROM play_queue WHERE id = :currentItemId))")
-    Long getNextShuffledQueueItemId(long currentItemId);
-
     @Query("SELECT id " +
             "FROM play_queue "+
             "WHERE position = " +
@@ -165,23 +137,28 @@ public interface PlayQueueDao {
             "       AND (SELECT corruptionType FROM compositions WHERE id = audioId) IS NULL)")
     Long getPreviousQueueItemId(long currentItemId);
 
-    @Query("SELECT id " +
-            "FROM play_queue "+
-            "WHERE shuffledPosition = " +
-            "   (SELECT MAX(shuffledPosition) " +
-            "   FROM play_queue " +
-            "   WHERE shuffledPosition < " +
-            "       (SELECT shuffledPosition FROM play_queue WHERE id = :currentItemId)" +
-            "       AND (SELECT corruptionType FROM compositions WHERE id = audioId) IS NULL)")
-    Long getPreviousShuffledQueueItemId(long currentItemId);
+    @Query("SELECT seed FROM play_queue_shuffle WHERE id = 0")
+    Long getShuffleSeed();
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void setShuffle(PlayQueueShuffleEntity entity);
 
     @Query("SELECT count() FROM play_queue")
     Observable<Integer> getPlayQueueSizeObservable();
 
+    @Query("SELECT count() FROM play_queue")
+    int getPlayQueueSize();
+
+    @Query("SELECT corruptionType IS NOT NULL " +
+            "FROM compositions " +
+            "WHERE id = (SELECT audioId FROM play_queue WHERE id = :itemId)")
+    boolean isCorrupted(long itemId);
+
     static String getCompositionQuery(boolean useFileName) {
         return "SELECT " +
                 "play_queue.id AS itemId," +
                 CompositionsDao.getCompositionSelectionQuery(useFileName) +
-                "FROM play_queue INNER JOIN compositions ON play_queue.audioId = compositions.id ";
+                "FROM play_queue INNER JOIN compositions ON play_queue.audioId = compositions.id " +
+                CompositionsDao.getArtistAndAlbumJoinQuery();
     }
 }
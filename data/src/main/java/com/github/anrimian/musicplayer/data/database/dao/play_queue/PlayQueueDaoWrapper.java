@@ -4,121 +4,174 @@ import static com.github.anrimian.musicplayer.data.repositories.state.UiStateRep
 import static com.github.anrimian.musicplayer.domain.Constants.NO_POSITION;
 import static com.github.anrimian.musicplayer.domain.utils.ListUtils.mapList;
 
-import android.database.sqlite.SQLiteCantOpenDatabaseException;
-
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
 import androidx.sqlite.db.SimpleSQLiteQuery;
 
 import com.github.anrimian.musicplayer.data.database.AppDatabase;
 import com.github.anrimian.musicplayer.data.database.entities.play_queue.PlayQueueEntity;
 import com.github.anrimian.musicplayer.data.database.entities.play_queue.PlayQueueItemDto;
+import com.github.anrimian.musicplayer.data.database.entities.play_queue.PlayQueueShuffleEntity;
+import com.github.anrimian.musicplayer.data.database.observer.LibraryQueryObserver;
 import com.github.anrimian.musicplayer.domain.models.composition.Composition;
 import com.github.anrimian.musicplayer.domain.models.play_queue.PlayQueueItem;
 import com.github.anrimian.musicplayer.domain.utils.functions.Optional;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nullable;
 
 import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.subjects.BehaviorSubject;
+import io.reactivex.rxjava3.subjects.Subject;
 
 /**
  * Created on 02.07.2018.
  */
 public class PlayQueueDaoWrapper {
 
+    private static final long POSITIONS_FLUSH_DELAY_MILLIS = 300;
+
+    /*
+     * Items are stored with gaps between positions, so items can be inserted into queue without
+     * moving other items. Following items are moved only when gap is exhausted
+     */
+    private static final int POSITION_STEP = 1 << 10;
+
+    private static final String[] PLAY_QUEUE_LIST_TABLES = {
+            "play_queue", "compositions", "artists", "albums"
+    };
+
+    private static final String[] SHUFFLED_PLAY_QUEUE_LIST_TABLES = {
+            "play_queue", "play_queue_shuffle", "compositions", "artists", "albums"
+    };
+
     private final AppDatabase appDatabase;
     private final PlayQueueDao playQueueDao;
-
-    private static final int DB_OBSERVABLE_RETRY_COUNT = 5;
+    private final LibraryQueryObserver queryObserver;
+    private final Scheduler scheduler;
+
+    /*
+     * Navigation requests are served from in-memory index, it is updated in the same transactions
+     * as play_queue table. Changes made outside of this class (like cascade deletion of
+     * compositions) are caught by invalidation tracker, index is checked on the next request
+     */
+    private final PlayQueueIndex index = new PlayQueueIndex();
+    private final Subject<Object> indexChangeSubject = BehaviorSubject.createDefault(new Object())
+            .toSerialized();
+    private boolean indexLoaded;
+    private volatile boolean indexCheckRequired;
+
+    /*
+     * Items store shuffle keys instead of shuffled positions, shuffled order is defined by
+     * permutation of keys, so reshuffle rewrites only the seed. Index keeps mapped positions,
+     * they are converted back to keys on writes. Loaded together with index
+     */
+    private ShufflePermutation shufflePermutation = new ShufflePermutation(0);
+    private final Random random = new Random();
+
+    //swapped items, their positions are saved to database in batches
+    private final Set<Long> pendingPositionUpdates = new HashSet<>();
 
     @Nullable
     private PlayQueueEntity deletedItem;
 
-    public PlayQueueDaoWrapper(AppDatabase appDatabase, PlayQueueDao playQueueDao) {
+    public PlayQueueDaoWrapper(AppDatabase appDatabase,
+                               PlayQueueDao playQueueDao,
+                               LibraryQueryObserver queryObserver,
+                               Scheduler scheduler) {
         this.appDatabase = appDatabase;
         this.playQueueDao = playQueueDao;
+        this.queryObserver = queryObserver;
+        this.scheduler = scheduler;
+
+        appDatabase.getInvalidationTracker().addObserver(new InvalidationTracker.Observer("play_queue") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                indexCheckRequired = true;
+                indexChangeSubject.onNext(tables);
+            }
+        });
     }
 
     public Observable<List<PlayQueueItem>> getPlayQueueObservable(boolean isRandom, boolean useFileName) {
+        if (isRandom) {
+            return queryObserver.createObservable(() -> getShuffledPlayQueueItems(useFileName),
+                    SHUFFLED_PLAY_QUEUE_LIST_TABLES)
+                    .map(list -> mapList(list, this::toQueueItem));
+        }
         String query = PlayQueueDao.getCompositionQuery(useFileName);
-        query += isRandom? "ORDER BY shuffledPosition": "ORDER BY position";
+        query += "ORDER BY position";
         SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query);
-        return playQueueDao.getPlayQueueObservable(sqlQuery)
+        return queryObserver.createObservable(() -> playQueueDao.getPlayQueueItems(sqlQuery),
+                PLAY_QUEUE_LIST_TABLES)
                 .map(list -> mapList(list, this::toQueueItem));
     }
 
+    /**
+     * Changes shuffle seed and moves current item to the start of shuffled order.
+     * Writes only seed and keys of two items, independent of queue size
+     */
     public void reshuffleQueue(long currentItemId) {
-        appDatabase.runInTransaction(() -> {
-            List<PlayQueueEntity> list = playQueueDao.getPlayQueue();
-            if (list.isEmpty()) {
-                return;
-            }
-
-            Collections.shuffle(list);
-
-            long firstItemId = list.get(0).getId();
-            int currentItemPosition = -1;
-            for (int i = 0; i < list.size(); i++) {
-                PlayQueueEntity entity = list.get(i);
-
-                if (entity.getId() == currentItemId) {
-                    currentItemPosition = i;
-                }
-                entity.setShuffledPosition(i);
-            }
-            if (currentItemPosition != -1 && firstItemId != currentItemId) {
-                list.get(currentItemPosition).setShuffledPosition(0);
-                list.get(0).setShuffledPosition(currentItemPosition);
-            }
-
-            playQueueDao.deletePlayQueue();
-            playQueueDao.insertItems(list);
-        });
+        synchronized (index) {
+            flushPendingPositions();
+            appDatabase.runInTransaction(() -> {
+                PlayQueueIndex index = getIndex();
+                ShufflePermutation oldPermutation = shufflePermutation;
+                setShuffleSeed(random.nextLong());
+                index.reshuffle(oldPermutation, shufflePermutation);
+                moveToShuffledStart(currentItemId);
+            });
+        }
+        notifyIndexChanged();
     }
 
     public long insertNewPlayQueue(List<Composition> compositions,
                                    boolean randomPlayingEnabled,
                                    int startPosition) {
-        return appDatabase.runInTransaction(() -> {
-            List<Composition> shuffledList = new ArrayList<>(compositions);
-            long randomSeed = System.nanoTime();
-            Collections.shuffle(shuffledList, new Random(randomSeed));
-
-            List<Integer> shuffledPositionList = new ArrayList<>(compositions.size());
-            for (int i = 0; i < compositions.size(); i++) {
-                shuffledPositionList.add(i);
-            }
-            Collections.shuffle(shuffledPositionList, new Random(randomSeed));
-
-            List<PlayQueueEntity> entities = new ArrayList<>(compositions.size());
-            int shuffledStartPosition = 0;
-            for (int i = 0; i < compositions.size(); i++) {
-                Composition composition = compositions.get(i);
-                PlayQueueEntity playQueueEntity = new PlayQueueEntity();
-                playQueueEntity.setAudioId(composition.getId());
-                playQueueEntity.setPosition(i);
-                int shuffledPosition =  shuffledPositionList.get(i);
-                playQueueEntity.setShuffledPosition(shuffledPosition);
-
-                if (startPosition != NO_POSITION && i == startPosition) {
-                    shuffledStartPosition = shuffledPosition;
+        long itemId;
+        synchronized (index) {
+            pendingPositionUpdates.clear();
+            itemId = appDatabase.runInTransaction(() -> {
+                setShuffleSeed(random.nextLong());
+
+                List<PlayQueueEntity> entities = new ArrayList<>(compositions.size());
+                for (int i = 0; i < compositions.size(); i++) {
+                    Composition composition = compositions.get(i);
+                    PlayQueueEntity playQueueEntity = new PlayQueueEntity();
+                    playQueueEntity.setAudioId(composition.getId());
+                    playQueueEntity.setPosition(i * POSITION_STEP);
+                    //any distinct keys, shuffled order is defined by seed
+                    playQueueEntity.setShuffledPosition(i);
+                    entities.add(playQueueEntity);
                 }
 
-                entities.add(playQueueEntity);
-            }
-
-            playQueueDao.deletePlayQueue();
-            playQueueDao.insertItems(entities);
+                playQueueDao.deletePlayQueue();
+                long[] ids = playQueueDao.insertItems(entities);
+                for (int i = 0; i < ids.length; i++) {
+                    entities.get(i).setId(ids[i]);
+                }
+                setIndex(entities);
 
-            if (randomPlayingEnabled) {
-                return playQueueDao.getItemIdAtShuffledPosition(shuffledStartPosition);
-            } else {
-                return playQueueDao.getItemIdAtPosition(startPosition == NO_POSITION? 0: startPosition);
-            }
-        });
+                if (entities.isEmpty()) {
+                    return NO_ITEM;
+                }
+                if (startPosition != NO_POSITION) {
+                    long startItemId = entities.get(startPosition).getId();
+                    moveToShuffledStart(startItemId);
+                    return startItemId;
+                }
+                return index.getIdAt(0, randomPlayingEnabled);
+            });
+        }
+        notifyIndexChanged();
+        return itemId;
     }
 
     public Observable<Optional<PlayQueueItem>> getItemObservable(long id, boolean useFileName) {
@@ -135,184 +188,437 @@ public class PlayQueueDaoWrapper {
                 });
     }
 
+    @Nullable
+    public PlayQueueItem getItem(long id, boolean useFileName) {
+        String query = PlayQueueDao.getCompositionQuery(useFileName);
+        query += "WHERE itemId = ? LIMIT 1";
+        SimpleSQLiteQuery sqlQuery = new SimpleSQLiteQuery(query, new Object[] {id} );
+        PlayQueueItemDto[] dto = playQueueDao.getItems(sqlQuery);
+        if (dto.length == 0) {
+            return null;
+        }
+        return toQueueItem(dto[0]);
+    }
+
     public void deleteItem(long itemId) {
-        deletedItem = playQueueDao.getItem(itemId);
-        playQueueDao.deleteItem(itemId);
+        synchronized (index) {
+            flushPendingPositions();
+            appDatabase.runInTransaction(() -> {
+                deletedItem = playQueueDao.getItem(itemId);
+                playQueueDao.deleteItem(itemId);
+                if (indexLoaded) {
+                    index.remove(itemId);
+                }
+            });
+        }
+        notifyIndexChanged();
     }
 
     @Nullable
     public Long restoreDeletedItem() {
-        if (deletedItem != null) {
-           return playQueueDao.insertItem(deletedItem);
+        if (deletedItem == null) {
+            return null;
+        }
+        PlayQueueEntity item = deletedItem;
+        Long id;
+        synchronized (index) {
+            flushPendingPositions();
+            id = appDatabase.runInTransaction(() -> {
+                PlayQueueIndex index = getIndex();
+                //positions could be taken by items added after deletion
+                int insertIndex = findRestoreIndex(item.getPosition(), false);
+                //queue could be reshuffled after deletion, key is mapped with current seed
+                int shuffledPosition = shufflePermutation.getPosition(item.getShuffledPosition());
+                int shuffledInsertIndex = findRestoreIndex(shuffledPosition, true);
+                if (insertIndex > 0 && index.getPositionAt(insertIndex - 1, false) == item.getPosition()) {
+                    item.setPosition(allocatePositions(insertIndex, 1, false)[0]);
+                }
+                if (shuffledInsertIndex > 0
+                        && index.getPositionAt(shuffledInsertIndex - 1, true) == shuffledPosition) {
+                    shuffledPosition = allocatePositions(shuffledInsertIndex, 1, true)[0];
+                    item.setShuffledPosition(shufflePermutation.getKey(shuffledPosition));
+                }
+                long itemId = playQueueDao.insertItem(item);
+                long[] ids = new long[] { itemId };
+                index.insert(insertIndex, ids, new int[] { item.getPosition() }, false);
+                index.insert(shuffledInsertIndex, ids, new int[] { shuffledPosition }, true);
+                return itemId;
+            });
         }
-        return null;
+        notifyIndexChanged();
+        return id;
     }
 
+    /**
+     * Swaps items in memory immediately, positions are saved to database
+     * with small delay in one transaction with other swaps made during this time
+     */
     public void swapItems(PlayQueueItem firstItem, PlayQueueItem secondItem, boolean shuffleMode) {
-        appDatabase.runInTransaction(() -> {
+        synchronized (index) {
             long firstId = firstItem.getId();
             long secondId = secondItem.getId();
-            if (shuffleMode) {
-                int firstPosition = playQueueDao.getShuffledPosition(firstId);
-                int secondPosition = playQueueDao.getShuffledPosition(secondId);
-
-                playQueueDao.updateShuffledPosition(secondId, Integer.MIN_VALUE);
-                playQueueDao.updateShuffledPosition(firstId, secondPosition);
-                playQueueDao.updateShuffledPosition(secondId, firstPosition);
-            } else {
-                int firstPosition = playQueueDao.getPosition(firstId);
-                int secondPosition = playQueueDao.getPosition(secondId);
-
-                playQueueDao.updateItemPosition(secondId, Integer.MIN_VALUE);
-                playQueueDao.updateItemPosition(firstId, secondPosition);
-                playQueueDao.updateItemPosition(secondId, firstPosition);
+            getIndex().swap(firstId, secondId, shuffleMode);
+
+            boolean flushScheduled = !pendingPositionUpdates.isEmpty();
+            pendingPositionUpdates.add(firstId);
+            pendingPositionUpdates.add(secondId);
+            if (!flushScheduled) {
+                scheduler.scheduleDirect(this::flushPositions,
+                        POSITIONS_FLUSH_DELAY_MILLIS,
+                        TimeUnit.MILLISECONDS);
             }
-        });
+        }
+        notifyIndexChanged();
     }
 
     public long addCompositionsToEndQueue(List<Composition> compositions) {
-        return appDatabase.runInTransaction(() -> {
-            int positionToInsert = playQueueDao.getLastPosition() + 1;
-            int shuffledPositionToInsert = playQueueDao.getLastShuffledPosition() + 1;
-            List<PlayQueueEntity> entities = toEntityList(compositions,
-                    positionToInsert,
-                    shuffledPositionToInsert);
-            long[] ids = playQueueDao.insertItems(entities);
-            return ids[0];
-        });
+        long firstId;
+        synchronized (index) {
+            flushPendingPositions();
+            firstId = appDatabase.runInTransaction(() -> {
+                int size = getIndex().size();
+                return insertItems(compositions, size, size)[0];
+            });
+        }
+        notifyIndexChanged();
+        return firstId;
     }
 
     public long addCompositionsToQueue(List<Composition> compositions, long currentItemId) {
-        return appDatabase.runInTransaction(() -> {
-            int positionToInsert = 0;
-            int shuffledPositionToInsert = 0;
-            if (currentItemId != NO_ITEM) {
-                int currentPosition = playQueueDao.getPosition(currentItemId);
-                int currentShuffledPosition = playQueueDao.getShuffledPosition(currentItemId);
-
-                int increaseBy = compositions.size();
-                int lastPosition = playQueueDao.getLastPosition();
-                for (int pos = lastPosition; pos > currentPosition; pos--) {
-                    playQueueDao.increasePosition(increaseBy, pos);
-                }
-                int lastShuffledPosition = playQueueDao.getLastShuffledPosition();
-                for (int pos = lastShuffledPosition; pos > currentShuffledPosition; pos--) {
-                    playQueueDao.increaseShuffledPosition(increaseBy, pos);
+        long firstId;
+        synchronized (index) {
+            flushPendingPositions();
+            firstId = appDatabase.runInTransaction(() -> {
+                PlayQueueIndex index = getIndex();
+                int insertIndex = 0;
+                int shuffledInsertIndex = 0;
+                if (currentItemId != NO_ITEM) {
+                    insertIndex = index.indexOf(currentItemId, false) + 1;
+                    shuffledInsertIndex = index.indexOf(currentItemId, true) + 1;
                 }
-
-                positionToInsert = currentPosition + 1;
-                shuffledPositionToInsert = currentShuffledPosition + 1;
-            }
-
-            List<PlayQueueEntity> entities = toEntityList(compositions,
-                    positionToInsert,
-                    shuffledPositionToInsert);
-            long[] ids = playQueueDao.insertItems(entities);
-            return ids[0];
-        });
+                return insertItems(compositions, insertIndex, shuffledInsertIndex)[0];
+            });
+        }
+        notifyIndexChanged();
+        return firstId;
     }
 
     public int getPosition(long id, boolean isShuffle) {
-        if (isShuffle) {
-            return playQueueDao.getShuffledPosition(id);
-        } else {
-            return playQueueDao.getPosition(id);
+        synchronized (index) {
+            return getIndex().getPosition(id, isShuffle);
         }
     }
 
     public int getLastPosition(boolean isShuffled) {
-        if (isShuffled) {
-            return playQueueDao.getLastShuffledPosition();
-        } else {
-            return playQueueDao.getLastPosition();
+        synchronized (index) {
+            return getIndex().getLastPosition(isShuffled);
         }
     }
 
     public Observable<Integer> getPositionObservable(long id, boolean isShuffle) {
-        Observable<Integer> observable;
-        if (isShuffle) {
-            observable = playQueueDao.getShuffledPositionObservable(id);
-        } else {
-            observable = playQueueDao.getPositionObservable(id);
-        }
-        return observable
-                .retry(DB_OBSERVABLE_RETRY_COUNT, t -> t instanceof SQLiteCantOpenDatabaseException)
+        return indexChangeSubject.observeOn(scheduler)
+                .map(o -> getPosition(id, isShuffle))
                 .distinctUntilChanged();
     }
 
     public Observable<Integer> getIndexPositionObservable(long id, boolean isShuffle) {
-        Observable<Integer> observable;
-        if (isShuffle) {
-            observable = playQueueDao.getShuffledIndexPositionObservable(id);
-        } else {
-            observable = playQueueDao.getIndexPositionObservable(id);
-        }
-        return observable.filter(pos -> pos >= 0)
+        return indexChangeSubject.observeOn(scheduler)
+                .map(o -> getIndexPosition(id, isShuffle))
+                .filter(pos -> pos >= 0)
                 .distinctUntilChanged();
     }
 
     public long getNextQueueItemId(long currentItemId, boolean isShuffled) {
-        if (isShuffled) {
-            Long id = playQueueDao.getNextShuffledQueueItemId(currentItemId);
-            if (id == null) {
-                return playQueueDao.getFirstShuffledItem();
-            }
-            return id;
-        } else {
-            Long id = playQueueDao.getNextQueueItemId(currentItemId);
-            if (id == null) {
-                return playQueueDao.getFirstItem();
-            }
-            return id;
+        synchronized (index) {
+            return getIndex().getNextId(currentItemId, isShuffled);
         }
     }
 
     public long getPreviousQueueItemId(long currentItemId, boolean isShuffled) {
-        if (isShuffled) {
-            Long id = playQueueDao.getPreviousShuffledQueueItemId(currentItemId);
-            if (id == null) {
-                return playQueueDao.getLastShuffledItem();
+        synchronized (index) {
+            PlayQueueIndex index = getIndex();
+            if (index.size() == 0) {
+                return 0;
             }
-            return id;
-        } else {
-            Long id = playQueueDao.getPreviousQueueItemId(currentItemId);
-            if (id == null) {
-                return playQueueDao.getLastItem();
+            //skip corrupted compositions, usually the first candidate is fine
+            for (int i = index.indexOf(currentItemId, isShuffled) - 1; i >= 0; i--) {
+                long id = index.getIdAt(i, isShuffled);
+                if (!playQueueDao.isCorrupted(id)) {
+                    return id;
+                }
             }
-            return id;
+            return index.getIdAt(index.size() - 1, isShuffled);
         }
     }
 
     public Long getItemAtPosition(int position, boolean isShuffled) {
-        if (isShuffled) {
-            return playQueueDao.getItemIdAtShuffledPosition(position);
-        } else {
-            return playQueueDao.getItemIdAtPosition(position);
+        synchronized (index) {
+            //called when current item is deleted, data must be actual here
+            indexCheckRequired = true;
+            return getIndex().getIdAtPosition(position, isShuffled);
         }
     }
 
     public void deletePlayQueue() {
-        playQueueDao.deletePlayQueue();
+        synchronized (index) {
+            pendingPositionUpdates.clear();
+            playQueueDao.deletePlayQueue();
+            index.clear();
+            indexLoaded = true;
+        }
+        notifyIndexChanged();
     }
 
     public Observable<Integer> getPlayQueueSizeObservable() {
         return playQueueDao.getPlayQueueSizeObservable();
     }
 
-    private List<PlayQueueEntity> toEntityList(List<Composition> compositions,
-                                               int position,
-                                               int shuffledPosition) {
-        List<PlayQueueEntity> entityList = new ArrayList<>(compositions.size());
+    public int getIndexPosition(long id, boolean isShuffle) {
+        synchronized (index) {
+            return getIndex().indexOf(id, isShuffle);
+        }
+    }
+
+    private void flushPositions() {
+        synchronized (index) {
+            flushPendingPositions();
+        }
+    }
+
+    //must be called under index lock
+    private void flushPendingPositions() {
+        if (pendingPositionUpdates.isEmpty()) {
+            return;
+        }
+        appDatabase.runInTransaction(() -> {
+            //move items to temporary positions first to not break unique indexes
+            int tempPosition = -1;
+            for (long id: pendingPositionUpdates) {
+                playQueueDao.updateItemPositions(id, tempPosition, tempPosition);
+                tempPosition--;
+            }
+            for (long id: pendingPositionUpdates) {
+                playQueueDao.updateItemPositions(id,
+                        index.getPosition(id, false),
+                        shufflePermutation.getKey(index.getPosition(id, true)));
+            }
+        });
+        pendingPositionUpdates.clear();
+    }
+
+    //must be called under index lock
+    private PlayQueueIndex getIndex() {
+        if (indexLoaded && indexCheckRequired) {
+            indexCheckRequired = false;
+            if (playQueueDao.getPlayQueueSize() != index.size()) {
+                indexLoaded = false;
+            }
+        }
+        if (!indexLoaded) {
+            flushPendingPositions();
+            shufflePermutation = new ShufflePermutation(getShuffleSeed());
+            setIndex(playQueueDao.getPlayQueue());
+        }
+        return index;
+    }
+
+    private void setIndex(List<PlayQueueEntity> entities) {
+        index.set(entities, shufflePermutation);
+        indexLoaded = true;
+    }
+
+    private long getShuffleSeed() {
+        Long seed = playQueueDao.getShuffleSeed();
+        return seed == null? 0 : seed;
+    }
+
+    //must be called in transaction under index lock
+    private void setShuffleSeed(long seed) {
+        playQueueDao.setShuffle(new PlayQueueShuffleEntity(PlayQueueShuffleEntity.SINGLE_ROW_ID, seed));
+        shufflePermutation = new ShufflePermutation(seed);
+    }
+
+    private List<PlayQueueItemDto> getShuffledPlayQueueItems(boolean useFileName) {
+        return appDatabase.runInTransaction(() -> {
+            ShufflePermutation permutation = new ShufflePermutation(getShuffleSeed());
+            String query = "WITH " + permutation.getPositionsSql("shuffle_order",
+                    "SELECT id, shuffledPosition AS key FROM play_queue") + " " +
+                    PlayQueueDao.getCompositionQuery(useFileName) +
+                    "INNER JOIN shuffle_order ON shuffle_order.id = play_queue.id " +
+                    "ORDER BY shuffle_order.position";
+            return playQueueDao.getPlayQueueItems(new SimpleSQLiteQuery(query));
+        });
+    }
+
+    /**
+     * Moves item to the start of shuffled order by exchange of keys with the first item.
+     * Must be called in transaction under index lock
+     */
+    private void moveToShuffledStart(long itemId) {
+        int itemIndex = index.indexOf(itemId, true);
+        if (itemIndex <= 0) {
+            return;
+        }
+        long firstId = index.getIdAt(0, true);
+        int firstKey = shufflePermutation.getKey(index.getPositionAt(0, true));
+        int itemKey = shufflePermutation.getKey(index.getPositionAt(itemIndex, true));
+        //through temporary key to not break unique index
+        playQueueDao.updateShuffledPosition(itemId, -1);
+        playQueueDao.updateShuffledPosition(firstId, itemKey);
+        playQueueDao.updateShuffledPosition(itemId, firstKey);
+        index.swap(firstId, itemId, true);
+    }
 
-        for (Composition composition: compositions) {
+    private void notifyIndexChanged() {
+        indexChangeSubject.onNext(index);
+    }
+
+    //must be called in transaction under index lock
+    private long[] insertItems(List<Composition> compositions,
+                               int insertIndex,
+                               int shuffledInsertIndex) {
+        int count = compositions.size();
+        int[] positions = allocatePositions(insertIndex, count, false);
+        int[] shuffledPositions = allocatePositions(shuffledInsertIndex, count, true);
+
+        List<PlayQueueEntity> entities = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
             PlayQueueEntity playQueueEntity = new PlayQueueEntity();
-            playQueueEntity.setAudioId(composition.getId());
-            playQueueEntity.setPosition(position++);
-            playQueueEntity.setShuffledPosition(shuffledPosition++);
+            playQueueEntity.setAudioId(compositions.get(i).getId());
+            playQueueEntity.setPosition(positions[i]);
+            playQueueEntity.setShuffledPosition(shufflePermutation.getKey(shuffledPositions[i]));
+            entities.add(playQueueEntity);
+        }
+        long[] ids = playQueueDao.insertItems(entities);
+        index.insert(insertIndex, ids, positions, false);
+        index.insert(shuffledInsertIndex, ids, shuffledPositions, true);
+        return ids;
+    }
+
+    /**
+     * Finds free positions for items which will be inserted at given index. Usually new items fit
+     * into gap between neighbour items. Otherwise following items are moved by set-based update
+     * (shuffled positions are stored as keys, so there following items are pushed one by one),
+     * whole order is renumbered only when positions run out of range.
+     * Must be called in transaction under index lock
+     */
+    private int[] allocatePositions(int insertIndex, int count, boolean isShuffled) {
+        int[] positions = new int[count];
+        if (count == 0) {
+            return positions;
+        }
+        long maxPosition = getMaxPosition(isShuffled);
+        long previous = insertIndex == 0? -1 : index.getPositionAt(insertIndex - 1, isShuffled);
+        long step;
+        if (insertIndex == index.size()) {
+            //shuffled positions are spread over whole range, so the rest of range is divided
+            step = Math.min(POSITION_STEP, (maxPosition - previous) / (count + 1));
+            if (step < 1) {
+                return renumber(insertIndex, count, isShuffled);
+            }
+            if (insertIndex == 0) {
+                previous = -step;
+            }
+        } else {
+            long next = index.getPositionAt(insertIndex, isShuffled);
+            if (next - previous - 1 < count) {
+                long shift = (count + 1L) * POSITION_STEP - (next - previous);
+                if (isShuffled) {
+                    if (!pushShuffledPositions(insertIndex, next + shift)) {
+                        return renumber(insertIndex, count, true);
+                    }
+                } else {
+                    if (index.getLastPosition(false) + shift > maxPosition) {
+                        return renumber(insertIndex, count, false);
+                    }
+                    shiftPositions(insertIndex, (int) next, (int) shift);
+                }
+                next += shift;
+            }
+            step = (next - previous) / (count + 1);
+        }
+        for (int i = 0; i < count; i++) {
+            positions[i] = (int) (previous + step * (i + 1));
+        }
+        return positions;
+    }
+
+    private void shiftPositions(int fromIndex, int fromPosition, int shift) {
+        //moving through negative values to not break unique index in the middle of update
+        playQueueDao.moveToNegativePositions(fromPosition, shift);
+        playQueueDao.restoreNegativePositions();
+        index.shiftPositions(fromIndex, shift, false);
+    }
+
+    /**
+     * Moves shuffled items starting from given index to free place for inserted items. Item is
+     * moved only if it overlaps with previous one, gaps are random, so it is usually a few items
+     *
+     * @return false if positions run out of range
+     */
+    private boolean pushShuffledPositions(int fromIndex, long firstPosition) {
+        int movedCount = 0;
+        long position = firstPosition;
+        while (fromIndex + movedCount < index.size()
+                && index.getPositionAt(fromIndex + movedCount, true) < position) {
+            if (position > ShufflePermutation.MAX_POSITION) {
+                return false;
+            }
+            movedCount++;
+            position += POSITION_STEP;
+        }
+        int[] positions = new int[movedCount];
+        for (int i = 0; i < movedCount; i++) {
+            positions[i] = (int) (firstPosition + (long) i * POSITION_STEP);
+            playQueueDao.updateShuffledPosition(index.getIdAt(fromIndex + i, true), -1 - i);
+        }
+        for (int i = 0; i < movedCount; i++) {
+            playQueueDao.updateShuffledPosition(index.getIdAt(fromIndex + i, true),
+                    shufflePermutation.getKey(positions[i]));
+        }
+        index.setPositions(fromIndex, positions, true);
+        return true;
+    }
+
+    /**
+     * Renumbers whole order with default step (or less if it doesn't fit into range)
+     * and leaves place for inserted items
+     *
+     * @return positions for inserted items
+     */
+    private int[] renumber(int insertIndex, int count, boolean isShuffled) {
+        int step = (int) Math.min(POSITION_STEP, getMaxPosition(isShuffled) / (index.size() + count));
+        if (isShuffled) {
+            playQueueDao.moveToNegativeShuffledPositions(0, 1);
+        } else {
+            playQueueDao.moveToNegativePositions(0, 1);
+        }
+        for (int i = 0; i < index.size(); i++) {
+            long id = index.getIdAt(i, isShuffled);
+            int position = (i < insertIndex? i : i + count) * step;
+            if (isShuffled) {
+                playQueueDao.updateShuffledPosition(id, shufflePermutation.getKey(position));
+            } else {
+                playQueueDao.updateItemPosition(id, position);
+            }
+        }
+        index.renumber(step, isShuffled);
+        index.shiftPositions(insertIndex, count * step, isShuffled);
 
-            entityList.add(playQueueEntity);
+        int[] positions = new int[count];
+        for (int i = 0; i < count; i++) {
+            positions[i] = (insertIndex + i) * step;
         }
-        return entityList;
+        return positions;
+    }
+
+    private long getMaxPosition(boolean isShuffled) {
+        return isShuffled? ShufflePermutation.MAX_POSITION : Integer.MAX_VALUE;
+    }
+
+    private int findRestoreIndex(int position, boolean isShuffled) {
+        int index = this.index.findPosition(position, isShuffled);
+        return index < 0? -index - 1 : index + 1;
     }
 
     private PlayQueueItem toQueueItem(PlayQueueItemDto dto) {
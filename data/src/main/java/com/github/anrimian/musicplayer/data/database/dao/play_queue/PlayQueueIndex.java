@@ -0,0 +1,293 @@
+package com.github.anrimian.musicplayer.data.database.dao.play_queue;
+
+import com.github.anrimian.musicplayer.data.database.entities.play_queue.PlayQueueEntity;
+import com.github.anrimian.musicplayer.data.utils.collections.LongIntHashMap;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+/**
+ * In-memory copy of play queue order. Keeps item ids in linear and shuffled order
+ * to answer navigation requests without database access.
+ * Not thread safe, access is synchronized by {@link PlayQueueDaoWrapper}.
+ */
+class PlayQueueIndex {
+
+    private final Order linearOrder = new Order();
+    private final Order shuffledOrder = new Order();
+
+    /**
+     * @param permutation maps stored shuffle keys of items to positions of shuffled order
+     */
+    void set(List<PlayQueueEntity> entities, ShufflePermutation permutation) {
+        int size = entities.size();
+        long[] ids = new long[size];
+        int[] positions = new int[size];
+        int[] shuffledPositions = new int[size];
+        for (int i = 0; i < size; i++) {
+            PlayQueueEntity entity = entities.get(i);
+            ids[i] = entity.getId();
+            positions[i] = entity.getPosition();
+            shuffledPositions[i] = permutation.getPosition(entity.getShuffledPosition());
+        }
+        linearOrder.set(ids, positions);
+        shuffledOrder.set(ids, shuffledPositions);
+    }
+
+    /**
+     * Rebuilds shuffled order after seed change, items keep their shuffle keys
+     */
+    void reshuffle(ShufflePermutation oldPermutation, ShufflePermutation newPermutation) {
+        Order order = shuffledOrder;
+        long[] ids = Arrays.copyOf(order.ids, order.size);
+        int[] positions = new int[order.size];
+        for (int i = 0; i < order.size; i++) {
+            positions[i] = newPermutation.getPosition(oldPermutation.getKey(order.positions[i]));
+        }
+        order.set(ids, positions);
+    }
+
+    void clear() {
+        linearOrder.clear();
+        shuffledOrder.clear();
+    }
+
+    int size() {
+        return linearOrder.size;
+    }
+
+    boolean contains(long id) {
+        return linearOrder.indexOf(id) != -1;
+    }
+
+    /**
+     * @return index of item in queue or -1 if item not found
+     */
+    int indexOf(long id, boolean isShuffled) {
+        return getOrder(isShuffled).indexOf(id);
+    }
+
+    /**
+     * @return stored position of item or 0 if item not found
+     */
+    int getPosition(long id, boolean isShuffled) {
+        Order order = getOrder(isShuffled);
+        int index = order.indexOf(id);
+        if (index == -1) {
+            return 0;
+        }
+        return order.positions[index];
+    }
+
+    int getLastPosition(boolean isShuffled) {
+        Order order = getOrder(isShuffled);
+        if (order.size == 0) {
+            return 0;
+        }
+        return order.positions[order.size - 1];
+    }
+
+    long getIdAt(int index, boolean isShuffled) {
+        return getOrder(isShuffled).ids[index];
+    }
+
+    int getPositionAt(int index, boolean isShuffled) {
+        return getOrder(isShuffled).positions[index];
+    }
+
+    /**
+     * @return index of item with given position or (-(insertion index) - 1) if position is free
+     */
+    int findPosition(int position, boolean isShuffled) {
+        Order order = getOrder(isShuffled);
+        return Arrays.binarySearch(order.positions, 0, order.size, position);
+    }
+
+    /**
+     * @return next item id, first item id if current item is last or not found
+     * and 0 if queue is empty
+     */
+    long getNextId(long currentId, boolean isShuffled) {
+        Order order = getOrder(isShuffled);
+        if (order.size == 0) {
+            return 0;
+        }
+        int index = order.indexOf(currentId);
+        if (index == -1 || index == order.size - 1) {
+            return order.ids[0];
+        }
+        return order.ids[index + 1];
+    }
+
+    /**
+     * @return id of first item with position not less than given position or null
+     */
+    @Nullable
+    Long getIdAtPosition(int position, boolean isShuffled) {
+        Order order = getOrder(isShuffled);
+        int index = Arrays.binarySearch(order.positions, 0, order.size, position);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        if (index == order.size) {
+            return null;
+        }
+        return order.ids[index];
+    }
+
+    /**
+     * Inserts items to given order, positions must be sorted and fit between neighbour items
+     */
+    void insert(int index, long[] ids, int[] positions, boolean isShuffled) {
+        getOrder(isShuffled).insert(index, ids, positions);
+    }
+
+    /**
+     * Increases positions of items starting from given index
+     */
+    void shiftPositions(int fromIndex, int shift, boolean isShuffled) {
+        Order order = getOrder(isShuffled);
+        for (int i = fromIndex; i < order.size; i++) {
+            order.positions[i] += shift;
+        }
+    }
+
+    /**
+     * Replaces positions of items starting from given index, positions must stay sorted
+     */
+    void setPositions(int fromIndex, int[] positions, boolean isShuffled) {
+        Order order = getOrder(isShuffled);
+        System.arraycopy(positions, 0, order.positions, fromIndex, positions.length);
+    }
+
+    /**
+     * Sets positions of all items to index * step
+     */
+    void renumber(int step, boolean isShuffled) {
+        Order order = getOrder(isShuffled);
+        for (int i = 0; i < order.size; i++) {
+            order.positions[i] = i * step;
+        }
+    }
+
+    void remove(long id) {
+        linearOrder.remove(id);
+        shuffledOrder.remove(id);
+    }
+
+    /**
+     * Swaps items in given order. Items exchange their positions, positions itself stay sorted
+     */
+    void swap(long firstId, long secondId, boolean isShuffled) {
+        getOrder(isShuffled).swap(firstId, secondId);
+    }
+
+    private Order getOrder(boolean isShuffled) {
+        return isShuffled? shuffledOrder : linearOrder;
+    }
+
+    private static class Order {
+
+        private long[] ids = new long[0];
+        private int[] positions = new int[0];
+        private int size;
+
+        //id -> index, rebuilt lazily after structural changes
+        private final LongIntHashMap indexes = new LongIntHashMap();
+        private boolean indexesValid = true;
+
+        void set(long[] unorderedIds, int[] unorderedPositions) {
+            int size = unorderedIds.length;
+            //pack position and source index to sort without boxing
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = ((long) unorderedPositions[i] << 32) | i;
+            }
+            Arrays.sort(keys);
+
+            ids = new long[size];
+            positions = new int[size];
+            for (int i = 0; i < size; i++) {
+                int sourceIndex = (int) keys[i];
+                ids[i] = unorderedIds[sourceIndex];
+                positions[i] = unorderedPositions[sourceIndex];
+            }
+            this.size = size;
+            indexesValid = false;
+        }
+
+        void clear() {
+            size = 0;
+            indexes.clear();
+            indexesValid = true;
+        }
+
+        int indexOf(long id) {
+            if (!indexesValid) {
+                indexes.clear(size);
+                for (int i = 0; i < size; i++) {
+                    indexes.put(ids[i], i);
+                }
+                indexesValid = true;
+            }
+            return indexes.get(id, -1);
+        }
+
+        void insert(int index, long[] newIds, int[] newPositions) {
+            int count = newIds.length;
+            ensureCapacity(size + count);
+            int tail = size - index;
+            System.arraycopy(ids, index, ids, index + count, tail);
+            System.arraycopy(positions, index, positions, index + count, tail);
+            System.arraycopy(newIds, 0, ids, index, count);
+            System.arraycopy(newPositions, 0, positions, index, count);
+            size += count;
+            if (tail == 0 && indexesValid) {
+                for (int i = index; i < size; i++) {
+                    indexes.put(ids[i], i);
+                }
+            } else {
+                indexesValid = false;
+            }
+        }
+
+        void remove(long id) {
+            int index = indexOf(id);
+            if (index == -1) {
+                return;
+            }
+            int tail = size - index - 1;
+            System.arraycopy(ids, index + 1, ids, index, tail);
+            System.arraycopy(positions, index + 1, positions, index, tail);
+            size--;
+            if (tail == 0) {
+                indexes.remove(id);
+            } else {
+                indexesValid = false;
+            }
+        }
+
+        void swap(long firstId, long secondId) {
+            int firstIndex = indexOf(firstId);
+            int secondIndex = indexOf(secondId);
+            if (firstIndex == -1 || secondIndex == -1) {
+                return;
+            }
+            ids[firstIndex] = secondId;
+            ids[secondIndex] = firstId;
+            indexes.put(firstId, secondIndex);
+            indexes.put(secondId, firstIndex);
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= ids.length) {
+                return;
+            }
+            int newCapacity = Math.max(capacity, ids.length + (ids.length >> 1));
+            ids = Arrays.copyOf(ids, newCapacity);
+            positions = Arrays.copyOf(positions, newCapacity);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.github.anrimian.musicplayer.data.database.dao.play_queue;
+
+/**
+ * Seeded bijection of play queue shuffle keys to positions of shuffled order.
+ * <p>
+ * Items store constant shuffle keys, shuffled order is order of their mapped positions.
+ * So queue is reshuffled by change of seed, without rewriting of items. Positions of inserted
+ * or moved items are mapped back to keys by inverse function.
+ * <p>
+ * Mapping is a balanced Feistel network over 30 bit values, keys and positions are
+ * non-negative, so negative values stay free for temporary positions of updates.
+ * Halves are combined by addition and round function is multiply-shift hash, all values fit
+ * into 63 bits, so the same mapping is available as sql expression to order items in query.
+ */
+public class ShufflePermutation {
+
+    public static final int MAX_POSITION = (1 << 30) - 1;
+
+    private static final int HALF_BITS = 15;
+    private static final int HALF_MASK = (1 << HALF_BITS) - 1;
+    private static final int ROUNDS = 8;
+    private static final long FIRST_MULTIPLIER = 0x9E3779B1L;
+    private static final long SECOND_MULTIPLIER = 0x2545F491L;
+    private static final long ROUND_MASK = 0x7FFFFFFFL;
+
+    private final long seed;
+    private final int[] roundKeys = new int[ROUNDS];
+
+    public ShufflePermutation(long seed) {
+        this.seed = seed;
+        long state = seed;
+        for (int i = 0; i < ROUNDS; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            roundKeys[i] = (int) (mix64(state) >>> 32);
+        }
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @param key shuffle key in range [0, MAX_POSITION]
+     * @return position of key in shuffled order
+     */
+    public int getPosition(int key) {
+        int left = key >>> HALF_BITS;
+        int right = key & HALF_MASK;
+        for (int i = 0; i < ROUNDS; i++) {
+            int newRight = (left + round(right, roundKeys[i])) & HALF_MASK;
+            left = right;
+            right = newRight;
+        }
+        return (left << HALF_BITS) | right;
+    }
+
+    /**
+     * Rounds are split into separate tables, single nested expression exceeds sqlite parser depth.
+     *
+     * @param tableName name of result table with columns (id, position)
+     * @param keysQuery query which selects columns (id, key) with shuffle keys
+     * @return common table expressions (without WITH keyword) which map keys to positions
+     * in shuffled order, the same as {@link #getPosition(int)}
+     */
+    public String getPositionsSql(String tableName, String keysQuery) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(tableName).append("_0(id, l, r) AS (SELECT id, ")
+                .append("(key >> ").append(HALF_BITS).append("), ")
+                .append("(key & ").append(HALF_MASK).append(") ")
+                .append("FROM (").append(keysQuery).append(")), ");
+        for (int i = 0; i < ROUNDS; i++) {
+            sb.append(tableName).append("_").append(i + 1).append("(id, l, r) AS (SELECT id, r, ")
+                    .append("((l + ").append(roundSql("r", roundKeys[i])).append(") & ").append(HALF_MASK)
+                    .append(") FROM ").append(tableName).append("_").append(i).append("), ");
+        }
+        sb.append(tableName).append("(id, position) AS (SELECT id, ")
+                .append("((l << ").append(HALF_BITS).append(") | r) ")
+                .append("FROM ").append(tableName).append("_").append(ROUNDS).append(")");
+        return sb.toString();
+    }
+
+    /**
+     * @param position position in shuffled order in range [0, MAX_POSITION]
+     * @return shuffle key which is mapped to given position
+     */
+    public int getKey(int position) {
+        int left = position >>> HALF_BITS;
+        int right = position & HALF_MASK;
+        for (int i = ROUNDS - 1; i >= 0; i--) {
+            int newLeft = (right - round(left, roundKeys[i])) & HALF_MASK;
+            right = left;
+            left = newLeft;
+        }
+        return (left << HALF_BITS) | right;
+    }
+
+    //keep in sync with roundSql()
+    private static int round(int value, int key) {
+        long h = ((value + (key & HALF_MASK)) * FIRST_MULTIPLIER) & ROUND_MASK;
+        h = (((h >> 8) + (key >>> HALF_BITS)) * SECOND_MULTIPLIER) & ROUND_MASK;
+        h = ((h >> 8) * FIRST_MULTIPLIER) & ROUND_MASK;
+        return (int) (h >> 16) & HALF_MASK;
+    }
+
+    //shift and bitwise operators have the same precedence in sqlite, so all of them are enclosed
+    private static String roundSql(String value, int key) {
+        String h = "(((" + value + " + " + (key & HALF_MASK) + ") * " + FIRST_MULTIPLIER + ") & " + ROUND_MASK + ")";
+        h = "((((" + h + " >> 8) + " + (key >>> HALF_BITS) + ") * " + SECOND_MULTIPLIER + ") & " + ROUND_MASK + ")";
+        h = "(((" + h + " >> 8) * " + FIRST_MULTIPLIER + ") & " + ROUND_MASK + ")";
+        return "((" + h + " >> 16) & " + HALF_MASK + ")";
+    }
+
+    //splitmix64 finalizer
+    private static long mix64(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
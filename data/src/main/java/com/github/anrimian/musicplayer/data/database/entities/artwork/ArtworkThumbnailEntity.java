@@ -0,0 +1,56 @@
+package com.github.anrimian.musicplayer.data.database.entities.artwork;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.PrimaryKey;
+
+import com.github.anrimian.musicplayer.data.database.entities.composition.CompositionEntity;
+
+import java.util.Date;
+
+import javax.annotation.Nullable;
+
+/**
+ * Thumbnail of composition cover, valid while composition modify date is the same.
+ * Null hash means that composition has no cover.
+ */
+@Entity(tableName = "artwork_thumbnails",
+        foreignKeys = {
+                @ForeignKey(entity = CompositionEntity.class,
+                        parentColumns = "id",
+                        childColumns = "compositionId",
+                        onDelete = ForeignKey.CASCADE)
+        }
+)
+public class ArtworkThumbnailEntity {
+
+    @PrimaryKey
+    private long compositionId;
+
+    @NonNull
+    private Date dateModified;
+
+    @Nullable
+    private String hash;
+
+    public ArtworkThumbnailEntity(long compositionId, @NonNull Date dateModified, @Nullable String hash) {
+        this.compositionId = compositionId;
+        this.dateModified = dateModified;
+        this.hash = hash;
+    }
+
+    public long getCompositionId() {
+        return compositionId;
+    }
+
+    @NonNull
+    public Date getDateModified() {
+        return dateModified;
+    }
+
+    @Nullable
+    public String getHash() {
+        return hash;
+    }
+}
@@ -31,7 +31,13 @@ import javax.annotation.Nullable;
         indices = {
                 @Index("artistId"),
                 @Index("albumId"),
-                @Index("folderId")
+                @Index({"folderId", "dateAdded"}),
+                @Index("storageId"),
+                @Index("fileName"),
+                @Index("dateAdded"),
+                @Index("dateModified"),
+                @Index("size"),
+                @Index("duration")
         }
 )
 public class CompositionEntity {
@@ -70,12 +76,19 @@ public class CompositionEntity {
     private Date dateAdded;
     @Nonnull
     private Date dateModified;
-    @androidx.annotation.NonNull
-    private Date lastScanDate;
 
     @Nullable
     private CorruptionType corruptionType;
 
+    //replay gain from tags or loudness analysis, in dB relative to -18 LUFS
+    @Nullable
+    private Float trackGain;
+    @Nullable
+    private Float trackPeak;
+    //set when loudness analysis finished or failed, to not repeat it for unchanged file
+    @Nullable
+    private Date lastLoudnessScanDate;
+
     public CompositionEntity(@Nullable Long artistId,
                              @Nullable Long albumId,
                              @Nullable Long folderId,
@@ -88,7 +101,6 @@ public class CompositionEntity {
                              @Nullable Long storageId,
                              @Nonnull Date dateAdded,
                              @Nonnull Date dateModified,
-                             @androidx.annotation.NonNull Date lastScanDate,
                              @Nullable CorruptionType corruptionType) {
         this.artistId = artistId;
         this.albumId = albumId;
@@ -102,7 +114,6 @@ public class CompositionEntity {
         this.size = size;
         this.dateAdded = dateAdded;
         this.dateModified = dateModified;
-        this.lastScanDate = lastScanDate;
         this.corruptionType = corruptionType;
 
         Objects.requireNonNull(fileName);
@@ -169,11 +180,6 @@ public class CompositionEntity {
         return dateModified;
     }
 
-    @androidx.annotation.NonNull
-    public Date getLastScanDate() {
-        return lastScanDate;
-    }
-
     @Nullable
     public CorruptionType getCorruptionType() {
         return corruptionType;
@@ -183,4 +189,31 @@ public class CompositionEntity {
     public String getLyrics() {
         return lyrics;
     }
+
+    @Nullable
+    public Float getTrackGain() {
+        return trackGain;
+    }
+
+    public void setTrackGain(@Nullable Float trackGain) {
+        this.trackGain = trackGain;
+    }
+
+    @Nullable
+    public Float getTrackPeak() {
+        return trackPeak;
+    }
+
+    public void setTrackPeak(@Nullable Float trackPeak) {
+        this.trackPeak = trackPeak;
+    }
+
+    @Nullable
+    public Date getLastLoudnessScanDate() {
+        return lastLoudnessScanDate;
+    }
+
+    public void setLastLoudnessScanDate(@Nullable Date lastLoudnessScanDate) {
+        this.lastLoudnessScanDate = lastLoudnessScanDate;
+    }
 }
@@ -0,0 +1,44 @@
+package com.github.anrimian.musicplayer.data.database.entities.composition;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.PrimaryKey;
+
+import java.util.Date;
+
+/**
+ * File scanner bookkeeping. Kept out of compositions table, so marking composition as
+ * scanned doesn't invalidate observed library queries.
+ * Composition without record was not scanned yet.
+ */
+@Entity(tableName = "compositions_scan_state",
+        foreignKeys = {
+                @ForeignKey(entity = CompositionEntity.class,
+                        parentColumns = "id",
+                        childColumns = "compositionId",
+                        onDelete = ForeignKey.CASCADE)
+        }
+)
+public class CompositionScanStateEntity {
+
+    @PrimaryKey
+    private long compositionId;
+
+    @NonNull
+    private Date lastScanDate;
+
+    public CompositionScanStateEntity(long compositionId, @NonNull Date lastScanDate) {
+        this.compositionId = compositionId;
+        this.lastScanDate = lastScanDate;
+    }
+
+    public long getCompositionId() {
+        return compositionId;
+    }
+
+    @NonNull
+    public Date getLastScanDate() {
+        return lastScanDate;
+    }
+}
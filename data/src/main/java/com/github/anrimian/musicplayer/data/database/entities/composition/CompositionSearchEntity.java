@@ -0,0 +1,65 @@
+package com.github.anrimian.musicplayer.data.database.entities.composition;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+import androidx.room.PrimaryKey;
+
+/**
+ * Full text search index of compositions, rowid is composition id.
+ * Filled by triggers, see {@link com.github.anrimian.musicplayer.data.database.CompositionsSearchIndex}
+ */
+@Fts4(tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "compositions_search")
+public class CompositionSearchEntity {
+
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    private long id;
+
+    //title or file name if title is empty, as displayed
+    private String title;
+    private String fileName;
+    private String artist;
+    private String album;
+    private String genres;
+
+    public CompositionSearchEntity(long id,
+                                   String title,
+                                   String fileName,
+                                   String artist,
+                                   String album,
+                                   String genres) {
+        this.id = id;
+        this.title = title;
+        this.fileName = fileName;
+        this.artist = artist;
+        this.album = album;
+        this.genres = genres;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getArtist() {
+        return artist;
+    }
+
+    public String getAlbum() {
+        return album;
+    }
+
+    public String getGenres() {
+        return genres;
+    }
+}
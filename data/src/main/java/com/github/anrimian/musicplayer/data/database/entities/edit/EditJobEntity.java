@@ -0,0 +1,79 @@
+package com.github.anrimian.musicplayer.data.database.entities.edit;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+import java.util.Date;
+
+import javax.annotation.Nullable;
+
+/**
+ * Journal record of bulk tag edit. Exists until all files are processed and library is updated,
+ * so edit is continued if process was killed.
+ */
+@Entity(tableName = "edit_jobs")
+public class EditJobEntity {
+
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+
+    @NonNull
+    private EditJobType type;
+
+    //id of edited album, artist or genre
+    private long targetId;
+
+    @NonNull
+    private String newName;
+
+    @Nullable
+    private String oldName;
+
+    @NonNull
+    private Date createDate;
+
+    public EditJobEntity(@NonNull EditJobType type,
+                         long targetId,
+                         @NonNull String newName,
+                         @Nullable String oldName,
+                         @NonNull Date createDate) {
+        this.type = type;
+        this.targetId = targetId;
+        this.newName = newName;
+        this.oldName = oldName;
+        this.createDate = createDate;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    @NonNull
+    public EditJobType getType() {
+        return type;
+    }
+
+    public long getTargetId() {
+        return targetId;
+    }
+
+    @NonNull
+    public String getNewName() {
+        return newName;
+    }
+
+    @Nullable
+    public String getOldName() {
+        return oldName;
+    }
+
+    @NonNull
+    public Date getCreateDate() {
+        return createDate;
+    }
+}
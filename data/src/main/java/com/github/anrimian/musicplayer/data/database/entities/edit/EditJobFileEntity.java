@@ -0,0 +1,111 @@
+package com.github.anrimian.musicplayer.data.database.entities.edit;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+import com.github.anrimian.musicplayer.data.database.entities.composition.CompositionEntity;
+
+import javax.annotation.Nullable;
+
+/**
+ * File of edit job, edited tags are defined by fields mask and values of job
+ */
+@Entity(tableName = "edit_job_files",
+        foreignKeys = {
+                @ForeignKey(entity = EditJobEntity.class,
+                        parentColumns = "id",
+                        childColumns = "jobId",
+                        onDelete = ForeignKey.CASCADE),
+                //file of deleted composition can't be edited
+                @ForeignKey(entity = CompositionEntity.class,
+                        parentColumns = "id",
+                        childColumns = "compositionId",
+                        onDelete = ForeignKey.CASCADE)
+        },
+        indices = {
+                @Index("jobId"),
+                @Index("compositionId")
+        }
+)
+public class EditJobFileEntity {
+
+    public static final int FIELD_ARTIST = 1;
+    public static final int FIELD_ALBUM_ARTIST = 1 << 1;
+    public static final int FIELD_ALBUM = 1 << 2;
+    public static final int FIELD_GENRE = 1 << 3;
+
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+
+    private long jobId;
+
+    private long compositionId;
+
+    @Nullable
+    private Long storageId;
+
+    private int fields;
+
+    @NonNull
+    private EditJobFileState state;
+
+    //saved after edit for system media store scan
+    @Nullable
+    private String filePath;
+
+    public EditJobFileEntity(long jobId,
+                             long compositionId,
+                             @Nullable Long storageId,
+                             int fields,
+                             @NonNull EditJobFileState state,
+                             @Nullable String filePath) {
+        this.jobId = jobId;
+        this.compositionId = compositionId;
+        this.storageId = storageId;
+        this.fields = fields;
+        this.state = state;
+        this.filePath = filePath;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public long getJobId() {
+        return jobId;
+    }
+
+    public long getCompositionId() {
+        return compositionId;
+    }
+
+    @Nullable
+    public Long getStorageId() {
+        return storageId;
+    }
+
+    public int getFields() {
+        return fields;
+    }
+
+    @NonNull
+    public EditJobFileState getState() {
+        return state;
+    }
+
+    @Nullable
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public boolean hasField(int field) {
+        return (fields & field) != 0;
+    }
+}
@@ -0,0 +1,12 @@
+package com.github.anrimian.musicplayer.data.database.entities.edit;
+
+public enum EditJobFileState {
+    //file is not edited yet
+    PENDING,
+    //file is edited, but system media store is not notified yet
+    EDITED,
+    //file is edited and system media store is notified
+    SCANNED,
+    //file edit failed, it is retried when job is resumed
+    FAILED
+}
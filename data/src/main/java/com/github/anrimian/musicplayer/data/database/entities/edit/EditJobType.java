@@ -0,0 +1,8 @@
+package com.github.anrimian.musicplayer.data.database.entities.edit;
+
+public enum EditJobType {
+    ALBUM_NAME,
+    ALBUM_ARTIST,
+    ARTIST_NAME,
+    GENRE_NAME
+}
@@ -0,0 +1,62 @@
+package com.github.anrimian.musicplayer.data.database.entities.folder;
+
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.PrimaryKey;
+
+/**
+ * Aggregates of compositions in folder and all its child folders.
+ * Maintained by triggers, see {@link com.github.anrimian.musicplayer.data.database.FoldersTreeIndex}
+ */
+@Entity(tableName = "folders_stats",
+        foreignKeys = {
+                @ForeignKey(entity = FolderEntity.class,
+                        parentColumns = "id",
+                        childColumns = "folderId",
+                        onDelete = ForeignKey.CASCADE)
+        }
+)
+public class FolderStatsEntity {
+
+    @PrimaryKey
+    private final long folderId;
+
+    private final int filesCount;
+    private final long totalSize;
+    private final long totalDuration;
+
+    //0 if folder is empty
+    private final long lastDateAdded;
+
+    public FolderStatsEntity(long folderId,
+                             int filesCount,
+                             long totalSize,
+                             long totalDuration,
+                             long lastDateAdded) {
+        this.folderId = folderId;
+        this.filesCount = filesCount;
+        this.totalSize = totalSize;
+        this.totalDuration = totalDuration;
+        this.lastDateAdded = lastDateAdded;
+    }
+
+    public long getFolderId() {
+        return folderId;
+    }
+
+    public int getFilesCount() {
+        return filesCount;
+    }
+
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    public long getTotalDuration() {
+        return totalDuration;
+    }
+
+    public long getLastDateAdded() {
+        return lastDateAdded;
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.anrimian.musicplayer.data.database.entities.folder;
+
+/**
+ * Folder from depth-first walk of folders hierarchy
+ */
+public class PlayOrderFolder {
+
+    private final long id;
+
+    //depth relative to walk root, root child folders have 0
+    private final int depth;
+
+    //count of compositions directly in folder
+    private final int filesCount;
+
+    public PlayOrderFolder(long id, int depth, int filesCount) {
+        this.id = id;
+        this.depth = depth;
+        this.filesCount = filesCount;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getFilesCount() {
+        return filesCount;
+    }
+}
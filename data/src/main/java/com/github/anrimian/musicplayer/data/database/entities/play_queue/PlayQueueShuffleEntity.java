@@ -0,0 +1,32 @@
+package com.github.anrimian.musicplayer.data.database.entities.play_queue;
+
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Seed of play queue shuffled order. Table contains single row, shuffled order is defined
+ * by this seed and shuffle keys of items.
+ */
+@Entity(tableName = "play_queue_shuffle")
+public class PlayQueueShuffleEntity {
+
+    public static final long SINGLE_ROW_ID = 0;
+
+    @PrimaryKey
+    private long id;
+
+    private long seed;
+
+    public PlayQueueShuffleEntity(long id, long seed) {
+        this.id = id;
+        this.seed = seed;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+}
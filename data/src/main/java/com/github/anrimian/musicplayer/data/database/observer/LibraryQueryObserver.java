@@ -0,0 +1,119 @@
+package com.github.anrimian.musicplayer.data.database.observer;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+
+import com.github.anrimian.musicplayer.data.database.AppDatabase;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.core.BackpressureStrategy;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Scheduler;
+
+/**
+ * Observable queries of library lists.
+ *
+ * Room executes observed query again on each invalidation of its tables, during scan it
+ * happens after each saved batch of files for every opened list. Here invalidations which
+ * come while scan is running are coalesced, so query is executed not more than once per
+ * {@link #SCAN_CHANGES_INTERVAL_MILLIS}. Changes out of scan are delivered immediately, as before.
+ */
+public class LibraryQueryObserver {
+
+    static final long SCAN_CHANGES_INTERVAL_MILLIS = 1000;
+
+    private static final Object INITIAL_QUERY = new Object();
+
+    private final AppDatabase appDatabase;
+    private final Scheduler scheduler;
+
+    private final LibraryQueryStats stats = new LibraryQueryStats();
+
+    private int runningScansCount;
+
+    public LibraryQueryObserver(AppDatabase appDatabase, Scheduler scheduler) {
+        this.appDatabase = appDatabase;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * @param query executed on subscription and after changes of tables
+     * @param tables observed tables
+     */
+    public <T> Observable<T> createObservable(Callable<T> query, String... tables) {
+        return coalesceScanChanges(getInvalidationObservable(tables))
+                //query is not repeated for changes which came while it was executed
+                .toFlowable(BackpressureStrategy.LATEST)
+                .observeOn(scheduler, false, 1)
+                .map(o -> executeQuery(query, o != INITIAL_QUERY))
+                .toObservable();
+    }
+
+    /**
+     * For paged lists, which reload only their loaded pages themselves.
+     *
+     * @param tables observed tables
+     * @return emits after changes of tables, coalesced the same way during scan
+     */
+    public Observable<Object> getChangesObservable(String... tables) {
+        return coalesceScanChanges(getInvalidationObservable(tables).skip(1))
+                .doOnNext(o -> stats.onQueryExecuted(true, isScanRunning()));
+    }
+
+    public synchronized void onScanStarted() {
+        if (runningScansCount++ == 0) {
+            stats.onScanStarted();
+        }
+    }
+
+    public synchronized void onScanFinished() {
+        if (runningScansCount == 0) {
+            return;
+        }
+        if (--runningScansCount == 0) {
+            stats.onScanFinished();
+        }
+    }
+
+    public LibraryQueryStats getStats() {
+        return stats;
+    }
+
+    private synchronized boolean isScanRunning() {
+        return runningScansCount > 0;
+    }
+
+    private Observable<Object> coalesceScanChanges(Observable<Object> changesObservable) {
+        return changesObservable.publish(changes -> Observable.merge(
+                changes.filter(o -> !isScanRunning()),
+                changes.filter(o -> isScanRunning())
+                        .throttleLatest(SCAN_CHANGES_INTERVAL_MILLIS,
+                                TimeUnit.MILLISECONDS,
+                                scheduler,
+                                true)));
+    }
+
+    private <T> T executeQuery(Callable<T> query, boolean isReExecution) throws Exception {
+        stats.onQueryExecuted(isReExecution, isScanRunning());
+        return query.call();
+    }
+
+    private Observable<Object> getInvalidationObservable(String[] tables) {
+        return Observable.create(emitter -> {
+            InvalidationTracker tracker = appDatabase.getInvalidationTracker();
+            InvalidationTracker.Observer observer = new InvalidationTracker.Observer(tables) {
+                @Override
+                public void onInvalidated(@NonNull Set<String> tables) {
+                    emitter.onNext(tables);
+                }
+            };
+            tracker.addObserver(observer);
+            emitter.setCancellable(() -> tracker.removeObserver(observer));
+            //after observer registration, so changes made during the first query are not missed
+            emitter.onNext(INITIAL_QUERY);
+        });
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.anrimian.musicplayer.data.database.observer;
+
+/**
+ * Counters of {@link LibraryQueryObserver}, thread safe
+ */
+public class LibraryQueryStats {
+
+    private long queryExecutions;
+    private long queryReExecutions;
+    private long scansCompleted;
+    private long currentScanReExecutions;
+    private long lastScanReExecutions;
+
+    /**
+     * @return all executions including initial load of subscribed queries
+     */
+    public synchronized long getQueryExecutions() {
+        return queryExecutions;
+    }
+
+    /**
+     * @return executions caused by changes of observed tables
+     */
+    public synchronized long getQueryReExecutions() {
+        return queryReExecutions;
+    }
+
+    public synchronized long getScansCompleted() {
+        return scansCompleted;
+    }
+
+    /**
+     * @return re-executions since start of the running scan
+     */
+    public synchronized long getCurrentScanReExecutions() {
+        return currentScanReExecutions;
+    }
+
+    public synchronized long getLastScanReExecutions() {
+        return lastScanReExecutions;
+    }
+
+    synchronized void onQueryExecuted(boolean isReExecution, boolean isScanRunning) {
+        queryExecutions++;
+        if (!isReExecution) {
+            return;
+        }
+        queryReExecutions++;
+        if (isScanRunning) {
+            currentScanReExecutions++;
+        }
+    }
+
+    synchronized void onScanStarted() {
+        currentScanReExecutions = 0;
+    }
+
+    synchronized void onScanFinished() {
+        scansCompleted++;
+        lastScanReExecutions = currentScanReExecutions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "LibraryQueryStats{" +
+                "queryExecutions=" + queryExecutions +
+                ", queryReExecutions=" + queryReExecutions +
+                ", scansCompleted=" + scansCompleted +
+                ", currentScanReExecutions=" + currentScanReExecutions +
+                ", lastScanReExecutions=" + lastScanReExecutions +
+                '}';
+    }
+}
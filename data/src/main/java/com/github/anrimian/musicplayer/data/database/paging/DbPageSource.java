@@ -0,0 +1,71 @@
+package com.github.anrimian.musicplayer.data.database.paging;
+
+import android.database.Cursor;
+
+import androidx.sqlite.db.SimpleSQLiteQuery;
+
+import com.github.anrimian.musicplayer.data.database.AppDatabase;
+import com.github.anrimian.musicplayer.domain.utils.functions.Mapper;
+import com.github.anrimian.musicplayer.domain.utils.paging.PageSource;
+
+import java.util.Collections;
+import java.util.List;
+
+import io.reactivex.rxjava3.core.Observable;
+
+/**
+ * Page source of database query, pages are selected by {@link KeysetQuery}
+ */
+public class DbPageSource<T> implements PageSource<T> {
+
+    private final AppDatabase appDatabase;
+    private final KeysetQuery query;
+    private final Mapper<SimpleSQLiteQuery, List<T>> queryExecutor;
+    private final Mapper<T, Long> idMapper;
+    private final Observable<Object> invalidationObservable;
+
+    /**
+     * @param queryExecutor raw query method of dao
+     * @param invalidationObservable changes of query tables
+     */
+    public DbPageSource(AppDatabase appDatabase,
+                        KeysetQuery query,
+                        Mapper<SimpleSQLiteQuery, List<T>> queryExecutor,
+                        Mapper<T, Long> idMapper,
+                        Observable<Object> invalidationObservable) {
+        this.appDatabase = appDatabase;
+        this.query = query;
+        this.queryExecutor = queryExecutor;
+        this.idMapper = idMapper;
+        this.invalidationObservable = invalidationObservable;
+    }
+
+    @Override
+    public int getCount() {
+        try (Cursor c = appDatabase.query(query.getCountQuery())) {
+            return c.moveToFirst()? c.getInt(0) : 0;
+        }
+    }
+
+    @Override
+    public List<T> loadRange(int offset, int limit) {
+        return queryExecutor.map(query.getRangeQuery(offset, limit));
+    }
+
+    @Override
+    public List<T> loadAfter(T item, int limit) {
+        return queryExecutor.map(query.getAfterQuery(idMapper.map(item), limit));
+    }
+
+    @Override
+    public List<T> loadBefore(T item, int limit) {
+        List<T> items = queryExecutor.map(query.getBeforeQuery(idMapper.map(item), limit));
+        Collections.reverse(items);
+        return items;
+    }
+
+    @Override
+    public Observable<Object> getInvalidationObservable() {
+        return invalidationObservable;
+    }
+}
@@ -0,0 +1,218 @@
+package com.github.anrimian.musicplayer.data.database.paging;
+
+import androidx.sqlite.db.SimpleSQLiteQuery;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds queries of page source: count, page by offset and pages before and after anchor item.
+ * <p>
+ * Keyset pages are selected by sort values of anchor item, so they don't depend on offset.
+ * Sort values are selected by anchor id from {@link #anchorFrom} with subqueries, domain models
+ * don't have to contain them. Id is the last sort term, so order is strict.
+ * <p>
+ * Row values are not supported on api 21, so keyset condition is expanded by terms:
+ * {@code t1 >= a1 AND (t1 > a1 OR (t1 = a1 AND t2 > a2) OR ... OR (... AND id > ?))}.
+ * Leading condition lets sqlite seek index of the first term.
+ * Sort expressions must not be null.
+ */
+public class KeysetQuery {
+
+    private final String selectQuery;
+    private final String anchorFrom;
+    private final String idColumn;
+
+    private final List<String> conditions = new ArrayList<>();
+    private final List<Object> conditionArgs = new ArrayList<>();
+    private final List<OrderTerm> orderTerms = new ArrayList<>();
+
+    /**
+     * @param selectQuery select query without where and order clauses
+     * @param anchorFrom table or join with sort expressions columns, for anchor values
+     * @param idColumn unique column, the same in select query and anchor table
+     */
+    public KeysetQuery(String selectQuery, String anchorFrom, String idColumn) {
+        this.selectQuery = selectQuery;
+        this.anchorFrom = anchorFrom;
+        this.idColumn = idColumn;
+    }
+
+    public KeysetQuery where(String condition, Object... args) {
+        conditions.add(condition);
+        conditionArgs.addAll(Arrays.asList(args));
+        return this;
+    }
+
+    /**
+     * @param args args of expression, bound at each occurrence of expression
+     */
+    public KeysetQuery orderBy(String expression, boolean descending, Object... args) {
+        orderTerms.add(new OrderTerm(expression, descending, args));
+        return this;
+    }
+
+    public SimpleSQLiteQuery getCountQuery() {
+        QueryBuilder builder = new QueryBuilder();
+        builder.append("SELECT count() FROM (");
+        builder.append(selectQuery);
+        appendWhere(builder, null, false);
+        builder.append(")");
+        return builder.build();
+    }
+
+    public SimpleSQLiteQuery getRangeQuery(int offset, int limit) {
+        QueryBuilder builder = new QueryBuilder();
+        builder.append(selectQuery);
+        appendWhere(builder, null, false);
+        appendOrder(builder, false);
+        builder.append(" LIMIT " + limit + " OFFSET " + offset);
+        return builder.build();
+    }
+
+    public SimpleSQLiteQuery getAfterQuery(long anchorId, int limit) {
+        QueryBuilder builder = new QueryBuilder();
+        builder.append(selectQuery);
+        appendWhere(builder, anchorId, false);
+        appendOrder(builder, false);
+        builder.append(" LIMIT " + limit);
+        return builder.build();
+    }
+
+    /**
+     * @return items before anchor in reversed order
+     */
+    public SimpleSQLiteQuery getBeforeQuery(long anchorId, int limit) {
+        QueryBuilder builder = new QueryBuilder();
+        builder.append(selectQuery);
+        appendWhere(builder, anchorId, true);
+        appendOrder(builder, true);
+        builder.append(" LIMIT " + limit);
+        return builder.build();
+    }
+
+    private void appendWhere(QueryBuilder builder, Long anchorId, boolean backward) {
+        if (conditions.isEmpty() && anchorId == null) {
+            return;
+        }
+        builder.append(" WHERE ");
+        for (int i = 0; i < conditions.size(); i++) {
+            if (i > 0) {
+                builder.append(" AND ");
+            }
+            builder.append("(");
+            builder.append(conditions.get(i));
+            builder.append(")");
+        }
+        builder.addArgs(conditionArgs.toArray());
+        if (anchorId == null) {
+            return;
+        }
+        if (!conditions.isEmpty()) {
+            builder.append(" AND ");
+        }
+        appendKeysetCondition(builder, anchorId, backward);
+    }
+
+    private void appendKeysetCondition(QueryBuilder builder, long anchorId, boolean backward) {
+        List<OrderTerm> terms = getTermsWithId();
+        int count = terms.size();
+        if (count > 1) {
+            OrderTerm first = terms.get(0);
+            appendComparison(builder, first, anchorId, getOperator(first, backward) + "=");
+            builder.append(" AND ");
+        }
+        builder.append("(");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(" OR ");
+            }
+            builder.append("(");
+            for (int j = 0; j < i; j++) {
+                appendComparison(builder, terms.get(j), anchorId, "=");
+                builder.append(" AND ");
+            }
+            OrderTerm term = terms.get(i);
+            appendComparison(builder, term, anchorId, getOperator(term, backward));
+            builder.append(")");
+        }
+        builder.append(")");
+    }
+
+    private void appendComparison(QueryBuilder builder,
+                                  OrderTerm term,
+                                  long anchorId,
+                                  String operator) {
+        builder.append(term.expression);
+        builder.addArgs(term.args);
+        builder.append(" " + operator + " ");
+        if (term.expression.equals(idColumn)) {
+            builder.append("?");
+            builder.addArgs(anchorId);
+            return;
+        }
+        builder.append("(SELECT ");
+        builder.append(term.expression);
+        builder.addArgs(term.args);
+        builder.append(" FROM " + anchorFrom + " WHERE " + idColumn + " = ?)");
+        builder.addArgs(anchorId);
+    }
+
+    private void appendOrder(QueryBuilder builder, boolean reversed) {
+        builder.append(" ORDER BY ");
+        List<OrderTerm> terms = getTermsWithId();
+        for (int i = 0; i < terms.size(); i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            OrderTerm term = terms.get(i);
+            builder.append(term.expression);
+            builder.addArgs(term.args);
+            builder.append(term.descending != reversed? " DESC" : " ASC");
+        }
+    }
+
+    //id goes in direction of the last term, so the whole order can use index of last term
+    private List<OrderTerm> getTermsWithId() {
+        List<OrderTerm> terms = new ArrayList<>(orderTerms);
+        boolean descending = !orderTerms.isEmpty()
+                && orderTerms.get(orderTerms.size() - 1).descending;
+        terms.add(new OrderTerm(idColumn, descending, new Object[0]));
+        return terms;
+    }
+
+    private static String getOperator(OrderTerm term, boolean backward) {
+        return term.descending != backward? "<" : ">";
+    }
+
+    private static class OrderTerm {
+        final String expression;
+        final boolean descending;
+        final Object[] args;
+
+        OrderTerm(String expression, boolean descending, Object[] args) {
+            this.expression = expression;
+            this.descending = descending;
+            this.args = args;
+        }
+    }
+
+    //keeps args in order of placeholders
+    private static class QueryBuilder {
+        final StringBuilder query = new StringBuilder();
+        final List<Object> args = new ArrayList<>();
+
+        void append(String text) {
+            query.append(text);
+        }
+
+        void addArgs(Object... args) {
+            this.args.addAll(Arrays.asList(args));
+        }
+
+        SimpleSQLiteQuery build() {
+            return new SimpleSQLiteQuery(query.toString(), args.toArray());
+        }
+    }
+}
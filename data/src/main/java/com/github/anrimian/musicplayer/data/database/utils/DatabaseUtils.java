@@ -2,8 +2,42 @@ package com.github.anrimian.musicplayer.data.database.utils;
 
 import static com.github.anrimian.musicplayer.domain.utils.TextUtils.isEmpty;
 
+import javax.annotation.Nullable;
+
 public class DatabaseUtils {
 
+    /**
+     * @param column column to search in or null to search in all columns
+     * @return full text search query which matches all words of text by prefix
+     * or null if text has no words
+     */
+    @Nullable
+    public static String getFtsMatchQuery(@Nullable String text, @Nullable String column) {
+        if (isEmpty(text)) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        //split like unicode61 tokenizer. Quotes and operators are dropped, words with * are not keywords
+        for (String word: text.split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            if (column != null) {
+                sb.append(column);
+                sb.append(':');
+            }
+            sb.append(word);
+            sb.append('*');
+        }
+        if (sb.length() == 0) {
+            return null;
+        }
+        return sb.toString();
+    }
+
     public static String[] getSearchArgs(String arg, int count) {
         if (isEmpty(arg)) {
             arg = null;
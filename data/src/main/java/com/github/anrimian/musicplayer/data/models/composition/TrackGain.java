@@ -0,0 +1,29 @@
+package com.github.anrimian.musicplayer.data.models.composition;
+
+import javax.annotation.Nullable;
+
+public class TrackGain {
+
+    //replay gain in dB, relative to -18 LUFS reference
+    @Nullable
+    private final Float trackGain;
+
+    //sample peak, 1 is full scale
+    @Nullable
+    private final Float trackPeak;
+
+    public TrackGain(@Nullable Float trackGain, @Nullable Float trackPeak) {
+        this.trackGain = trackGain;
+        this.trackPeak = trackPeak;
+    }
+
+    @Nullable
+    public Float getTrackGain() {
+        return trackGain;
+    }
+
+    @Nullable
+    public Float getTrackPeak() {
+        return trackPeak;
+    }
+}
@@ -1,11 +1,14 @@
 package com.github.anrimian.musicplayer.data.repositories.equalizer;
 
+import com.github.anrimian.musicplayer.data.controllers.music.equalizer.EqualizerType;
 import com.github.anrimian.musicplayer.data.controllers.music.equalizer.internal.InternalEqualizer;
+import com.github.anrimian.musicplayer.data.controllers.music.equalizer.software.SoftwareEqualizer;
 import com.github.anrimian.musicplayer.domain.models.equalizer.EqInitializationState;
 import com.github.anrimian.musicplayer.domain.models.equalizer.EqualizerConfig;
 import com.github.anrimian.musicplayer.domain.models.equalizer.EqualizerState;
 import com.github.anrimian.musicplayer.domain.models.equalizer.Preset;
 import com.github.anrimian.musicplayer.domain.repositories.EqualizerRepository;
+import com.github.anrimian.musicplayer.domain.repositories.SettingsRepository;
 
 import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.core.Single;
@@ -13,39 +16,72 @@ import io.reactivex.rxjava3.core.Single;
 public class EqualizerRepositoryImpl implements EqualizerRepository {
 
     private final InternalEqualizer internalEqualizer;
+    private final SoftwareEqualizer softwareEqualizer;
+    private final SettingsRepository settingsRepository;
 
-    public EqualizerRepositoryImpl(InternalEqualizer internalEqualizer) {
+    public EqualizerRepositoryImpl(InternalEqualizer internalEqualizer,
+                                   SoftwareEqualizer softwareEqualizer,
+                                   SettingsRepository settingsRepository) {
         this.internalEqualizer = internalEqualizer;
+        this.softwareEqualizer = softwareEqualizer;
+        this.settingsRepository = settingsRepository;
     }
 
     @Override
     public Single<EqualizerConfig> getEqualizerConfig() {
-        return internalEqualizer.getEqualizerConfig();
+        return Single.defer(() -> {
+            if (isSoftwareEqualizerSelected()) {
+                return softwareEqualizer.getEqualizerConfig();
+            }
+            return internalEqualizer.getEqualizerConfig();
+        });
     }
 
     @Override
     public Observable<EqualizerState> getEqualizerStateObservable() {
-        return internalEqualizer.getEqualizerStateObservable();
+        return settingsRepository.getSelectedEqualizerTypeObservable()
+                .map(this::isSoftwareEqualizer)
+                .distinctUntilChanged()
+                .switchMap(isSoftware -> isSoftware?
+                        softwareEqualizer.getEqualizerStateObservable() :
+                        internalEqualizer.getEqualizerStateObservable());
     }
 
     @Override
     public void setBandLevel(short bandNumber, short level) {
+        if (isSoftwareEqualizerSelected()) {
+            softwareEqualizer.setBandLevel(bandNumber, level);
+            return;
+        }
         internalEqualizer.setBandLevel(bandNumber, level);
     }
 
     @Override
     public void saveBandLevel() {
+        if (isSoftwareEqualizerSelected()) {
+            softwareEqualizer.saveBandLevel();
+            return;
+        }
         internalEqualizer.saveBandLevel();
     }
 
     @Override
     public void setPreset(Preset preset) {
+        if (isSoftwareEqualizerSelected()) {
+            softwareEqualizer.setPreset(preset);
+            return;
+        }
         internalEqualizer.setPreset(preset);
     }
 
     @Override
     public Observable<EqInitializationState> getEqInitializationState() {
-        return internalEqualizer.getEqInitializationState();
+        return settingsRepository.getSelectedEqualizerTypeObservable()
+                .map(this::isSoftwareEqualizer)
+                .distinctUntilChanged()
+                .switchMap(isSoftware -> isSoftware?
+                        softwareEqualizer.getEqInitializationState() :
+                        internalEqualizer.getEqInitializationState());
     }
 
     @Override
@@ -53,4 +89,12 @@ public class EqualizerRepositoryImpl implements EqualizerRepository {
         internalEqualizer.tryToReattachEqualizer();
     }
 
+    private boolean isSoftwareEqualizerSelected() {
+        return isSoftwareEqualizer(settingsRepository.getSelectedEqualizerType());
+    }
+
+    private boolean isSoftwareEqualizer(int type) {
+        return type == EqualizerType.SOFTWARE;
+    }
+
 }
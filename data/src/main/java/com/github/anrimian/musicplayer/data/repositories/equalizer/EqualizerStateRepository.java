@@ -21,6 +21,7 @@ import static com.github.anrimian.musicplayer.data.repositories.equalizer.Equali
 import static com.github.anrimian.musicplayer.data.repositories.equalizer.EqualizerStateRepository.Constants.EQUALIZER_STATE;
 import static com.github.anrimian.musicplayer.data.repositories.equalizer.EqualizerStateRepository.Constants.PREFERENCES_NAME;
 import static com.github.anrimian.musicplayer.data.repositories.equalizer.EqualizerStateRepository.Constants.SELECTED_PRESET;
+import static com.github.anrimian.musicplayer.data.repositories.equalizer.EqualizerStateRepository.Constants.SOFTWARE_EQUALIZER_STATE;
 
 
 public class EqualizerStateRepository {
@@ -29,6 +30,7 @@ public class EqualizerStateRepository {
         String PREFERENCES_NAME = "equalizer_preferences";
 
         String EQUALIZER_STATE = "equalizer_state";
+        String SOFTWARE_EQUALIZER_STATE = "software_equalizer_state";
 
         String SELECTED_PRESET = "selected_preset";
         String BAND_NUMBER = "band_number";
@@ -39,13 +41,23 @@ public class EqualizerStateRepository {
     public static final short NO_PRESET = -1;
 
     private final SharedPreferencesHelper preferences;
+    private final String stateKey;
 
     private EqualizerState cachedEqualizerState;
 
+    public static EqualizerStateRepository softwareEqualizerStateRepository(Context context) {
+        return new EqualizerStateRepository(context, SOFTWARE_EQUALIZER_STATE);
+    }
+
     public EqualizerStateRepository(Context context) {
+        this(context, EQUALIZER_STATE);
+    }
+
+    private EqualizerStateRepository(Context context, String stateKey) {
         SharedPreferences sharedPreferences = context.getSharedPreferences(PREFERENCES_NAME,
                 Context.MODE_PRIVATE);
         this.preferences = new SharedPreferencesHelper(sharedPreferences);
+        this.stateKey = stateKey;
     }
 
     public void saveEqualizerState(EqualizerState state) {
@@ -60,7 +72,7 @@ public class EqualizerStateRepository {
                 bands.put(obj);
             }
             jsonObject.put(BANDS, bands);
-            preferences.putString(EQUALIZER_STATE, jsonObject.toString());
+            preferences.putString(stateKey, jsonObject.toString());
         } catch (JSONException e) {
             throw new RuntimeException(e);
         }
@@ -74,7 +86,7 @@ public class EqualizerStateRepository {
         }
 
         try {
-            String rawData = preferences.getString(EQUALIZER_STATE);
+            String rawData = preferences.getString(stateKey);
             if (rawData == null) {
                 return null;
             }
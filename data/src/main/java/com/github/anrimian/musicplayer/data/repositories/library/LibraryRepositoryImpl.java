@@ -20,6 +20,7 @@ import com.github.anrimian.musicplayer.domain.models.genres.Genre;
 import com.github.anrimian.musicplayer.domain.models.genres.ShortGenre;
 import com.github.anrimian.musicplayer.domain.repositories.LibraryRepository;
 import com.github.anrimian.musicplayer.domain.repositories.SettingsRepository;
+import com.github.anrimian.musicplayer.domain.utils.paging.PageSource;
 
 import java.util.LinkedList;
 import java.util.List;
@@ -37,6 +38,9 @@ import io.reactivex.rxjava3.core.Single;
 
 public class LibraryRepositoryImpl implements LibraryRepository {
 
+    //small enough to start playback quickly, large enough to keep count of queue writes low
+    private static final int COMPOSITIONS_PAGE_SIZE = 500;
+
     private final StorageFilesDataSource storageFilesDataSource;
     private final CompositionsDaoWrapper compositionsDao;
     private final ArtistsDaoWrapper artistsDao;
@@ -74,6 +78,16 @@ public class LibraryRepositoryImpl implements LibraryRepository {
                 );
     }
 
+    @Override
+    public Observable<PageSource<Composition>> getAllCompositionsPageSourceObservable(@Nullable String searchText) {
+        return settingsPreferences.getDisplayFileNameObservable()
+                .map(useFileName -> compositionsDao.getAllPageSource(
+                        settingsPreferences.getCompositionsOrder(),
+                        useFileName,
+                        searchText)
+                );
+    }
+
     @Override
     public Observable<FullComposition> getCompositionObservable(long id) {
         return compositionsDao.getCompositionObservable(id);
@@ -85,12 +99,24 @@ public class LibraryRepositoryImpl implements LibraryRepository {
                 .switchMap(order -> artistsDao.getAllObservable(order, searchText));
     }
 
+    @Override
+    public Observable<PageSource<Artist>> getArtistsPageSourceObservable(@Nullable String searchText) {
+        return settingsPreferences.getArtistsOrderObservable()
+                .map(order -> artistsDao.getAllPageSource(order, searchText));
+    }
+
     @Override
     public Observable<List<Album>> getAlbumsObservable(@Nullable String searchText) {
         return settingsPreferences.getAlbumsOrderObservable()
                 .switchMap(order -> albumsDao.getAllObservable(order, searchText));
     }
 
+    @Override
+    public Observable<PageSource<Album>> getAlbumsPageSourceObservable(@Nullable String searchText) {
+        return settingsPreferences.getAlbumsOrderObservable()
+                .map(order -> albumsDao.getAllPageSource(order, searchText));
+    }
+
     @Override
     public Observable<List<Genre>> getGenresObservable(@Nullable String searchText) {
         return settingsPreferences.getGenresOrderObservable()
@@ -167,6 +193,20 @@ public class LibraryRepositoryImpl implements LibraryRepository {
                 );
     }
 
+    @Override
+    public Observable<PageSource<FileSource>> getFilesPageSourceObservable(@Nullable Long folderId,
+                                                                           @Nullable String searchQuery) {
+        return settingsPreferences.getFolderOrderObservable()
+                .switchMap(order -> settingsPreferences.getDisplayFileNameObservable()
+                        .map(useFileName -> foldersDao.getFilesPageSource(
+                                folderId,
+                                order,
+                                useFileName,
+                                searchQuery)
+                        )
+                );
+    }
+
     @Override
     public Observable<FolderFileSource> getFolderObservable(long folderId) {
         return foldersDao.getFolderObservable(folderId);
@@ -184,6 +224,24 @@ public class LibraryRepositoryImpl implements LibraryRepository {
                 .subscribeOn(scheduler);
     }
 
+    @Override
+    public Observable<List<Composition>> getAllCompositionsInFolderPages(@Nullable Long folderId) {
+        return foldersDao.getAllCompositionsInFolderPages(folderId,
+                settingsPreferences.getFolderOrder(),
+                settingsPreferences.isDisplayFileNameEnabled(),
+                COMPOSITIONS_PAGE_SIZE
+        ).subscribeOn(scheduler);
+    }
+
+    @Override
+    public Observable<List<Composition>> getAllCompositionsInFoldersPages(Iterable<FileSource> fileSources) {
+        return foldersDao.getAllCompositionsPages(fileSources,
+                settingsPreferences.getFolderOrder(),
+                settingsPreferences.isDisplayFileNameEnabled(),
+                COMPOSITIONS_PAGE_SIZE
+        ).subscribeOn(scheduler);
+    }
+
     @Override
     public Completable writeErrorAboutComposition(CorruptionType corruptionType, Composition composition) {
         return Completable.fromAction(() -> compositionsDao.setCorruptionType(corruptionType, composition.getId()))
@@ -1,5 +1,9 @@
 package com.github.anrimian.musicplayer.data.repositories.library.edit;
 
+import static com.github.anrimian.musicplayer.data.database.entities.edit.EditJobFileEntity.FIELD_ALBUM;
+import static com.github.anrimian.musicplayer.data.database.entities.edit.EditJobFileEntity.FIELD_ALBUM_ARTIST;
+import static com.github.anrimian.musicplayer.data.database.entities.edit.EditJobFileEntity.FIELD_ARTIST;
+import static com.github.anrimian.musicplayer.data.database.entities.edit.EditJobFileEntity.FIELD_GENRE;
 import static com.github.anrimian.musicplayer.domain.Constants.TRIGGER;
 
 import androidx.core.util.Pair;
@@ -9,6 +13,7 @@ import com.github.anrimian.musicplayer.data.database.dao.artist.ArtistsDaoWrappe
 import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDaoWrapper;
 import com.github.anrimian.musicplayer.data.database.dao.folders.FoldersDaoWrapper;
 import com.github.anrimian.musicplayer.data.database.dao.genre.GenresDaoWrapper;
+import com.github.anrimian.musicplayer.data.database.entities.edit.EditJobType;
 import com.github.anrimian.musicplayer.data.models.composition.CompositionId;
 import com.github.anrimian.musicplayer.data.repositories.library.edit.exceptions.AlbumAlreadyExistsException;
 import com.github.anrimian.musicplayer.data.repositories.library.edit.exceptions.ArtistAlreadyExistsException;
@@ -18,14 +23,16 @@ import com.github.anrimian.musicplayer.data.repositories.library.edit.exceptions
 import com.github.anrimian.musicplayer.data.repositories.library.edit.exceptions.GenreAlreadyExistsException;
 import com.github.anrimian.musicplayer.data.repositories.library.edit.exceptions.MoveFolderToItselfException;
 import com.github.anrimian.musicplayer.data.repositories.library.edit.exceptions.MoveInTheSameFolderException;
+import com.github.anrimian.musicplayer.data.repositories.library.edit.jobs.EditJobRunner;
 import com.github.anrimian.musicplayer.data.storage.files.StorageFilesDataSource;
-import com.github.anrimian.musicplayer.data.storage.providers.genres.StorageGenresProvider;
 import com.github.anrimian.musicplayer.data.storage.providers.music.FilePathComposition;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageMusicProvider;
 import com.github.anrimian.musicplayer.data.storage.source.CompositionSourceEditor;
+import com.github.anrimian.musicplayer.domain.models.albums.Album;
 import com.github.anrimian.musicplayer.domain.models.composition.Composition;
 import com.github.anrimian.musicplayer.domain.models.composition.FullComposition;
 import com.github.anrimian.musicplayer.domain.models.composition.source.CompositionSourceTags;
+import com.github.anrimian.musicplayer.domain.models.editor.EditJobProgress;
 import com.github.anrimian.musicplayer.domain.models.folders.FileSource;
 import com.github.anrimian.musicplayer.domain.models.folders.FolderFileSource;
 import com.github.anrimian.musicplayer.domain.models.genres.ShortGenre;
@@ -37,10 +44,10 @@ import com.github.anrimian.musicplayer.domain.utils.Objects;
 
 import java.util.Collection;
 import java.util.Date;
-import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nullable;
@@ -62,9 +69,9 @@ public class EditorRepositoryImpl implements EditorRepository {
     private final GenresDaoWrapper genresDao;
     private final FoldersDaoWrapper foldersDao;
     private final StorageMusicProvider storageMusicProvider;
-    private final StorageGenresProvider storageGenresProvider;
     private final StateRepository stateRepository;
     private final SettingsRepository settingsRepository;
+    private final EditJobRunner editJobRunner;
     private final Scheduler scheduler;
 
     public EditorRepositoryImpl(CompositionSourceEditor sourceEditor,
@@ -75,9 +82,9 @@ public class EditorRepositoryImpl implements EditorRepository {
                                 GenresDaoWrapper genresDao,
                                 FoldersDaoWrapper foldersDao,
                                 StorageMusicProvider storageMusicProvider,
-                                StorageGenresProvider storageGenresProvider,
                                 StateRepository stateRepository,
                                 SettingsRepository settingsRepository,
+                                EditJobRunner editJobRunner,
                                 Scheduler scheduler) {
         this.sourceEditor = sourceEditor;
         this.filesDataSource = filesDataSource;
@@ -87,9 +94,9 @@ public class EditorRepositoryImpl implements EditorRepository {
         this.genresDao = genresDao;
         this.foldersDao = foldersDao;
         this.storageMusicProvider = storageMusicProvider;
-        this.storageGenresProvider = storageGenresProvider;
         this.stateRepository = stateRepository;
         this.settingsRepository = settingsRepository;
+        this.editJobRunner = editJobRunner;
         this.scheduler = scheduler;
     }
 
@@ -273,56 +280,27 @@ public class EditorRepositoryImpl implements EditorRepository {
     @Override
     public Completable updateAlbumName(String name, long albumId) {
         return checkAlbumExists(name)
-                .andThen(Single.fromCallable(() -> albumsDao.getCompositionsInAlbum(albumId)))
-                .flatMap(compositions -> sourceEditor.setCompositionsAlbum(compositions, name))
-                .doOnSuccess(compositions -> {
-                    albumsDao.updateAlbumName(name, albumId);
-                    for (CompositionId composition: compositions) {
-                        runSystemRescan(composition);
-                    }
-                })
-                .ignoreElement()
+                .andThen(Single.fromCallable(() -> getJobFiles(albumsDao.getCompositionsInAlbum(albumId), FIELD_ALBUM)))
+                .flatMapCompletable(files -> editJobRunner.runJob(EditJobType.ALBUM_NAME, albumId, name, null, files))
                 .subscribeOn(scheduler);
     }
 
     @Override
     public Completable updateAlbumArtist(String newArtistName, long albumId) {
-        return Single.fromCallable(() -> albumsDao.getCompositionsInAlbum(albumId))
-                .flatMap(compositions -> sourceEditor.setCompositionsAlbumArtist(compositions, newArtistName))
-                .doOnSuccess(compositions -> {
-                    albumsDao.updateAlbumArtist(albumId, newArtistName);
-                    for (CompositionId composition: compositions) {
-                        runSystemRescan(composition);
-                    }
-                })
-                .ignoreElement()
+        return Single.fromCallable(() -> getJobFiles(albumsDao.getCompositionsInAlbum(albumId), FIELD_ALBUM_ARTIST))
+                .flatMapCompletable(files -> editJobRunner.runJob(EditJobType.ALBUM_ARTIST,
+                        albumId,
+                        newArtistName,
+                        null,
+                        files))
                 .subscribeOn(scheduler);
     }
 
     @Override
     public Completable updateArtistName(String name, long artistId) {
-        Set<CompositionId> compositionsToScan = new LinkedHashSet<>();
         return checkArtistExists(name)
-
-                .andThen(Single.fromCallable(() -> artistsDao.getCompositionsByArtist(artistId)))
-                .doOnSuccess(compositionsToScan::addAll)
-                .flatMapObservable(Observable::fromIterable)
-                .flatMapCompletable(composition -> sourceEditor.setCompositionAuthor(composition, name))
-
-                .andThen(Single.fromCallable(() -> albumsDao.getAllAlbumsForArtist(artistId)))
-                .flatMapObservable(Observable::fromIterable)
-                .flatMapCompletable(album -> Single.fromCallable(() -> albumsDao.getCompositionsInAlbum(album.getId()))
-                        .doOnSuccess(compositionsToScan::addAll)
-                        .flatMapObservable(Observable::fromIterable)
-                        .flatMapCompletable(composition -> sourceEditor.setCompositionAlbumArtist(composition, name))
-                )
-                .doOnComplete(() -> {
-                    artistsDao.updateArtistName(name, artistId);
-
-                    for (CompositionId composition: compositionsToScan) {
-                        runSystemRescan(composition);
-                    }
-                })
+                .andThen(Single.fromCallable(() -> getArtistJobFiles(artistId)))
+                .flatMapCompletable(files -> editJobRunner.runJob(EditJobType.ARTIST_NAME, artistId, name, null, files))
                 .subscribeOn(scheduler);
     }
 
@@ -330,17 +308,19 @@ public class EditorRepositoryImpl implements EditorRepository {
     public Completable updateGenreName(String name, long genreId) {
         return checkGenreExists(name)
                 .andThen(Single.fromCallable(() -> genresDao.getGenreName(genreId)))
-                .flatMapCompletable(oldName -> Single.fromCallable(() -> genresDao.getCompositionsInGenre(genreId))
-                        .flatMapObservable(Observable::fromIterable)
-                        .flatMapCompletable(composition -> sourceEditor.changeCompositionGenre(composition, oldName, name))
-                        .doOnComplete(() -> {
-                            genresDao.updateGenreName(name, genreId);
-                            storageGenresProvider.updateGenreName(oldName, name);
-                        })
-                )
+                .flatMapCompletable(oldName -> editJobRunner.runJob(EditJobType.GENRE_NAME,
+                        genreId,
+                        name,
+                        oldName,
+                        getJobFiles(genresDao.getCompositionsInGenre(genreId), FIELD_GENRE)))
                 .subscribeOn(scheduler);
     }
 
+    @Override
+    public Observable<EditJobProgress> getEditJobProgressObservable() {
+        return editJobRunner.getProgressObservable();
+    }
+
     @Override
     public Single<String[]> getCompositionFileGenres(FullComposition composition) {
         return sourceEditor.getCompositionGenres(composition)
@@ -409,6 +389,26 @@ public class EditorRepositoryImpl implements EditorRepository {
         });
     }
 
+    //composition can be in artist and album artist lists, so it's collected into one edit
+    private Map<CompositionId, Integer> getArtistJobFiles(long artistId) {
+        Map<CompositionId, Integer> files = getJobFiles(artistsDao.getCompositionsByArtist(artistId), FIELD_ARTIST);
+        for (Album album: albumsDao.getAllAlbumsForArtist(artistId)) {
+            for (CompositionId composition: albumsDao.getCompositionsInAlbum(album.getId())) {
+                Integer fields = files.get(composition);
+                files.put(composition, fields == null? FIELD_ALBUM_ARTIST : fields | FIELD_ALBUM_ARTIST);
+            }
+        }
+        return files;
+    }
+
+    private Map<CompositionId, Integer> getJobFiles(List<CompositionId> compositions, int fields) {
+        Map<CompositionId, Integer> files = new LinkedHashMap<>();
+        for (CompositionId composition: compositions) {
+            files.put(composition, fields);
+        }
+        return files;
+    }
+
     private void onCompositionFileChanged(FullComposition composition, long newSize) {
         compositionsDao.updateModifyTimeAndSize(composition.getId(), newSize, new Date());
         runSystemRescan(composition);
@@ -481,13 +481,6 @@ public class EditorRepositoryImpl implements EditorRepository {
         });
     }
 
-    private void runSystemRescan(CompositionId composition) {
-        Long storageId = composition.getStorageId();
-        if (storageId != null) {
-            storageMusicProvider.scanMedia(storageId);
-        }
-    }
-
     private void runSystemRescan(FullComposition composition) {
         Long storageId = composition.getStorageId();
         if (storageId != null) {
@@ -0,0 +1,346 @@
+package com.github.anrimian.musicplayer.data.repositories.library.edit.jobs;
+
+import static com.github.anrimian.musicplayer.data.database.entities.edit.EditJobFileEntity.FIELD_ALBUM;
+import static com.github.anrimian.musicplayer.data.database.entities.edit.EditJobFileEntity.FIELD_ALBUM_ARTIST;
+import static com.github.anrimian.musicplayer.data.database.entities.edit.EditJobFileEntity.FIELD_ARTIST;
+import static com.github.anrimian.musicplayer.data.database.entities.edit.EditJobFileEntity.FIELD_GENRE;
+
+import com.github.anrimian.musicplayer.data.database.dao.albums.AlbumsDaoWrapper;
+import com.github.anrimian.musicplayer.data.database.dao.artist.ArtistsDaoWrapper;
+import com.github.anrimian.musicplayer.data.database.dao.edit.EditJobsDaoWrapper;
+import com.github.anrimian.musicplayer.data.database.dao.genre.GenresDaoWrapper;
+import com.github.anrimian.musicplayer.data.database.entities.edit.EditJobEntity;
+import com.github.anrimian.musicplayer.data.database.entities.edit.EditJobFileEntity;
+import com.github.anrimian.musicplayer.data.database.entities.edit.EditJobFileState;
+import com.github.anrimian.musicplayer.data.database.entities.edit.EditJobType;
+import com.github.anrimian.musicplayer.data.models.composition.CompositionId;
+import com.github.anrimian.musicplayer.data.storage.providers.genres.StorageGenresProvider;
+import com.github.anrimian.musicplayer.data.storage.providers.music.StorageMusicProvider;
+import com.github.anrimian.musicplayer.data.storage.source.CompositionSourceEditor;
+import com.github.anrimian.musicplayer.data.storage.source.TagEditBatch;
+import com.github.anrimian.musicplayer.domain.interactors.analytics.Analytics;
+import com.github.anrimian.musicplayer.domain.models.editor.EditJobProgress;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Nullable;
+
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.subjects.BehaviorSubject;
+import io.reactivex.rxjava3.subjects.CompletableSubject;
+
+/**
+ * Runs bulk tag edits of albums, artists and genres.
+ *
+ * Job and state of each file are journaled in database before edit starts, so job is
+ * continued from the first not edited file after process death, see {@link #resumeJobs()}.
+ * Library is updated when all files are processed, then journal record is removed.
+ * Files which failed to edit are marked in journal and don't stop the job, they are not retried:
+ * after the first full pass library is updated for edited files, failed files are reported
+ * and job is finished.
+ * System media store is notified about edited files by batches.
+ */
+public class EditJobRunner {
+
+    private static final int MAX_PARALLEL_EDITS = 4;
+    private static final int SCAN_BATCH_SIZE = 100;
+
+    private static final EditJobProgress NO_PROGRESS = new EditJobProgress(0, 0, 0f);
+
+    private final EditJobsDaoWrapper editJobsDao;
+    private final CompositionSourceEditor sourceEditor;
+    private final AlbumsDaoWrapper albumsDao;
+    private final ArtistsDaoWrapper artistsDao;
+    private final GenresDaoWrapper genresDao;
+    private final StorageMusicProvider storageMusicProvider;
+    private final StorageGenresProvider storageGenresProvider;
+    private final Analytics analytics;
+    private final Scheduler scheduler;
+
+    private final BehaviorSubject<EditJobProgress> progressSubject = BehaviorSubject.createDefault(NO_PROGRESS);
+    private final Map<Long, JobProgress> activeJobs = new HashMap<>();
+    //results of active jobs, repeated run of active job waits for the same result
+    private final Map<Long, Completable> activeJobResults = new HashMap<>();
+
+    public EditJobRunner(EditJobsDaoWrapper editJobsDao,
+                         CompositionSourceEditor sourceEditor,
+                         AlbumsDaoWrapper albumsDao,
+                         ArtistsDaoWrapper artistsDao,
+                         GenresDaoWrapper genresDao,
+                         StorageMusicProvider storageMusicProvider,
+                         StorageGenresProvider storageGenresProvider,
+                         Analytics analytics,
+                         Scheduler scheduler) {
+        this.editJobsDao = editJobsDao;
+        this.sourceEditor = sourceEditor;
+        this.albumsDao = albumsDao;
+        this.artistsDao = artistsDao;
+        this.genresDao = genresDao;
+        this.storageMusicProvider = storageMusicProvider;
+        this.storageGenresProvider = storageGenresProvider;
+        this.analytics = analytics;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Job is not cancelled on unsubscribe, it is continued in background
+     *
+     * @param files compositions and masks of their edited fields, see {@link EditJobFileEntity}
+     * @return completable which completes when library is updated
+     */
+    public Completable runJob(EditJobType type,
+                              long targetId,
+                              String newName,
+                              @Nullable String oldName,
+                              Map<CompositionId, Integer> files) {
+        return Single.fromCallable(() -> editJobsDao.createJob(
+                new EditJobEntity(type, targetId, newName, oldName, new Date()),
+                files))
+                .flatMapCompletable(this::execute)
+                .subscribeOn(scheduler);
+    }
+
+    /**
+     * Continues jobs which were interrupted by process death
+     */
+    public void resumeJobs() {
+        Observable.fromCallable(editJobsDao::getJobs)
+                .flatMapIterable(jobs -> jobs)
+                .concatMapCompletable(job -> execute(job).doOnError(analytics::processNonFatalError)
+                        .onErrorComplete())
+                .subscribeOn(scheduler)
+                .subscribe(() -> {}, analytics::processNonFatalError);
+    }
+
+    public Observable<EditJobProgress> getProgressObservable() {
+        return progressSubject;
+    }
+
+    private Completable execute(EditJobEntity job) {
+        long jobId = job.getId();
+        CompletableSubject subject = CompletableSubject.create();
+        synchronized (activeJobs) {
+            Completable activeJobResult = activeJobResults.get(jobId);
+            if (activeJobResult != null) {
+                return activeJobResult;
+            }
+            activeJobs.put(jobId, new JobProgress(0, 0));
+            activeJobResults.put(jobId, subject);
+        }
+        //first error of file edit, reported when all files are processed
+        AtomicReference<Throwable> fileError = new AtomicReference<>();
+        //files edited before process death
+        Completable.fromAction(() -> scanEditedFiles(jobId))
+                .andThen(Single.fromCallable(() -> editJobsDao.getFiles(jobId, EditJobFileState.PENDING)))
+                .flatMapCompletable(files -> editFiles(job, files, fileError))
+                .andThen(Completable.defer(() -> onJobCompleted(job, fileError.get())))
+                .onErrorResumeNext(throwable -> onJobFailed(job, throwable))
+                .doFinally(() -> onJobFinished(jobId))
+                .subscribeOn(scheduler)
+                .subscribe(subject);
+        return subject;
+    }
+
+    private Completable editFiles(EditJobEntity job,
+                                  List<EditJobFileEntity> files,
+                                  AtomicReference<Throwable> fileError) {
+        long jobId = job.getId();
+        int totalFiles = editJobsDao.getFilesCount(jobId);
+        synchronized (activeJobs) {
+            activeJobs.put(jobId, new JobProgress(totalFiles, totalFiles - files.size()));
+        }
+        updateProgress();
+
+        //flowable is used because observable has no concurrency limit for single mapping
+        return Flowable.fromIterable(files)
+                .flatMapMaybe(file -> editFile(job, file, fileError).subscribeOn(scheduler),
+                        false,
+                        MAX_PARALLEL_EDITS)
+                .doOnNext(path -> onFileEdited(jobId))
+                .buffer(SCAN_BATCH_SIZE)
+                .doOnNext(batch -> scanEditedFiles(jobId))
+                .ignoreElements();
+    }
+
+    /**
+     * @return path of edited file or nothing if edit failed
+     */
+    private Maybe<String> editFile(EditJobEntity job,
+                                   EditJobFileEntity file,
+                                   AtomicReference<Throwable> fileError) {
+        CompositionId composition = new CompositionId(file.getCompositionId(), file.getStorageId());
+        return sourceEditor.editTagsOfFile(composition, createTagEdit(job, file))
+                .doOnSuccess(path -> editJobsDao.setFileEdited(file.getId(), path))
+                .toMaybe()
+                .onErrorResumeNext(throwable -> {
+                    editJobsDao.setFileFailed(file.getId());
+                    fileError.compareAndSet(null, throwable);
+                    return Maybe.empty();
+                });
+    }
+
+    private void scanEditedFiles(long jobId) {
+        List<EditJobFileEntity> files = editJobsDao.getFiles(jobId, EditJobFileState.EDITED);
+        if (files.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(files.size());
+        List<String> paths = new ArrayList<>(files.size());
+        for (EditJobFileEntity file: files) {
+            ids.add(file.getId());
+            if (file.getFilePath() != null) {
+                paths.add(file.getFilePath());
+            }
+        }
+        storageMusicProvider.scanMedia(paths);
+        editJobsDao.setFilesScanned(ids);
+    }
+
+    /**
+     * Updates library if any file was edited and removes job. Files of job which was replaced
+     * by newer job of the same target are already removed, so library is not updated for it.
+     *
+     * @param fileError first error of file edit or null if all files were edited
+     */
+    private Completable onJobCompleted(EditJobEntity job, @Nullable Throwable fileError) {
+        long jobId = job.getId();
+        List<EditJobFileEntity> failedFiles = editJobsDao.getFiles(jobId, EditJobFileState.FAILED);
+        boolean hasEditedFiles = failedFiles.size() < editJobsDao.getFilesCount(jobId);
+        editJobsDao.completeJob(jobId, () -> {
+            if (hasEditedFiles) {
+                updateLibrary(job);
+            }
+        });
+        if (failedFiles.isEmpty()) {
+            return Completable.complete();
+        }
+        List<CompositionId> notEditedCompositions = new ArrayList<>(failedFiles.size());
+        for (EditJobFileEntity file: failedFiles) {
+            notEditedCompositions.add(new CompositionId(file.getCompositionId(), file.getStorageId()));
+        }
+        Throwable error = fileError == null? new IllegalStateException("files not edited") : fileError;
+        return storageMusicProvider.processStorageError(error, notEditedCompositions);
+    }
+
+    private void updateLibrary(EditJobEntity job) {
+        String newName = job.getNewName();
+        long targetId = job.getTargetId();
+        switch (job.getType()) {
+            case ALBUM_NAME: {
+                albumsDao.updateAlbumName(newName, targetId);
+                break;
+            }
+            case ALBUM_ARTIST: {
+                albumsDao.updateAlbumArtist(targetId, newName);
+                break;
+            }
+            case ARTIST_NAME: {
+                artistsDao.updateArtistName(newName, targetId);
+                break;
+            }
+            case GENRE_NAME: {
+                genresDao.updateGenreName(newName, targetId);
+                storageGenresProvider.updateGenreName(job.getOldName(), newName);
+                break;
+            }
+        }
+    }
+
+    //job is not completed, it stays in journal and is continued on resume
+    private Completable onJobFailed(EditJobEntity job, Throwable throwable) {
+        return Completable.defer(() -> {
+            long jobId = job.getId();
+            List<CompositionId> notEditedCompositions = new ArrayList<>();
+            for (EditJobFileEntity file: editJobsDao.getFiles(jobId, EditJobFileState.PENDING)) {
+                notEditedCompositions.add(new CompositionId(file.getCompositionId(), file.getStorageId()));
+            }
+            scanEditedFiles(jobId);
+            return storageMusicProvider.processStorageError(throwable, notEditedCompositions);
+        });
+    }
+
+    private void onFileEdited(long jobId) {
+        synchronized (activeJobs) {
+            JobProgress progress = activeJobs.get(jobId);
+            if (progress != null) {
+                progress.editedFiles++;
+            }
+        }
+        updateProgress();
+    }
+
+    private void onJobFinished(long jobId) {
+        synchronized (activeJobs) {
+            activeJobs.remove(jobId);
+            activeJobResults.remove(jobId);
+        }
+        updateProgress();
+    }
+
+    private void updateProgress() {
+        int totalFiles = 0;
+        int editedFiles = 0;
+        float filesPerSecond = 0f;
+        synchronized (activeJobs) {
+            long currentTime = System.nanoTime();
+            for (JobProgress progress: activeJobs.values()) {
+                totalFiles += progress.totalFiles;
+                editedFiles += progress.editedFiles;
+                filesPerSecond += progress.getFilesPerSecond(currentTime);
+            }
+        }
+        progressSubject.onNext(new EditJobProgress(totalFiles, editedFiles, filesPerSecond));
+    }
+
+    private static TagEditBatch createTagEdit(EditJobEntity job, EditJobFileEntity file) {
+        String newName = job.getNewName();
+        TagEditBatch batch = new TagEditBatch();
+        if (file.hasField(FIELD_ARTIST)) {
+            batch.setArtist(newName);
+        }
+        if (file.hasField(FIELD_ALBUM_ARTIST)) {
+            batch.setAlbumArtist(newName);
+        }
+        if (file.hasField(FIELD_ALBUM)) {
+            batch.setAlbum(newName);
+        }
+        if (file.hasField(FIELD_GENRE)) {
+            batch.changeGenre(job.getOldName(), newName);
+        }
+        return batch;
+    }
+
+    private static class JobProgress {
+
+        final int totalFiles;
+        //files edited before this run are not counted in throughput
+        final int startEditedFiles;
+        final long startTime = System.nanoTime();
+        int editedFiles;
+
+        JobProgress(int totalFiles, int editedFiles) {
+            this.totalFiles = totalFiles;
+            this.startEditedFiles = editedFiles;
+            this.editedFiles = editedFiles;
+        }
+
+        float getFilesPerSecond(long currentTime) {
+            long time = currentTime - startTime;
+            if (time <= 0) {
+                return 0f;
+            }
+            return (editedFiles - startEditedFiles) * (float) TimeUnit.SECONDS.toNanos(1) / time;
+        }
+    }
+}
@@ -19,6 +19,7 @@ import javax.annotation.Nullable;
 import io.reactivex.rxjava3.core.BackpressureStrategy;
 import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Maybe;
 import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.core.Scheduler;
 import io.reactivex.rxjava3.core.Single;
@@ -115,7 +116,20 @@ public class PlayQueueRepositoryImpl implements PlayQueueRepository {
             long nextQueueItemId = playQueueDao.getNextQueueItemId(currentItemId, isShuffled);
             setCurrentItem(nextQueueItemId);
 
-            return playQueueDao.getPosition(nextQueueItemId, isShuffled);
+            return playQueueDao.getIndexPosition(nextQueueItemId, isShuffled);
+        }).subscribeOn(scheduler);
+    }
+
+    @Override
+    public Maybe<PlayQueueItem> getNextQueueItem() {
+        return Maybe.fromCallable(() -> {
+            long currentItemId = uiStatePreferences.getCurrentQueueItemId();
+            if (currentItemId == NO_ITEM) {
+                return null;
+            }
+            boolean isShuffled = settingsPreferences.isRandomPlayingEnabled();
+            long nextQueueItemId = playQueueDao.getNextQueueItemId(currentItemId, isShuffled);
+            return playQueueDao.getItem(nextQueueItemId, settingsPreferences.isDisplayFileNameEnabled());
         }).subscribeOn(scheduler);
     }
 
@@ -191,7 +205,7 @@ public class PlayQueueRepositoryImpl implements PlayQueueRepository {
                     isShuffled
             );
             return currentPosition == playQueueDao.getLastPosition(isShuffled);
-        });
+        }).subscribeOn(scheduler);
     }
 
     @Override
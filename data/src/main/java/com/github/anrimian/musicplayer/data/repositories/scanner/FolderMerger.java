@@ -1,10 +1,9 @@
 package com.github.anrimian.musicplayer.data.repositories.scanner;
 
-import androidx.collection.LongSparseArray;
-
 import com.github.anrimian.musicplayer.data.repositories.scanner.folders.FolderNode;
 import com.github.anrimian.musicplayer.data.repositories.scanner.nodes.AddedNode;
 import com.github.anrimian.musicplayer.data.repositories.scanner.nodes.LocalFolderNode;
+import com.github.anrimian.musicplayer.data.utils.collections.LongHashMap;
 
 import java.util.List;
 
@@ -16,7 +15,7 @@ public class FolderMerger {
                                  LocalFolderNode<Long> currentFoldersNode,
                                  List<Long> outFoldersToDelete,
                                  List<AddedNode> outFoldersToInsert,
-                                 LongSparseArray<Long> outAddedFilesFolderMap) {
+                                 LongHashMap<Long> outAddedFilesFolderMap) {
         for (Long file: actualFolderNode.getFiles()) {
             if (!currentFoldersNode.containsFile(file)) {
                 outAddedFilesFolderMap.put(file, currentFoldersNode.getId());
@@ -47,7 +46,7 @@ public class FolderMerger {
     }
 
     private void collectAllNewFilesInNode(FolderNode<Long> parentNode,
-                                          LongSparseArray<Long> outAddedFilesFolderMap) {
+                                          LongHashMap<Long> outAddedFilesFolderMap) {
         for (Long file: parentNode.getFiles()) {
             outAddedFilesFolderMap.put(file, UNKNOWN_CURRENT_FOLDER_ID);
         }
@@ -4,32 +4,39 @@ import android.database.sqlite.SQLiteCantOpenDatabaseException;
 import android.database.sqlite.SQLiteDiskIOException;
 
 import androidx.collection.LongSparseArray;
-import androidx.core.util.Pair;
 
 import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDaoWrapper;
 import com.github.anrimian.musicplayer.data.database.dao.genre.GenresDaoWrapper;
 import com.github.anrimian.musicplayer.data.database.entities.IdPair;
+import com.github.anrimian.musicplayer.data.repositories.scanner.MediaStoreChangePipeline.CancellationSignal;
 import com.github.anrimian.musicplayer.data.repositories.scanner.files.FileScanner;
+import com.github.anrimian.musicplayer.data.repositories.scanner.loudness.LoudnessScanner;
 import com.github.anrimian.musicplayer.data.storage.exceptions.ContentResolverQueryException;
 import com.github.anrimian.musicplayer.data.storage.providers.genres.StorageGenre;
 import com.github.anrimian.musicplayer.data.storage.providers.genres.StorageGenreItem;
 import com.github.anrimian.musicplayer.data.storage.providers.genres.StorageGenresProvider;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageFullComposition;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageMusicProvider;
+import com.github.anrimian.musicplayer.data.storage.providers.music.StorageWatermark;
 import com.github.anrimian.musicplayer.data.storage.providers.playlists.StoragePlayList;
 import com.github.anrimian.musicplayer.data.storage.providers.playlists.StoragePlayListsProvider;
 import com.github.anrimian.musicplayer.data.utils.collections.AndroidCollectionUtils;
+import com.github.anrimian.musicplayer.data.utils.collections.LongHashMap;
 import com.github.anrimian.musicplayer.domain.interactors.analytics.Analytics;
 import com.github.anrimian.musicplayer.domain.models.scanner.FileScannerState;
+import com.github.anrimian.musicplayer.domain.models.scanner.Idle;
 import com.github.anrimian.musicplayer.domain.repositories.LoggerRepository;
 import com.github.anrimian.musicplayer.domain.repositories.MediaScannerRepository;
 import com.github.anrimian.musicplayer.domain.repositories.SettingsRepository;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import javax.annotation.Nullable;
+
 import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.core.Scheduler;
@@ -49,11 +56,16 @@ public class MediaScannerRepositoryImpl implements MediaScannerRepository {
     private final StorageCompositionAnalyzer compositionAnalyzer;
     private final StoragePlaylistAnalyzer playlistAnalyzer;
     private final FileScanner fileScanner;
+    private final LoudnessScanner loudnessScanner;
+    private final MediaStoreChangePipeline changePipeline;
     private final LoggerRepository loggerRepository;
     private final Analytics analytics;
     private final Scheduler scheduler;
 
     private final CompositeDisposable mediaStoreDisposable = new CompositeDisposable();
+
+    @Nullable
+    private volatile StorageWatermark storageWatermark;
     private final LongSparseArray<Disposable> genreEntriesDisposable = new LongSparseArray<>();
 
     public MediaScannerRepositoryImpl(StorageMusicProvider musicProvider,
@@ -65,6 +77,8 @@ public class MediaScannerRepositoryImpl implements MediaScannerRepository {
                                       StorageCompositionAnalyzer compositionAnalyzer,
                                       StoragePlaylistAnalyzer playlistAnalyzer,
                                       FileScanner fileScanner,
+                                      LoudnessScanner loudnessScanner,
+                                      MediaStoreChangePipeline changePipeline,
                                       LoggerRepository loggerRepository,
                                       Analytics analytics,
                                       Scheduler scheduler) {
@@ -77,6 +91,8 @@ public class MediaScannerRepositoryImpl implements MediaScannerRepository {
         this.compositionAnalyzer = compositionAnalyzer;
         this.playlistAnalyzer = playlistAnalyzer;
         this.fileScanner = fileScanner;
+        this.loudnessScanner = loudnessScanner;
+        this.changePipeline = changePipeline;
         this.loggerRepository = loggerRepository;
         this.analytics = analytics;
         this.scheduler = scheduler;
@@ -112,14 +128,23 @@ public class MediaScannerRepositoryImpl implements MediaScannerRepository {
     }
 
     private void subscribeOnMediaStoreChanges() {
-        mediaStoreDisposable.add(getCompositionsObservable()
-                .subscribeOn(scheduler)
-                .observeOn(scheduler)
-                .doOnNext(compositionAnalyzer::applyCompositionsData)
+        mediaStoreDisposable.add(changePipeline.getScansObservable(
+                musicProvider.getCompositionsChangeObservable().subscribeOn(scheduler),
+                (uris, signal) -> syncCompositions(
+                        settingsRepository.getAudioFileMinDurationMillis(),
+                        settingsRepository.isShowAllAudioFilesEnabled(),
+                        signal))
                 .doOnNext(o -> fileScanner.scheduleFileScanner())
                 .retry(RETRY_COUNT, this::isStandardError)
                 .onErrorComplete(this::isStandardError)
                 .subscribe(o -> {}));
+        //loudness analysis is heavy, run it only when file scanner is idle
+        mediaStoreDisposable.add(Observable.combineLatest(
+                settingsRepository.getLoudnessNormalizationEnabledObservable(),
+                fileScanner.getStateObservable(),
+                (enabled, state) -> enabled && state == Idle.INSTANCE)
+                .distinctUntilChanged()
+                .subscribe(this::onLoudnessScannerStateChanged));
         mediaStoreDisposable.add(playListsProvider.getPlayListsObservable()
                 .subscribeOn(scheduler)
                 .doOnNext(playlistAnalyzer::applyPlayListData)
@@ -135,29 +160,24 @@ public class MediaScannerRepositoryImpl implements MediaScannerRepository {
 //        subscribeOnGenresData();
     }
 
-    //update on change settings not working
-    private Observable<LongSparseArray<StorageFullComposition>> getCompositionsObservable() {
-        return Observable.combineLatest(
-                settingsRepository.getAudioFileMinDurationMillisObservable(),
-                settingsRepository.getShowAllAudioFilesEnabledObservable(),
-                Pair::new
-        ).switchMap(settings -> musicProvider.getCompositionsObservable(
-                settings.first,
-                settings.second
-        ));
+    private void onLoudnessScannerStateChanged(boolean canRun) {
+        if (canRun) {
+            loudnessScanner.scheduleLoudnessScanner();
+        } else {
+            loudnessScanner.stopLoudnessScanner();
+        }
     }
 
     private Completable runRescanStorage() {
         return Completable.fromAction(() -> {
-            LongSparseArray<StorageFullComposition> compositions = musicProvider.getCompositions(
+            boolean synced = runFullCompositionsSync(
                     settingsRepository.getAudioFileMinDurationMillis(),
                     settingsRepository.isShowAllAudioFilesEnabled()
             );
-            if (compositions == null) {
+            if (!synced) {
                 return;
             }
-            compositionAnalyzer.applyCompositionsData(compositions);
-            LongSparseArray<StoragePlayList> playlists = playListsProvider.getPlayLists();
+            LongHashMap<StoragePlayList> playlists = playListsProvider.getPlayLists();
             if (playlists == null) {
                 return;
             }
@@ -177,6 +197,88 @@ public class MediaScannerRepositoryImpl implements MediaScannerRepository {
                 .subscribeOn(scheduler);
     }
 
+    private boolean runFullCompositionsSync(long minAudioDurationMillis,
+                                            boolean showAllAudioFiles) {
+        return runFullCompositionsSync(minAudioDurationMillis, showAllAudioFiles, () -> false);
+    }
+
+    private synchronized boolean runFullCompositionsSync(long minAudioDurationMillis,
+                                                         boolean showAllAudioFiles,
+                                                         CancellationSignal signal) {
+        StorageWatermark watermark = musicProvider.getWatermark();
+        LongHashMap<StorageFullComposition> compositions = musicProvider.getCompositions(
+                minAudioDurationMillis,
+                showAllAudioFiles
+        );
+        if (compositions == null || signal.isCancelled()) {
+            return false;
+        }
+        compositionAnalyzer.applyCompositionsData(compositions);
+        storageWatermark = watermark;
+        return true;
+    }
+
+    /**
+     * Reads only compositions changed since last sync, deleted compositions are detected by
+     * ids set. Falls back to full sync when there is no previous sync or changes touch folders structure.
+     * Cancelled sync is stopped before database changes, newer sync will apply them.
+     */
+    private synchronized void syncCompositions(long minAudioDurationMillis,
+                                               boolean showAllAudioFiles,
+                                               CancellationSignal signal) {
+        StorageWatermark lastWatermark = storageWatermark;
+        if (lastWatermark == null) {
+            runFullCompositionsSync(minAudioDurationMillis, showAllAudioFiles, signal);
+            return;
+        }
+
+        StorageWatermark newWatermark = musicProvider.getWatermark();
+        long[] actualIds = musicProvider.getCompositionIds(minAudioDurationMillis, showAllAudioFiles);
+        LongHashMap<StorageFullComposition> changedCompositions = musicProvider.getCompositionsChangedSince(
+                minAudioDurationMillis,
+                showAllAudioFiles,
+                lastWatermark
+        );
+        if (newWatermark == null || actualIds == null || changedCompositions == null
+                || signal.isCancelled()) {
+            return;
+        }
+
+        long[] currentIds = compositionsDao.selectAllStorageIds();
+        List<Long> deletedIds = new ArrayList<>();
+        for (long id: currentIds) {
+            if (Arrays.binarySearch(actualIds, id) < 0) {
+                deletedIds.add(id);
+            }
+        }
+
+        //modify date of new files can be older than watermark(copy with attributes), so select them by ids
+        long[] unknownIds = new long[actualIds.length];
+        int unknownIdsCount = 0;
+        for (long id: actualIds) {
+            if (Arrays.binarySearch(currentIds, id) < 0 && !changedCompositions.containsKey(id)) {
+                unknownIds[unknownIdsCount++] = id;
+            }
+        }
+        if (unknownIdsCount > 0) {
+            LongHashMap<StorageFullComposition> unknownCompositions = musicProvider.getCompositions(
+                    minAudioDurationMillis,
+                    showAllAudioFiles,
+                    Arrays.copyOf(unknownIds, unknownIdsCount)
+            );
+            if (unknownCompositions == null || signal.isCancelled()) {
+                return;
+            }
+            changedCompositions.putAll(unknownCompositions);
+        }
+
+        if (compositionAnalyzer.applyCompositionsDelta(changedCompositions, deletedIds)) {
+            storageWatermark = newWatermark;
+        } else {
+            runFullCompositionsSync(minAudioDurationMillis, showAllAudioFiles, signal);
+        }
+    }
+
     private Completable processError(Throwable throwable) {
         if (isStandardError(throwable)) {
             if (isStandardUnwantedError(throwable)) {
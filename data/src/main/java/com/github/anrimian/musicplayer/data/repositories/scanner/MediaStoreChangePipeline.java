@@ -0,0 +1,190 @@
+package com.github.anrimian.musicplayer.data.repositories.scanner;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Nullable;
+
+import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.ObservableEmitter;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.disposables.Disposable;
+
+/**
+ * Turns bursts of media store change notifications into a bounded number of scans.
+ * Notifications are coalesced by uri until there is no new notification during debounce window
+ * or max delay passes since the first pending notification. Debounce window follows average
+ * scan duration, so slow scans are started less often.
+ * Newer batch of changes cancels running scan. Scan is not interrupted, it must check
+ * cancellation signal and skip applying of results which are already outdated.
+ */
+public class MediaStoreChangePipeline {
+
+    private static final long MIN_WINDOW_MILLIS = 1000;
+    private static final long MAX_WINDOW_MILLIS = 10_000;
+    private static final long MAX_DELAY_MILLIS = 20_000;
+
+    private final Scheduler timerScheduler;
+    private final Scheduler scanScheduler;
+    private final long minWindowMillis;
+    private final long maxWindowMillis;
+    private final long maxDelayMillis;
+
+    private final MediaStoreChangeStats stats = new MediaStoreChangeStats();
+
+    public MediaStoreChangePipeline(Scheduler timerScheduler, Scheduler scanScheduler) {
+        this(timerScheduler, scanScheduler, MIN_WINDOW_MILLIS, MAX_WINDOW_MILLIS, MAX_DELAY_MILLIS);
+    }
+
+    public MediaStoreChangePipeline(Scheduler timerScheduler,
+                                    Scheduler scanScheduler,
+                                    long minWindowMillis,
+                                    long maxWindowMillis,
+                                    long maxDelayMillis) {
+        this.timerScheduler = timerScheduler;
+        this.scanScheduler = scanScheduler;
+        this.minWindowMillis = minWindowMillis;
+        this.maxWindowMillis = maxWindowMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    /**
+     * @return observable which runs scan for each batch of changed uris and emits batches
+     * of completed scans
+     */
+    public Observable<Set<String>> getScansObservable(Observable<String> changesObservable,
+                                                      ScanAction scanAction) {
+        return getCoalescedChangesObservable(changesObservable)
+                .switchMapMaybe(uris -> runScan(uris, scanAction));
+    }
+
+    public MediaStoreChangeStats getStats() {
+        return stats;
+    }
+
+    long getDebounceWindowMillis() {
+        long averageScanDuration = stats.getAverageScanDurationMillis();
+        return Math.max(minWindowMillis, Math.min(maxWindowMillis, averageScanDuration));
+    }
+
+    Observable<Set<String>> getCoalescedChangesObservable(Observable<String> changesObservable) {
+        return Observable.create(emitter -> {
+            ChangesBuffer buffer = new ChangesBuffer(emitter.serialize());
+            Disposable disposable = changesObservable.subscribe(buffer::onChange,
+                    emitter::tryOnError,
+                    buffer::onComplete);
+            emitter.setCancellable(() -> {
+                disposable.dispose();
+                buffer.dispose();
+            });
+        });
+    }
+
+    private Maybe<Set<String>> runScan(Set<String> uris, ScanAction scanAction) {
+        return Maybe.create(emitter -> {
+            AtomicBoolean cancelled = new AtomicBoolean();
+            emitter.setCancellable(() -> cancelled.set(true));
+            //task is not disposed with subscription to not interrupt running queries
+            scanScheduler.scheduleDirect(() -> {
+                if (cancelled.get()) {
+                    stats.onScanCancelled();
+                    return;
+                }
+                stats.onScanStarted();
+                long startTime = timerScheduler.now(MILLISECONDS);
+                try {
+                    scanAction.scan(uris, cancelled::get);
+                } catch (Exception e) {
+                    emitter.tryOnError(e);
+                    return;
+                }
+                if (cancelled.get()) {
+                    stats.onScanCancelled();
+                    return;
+                }
+                stats.onScanCompleted(timerScheduler.now(MILLISECONDS) - startTime);
+                emitter.onSuccess(uris);
+            });
+        });
+    }
+
+    public interface ScanAction {
+        void scan(Set<String> changedUris, CancellationSignal signal) throws Exception;
+    }
+
+    public interface CancellationSignal {
+        boolean isCancelled();
+    }
+
+    private class ChangesBuffer {
+
+        private final ObservableEmitter<Set<String>> emitter;
+
+        private Set<String> pendingUris = new LinkedHashSet<>();
+        private long firstChangeTime;
+        private long timerId;
+
+        @Nullable
+        private Disposable timerDisposable;
+
+        ChangesBuffer(ObservableEmitter<Set<String>> emitter) {
+            this.emitter = emitter;
+        }
+
+        synchronized void onChange(String uri) {
+            stats.onEventReceived();
+            long now = timerScheduler.now(MILLISECONDS);
+            if (pendingUris.isEmpty()) {
+                firstChangeTime = now;
+            }
+            pendingUris.add(uri);
+
+            cancelTimer();
+            long delay = Math.min(getDebounceWindowMillis(), firstChangeTime + maxDelayMillis - now);
+            long id = ++timerId;
+            timerDisposable = timerScheduler.scheduleDirect(() -> onTimer(id),
+                    Math.max(delay, 0),
+                    MILLISECONDS);
+        }
+
+        synchronized void onComplete() {
+            cancelTimer();
+            flush();
+            emitter.onComplete();
+        }
+
+        synchronized void dispose() {
+            cancelTimer();
+        }
+
+        private synchronized void onTimer(long id) {
+            //timer could fire while it was rescheduled
+            if (id != timerId) {
+                return;
+            }
+            timerDisposable = null;
+            flush();
+        }
+
+        private void flush() {
+            if (pendingUris.isEmpty()) {
+                return;
+            }
+            Set<String> uris = pendingUris;
+            pendingUris = new LinkedHashSet<>();
+            emitter.onNext(uris);
+        }
+
+        private void cancelTimer() {
+            timerId++;
+            if (timerDisposable != null) {
+                timerDisposable.dispose();
+                timerDisposable = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.github.anrimian.musicplayer.data.repositories.scanner;
+
+/**
+ * Counters of {@link MediaStoreChangePipeline}, thread safe
+ */
+public class MediaStoreChangeStats {
+
+    //weight of the last scan in average duration
+    private static final double AVERAGE_WEIGHT = 0.3;
+
+    private long eventsReceived;
+    private long scansStarted;
+    private long scansCancelled;
+    private long scansCompleted;
+    private long lastScanDurationMillis;
+    private long maxScanDurationMillis;
+    private long totalScanDurationMillis;
+    private double averageScanDurationMillis;
+
+    public synchronized long getEventsReceived() {
+        return eventsReceived;
+    }
+
+    public synchronized long getScansStarted() {
+        return scansStarted;
+    }
+
+    public synchronized long getScansCancelled() {
+        return scansCancelled;
+    }
+
+    public synchronized long getScansCompleted() {
+        return scansCompleted;
+    }
+
+    public synchronized long getLastScanDurationMillis() {
+        return lastScanDurationMillis;
+    }
+
+    public synchronized long getMaxScanDurationMillis() {
+        return maxScanDurationMillis;
+    }
+
+    public synchronized long getTotalScanDurationMillis() {
+        return totalScanDurationMillis;
+    }
+
+    /**
+     * @return exponential moving average of completed scans duration
+     */
+    public synchronized long getAverageScanDurationMillis() {
+        return Math.round(averageScanDurationMillis);
+    }
+
+    synchronized void onEventReceived() {
+        eventsReceived++;
+    }
+
+    synchronized void onScanStarted() {
+        scansStarted++;
+    }
+
+    synchronized void onScanCancelled() {
+        scansCancelled++;
+    }
+
+    synchronized void onScanCompleted(long durationMillis) {
+        if (scansCompleted == 0) {
+            averageScanDurationMillis = durationMillis;
+        } else {
+            averageScanDurationMillis += (durationMillis - averageScanDurationMillis) * AVERAGE_WEIGHT;
+        }
+        scansCompleted++;
+        lastScanDurationMillis = durationMillis;
+        maxScanDurationMillis = Math.max(maxScanDurationMillis, durationMillis);
+        totalScanDurationMillis += durationMillis;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "MediaStoreChangeStats{" +
+                "eventsReceived=" + eventsReceived +
+                ", scansStarted=" + scansStarted +
+                ", scansCancelled=" + scansCancelled +
+                ", scansCompleted=" + scansCompleted +
+                ", lastScanDurationMillis=" + lastScanDurationMillis +
+                ", maxScanDurationMillis=" + maxScanDurationMillis +
+                ", averageScanDurationMillis=" + getAverageScanDurationMillis() +
+                '}';
+    }
+}
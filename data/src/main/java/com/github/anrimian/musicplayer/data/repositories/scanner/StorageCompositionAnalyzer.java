@@ -1,7 +1,5 @@
 package com.github.anrimian.musicplayer.data.repositories.scanner;
 
-import androidx.collection.LongSparseArray;
-
 import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDaoWrapper;
 import com.github.anrimian.musicplayer.data.database.dao.compositions.StorageCompositionsInserter;
 import com.github.anrimian.musicplayer.data.database.dao.folders.FoldersDaoWrapper;
@@ -16,14 +14,18 @@ import com.github.anrimian.musicplayer.data.storage.providers.albums.StorageAlbu
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageComposition;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageFullComposition;
 import com.github.anrimian.musicplayer.data.utils.collections.AndroidCollectionUtils;
+import com.github.anrimian.musicplayer.data.utils.collections.LongHashMap;
 import com.github.anrimian.musicplayer.domain.repositories.StateRepository;
 import com.github.anrimian.musicplayer.domain.utils.Objects;
 import com.github.anrimian.musicplayer.domain.utils.TextUtils;
 import com.github.anrimian.musicplayer.domain.utils.validation.DateUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Nullable;
 
@@ -61,8 +63,9 @@ public class StorageCompositionAnalyzer {
 
     //there can be in addedFilesFolderMap composition storage id with non-existing folder id
     public synchronized void applyCompositionsData(
-            LongSparseArray<StorageFullComposition> actualCompositionsMap) {//at the end check file path to relative path migration
-        FolderNode<Long> actualFolderTree = folderTreeBuilder.createFileTree(fromSparseArray(actualCompositionsMap));
+            LongHashMap<StorageFullComposition> actualCompositionsMap) {//at the end check file path to relative path migration
+        FolderNode<Long> actualFolderTree = folderTreeBuilder.createFileTree(
+                Observable.fromIterable(actualCompositionsMap.values()));
 
         StringBuilder sbRootPath = new StringBuilder();
         actualFolderTree = cutEmptyRootNodes(actualFolderTree, sbRootPath);
@@ -72,22 +75,25 @@ public class StorageCompositionAnalyzer {
         excludeCompositions(actualFolderTree, actualCompositionsMap);
 
         List<StorageFolder> storageFolders = foldersDao.getAllFolders();
-        LongSparseArray<StorageComposition> currentCompositionsMap = compositionsDao.selectAllAsStorageCompositions();
+        List<StorageComposition> currentCompositions = compositionsDao.selectAllAsStorageCompositions();
 
         LocalFolderNode<Long> currentFolderTree = nodeTreeBuilder.createTreeFromIdMap(
                 storageFolders,
-                currentCompositionsMap);
+                currentCompositions);
 
         List<Long> foldersToDelete = new LinkedList<>();
         List<AddedNode> foldersToInsert = new LinkedList<>();
-        LongSparseArray<Long> addedFilesFolderMap = new LongSparseArray<>();
+        LongHashMap<Long> addedFilesFolderMap = new LongHashMap<>();
         folderMerger.mergeFolderTrees(actualFolderTree, currentFolderTree, foldersToDelete, foldersToInsert, addedFilesFolderMap);
 
         List<StorageFullComposition> addedCompositions = new ArrayList<>();
         List<StorageComposition> deletedCompositions = new ArrayList<>();
         List<Change<StorageComposition, StorageFullComposition>> changedCompositions = new ArrayList<>();
-        boolean hasChanges = AndroidCollectionUtils.processDiffChanges(currentCompositionsMap,
-                actualCompositionsMap,
+        //both lists are sorted by storage id, so diff is done by merge without lookups
+        boolean hasChanges = AndroidCollectionUtils.processSortedDiffChanges(currentCompositions,
+                actualCompositionsMap.valuesSortedByKey(),
+                StorageComposition::getStorageId,
+                StorageFullComposition::getId,
                 (first, second) -> hasActualChanges(first, second) || addedFilesFolderMap.containsKey(first.getStorageId()),
                 deletedCompositions::add,
                 addedCompositions::add,
@@ -103,8 +109,158 @@ public class StorageCompositionAnalyzer {
         }
     }
 
+    /**
+     * Applies only changed part of media store data without rebuilding of folder trees.
+     *
+     * @param changedCompositionsMap added or modified compositions, keyed by storage id
+     * @param deletedStorageIds storage ids of compositions which are not present in media store anymore
+     * @return false if changes touch folder structure and full sync is required
+     */
+    public synchronized boolean applyCompositionsDelta(
+            LongHashMap<StorageFullComposition> changedCompositionsMap,
+            List<Long> deletedStorageIds) {
+        if (changedCompositionsMap.isEmpty() && deletedStorageIds.isEmpty()) {
+            return true;
+        }
+
+        List<StorageFullComposition> changedCompositionsList = changedCompositionsMap.valuesSortedByKey();
+        List<Long> storageIds = new ArrayList<>(changedCompositionsList.size() + deletedStorageIds.size());
+        for (StorageFullComposition composition: changedCompositionsList) {
+            storageIds.add(composition.getId());
+        }
+        storageIds.addAll(deletedStorageIds);
+        LongHashMap<StorageComposition> currentCompositionsMap = compositionsDao.selectAsStorageCompositions(storageIds);
+
+        String[] rootPath = splitPath(stateRepository.getRootFolderPath());
+        String[] ignoredFolders = foldersDao.getIgnoredFolders();
+        Map<String, Long> folderIdsCache = new HashMap<>();
+
+        List<StorageFullComposition> addedCompositions = new ArrayList<>();
+        List<StorageComposition> deletedCompositions = new ArrayList<>();
+        List<Change<StorageComposition, StorageFullComposition>> changedCompositions = new ArrayList<>();
+        LongHashMap<Long> addedFilesFolderMap = new LongHashMap<>();
+        List<Long> leftFolderIds = new ArrayList<>();
+
+        for (Long storageId: deletedStorageIds) {
+            StorageComposition composition = currentCompositionsMap.get(storageId);
+            if (composition != null) {
+                deletedCompositions.add(composition);
+                leftFolderIds.add(composition.getFolderId());
+            }
+        }
+
+        for (StorageFullComposition composition: changedCompositionsList) {
+            StorageComposition currentComposition = currentCompositionsMap.get(composition.getId());
+
+            String[] path = splitPath(composition.getRelativePath());
+            if (!startsWith(path, rootPath)) {
+                //root folder is changed
+                return false;
+            }
+            String[] folderPath = Arrays.copyOfRange(path, rootPath.length, path.length);
+            if (isInIgnoredFolder(folderPath, ignoredFolders)) {
+                if (currentComposition != null) {
+                    deletedCompositions.add(currentComposition);
+                    leftFolderIds.add(currentComposition.getFolderId());
+                }
+                continue;
+            }
+
+            String folderKey = Arrays.toString(folderPath);
+            Long folderId;
+            if (folderIdsCache.containsKey(folderKey)) {
+                folderId = folderIdsCache.get(folderKey);
+            } else {
+                folderId = findFolderId(folderPath);
+                if (Objects.equals(folderId, FolderMerger.UNKNOWN_CURRENT_FOLDER_ID)) {
+                    //new folder, let tree analyzer insert it
+                    return false;
+                }
+                folderIdsCache.put(folderKey, folderId);
+            }
+
+            if (currentComposition == null) {
+                addedCompositions.add(composition);
+                addedFilesFolderMap.put(composition.getId(), folderId);
+                continue;
+            }
+            boolean isMoved = !Objects.equals(currentComposition.getFolderId(), folderId);
+            if (isMoved) {
+                addedFilesFolderMap.put(composition.getId(), folderId);
+                leftFolderIds.add(currentComposition.getFolderId());
+            }
+            if (isMoved || hasActualChanges(currentComposition, composition)) {
+                changedCompositions.add(new Change<>(currentComposition, composition));
+            }
+        }
+
+        if (!addedCompositions.isEmpty() || !deletedCompositions.isEmpty() || !changedCompositions.isEmpty()) {
+            compositionsInserter.applyChanges(new LinkedList<>(),
+                    addedCompositions,
+                    deletedCompositions,
+                    changedCompositions,
+                    addedFilesFolderMap,
+                    new LinkedList<>());
+        }
+
+        //root files removal can change root folder and empty folders must be deleted, only tree analyzer can handle it
+        if (leftFolderIds.isEmpty()) {
+            return true;
+        }
+        if (leftFolderIds.contains(null)) {
+            return false;
+        }
+        return !foldersDao.hasEmptyFolders(leftFolderIds);
+    }
+
+    private Long findFolderId(String[] folderPath) {
+        Long folderId = null;
+        for (String name: folderPath) {
+            folderId = foldersDao.findFolderId(folderId, name);
+            if (folderId == null) {
+                return FolderMerger.UNKNOWN_CURRENT_FOLDER_ID;
+            }
+        }
+        return folderId;
+    }
+
+    private boolean isInIgnoredFolder(String[] folderPath, String[] ignoredFolders) {
+        for (String ignoredFolder: ignoredFolders) {
+            if (startsWith(folderPath, splitPath(ignoredFolder))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean startsWith(String[] path, String[] prefix) {
+        if (prefix.length > path.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (!prefix[i].equals(path[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //same splitting as in folder tree builder, except empty names which are cut off as root nodes
+    private String[] splitPath(@Nullable String path) {
+        if (TextUtils.isEmpty(path)) {
+            return new String[0];
+        }
+        List<String> result = new ArrayList<>();
+        for (String name: path.split("/")) {
+            if (!name.isEmpty()) {
+                result.add(name);
+            }
+        }
+        return result.toArray(new String[0]);
+    }
+
     private void excludeCompositions(FolderNode<Long> folderTree,
-                                     LongSparseArray<StorageFullComposition> compositions) {
+                                     LongHashMap<StorageFullComposition> compositions) {
         String[] ignoresFolders = foldersDao.getIgnoredFolders();
         for (String ignoredFoldersPath: ignoresFolders) {
 
@@ -165,16 +321,6 @@ public class StorageCompositionAnalyzer {
         return result;
     }
 
-    private <T> Observable<T> fromSparseArray(LongSparseArray<T> sparseArray) {
-        return Observable.create(emitter -> {
-            for(int i = 0, size = sparseArray.size(); i < size; i++) {
-                T existValue = sparseArray.valueAt(i);
-                emitter.onNext(existValue);
-            }
-            emitter.onComplete();
-        });
-    }
-
     private boolean hasActualChanges(StorageComposition first, StorageFullComposition second) {
         if (!DateUtils.isAfter(second.getDateModified(), first.getDateModified())
                 || !DateUtils.isAfter(second.getDateModified(), first.getLastScanDate())) {
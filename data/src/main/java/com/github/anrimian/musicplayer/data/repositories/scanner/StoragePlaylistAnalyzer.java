@@ -1,6 +1,5 @@
 package com.github.anrimian.musicplayer.data.repositories.scanner;
 
-import androidx.collection.LongSparseArray;
 import androidx.core.util.Pair;
 
 import com.github.anrimian.musicplayer.data.database.dao.play_list.PlayListsDaoWrapper;
@@ -10,6 +9,7 @@ import com.github.anrimian.musicplayer.data.storage.providers.playlists.StorageP
 import com.github.anrimian.musicplayer.data.storage.providers.playlists.StoragePlayListItem;
 import com.github.anrimian.musicplayer.data.storage.providers.playlists.StoragePlayListsProvider;
 import com.github.anrimian.musicplayer.data.utils.collections.AndroidCollectionUtils;
+import com.github.anrimian.musicplayer.data.utils.collections.LongHashMap;
 import com.github.anrimian.musicplayer.domain.utils.Objects;
 import com.github.anrimian.musicplayer.domain.utils.validation.DateUtils;
 
@@ -27,9 +27,9 @@ public class StoragePlaylistAnalyzer {
         this.playListsProvider = playListsProvider;
     }
 
-    public synchronized void applyPlayListData(LongSparseArray<StoragePlayList> newPlayLists) {
+    public synchronized void applyPlayListData(LongHashMap<StoragePlayList> newPlayLists) {
         List<AppPlayList> currentPlayLists = playListsDao.getAllAsStoragePlayLists();
-        LongSparseArray<AppPlayList> currentPlayListsMap = AndroidCollectionUtils.mapToSparseArray(currentPlayLists,
+        LongHashMap<AppPlayList> currentPlayListsMap = AndroidCollectionUtils.mapToHashMap(currentPlayLists,
                 AppPlayList::getStorageId);
 
         List<Pair<StoragePlayList, List<StoragePlayListItem>>> addedPlayLists = new ArrayList<>();
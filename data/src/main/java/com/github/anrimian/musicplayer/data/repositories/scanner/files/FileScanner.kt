@@ -1,6 +1,9 @@
 package com.github.anrimian.musicplayer.data.repositories.scanner.files
 
+import androidx.collection.LongSparseArray
 import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDaoWrapper
+import com.github.anrimian.musicplayer.data.database.observer.LibraryQueryObserver
+import com.github.anrimian.musicplayer.data.storage.artwork.ArtworkThumbnailStore
 import com.github.anrimian.musicplayer.data.storage.exceptions.TagReaderException
 import com.github.anrimian.musicplayer.data.storage.source.CompositionSourceEditor
 import com.github.anrimian.musicplayer.domain.Constants.TRIGGER
@@ -11,6 +14,8 @@ import com.github.anrimian.musicplayer.domain.models.scanner.FileScannerState
 import com.github.anrimian.musicplayer.domain.models.scanner.Idle
 import com.github.anrimian.musicplayer.domain.models.scanner.Running
 import com.github.anrimian.musicplayer.domain.repositories.StateRepository
+import io.reactivex.rxjava3.core.Completable
+import io.reactivex.rxjava3.core.Maybe
 import io.reactivex.rxjava3.core.Observable
 import io.reactivex.rxjava3.core.Scheduler
 import io.reactivex.rxjava3.core.Single
@@ -24,22 +29,42 @@ import java.util.concurrent.TimeUnit
 
 private const val RETRY_TIMES = 2L
 private const val READ_FILE_TIMEOUT_SECONDS = 2L
+private const val SCAN_BATCH_SIZE = 50
+private val READ_FILE_THREADS_COUNT = Runtime.getRuntime().availableProcessors()
 
 class FileScanner(
     private val compositionsDao: CompositionsDaoWrapper,
     private val compositionSourceEditor: CompositionSourceEditor,
+    private val artworkThumbnailStore: ArtworkThumbnailStore,
+    private val libraryQueryObserver: LibraryQueryObserver,
     private val stateRepository: StateRepository,
     private val analytics: Analytics,
-    private val scheduler: Scheduler
+    private val scheduler: Scheduler,
+    //timeouts must fire even if all threads of scanner lane are busy with hung reads
+    private val timeoutScheduler: Scheduler
 ) {
 
     private val stateSubject = BehaviorSubject.createDefault<FileScannerState>(Idle)
 
+    private var scanStartTime = 0L
+    private var scannedFiles = 0
+    //full sizes of processed files, tags reader reads only a part of them
+    private var processedFilesSize = 0L
+
+    //covers are not read with tags, so they are prepared with the second read of files
+    //after tags scan, to not slow down the library filling
+    private val artworkCompositionIds = ArrayList<Long>()
+
     @Synchronized
     fun scheduleFileScanner() {
         if (stateSubject.value != Idle) {
             return
         }
+        scanStartTime = System.currentTimeMillis()
+        scannedFiles = 0
+        processedFilesSize = 0L
+        //saved batches change library lists, they are updated with bounded rate until scan end
+        libraryQueryObserver.onScanStarted()
         runFileScanner()
     }
 
@@ -49,41 +74,143 @@ class FileScanner(
         val lastCompleteScanTime = if (
             stateRepository.lastFileScannerVersion == stateRepository.currentFileScannerVersion
         ) 0L else stateRepository.lastCompleteScanTime
-        compositionsDao.selectNextCompositionToScan(lastCompleteScanTime)
+        compositionsDao.selectNextCompositionsToScan(lastCompleteScanTime, SCAN_BATCH_SIZE)
+            .filter(List<FullComposition>::isNotEmpty)
             .doOnComplete(this::onScanCompleted)
             .retry(RETRY_TIMES)
             .doOnError(this::processError)
             .onErrorComplete()
-            .doOnSuccess { composition -> stateSubject.onNext(Running(composition))}
-            .flatMapSingle(this::scanCompositionFile)
+            .flatMapSingle(this::scanCompositionFiles)
             .doOnSuccess { runFileScanner() }
-            .doOnComplete { stateSubject.onNext(Idle) }
+            .doOnComplete(this::onScanFinished)
             .subscribeOn(scheduler)
             .subscribe()
     }
 
+    @Synchronized
+    private fun onScanFinished() {
+        libraryQueryObserver.onScanFinished()
+        stateSubject.onNext(Idle)
+        prepareArtworks()
+    }
+
     private fun onScanCompleted() {
         stateRepository.lastFileScannerVersion = stateRepository.currentFileScannerVersion
         stateRepository.lastCompleteScanTime = System.currentTimeMillis()
     }
 
-    private fun scanCompositionFile(composition: FullComposition): Single<*> {
+    private fun scanCompositionFiles(compositions: List<FullComposition>): Single<*> {
+        return Observable.fromIterable(compositions)
+            .flatMap(
+                { composition -> readCompositionFile(composition).toObservable() },
+                READ_FILE_THREADS_COUNT
+            )
+            .collect(
+                { LongSparseArray<CompositionSourceTags>(compositions.size) },
+                { tagsMap, (id, tags) -> tagsMap.put(id, tags) }
+            )
+            .flatMapCompletable { tagsMap -> saveScanResults(compositions, tagsMap) }
+            .doOnComplete { onBatchSaved(compositions) }
+            .toSingleDefault(TRIGGER)
+    }
+
+    @Synchronized
+    private fun onBatchSaved(compositions: List<FullComposition>) {
+        compositions.mapTo(artworkCompositionIds, FullComposition::getId)
+    }
+
+    //covers are prepared in advance instead of parsing files on list scrolling,
+    //files are read one by one, so the pass does not compete with other file reads
+    private fun prepareArtworks() {
+        if (artworkCompositionIds.isEmpty()) {
+            return
+        }
+        val ids = ArrayList(artworkCompositionIds)
+        artworkCompositionIds.clear()
+        Observable.fromIterable(ids)
+            .concatMapCompletable(this::prepareArtwork)
+            .subscribeOn(scheduler)
+            .subscribe()
+    }
+
+    private fun prepareArtwork(compositionId: Long): Completable {
+        return Completable.fromAction {
+            //tags update changes modify date, so the actual one is taken
+            val dateModified = compositionsDao.getDateModified(compositionId)
+            if (dateModified != null) {
+                artworkThumbnailStore.prepareThumbnails(compositionId, dateModified)
+            }
+        }
+            //optional step, thumbnail will be created on the first request
+            .onErrorComplete()
+    }
+
+    private fun readCompositionFile(
+        composition: FullComposition
+    ): Maybe<Pair<Long, CompositionSourceTags>> {
         return Single.just(composition)
             .flatMap(this::getFullTags)
-            .timeout(READ_FILE_TIMEOUT_SECONDS, TimeUnit.SECONDS, scheduler)
-            .doOnSuccess { tags -> compositionsDao.updateCompositionBySourceTags(composition, tags) }
+            .timeout(READ_FILE_TIMEOUT_SECONDS, TimeUnit.SECONDS, timeoutScheduler)
             .retry(RETRY_TIMES)
             .doOnError(this::processError)
-            .map { TRIGGER }
-            .onErrorReturnItem(TRIGGER)
-            .doOnSuccess { compositionsDao.setCompositionLastFileScanTime(composition, Date()) }
+            .map { tags -> composition.id to tags }
+            .onErrorComplete()
+            .doOnSubscribe { onFileScanStarted(composition) }
+            .doOnTerminate { onFileScanned(composition) }
     }
 
     private fun getFullTags(composition: FullComposition): Single<CompositionSourceTags> {
-        //scheduler is required to prevent timeout and handle it correctly
+        //scheduler is required to prevent timeout and handle it correctly,
+        //timed out read is interrupted on dispose and releases its thread
         return compositionSourceEditor.getFullTags(composition).subscribeOn(scheduler)
     }
 
+    private fun saveScanResults(
+        compositions: List<FullComposition>,
+        tagsMap: LongSparseArray<CompositionSourceTags>
+    ): Completable {
+        return Completable.fromAction {
+            compositionsDao.updateCompositionsBySourceTags(compositions, tagsMap, Date())
+        }
+            .retry(RETRY_TIMES)
+            .doOnError(this::processError)
+            //save one by one, so one broken composition does not discard the whole batch
+            .onErrorResumeWith(
+                Observable.fromIterable(compositions)
+                    .concatMapCompletable { composition ->
+                        saveScanResult(composition, tagsMap.get(composition.id))
+                    }
+            )
+    }
+
+    private fun saveScanResult(
+        composition: FullComposition,
+        tags: CompositionSourceTags?
+    ): Completable {
+        return Completable.fromAction {
+            if (tags != null) {
+                compositionsDao.updateCompositionBySourceTags(composition, tags)
+            }
+        }
+            .retry(RETRY_TIMES)
+            .doOnError(this::processError)
+            .onErrorComplete()
+            .doOnComplete { compositionsDao.setCompositionLastFileScanTime(composition, Date()) }
+    }
+
+    @Synchronized
+    private fun onFileScanStarted(composition: FullComposition) {
+        val elapsedTime = System.currentTimeMillis() - scanStartTime
+        val filesPerSecond = if (elapsedTime > 0) scannedFiles * 1000f / elapsedTime else 0f
+        stateSubject.onNext(Running(composition, scannedFiles, processedFilesSize, filesPerSecond))
+    }
+
+    @Synchronized
+    private fun onFileScanned(composition: FullComposition) {
+        scannedFiles++
+        processedFilesSize += composition.size
+    }
+
     private fun processError(throwable: Throwable) {
         if (throwable is FileNotFoundException || throwable is TagReaderException) {
             return
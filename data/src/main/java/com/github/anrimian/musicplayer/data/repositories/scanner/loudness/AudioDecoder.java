@@ -0,0 +1,22 @@
+package com.github.anrimian.musicplayer.data.repositories.scanner.loudness;
+
+public interface AudioDecoder {
+
+    /**
+     * Decodes audio track of composition file to float pcm, blocking call
+     *
+     * @return false if decoding was stopped by listener
+     */
+    boolean decode(long compositionId, PcmListener listener) throws Exception;
+
+    interface PcmListener {
+
+        void onFormat(int sampleRate, int channelCount);
+
+        /**
+         * @param samples interleaved samples, buffer is reused after return
+         * @return false to stop decoding
+         */
+        boolean onSamples(float[] samples, int frameCount);
+    }
+}
@@ -0,0 +1,213 @@
+package com.github.anrimian.musicplayer.data.repositories.scanner.loudness;
+
+import java.util.Arrays;
+
+/**
+ * Integrated loudness meter as described in ITU-R BS.1770-4 and EBU R128:
+ * K-weighting filter, mean square of 400 ms blocks with 75% overlap, absolute gate at -70 LUFS
+ * and relative gate at -10 LU. Also measures sample peak.
+ *
+ * Filter coefficients are calculated for any sample rate from the analog prototype
+ * (same way as in libebur128), for 48 kHz they match the ones from the recommendation.
+ * Surround channels of 5.1 layout are weighted by 1.41 and LFE channel is skipped,
+ * other layouts use equal weights.
+ */
+public class LoudnessMeter {
+
+    private static final double ABSOLUTE_GATE_LUFS = -70;
+    private static final double RELATIVE_GATE_LU = -10;
+    private static final double LOUDNESS_OFFSET = -0.691;
+
+    private static final int SUB_BLOCKS_IN_BLOCK = 4;
+    private static final double SUB_BLOCK_SECONDS = 0.1;
+
+    private final int channelCount;
+    private final double[] channelWeights;
+
+    //pre-filter (high shelf) and RLB filter (high pass) coefficients
+    private final double pb0, pb1, pb2, pa1, pa2;
+    private final double rb0, rb1, rb2, ra1, ra2;
+    //transposed direct form II state for each channel
+    private final double[] pz1, pz2, rz1, rz2;
+
+    private final int subBlockFrames;
+    private final double[] lastSubBlocks = new double[SUB_BLOCKS_IN_BLOCK];
+    private int subBlocksCount;
+    private int subBlockFramesDone;
+    private double subBlockSum;
+
+    private double[] blockEnergies = new double[256];
+    private int blocksCount;
+
+    private float samplePeak;
+
+    public LoudnessMeter(int sampleRate, int channelCount) {
+        if (sampleRate <= 0 || channelCount <= 0) {
+            throw new IllegalArgumentException("unsupported format, sample rate: " + sampleRate
+                    + ", channels: " + channelCount);
+        }
+        this.channelCount = channelCount;
+        channelWeights = getChannelWeights(channelCount);
+
+        double f0 = 1681.974450955533;
+        double g = 3.999843853973347;
+        double q = 0.7071752369554196;
+        double k = Math.tan(Math.PI * f0 / sampleRate);
+        double vh = Math.pow(10, g / 20);
+        double vb = Math.pow(vh, 0.4996667741545416);
+        double a0 = 1 + k / q + k * k;
+        pb0 = (vh + vb * k / q + k * k) / a0;
+        pb1 = 2 * (k * k - vh) / a0;
+        pb2 = (vh - vb * k / q + k * k) / a0;
+        pa1 = 2 * (k * k - 1) / a0;
+        pa2 = (1 - k / q + k * k) / a0;
+
+        f0 = 38.13547087602444;
+        q = 0.5003270373238773;
+        k = Math.tan(Math.PI * f0 / sampleRate);
+        a0 = 1 + k / q + k * k;
+        rb0 = 1;
+        rb1 = -2;
+        rb2 = 1;
+        ra1 = 2 * (k * k - 1) / a0;
+        ra2 = (1 - k / q + k * k) / a0;
+
+        pz1 = new double[channelCount];
+        pz2 = new double[channelCount];
+        rz1 = new double[channelCount];
+        rz2 = new double[channelCount];
+
+        subBlockFrames = (int) Math.round(sampleRate * SUB_BLOCK_SECONDS);
+    }
+
+    /**
+     * @param samples interleaved samples, not modified
+     * @param frameCount count of frames(samples of all channels) to process
+     */
+    public void process(float[] samples, int frameCount) {
+        int offset = 0;
+        while (frameCount > 0) {
+            int frames = Math.min(frameCount, subBlockFrames - subBlockFramesDone);
+            for (int channel = 0; channel < channelCount; channel++) {
+                double weight = channelWeights[channel];
+                if (weight == 0) {
+                    continue;
+                }
+                subBlockSum += weight * processChannel(samples, offset, frames, channel);
+            }
+            offset += frames * channelCount;
+            frameCount -= frames;
+            subBlockFramesDone += frames;
+            if (subBlockFramesDone == subBlockFrames) {
+                onSubBlockCompleted();
+            }
+        }
+    }
+
+    /**
+     * @return integrated loudness in LUFS or {@link Double#NEGATIVE_INFINITY} if there are
+     * no blocks above absolute gate(silence or too short input)
+     */
+    public double getIntegratedLoudness() {
+        double absoluteGate = toEnergy(ABSOLUTE_GATE_LUFS);
+        double sum = 0;
+        int count = 0;
+        for (int i = 0; i < blocksCount; i++) {
+            if (blockEnergies[i] > absoluteGate) {
+                sum += blockEnergies[i];
+                count++;
+            }
+        }
+        if (count == 0) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        double relativeGate = toEnergy(toLoudness(sum / count) + RELATIVE_GATE_LU);
+        double gate = Math.max(absoluteGate, relativeGate);
+        sum = 0;
+        count = 0;
+        for (int i = 0; i < blocksCount; i++) {
+            if (blockEnergies[i] > gate) {
+                sum += blockEnergies[i];
+                count++;
+            }
+        }
+        return toLoudness(sum / count);
+    }
+
+    /**
+     * @return max absolute sample value, 1 is full scale
+     */
+    public float getSamplePeak() {
+        return samplePeak;
+    }
+
+    private double processChannel(float[] samples, int offset, int frames, int channel) {
+        double ps1 = pz1[channel];
+        double ps2 = pz2[channel];
+        double rs1 = rz1[channel];
+        double rs2 = rz2[channel];
+        float peak = samplePeak;
+        double sum = 0;
+        int end = offset + frames * channelCount;
+        for (int i = offset + channel; i < end; i += channelCount) {
+            float sample = samples[i];
+            peak = Math.max(peak, Math.abs(sample));
+
+            double x = sample;
+            double y = pb0 * x + ps1;
+            ps1 = pb1 * x - pa1 * y + ps2;
+            ps2 = pb2 * x - pa2 * y;
+
+            x = y;
+            y = rb0 * x + rs1;
+            rs1 = rb1 * x - ra1 * y + rs2;
+            rs2 = rb2 * x - ra2 * y;
+
+            sum += y * y;
+        }
+        pz1[channel] = ps1;
+        pz2[channel] = ps2;
+        rz1[channel] = rs1;
+        rz2[channel] = rs2;
+        samplePeak = peak;
+        return sum;
+    }
+
+    private void onSubBlockCompleted() {
+        lastSubBlocks[subBlocksCount % SUB_BLOCKS_IN_BLOCK] = subBlockSum;
+        subBlocksCount++;
+        subBlockSum = 0;
+        subBlockFramesDone = 0;
+        if (subBlocksCount < SUB_BLOCKS_IN_BLOCK) {
+            return;
+        }
+        double blockSum = 0;
+        for (double subBlock: lastSubBlocks) {
+            blockSum += subBlock;
+        }
+        if (blocksCount == blockEnergies.length) {
+            blockEnergies = Arrays.copyOf(blockEnergies, blocksCount * 2);
+        }
+        blockEnergies[blocksCount++] = blockSum / (subBlockFrames * SUB_BLOCKS_IN_BLOCK);
+    }
+
+    private static double[] getChannelWeights(int channelCount) {
+        double[] weights = new double[channelCount];
+        Arrays.fill(weights, 1);
+        if (channelCount == 6) {
+            //L, R, C, LFE, Ls, Rs
+            weights[3] = 0;
+            weights[4] = 1.41;
+            weights[5] = 1.41;
+        }
+        return weights;
+    }
+
+    private static double toLoudness(double energy) {
+        return LOUDNESS_OFFSET + 10 * Math.log10(energy);
+    }
+
+    private static double toEnergy(double loudness) {
+        return Math.pow(10, (loudness - LOUDNESS_OFFSET) / 10);
+    }
+}
@@ -0,0 +1,125 @@
+package com.github.anrimian.musicplayer.data.repositories.scanner.loudness
+
+import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDaoWrapper
+import com.github.anrimian.musicplayer.domain.interactors.analytics.Analytics
+import com.github.anrimian.musicplayer.domain.repositories.StateRepository
+import io.reactivex.rxjava3.core.Completable
+import io.reactivex.rxjava3.core.Scheduler
+import io.reactivex.rxjava3.disposables.Disposable
+import java.io.IOException
+import java.util.*
+import java.util.concurrent.TimeUnit
+
+//replay gain 2.0 reference level
+private const val REFERENCE_LOUDNESS_LUFS = -18.0
+//analysis takes about a quarter of the thread time, so it doesn't load device in background
+private const val BUSY_TIME_RATIO = 0.25
+private const val MIN_BUSY_TIME_NANOS = 100_000_000L
+
+/**
+ * Measures integrated loudness of compositions without replay gain tags, one by one in
+ * background. Results are saved to database, so scan is continued from the next composition
+ * after restart. Compositions are taken only after file scanner read their tags.
+ */
+class LoudnessScanner(
+    private val compositionsDao: CompositionsDaoWrapper,
+    private val audioDecoder: AudioDecoder,
+    private val stateRepository: StateRepository,
+    private val analytics: Analytics,
+    private val scheduler: Scheduler
+) {
+
+    private var scannerDisposable: Disposable? = null
+
+    @Synchronized
+    fun scheduleLoudnessScanner() {
+        if (scannerDisposable?.isDisposed == false) {
+            return
+        }
+        //stopped loop must not run together with the next one, so it checks disposal itself
+        scannerDisposable = Completable.create { emitter ->
+            scanCompositions(emitter::isDisposed)
+            emitter.onComplete()
+        }
+            .subscribeOn(scheduler)
+            .subscribe({}, this::processError)
+    }
+
+    @Synchronized
+    fun stopLoudnessScanner() {
+        scannerDisposable?.dispose()
+        scannerDisposable = null
+    }
+
+    private fun scanCompositions(isCancelled: () -> Boolean) {
+        while (!isCancelled() && !Thread.currentThread().isInterrupted) {
+            //same condition as in file scanner, wait until it re-read tags after its update
+            val lastCompleteScanTime = if (
+                stateRepository.lastFileScannerVersion == stateRepository.currentFileScannerVersion
+            ) 0L else stateRepository.lastCompleteScanTime
+            val id = compositionsDao.selectNextCompositionIdToLoudnessScan(lastCompleteScanTime)
+                ?: return
+            try {
+                if (!scanComposition(id, isCancelled)) {
+                    return
+                }
+            } catch (e: InterruptedException) {
+                return
+            } catch (e: Exception) {
+                if (e.cause is InterruptedException) {
+                    return
+                }
+                processError(e)
+                //do not repeat analysis until file is changed
+                compositionsDao.setLoudnessScanResult(id, null, null, Date())
+            }
+        }
+    }
+
+    private fun scanComposition(id: Long, isCancelled: () -> Boolean): Boolean {
+        var meter: LoudnessMeter? = null
+        var busyTimeNanos = 0L
+        val completed = audioDecoder.decode(id, object : AudioDecoder.PcmListener {
+
+            override fun onFormat(sampleRate: Int, channelCount: Int) {
+                meter = LoudnessMeter(sampleRate, channelCount)
+            }
+
+            override fun onSamples(samples: FloatArray, frameCount: Int): Boolean {
+                val startTime = System.nanoTime()
+                meter!!.process(samples, frameCount)
+                busyTimeNanos += System.nanoTime() - startTime
+                if (busyTimeNanos >= MIN_BUSY_TIME_NANOS) {
+                    //decoding time is not counted, so real load is a bit higher
+                    val sleepTime = (busyTimeNanos * (1 - BUSY_TIME_RATIO) / BUSY_TIME_RATIO).toLong()
+                    Thread.sleep(TimeUnit.NANOSECONDS.toMillis(sleepTime))
+                    busyTimeNanos = 0L
+                }
+                return !isCancelled() && !Thread.currentThread().isInterrupted
+            }
+        })
+        if (!completed) {
+            return false
+        }
+        val loudness = meter?.integratedLoudness ?: Double.NEGATIVE_INFINITY
+        if (loudness == Double.NEGATIVE_INFINITY) {
+            //silence, nothing to normalize
+            compositionsDao.setLoudnessScanResult(id, null, null, Date())
+            return true
+        }
+        val trackGain = (REFERENCE_LOUDNESS_LUFS - loudness).toFloat()
+        compositionsDao.setLoudnessScanResult(id, trackGain, meter!!.samplePeak, Date())
+        return true
+    }
+
+    private fun processError(throwable: Throwable) {
+        //codec errors of broken files are illegal state exceptions
+        if (throwable is IOException
+            || throwable is IllegalStateException
+            || throwable is InterruptedException) {
+            return
+        }
+        analytics.processNonFatalError(throwable)
+    }
+
+}
@@ -0,0 +1,165 @@
+package com.github.anrimian.musicplayer.data.repositories.scanner.loudness;
+
+import android.content.Context;
+import android.media.AudioFormat;
+import android.media.MediaCodec;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+import android.net.Uri;
+import android.os.Build;
+
+import com.github.anrimian.musicplayer.data.storage.source.CompositionSourceProvider;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Decodes composition file with platform codecs. Only the first audio track is decoded,
+ * 16 bit and float pcm output is supported.
+ */
+public class MediaCodecAudioDecoder implements AudioDecoder {
+
+    private static final long TIMEOUT_US = 10_000;
+
+    private final Context context;
+    private final CompositionSourceProvider compositionSourceProvider;
+
+    private float[] samples = new float[0];
+
+    public MediaCodecAudioDecoder(Context context,
+                                  CompositionSourceProvider compositionSourceProvider) {
+        this.context = context;
+        this.compositionSourceProvider = compositionSourceProvider;
+    }
+
+    @Override
+    public boolean decode(long compositionId, PcmListener listener) throws Exception {
+        Uri uri = compositionSourceProvider.getCompositionUri(compositionId).blockingGet();
+        MediaExtractor extractor = new MediaExtractor();
+        MediaCodec codec = null;
+        try {
+            extractor.setDataSource(context, uri, null);
+            MediaFormat format = selectAudioTrack(extractor);
+            codec = MediaCodec.createDecoderByType(format.getString(MediaFormat.KEY_MIME));
+            codec.configure(format, null, null, 0);
+            codec.start();
+            return decode(extractor, codec, format, listener);
+        } finally {
+            if (codec != null) {
+                codec.release();
+            }
+            extractor.release();
+        }
+    }
+
+    private boolean decode(MediaExtractor extractor,
+                           MediaCodec codec,
+                           MediaFormat format,
+                           PcmListener listener) throws IOException {
+        int sampleRate = format.getInteger(MediaFormat.KEY_SAMPLE_RATE);
+        int channelCount = format.getInteger(MediaFormat.KEY_CHANNEL_COUNT);
+        int encoding = AudioFormat.ENCODING_PCM_16BIT;
+        boolean isFormatReported = false;
+
+        MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+        boolean isInputDone = false;
+        while (true) {
+            if (!isInputDone) {
+                int inputIndex = codec.dequeueInputBuffer(TIMEOUT_US);
+                if (inputIndex >= 0) {
+                    ByteBuffer inputBuffer = codec.getInputBuffer(inputIndex);
+                    int size = extractor.readSampleData(inputBuffer, 0);
+                    if (size < 0) {
+                        codec.queueInputBuffer(inputIndex, 0, 0, 0, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+                        isInputDone = true;
+                    } else {
+                        codec.queueInputBuffer(inputIndex, 0, size, extractor.getSampleTime(), 0);
+                        extractor.advance();
+                    }
+                }
+            }
+
+            int outputIndex = codec.dequeueOutputBuffer(info, TIMEOUT_US);
+            if (outputIndex == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
+                MediaFormat outputFormat = codec.getOutputFormat();
+                int newSampleRate = outputFormat.getInteger(MediaFormat.KEY_SAMPLE_RATE);
+                int newChannelCount = outputFormat.getInteger(MediaFormat.KEY_CHANNEL_COUNT);
+                if (isFormatReported && (newSampleRate != sampleRate || newChannelCount != channelCount)) {
+                    throw new IOException("audio format changed during decoding");
+                }
+                sampleRate = newSampleRate;
+                channelCount = newChannelCount;
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N
+                        && outputFormat.containsKey(MediaFormat.KEY_PCM_ENCODING)) {
+                    encoding = outputFormat.getInteger(MediaFormat.KEY_PCM_ENCODING);
+                }
+                continue;
+            }
+            if (outputIndex < 0) {
+                continue;
+            }
+            if (info.size > 0) {
+                if (!isFormatReported) {
+                    listener.onFormat(sampleRate, channelCount);
+                    isFormatReported = true;
+                }
+                ByteBuffer outputBuffer = codec.getOutputBuffer(outputIndex);
+                outputBuffer.position(info.offset);
+                outputBuffer.limit(info.offset + info.size);
+                int samplesCount = readSamples(outputBuffer.slice(), encoding);
+                codec.releaseOutputBuffer(outputIndex, false);
+                if (!listener.onSamples(samples, samplesCount / channelCount)) {
+                    return false;
+                }
+            } else {
+                codec.releaseOutputBuffer(outputIndex, false);
+            }
+            if ((info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
+                return true;
+            }
+        }
+    }
+
+    private int readSamples(ByteBuffer buffer, int encoding) throws IOException {
+        buffer.order(ByteOrder.nativeOrder());
+        int samplesCount;
+        switch (encoding) {
+            case AudioFormat.ENCODING_PCM_16BIT: {
+                samplesCount = buffer.remaining() / 2;
+                float[] samples = getSamplesBuffer(samplesCount);
+                for (int i = 0; i < samplesCount; i++) {
+                    samples[i] = buffer.getShort(i * 2) / 32768f;
+                }
+                break;
+            }
+            case AudioFormat.ENCODING_PCM_FLOAT: {
+                samplesCount = buffer.remaining() / 4;
+                float[] samples = getSamplesBuffer(samplesCount);
+                buffer.asFloatBuffer().get(samples, 0, samplesCount);
+                break;
+            }
+            default: throw new IOException("unsupported pcm encoding: " + encoding);
+        }
+        return samplesCount;
+    }
+
+    private float[] getSamplesBuffer(int size) {
+        if (samples.length < size) {
+            samples = new float[size];
+        }
+        return samples;
+    }
+
+    private static MediaFormat selectAudioTrack(MediaExtractor extractor) throws IOException {
+        for (int i = 0; i < extractor.getTrackCount(); i++) {
+            MediaFormat format = extractor.getTrackFormat(i);
+            String mime = format.getString(MediaFormat.KEY_MIME);
+            if (mime != null && mime.startsWith("audio/")) {
+                extractor.selectTrack(i);
+                return format;
+            }
+        }
+        throw new IOException("audio track not found");
+    }
+}
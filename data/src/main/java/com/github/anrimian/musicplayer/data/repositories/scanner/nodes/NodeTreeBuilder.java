@@ -1,9 +1,8 @@
 package com.github.anrimian.musicplayer.data.repositories.scanner.nodes;
 
-import androidx.collection.LongSparseArray;
-
 import com.github.anrimian.musicplayer.data.database.entities.folder.StorageFolder;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageComposition;
+import com.github.anrimian.musicplayer.data.utils.collections.LongHashMap;
 
 import java.util.LinkedList;
 import java.util.List;
@@ -23,15 +22,15 @@ public class NodeTreeBuilder {
      * + remove from map
      */
     public LocalFolderNode<Long> createTreeFromIdMap(List<StorageFolder> folders,
-                                                     LongSparseArray<StorageComposition> filesMap) {
-        LongSparseArray<List<Long>> folderFilesMap = buildFolderIdMap(filesMap);
+                                                     List<StorageComposition> files) {
+        LongHashMap<List<Long>> folderFilesMap = buildFolderIdMap(files);
 
-        LongSparseArray<List<StorageFolder>> folderParentIdMap = new LongSparseArray<>();
+        LongHashMap<List<StorageFolder>> folderParentIdMap = new LongHashMap<>();
 
         LocalFolderNode<Long> rootNode = new LocalFolderNode<>(null, null);
-        List<Long> files = folderFilesMap.get(0);
-        if (files != null) {
-            rootNode.addFiles(files);
+        List<Long> rootFiles = folderFilesMap.get(0);
+        if (rootFiles != null) {
+            rootNode.addFiles(rootFiles);
         }
 
         for (StorageFolder folder: folders) {
@@ -54,17 +53,16 @@ public class NodeTreeBuilder {
 
         //TODO we still can face it, reproduce
         if (!folderParentIdMap.isEmpty()) {
-            throw new IllegalStateException("found missing folders: " + folderParentIdMap);
+            throw new IllegalStateException("found missing folders: " + folderParentIdMap.values());
         }
 
         return rootNode;
     }
 
-    private LongSparseArray<List<Long>> buildFolderIdMap(LongSparseArray<StorageComposition> filesMap) {
-        LongSparseArray<List<Long>> folderIdMap = new LongSparseArray<>();
+    private LongHashMap<List<Long>> buildFolderIdMap(List<StorageComposition> files) {
+        LongHashMap<List<Long>> folderIdMap = new LongHashMap<>();
 
-        for(int i = 0, size = filesMap.size(); i < size; i++) {
-            StorageComposition file = filesMap.valueAt(i);
+        for (StorageComposition file: files) {
             Long folderId = file.getFolderId();
             if (folderId == null) {
                 folderId = 0L;
@@ -80,8 +78,8 @@ public class NodeTreeBuilder {
     }
 
     private void fillNode(LocalFolderNode<Long> targetNode,
-                          LongSparseArray<List<StorageFolder>> folderParentIdMap,
-                          LongSparseArray<List<Long>> folderFilesMap) {
+                          LongHashMap<List<StorageFolder>> folderParentIdMap,
+                          LongHashMap<List<Long>> folderFilesMap) {
         Long parentId = targetNode.getId();
         if (parentId == null) {
             throw new IllegalStateException("try to access folder with id == null");
@@ -98,7 +96,7 @@ public class NodeTreeBuilder {
     }
 
     private LocalFolderNode<Long> createLocalFolderWithFiles(StorageFolder folder,
-                                                             LongSparseArray<List<Long>> folderFilesMap) {
+                                                             LongHashMap<List<Long>> folderFilesMap) {
         long id = folder.getId();
         LocalFolderNode<Long> node = new LocalFolderNode<>(folder.getName(), id);
         List<Long> files = folderFilesMap.get(id);
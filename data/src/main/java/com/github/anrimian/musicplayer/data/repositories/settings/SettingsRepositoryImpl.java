@@ -49,6 +49,7 @@ public class SettingsRepositoryImpl implements SettingsRepository {
     private static final String PAUSE_ON_AUDIO_FOCUS_LOSS = "pause_on_audio_focus_loss";
     private static final String PAUSE_ON_ZERO_VOLUME_LEVEL = "pause_on_zero_volume_level";
     private static final String SELECTED_EQUALIZER_TYPE = "selected_equalizer_type";
+    private static final String LOUDNESS_NORMALIZATION = "loudness_normalization";
 
     private static final String EXTERNAL_PLAYER_REPEAT_MODE = "external_player_repeat_mode";
     private static final String EXTERNAL_PLAYER_KEEP_IN_BACKGROUND = "external_player_keep_in_background";
@@ -74,6 +75,7 @@ public class SettingsRepositoryImpl implements SettingsRepository {
     private final BehaviorSubject<Boolean> showAllAudioFilesSubject = BehaviorSubject.create();
     private final BehaviorSubject<Integer> selectedEqualizerSubject = BehaviorSubject.create();
     private final BehaviorSubject<Long> audioFileMinDurationSubject = BehaviorSubject.create();
+    private final BehaviorSubject<Boolean> loudnessNormalizationSubject = BehaviorSubject.create();
 
     private final BehaviorSubject<Integer> externalPlayerRepeatModeSubject = BehaviorSubject.create();
 
@@ -426,6 +428,24 @@ public class SettingsRepositoryImpl implements SettingsRepository {
         return preferences.getBoolean(PAUSE_ON_ZERO_VOLUME_LEVEL, true);
     }
 
+    @Override
+    public void setLoudnessNormalizationEnabled(boolean enabled) {
+        if (enabled != isLoudnessNormalizationEnabled()) {
+            preferences.putBoolean(LOUDNESS_NORMALIZATION, enabled);
+            loudnessNormalizationSubject.onNext(enabled);
+        }
+    }
+
+    @Override
+    public boolean isLoudnessNormalizationEnabled() {
+        return preferences.getBoolean(LOUDNESS_NORMALIZATION, false);
+    }
+
+    @Override
+    public Observable<Boolean> getLoudnessNormalizationEnabledObservable() {
+        return withDefaultValue(loudnessNormalizationSubject, this::isLoudnessNormalizationEnabled);
+    }
+
     @Override
     public Observable<Boolean> getDisplayFileNameObservable() {
         return withDefaultValue(showFileNameSubject, this::isDisplayFileNameEnabled);
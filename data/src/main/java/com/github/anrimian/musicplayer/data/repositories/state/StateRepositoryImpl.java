@@ -48,7 +48,8 @@ public class StateRepositoryImpl implements StateRepository {
 
     @Override
     public int getCurrentFileScannerVersion() {
-        return 1;
+        //2 - replay gain tags
+        return 2;
     }
 
     @Override
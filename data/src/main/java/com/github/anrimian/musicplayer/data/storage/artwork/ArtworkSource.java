@@ -0,0 +1,12 @@
+package com.github.anrimian.musicplayer.data.storage.artwork;
+
+import javax.annotation.Nullable;
+
+public interface ArtworkSource {
+
+    /**
+     * @return original embedded cover or null if composition has no cover
+     */
+    @Nullable
+    byte[] getArtwork(long compositionId) throws Exception;
+}
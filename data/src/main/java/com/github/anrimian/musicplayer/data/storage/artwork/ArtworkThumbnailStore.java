@@ -0,0 +1,280 @@
+package com.github.anrimian.musicplayer.data.storage.artwork;
+
+import com.github.anrimian.musicplayer.data.database.dao.artwork.ArtworkThumbnailsDao;
+import com.github.anrimian.musicplayer.data.database.entities.artwork.ArtworkThumbnailEntity;
+import com.github.anrimian.musicplayer.domain.models.image.ArtworkCacheStats;
+import com.github.anrimian.musicplayer.domain.repositories.ArtworkCacheRepository;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Scheduler;
+
+/**
+ * Persistent store of downscaled composition covers.
+ *
+ * Thumbnails are created once per composition modify date. Files are named by hash of the
+ * original cover, so compositions of one album with the same cover share files and only
+ * index rows are written for them. When store exceeds max size, least recently used files
+ * are removed, compositions which referenced them get thumbnails again on the next request.
+ */
+public class ArtworkThumbnailStore implements ArtworkCacheRepository {
+
+    private static final String THUMBNAIL_EXTENSION = ".jpg";
+    private static final String TEMP_FILE_EXTENSION = ".tmp";
+
+    //do not write file access time on each load of frequently used thumbnails
+    private static final long ACCESS_TIME_UPDATE_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+    //trim with a margin, so each new cover does not cause trimming
+    private static final float TRIM_TARGET_RATIO = 0.8f;
+    private static final long STATS_UPDATE_INTERVAL_SECONDS = 1;
+
+    private final File directory;
+    private final ArtworkThumbnailsDao thumbnailsDao;
+    private final ArtworkSource artworkSource;
+    private final ThumbnailEncoder thumbnailEncoder;
+    private final long maxSizeBytes;
+    private final Scheduler scheduler;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private final Object filesLock = new Object();
+    private boolean isFilesSizeCalculated;
+    private long filesSizeBytes;
+    private int filesCount;
+
+    public ArtworkThumbnailStore(File directory,
+                                 ArtworkThumbnailsDao thumbnailsDao,
+                                 ArtworkSource artworkSource,
+                                 ThumbnailEncoder thumbnailEncoder,
+                                 long maxSizeBytes,
+                                 Scheduler scheduler) {
+        this.directory = directory;
+        this.thumbnailsDao = thumbnailsDao;
+        this.artworkSource = artworkSource;
+        this.thumbnailEncoder = thumbnailEncoder;
+        this.maxSizeBytes = maxSizeBytes;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Blocking call, creates thumbnails if they are not created yet or composition was modified
+     *
+     * @return thumbnail file or null if composition has no cover
+     */
+    @Nullable
+    public File getThumbnail(long compositionId,
+                             Date dateModified,
+                             ThumbnailSize size) throws Exception {
+        ArtworkThumbnailEntity entity = thumbnailsDao.selectThumbnail(compositionId);
+        if (isActual(entity, dateModified)) {
+            String hash = entity.getHash();
+            if (hash == null) {
+                hits.incrementAndGet();
+                return null;
+            }
+            File file = getFile(hash, size);
+            if (file.exists()) {
+                hits.incrementAndGet();
+                onFileAccessed(file);
+                return file;
+            }
+        }
+        misses.incrementAndGet();
+        String hash = createThumbnails(compositionId, dateModified);
+        if (hash == null) {
+            return null;
+        }
+        return getFile(hash, size);
+    }
+
+    /**
+     * Blocking call, creates thumbnails in advance
+     *
+     * @return true if thumbnails were created, false if actual ones already exist
+     */
+    public boolean prepareThumbnails(long compositionId, Date dateModified) throws Exception {
+        ArtworkThumbnailEntity entity = thumbnailsDao.selectThumbnail(compositionId);
+        if (isActual(entity, dateModified) && isFilesExist(entity.getHash())) {
+            return false;
+        }
+        createThumbnails(compositionId, dateModified);
+        return true;
+    }
+
+    @Override
+    public Observable<ArtworkCacheStats> getStatsObservable() {
+        return Observable.interval(0, STATS_UPDATE_INTERVAL_SECONDS, TimeUnit.SECONDS, scheduler)
+                .map(o -> getStats())
+                .distinctUntilChanged();
+    }
+
+    public ArtworkCacheStats getStats() {
+        synchronized (filesLock) {
+            calculateFilesSize();
+            return new ArtworkCacheStats(filesSizeBytes, filesCount, hits.get(), misses.get());
+        }
+    }
+
+    @Nullable
+    private String createThumbnails(long compositionId, Date dateModified) throws Exception {
+        String hash = null;
+        byte[] source = artworkSource.getArtwork(compositionId);
+        if (source != null) {
+            hash = getHash(source);
+            for (ThumbnailSize size: ThumbnailSize.values()) {
+                File file = getFile(hash, size);
+                if (file.exists()) {
+                    //created for another composition with the same cover
+                    continue;
+                }
+                byte[] thumbnail = thumbnailEncoder.encode(source, size.getPixelSize());
+                if (thumbnail == null) {
+                    //broken image, keep it as composition without cover
+                    hash = null;
+                    break;
+                }
+                writeFile(file, thumbnail);
+            }
+        }
+        thumbnailsDao.insert(new ArtworkThumbnailEntity(compositionId, dateModified, hash));
+        trimToSize();
+        return hash;
+    }
+
+    private void writeFile(File file, byte[] data) throws IOException {
+        synchronized (filesLock) {
+            //first calculation removes temp files, do it before the new one is created
+            calculateFilesSize();
+        }
+        if (!directory.exists() && !directory.mkdirs() && !directory.exists()) {
+            throw new IOException("unable to create directory: " + directory);
+        }
+        //write to temp file first, so readers never see partially written thumbnail
+        File tempFile = File.createTempFile(file.getName(), TEMP_FILE_EXTENSION, directory);
+        try {
+            try (FileOutputStream fos = new FileOutputStream(tempFile)) {
+                fos.write(data);
+            }
+            synchronized (filesLock) {
+                if (file.exists()) {
+                    //written concurrently for another composition with the same cover
+                    return;
+                }
+                if (!tempFile.renameTo(file)) {
+                    throw new IOException("unable to save thumbnail: " + file);
+                }
+                filesSizeBytes += data.length;
+                filesCount++;
+            }
+        } finally {
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+        }
+    }
+
+    private void trimToSize() {
+        synchronized (filesLock) {
+            calculateFilesSize();
+            if (filesSizeBytes <= maxSizeBytes) {
+                return;
+            }
+            File[] files = listThumbnailFiles();
+            long[] lastModified = new long[files.length];
+            Integer[] order = new Integer[files.length];
+            for (int i = 0; i < files.length; i++) {
+                lastModified[i] = files[i].lastModified();
+                order[i] = i;
+            }
+            Arrays.sort(order, (first, second) -> Long.compare(lastModified[first], lastModified[second]));
+
+            long targetSize = (long) (maxSizeBytes * TRIM_TARGET_RATIO);
+            for (int i = 0; i < order.length && filesSizeBytes > targetSize; i++) {
+                File file = files[order[i]];
+                long length = file.length();
+                if (file.delete()) {
+                    filesSizeBytes -= length;
+                    filesCount--;
+                }
+            }
+        }
+    }
+
+    private void calculateFilesSize() {
+        if (isFilesSizeCalculated) {
+            return;
+        }
+        long size = 0;
+        int count = 0;
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file: files) {
+                if (file.getName().endsWith(TEMP_FILE_EXTENSION)) {
+                    //left after process death
+                    //noinspection ResultOfMethodCallIgnored
+                    file.delete();
+                    continue;
+                }
+                size += file.length();
+                count++;
+            }
+        }
+        filesSizeBytes = size;
+        filesCount = count;
+        isFilesSizeCalculated = true;
+    }
+
+    private File[] listThumbnailFiles() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(THUMBNAIL_EXTENSION));
+        return files == null ? new File[0] : files;
+    }
+
+    private boolean isFilesExist(@Nullable String hash) {
+        if (hash == null) {
+            return true;
+        }
+        for (ThumbnailSize size: ThumbnailSize.values()) {
+            if (!getFile(hash, size).exists()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private File getFile(String hash, ThumbnailSize size) {
+        return new File(directory, hash + "_" + size.getPixelSize() + THUMBNAIL_EXTENSION);
+    }
+
+    private static void onFileAccessed(File file) {
+        long currentTime = System.currentTimeMillis();
+        if (currentTime - file.lastModified() > ACCESS_TIME_UPDATE_INTERVAL_MILLIS) {
+            //noinspection ResultOfMethodCallIgnored
+            file.setLastModified(currentTime);
+        }
+    }
+
+    private static boolean isActual(@Nullable ArtworkThumbnailEntity entity, Date dateModified) {
+        return entity != null && entity.getDateModified().equals(dateModified);
+    }
+
+    private static String getHash(byte[] data) throws NoSuchAlgorithmException {
+        byte[] digest = MessageDigest.getInstance("SHA-1").digest(data);
+        StringBuilder sb = new StringBuilder(digest.length * 2);
+        for (byte b: digest) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.anrimian.musicplayer.data.storage.artwork;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.annotation.Nullable;
+
+public class BitmapThumbnailEncoder implements ThumbnailEncoder {
+
+    private static final int JPEG_QUALITY = 90;
+
+    @Nullable
+    @Override
+    public byte[] encode(byte[] source, int maxSize) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(source, 0, source.length, options);
+        int width = options.outWidth;
+        int height = options.outHeight;
+        if (width <= 0 || height <= 0) {
+            return null;
+        }
+
+        //decode with the closest power of two first, it is much cheaper than full decoding
+        int sampleSize = 1;
+        while (width / (sampleSize * 2) >= maxSize && height / (sampleSize * 2) >= maxSize) {
+            sampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        Bitmap bitmap = BitmapFactory.decodeByteArray(source, 0, source.length, options);
+        if (bitmap == null) {
+            return null;
+        }
+
+        float scale = (float) maxSize / Math.max(bitmap.getWidth(), bitmap.getHeight());
+        if (scale < 1f) {
+            Bitmap scaledBitmap = Bitmap.createScaledBitmap(bitmap,
+                    Math.max(1, Math.round(bitmap.getWidth() * scale)),
+                    Math.max(1, Math.round(bitmap.getHeight() * scale)),
+                    true);
+            if (scaledBitmap != bitmap) {
+                bitmap.recycle();
+                bitmap = scaledBitmap;
+            }
+        }
+
+        try (ByteArrayOutputStream bos = new ByteArrayOutputStream()) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, bos);
+            return bos.toByteArray();
+        } finally {
+            bitmap.recycle();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.github.anrimian.musicplayer.data.storage.artwork;
+
+import java.io.IOException;
+
+import javax.annotation.Nullable;
+
+public interface ThumbnailEncoder {
+
+    /**
+     * @param maxSize max width and height of thumbnail, smaller images are not upscaled
+     * @return encoded thumbnail or null if source image can not be decoded
+     */
+    @Nullable
+    byte[] encode(byte[] source, int maxSize) throws IOException;
+}
@@ -0,0 +1,31 @@
+package com.github.anrimian.musicplayer.data.storage.artwork;
+
+public enum ThumbnailSize {
+
+    //list items and notifications
+    SMALL(256),
+    //player screen, same as max cover size in tags
+    LARGE(1000);
+
+    private final int pixelSize;
+
+    ThumbnailSize(int pixelSize) {
+        this.pixelSize = pixelSize;
+    }
+
+    public int getPixelSize() {
+        return pixelSize;
+    }
+
+    /**
+     * @return smallest thumbnail which is not less than requested size
+     */
+    public static ThumbnailSize forRequestedSize(int size) {
+        for (ThumbnailSize thumbnailSize: values()) {
+            if (size <= thumbnailSize.pixelSize) {
+                return thumbnailSize;
+            }
+        }
+        return LARGE;
+    }
+}
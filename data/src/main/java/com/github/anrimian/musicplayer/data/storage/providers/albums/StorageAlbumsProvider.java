@@ -9,9 +9,9 @@ import android.net.Uri;
 import android.provider.MediaStore.Audio.Albums;
 
 import androidx.annotation.Nullable;
-import androidx.collection.LongSparseArray;
 
 import com.github.anrimian.musicplayer.data.storage.providers.MediaStoreUtils;
+import com.github.anrimian.musicplayer.data.utils.collections.LongHashMap;
 import com.github.anrimian.musicplayer.data.utils.db.CursorWrapper;
 import com.github.anrimian.musicplayer.data.utils.rx.content_observer.RxContentObserver;
 
@@ -28,12 +28,12 @@ public class StorageAlbumsProvider {
         contentResolver = context.getContentResolver();
     }
 
-    public Observable<LongSparseArray<StorageAlbum>> getAlbumsObservable() {
+    public Observable<LongHashMap<StorageAlbum>> getAlbumsObservable() {
         return RxContentObserver.getObservable(contentResolver, Albums.EXTERNAL_CONTENT_URI)
                 .map(o -> getAlbums());
     }
 
-    public LongSparseArray<StorageAlbum> getAlbums() {
+    public LongHashMap<StorageAlbum> getAlbums() {
         try(Cursor cursor = MediaStoreUtils.query(contentResolver,
                 Albums.EXTERNAL_CONTENT_URI,
                 new String[] {
@@ -50,10 +50,10 @@ public class StorageAlbumsProvider {
                 null,
                 null)) {
             if (cursor == null) {
-                return new LongSparseArray<>();
+                return new LongHashMap<>();
             }
             CursorWrapper cursorWrapper = new CursorWrapper(cursor);
-            LongSparseArray<StorageAlbum> artists = new LongSparseArray<>(cursor.getCount());
+            LongHashMap<StorageAlbum> artists = new LongHashMap<>(cursor.getCount());
             while (cursor.moveToNext()) {
                 StorageAlbum item = getAlbumFromCursor(cursorWrapper);
                 if (item != null) {
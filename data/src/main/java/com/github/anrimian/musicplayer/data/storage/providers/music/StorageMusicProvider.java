@@ -15,6 +15,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.OperationApplicationException;
 import android.database.Cursor;
+import android.media.MediaScannerConnection;
 import android.net.Uri;
 import android.os.Build;
 import android.os.ParcelFileDescriptor;
@@ -23,13 +24,13 @@ import android.provider.MediaStore;
 
 import androidx.annotation.RequiresApi;
 import androidx.annotation.RequiresPermission;
-import androidx.collection.LongSparseArray;
 
 import com.github.anrimian.musicplayer.data.models.composition.CompositionId;
 import com.github.anrimian.musicplayer.data.storage.exceptions.UpdateMediaStoreException;
 import com.github.anrimian.musicplayer.data.storage.providers.MediaStoreUtils;
 import com.github.anrimian.musicplayer.data.storage.providers.albums.StorageAlbum;
 import com.github.anrimian.musicplayer.data.storage.providers.albums.StorageAlbumsProvider;
+import com.github.anrimian.musicplayer.data.utils.collections.LongHashMap;
 import com.github.anrimian.musicplayer.data.utils.db.CursorWrapper;
 import com.github.anrimian.musicplayer.data.utils.rx.content_observer.RxContentObserver;
 import com.github.anrimian.musicplayer.domain.utils.FileUtils;
@@ -42,8 +43,11 @@ import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.annotation.Nonnull;
@@ -51,10 +55,11 @@ import javax.annotation.Nullable;
 
 import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.Observable;
-import io.reactivex.rxjava3.core.Single;
 
 public class StorageMusicProvider {
 
+    private static final int IDS_SELECTION_CHUNK_SIZE = 500;
+
     private final ContentResolver contentResolver;
     private final Context context;
     private final StorageAlbumsProvider albumsProvider;
@@ -79,61 +84,40 @@ public class StorageMusicProvider {
         context.sendBroadcast(scanFileIntent);
     }
 
-    public Observable<LongSparseArray<StorageFullComposition>> getCompositionsObservable(
-            long minAudioDurationMillis,
-            boolean showAllAudioFiles
-    ) {
-        Observable<Object> storageChangeObservable = RxContentObserver.getObservable(contentResolver, unsafeGetStorageUri());
+    /**
+     * Scans all files with one media scanner connection
+     */
+    public void scanMedia(List<String> paths) {
+        if (paths.isEmpty()) {
+            return;
+        }
+        MediaScannerConnection.scanFile(context, paths.toArray(new String[0]), null, null);
+    }
+
+    /**
+     * @return observable which emits uri of each change notification, without throttling
+     */
+    public Observable<String> getCompositionsChangeObservable() {
+        Observable<String> storageChangeObservable = RxContentObserver.getUriObservable(contentResolver, unsafeGetStorageUri());
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
             //on new composition content observer not called on android 10
             //but for some reason content observer is called for playlist items when new file added
             //so we create observer for non-existing playlist(!) and it works
 
-            Observable<Object> playListChangeObservable = RxContentObserver.getObservable(
+            Observable<String> playListChangeObservable = RxContentObserver.getUriObservable(
                     contentResolver,
                     MediaStore.Audio.Playlists.Members.getContentUri("external", 0)
             );
-            //maybe filter often events?
             storageChangeObservable = Observable.merge(storageChangeObservable, playListChangeObservable);
         }
-        return storageChangeObservable
-                .flatMapSingle(o -> getCompositionsSingle(minAudioDurationMillis, showAllAudioFiles));
+        return storageChangeObservable;
     }
 
     @Nullable
-    public LongSparseArray<StorageFullComposition> getCompositions(
+    public LongHashMap<StorageFullComposition> getCompositions(
             long minAudioDurationMillis,
             boolean showAllAudioFiles
     ) {
-        String[] query;
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
-            query = new String[] {
-                    Media.ARTIST,
-                    Media.TITLE,
-                    Media.DISPLAY_NAME,
-                    Media.RELATIVE_PATH,
-                    Media.DURATION,
-                    Media.SIZE,
-                    Media._ID,
-                    Media.ALBUM_ID,
-                    Media.DATE_ADDED,
-                    Media.DATE_MODIFIED
-            };
-        } else {
-            query = new String[] {
-                    Media.ARTIST,
-                    Media.TITLE,
-                    Media.DISPLAY_NAME,
-                    Media.DATA,
-                    Media.DURATION,
-                    Media.SIZE,
-                    Media._ID,
-                    Media.ALBUM_ID,
-                    Media.DATE_ADDED,
-                    Media.DATE_MODIFIED
-            };
-        }
-
         //check how it works
         List<Uri> uris = getStorageUris();
         if (uris.isEmpty()) {
@@ -147,76 +131,166 @@ public class StorageMusicProvider {
 //            return null;
 //        }
 
-        StringBuilder selectionBuilder = new StringBuilder();
-        //also display unsupported or corrupted compositions
-        selectionBuilder.append("(" + Media.DURATION + " >= ? OR " + Media.DURATION + " IS NULL)");
-        if (!showAllAudioFiles) {
-            selectionBuilder.append(" AND ");
-            selectionBuilder.append(Media.IS_MUSIC);
-            selectionBuilder.append(" = ?");
+        String selection = getCompositionsSelection(showAllAudioFiles);
+        String[] selectionArgs = getCompositionsSelectionArgs(minAudioDurationMillis, showAllAudioFiles);
+
+        LongHashMap<StorageFullComposition> compositions = new LongHashMap<>();
+        for (Uri uri: uris) {
+            try (Cursor cursor = query(uri, getCompositionsProjection(), selection, selectionArgs, null)) {
+                if (cursor == null) {
+                    return new LongHashMap<>();
+                }
+                readCompositions(cursor, albumsProvider.getAlbums(), compositions);
+            }
         }
+        return compositions;
+    }
 
-        String selection = selectionBuilder.toString();
-        String[] projection;
-        if (showAllAudioFiles) {
-            projection = new String[] { String.valueOf(minAudioDurationMillis) };
-        } else {
-            projection = new String[] { String.valueOf(minAudioDurationMillis), String.valueOf(1) };
+    /**
+     * @return compositions which were added or modified after given watermark.
+     * Volumes which are not present in watermark are read fully.
+     */
+    @Nullable
+    public LongHashMap<StorageFullComposition> getCompositionsChangedSince(
+            long minAudioDurationMillis,
+            boolean showAllAudioFiles,
+            StorageWatermark watermark
+    ) {
+        Map<String, Uri> volumeUris = getStorageVolumeUris();
+        if (volumeUris.isEmpty()) {
+            return null;
         }
 
-        LongSparseArray<StorageFullComposition> compositions = new LongSparseArray<>();
-        for (Uri uri: uris) {
-            try (Cursor cursor = query(uri, query, selection, projection, null)) {
+        LongHashMap<StorageFullComposition> compositions = new LongHashMap<>();
+        LongHashMap<StorageAlbum> albums = null;
+        for (Map.Entry<String, Uri> entry: volumeUris.entrySet()) {
+            String selection = getCompositionsSelection(showAllAudioFiles);
+            String[] selectionArgs = getCompositionsSelectionArgs(minAudioDurationMillis, showAllAudioFiles);
+
+            Long volumeWatermark = watermark.getVolumeWatermark(entry.getKey());
+            if (volumeWatermark != null) {
+                selection += " AND " + getWatermarkSelection();
+                selectionArgs = Arrays.copyOf(selectionArgs, selectionArgs.length + 1);
+                selectionArgs[selectionArgs.length - 1] = String.valueOf(volumeWatermark);
+            }
+
+            try (Cursor cursor = query(entry.getValue(), getCompositionsProjection(), selection, selectionArgs, null)) {
                 if (cursor == null) {
-                    return new LongSparseArray<>();
+                    return null;
+                }
+                if (cursor.getCount() == 0) {
+                    continue;
                 }
+                if (albums == null) {
+                    albums = albumsProvider.getAlbums();
+                }
+                readCompositions(cursor, albums, compositions);
+            }
+        }
+        return compositions;
+    }
 
-                LongSparseArray<StorageAlbum> albums = albumsProvider.getAlbums();
+    @Nullable
+    public LongHashMap<StorageFullComposition> getCompositions(
+            long minAudioDurationMillis,
+            boolean showAllAudioFiles,
+            long[] storageIds
+    ) {
+        List<Uri> uris = getStorageUris();
+        if (uris.isEmpty()) {
+            return null;
+        }
 
-                CursorWrapper cursorWrapper = new CursorWrapper(cursor);
-                LongSparseArray<StorageFullComposition> volumeCompositions = new LongSparseArray<>(cursor.getCount());
+        LongHashMap<StorageFullComposition> compositions = new LongHashMap<>(storageIds.length);
+        if (storageIds.length == 0) {
+            return compositions;
+        }
+        LongHashMap<StorageAlbum> albums = albumsProvider.getAlbums();
+        String[] selectionArgs = getCompositionsSelectionArgs(minAudioDurationMillis, showAllAudioFiles);
+        for (int from = 0; from < storageIds.length; from += IDS_SELECTION_CHUNK_SIZE) {
+            int to = Math.min(from + IDS_SELECTION_CHUNK_SIZE, storageIds.length);
+            String selection = getCompositionsSelection(showAllAudioFiles)
+                    + " AND " + Media._ID + " IN (" + joinIds(storageIds, from, to) + ")";
+            for (Uri uri: uris) {
+                try (Cursor cursor = query(uri, getCompositionsProjection(), selection, selectionArgs, null)) {
+                    if (cursor == null) {
+                        return null;
+                    }
+                    readCompositions(cursor, albums, compositions);
+                }
+            }
+        }
+        return compositions;
+    }
+
+    /**
+     * @return sorted media store ids of all compositions which are matching given filter
+     */
+    @Nullable
+    public long[] getCompositionIds(long minAudioDurationMillis, boolean showAllAudioFiles) {
+        List<Uri> uris = getStorageUris();
+        if (uris.isEmpty()) {
+            return null;
+        }
 
-                int artistIndex = getColumnIndex(cursor, Media.ARTIST);
-                int titleIndex = getColumnIndex(cursor, Media.TITLE);
-                int relativePathIndex = -1;
-                int filePathIndex = -1;
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
-                    relativePathIndex = getColumnIndex(cursor, Media.RELATIVE_PATH);
-                } else {
-                    filePathIndex = getColumnIndex(cursor, Media.DATA);
+        String selection = getCompositionsSelection(showAllAudioFiles);
+        String[] selectionArgs = getCompositionsSelectionArgs(minAudioDurationMillis, showAllAudioFiles);
+
+        long[] ids = new long[0];
+        int count = 0;
+        for (Uri uri: uris) {
+            try (Cursor cursor = query(uri, new String[] { Media._ID }, selection, selectionArgs, null)) {
+                if (cursor == null) {
+                    return null;
                 }
-                int displayNameIndex = getColumnIndex(cursor, Media.DISPLAY_NAME);
-                int durationIndex = getColumnIndex(cursor, Media.DURATION);
-                int sizeIndex = getColumnIndex(cursor, Media.SIZE);
+                ids = Arrays.copyOf(ids, count + cursor.getCount());
                 int idIndex = getColumnIndex(cursor, Media._ID);
-                int albumIdIndex = getColumnIndex(cursor, Media.ALBUM_ID);
-                int dateAddedIndex = getColumnIndex(cursor, Media.DATE_ADDED);
-                int dateModifiedIndex = getColumnIndex(cursor, Media.DATE_MODIFIED);
-
                 while (cursor.moveToNext()) {
-                    StorageFullComposition composition = buildStorageComposition(
-                            artistIndex,
-                            titleIndex,
-                            relativePathIndex,
-                            filePathIndex,
-                            displayNameIndex,
-                            durationIndex,
-                            sizeIndex,
-                            idIndex,
-                            albumIdIndex,
-                            dateAddedIndex,
-                            dateModifiedIndex,
-                            cursorWrapper,
-                            albums
-                    );
-                    if (composition != null) {
-                        volumeCompositions.put(composition.getId(), composition);
-                    }
+                    ids[count++] = cursor.getLong(idIndex);
                 }
-                compositions.putAll(volumeCompositions);
             }
         }
-        return compositions;
+        if (count != ids.length) {
+            ids = Arrays.copyOf(ids, count);
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Must be taken before reading compositions - changes made during reading will be
+     * fetched again in next sync.
+     */
+    @Nullable
+    public StorageWatermark getWatermark() {
+        Map<String, Uri> volumeUris = getStorageVolumeUris();
+        if (volumeUris.isEmpty()) {
+            return null;
+        }
+        Map<String, Long> volumeWatermarks = new HashMap<>();
+        for (Map.Entry<String, Uri> entry: volumeUris.entrySet()) {
+            String volume = entry.getKey();
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+                volumeWatermarks.put(volume, MediaStore.getGeneration(context, volume));
+                continue;
+            }
+            //date modified has seconds precision, so files with the same second are selected again
+            try (Cursor cursor = query(entry.getValue(),
+                    new String[] { Media.DATE_MODIFIED },
+                    null,
+                    null,
+                    Media.DATE_MODIFIED + " DESC LIMIT 1")) {
+                if (cursor == null) {
+                    return null;
+                }
+                long maxDateModified = 0;
+                if (cursor.moveToFirst()) {
+                    maxDateModified = new CursorWrapper(cursor).getLong(Media.DATE_MODIFIED);
+                }
+                volumeWatermarks.put(volume, maxDateModified);
+            }
+        }
+        return new StorageWatermark(volumeWatermarks);
     }
 
     @Nullable
@@ -412,10 +486,17 @@ public class StorageMusicProvider {
     }
 
     public OutputStream openCompositionOutputStream(Long id) throws FileNotFoundException {
+        return openCompositionOutputStream(id, "w");
+    }
+
+    /**
+     * @param mode "w" truncates file, "rw" keeps existing content after written bytes
+     */
+    public OutputStream openCompositionOutputStream(Long id, String mode) throws FileNotFoundException {
         if (id == null) {
             throw new FileNotFoundException("can not open stream for file without media store id");
         }
-        return contentResolver.openOutputStream(getCompositionUri(id));
+        return contentResolver.openOutputStream(getCompositionUri(id), mode);
     }
 
     public Completable processStorageError(Throwable throwable, List<CompositionId> compositions) {
@@ -435,19 +516,116 @@ public class StorageMusicProvider {
         });
     }
 
-    private Single<LongSparseArray<StorageFullComposition>> getCompositionsSingle(
-            long minAudioDurationMillis,
-            boolean showAllAudioFiles
-    ) {
-        return Single.create(emitter -> {
-            LongSparseArray<StorageFullComposition> compositions = getCompositions(
-                    minAudioDurationMillis,
-                    showAllAudioFiles
+    private String[] getCompositionsProjection() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            return new String[] {
+                    Media.ARTIST,
+                    Media.TITLE,
+                    Media.DISPLAY_NAME,
+                    Media.RELATIVE_PATH,
+                    Media.DURATION,
+                    Media.SIZE,
+                    Media._ID,
+                    Media.ALBUM_ID,
+                    Media.DATE_ADDED,
+                    Media.DATE_MODIFIED
+            };
+        } else {
+            return new String[] {
+                    Media.ARTIST,
+                    Media.TITLE,
+                    Media.DISPLAY_NAME,
+                    Media.DATA,
+                    Media.DURATION,
+                    Media.SIZE,
+                    Media._ID,
+                    Media.ALBUM_ID,
+                    Media.DATE_ADDED,
+                    Media.DATE_MODIFIED
+            };
+        }
+    }
+
+    private String getCompositionsSelection(boolean showAllAudioFiles) {
+        StringBuilder selectionBuilder = new StringBuilder();
+        //also display unsupported or corrupted compositions
+        selectionBuilder.append("(" + Media.DURATION + " >= ? OR " + Media.DURATION + " IS NULL)");
+        if (!showAllAudioFiles) {
+            selectionBuilder.append(" AND ");
+            selectionBuilder.append(Media.IS_MUSIC);
+            selectionBuilder.append(" = ?");
+        }
+        return selectionBuilder.toString();
+    }
+
+    private String[] getCompositionsSelectionArgs(long minAudioDurationMillis, boolean showAllAudioFiles) {
+        if (showAllAudioFiles) {
+            return new String[] { String.valueOf(minAudioDurationMillis) };
+        } else {
+            return new String[] { String.valueOf(minAudioDurationMillis), String.valueOf(1) };
+        }
+    }
+
+    private String getWatermarkSelection() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            return MediaStore.MediaColumns.GENERATION_MODIFIED + " > ?";
+        }
+        return Media.DATE_MODIFIED + " >= ?";
+    }
+
+    private void readCompositions(Cursor cursor,
+                                  LongHashMap<StorageAlbum> albums,
+                                  LongHashMap<StorageFullComposition> outCompositions) {
+        CursorWrapper cursorWrapper = new CursorWrapper(cursor);
+
+        int artistIndex = getColumnIndex(cursor, Media.ARTIST);
+        int titleIndex = getColumnIndex(cursor, Media.TITLE);
+        int relativePathIndex = -1;
+        int filePathIndex = -1;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            relativePathIndex = getColumnIndex(cursor, Media.RELATIVE_PATH);
+        } else {
+            filePathIndex = getColumnIndex(cursor, Media.DATA);
+        }
+        int displayNameIndex = getColumnIndex(cursor, Media.DISPLAY_NAME);
+        int durationIndex = getColumnIndex(cursor, Media.DURATION);
+        int sizeIndex = getColumnIndex(cursor, Media.SIZE);
+        int idIndex = getColumnIndex(cursor, Media._ID);
+        int albumIdIndex = getColumnIndex(cursor, Media.ALBUM_ID);
+        int dateAddedIndex = getColumnIndex(cursor, Media.DATE_ADDED);
+        int dateModifiedIndex = getColumnIndex(cursor, Media.DATE_MODIFIED);
+
+        while (cursor.moveToNext()) {
+            StorageFullComposition composition = buildStorageComposition(
+                    artistIndex,
+                    titleIndex,
+                    relativePathIndex,
+                    filePathIndex,
+                    displayNameIndex,
+                    durationIndex,
+                    sizeIndex,
+                    idIndex,
+                    albumIdIndex,
+                    dateAddedIndex,
+                    dateModifiedIndex,
+                    cursorWrapper,
+                    albums
             );
-            if (compositions != null) {
-                emitter.onSuccess(compositions);
+            if (composition != null) {
+                outCompositions.put(composition.getId(), composition);
             }
-        });
+        }
+    }
+
+    private String joinIds(long[] ids, int from, int to) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            if (i != from) {
+                sb.append(',');
+            }
+            sb.append(ids[i]);
+        }
+        return sb.toString();
     }
 
     private void updateComposition(long id, String key, String value) {
@@ -469,7 +647,7 @@ public class StorageMusicProvider {
             int dateAddedIndex,
             int dateModifiedIndex,
             CursorWrapper cursorWrapper,
-            LongSparseArray<StorageAlbum> albums
+            LongHashMap<StorageAlbum> albums
     ) {
 
         String artist = cursorWrapper.getString(artistIndex);
@@ -566,14 +744,18 @@ public class StorageMusicProvider {
     }
 
     private List<Uri> getStorageUris() {
+        return new ArrayList<>(getStorageVolumeUris().values());
+    }
+
+    private Map<String, Uri> getStorageVolumeUris() {
+        Map<String, Uri> uris = new HashMap<>();
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
             Set<String> volumes = MediaStore.getExternalVolumeNames(context);
-            List<Uri> uris = new ArrayList<>();
-            volumes.forEach(volume -> uris.add(MediaStore.Audio.Media.getContentUri(volume)));
-            return uris;
+            volumes.forEach(volume -> uris.put(volume, MediaStore.Audio.Media.getContentUri(volume)));
         } else {
-            return asList(Media.EXTERNAL_CONTENT_URI);
+            uris.put(MediaStore.VOLUME_EXTERNAL, Media.EXTERNAL_CONTENT_URI);
         }
+        return uris;
     }
 
     private void applyBatch(ArrayList<ContentProviderOperation> operations) {
@@ -0,0 +1,34 @@
+package com.github.anrimian.musicplayer.data.storage.providers.music;
+
+import androidx.annotation.NonNull;
+
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * Position in media store change history for each storage volume.
+ * On android 11 and higher it is a volume generation, on older versions - max date modified
+ * (in seconds) of volume audio files.
+ */
+public class StorageWatermark {
+
+    private final Map<String, Long> volumeWatermarks;
+
+    public StorageWatermark(Map<String, Long> volumeWatermarks) {
+        this.volumeWatermarks = volumeWatermarks;
+    }
+
+    @Nullable
+    public Long getVolumeWatermark(String volume) {
+        return volumeWatermarks.get(volume);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "StorageWatermark{" +
+                "volumeWatermarks=" + volumeWatermarks +
+                '}';
+    }
+}
@@ -14,11 +14,10 @@ import android.net.Uri;
 import android.os.Build;
 import android.provider.MediaStore.Audio.Playlists;
 
-import androidx.collection.LongSparseArray;
-
 import com.github.anrimian.musicplayer.data.models.exceptions.PlayListNotCreatedException;
 import com.github.anrimian.musicplayer.data.storage.exceptions.UnavailableMediaStoreException;
 import com.github.anrimian.musicplayer.data.storage.providers.MediaStoreUtils;
+import com.github.anrimian.musicplayer.data.utils.collections.LongHashMap;
 import com.github.anrimian.musicplayer.data.utils.db.CursorWrapper;
 import com.github.anrimian.musicplayer.data.utils.rx.content_observer.RxContentObserver;
 import com.github.anrimian.musicplayer.domain.models.composition.Composition;
@@ -43,10 +42,10 @@ public class StoragePlayListsProvider {
         contentResolver = context.getContentResolver();
     }
 
-    public Observable<LongSparseArray<StoragePlayList>> getPlayListsObservable() {
+    public Observable<LongHashMap<StoragePlayList>> getPlayListsObservable() {
         return RxContentObserver.getObservable(contentResolver, Playlists.EXTERNAL_CONTENT_URI)
                 .flatMapSingle(o -> Single.create(emitter -> {
-                    LongSparseArray<StoragePlayList> playLists = getPlayLists();
+                    LongHashMap<StoragePlayList> playLists = getPlayLists();
                     if (playLists != null) {
                         emitter.onSuccess(playLists);
                     }
@@ -54,7 +53,7 @@ public class StoragePlayListsProvider {
     }
 
     @Nullable
-    public LongSparseArray<StoragePlayList> getPlayLists() {
+    public LongHashMap<StoragePlayList> getPlayLists() {
         try {
             MediaStoreUtils.checkIfMediaStoreAvailable(context);
         } catch (UnavailableMediaStoreException e) {
@@ -68,11 +67,11 @@ public class StoragePlayListsProvider {
                 null,
                 null)) {
             if (cursor == null) {
-                return new LongSparseArray<>();
+                return new LongHashMap<>();
             }
             CursorWrapper cursorWrapper = new CursorWrapper(cursor);
 
-            LongSparseArray<StoragePlayList> map = new LongSparseArray<>();
+            LongHashMap<StoragePlayList> map = new LongHashMap<>(cursor.getCount());
             while (cursor.moveToNext()) {
                 StoragePlayList playList = getPlayListFromCursor(cursorWrapper);
                 if (playList != null) {
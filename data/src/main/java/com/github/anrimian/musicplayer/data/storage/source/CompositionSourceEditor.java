@@ -17,40 +17,67 @@ import com.github.anrimian.musicplayer.domain.utils.functions.ThrowsCallback;
 import org.jaudiotagger.audio.AudioFile;
 import org.jaudiotagger.audio.AudioFileIO;
 import org.jaudiotagger.audio.exceptions.CannotReadException;
+import org.jaudiotagger.audio.mp3.MP3File;
 import org.jaudiotagger.tag.FieldKey;
 import org.jaudiotagger.tag.Tag;
-import org.jaudiotagger.tag.id3.ID3v24Tag;
+import org.jaudiotagger.tag.id3.AbstractID3v2Tag;
 import org.jaudiotagger.tag.id3.valuepair.ImageFormats;
 import org.jaudiotagger.tag.images.AndroidArtwork;
 import org.jaudiotagger.tag.images.Artwork;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.List;
 
 import javax.annotation.Nullable;
 
 import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.Maybe;
-import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.core.Single;
 
 public class CompositionSourceEditor {
 
     private static final char GENRE_DIVIDER = '\u0000';
     private static final int MAX_COVER_SIZE = 1000;
+    private static final int FILE_LOCKS_COUNT = 32;
 
     private final StorageMusicProvider storageMusicProvider;
     private final FileSourceProvider fileSourceProvider;
 
+    private final HeaderTagsReader headerTagsReader = new HeaderTagsReader();
+
+    /*
+     * Edits run on multi-thread lane, edits of the same file are serialized by these locks,
+     * otherwise concurrent read-modify-write of tags loses changes. Locks are striped by path
+     */
+    private final Object[] fileLocks = new Object[FILE_LOCKS_COUNT];
+
     public CompositionSourceEditor(StorageMusicProvider storageMusicProvider,
                                    FileSourceProvider fileSourceProvider) {
         this.storageMusicProvider = storageMusicProvider;
         this.fileSourceProvider = fileSourceProvider;
+        for (int i = 0; i < FILE_LOCKS_COUNT; i++) {
+            fileLocks[i] = new Object();
+        }
+    }
+
+    public Completable editTags(FullComposition composition, TagEditBatch batch) {
+        return getPath(composition)
+                .flatMapCompletable(path -> editTags(path, composition.getStorageId(), batch));
+    }
+
+    public Completable editTags(CompositionId composition, TagEditBatch batch) {
+        return getPath(composition)
+                .flatMapCompletable(path -> editTags(path, composition.getStorageId(), batch));
+    }
+
+    /**
+     * @return path of edited file
+     */
+    public Single<String> editTagsOfFile(CompositionId composition, TagEditBatch batch) {
+        return getPath(composition)
+                .flatMap(path -> editTags(path, composition.getStorageId(), batch).toSingleDefault(path));
     }
 
     public Completable setCompositionTitle(FullComposition composition, String title) {
@@ -78,25 +105,11 @@ public class CompositionSourceEditor {
                 .flatMapCompletable(path -> setCompositionAlbum(path, composition.getStorageId(), author));
     }
 
-    public Single<List<CompositionId>> setCompositionsAlbum(List<CompositionId> compositions, String album) {
-        return Observable.fromIterable(compositions)
-                .flatMapCompletable(composition -> setCompositionAlbum(composition, album))
-                .onErrorResumeNext(throwable -> storageMusicProvider.processStorageError(throwable, compositions))
-                .toSingleDefault(compositions);
-    }
-
     public Completable setCompositionAlbumArtist(FullComposition composition, String artist) {
         return getPath(composition)
                 .flatMapCompletable(path -> setCompositionAlbumArtist(path, composition.getStorageId(), artist));
     }
 
-    public Single<List<CompositionId>> setCompositionsAlbumArtist(List<CompositionId> compositions, String artist) {
-        return Observable.fromIterable(compositions)
-                .flatMapCompletable(composition -> setCompositionAlbumArtist(composition, artist))
-                .onErrorResumeNext(throwable -> storageMusicProvider.processStorageError(throwable, compositions))
-                .toSingleDefault(compositions);
-    }
-
     public Completable setCompositionAlbumArtist(CompositionId composition, String artist) {
         return getPath(composition)
                 .flatMapCompletable(path -> setCompositionAlbumArtist(path, composition.getStorageId(), artist));
@@ -158,92 +171,52 @@ public class CompositionSourceEditor {
                 .flatMapMaybe(this::getArtworkBinaryData);
     }
 
+    Completable editTags(String filePath, Long storageId, TagEditBatch batch) {
+        return Completable.fromAction(() -> editAudioFileTag(filePath, storageId, batch));
+    }
+
     //genre not found case
     Completable changeCompositionGenre(String filePath,
                                        Long storageId,
                                        String oldGenre,
                                        String newGenre) {
-        return Completable.fromAction(() -> {
-            String genres = getFileTag(filePath).getFirst(FieldKey.GENRE);
-            genres = genres.replace(oldGenre, newGenre);
-            editFile(filePath, storageId, FieldKey.GENRE, genres);
-        });
+        return editTags(filePath, storageId, new TagEditBatch().changeGenre(oldGenre, newGenre));
     }
 
     Completable setCompositionAlbumArtist(String filePath,
                                           Long storageId,
                                           String artist) {
-        return Completable.fromAction(() -> editFile(filePath, storageId, FieldKey.ALBUM_ARTIST, artist));
+        return editTags(filePath, storageId, new TagEditBatch().setAlbumArtist(artist));
     }
 
     Completable setCompositionAlbum(String filePath,
                                     Long storageId,
                                     String author) {
-        return Completable.fromAction(() -> editFile(filePath, storageId, FieldKey.ALBUM, author));
+        return editTags(filePath, storageId, new TagEditBatch().setAlbum(author));
     }
 
-
     Completable setCompositionTitle(String filePath,
                                     Long storageId,
                                     String title) {
-        return Completable.fromAction(() -> editFile(filePath, storageId, FieldKey.TITLE, title));
+        return editTags(filePath, storageId, new TagEditBatch().setTitle(title));
     }
 
     Completable setCompositionLyrics(String filePath,
                                      Long storageId,
                                      String text) {
-        return Completable.fromAction(() -> editFile(filePath, storageId, FieldKey.LYRICS, text));
+        return editTags(filePath, storageId, new TagEditBatch().setLyrics(text));
     }
 
     Completable addCompositionGenre(String filePath,
                                     Long storageId,
                                     String newGenre) {
-        return Completable.fromAction(() -> {
-            AudioFile file = AudioFileIO.read(new File(filePath));
-            Tag tag = file.getTag();
-            if (tag == null) {
-                tag = new ID3v24Tag();
-                file.setTag(tag);
-            }
-            tag.addField(FieldKey.GENRE, newGenre);
-            AudioFileIO.write(file);
-//            String genres = getFileTag(filePath).getFirst(FieldKey.GENRE);
-//            StringBuilder sb = new StringBuilder(genres);
-//            if (sb.length() != 0) {
-//                sb.append(GENRE_DIVIDER);
-//            }
-//            sb.append(newGenre);
-//            sb.append(GENRE_DIVIDER);
-//            editFile(filePath, FieldKey.GENRE, sb.toString());
-        });
+        return editTags(filePath, storageId, new TagEditBatch().addGenre(newGenre));
     }
 
     Completable removeCompositionGenre(String filePath,
                                        Long storageId,
                                        String genre) {
-        return Completable.fromAction(() -> {
-            String genres = getFileTag(filePath).getFirst(FieldKey.GENRE);
-            int startIndex = genres.indexOf(genre);
-            if (startIndex == -1) {
-                return;
-            }
-            int endIndex = startIndex + genre.length();
-            StringBuilder sb = new StringBuilder(genres);
-
-            //clear divider at start
-            if (startIndex == 1 && sb.charAt(0) == GENRE_DIVIDER) {
-                startIndex = 0;
-            }
-            //clear divider at end or next if genre is at start or has divider before
-            if ((endIndex == sb.length() - 2 || startIndex == 0 || sb.charAt(startIndex - 1) == GENRE_DIVIDER)
-                    && (endIndex < sb.length() && sb.charAt(endIndex) == GENRE_DIVIDER)) {
-                endIndex++;
-            }
-
-            sb.delete(startIndex, endIndex);
-
-            editFile(filePath, storageId, FieldKey.GENRE, sb.toString());
-        });
+        return editTags(filePath, storageId, new TagEditBatch().removeGenre(genre));
     }
 
     Maybe<String> getCompositionTitle(String filePath) {
@@ -271,7 +244,7 @@ public class CompositionSourceEditor {
     }
 
     private Completable setCompositionAuthor(String filePath, Long storageId, String author) {
-        return Completable.fromAction(() -> editFile(filePath, storageId, FieldKey.ARTIST, author));
+        return editTags(filePath, storageId, new TagEditBatch().setArtist(author));
     }
 
     private Single<String[]> getCompositionGenres(String filePath) {
@@ -287,18 +260,34 @@ public class CompositionSourceEditor {
     private Single<CompositionSourceTags> getFullTags(String filePath) {
         return Single.fromCallable(() -> {
             try {
+                CompositionSourceTags tags = readHeaderTags(filePath);
+                if (tags != null) {
+                    return tags;
+                }
                 Tag tag = getFileTag(filePath);
                 return new CompositionSourceTags(tag.getFirst(FieldKey.TITLE),
                         tag.getFirst(FieldKey.ARTIST),
                         tag.getFirst(FieldKey.ALBUM),
                         tag.getFirst(FieldKey.ALBUM_ARTIST),
-                        tag.getFirst(FieldKey.LYRICS));
+                        tag.getFirst(FieldKey.LYRICS),
+                        null,
+                        null);
             } catch (Exception e) {
                 throw new TagReaderException("Unable to read: " + filePath, e);
             }
         });
     }
 
+    //fast path without full file parsing, jaudiotagger is used for unsupported or broken files
+    @Nullable
+    private CompositionSourceTags readHeaderTags(String filePath) {
+        try {
+            return headerTagsReader.readTags(new File(filePath));
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
     private Maybe<byte[]> getArtworkBinaryData(String filePath) {
         return Maybe.fromCallable(() -> {
             Tag tag = getFileTag(filePath);
@@ -342,44 +331,38 @@ public class CompositionSourceEditor {
     private Single<Long> changeCompositionAlbumArt(String filePath, Long id, ImageSource imageSource) {
         return Single.fromCallable(() -> editAudioFileTag(filePath,
                 id,
-                tag -> {
-                    try (InputStream stream = fileSourceProvider.getImageStream(imageSource)) {
-                        if (stream == null) {
-                            return;
-                        }
-                        byte[] data = FileUtils.getScaledBitmapByteArray(stream, MAX_COVER_SIZE);
-                        Artwork artwork = new AndroidArtwork();
-                        artwork.setBinaryData(data);
-                        artwork.setMimeType(ImageFormats.getMimeTypeForBinarySignature(data));
-                        tag.deleteArtworkField();
-                        tag.setField(artwork);
-                    }
-                }
+                new TagEditBatch().setArtwork(imageSource)
         ));
     }
 
     private Single<Long> removeCompositionAlbumArt(String filePath, Long id) {
-        return Single.fromCallable(() -> editAudioFileTag(filePath, id, Tag::deleteArtworkField));
+        return Single.fromCallable(() -> editAudioFileTag(filePath,
+                id,
+                new TagEditBatch().removeArtwork()
+        ));
     }
 
-    private void editFile(String filePath,
-                          long id,
-                          FieldKey genericKey,
-                          String value) throws Exception {
-        editAudioFileTag(filePath,
-                id,
-                tag -> tag.setField(genericKey, value == null? "" : value)
-        );
+    private long editAudioFileTag(String filePath, Long id, TagEditBatch batch) throws Exception {
+        if (batch.isEmpty()) {
+            return new File(filePath).length();
+        }
+        synchronized (getFileLock(filePath)) {
+            return editAudioFileTagLocked(filePath, id, batch);
+        }
     }
 
-    private long editAudioFileTag(String filePath, Long id, ThrowsCallback<Tag> callback)
-            throws Exception {
+    private long editAudioFileTagLocked(String filePath, Long id, TagEditBatch batch) throws Exception {
+        ThrowsCallback<Tag> callback = tag -> applyBatch(tag, batch);
         File fileToEdit = new File(filePath);
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R || !fileToEdit.canWrite()) {//will see how it works
-            return fileSourceProvider.useTempFile(getFileName(filePath), tempFile -> {
-                copyFileUsingStream(fileToEdit, tempFile);
+            if (editTagInPlace(fileToEdit, id, callback)) {
+                return fileToEdit.length();
+            }
+            //temp file name contains id to avoid collisions in parallel edits
+            return fileSourceProvider.useTempFile(id + "_" + getFileName(filePath), tempFile -> {
+                FileUtils.copyFile(fileToEdit, tempFile);
                 runFileAction(tempFile, callback);
-                copyFileToMediaStore(tempFile, id);
+                copyFileToMediaStore(tempFile, id, "w");
             });
         } else {
             runFileAction(fileToEdit, callback);
@@ -387,6 +370,66 @@ public class CompositionSourceEditor {
         }
     }
 
+    /**
+     * Rewrites only tag region of mp3 file if new ID3v2 tag fits into existing tag and its padding.
+     * ID3v1 tag at the end of file is not changed, like in full rewrite. Other formats are rewritten fully.
+     *
+     * @return true if file was edited
+     */
+    boolean editTagInPlace(File file, Long id, ThrowsCallback<Tag> callback) throws Exception {
+        if (!file.getName().toLowerCase().endsWith(".mp3")) {
+            return false;
+        }
+        AudioFile audioFile = readFile(file);
+        if (!(audioFile instanceof MP3File)) {
+            return false;
+        }
+        MP3File mp3File = (MP3File) audioFile;
+        if (!mp3File.hasID3v2Tag()) {
+            return false;
+        }
+        long audioStart = mp3File.getMP3AudioHeader().getMp3StartByte();
+        AbstractID3v2Tag tag = mp3File.getID3v2Tag();
+        callback.call(tag);
+
+        String tempFileName = id + "_tag_" + getFileName(file.getPath());
+        long tagSize = fileSourceProvider.useTempFile(tempFileName, tempFile -> {
+            FileUtils.copyFile(file, tempFile, audioStart);
+            //tag writer extends temp file when new tag doesn't fit into old one
+            if (tag.write(tempFile, audioStart) == audioStart) {
+                copyFileToMediaStore(tempFile, id, "rw");
+            }
+        });
+        return tagSize == audioStart;
+    }
+
+    private Object getFileLock(String filePath) {
+        return fileLocks[(filePath.hashCode() & Integer.MAX_VALUE) % FILE_LOCKS_COUNT];
+    }
+
+    private void applyBatch(Tag tag, TagEditBatch batch) throws Exception {
+        batch.applyFields(tag);
+        if (!batch.isArtworkChanged()) {
+            return;
+        }
+        ImageSource imageSource = batch.getArtworkSource();
+        if (imageSource == null) {
+            tag.deleteArtworkField();
+            return;
+        }
+        try (InputStream stream = fileSourceProvider.getImageStream(imageSource)) {
+            if (stream == null) {
+                return;
+            }
+            byte[] data = FileUtils.getScaledBitmapByteArray(stream, MAX_COVER_SIZE);
+            Artwork artwork = new AndroidArtwork();
+            artwork.setBinaryData(data);
+            artwork.setMimeType(ImageFormats.getMimeTypeForBinarySignature(data));
+            tag.deleteArtworkField();
+            tag.setField(artwork);
+        }
+    }
+
     private void runFileAction(File file, ThrowsCallback<Tag> callback) throws Exception {
         AudioFile audioFile = readFile(file);
         Tag tag = audioFile.getTagOrCreateAndSetDefault();
@@ -402,27 +445,9 @@ public class CompositionSourceEditor {
         }
     }
 
-    private void copyFileToMediaStore(File source, Long id) throws IOException {
-        try (InputStream is = new FileInputStream(source);
-             OutputStream os = storageMusicProvider.openCompositionOutputStream(id)
-        ) {
-            byte[] buffer = new byte[1024];
-            int length;
-            while ((length = is.read(buffer)) > 0) {
-                os.write(buffer, 0, length);
-            }
-        }
-    }
-
-    private static void copyFileUsingStream(File source, File dest) throws IOException {
-        try (InputStream is = new FileInputStream(source);
-             OutputStream os = new FileOutputStream(dest)
-        ) {
-            byte[] buffer = new byte[1024];
-            int length;
-            while ((length = is.read(buffer)) > 0) {
-                os.write(buffer, 0, length);
-            }
+    private void copyFileToMediaStore(File source, Long id, String mode) throws IOException {
+        try (OutputStream os = storageMusicProvider.openCompositionOutputStream(id, mode)) {
+            FileUtils.copyFile(source, os);
         }
     }
 }
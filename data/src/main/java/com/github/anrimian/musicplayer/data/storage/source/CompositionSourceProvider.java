@@ -1,5 +1,6 @@
 package com.github.anrimian.musicplayer.data.storage.source;
 
+import android.media.MediaMetadataRetriever;
 import android.net.Uri;
 
 import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDaoWrapper;
@@ -8,12 +9,15 @@ import com.github.anrimian.musicplayer.domain.models.composition.Composition;
 
 import java.io.FileDescriptor;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
+import javax.annotation.Nullable;
+
 import io.reactivex.rxjava3.core.Maybe;
 import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.core.Scheduler;
@@ -63,6 +67,25 @@ public class CompositionSourceProvider {
                 .flatMap(compositionSourceEditor::getCompositionArtworkBinaryData);
     }
 
+    /**
+     * Reads embedded cover with tags parser, platform retriever is used as fallback
+     * for files which are not supported by parser
+     */
+    @Nullable
+    public byte[] readCompositionArtwork(long compositionId) throws IOException {
+        byte[] imageBytes = getCompositionArtworkBinaryData(compositionId).blockingGet();
+        if (imageBytes != null) {
+            return imageBytes;
+        }
+        MediaMetadataRetriever mmr = new MediaMetadataRetriever();
+        try {
+            mmr.setDataSource(getCompositionFileDescriptor(compositionId));
+            return mmr.getEmbeddedPicture();
+        } finally {
+            mmr.release();
+        }
+    }
+
     public InputStream getCompositionStream(long compositionId) throws FileNotFoundException {
         long storageId = compositionsDao.getStorageId(compositionId);
         return storageMusicProvider.getCompositionStream(storageId);
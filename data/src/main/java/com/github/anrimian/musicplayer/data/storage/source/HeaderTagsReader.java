@@ -0,0 +1,893 @@
+package com.github.anrimian.musicplayer.data.storage.source;
+
+import com.github.anrimian.musicplayer.domain.models.composition.source.CompositionSourceTags;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import javax.annotation.Nullable;
+
+/**
+ * Reads composition tags with positioned reads of the tag regions only, without parsing
+ * the whole container and without loading artwork.
+ * Supports ID3v2, APEv2 and ID3v1 in mpeg files, vorbis comments in flac and ogg (vorbis, opus)
+ * files and ilst atom in mp4 files. Other formats must be read with jaudiotagger.
+ * Replay gain track values are read from user defined text frames, ape items, vorbis comments
+ * (including opus R128 gain) and freeform mp4 atoms.
+ */
+public class HeaderTagsReader {
+
+    private static final int ID3V2_HEADER_SIZE = 10;
+    private static final int ID3V1_SIZE = 128;
+    private static final int APE_FOOTER_SIZE = 32;
+    private static final int MP4_ATOM_HEADER_SIZE = 8;
+
+    //sanity limit for a single text field, bigger fields are skipped
+    private static final int MAX_FIELD_SIZE = 1024 * 1024;
+    //enough to read vorbis comment or ape item key
+    private static final int MAX_KEY_SIZE = 64;
+
+    private static final Charset ISO_8859_1 = StandardCharsets.ISO_8859_1;
+    private static final Charset UTF_8 = StandardCharsets.UTF_8;
+
+    //R128 gain is relative to -23 LUFS, replay gain reference is -18 LUFS
+    private static final float R128_TO_REPLAY_GAIN_DB = 5f;
+
+    /**
+     * @return tags of the file or null if file format is not supported
+     */
+    @Nullable
+    public CompositionSourceTags readTags(File file) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            TagsBuilder builder = readTags(channel);
+            return builder == null ? null : builder.build();
+        }
+    }
+
+    @Nullable
+    private TagsBuilder readTags(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        if (fileSize < 12) {
+            return null;
+        }
+        byte[] head = read(channel, 0, 12);
+        if (startsWith(head, 0, "ID3")) {
+            long tagEnd = ID3V2_HEADER_SIZE + readSyncSafeInt(head, 6);
+            if ((head[3] == 4) && (head[5] & 0x10) != 0) {//footer
+                tagEnd += ID3V2_HEADER_SIZE;
+            }
+            //id3v2 tag can be prepended to flac file
+            if (tagEnd + 4 <= fileSize && startsWith(read(channel, tagEnd, 4), 0, "fLaC")) {
+                return readFlac(channel, tagEnd + 4);
+            }
+            return readId3v2(channel, head, tagEnd);
+        }
+        if (startsWith(head, 0, "fLaC")) {
+            return readFlac(channel, 4);
+        }
+        if (startsWith(head, 0, "OggS")) {
+            return readOgg(channel);
+        }
+        if (startsWith(head, 4, "ftyp")) {
+            return readMp4(channel);
+        }
+        if ((head[0] & 0xFF) == 0xFF && (head[1] & 0xE0) == 0xE0) {//mpeg frame sync
+            return readTailTags(channel);
+        }
+        return null;
+    }
+
+    //ID3v2
+
+    @Nullable
+    private TagsBuilder readId3v2(FileChannel channel, byte[] header, long tagEnd)
+            throws IOException {
+        int version = header[3];
+        int flags = header[5];
+        if (version < 2 || version > 4) {
+            return null;
+        }
+        if (version == 2 && (flags & 0x40) != 0) {//compression
+            return null;
+        }
+        //unsynchronisation of the whole tag including frame headers
+        if (version < 4 && (flags & 0x80) != 0) {
+            return null;
+        }
+        boolean tagUnsynchronized = version == 4 && (flags & 0x80) != 0;
+        tagEnd = Math.min(tagEnd, channel.size());
+
+        long position = ID3V2_HEADER_SIZE;
+        if (version > 2 && (flags & 0x40) != 0) {//extended header
+            byte[] sizeBytes = read(channel, position, 4);
+            position += version == 3 ? 4 + readInt(sizeBytes, 0) : readSyncSafeInt(sizeBytes, 0);
+        }
+
+        int frameHeaderSize = version == 2 ? 6 : 10;
+        TagsBuilder builder = new TagsBuilder();
+        while (position + frameHeaderSize <= tagEnd) {
+            byte[] frameHeader = read(channel, position, frameHeaderSize);
+            if (frameHeader[0] == 0) {//padding
+                break;
+            }
+            String frameId;
+            int frameSize;
+            int frameFlags = 0;
+            if (version == 2) {
+                frameId = new String(frameHeader, 0, 3, ISO_8859_1);
+                frameSize = ((frameHeader[3] & 0xFF) << 16)
+                        | ((frameHeader[4] & 0xFF) << 8)
+                        | (frameHeader[5] & 0xFF);
+            } else {
+                frameId = new String(frameHeader, 0, 4, ISO_8859_1);
+                frameSize = version == 3 ? readInt(frameHeader, 4) : readSyncSafeInt(frameHeader, 4);
+                frameFlags = frameHeader[9] & 0xFF;
+            }
+            long frameStart = position + frameHeaderSize;
+            if (frameSize < 0 || frameStart + frameSize > tagEnd) {
+                break;
+            }
+            position = frameStart + frameSize;
+
+            int field = getId3v2Field(frameId);
+            //user defined frame is small, field is known after description is read
+            if (field == TagsBuilder.USER_TEXT) {
+                if (frameSize > MAX_KEY_SIZE * 2) {
+                    continue;
+                }
+            } else if (field == TagsBuilder.NONE || builder.has(field) || frameSize > MAX_FIELD_SIZE) {
+                continue;
+            }
+            boolean unsynchronized = tagUnsynchronized;
+            int skipBytes = 0;
+            if (version == 3) {
+                if ((frameFlags & 0xC0) != 0) {//compression or encryption
+                    return null;
+                }
+                if ((frameFlags & 0x20) != 0) {//group id
+                    skipBytes++;
+                }
+            } else if (version == 4) {
+                if ((frameFlags & 0x0C) != 0) {//compression or encryption
+                    return null;
+                }
+                if ((frameFlags & 0x40) != 0) {//group id
+                    skipBytes++;
+                }
+                if ((frameFlags & 0x01) != 0) {//data length indicator
+                    skipBytes += 4;
+                }
+                unsynchronized |= (frameFlags & 0x02) != 0;
+            }
+            if (frameSize <= skipBytes) {
+                continue;
+            }
+            byte[] body = read(channel, frameStart + skipBytes, frameSize - skipBytes);
+            if (unsynchronized) {
+                body = removeUnsynchronisation(body);
+            }
+            if (field == TagsBuilder.USER_TEXT) {
+                readId3v2UserText(body, builder);
+                continue;
+            }
+            builder.set(field, field == TagsBuilder.LYRICS
+                    ? decodeId3v2Lyrics(body)
+                    : decodeId3v2Text(body));
+        }
+        return builder;
+    }
+
+    private void readId3v2UserText(byte[] body, TagsBuilder builder) {
+        //encoding, description, value
+        if (body.length < 1) {
+            return;
+        }
+        int encoding = body[0];
+        int descriptionEnd = findTerminator(body, 1, encoding);
+        String description = decodeId3v2String(body, 1, descriptionEnd, encoding);
+        int field = getReplayGainField(description);
+        if (field == TagsBuilder.NONE || builder.has(field)) {
+            return;
+        }
+        int valueStart = Math.min(descriptionEnd + getTerminatorSize(encoding), body.length);
+        int valueEnd = findTerminator(body, valueStart, encoding);
+        builder.set(field, decodeId3v2String(body, valueStart, valueEnd, encoding));
+    }
+
+    private int getId3v2Field(String frameId) {
+        switch (frameId) {
+            case "TIT2":
+            case "TT2": return TagsBuilder.TITLE;
+            case "TPE1":
+            case "TP1": return TagsBuilder.ARTIST;
+            case "TALB":
+            case "TAL": return TagsBuilder.ALBUM;
+            case "TPE2":
+            case "TP2": return TagsBuilder.ALBUM_ARTIST;
+            case "USLT":
+            case "ULT": return TagsBuilder.LYRICS;
+            case "TXXX":
+            case "TXX": return TagsBuilder.USER_TEXT;
+            default: return TagsBuilder.NONE;
+        }
+    }
+
+    //returns first value of text frame
+    private String decodeId3v2Text(byte[] body) {
+        if (body.length < 1) {
+            return null;
+        }
+        int encoding = body[0];
+        int end = findTerminator(body, 1, encoding);
+        return decodeId3v2String(body, 1, end, encoding);
+    }
+
+    private String decodeId3v2Lyrics(byte[] body) {
+        //encoding, language, content descriptor, text
+        if (body.length < 4) {
+            return null;
+        }
+        int encoding = body[0];
+        int descriptorEnd = findTerminator(body, 4, encoding);
+        int textStart = Math.min(descriptorEnd + getTerminatorSize(encoding), body.length);
+        int textEnd = body.length;
+        //cut trailing terminator
+        int terminatorSize = getTerminatorSize(encoding);
+        while (textEnd - terminatorSize >= textStart && isZero(body, textEnd - terminatorSize, terminatorSize)) {
+            textEnd -= terminatorSize;
+        }
+        return decodeId3v2String(body, textStart, textEnd, encoding);
+    }
+
+    private String decodeId3v2String(byte[] body, int start, int end, int encoding) {
+        if (end <= start) {
+            return "";
+        }
+        Charset charset;
+        switch (encoding) {
+            case 1: charset = StandardCharsets.UTF_16; break;
+            case 2: charset = StandardCharsets.UTF_16BE; break;
+            case 3: charset = UTF_8; break;
+            default: charset = ISO_8859_1;
+        }
+        return new String(body, start, end - start, charset);
+    }
+
+    private int findTerminator(byte[] body, int start, int encoding) {
+        int terminatorSize = getTerminatorSize(encoding);
+        for (int i = start; i + terminatorSize <= body.length; i += terminatorSize) {
+            if (isZero(body, i, terminatorSize)) {
+                return i;
+            }
+        }
+        return body.length;
+    }
+
+    private int getTerminatorSize(int encoding) {
+        return encoding == 1 || encoding == 2 ? 2 : 1;
+    }
+
+    private byte[] removeUnsynchronisation(byte[] data) {
+        byte[] result = new byte[data.length];
+        int size = 0;
+        for (int i = 0; i < data.length; i++) {
+            result[size++] = data[i];
+            if ((data[i] & 0xFF) == 0xFF && i + 1 < data.length && data[i + 1] == 0) {
+                i++;
+            }
+        }
+        byte[] trimmed = new byte[size];
+        System.arraycopy(result, 0, trimmed, 0, size);
+        return trimmed;
+    }
+
+    //APEv2 and ID3v1
+
+    private TagsBuilder readTailTags(FileChannel channel) throws IOException {
+        TagsBuilder builder = new TagsBuilder();
+        long fileSize = channel.size();
+        long apeEnd = fileSize;
+        byte[] id3v1 = null;
+        if (fileSize >= ID3V1_SIZE) {
+            byte[] tail = read(channel, fileSize - ID3V1_SIZE, ID3V1_SIZE);
+            if (startsWith(tail, 0, "TAG")) {
+                id3v1 = tail;
+                apeEnd -= ID3V1_SIZE;
+            }
+        }
+        if (apeEnd >= APE_FOOTER_SIZE) {
+            byte[] footer = read(channel, apeEnd - APE_FOOTER_SIZE, APE_FOOTER_SIZE);
+            if (startsWith(footer, 0, "APETAGEX")) {
+                readApeItems(channel, footer, apeEnd, builder);
+            }
+        }
+        if (id3v1 != null) {
+            builder.setIfAbsent(TagsBuilder.TITLE, decodeId3v1String(id3v1, 3));
+            builder.setIfAbsent(TagsBuilder.ARTIST, decodeId3v1String(id3v1, 33));
+            builder.setIfAbsent(TagsBuilder.ALBUM, decodeId3v1String(id3v1, 63));
+        }
+        return builder;
+    }
+
+    private void readApeItems(FileChannel channel, byte[] footer, long apeEnd, TagsBuilder builder)
+            throws IOException {
+        long tagSize = readIntLE(footer, 12) & 0xFFFFFFFFL;//items and footer
+        long itemsCount = readIntLE(footer, 16) & 0xFFFFFFFFL;
+        long position = apeEnd - tagSize;
+        long itemsEnd = apeEnd - APE_FOOTER_SIZE;
+        if (position < 0) {
+            return;
+        }
+        for (long i = 0; i < itemsCount && position + 8 < itemsEnd; i++) {
+            byte[] itemHeader = read(channel, position, (int) Math.min(8 + MAX_KEY_SIZE, itemsEnd - position));
+            long valueSize = readIntLE(itemHeader, 0) & 0xFFFFFFFFL;
+            int itemFlags = readIntLE(itemHeader, 4);
+            int keyEnd = 8;
+            while (keyEnd < itemHeader.length && itemHeader[keyEnd] != 0) {
+                keyEnd++;
+            }
+            if (keyEnd == itemHeader.length) {//too long key
+                return;
+            }
+            String key = new String(itemHeader, 8, keyEnd - 8, ISO_8859_1);
+            long valueStart = position + keyEnd + 1;
+            position = valueStart + valueSize;
+
+            int field = getApeField(key);
+            boolean isText = ((itemFlags >> 1) & 0x3) == 0;
+            if (field == TagsBuilder.NONE
+                    || !isText
+                    || valueSize > MAX_FIELD_SIZE
+                    || position > itemsEnd) {
+                continue;
+            }
+            byte[] value = read(channel, valueStart, (int) valueSize);
+            //multiple values are separated by zero byte
+            int end = findTerminator(value, 0, 3);
+            builder.setIfAbsent(field, new String(value, 0, end, UTF_8));
+        }
+    }
+
+    private int getApeField(String key) {
+        switch (key.toLowerCase()) {
+            case "title": return TagsBuilder.TITLE;
+            case "artist": return TagsBuilder.ARTIST;
+            case "album": return TagsBuilder.ALBUM;
+            case "album artist":
+            case "albumartist": return TagsBuilder.ALBUM_ARTIST;
+            case "lyrics": return TagsBuilder.LYRICS;
+            default: return getReplayGainField(key);
+        }
+    }
+
+    private String decodeId3v1String(byte[] tag, int start) {
+        int end = start + 30;
+        int terminator = start;
+        while (terminator < end && tag[terminator] != 0) {
+            terminator++;
+        }
+        return new String(tag, start, terminator - start, ISO_8859_1).trim();
+    }
+
+    //FLAC
+
+    private TagsBuilder readFlac(FileChannel channel, long position) throws IOException {
+        TagsBuilder builder = new TagsBuilder();
+        long fileSize = channel.size();
+        boolean isLast = false;
+        while (!isLast && position + 4 <= fileSize) {
+            byte[] blockHeader = read(channel, position, 4);
+            isLast = (blockHeader[0] & 0x80) != 0;
+            int blockType = blockHeader[0] & 0x7F;
+            int blockSize = ((blockHeader[1] & 0xFF) << 16)
+                    | ((blockHeader[2] & 0xFF) << 8)
+                    | (blockHeader[3] & 0xFF);
+            position += 4;
+            if (blockType == 4) {//vorbis comment
+                readVorbisComment(new ChannelSource(channel, position, position + blockSize), builder);
+                break;
+            }
+            position += blockSize;
+        }
+        return builder;
+    }
+
+    //Ogg
+
+    @Nullable
+    private TagsBuilder readOgg(FileChannel channel) throws IOException {
+        OggPacketSource source = new OggPacketSource(channel);
+        source.skipPacket();//identification header
+        byte[] header = new byte[7];
+        source.read(header, 0, header.length);
+        if (header[0] == 3 && startsWith(header, 1, "vorbis")) {
+            TagsBuilder builder = new TagsBuilder();
+            readVorbisComment(source, builder);
+            return builder;
+        }
+        if (startsWith(header, 0, "OpusTag")) {
+            byte[] last = new byte[1];
+            source.read(last, 0, 1);
+            if (last[0] == 's') {
+                TagsBuilder builder = new TagsBuilder();
+                readVorbisComment(source, builder);
+                return builder;
+            }
+        }
+        return null;
+    }
+
+    private void readVorbisComment(ByteSource source, TagsBuilder builder) throws IOException {
+        byte[] lengthBytes = new byte[4];
+        source.read(lengthBytes, 0, 4);
+        source.skip(readIntLE(lengthBytes, 0) & 0xFFFFFFFFL);//vendor
+        source.read(lengthBytes, 0, 4);
+        long count = readIntLE(lengthBytes, 0) & 0xFFFFFFFFL;
+        for (long i = 0; i < count; i++) {
+            source.read(lengthBytes, 0, 4);
+            long length = readIntLE(lengthBytes, 0) & 0xFFFFFFFFL;
+            int keyPartSize = (int) Math.min(length, MAX_KEY_SIZE);
+            byte[] keyPart = new byte[keyPartSize];
+            source.read(keyPart, 0, keyPartSize);
+            int separator = 0;
+            while (separator < keyPartSize && keyPart[separator] != '=') {
+                separator++;
+            }
+            int field = separator == keyPartSize
+                    ? TagsBuilder.NONE
+                    : getVorbisField(new String(keyPart, 0, separator, ISO_8859_1));
+            if (field == TagsBuilder.NONE || builder.has(field) || length > MAX_FIELD_SIZE) {
+                source.skip(length - keyPartSize);
+                continue;
+            }
+            byte[] comment = new byte[(int) length];
+            System.arraycopy(keyPart, 0, comment, 0, keyPartSize);
+            source.read(comment, keyPartSize, (int) length - keyPartSize);
+            builder.set(field, new String(comment, separator + 1, (int) length - separator - 1, UTF_8));
+        }
+    }
+
+    private int getVorbisField(String key) {
+        switch (key.toUpperCase()) {
+            case "TITLE": return TagsBuilder.TITLE;
+            case "ARTIST": return TagsBuilder.ARTIST;
+            case "ALBUM": return TagsBuilder.ALBUM;
+            case "ALBUMARTIST":
+            case "ALBUM ARTIST": return TagsBuilder.ALBUM_ARTIST;
+            case "LYRICS": return TagsBuilder.LYRICS;
+            case "R128_TRACK_GAIN": return TagsBuilder.R128_TRACK_GAIN;
+            default: return getReplayGainField(key);
+        }
+    }
+
+    //MP4
+
+    private TagsBuilder readMp4(FileChannel channel) throws IOException {
+        TagsBuilder builder = new TagsBuilder();
+        Mp4Atom moov = findAtom(channel, 0, channel.size(), "moov");
+        if (moov == null) {
+            return builder;
+        }
+        Mp4Atom udta = findAtom(channel, moov.bodyStart, moov.end, "udta");
+        if (udta == null) {
+            return builder;
+        }
+        Mp4Atom meta = findAtom(channel, udta.bodyStart, udta.end, "meta");
+        if (meta == null || meta.bodyStart + 8 > meta.end) {
+            return builder;
+        }
+        long metaChildrenStart = meta.bodyStart;
+        //meta is a full atom in iso files but not in quicktime ones
+        if (!startsWith(read(channel, meta.bodyStart, 8), 4, "hdlr")) {
+            metaChildrenStart += 4;
+        }
+        Mp4Atom ilst = findAtom(channel, metaChildrenStart, meta.end, "ilst");
+        if (ilst == null) {
+            return builder;
+        }
+        long position = ilst.bodyStart;
+        while (position + MP4_ATOM_HEADER_SIZE <= ilst.end) {
+            Mp4Atom item = readAtom(channel, position, ilst.end);
+            position = item.end;
+            int field = item.type.equals("----")
+                    ? getMp4FreeformField(channel, item)
+                    : getMp4Field(item.type);
+            if (field == TagsBuilder.NONE || builder.has(field)) {
+                continue;
+            }
+            Mp4Atom data = findAtom(channel, item.bodyStart, item.end, "data");
+            //type indicator and locale
+            long valueStart = data == null ? 0 : data.bodyStart + 8;
+            if (data == null || valueStart > data.end || data.end - valueStart > MAX_FIELD_SIZE) {
+                continue;
+            }
+            byte[] typeBytes = read(channel, data.bodyStart, 4);
+            int type = readInt(typeBytes, 0) & 0xFFFFFF;
+            byte[] value = read(channel, valueStart, (int) (data.end - valueStart));
+            Charset charset = type == 2 ? StandardCharsets.UTF_16BE : UTF_8;
+            builder.set(field, new String(value, charset));
+        }
+        return builder;
+    }
+
+    private int getMp4Field(String type) {
+        switch (type) {
+            case "\u00A9nam": return TagsBuilder.TITLE;
+            case "\u00A9ART": return TagsBuilder.ARTIST;
+            case "\u00A9alb": return TagsBuilder.ALBUM;
+            case "aART": return TagsBuilder.ALBUM_ARTIST;
+            case "\u00A9lyr": return TagsBuilder.LYRICS;
+            default: return TagsBuilder.NONE;
+        }
+    }
+
+    //freeform atom contains mean, name and data atoms
+    private int getMp4FreeformField(FileChannel channel, Mp4Atom item) throws IOException {
+        Mp4Atom name = findAtom(channel, item.bodyStart, item.end, "name");
+        //version and flags
+        long nameStart = name == null ? 0 : name.bodyStart + 4;
+        if (name == null || nameStart > name.end || name.end - nameStart > MAX_KEY_SIZE) {
+            return TagsBuilder.NONE;
+        }
+        byte[] value = read(channel, nameStart, (int) (name.end - nameStart));
+        return getReplayGainField(new String(value, UTF_8));
+    }
+
+    //replay gain
+
+    private int getReplayGainField(String key) {
+        switch (key.toUpperCase()) {
+            case "REPLAYGAIN_TRACK_GAIN": return TagsBuilder.TRACK_GAIN;
+            case "REPLAYGAIN_TRACK_PEAK": return TagsBuilder.TRACK_PEAK;
+            default: return TagsBuilder.NONE;
+        }
+    }
+
+    //values are written as "-6.54 dB"
+    @Nullable
+    private static Float parseReplayGainValue(@Nullable String value) {
+        if (value == null) {
+            return null;
+        }
+        String number = value.trim();
+        if (number.regionMatches(true, Math.max(number.length() - 2, 0), "dB", 0, 2)) {
+            number = number.substring(0, number.length() - 2).trim();
+        }
+        try {
+            float result = Float.parseFloat(number);
+            return Float.isNaN(result) || Float.isInfinite(result) ? null : result;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    //R128 gain is Q7.8 fixed point number
+    @Nullable
+    private static Float parseR128Gain(@Nullable String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(value.trim()) / 256f + R128_TO_REPLAY_GAIN_DB;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private Mp4Atom findAtom(FileChannel channel, long start, long end, String type)
+            throws IOException {
+        long position = start;
+        while (position + MP4_ATOM_HEADER_SIZE <= end) {
+            Mp4Atom atom = readAtom(channel, position, end);
+            if (atom.type.equals(type)) {
+                return atom;
+            }
+            position = atom.end;
+        }
+        return null;
+    }
+
+    private Mp4Atom readAtom(FileChannel channel, long position, long parentEnd)
+            throws IOException {
+        byte[] header = read(channel, position, MP4_ATOM_HEADER_SIZE);
+        long size = readInt(header, 0) & 0xFFFFFFFFL;
+        String type = new String(header, 4, 4, ISO_8859_1);
+        long bodyStart = position + MP4_ATOM_HEADER_SIZE;
+        if (size == 1) {//64-bit size
+            size = ByteBuffer.wrap(read(channel, bodyStart, 8)).getLong();
+            bodyStart += 8;
+        } else if (size == 0) {//up to the end
+            size = parentEnd - position;
+        }
+        long end = position + size;
+        if (end < bodyStart || end > parentEnd) {
+            throw new IOException("broken mp4 atom: " + type);
+        }
+        return new Mp4Atom(type, bodyStart, end);
+    }
+
+    //utils
+
+    private static byte[] read(FileChannel channel, long position, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new EOFException();
+            }
+        }
+        return buffer.array();
+    }
+
+    private static boolean startsWith(byte[] data, int offset, String prefix) {
+        if (offset + prefix.length() > data.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (data[offset + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isZero(byte[] data, int offset, int size) {
+        for (int i = offset; i < offset + size; i++) {
+            if (data[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 24)
+                | ((data[offset + 1] & 0xFF) << 16)
+                | ((data[offset + 2] & 0xFF) << 8)
+                | (data[offset + 3] & 0xFF);
+    }
+
+    private static int readIntLE(byte[] data, int offset) {
+        return (data[offset] & 0xFF)
+                | ((data[offset + 1] & 0xFF) << 8)
+                | ((data[offset + 2] & 0xFF) << 16)
+                | ((data[offset + 3] & 0xFF) << 24);
+    }
+
+    private static int readSyncSafeInt(byte[] data, int offset) {
+        return ((data[offset] & 0x7F) << 21)
+                | ((data[offset + 1] & 0x7F) << 14)
+                | ((data[offset + 2] & 0x7F) << 7)
+                | (data[offset + 3] & 0x7F);
+    }
+
+    private static class TagsBuilder {
+
+        static final int USER_TEXT = -2;
+        static final int NONE = -1;
+        static final int TITLE = 0;
+        static final int ARTIST = 1;
+        static final int ALBUM = 2;
+        static final int ALBUM_ARTIST = 3;
+        static final int LYRICS = 4;
+        static final int TRACK_GAIN = 5;
+        static final int TRACK_PEAK = 6;
+        static final int R128_TRACK_GAIN = 7;
+
+        private final String[] values = new String[8];
+
+        boolean has(int field) {
+            return values[field] != null;
+        }
+
+        void set(int field, @Nullable String value) {
+            values[field] = value;
+        }
+
+        void setIfAbsent(int field, @Nullable String value) {
+            if (values[field] == null || values[field].isEmpty()) {
+                values[field] = value;
+            }
+        }
+
+        //absent fields are empty as in jaudiotagger tags
+        CompositionSourceTags build() {
+            Float trackGain = parseReplayGainValue(values[TRACK_GAIN]);
+            Float trackPeak = null;
+            if (trackGain == null) {
+                trackGain = parseR128Gain(values[R128_TRACK_GAIN]);
+            } else {
+                trackPeak = parseReplayGainValue(values[TRACK_PEAK]);
+            }
+            return new CompositionSourceTags(get(TITLE),
+                    get(ARTIST),
+                    get(ALBUM),
+                    get(ALBUM_ARTIST),
+                    get(LYRICS),
+                    trackGain,
+                    trackPeak);
+        }
+
+        private String get(int field) {
+            String value = values[field];
+            return value == null ? "" : value;
+        }
+    }
+
+    private static class Mp4Atom {
+        final String type;
+        final long bodyStart;
+        final long end;
+
+        Mp4Atom(String type, long bodyStart, long end) {
+            this.type = type;
+            this.bodyStart = bodyStart;
+            this.end = end;
+        }
+    }
+
+    private interface ByteSource {
+        void read(byte[] destination, int offset, int length) throws IOException;
+
+        void skip(long length) throws IOException;
+    }
+
+    private static class ChannelSource implements ByteSource {
+
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        ChannelSource(FileChannel channel, long position, long end) {
+            this.channel = channel;
+            this.position = position;
+            this.end = end;
+        }
+
+        @Override
+        public void read(byte[] destination, int offset, int length) throws IOException {
+            if (position + length > end) {
+                throw new EOFException();
+            }
+            byte[] data = HeaderTagsReader.read(channel, position, length);
+            System.arraycopy(data, 0, destination, offset, length);
+            position += length;
+        }
+
+        @Override
+        public void skip(long length) throws IOException {
+            if (position + length > end) {
+                throw new EOFException();
+            }
+            position += length;
+        }
+    }
+
+    /**
+     * Reads packets of the first logical stream of ogg file, packets can span several pages
+     */
+    private static class OggPacketSource implements ByteSource {
+
+        private static final int PAGE_HEADER_SIZE = 27;
+
+        private final FileChannel channel;
+
+        private long nextPagePosition;
+        private int serialNumber;
+        private boolean hasSerialNumber;
+
+        private int[] segments;
+        private int segmentIndex;
+        private int segmentRemaining;
+        private long position;
+
+        OggPacketSource(FileChannel channel) throws IOException {
+            this.channel = channel;
+            readNextPage();
+        }
+
+        @Override
+        public void read(byte[] destination, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (segmentRemaining == 0) {
+                    if (isPacketEnd()) {
+                        throw new EOFException("ogg packet ended");
+                    }
+                    nextSegment();
+                    continue;
+                }
+                int size = Math.min(length, segmentRemaining);
+                byte[] data = HeaderTagsReader.read(channel, position, size);
+                System.arraycopy(data, 0, destination, offset, size);
+                offset += size;
+                length -= size;
+                position += size;
+                segmentRemaining -= size;
+            }
+        }
+
+        @Override
+        public void skip(long length) throws IOException {
+            while (length > 0) {
+                if (segmentRemaining == 0) {
+                    if (isPacketEnd()) {
+                        throw new EOFException("ogg packet ended");
+                    }
+                    nextSegment();
+                    continue;
+                }
+                int size = (int) Math.min(length, segmentRemaining);
+                length -= size;
+                position += size;
+                segmentRemaining -= size;
+            }
+        }
+
+        void skipPacket() throws IOException {
+            while (true) {
+                position += segmentRemaining;
+                segmentRemaining = 0;
+                boolean packetEnd = isPacketEnd();
+                nextSegment();
+                if (packetEnd) {
+                    return;
+                }
+            }
+        }
+
+        private boolean isPacketEnd() {
+            return segments[segmentIndex] < 255;
+        }
+
+        private void nextSegment() throws IOException {
+            segmentIndex++;
+            if (segmentIndex >= segments.length) {
+                readNextPage();
+                return;
+            }
+            segmentRemaining = segments[segmentIndex];
+        }
+
+        private void readNextPage() throws IOException {
+            while (true) {
+                byte[] header = HeaderTagsReader.read(channel, nextPagePosition, PAGE_HEADER_SIZE);
+                if (!startsWith(header, 0, "OggS")) {
+                    throw new IOException("ogg page not found");
+                }
+                int pageSerialNumber = readIntLE(header, 14);
+                int segmentsCount = header[26] & 0xFF;
+                byte[] segmentsTable = HeaderTagsReader.read(channel,
+                        nextPagePosition + PAGE_HEADER_SIZE,
+                        segmentsCount);
+                long bodyStart = nextPagePosition + PAGE_HEADER_SIZE + segmentsCount;
+                long bodySize = 0;
+                int[] pageSegments = new int[segmentsCount];
+                for (int i = 0; i < segmentsCount; i++) {
+                    pageSegments[i] = segmentsTable[i] & 0xFF;
+                    bodySize += pageSegments[i];
+                }
+                nextPagePosition = bodyStart + bodySize;
+                if (!hasSerialNumber) {
+                    serialNumber = pageSerialNumber;
+                    hasSerialNumber = true;
+                }
+                if (pageSerialNumber != serialNumber || segmentsCount == 0) {
+                    continue;
+                }
+                segments = pageSegments;
+                segmentIndex = 0;
+                segmentRemaining = segments[0];
+                position = bodyStart;
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.anrimian.musicplayer.data.storage.source;
+
+import com.github.anrimian.musicplayer.domain.models.image.ImageSource;
+import com.github.anrimian.musicplayer.domain.utils.functions.ThrowsCallback;
+
+import org.jaudiotagger.tag.FieldKey;
+import org.jaudiotagger.tag.Tag;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+/**
+ * Collects tag changes of one file. All changes are applied with a single file rewrite
+ * by {@link CompositionSourceEditor#editTags}.
+ */
+public class TagEditBatch {
+
+    private static final char GENRE_DIVIDER = '\u0000';
+
+    private final List<ThrowsCallback<Tag>> actions = new ArrayList<>();
+
+    private boolean artworkChanged;
+    @Nullable
+    private ImageSource artworkSource;
+
+    public TagEditBatch setTitle(String title) {
+        return setField(FieldKey.TITLE, title);
+    }
+
+    public TagEditBatch setArtist(String artist) {
+        return setField(FieldKey.ARTIST, artist);
+    }
+
+    public TagEditBatch setAlbum(String album) {
+        return setField(FieldKey.ALBUM, album);
+    }
+
+    public TagEditBatch setAlbumArtist(String artist) {
+        return setField(FieldKey.ALBUM_ARTIST, artist);
+    }
+
+    public TagEditBatch setLyrics(String text) {
+        return setField(FieldKey.LYRICS, text);
+    }
+
+    public TagEditBatch addGenre(String genre) {
+        actions.add(tag -> tag.addField(FieldKey.GENRE, genre));
+        return this;
+    }
+
+    //genre not found case
+    public TagEditBatch changeGenre(String oldGenre, String newGenre) {
+        actions.add(tag -> {
+            String genres = tag.getFirst(FieldKey.GENRE);
+            tag.setField(FieldKey.GENRE, genres.replace(oldGenre, newGenre));
+        });
+        return this;
+    }
+
+    public TagEditBatch removeGenre(String genre) {
+        actions.add(tag -> {
+            String genres = tag.getFirst(FieldKey.GENRE);
+            int startIndex = genres.indexOf(genre);
+            if (startIndex == -1) {
+                return;
+            }
+            int endIndex = startIndex + genre.length();
+            StringBuilder sb = new StringBuilder(genres);
+
+            //clear divider at start
+            if (startIndex == 1 && sb.charAt(0) == GENRE_DIVIDER) {
+                startIndex = 0;
+            }
+            //clear divider at end or next if genre is at start or has divider before
+            if ((endIndex == sb.length() - 2 || startIndex == 0 || sb.charAt(startIndex - 1) == GENRE_DIVIDER)
+                    && (endIndex < sb.length() && sb.charAt(endIndex) == GENRE_DIVIDER)) {
+                endIndex++;
+            }
+
+            sb.delete(startIndex, endIndex);
+
+            tag.setField(FieldKey.GENRE, sb.toString());
+        });
+        return this;
+    }
+
+    public TagEditBatch setArtwork(ImageSource imageSource) {
+        artworkChanged = true;
+        artworkSource = imageSource;
+        return this;
+    }
+
+    public TagEditBatch removeArtwork() {
+        artworkChanged = true;
+        artworkSource = null;
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return actions.isEmpty() && !artworkChanged;
+    }
+
+    void applyFields(Tag tag) throws Exception {
+        for (ThrowsCallback<Tag> action: actions) {
+            action.call(tag);
+        }
+    }
+
+    boolean isArtworkChanged() {
+        return artworkChanged;
+    }
+
+    /**
+     * @return new artwork or null if artwork must be removed
+     */
+    @Nullable
+    ImageSource getArtworkSource() {
+        return artworkSource;
+    }
+
+    private TagEditBatch setField(FieldKey key, String value) {
+        actions.add(tag -> tag.setField(key, value == null? "" : value));
+        return this;
+    }
+}
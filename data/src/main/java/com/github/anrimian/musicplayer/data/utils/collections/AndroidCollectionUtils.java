@@ -13,10 +13,10 @@ import java.util.Set;
 
 public class AndroidCollectionUtils {
 
-    public static <E> LongSparseArray<E> sparseArrayOf(long key, E item) {
-        LongSparseArray<E> sparseArray = new LongSparseArray<>();
-        sparseArray.put(key, item);
-        return sparseArray;
+    public static <E> LongHashMap<E> hashMapOf(long key, E item) {
+        LongHashMap<E> map = new LongHashMap<>();
+        map.put(key, item);
+        return map;
     }
 
     public static <E> LongSparseArray<E> mapToSparseArray(List<E> from,
@@ -31,6 +31,13 @@ public class AndroidCollectionUtils {
         return to;
     }
 
+    public static <E> LongHashMap<E> mapToHashMap(List<E> from, LongKeySelector<E> keySelector) {
+        LongHashMap<E> to = new LongHashMap<>(from.size());
+        for (E item: from) {
+            to.put(keySelector.getKey(item), item);
+        }
+        return to;
+    }
 
     public static <V> boolean processChanges(LongSparseArray<V> oldMap,
                                              LongSparseArray<V> newMap,
@@ -66,27 +73,23 @@ public class AndroidCollectionUtils {
         return hasChanges;
     }
 
-    public static <V1, V2> boolean processDiffChanges(LongSparseArray<V1> oldMap,
-                                                      LongSparseArray<V2> newMap,
+    public static <V1, V2> boolean processDiffChanges(LongHashMap<V1> oldMap,
+                                                      LongHashMap<V2> newMap,
                                                       ChangeInspector<V1, V2> changeInspector,
                                                       Callback<V1> onDeleteCallback,
                                                       Callback<V2> onAddedCallback,
                                                       BiCallback<V1, V2> onModifyCallback) {
         boolean hasChanges = false;
 
-        for(int i = 0, size = oldMap.size(); i < size; i++) {
-            V1 existValue = oldMap.valueAt(i);
-            long existKey = oldMap.keyAt(i);
-            V2 value = newMap.get(existKey);
-            if (value == null) {
-                onDeleteCallback.call(existValue);
+        for (long existKey: oldMap.keys()) {
+            if (!newMap.containsKey(existKey)) {
+                onDeleteCallback.call(oldMap.get(existKey));
                 hasChanges = true;
             }
         }
 
-        for(int i = 0, size = newMap.size(); i < size; i++) {
-            long newKey = newMap.keyAt(i);
-            V2 newValue = newMap.valueAt(i);
+        for (long newKey: newMap.keys()) {
+            V2 newValue = newMap.get(newKey);
 
             V1 existValue = oldMap.get(newKey);
             if (existValue == null) {
@@ -100,6 +103,61 @@ public class AndroidCollectionUtils {
         return hasChanges;
     }
 
+    /**
+     * Diff of two lists sorted by unique keys in one pass, without building maps.
+     * Lists are accessed by index, so they must support fast random access.
+     * Callbacks are called in order of keys.
+     */
+    public static <V1, V2> boolean processSortedDiffChanges(List<V1> oldList,
+                                                            List<V2> newList,
+                                                            LongKeySelector<V1> oldKeySelector,
+                                                            LongKeySelector<V2> newKeySelector,
+                                                            ChangeInspector<V1, V2> changeInspector,
+                                                            Callback<V1> onDeleteCallback,
+                                                            Callback<V2> onAddedCallback,
+                                                            BiCallback<V1, V2> onModifyCallback) {
+        boolean hasChanges = false;
+
+        int oldSize = oldList.size();
+        int newSize = newList.size();
+        int oldIndex = 0;
+        int newIndex = 0;
+        long previousOldKey = Long.MIN_VALUE;
+        long previousNewKey = Long.MIN_VALUE;
+        while (oldIndex < oldSize || newIndex < newSize) {
+            V1 oldValue = oldIndex < oldSize? oldList.get(oldIndex) : null;
+            V2 newValue = newIndex < newSize? newList.get(newIndex) : null;
+            long oldKey = oldValue == null? Long.MAX_VALUE : oldKeySelector.getKey(oldValue);
+            long newKey = newValue == null? Long.MAX_VALUE : newKeySelector.getKey(newValue);
+
+            if (oldValue != null && newValue != null && oldKey == newKey) {
+                checkKeyOrder(previousOldKey, oldKey);
+                checkKeyOrder(previousNewKey, newKey);
+                previousOldKey = oldKey;
+                previousNewKey = newKey;
+                if (changeInspector.hasChanges(oldValue, newValue)) {
+                    onModifyCallback.call(oldValue, newValue);
+                    hasChanges = true;
+                }
+                oldIndex++;
+                newIndex++;
+            } else if (newValue == null || (oldValue != null && oldKey < newKey)) {
+                checkKeyOrder(previousOldKey, oldKey);
+                previousOldKey = oldKey;
+                onDeleteCallback.call(oldValue);
+                hasChanges = true;
+                oldIndex++;
+            } else {
+                checkKeyOrder(previousNewKey, newKey);
+                previousNewKey = newKey;
+                onAddedCallback.call(newValue);
+                hasChanges = true;
+                newIndex++;
+            }
+        }
+        return hasChanges;
+    }
+
     public static <Old, New, NewKey> boolean processChanges(Set<Old> currentSet,
                                                             Map<NewKey, New> newMap,
                                                             Mapper<Old, NewKey> newKeyFetcher,
@@ -136,6 +194,16 @@ public class AndroidCollectionUtils {
         return hasChanges;
     }
 
+    private static void checkKeyOrder(long previousKey, long key) {
+        if (key <= previousKey && previousKey != Long.MIN_VALUE) {
+            throw new IllegalArgumentException("list is not sorted by unique keys: " + key + " after " + previousKey);
+        }
+    }
+
+    public interface LongKeySelector<T> {
+        long getKey(T item);
+    }
+
     public interface ChangeInspector<V1, V2> {
         boolean hasChanges(V1 first, V2 second);
     }
@@ -0,0 +1,201 @@
+package com.github.anrimian.musicplayer.data.utils.collections;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+/**
+ * Open addressing hash map with primitive long keys.
+ * Unlike {@link androidx.collection.LongSparseArray}, insertion of unsorted keys doesn't shift
+ * arrays and lookup cost doesn't depend on map size. Iteration order is not defined.
+ */
+public class LongHashMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private Object[] values;
+    private boolean[] used;
+    private int size;
+    private int threshold;
+
+    public LongHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongHashMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int mask = keys.length - 1;
+        for (int i = hash(key) & mask; used[i]; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+        }
+        return null;
+    }
+
+    public boolean containsKey(long key) {
+        int mask = keys.length - 1;
+        for (int i = hash(key) & mask; used[i]; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void put(long key, V value) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        for (; used[i]; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        used[i] = true;
+        if (++size > threshold) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void putAll(LongHashMap<? extends V> map) {
+        for (int i = 0; i < map.keys.length; i++) {
+            if (map.used[i]) {
+                put(map.keys[i], (V) map.values[i]);
+            }
+        }
+    }
+
+    public void remove(long key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        for (; used[i]; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                break;
+            }
+        }
+        if (!used[i]) {
+            return;
+        }
+        //shift following entries of the cluster back to keep probe sequences unbroken
+        int gap = i;
+        for (int j = (i + 1) & mask; used[j]; j = (j + 1) & mask) {
+            int home = hash(keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        used[gap] = false;
+        values[gap] = null;
+        size--;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * @return keys in undefined order
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int index = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                result[index++] = keys[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return values in undefined order
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        List<V> result = new ArrayList<>(size);
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                result.add((V) values[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return values ordered by their keys, for diff by sorted merge
+     */
+    public List<V> valuesSortedByKey() {
+        long[] sortedKeys = keys();
+        Arrays.sort(sortedKeys);
+        List<V> result = new ArrayList<>(size);
+        for (long key: sortedKeys) {
+            result.add(get(key));
+        }
+        return result;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(newCapacity);
+        int mask = newCapacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (!oldUsed[i]) {
+                continue;
+            }
+            int j = hash(oldKeys[i]) & mask;
+            while (used[j]) {
+                j = (j + 1) & mask;
+            }
+            keys[j] = oldKeys[i];
+            values[j] = oldValues[i];
+            used[j] = true;
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        used = new boolean[capacity];
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
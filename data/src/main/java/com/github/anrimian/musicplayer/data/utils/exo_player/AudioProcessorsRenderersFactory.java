@@ -0,0 +1,38 @@
+package com.github.anrimian.musicplayer.data.utils.exo_player;
+
+import android.content.Context;
+
+import com.google.android.exoplayer2.DefaultRenderersFactory;
+import com.google.android.exoplayer2.audio.AudioCapabilities;
+import com.google.android.exoplayer2.audio.AudioProcessor;
+import com.google.android.exoplayer2.audio.AudioSink;
+import com.google.android.exoplayer2.audio.DefaultAudioSink;
+
+/**
+ * Renderers factory which adds custom audio processors to default audio sink.
+ * Processors are applied before playback speed change. Offload is disabled, because
+ * audio processors are skipped in offload mode.
+ */
+public class AudioProcessorsRenderersFactory extends DefaultRenderersFactory {
+
+    private final AudioProcessor[] audioProcessors;
+
+    public AudioProcessorsRenderersFactory(Context context, AudioProcessor... audioProcessors) {
+        super(context);
+        this.audioProcessors = audioProcessors;
+    }
+
+    @Override
+    protected AudioSink buildAudioSink(Context context,
+                                       boolean enableFloatOutput,
+                                       boolean enableAudioTrackPlaybackParams,
+                                       boolean enableOffload) {
+        return new DefaultAudioSink(
+                AudioCapabilities.getCapabilities(context),
+                new DefaultAudioSink.DefaultAudioProcessorChain(audioProcessors),
+                enableFloatOutput,
+                enableAudioTrackPlaybackParams,
+                DefaultAudioSink.OFFLOAD_MODE_DISABLED
+        );
+    }
+}
@@ -1,21 +1,48 @@
 package com.github.anrimian.musicplayer.data.utils.exo_player;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.github.anrimian.musicplayer.domain.utils.functions.Callback;
+import com.google.android.exoplayer2.MediaItem;
 import com.google.android.exoplayer2.PlaybackException;
+import com.google.android.exoplayer2.PlaybackParameters;
 import com.google.android.exoplayer2.Player;
 
 public class PlayerEventListener implements Player.Listener {
 
     private final Runnable onEnded;
+    private final Runnable onNextItemStarted;
+    private final Runnable onPositionDiscontinuity;
     private final Callback<PlaybackException> errorCallback;
 
-    public PlayerEventListener(Runnable onEnded, Callback<PlaybackException> errorCallback) {
+    public PlayerEventListener(Runnable onEnded,
+                               Runnable onNextItemStarted,
+                               Runnable onPositionDiscontinuity,
+                               Callback<PlaybackException> errorCallback) {
         this.onEnded = onEnded;
+        this.onNextItemStarted = onNextItemStarted;
+        this.onPositionDiscontinuity = onPositionDiscontinuity;
         this.errorCallback = errorCallback;
     }
 
+    @Override
+    public void onIsPlayingChanged(boolean isPlaying) {
+        onPositionDiscontinuity.run();
+    }
+
+    @Override
+    public void onPositionDiscontinuity(@NonNull Player.PositionInfo oldPosition,
+                                        @NonNull Player.PositionInfo newPosition,
+                                        int reason) {
+        onPositionDiscontinuity.run();
+    }
+
+    @Override
+    public void onPlaybackParametersChanged(@NonNull PlaybackParameters playbackParameters) {
+        onPositionDiscontinuity.run();
+    }
+
     @Override
     public void onPlaybackStateChanged(int state) {
         //            case Player.STATE_BUFFERING: {
@@ -32,6 +59,13 @@ public class PlayerEventListener implements Player.Listener {
         }
     }
 
+    @Override
+    public void onMediaItemTransition(@Nullable MediaItem mediaItem, int reason) {
+        if (reason == Player.MEDIA_ITEM_TRANSITION_REASON_AUTO) {
+            onNextItemStarted.run();
+        }
+    }
+
     @Override
     public void onPlayerError(@NonNull PlaybackException error) {
         errorCallback.call(error);
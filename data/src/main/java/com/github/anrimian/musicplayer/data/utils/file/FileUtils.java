@@ -4,8 +4,13 @@ import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.security.SecureRandom;
 
 public class FileUtils {
@@ -13,6 +18,8 @@ public class FileUtils {
     private static final String CHARS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
     private static final SecureRandom RND = new SecureRandom();
 
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
     public static String randomString(int len){
         StringBuilder sb = new StringBuilder(len);
         for(int i = 0; i < len; i++) {
@@ -21,6 +28,44 @@ public class FileUtils {
         return sb.toString();
     }
 
+    public static void copyFile(File source, File destination) throws IOException {
+        try (FileChannel input = new FileInputStream(source).getChannel();
+             FileChannel output = new FileOutputStream(destination).getChannel()
+        ) {
+            transfer(input, output, input.size());
+        }
+    }
+
+    /**
+     * Copies first {@code count} bytes of source file, destination file is truncated
+     */
+    public static void copyFile(File source, File destination, long count) throws IOException {
+        try (FileChannel input = new FileInputStream(source).getChannel();
+             FileChannel output = new FileOutputStream(destination).getChannel()
+        ) {
+            transfer(input, output, Math.min(count, input.size()));
+        }
+    }
+
+    /**
+     * Copies file content from current position of output stream.
+     * Uses channel transfer for file streams and large buffer for others.
+     */
+    public static void copyFile(File source, OutputStream os) throws IOException {
+        try (FileInputStream is = new FileInputStream(source)) {
+            if (os instanceof FileOutputStream) {
+                FileChannel input = is.getChannel();
+                transfer(input, ((FileOutputStream) os).getChannel(), input.size());
+                return;
+            }
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int length;
+            while ((length = is.read(buffer)) > 0) {
+                os.write(buffer, 0, length);
+            }
+        }
+    }
+
     public static byte[] toByteArray(InputStream is) throws IOException {
         try (ByteArrayOutputStream stream = new ByteArrayOutputStream()) {
             byte[] buff = new byte[is.available()];
@@ -63,4 +108,16 @@ public class FileUtils {
         return BitmapFactory.decodeByteArray(byteArray, 0, byteArray.length, decodeBitmapOptions);
     }
 
+    private static void transfer(FileChannel input, FileChannel output, long count)
+            throws IOException {
+        long position = 0;
+        while (position < count) {
+            long transferred = input.transferTo(position, count - position, output);
+            if (transferred <= 0) {
+                break;
+            }
+            position += transferred;
+        }
+    }
+
 }
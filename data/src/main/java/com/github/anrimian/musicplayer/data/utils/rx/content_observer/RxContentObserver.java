@@ -39,6 +39,41 @@ public class RxContentObserver {
         });
     }
 
+    /**
+     * @return observable which emits each change notification without throttling, with uri of
+     * changed item or observed uri when system doesn't provide it
+     */
+    public static Observable<String> getUriObservable(ContentResolver contentResolver,
+                                                      @NonNull Uri uri) {
+        return Observable.create(emitter -> {
+            ContentObserver contentObserver = new UriEmitterContentObserver(uri, emitter);
+            contentResolver.registerContentObserver(uri, false, contentObserver);
+            emitter.setDisposable(new ContentObserverDisposable(contentObserver, contentResolver));
+        });
+    }
+
+    private static class UriEmitterContentObserver extends ContentObserver {
+
+        private final Uri observedUri;
+        private final Emitter<String> changeEmitter;
+
+        UriEmitterContentObserver(Uri observedUri, Emitter<String> changeEmitter) {
+            super(null);
+            this.observedUri = observedUri;
+            this.changeEmitter = changeEmitter;
+        }
+
+        @Override
+        public boolean deliverSelfNotifications() {
+            return false;
+        }
+
+        @Override
+        public void onChange(boolean selfChange, Uri uri) {
+            changeEmitter.onNext(uri == null? observedUri.toString() : uri.toString());
+        }
+    }
+
     private static class EmitterContentObserver extends ContentObserver {
 
         private final long minEmitWindowMillis;
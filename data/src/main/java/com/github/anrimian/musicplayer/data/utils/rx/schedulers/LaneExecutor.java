@@ -0,0 +1,100 @@
+package com.github.anrimian.musicplayer.data.utils.rx.schedulers;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread pool of one lane, measures how long tasks wait in queue before execution
+ */
+class LaneExecutor extends ThreadPoolExecutor {
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final AtomicInteger maxQueueSize = new AtomicInteger();
+    private final AtomicLong startedTasksCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    LaneExecutor(SchedulerLane lane) {
+        super(lane.getThreadsCount(),
+                lane.getThreadsCount(),
+                KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new LaneThreadFactory(lane));
+        //idle lanes do not hold threads
+        allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        super.execute(new QueuedTask(command));
+        int queueSize = getQueue().size();
+        int max;
+        do {
+            max = maxQueueSize.get();
+        } while (queueSize > max && !maxQueueSize.compareAndSet(max, queueSize));
+    }
+
+    @Override
+    protected void beforeExecute(Thread t, Runnable r) {
+        super.beforeExecute(t, r);
+        if (r instanceof QueuedTask) {
+            long waitNanos = System.nanoTime() - ((QueuedTask) r).queuedTime;
+            startedTasksCount.incrementAndGet();
+            totalWaitNanos.addAndGet(waitNanos);
+            long max;
+            do {
+                max = maxWaitNanos.get();
+            } while (waitNanos > max && !maxWaitNanos.compareAndSet(max, waitNanos));
+        }
+    }
+
+    LaneStats getStats() {
+        long startedTasks = startedTasksCount.get();
+        long averageWaitNanos = startedTasks == 0 ? 0 : totalWaitNanos.get() / startedTasks;
+        return new LaneStats(getQueue().size(),
+                maxQueueSize.get(),
+                getActiveCount(),
+                getCompletedTaskCount(),
+                TimeUnit.NANOSECONDS.toMillis(averageWaitNanos),
+                TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+    }
+
+    private static class QueuedTask implements Runnable {
+
+        final Runnable task;
+        final long queuedTime = System.nanoTime();
+
+        QueuedTask(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+    }
+
+    private static class LaneThreadFactory implements ThreadFactory {
+
+        private final SchedulerLane lane;
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        LaneThreadFactory(SchedulerLane lane) {
+            this.lane = lane;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "lane-" + lane.getName() + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(lane.getThreadPriority());
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.anrimian.musicplayer.data.utils.rx.schedulers;
+
+import androidx.annotation.NonNull;
+
+public class LaneStats {
+
+    private final int queueSize;
+    private final int maxQueueSize;
+    private final int activeTasksCount;
+    private final long completedTasksCount;
+    private final long averageWaitMillis;
+    private final long maxWaitMillis;
+
+    public LaneStats(int queueSize,
+                     int maxQueueSize,
+                     int activeTasksCount,
+                     long completedTasksCount,
+                     long averageWaitMillis,
+                     long maxWaitMillis) {
+        this.queueSize = queueSize;
+        this.maxQueueSize = maxQueueSize;
+        this.activeTasksCount = activeTasksCount;
+        this.completedTasksCount = completedTasksCount;
+        this.averageWaitMillis = averageWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public int getMaxQueueSize() {
+        return maxQueueSize;
+    }
+
+    public int getActiveTasksCount() {
+        return activeTasksCount;
+    }
+
+    public long getCompletedTasksCount() {
+        return completedTasksCount;
+    }
+
+    public long getAverageWaitMillis() {
+        return averageWaitMillis;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "LaneStats{" +
+                "queueSize=" + queueSize +
+                ", maxQueueSize=" + maxQueueSize +
+                ", activeTasksCount=" + activeTasksCount +
+                ", completedTasksCount=" + completedTasksCount +
+                ", averageWaitMillis=" + averageWaitMillis +
+                ", maxWaitMillis=" + maxWaitMillis +
+                '}';
+    }
+}
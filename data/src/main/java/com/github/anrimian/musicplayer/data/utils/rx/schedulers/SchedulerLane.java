@@ -0,0 +1,49 @@
+package com.github.anrimian.musicplayer.data.utils.rx.schedulers;
+
+/**
+ * Separate thread pools for different kinds of work, so long operations of one kind
+ * do not delay short operations of another kind.
+ */
+public enum SchedulerLane {
+
+    //play queue navigation and sources of compositions, user waits for them
+    PLAYBACK("playback", 1, Thread.NORM_PRIORITY + 2, false),
+    //short database writes
+    DB_WRITE("db-write", 1, Thread.NORM_PRIORITY, false),
+    //tag editing, one file rewrite can take seconds, interruption could break the file
+    FILE_IO("file-io", 4, Thread.NORM_PRIORITY - 1, false),
+    //library scanners, work in background and are not in hurry. Disposed (stopped or timed out)
+    //tasks are interrupted, otherwise a hung file read keeps the thread of bounded lane
+    SCANNER("scanner", Runtime.getRuntime().availableProcessors(), Thread.MIN_PRIORITY, true),
+    //long background calculations (loudness analysis), only sequential reads of local files.
+    //Tasks check disposal themselves
+    CPU("cpu", Runtime.getRuntime().availableProcessors(), Thread.MIN_PRIORITY, false);
+
+    private final String name;
+    private final int threadsCount;
+    private final int threadPriority;
+    private final boolean interruptible;
+
+    SchedulerLane(String name, int threadsCount, int threadPriority, boolean interruptible) {
+        this.name = name;
+        this.threadsCount = threadsCount;
+        this.threadPriority = threadPriority;
+        this.interruptible = interruptible;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getThreadsCount() {
+        return threadsCount;
+    }
+
+    public int getThreadPriority() {
+        return threadPriority;
+    }
+
+    public boolean isInterruptible() {
+        return interruptible;
+    }
+}
@@ -0,0 +1,39 @@
+package com.github.anrimian.musicplayer.data.utils.rx.schedulers;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * Holds schedulers of all lanes. Work of each kind must be subscribed on its own lane,
+ * for example file editing never takes threads of play queue navigation.
+ */
+public class SchedulerLanes {
+
+    private final Map<SchedulerLane, LaneExecutor> executors = new EnumMap<>(SchedulerLane.class);
+    private final Map<SchedulerLane, Scheduler> schedulers = new EnumMap<>(SchedulerLane.class);
+
+    public SchedulerLanes() {
+        for (SchedulerLane lane: SchedulerLane.values()) {
+            LaneExecutor executor = new LaneExecutor(lane);
+            executors.put(lane, executor);
+            schedulers.put(lane, Schedulers.from(executor, lane.isInterruptible()));
+        }
+    }
+
+    public Scheduler getScheduler(SchedulerLane lane) {
+        return schedulers.get(lane);
+    }
+
+    public LaneStats getStats(SchedulerLane lane) {
+        return executors.get(lane).getStats();
+    }
+
+    public void shutdown() {
+        for (LaneExecutor executor: executors.values()) {
+            executor.shutdownNow();
+        }
+    }
+}
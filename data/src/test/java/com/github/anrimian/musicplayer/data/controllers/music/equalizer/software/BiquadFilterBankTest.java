@@ -0,0 +1,207 @@
+package com.github.anrimian.musicplayer.data.controllers.music.equalizer.software;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+public class BiquadFilterBankTest {
+
+    private static final int SAMPLE_RATE = 44100;
+    private static final int CHANNELS = 2;
+    private static final float AMPLITUDE = 0.25f;
+
+    private final BiquadFilterBank filterBank = new BiquadFilterBank();
+
+    @Test
+    public void flatResponseTest() {
+        filterBank.configure(SAMPLE_RATE, CHANNELS);
+        float[] input = sine(1000, SAMPLE_RATE);
+        float[] output = input.clone();
+
+        filterBank.process(output, SAMPLE_RATE);
+
+        assertArrayEquals(input, output, 0f);
+    }
+
+    @Test
+    public void bandCenterGainTest() {
+        for (int band = 0; band < filterBank.getBandsCount(); band++) {
+            for (float gain: new float[] { 12f, -12f, 6f }) {
+                BiquadFilterBank filterBank = new BiquadFilterBank();
+                filterBank.setBandGain(band, gain);
+                filterBank.configure(SAMPLE_RATE, CHANNELS);
+
+                double response = measureResponse(filterBank, BiquadFilterBank.CENTER_FREQUENCIES[band]);
+
+                assertEquals("band " + band + ", gain " + gain, gain, response, 0.2);
+            }
+        }
+    }
+
+    @Test
+    public void frequencyResponseTest() {
+        filterBank.setBandGain(5, 12f);//1 kHz
+        filterBank.configure(SAMPLE_RATE, CHANNELS);
+
+        //one octave bandwidth is measured at half of gain in decibels
+        assertEquals(6, measureResponse(filterBank, 1000 / Math.sqrt(2)), 0.5);
+        assertEquals(6, measureResponse(filterBank, 1000 * Math.sqrt(2)), 0.5);
+        //far bands are not affected
+        assertEquals(0, measureResponse(filterBank, 62), 0.1);
+        assertEquals(0, measureResponse(filterBank, 16000), 0.1);
+    }
+
+    @Test
+    public void preampTest() {
+        filterBank.setBandGain(0, 6f);
+        filterBank.setPreampGain(-6f);
+        filterBank.configure(SAMPLE_RATE, CHANNELS);
+
+        assertEquals(0, measureResponse(filterBank, 31), 0.2);
+        assertEquals(-6, measureResponse(filterBank, 1000), 0.1);
+    }
+
+    @Test
+    public void unsupportedBandsTest() {
+        filterBank.setBandGain(9, 12f);//16 kHz
+        filterBank.configure(22050, CHANNELS);
+        float[] input = sine(1000, 22050);
+        float[] output = input.clone();
+
+        filterBank.process(output, 22050);
+
+        assertArrayEquals(input, output, 0f);
+    }
+
+    @Test
+    public void gainChangeWithoutClicksTest() {
+        int frequency = 1000;
+        filterBank.configure(SAMPLE_RATE, CHANNELS);
+        float[] samples = sine(frequency, SAMPLE_RATE);
+
+        filterBank.process(samples, SAMPLE_RATE / 2);
+        filterBank.setBandGain(5, 12f);
+        filterBank.setPreampGain(-12f);
+        float[] rest = new float[samples.length / 2];
+        System.arraycopy(samples, samples.length / 2, rest, 0, rest.length);
+        filterBank.process(rest, SAMPLE_RATE / 2);
+        System.arraycopy(rest, 0, samples, samples.length / 2, rest.length);
+
+        //sine can't change faster than its derivative, jump means click
+        double maxSineDelta = AMPLITUDE * 2 * Math.PI * frequency / SAMPLE_RATE;
+        double maxDelta = 0;
+        for (int i = CHANNELS; i < samples.length; i++) {
+            maxDelta = Math.max(maxDelta, Math.abs(samples[i] - samples[i - CHANNELS]));
+        }
+        assertTrue("max delta: " + maxDelta, maxDelta < maxSineDelta * 1.1);
+        //and gain is applied after ramp, band boost is compensated by preamp
+        int from = samples.length - SAMPLE_RATE / 10 * CHANNELS;
+        assertEquals(getLevelDb(sine(frequency, SAMPLE_RATE), from), getLevelDb(samples, from), 0.2);
+    }
+
+    @Test
+    public void bandResetToZeroTest() {
+        filterBank.setBandGain(0, 12f);
+        filterBank.configure(SAMPLE_RATE, CHANNELS);
+        float[] samples = sine(1000, SAMPLE_RATE);
+        filterBank.process(samples, SAMPLE_RATE);
+
+        filterBank.setBandGain(0, 0f);
+        float[] input = sine(1000, SAMPLE_RATE);
+        float[] output = input.clone();
+        filterBank.process(output, SAMPLE_RATE);
+
+        //band is skipped after its state decayed
+        for (int i = output.length - CHANNELS * 100; i < output.length; i++) {
+            assertEquals(input[i], output[i], 0f);
+        }
+    }
+
+    @Test
+    public void processWithoutAllocationsTest() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return;
+        }
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        long threadId = Thread.currentThread().getId();
+        for (int band = 0; band < filterBank.getBandsCount(); band++) {
+            filterBank.setBandGain(band, 3f);
+        }
+        filterBank.configure(SAMPLE_RATE, CHANNELS);
+        float[] samples = sine(1000, SAMPLE_RATE);
+        filterBank.process(samples, SAMPLE_RATE);
+        filterBank.setBandGain(0, -3f);
+        filterBank.setPreampGain(-3f);
+
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+        filterBank.process(samples, SAMPLE_RATE);
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        //allow measurement noise, buffers of one second would be much bigger
+        assertTrue("allocated: " + allocated, allocated < 1024);
+    }
+
+    @Test
+    public void throughputTest() {
+        for (int band = 0; band < filterBank.getBandsCount(); band++) {
+            filterBank.setBandGain(band, band % 2 == 0? 3f : -3f);
+        }
+        filterBank.setPreampGain(-3f);
+        filterBank.configure(SAMPLE_RATE, CHANNELS);
+        int bufferFrames = 4096;
+        float[] buffer = new float[bufferFrames * CHANNELS];
+        float[] source = sine(1000, bufferFrames);
+
+        //warm up
+        for (int i = 0; i < 500; i++) {
+            System.arraycopy(source, 0, buffer, 0, buffer.length);
+            filterBank.process(buffer, bufferFrames);
+        }
+
+        int iterations = 2000;
+        long startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            System.arraycopy(source, 0, buffer, 0, buffer.length);
+            filterBank.process(buffer, bufferFrames);
+        }
+        long time = System.nanoTime() - startTime;
+
+        double framesPerSecond = (double) iterations * bufferFrames / time * 1_000_000_000;
+        System.out.println("10 bands, stereo: " + (long) framesPerSecond + " frames/s, "
+                + (long) (framesPerSecond / SAMPLE_RATE) + "x realtime at " + SAMPLE_RATE + " Hz");
+    }
+
+    private static double measureResponse(BiquadFilterBank filterBank, double frequency) {
+        float[] samples = sine(frequency, SAMPLE_RATE);
+        filterBank.process(samples, SAMPLE_RATE);
+        //skip filter transient, measure last half
+        double outputLevel = getLevelDb(samples, samples.length / 2);
+        double inputLevel = getLevelDb(sine(frequency, SAMPLE_RATE), samples.length / 2);
+        return outputLevel - inputLevel;
+    }
+
+    private static double getLevelDb(float[] samples, int from) {
+        double sum = 0;
+        for (int i = from; i < samples.length; i++) {
+            sum += samples[i] * samples[i];
+        }
+        return 10 * Math.log10(sum / (samples.length - from));
+    }
+
+    private static float[] sine(double frequency, int frames) {
+        float[] samples = new float[frames * CHANNELS];
+        for (int i = 0; i < frames; i++) {
+            float value = (float) (AMPLITUDE * Math.sin(2 * Math.PI * frequency * i / SAMPLE_RATE));
+            for (int channel = 0; channel < CHANNELS; channel++) {
+                samples[i * CHANNELS + channel] = value;
+            }
+        }
+        return samples;
+    }
+}
@@ -1,10 +1,12 @@
 package com.github.anrimian.musicplayer.data.controllers.music.players;
 
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import com.github.anrimian.musicplayer.domain.models.composition.source.CompositionSource;
+import com.github.anrimian.musicplayer.domain.models.player.PlaybackPosition;
 import com.github.anrimian.musicplayer.domain.models.player.error.ErrorType;
 import com.github.anrimian.musicplayer.domain.models.player.events.ErrorEvent;
 import com.github.anrimian.musicplayer.domain.models.player.events.PlayerEvent;
@@ -12,6 +14,7 @@ import com.github.anrimian.musicplayer.domain.utils.functions.Function;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.mockito.Mockito;
 
@@ -34,17 +37,17 @@ public class CompositeMediaPlayerTest {
     private final PublishSubject<PlayerEvent> player1EventSubject = PublishSubject.create();
     private final PublishSubject<PlayerEvent> player2EventSubject = PublishSubject.create();
 
-    private final PublishSubject<Long> player1PositionSubject = PublishSubject.create();
-    private final PublishSubject<Long> player2PositionSubject = PublishSubject.create();
+    private final PublishSubject<PlaybackPosition> player1PositionSubject = PublishSubject.create();
+    private final PublishSubject<PlaybackPosition> player2PositionSubject = PublishSubject.create();
 
     @Before
     public void setUp() {
-        when(player1.getTrackPositionObservable()).thenReturn(player1PositionSubject);
+        when(player1.getPlaybackPositionObservable()).thenReturn(player1PositionSubject);
         when(player1.getEventsObservable()).thenReturn(player1EventSubject);
         when(player1.getSpeedChangeAvailableObservable()).thenReturn(Observable.just(true));
 
 
-        when(player2.getTrackPositionObservable()).thenReturn(player2PositionSubject);
+        when(player2.getPlaybackPositionObservable()).thenReturn(player2PositionSubject);
         when(player2.getEventsObservable()).thenReturn(player2EventSubject);
         when(player2.getSpeedChangeAvailableObservable()).thenReturn(Observable.just(true));
 
@@ -97,10 +100,25 @@ public class CompositeMediaPlayerTest {
         compositeMediaPlayer.prepareToPlay(composition, 0L, null);
         inOrder.verify(player1).prepareToPlay(eq(composition), eq(0L), eq(null));
 
-        player1PositionSubject.onNext(100L);
+        player1PositionSubject.onNext(new PlaybackPosition(100L, 1f, false));
 
         player1EventSubject.onNext(new ErrorEvent(ErrorType.UNSUPPORTED, composition));
         inOrder.verify(player1).release();
         inOrder.verify(player2).prepareToPlay(eq(composition), eq(100L), eq(ErrorType.UNSUPPORTED));
     }
+
+    @Test
+    public void testPlayersSwitchWithPlayingPosition() {
+        CompositionSource composition = TestDataProvider.fakeCompositionSource(0);
+
+        compositeMediaPlayer.prepareToPlay(composition, 0L, null);
+
+        long updateTime = PlaybackPosition.getCurrentTime() - 1000L;
+        player1PositionSubject.onNext(new PlaybackPosition(100L, updateTime, 1f, true));
+
+        player1EventSubject.onNext(new ErrorEvent(ErrorType.UNSUPPORTED, composition));
+        ArgumentCaptor<Long> positionCaptor = ArgumentCaptor.forClass(Long.class);
+        inOrder.verify(player2).prepareToPlay(eq(composition), positionCaptor.capture(), eq(ErrorType.UNSUPPORTED));
+        assertTrue(positionCaptor.getValue() >= 1100L);
+    }
 }
\ No newline at end of file
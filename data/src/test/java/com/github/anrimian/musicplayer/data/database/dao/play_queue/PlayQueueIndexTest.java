@@ -0,0 +1,242 @@
+package com.github.anrimian.musicplayer.data.database.dao.play_queue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static utils.TestDataProvider.queueEntity;
+
+import com.github.anrimian.musicplayer.data.database.entities.play_queue.PlayQueueEntity;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class PlayQueueIndexTest {
+
+    private static final ShufflePermutation PERMUTATION = new ShufflePermutation(42);
+
+    private final PlayQueueIndex index = new PlayQueueIndex();
+
+    @Test
+    public void navigationTest() {
+        setIndex(asList(
+                queueEntity(10, 1, 0, 2),
+                queueEntity(11, 2, 1, 0),
+                queueEntity(12, 3, 2, 1)
+        ));
+
+        assertEquals(11, index.getNextId(10, false));
+        assertEquals(12, index.getNextId(11, false));
+        assertEquals(10, index.getNextId(12, false));
+        assertEquals(12, index.getNextId(11, true));
+        assertEquals(10, index.getNextId(12, true));
+        assertEquals(11, index.getNextId(10, true));
+
+        assertEquals(10, index.getNextId(999, false));
+
+        assertEquals(2, index.indexOf(10, true));
+        assertEquals(0, index.indexOf(11, true));
+        assertEquals(-1, index.indexOf(999, true));
+
+        assertEquals(2, index.getLastPosition(false));
+        assertEquals(1, index.getPosition(12, true));
+    }
+
+    @Test
+    public void positionsWithGapsTest() {
+        setIndex(asList(
+                queueEntity(10, 1, 0, 0),
+                queueEntity(11, 2, 5, 3),
+                queueEntity(12, 3, 9, 7)
+        ));
+
+        assertEquals(1, index.indexOf(11, false));
+        assertEquals(11, (long) index.getIdAtPosition(1, false));
+        assertEquals(11, (long) index.getIdAtPosition(5, false));
+        assertEquals(12, (long) index.getIdAtPosition(6, false));
+        assertNull(index.getIdAtPosition(10, false));
+    }
+
+    @Test
+    public void appendTest() {
+        setIndex(asList(
+                queueEntity(10, 1, 0, 1024),
+                queueEntity(11, 2, 1024, 0)
+        ));
+
+        index.insert(2, new long[] { 20, 21 }, new int[] { 2048, 3072 }, false);
+        index.insert(2, new long[] { 20, 21 }, new int[] { 2048, 3072 }, true);
+
+        assertEquals(4, index.size());
+        assertEquals(20, index.getNextId(11, false));
+        assertEquals(21, index.getNextId(20, false));
+        assertEquals(3, index.indexOf(21, true));
+        assertEquals(3072, index.getLastPosition(true));
+    }
+
+    @Test
+    public void insertIntoGapTest() {
+        setIndex(asList(
+                queueEntity(10, 1, 0, 2048),
+                queueEntity(11, 2, 1024, 0),
+                queueEntity(12, 3, 2048, 1024)
+        ));
+
+        index.insert(1, new long[] { 20, 21 }, new int[] { 341, 682 }, false);
+        index.insert(3, new long[] { 20, 21 }, new int[] { 2389, 2730 }, true);
+
+        assertEquals(20, index.getNextId(10, false));
+        assertEquals(21, index.getNextId(20, false));
+        assertEquals(11, index.getNextId(21, false));
+        assertEquals(1024, index.getPosition(11, false));
+        assertEquals(4, index.indexOf(12, false));
+
+        //shuffled order: 11, 12, 10, 20, 21
+        assertEquals(20, index.getNextId(10, true));
+        assertEquals(11, index.getNextId(21, true));
+        assertEquals(4, index.indexOf(21, true));
+        assertEquals(2730, index.getLastPosition(true));
+    }
+
+    @Test
+    public void shiftPositionsTest() {
+        setIndex(asList(
+                queueEntity(10, 1, 0, 0),
+                queueEntity(11, 2, 1, 1),
+                queueEntity(12, 3, 2, 2)
+        ));
+
+        index.shiftPositions(1, 100, false);
+
+        assertEquals(0, index.getPosition(10, false));
+        assertEquals(101, index.getPosition(11, false));
+        assertEquals(102, index.getPosition(12, false));
+        assertEquals(2, index.getPosition(12, true));
+        assertEquals(1, index.findPosition(101, false));
+        assertEquals(-2, index.findPosition(50, false));
+    }
+
+    @Test
+    public void renumberTest() {
+        setIndex(asList(
+                queueEntity(10, 1, 3, 7),
+                queueEntity(11, 2, 5, 1),
+                queueEntity(12, 3, 9, 2)
+        ));
+
+        index.renumber(1024, true);
+
+        assertEquals(2048, index.getPosition(10, true));
+        assertEquals(0, index.getPosition(11, true));
+        assertEquals(1024, index.getPosition(12, true));
+        assertEquals(5, index.getPosition(11, false));
+    }
+
+    @Test
+    public void removeTest() {
+        setIndex(asList(
+                queueEntity(10, 1, 0, 2),
+                queueEntity(11, 2, 1, 0),
+                queueEntity(12, 3, 2, 1)
+        ));
+
+        index.remove(11);
+
+        assertFalse(index.contains(11));
+        assertEquals(12, index.getNextId(10, false));
+        assertEquals(1, index.indexOf(12, false));
+        assertEquals(0, index.indexOf(12, true));
+        assertEquals(2, index.getPosition(12, false));
+
+        index.remove(12);
+        assertEquals(10, index.getNextId(10, false));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void swapTest() {
+        setIndex(asList(
+                queueEntity(10, 1, 0, 0),
+                queueEntity(11, 2, 1, 1),
+                queueEntity(12, 3, 2, 2)
+        ));
+
+        index.swap(10, 12, false);
+
+        assertEquals(12, index.getIdAt(0, false));
+        assertEquals(10, index.getIdAt(2, false));
+        assertEquals(2, index.getPosition(10, false));
+        assertEquals(0, index.getPosition(12, false));
+        assertEquals(0, index.getPosition(10, true));
+        assertTrue(index.contains(10));
+    }
+
+    @Test
+    public void skipLatencyTest() {
+        Random random = new Random(0);
+        for (int count: new int[] { 1_000, 10_000, 50_000 }) {
+            List<PlayQueueEntity> entities = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                entities.add(queueEntity(i + 1, i + 1, i, i));
+            }
+
+            long startTime = System.nanoTime();
+            index.set(entities, new ShufflePermutation(random.nextLong()));
+            index.indexOf(1, false);
+            index.indexOf(1, true);
+            long loadTime = System.nanoTime() - startTime;
+
+            int skips = count * 2;
+            long id = index.getIdAt(0, true);
+            startTime = System.nanoTime();
+            for (int i = 0; i < skips; i++) {
+                id = index.getNextId(id, true);
+            }
+            long skipTime = System.nanoTime() - startTime;
+            assertEquals(index.getIdAt(0, true), id);
+
+            System.out.println("queue size: " + count
+                    + ", load: " + loadTime / 1_000_000 + " ms"
+                    + ", skip: " + skipTime / skips + " ns");
+        }
+    }
+
+    @Test
+    public void reshuffleTest() {
+        List<PlayQueueEntity> entities = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            entities.add(queueEntity(i + 1, i + 1, i, i));
+        }
+        ShufflePermutation oldPermutation = new ShufflePermutation(1);
+        ShufflePermutation newPermutation = new ShufflePermutation(2);
+        index.set(entities, oldPermutation);
+
+        index.reshuffle(oldPermutation, newPermutation);
+
+        PlayQueueIndex expected = new PlayQueueIndex();
+        expected.set(entities, newPermutation);
+        for (int i = 0; i < entities.size(); i++) {
+            assertEquals(expected.getIdAt(i, true), index.getIdAt(i, true));
+            assertEquals(expected.getPositionAt(i, true), index.getPositionAt(i, true));
+            assertEquals(i + 1, index.getIdAt(i, false));
+        }
+    }
+
+    //shuffled positions of test entities are converted to keys which are mapped to them back
+    private void setIndex(List<PlayQueueEntity> entities) {
+        for (PlayQueueEntity entity: entities) {
+            entity.setShuffledPosition(PERMUTATION.getKey(entity.getShuffledPosition()));
+        }
+        index.set(entities, PERMUTATION);
+    }
+
+    private static List<PlayQueueEntity> asList(PlayQueueEntity... entities) {
+        List<PlayQueueEntity> list = new ArrayList<>();
+        Collections.addAll(list, entities);
+        return list;
+    }
+}
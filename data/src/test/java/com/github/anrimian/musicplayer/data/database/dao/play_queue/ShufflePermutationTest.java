@@ -0,0 +1,127 @@
+package com.github.anrimian.musicplayer.data.database.dao.play_queue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+public class ShufflePermutationTest {
+
+    @Test
+    public void inverseTest() {
+        Random random = new Random(0);
+        for (int s = 0; s < 10; s++) {
+            ShufflePermutation permutation = new ShufflePermutation(random.nextLong());
+            for (int i = 0; i < 10_000; i++) {
+                int key = random.nextInt(ShufflePermutation.MAX_POSITION + 1);
+                int position = permutation.getPosition(key);
+                assertTrue(position >= 0 && position <= ShufflePermutation.MAX_POSITION);
+                assertEquals(key, permutation.getKey(position));
+            }
+            assertEquals(0, permutation.getKey(permutation.getPosition(0)));
+            assertEquals(ShufflePermutation.MAX_POSITION,
+                    permutation.getKey(permutation.getPosition(ShufflePermutation.MAX_POSITION)));
+        }
+    }
+
+    @Test
+    public void distinctPositionsTest() {
+        ShufflePermutation permutation = new ShufflePermutation(7);
+        int count = 1 << 20;
+        BitSet positions = new BitSet();
+        for (int key = 0; key < count; key++) {
+            positions.set(permutation.getPosition(key));
+        }
+        assertEquals(count, positions.cardinality());
+    }
+
+    @Test
+    public void deterministicTest() {
+        ShufflePermutation first = new ShufflePermutation(12345);
+        ShufflePermutation second = new ShufflePermutation(12345);
+        ShufflePermutation other = new ShufflePermutation(12346);
+        int[] firstOrder = order(first, 100);
+        assertEquals(12345, first.getSeed());
+        assertTrue(Arrays.equals(firstOrder, order(second, 100)));
+        assertNotEquals(Arrays.toString(firstOrder), Arrays.toString(order(other, 100)));
+    }
+
+    //all orders of a few keys must be equally likely over random seeds
+    @Test
+    public void uniformOrderTest() {
+        int keysCount = 4;
+        int ordersCount = 24;
+        int runs = 48_000;
+        int[] frequencies = new int[ordersCount];
+        Random random = new Random(0);
+        for (int i = 0; i < runs; i++) {
+            ShufflePermutation permutation = new ShufflePermutation(random.nextLong());
+            frequencies[orderIndex(order(permutation, keysCount))]++;
+        }
+
+        double expected = (double) runs / ordersCount;
+        double chiSquare = 0;
+        for (int frequency: frequencies) {
+            chiSquare += (frequency - expected) * (frequency - expected) / expected;
+        }
+        //critical value for 23 degrees of freedom, p = 0.001
+        assertTrue("chi square: " + chiSquare, chiSquare < 49.73);
+    }
+
+    //first item of shuffled order must be any key with equal probability
+    @Test
+    public void uniformFirstItemTest() {
+        int keysCount = 10;
+        int runs = 20_000;
+        int[] frequencies = new int[keysCount];
+        Random random = new Random(1);
+        for (int i = 0; i < runs; i++) {
+            ShufflePermutation permutation = new ShufflePermutation(random.nextLong());
+            frequencies[order(permutation, keysCount)[0]]++;
+        }
+
+        double expected = (double) runs / keysCount;
+        double chiSquare = 0;
+        for (int frequency: frequencies) {
+            chiSquare += (frequency - expected) * (frequency - expected) / expected;
+        }
+        //critical value for 9 degrees of freedom, p = 0.001
+        assertTrue("chi square: " + chiSquare, chiSquare < 27.88);
+    }
+
+    /**
+     * @return keys from 0 until count sorted by their positions
+     */
+    private static int[] order(ShufflePermutation permutation, int count) {
+        long[] packed = new long[count];
+        for (int key = 0; key < count; key++) {
+            packed[key] = ((long) permutation.getPosition(key) << 32) | key;
+        }
+        Arrays.sort(packed);
+        int[] keys = new int[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = (int) packed[i];
+        }
+        return keys;
+    }
+
+    //lehmer code of permutation
+    private static int orderIndex(int[] order) {
+        int index = 0;
+        for (int i = 0; i < order.length; i++) {
+            int smaller = 0;
+            for (int j = i + 1; j < order.length; j++) {
+                if (order[j] < order[i]) {
+                    smaller++;
+                }
+            }
+            index = index * (order.length - i) + smaller;
+        }
+        return index;
+    }
+}
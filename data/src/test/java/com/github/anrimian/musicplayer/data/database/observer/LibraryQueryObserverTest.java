@@ -0,0 +1,128 @@
+package com.github.anrimian.musicplayer.data.database.observer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static java.util.Collections.singleton;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import androidx.room.InvalidationTracker;
+
+import com.github.anrimian.musicplayer.data.database.AppDatabase;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.observers.TestObserver;
+import io.reactivex.rxjava3.schedulers.TestScheduler;
+
+public class LibraryQueryObserverTest {
+
+    private static final String TABLE = "compositions";
+
+    private final AppDatabase appDatabase = mock(AppDatabase.class);
+    private final InvalidationTracker invalidationTracker = mock(InvalidationTracker.class);
+
+    private final TestScheduler scheduler = new TestScheduler();
+    private final AtomicInteger queryCounter = new AtomicInteger();
+
+    private InvalidationTracker.Observer trackerObserver;
+
+    private LibraryQueryObserver queryObserver;
+
+    @Before
+    public void setUp() {
+        when(appDatabase.getInvalidationTracker()).thenReturn(invalidationTracker);
+        doAnswer(invocation -> {
+            trackerObserver = invocation.getArgument(0);
+            return null;
+        }).when(invalidationTracker).addObserver(any());
+
+        queryObserver = new LibraryQueryObserver(appDatabase, scheduler);
+    }
+
+    @Test
+    public void changesOutOfScanAreDeliveredImmediatelyTest() {
+        TestObserver<Integer> observer = queryObserver.createObservable(
+                queryCounter::incrementAndGet,
+                TABLE)
+                .test();
+        scheduler.triggerActions();
+        observer.assertValues(1);
+
+        trackerObserver.onInvalidated(singleton(TABLE));
+        scheduler.triggerActions();
+        trackerObserver.onInvalidated(singleton(TABLE));
+        scheduler.triggerActions();
+        observer.assertValues(1, 2, 3);
+
+        LibraryQueryStats stats = queryObserver.getStats();
+        assertEquals(3, stats.getQueryExecutions());
+        assertEquals(2, stats.getQueryReExecutions());
+        assertEquals(0, stats.getCurrentScanReExecutions());
+    }
+
+    @Test
+    public void changesDuringScanAreCoalescedTest() {
+        TestObserver<Integer> observer = queryObserver.createObservable(
+                queryCounter::incrementAndGet,
+                TABLE)
+                .test();
+        scheduler.triggerActions();
+
+        queryObserver.onScanStarted();
+        //scanner saves batch of files each 50 millis during 5 seconds
+        for (int i = 0; i < 100; i++) {
+            trackerObserver.onInvalidated(singleton(TABLE));
+            scheduler.advanceTimeBy(50, MILLISECONDS);
+        }
+        scheduler.advanceTimeBy(1, SECONDS);
+        queryObserver.onScanFinished();
+
+        LibraryQueryStats stats = queryObserver.getStats();
+        long reExecutions = stats.getLastScanReExecutions();
+        System.out.println("re-executions per scan: " + reExecutions + ", without coalescing: 100");
+        assertTrue("re-executions: " + reExecutions, reExecutions <= 6);
+        assertEquals(1, stats.getScansCompleted());
+
+        //last change is not lost
+        observer.assertValueCount((int) reExecutions + 1);
+        assertEquals(queryCounter.get(), (int) observer.values().get(observer.values().size() - 1));
+
+        //out of scan changes are not throttled again
+        trackerObserver.onInvalidated(singleton(TABLE));
+        scheduler.triggerActions();
+        observer.assertValueCount((int) reExecutions + 2);
+    }
+
+    @Test
+    public void nestedScansTest() {
+        queryObserver.onScanStarted();
+        queryObserver.onScanStarted();
+        queryObserver.onScanFinished();
+        assertEquals(0, queryObserver.getStats().getScansCompleted());
+
+        queryObserver.onScanFinished();
+        queryObserver.onScanFinished();
+        assertEquals(1, queryObserver.getStats().getScansCompleted());
+    }
+
+    @Test
+    public void trackerObserverIsRemovedOnDisposeTest() {
+        Disposable disposable = queryObserver.createObservable(queryCounter::incrementAndGet, TABLE)
+                .subscribe();
+        scheduler.triggerActions();
+
+        disposable.dispose();
+
+        verify(invalidationTracker).removeObserver(trackerObserver);
+    }
+}
@@ -0,0 +1,25 @@
+package com.github.anrimian.musicplayer.data.database.utils;
+
+import static com.github.anrimian.musicplayer.data.database.utils.DatabaseUtils.getFtsMatchQuery;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class DatabaseUtilsTest {
+
+    @Test
+    public void ftsMatchQueryTest() {
+        assertEquals("Bohemian* rha*", getFtsMatchQuery("  Bohemian rha", null));
+        assertEquals("title:don* title:t*", getFtsMatchQuery("don't", "title"));
+        assertEquals("любовь* 01*", getFtsMatchQuery("любовь_01", null));
+        assertEquals("a* OR* b*", getFtsMatchQuery("\"a\" OR -b", null));
+    }
+
+    @Test
+    public void emptyFtsMatchQueryTest() {
+        assertNull(getFtsMatchQuery(null, null));
+        assertNull(getFtsMatchQuery("", null));
+        assertNull(getFtsMatchQuery(" *\"- ", "title"));
+    }
+}
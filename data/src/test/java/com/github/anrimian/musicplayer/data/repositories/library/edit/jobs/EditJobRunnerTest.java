@@ -0,0 +1,431 @@
+package com.github.anrimian.musicplayer.data.repositories.library.edit.jobs;
+
+import static com.github.anrimian.musicplayer.data.database.entities.edit.EditJobFileEntity.FIELD_ALBUM;
+import static com.github.anrimian.musicplayer.data.database.entities.edit.EditJobFileEntity.FIELD_ARTIST;
+import static com.github.anrimian.musicplayer.data.database.entities.edit.EditJobFileEntity.FIELD_GENRE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.github.anrimian.musicplayer.data.database.AppDatabase;
+import com.github.anrimian.musicplayer.data.database.dao.albums.AlbumsDaoWrapper;
+import com.github.anrimian.musicplayer.data.database.dao.artist.ArtistsDaoWrapper;
+import com.github.anrimian.musicplayer.data.database.dao.edit.EditJobsDao;
+import com.github.anrimian.musicplayer.data.database.dao.edit.EditJobsDaoWrapper;
+import com.github.anrimian.musicplayer.data.database.dao.genre.GenresDaoWrapper;
+import com.github.anrimian.musicplayer.data.database.entities.edit.EditJobEntity;
+import com.github.anrimian.musicplayer.data.database.entities.edit.EditJobFileEntity;
+import com.github.anrimian.musicplayer.data.database.entities.edit.EditJobFileState;
+import com.github.anrimian.musicplayer.data.database.entities.edit.EditJobType;
+import com.github.anrimian.musicplayer.data.models.composition.CompositionId;
+import com.github.anrimian.musicplayer.data.storage.providers.genres.StorageGenresProvider;
+import com.github.anrimian.musicplayer.data.storage.providers.music.StorageMusicProvider;
+import com.github.anrimian.musicplayer.data.storage.source.CompositionSourceEditor;
+import com.github.anrimian.musicplayer.domain.interactors.analytics.Analytics;
+import com.github.anrimian.musicplayer.domain.models.editor.EditJobProgress;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.observers.TestObserver;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import io.reactivex.rxjava3.subjects.SingleSubject;
+
+public class EditJobRunnerTest {
+
+    private final FakeEditJobsDao editJobsDao = new FakeEditJobsDao();
+    private final AppDatabase appDatabase = mock(AppDatabase.class);
+    private final CompositionSourceEditor sourceEditor = mock(CompositionSourceEditor.class);
+    private final AlbumsDaoWrapper albumsDao = mock(AlbumsDaoWrapper.class);
+    private final ArtistsDaoWrapper artistsDao = mock(ArtistsDaoWrapper.class);
+    private final GenresDaoWrapper genresDao = mock(GenresDaoWrapper.class);
+    private final StorageMusicProvider storageMusicProvider = mock(StorageMusicProvider.class);
+    private final StorageGenresProvider storageGenresProvider = mock(StorageGenresProvider.class);
+    private final Analytics analytics = mock(Analytics.class);
+
+    private final List<List<String>> scannedBatches = new ArrayList<>();
+
+    private EditJobRunner runner;
+
+    @SuppressWarnings("unchecked")
+    @Before
+    public void setUp() throws Exception {
+        when(appDatabase.runInTransaction(any(Callable.class)))
+                .thenAnswer(invocation -> ((Callable<?>) invocation.getArgument(0)).call());
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(appDatabase).runInTransaction(any(Runnable.class));
+        when(sourceEditor.editTagsOfFile(any(), any()))
+                .thenAnswer(invocation -> Single.just(getPath(invocation.getArgument(0))));
+        when(storageMusicProvider.processStorageError(any(), anyList()))
+                .thenAnswer(invocation -> Completable.error((Throwable) invocation.getArgument(0)));
+        doAnswer(invocation -> {
+            scannedBatches.add(new ArrayList<>(invocation.getArgument(0)));
+            return null;
+        }).when(storageMusicProvider).scanMedia(anyList());
+
+        runner = createRunner(Schedulers.trampoline());
+    }
+
+    @Test
+    public void runJobTest() {
+        runner.runJob(EditJobType.ARTIST_NAME, 1L, "new name", null, createFiles(3, FIELD_ARTIST))
+                .test()
+                .assertComplete();
+
+        verify(sourceEditor, times(3)).editTagsOfFile(any(), any());
+        verify(artistsDao).updateArtistName("new name", 1L);
+        //all files are scanned with one call
+        assertEquals(1, scannedBatches.size());
+        assertEquals(3, scannedBatches.get(0).size());
+        //journal is removed after completion
+        assertTrue(editJobsDao.jobs.isEmpty());
+        assertTrue(editJobsDao.files.isEmpty());
+    }
+
+    @Test
+    public void libraryIsUpdatedAfterFilesTest() {
+        runner.runJob(EditJobType.GENRE_NAME, 2L, "new", "old", createFiles(2, FIELD_GENRE))
+                .test()
+                .assertComplete();
+
+        InOrder inOrder = inOrder(sourceEditor, genresDao, storageGenresProvider);
+        inOrder.verify(sourceEditor, times(2)).editTagsOfFile(any(), any());
+        inOrder.verify(genresDao).updateGenreName("new", 2L);
+        inOrder.verify(storageGenresProvider).updateGenreName("old", "new");
+    }
+
+    @Test
+    public void scanBatchesTest() {
+        runner.runJob(EditJobType.ALBUM_NAME, 1L, "album", null, createFiles(250, FIELD_ARTIST))
+                .test()
+                .assertComplete();
+
+        assertEquals(3, scannedBatches.size());
+        assertEquals(100, scannedBatches.get(0).size());
+        assertEquals(100, scannedBatches.get(1).size());
+        assertEquals(50, scannedBatches.get(2).size());
+    }
+
+    @Test
+    public void fileErrorTest() {
+        Exception exception = new RuntimeException("test");
+        doReturn(Single.error(exception))
+                .when(sourceEditor).editTagsOfFile(eq(new CompositionId(3, 3L)), any());
+
+        runner.runJob(EditJobType.ARTIST_NAME, 1L, "new name", null, createFiles(5, FIELD_ARTIST))
+                .test()
+                .assertError(exception);
+
+        //other files are edited and library is updated for them
+        verify(sourceEditor, times(5)).editTagsOfFile(any(), any());
+        verify(artistsDao).updateArtistName("new name", 1L);
+        assertEquals(1, scannedBatches.size());
+        assertEquals(4, scannedBatches.get(0).size());
+        //failed file is reported and job is finished
+        verify(storageMusicProvider).processStorageError(exception,
+                Collections.singletonList(new CompositionId(3, 3L)));
+        assertTrue(editJobsDao.jobs.isEmpty());
+        assertTrue(editJobsDao.files.isEmpty());
+    }
+
+    @Test
+    public void failedFileIsNotRetriedTest() {
+        Exception exception = new RuntimeException("test");
+        doReturn(Single.error(exception))
+                .when(sourceEditor).editTagsOfFile(eq(new CompositionId(3, 3L)), any());
+        runner.runJob(EditJobType.ARTIST_NAME, 1L, "new name", null, createFiles(5, FIELD_ARTIST))
+                .test()
+                .assertError(exception);
+
+        runner.resumeJobs();
+
+        verify(sourceEditor, times(1)).editTagsOfFile(eq(new CompositionId(3, 3L)), any());
+        verify(sourceEditor, times(5)).editTagsOfFile(any(), any());
+        verify(artistsDao, times(1)).updateArtistName("new name", 1L);
+    }
+
+    @Test
+    public void resumeWithFailedFileTest() {
+        //process was killed after one file failed
+        EditJobEntity job = createJob(createFiles(3, FIELD_ARTIST));
+        List<EditJobFileEntity> files = editJobsDao.selectFiles(job.getId(), EditJobFileState.PENDING);
+        editJobsDao.updateFileState(files.get(0).getId(), EditJobFileState.FAILED, null);
+
+        runner.resumeJobs();
+
+        verify(sourceEditor, never()).editTagsOfFile(eq(new CompositionId(1, 1L)), any());
+        verify(sourceEditor, times(2)).editTagsOfFile(any(), any());
+        verify(artistsDao).updateArtistName("new name", 1L);
+        verify(storageMusicProvider).processStorageError(any(),
+                eq(Collections.singletonList(new CompositionId(1, 1L))));
+        assertTrue(editJobsDao.jobs.isEmpty());
+    }
+
+    @Test
+    public void resumeAfterNewerJobTest() {
+        //process was killed during rename to "B"
+        EditJobsDaoWrapper daoWrapper = new EditJobsDaoWrapper(appDatabase, editJobsDao);
+        EditJobEntity oldJob = daoWrapper.createJob(
+                new EditJobEntity(EditJobType.ALBUM_NAME, 1L, "B", null, new Date()),
+                createFiles(3, FIELD_ALBUM));
+        List<EditJobFileEntity> files = editJobsDao.selectFiles(oldJob.getId(), EditJobFileState.PENDING);
+        editJobsDao.updateFileState(files.get(0).getId(), EditJobFileState.EDITED, getPath(1));
+
+        runner.runJob(EditJobType.ALBUM_NAME, 1L, "C", null, createFiles(3, FIELD_ALBUM))
+                .test()
+                .assertComplete();
+        runner.resumeJobs();
+
+        verify(albumsDao).updateAlbumName("C", 1L);
+        verify(albumsDao, never()).updateAlbumName(eq("B"), anyLong());
+        verify(sourceEditor, times(3)).editTagsOfFile(any(), any());
+        assertTrue(editJobsDao.jobs.isEmpty());
+        assertTrue(editJobsDao.files.isEmpty());
+    }
+
+    @Test
+    public void resumeJobTest() {
+        //process was killed after two files were edited and one of them was scanned
+        EditJobEntity job = createJob(createFiles(5, FIELD_ARTIST));
+        List<EditJobFileEntity> files = editJobsDao.selectFiles(job.getId(), EditJobFileState.PENDING);
+        editJobsDao.updateFileState(files.get(0).getId(), EditJobFileState.SCANNED, getPath(1));
+        editJobsDao.updateFileState(files.get(1).getId(), EditJobFileState.EDITED, getPath(2));
+
+        runner.resumeJobs();
+
+        verify(sourceEditor, times(3)).editTagsOfFile(any(), any());
+        verify(sourceEditor, never()).editTagsOfFile(eq(new CompositionId(1, 1L)), any());
+        verify(sourceEditor, never()).editTagsOfFile(eq(new CompositionId(2, 2L)), any());
+        verify(artistsDao).updateArtistName("new name", 1L);
+        //file edited before restart is scanned first
+        assertEquals(Collections.singletonList(getPath(2)), scannedBatches.get(0));
+        assertEquals(3, scannedBatches.get(1).size());
+        assertTrue(editJobsDao.jobs.isEmpty());
+    }
+
+    @Test
+    public void resumeJobErrorTest() {
+        createJob(createFiles(2, FIELD_ARTIST));
+        Exception exception = new RuntimeException("test");
+        doReturn(Single.error(exception)).when(sourceEditor).editTagsOfFile(any(), any());
+
+        runner.resumeJobs();
+
+        verify(analytics).processNonFatalError(exception);
+        verify(artistsDao, never()).updateArtistName(any(), eq(1L));
+        verify(storageMusicProvider).processStorageError(exception,
+                Arrays.asList(new CompositionId(1, 1L), new CompositionId(2, 2L)));
+        assertTrue(editJobsDao.jobs.isEmpty());
+
+        runner.resumeJobs();
+        verify(sourceEditor, times(2)).editTagsOfFile(any(), any());
+    }
+
+    @Test
+    public void repeatedResumeOfActiveJobTest() {
+        createJob(createFiles(1, FIELD_ARTIST));
+        SingleSubject<String> editSubject = SingleSubject.create();
+        doReturn(editSubject).when(sourceEditor).editTagsOfFile(any(), any());
+
+        runner.resumeJobs();
+        runner.resumeJobs();
+        verify(sourceEditor, times(1)).editTagsOfFile(any(), any());
+        verify(analytics, never()).processNonFatalError(any());
+
+        Exception exception = new RuntimeException("test");
+        editSubject.onError(exception);
+
+        //second run receives result of active job instead of completing at once
+        verify(analytics, times(2)).processNonFatalError(exception);
+        verify(sourceEditor, times(1)).editTagsOfFile(any(), any());
+    }
+
+    @Test
+    public void progressTest() {
+        TestObserver<EditJobProgress> progressObserver = runner.getProgressObservable().test();
+
+        runner.runJob(EditJobType.ARTIST_NAME, 1L, "new name", null, createFiles(2, FIELD_ARTIST))
+                .test()
+                .assertComplete();
+
+        progressObserver.assertValueCount(5);
+        List<EditJobProgress> values = progressObserver.values();
+        assertEquals(new EditJobProgress(0, 0, 0f), values.get(0));
+        assertEquals(2, values.get(1).getTotalFiles());
+        assertEquals(0, values.get(1).getEditedFiles());
+        assertEquals(1, values.get(2).getEditedFiles());
+        assertEquals(2, values.get(3).getEditedFiles());
+        assertEquals(new EditJobProgress(0, 0, 0f), values.get(4));
+    }
+
+    @Test
+    public void parallelEditsTest() {
+        AtomicInteger activeEdits = new AtomicInteger();
+        AtomicInteger maxActiveEdits = new AtomicInteger();
+        doAnswer(invocation -> Single.fromCallable(() -> {
+            int active = activeEdits.incrementAndGet();
+            maxActiveEdits.accumulateAndGet(active, Math::max);
+            Thread.sleep(20);
+            activeEdits.decrementAndGet();
+            return getPath(invocation.<CompositionId>getArgument(0));
+        })).when(sourceEditor).editTagsOfFile(any(), any());
+        runner = createRunner(Schedulers.io());
+
+        int filesCount = 40;
+        long startTime = System.nanoTime();
+        runner.runJob(EditJobType.ARTIST_NAME, 1L, "new name", null, createFiles(filesCount, FIELD_ARTIST))
+                .blockingAwait();
+        long time = System.nanoTime() - startTime;
+
+        assertEquals(4, maxActiveEdits.get());
+        System.out.println("edit job: " + filesCount * 1_000_000_000L / time + " files/s with 20 ms per file");
+    }
+
+    private EditJobRunner createRunner(Scheduler scheduler) {
+        return new EditJobRunner(new EditJobsDaoWrapper(appDatabase, editJobsDao),
+                sourceEditor,
+                albumsDao,
+                artistsDao,
+                genresDao,
+                storageMusicProvider,
+                storageGenresProvider,
+                analytics,
+                scheduler);
+    }
+
+    private EditJobEntity createJob(Map<CompositionId, Integer> files) {
+        return new EditJobsDaoWrapper(appDatabase, editJobsDao).createJob(
+                new EditJobEntity(EditJobType.ARTIST_NAME, 1L, "new name", null, new Date()),
+                files);
+    }
+
+    private static Map<CompositionId, Integer> createFiles(int count, int fields) {
+        Map<CompositionId, Integer> files = new LinkedHashMap<>();
+        for (long id = 1; id <= count; id++) {
+            files.put(new CompositionId(id, id), fields);
+        }
+        return files;
+    }
+
+    private static String getPath(CompositionId composition) {
+        return getPath(composition.getId());
+    }
+
+    private static String getPath(long id) {
+        return "/music/" + id + ".mp3";
+    }
+
+    private static class FakeEditJobsDao implements EditJobsDao {
+
+        final Map<Long, EditJobEntity> jobs = new LinkedHashMap<>();
+        final Map<Long, EditJobFileEntity> files = new LinkedHashMap<>();
+
+        private long lastId;
+
+        @Override
+        public synchronized long insertJob(EditJobEntity job) {
+            long id = ++lastId;
+            job.setId(id);
+            jobs.put(id, job);
+            return id;
+        }
+
+        @Override
+        public synchronized void insertFiles(List<EditJobFileEntity> files) {
+            for (EditJobFileEntity file: files) {
+                long id = ++lastId;
+                file.setId(id);
+                this.files.put(id, file);
+            }
+        }
+
+        @Override
+        public synchronized List<EditJobEntity> selectJobs() {
+            return new ArrayList<>(jobs.values());
+        }
+
+        @Override
+        public synchronized List<EditJobFileEntity> selectFiles(long jobId, EditJobFileState state) {
+            List<EditJobFileEntity> result = new ArrayList<>();
+            for (EditJobFileEntity file: files.values()) {
+                if (file.getJobId() == jobId && file.getState() == state) {
+                    result.add(file);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public synchronized int selectFilesCount(long jobId) {
+            int count = 0;
+            for (EditJobFileEntity file: files.values()) {
+                if (file.getJobId() == jobId) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public synchronized void updateFileState(long id, EditJobFileState state, String filePath) {
+            EditJobFileEntity file = files.get(id);
+            EditJobFileEntity updated = new EditJobFileEntity(file.getJobId(),
+                    file.getCompositionId(),
+                    file.getStorageId(),
+                    file.getFields(),
+                    state,
+                    filePath);
+            updated.setId(id);
+            files.put(id, updated);
+        }
+
+        @Override
+        public synchronized void updateFilesState(List<Long> ids, EditJobFileState state) {
+            for (Long id: ids) {
+                updateFileState(id, state, files.get(id).getFilePath());
+            }
+        }
+
+        @Override
+        public synchronized void deleteJob(long id) {
+            jobs.remove(id);
+            files.values().removeIf(file -> file.getJobId() == id);
+        }
+
+        @Override
+        public synchronized void deleteJobs(EditJobType type, long targetId) {
+            for (EditJobEntity job: new ArrayList<>(jobs.values())) {
+                if (job.getType() == type && job.getTargetId() == targetId) {
+                    deleteJob(job.getId());
+                }
+            }
+        }
+    }
+}
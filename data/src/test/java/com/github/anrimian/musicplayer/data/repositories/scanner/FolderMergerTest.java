@@ -1,10 +1,9 @@
 package com.github.anrimian.musicplayer.data.repositories.scanner;
 
-import androidx.collection.LongSparseArray;
-
 import com.github.anrimian.musicplayer.data.repositories.scanner.folders.FolderNode;
 import com.github.anrimian.musicplayer.data.repositories.scanner.nodes.AddedNode;
 import com.github.anrimian.musicplayer.data.repositories.scanner.nodes.LocalFolderNode;
+import com.github.anrimian.musicplayer.data.utils.collections.LongHashMap;
 
 import org.junit.Test;
 
@@ -35,7 +34,7 @@ public class FolderMergerTest {
 
         List<Long> foldersToDelete = new LinkedList<>();
         List<AddedNode> foldersToInsert = new LinkedList<>();
-        LongSparseArray<Long> movedFiles = new LongSparseArray<>();
+        LongHashMap<Long> movedFiles = new LongHashMap<>();
         folderMerger.mergeFolderTrees(actualFolderTree, existsFolders, foldersToDelete, foldersToInsert, movedFiles);
 
         AddedNode addedNode = foldersToInsert.get(0);
@@ -51,7 +50,7 @@ public class FolderMergerTest {
         assert movedFiles.containsKey(1L);
         assert movedFiles.containsKey(2L);
         assert movedFiles.containsKey(3L);
-        assert movedFiles.containsValue(null);
+        assert movedFiles.values().contains(null);
     }
 
     @Test
@@ -76,7 +75,7 @@ public class FolderMergerTest {
 
         List<Long> foldersToDelete = new LinkedList<>();
         List<AddedNode> foldersToInsert = new LinkedList<>();
-        LongSparseArray<Long> movedFiles = new LongSparseArray<>();
+        LongHashMap<Long> movedFiles = new LongHashMap<>();
         folderMerger.mergeFolderTrees(actualFolderTree, existsFolders, foldersToDelete, foldersToInsert, movedFiles);
 
         assertEquals(0, foldersToDelete.size());
@@ -105,7 +104,7 @@ public class FolderMergerTest {
 
         List<Long> foldersToDelete = new LinkedList<>();
         List<AddedNode> foldersToInsert = new LinkedList<>();
-        LongSparseArray<Long> movedFiles = new LongSparseArray<>();
+        LongHashMap<Long> movedFiles = new LongHashMap<>();
         folderMerger.mergeFolderTrees(actualFolderTree, existsFolders, foldersToDelete, foldersToInsert, movedFiles);
 
         assertEquals(1, foldersToDelete.size());
@@ -115,7 +114,7 @@ public class FolderMergerTest {
         assert foldersToDelete.contains(2L);
         assert foldersToInsert.contains(new AddedNode(null, folder2));
         assert movedFiles.containsKey(2L);
-        assert movedFiles.containsValue(FolderMerger.UNKNOWN_CURRENT_FOLDER_ID);
+        assert movedFiles.values().contains(FolderMerger.UNKNOWN_CURRENT_FOLDER_ID);
     }
 
     @Test
@@ -141,7 +140,7 @@ public class FolderMergerTest {
 
         List<Long> foldersToDelete = new LinkedList<>();
         List<AddedNode> foldersToInsert = new LinkedList<>();
-        LongSparseArray<Long> movedFiles = new LongSparseArray<>();
+        LongHashMap<Long> movedFiles = new LongHashMap<>();
         folderMerger.mergeFolderTrees(actualFolderTree, existsFolders, foldersToDelete, foldersToInsert, movedFiles);
 
         assertEquals(0, foldersToDelete.size());
@@ -149,7 +148,7 @@ public class FolderMergerTest {
         assertEquals(1, movedFiles.size());
 
         assert movedFiles.containsKey(2L);
-        assert movedFiles.containsValue(1L);
+        assert movedFiles.values().contains(1L);
     }
 
     @Test
@@ -170,7 +169,7 @@ public class FolderMergerTest {
 
         List<Long> foldersToDelete = new LinkedList<>();
         List<AddedNode> foldersToInsert = new LinkedList<>();
-        LongSparseArray<Long> movedFiles = new LongSparseArray<>();
+        LongHashMap<Long> movedFiles = new LongHashMap<>();
         folderMerger.mergeFolderTrees(actualFolderTree, existsFolders, foldersToDelete, foldersToInsert, movedFiles);
 
         assertEquals(1, foldersToDelete.size());
@@ -203,7 +202,7 @@ public class FolderMergerTest {
 
         List<Long> foldersToDelete = new LinkedList<>();
         List<AddedNode> foldersToInsert = new LinkedList<>();
-        LongSparseArray<Long> movedFiles = new LongSparseArray<>();
+        LongHashMap<Long> movedFiles = new LongHashMap<>();
         folderMerger.mergeFolderTrees(actualFolderTree, existsFolders, foldersToDelete, foldersToInsert, movedFiles);
 
         assertEquals(0, foldersToDelete.size());
@@ -211,6 +210,6 @@ public class FolderMergerTest {
         assertEquals(1, movedFiles.size());
 
         assert movedFiles.containsKey(3L);
-        assert movedFiles.containsValue(2L);
+        assert movedFiles.values().contains(2L);
     }
 }
\ No newline at end of file
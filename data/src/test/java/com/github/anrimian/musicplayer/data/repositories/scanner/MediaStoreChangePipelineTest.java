@@ -0,0 +1,187 @@
+package com.github.anrimian.musicplayer.data.repositories.scanner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static java.util.Collections.singleton;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.observers.TestObserver;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import io.reactivex.rxjava3.schedulers.TestScheduler;
+import io.reactivex.rxjava3.subjects.PublishSubject;
+
+public class MediaStoreChangePipelineTest {
+
+    private static final String MEDIA_URI = "content://media/external/audio/media";
+    private static final String PLAYLIST_MEMBERS_URI = "content://media/external/audio/playlists/0/members";
+
+    private final TestScheduler timerScheduler = new TestScheduler();
+    private final FakeContentResolver contentResolver = new FakeContentResolver();
+
+    @Test
+    public void copyOfManyFilesTriggersBoundedScansTest() {
+        MediaStoreChangePipeline pipeline = new MediaStoreChangePipeline(timerScheduler,
+                Schedulers.trampoline(),
+                500,
+                5000,
+                10_000);
+        List<Set<String>> scannedBatches = new ArrayList<>();
+        pipeline.getScansObservable(contentResolver.getChangesObservable(),
+                (uris, signal) -> scannedBatches.add(uris))
+                .subscribe();
+
+        //1000 files copied during 30 seconds, each file notifies media and playlist members uris
+        int filesCount = 1000;
+        for (int i = 0; i < filesCount; i++) {
+            contentResolver.notifyChange(MEDIA_URI + "/" + i);
+            contentResolver.notifyChange(PLAYLIST_MEMBERS_URI);
+            timerScheduler.advanceTimeBy(30, MILLISECONDS);
+        }
+        timerScheduler.advanceTimeBy(1, SECONDS);
+
+        MediaStoreChangeStats stats = pipeline.getStats();
+        assertEquals(2000, stats.getEventsReceived());
+        assertTrue("scans: " + stats.getScansStarted(), stats.getScansStarted() <= 4);
+        assertEquals(stats.getScansStarted(), stats.getScansCompleted());
+        assertEquals(stats.getScansStarted(), scannedBatches.size());
+
+        Set<String> scannedUris = new HashSet<>();
+        for (Set<String> batch: scannedBatches) {
+            assertTrue(batch.contains(PLAYLIST_MEMBERS_URI));
+            scannedUris.addAll(batch);
+        }
+        assertEquals(filesCount + 1, scannedUris.size());
+    }
+
+    @Test
+    public void quietPeriodTriggersScanTest() {
+        MediaStoreChangePipeline pipeline = new MediaStoreChangePipeline(timerScheduler,
+                Schedulers.trampoline(),
+                500,
+                5000,
+                10_000);
+        TestObserver<Set<String>> scansObserver = pipeline.getScansObservable(
+                contentResolver.getChangesObservable(),
+                (uris, signal) -> {})
+                .test();
+
+        contentResolver.notifyChange(MEDIA_URI);
+        contentResolver.notifyChange(MEDIA_URI);
+        timerScheduler.advanceTimeBy(499, MILLISECONDS);
+        scansObserver.assertNoValues();
+
+        timerScheduler.advanceTimeBy(1, MILLISECONDS);
+        scansObserver.assertValues(singleton(MEDIA_URI));
+
+        contentResolver.notifyChange(PLAYLIST_MEMBERS_URI);
+        timerScheduler.advanceTimeBy(500, MILLISECONDS);
+        scansObserver.assertValues(singleton(MEDIA_URI), singleton(PLAYLIST_MEMBERS_URI));
+    }
+
+    @Test
+    public void newChangesCancelRunningScanTest() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            MediaStoreChangePipeline pipeline = new MediaStoreChangePipeline(timerScheduler,
+                    Schedulers.from(executor),
+                    500,
+                    5000,
+                    10_000);
+            TestObserver<Set<String>> scansObserver = pipeline.getScansObservable(
+                    contentResolver.getChangesObservable(),
+                    (uris, signal) -> {
+                        if (uris.contains("first")) {
+                            long deadline = System.currentTimeMillis() + 5000;
+                            while (!signal.isCancelled() && System.currentTimeMillis() < deadline) {
+                                Thread.sleep(1);
+                            }
+                        }
+                    })
+                    .test();
+
+            contentResolver.notifyChange("first");
+            timerScheduler.advanceTimeBy(500, MILLISECONDS);
+            contentResolver.notifyChange("second");
+            timerScheduler.advanceTimeBy(500, MILLISECONDS);
+
+            scansObserver.awaitCount(1);
+            scansObserver.assertValues(singleton("second"));
+
+            //cancelled scan can be finished after newer one was scheduled
+            executor.submit(() -> {}).get();
+            MediaStoreChangeStats stats = pipeline.getStats();
+            assertEquals(1, stats.getScansCancelled());
+            assertEquals(1, stats.getScansCompleted());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void debounceWindowFollowsScanDurationTest() {
+        MediaStoreChangePipeline pipeline = new MediaStoreChangePipeline(timerScheduler,
+                Schedulers.trampoline(),
+                500,
+                5000,
+                10_000);
+        assertEquals(500, pipeline.getDebounceWindowMillis());
+
+        pipeline.getStats().onScanCompleted(2000);
+        assertEquals(2000, pipeline.getDebounceWindowMillis());
+
+        for (int i = 0; i < 20; i++) {
+            pipeline.getStats().onScanCompleted(60_000);
+        }
+        assertEquals(5000, pipeline.getDebounceWindowMillis());
+        assertEquals(60_000, pipeline.getStats().getMaxScanDurationMillis());
+    }
+
+    @Test
+    public void slowScansCoalesceMoreChangesTest() {
+        MediaStoreChangePipeline pipeline = new MediaStoreChangePipeline(timerScheduler,
+                Schedulers.trampoline(),
+                500,
+                5000,
+                10_000);
+        pipeline.getStats().onScanCompleted(3000);
+        TestObserver<Set<String>> scansObserver = pipeline.getScansObservable(
+                contentResolver.getChangesObservable(),
+                (uris, signal) -> {})
+                .test();
+
+        for (int i = 0; i < 5; i++) {
+            contentResolver.notifyChange(MEDIA_URI + "/" + i);
+            timerScheduler.advanceTimeBy(1, SECONDS);
+        }
+        scansObserver.assertNoValues();
+
+        timerScheduler.advanceTimeBy(2, SECONDS);
+        scansObserver.assertValueCount(1);
+        assertEquals(5, scansObserver.values().get(0).size());
+    }
+
+    //stand-in for content resolver which delivers change notifications to registered observers
+    private static class FakeContentResolver {
+
+        private final PublishSubject<String> changeSubject = PublishSubject.create();
+
+        void notifyChange(String uri) {
+            changeSubject.onNext(uri);
+        }
+
+        Observable<String> getChangesObservable() {
+            return changeSubject;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.github.anrimian.musicplayer.data.repositories.scanner;
 
 import static com.github.anrimian.musicplayer.domain.utils.ListUtils.asList;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
@@ -11,8 +13,6 @@ import static java.util.Collections.emptyList;
 import static utils.TestDataProvider.fakeStorageComposition;
 import static utils.TestDataProvider.fakeStorageFullComposition;
 
-import androidx.collection.LongSparseArray;
-
 import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDaoWrapper;
 import com.github.anrimian.musicplayer.data.database.dao.compositions.StorageCompositionsInserter;
 import com.github.anrimian.musicplayer.data.database.dao.folders.FoldersDaoWrapper;
@@ -23,6 +23,7 @@ import com.github.anrimian.musicplayer.data.repositories.scanner.nodes.AddedNode
 import com.github.anrimian.musicplayer.data.storage.providers.albums.StorageAlbum;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageComposition;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageFullComposition;
+import com.github.anrimian.musicplayer.data.utils.collections.LongHashMap;
 import com.github.anrimian.musicplayer.domain.repositories.StateRepository;
 
 import org.junit.Before;
@@ -46,7 +47,7 @@ public class StorageCompositionAnalyzerTest {
     
     @Before
     public void setUp() {
-        when(compositionsDao.selectAllAsStorageCompositions()).thenReturn(new LongSparseArray<>());
+        when(compositionsDao.selectAllAsStorageCompositions()).thenReturn(new ArrayList<>());
 
         when(foldersDao.getIgnoredFolders()).thenReturn(new String[0]);
 
@@ -55,13 +56,13 @@ public class StorageCompositionAnalyzerTest {
 
     @Test
     public void changeDatabaseTest() {
-        LongSparseArray<StorageComposition> currentCompositions = new LongSparseArray<>();
-        currentCompositions.put(1, fakeStorageComposition(1, "music-1"));
-        currentCompositions.put(2, fakeStorageComposition(2, "music-2"));
-        currentCompositions.put(3, fakeStorageComposition(3, "music-3"));
+        List<StorageComposition> currentCompositions = new ArrayList<>();
+        currentCompositions.add(fakeStorageComposition(1, "music-1"));
+        currentCompositions.add(fakeStorageComposition(2, "music-2"));
+        currentCompositions.add(fakeStorageComposition(3, "music-3"));
         when(compositionsDao.selectAllAsStorageCompositions()).thenReturn(currentCompositions);
 
-        LongSparseArray<StorageFullComposition> newCompositions = new LongSparseArray<>();
+        LongHashMap<StorageFullComposition> newCompositions = new LongHashMap<>();
         newCompositions.put(1, fakeStorageFullComposition(1, "music-1"));
         StorageFullComposition changedComposition = new StorageCompositionBuilder(3, "changed composition")
                 .createDate(1L)
@@ -84,11 +85,11 @@ public class StorageCompositionAnalyzerTest {
 
     @Test
     public void testUpdateTimeChange() {
-        LongSparseArray<StorageComposition> map = new LongSparseArray<>();
-        map.put(1L, fakeStorageComposition(1L, "test", 1, 1000));
+        List<StorageComposition> map = new ArrayList<>();
+        map.add(fakeStorageComposition(1L, "test", 1, 1000));
         when(compositionsDao.selectAllAsStorageCompositions()).thenReturn(map);
 
-        LongSparseArray<StorageFullComposition> newCompositions = new LongSparseArray<>();
+        LongHashMap<StorageFullComposition> newCompositions = new LongHashMap<>();
         StorageFullComposition changedComposition = new StorageCompositionBuilder(1, "new title")
                 .createDate(1L)
                 .modifyDate(1000L)
@@ -109,11 +110,11 @@ public class StorageCompositionAnalyzerTest {
 
     @Test
     public void testUpdateArtistChange() {
-        LongSparseArray<StorageComposition> map = new LongSparseArray<>();
-        map.put(1L, fakeStorageComposition(1L, "test", 1, 1));
+        List<StorageComposition> map = new ArrayList<>();
+        map.add(fakeStorageComposition(1L, "test", 1, 1));
         when(compositionsDao.selectAllAsStorageCompositions()).thenReturn(map);
 
-        LongSparseArray<StorageFullComposition> newCompositions = new LongSparseArray<>();
+        LongHashMap<StorageFullComposition> newCompositions = new LongHashMap<>();
         StorageFullComposition changedComposition = new StorageFullComposition("new artist",
                 null,
                 "fileName",
@@ -140,11 +141,11 @@ public class StorageCompositionAnalyzerTest {
 
     @Test
     public void testUpdateAlbumChange() {
-        LongSparseArray<StorageComposition> map = new LongSparseArray<>();
-        map.put(1L, fakeStorageComposition(1L, "test", 1, 1));
+        List<StorageComposition> map = new ArrayList<>();
+        map.add(fakeStorageComposition(1L, "test", 1, 1));
         when(compositionsDao.selectAllAsStorageCompositions()).thenReturn(map);
 
-        LongSparseArray<StorageFullComposition> newCompositions = new LongSparseArray<>();
+        LongHashMap<StorageFullComposition> newCompositions = new LongHashMap<>();
         StorageFullComposition changedComposition = new StorageFullComposition(null,
                 null,
                 "fileName",
@@ -171,7 +172,7 @@ public class StorageCompositionAnalyzerTest {
 
     @Test
     public void testUpdateAlbumArtistChange() {
-        LongSparseArray<StorageComposition> map = new LongSparseArray<>();
+        List<StorageComposition> map = new ArrayList<>();
         StorageComposition oldComposition = new StorageComposition(null,
                 "album artist",
                 null,
@@ -186,10 +187,10 @@ public class StorageCompositionAnalyzerTest {
                 new Date(1),
                 new Date(1),
                 new Date(1));
-        map.put(1L, oldComposition);
+        map.add(oldComposition);
         when(compositionsDao.selectAllAsStorageCompositions()).thenReturn(map);
 
-        LongSparseArray<StorageFullComposition> newCompositions = new LongSparseArray<>();
+        LongHashMap<StorageFullComposition> newCompositions = new LongHashMap<>();
         StorageFullComposition changedComposition = new StorageFullComposition(null,
                 null,
                 "fileName",
@@ -224,7 +225,7 @@ public class StorageCompositionAnalyzerTest {
                 .relativePath("0/etc/sdcard")
                 .build();
 
-        LongSparseArray<StorageFullComposition> newCompositions = new LongSparseArray<>();
+        LongHashMap<StorageFullComposition> newCompositions = new LongHashMap<>();
         newCompositions.put(1, new StorageCompositionBuilder(1, "music-1").relativePath("0/etc/sdcard/music/wazap").build());
         newCompositions.put(2, new StorageCompositionBuilder(2, "music-2").relativePath("0/etc/sdcard/music/wazap").build());
         newCompositions.put(3, new StorageCompositionBuilder(3, "music-3").relativePath("0/etc/sdcard/music/wazap").build());
@@ -245,13 +246,13 @@ public class StorageCompositionAnalyzerTest {
 
     @Test
     public void insertFolderTest() {
-        LongSparseArray<StorageComposition> currentCompositions = new LongSparseArray<>();
+        List<StorageComposition> currentCompositions = new ArrayList<>();
         when(compositionsDao.selectAllAsStorageCompositions()).thenReturn(currentCompositions);
 
         StorageFullComposition c1 = new StorageCompositionBuilder(1, "music-1").relativePath("music").build();
         StorageFullComposition c2 = new StorageCompositionBuilder(2, "music-2").relativePath("music/new").build();
         StorageFullComposition c3 = new StorageCompositionBuilder(3, "music-3").relativePath("").build();
-        LongSparseArray<StorageFullComposition> newCompositions = new LongSparseArray<>();
+        LongHashMap<StorageFullComposition> newCompositions = new LongHashMap<>();
         newCompositions.put(1, c1);
         newCompositions.put(2, c2);
         newCompositions.put(3, c3);
@@ -275,10 +276,10 @@ public class StorageCompositionAnalyzerTest {
 
     @Test
     public void mergeSameFoldersTest() {
-        LongSparseArray<StorageComposition> currentCompositions = new LongSparseArray<>();
-        currentCompositions.put(1, fakeStorageComposition(1, "music-1", 1L));
-        currentCompositions.put(2, fakeStorageComposition(2, "music-2", 2L));
-        currentCompositions.put(3, fakeStorageComposition(3, "music-3"));
+        List<StorageComposition> currentCompositions = new ArrayList<>();
+        currentCompositions.add(fakeStorageComposition(1, "music-1", 1L));
+        currentCompositions.add(fakeStorageComposition(2, "music-2", 2L));
+        currentCompositions.add(fakeStorageComposition(3, "music-3"));
         when(compositionsDao.selectAllAsStorageCompositions()).thenReturn(currentCompositions);
 
         List<StorageFolder> folders = new LinkedList<>();
@@ -289,7 +290,7 @@ public class StorageCompositionAnalyzerTest {
         StorageFullComposition c1 = new StorageCompositionBuilder(1, "music-1").relativePath("music").build();
         StorageFullComposition c2 = new StorageCompositionBuilder(2, "music-2").relativePath("music/new").build();
         StorageFullComposition c3 = new StorageCompositionBuilder(3, "music-3").relativePath("").build();
-        LongSparseArray<StorageFullComposition> newCompositions = new LongSparseArray<>();
+        LongHashMap<StorageFullComposition> newCompositions = new LongHashMap<>();
         newCompositions.put(1, c1);
         newCompositions.put(2, c2);
         newCompositions.put(3, c3);
@@ -307,11 +308,11 @@ public class StorageCompositionAnalyzerTest {
 
     @Test
     public void mergeMovedFoldersTest() {
-        LongSparseArray<StorageComposition> currentCompositions = new LongSparseArray<>();
-        currentCompositions.put(1, fakeStorageComposition(1, "music-1", 1L));
+        List<StorageComposition> currentCompositions = new ArrayList<>();
+        currentCompositions.add(fakeStorageComposition(1, "music-1", 1L));
         StorageComposition composition2 = fakeStorageComposition(2, "music-2", 2L);
-        currentCompositions.put(2, composition2);
-        currentCompositions.put(3,  fakeStorageComposition(3, "music-3"));
+        currentCompositions.add(composition2);
+        currentCompositions.add(fakeStorageComposition(3, "music-3"));
         when(compositionsDao.selectAllAsStorageCompositions()).thenReturn(currentCompositions);
 
         List<StorageFolder> folders = new LinkedList<>();
@@ -322,7 +323,7 @@ public class StorageCompositionAnalyzerTest {
         StorageFullComposition c1 = new StorageCompositionBuilder(1, "music-1").relativePath("music").build();
         StorageFullComposition c2 = new StorageCompositionBuilder(2, "music-2").relativePath("new").build();
         StorageFullComposition c3 = new StorageCompositionBuilder(3, "music-3").relativePath("").build();
-        LongSparseArray<StorageFullComposition> newCompositions = new LongSparseArray<>();
+        LongHashMap<StorageFullComposition> newCompositions = new LongHashMap<>();
         newCompositions.put(1, c1);
         newCompositions.put(2, c2);
         newCompositions.put(3, c3);
@@ -346,11 +347,11 @@ public class StorageCompositionAnalyzerTest {
 
     @Test
     public void mergeMovedFilesTest() {
-        LongSparseArray<StorageComposition> currentCompositions = new LongSparseArray<>();
-        currentCompositions.put(1, fakeStorageComposition(1, "music-1", 1L));
+        List<StorageComposition> currentCompositions = new ArrayList<>();
+        currentCompositions.add(fakeStorageComposition(1, "music-1", 1L));
         StorageComposition composition2 = fakeStorageComposition(2, "music-2", 2L);
-        currentCompositions.put(2, composition2);
-        currentCompositions.put(3, fakeStorageComposition(3, "music-3", null));
+        currentCompositions.add(composition2);
+        currentCompositions.add(fakeStorageComposition(3, "music-3", null));
         when(compositionsDao.selectAllAsStorageCompositions()).thenReturn(currentCompositions);
 
         List<StorageFolder> folders = new LinkedList<>();
@@ -361,7 +362,7 @@ public class StorageCompositionAnalyzerTest {
         StorageFullComposition c1 = new StorageCompositionBuilder(1, "music-1").relativePath("music").build();
         StorageFullComposition c2 = new StorageCompositionBuilder(2, "music-2").relativePath("new").build();
         StorageFullComposition c3 = new StorageCompositionBuilder(3, "music-3").relativePath("").build();
-        LongSparseArray<StorageFullComposition> newCompositions = new LongSparseArray<>();
+        LongHashMap<StorageFullComposition> newCompositions = new LongHashMap<>();
         newCompositions.put(1, c1);
         newCompositions.put(2, c2);
         newCompositions.put(3, c3);
@@ -384,11 +385,11 @@ public class StorageCompositionAnalyzerTest {
 
     @Test
     public void mergeDeletedFoldersTest() {
-        LongSparseArray<StorageComposition> currentCompositions = new LongSparseArray<>();
-        currentCompositions.put(1, fakeStorageComposition(1, "music-1", 1L));
+        List<StorageComposition> currentCompositions = new ArrayList<>();
+        currentCompositions.add(fakeStorageComposition(1, "music-1", 1L));
         StorageComposition composition2 = fakeStorageComposition(2, "music-2", 2L);
-        currentCompositions.put(2, composition2);
-        currentCompositions.put(3,  fakeStorageComposition(3, "music-3"));
+        currentCompositions.add(composition2);
+        currentCompositions.add(fakeStorageComposition(3, "music-3"));
         when(compositionsDao.selectAllAsStorageCompositions()).thenReturn(currentCompositions);
 
         List<StorageFolder> folders = new LinkedList<>();
@@ -398,7 +399,7 @@ public class StorageCompositionAnalyzerTest {
 
         StorageFullComposition c1 = new StorageCompositionBuilder(1, "music-1").relativePath("music").build();
         StorageFullComposition c3 = new StorageCompositionBuilder(3, "music-3").relativePath("").build();
-        LongSparseArray<StorageFullComposition> newCompositions = new LongSparseArray<>();
+        LongHashMap<StorageFullComposition> newCompositions = new LongHashMap<>();
         newCompositions.put(1, c1);
         newCompositions.put(3, c3);
 
@@ -420,11 +421,11 @@ public class StorageCompositionAnalyzerTest {
     //check: exists composition, move to new folder AND change other field - causes update to irrelevant folder id?
     @Test
     public void testDeleteFolderWithoutCompositionIssue() {
-        LongSparseArray<StorageComposition> currentCompositions = new LongSparseArray<>();
-        currentCompositions.put(1, fakeStorageComposition(1, "music-1", 1L));
+        List<StorageComposition> currentCompositions = new ArrayList<>();
+        currentCompositions.add(fakeStorageComposition(1, "music-1", 1L));
         StorageComposition composition2 = fakeStorageComposition(2, "music-2", 1L);
-        currentCompositions.put(2, composition2);
-//        currentCompositions.put(3,  fakeStorageComposition(3, "music-3"));
+        currentCompositions.add(composition2);
+//        currentCompositions.add(fakeStorageComposition(3, "music-3"));
         when(compositionsDao.selectAllAsStorageCompositions()).thenReturn(currentCompositions);
 
         List<StorageFolder> folders = new LinkedList<>();
@@ -435,7 +436,7 @@ public class StorageCompositionAnalyzerTest {
 
         StorageFullComposition c1 = new StorageCompositionBuilder(1, "music-1").relativePath("music").build();
         StorageFullComposition c2 = new StorageCompositionBuilder(2, "music-2 EDITED").relativePath("music/new").build();
-        LongSparseArray<StorageFullComposition> newCompositions = new LongSparseArray<>();
+        LongHashMap<StorageFullComposition> newCompositions = new LongHashMap<>();
         newCompositions.put(1, c1);
         newCompositions.put(2, c2);
 
@@ -451,4 +452,148 @@ public class StorageCompositionAnalyzerTest {
 //                eq(emptyList()));
     }
 
+    @Test
+    public void applyDeltaToExistingFolderTest() {
+        when(compositionsDao.selectAsStorageCompositions(any())).thenReturn(new LongHashMap<>());
+        when(foldersDao.findFolderId(eq(null), eq("music"))).thenReturn(1L);
+
+        StorageFullComposition c1 = new StorageCompositionBuilder(1, "music-1").relativePath("music").build();
+        LongHashMap<StorageFullComposition> changedCompositions = new LongHashMap<>();
+        changedCompositions.put(1, c1);
+
+        boolean applied = analyzer.applyCompositionsDelta(changedCompositions, emptyList());
+
+        assertTrue(applied);
+        verify(compositionsDao, never()).selectAllAsStorageCompositions();
+        verify(compositionsInserter).applyChanges(
+                eq(emptyList()),
+                eq(asList(c1)),
+                eq(emptyList()),
+                eq(emptyList()),
+                any(),
+                eq(emptyList()));
+    }
+
+    @Test
+    public void applyDeltaToNewFolderTest() {
+        when(compositionsDao.selectAsStorageCompositions(any())).thenReturn(new LongHashMap<>());
+        when(foldersDao.findFolderId(eq(null), eq("music"))).thenReturn(1L);
+        when(foldersDao.findFolderId(eq(1L), eq("new"))).thenReturn(null);
+
+        StorageFullComposition c1 = new StorageCompositionBuilder(1, "music-1").relativePath("music/new").build();
+        LongHashMap<StorageFullComposition> changedCompositions = new LongHashMap<>();
+        changedCompositions.put(1, c1);
+
+        boolean applied = analyzer.applyCompositionsDelta(changedCompositions, emptyList());
+
+        assertFalse(applied);
+        verify(compositionsInserter, never()).applyChanges(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void applyDeltaDeletedCompositionsTest() {
+        LongHashMap<StorageComposition> currentCompositions = new LongHashMap<>();
+        StorageComposition composition1 = fakeStorageComposition(1, "music-1", 1L);
+        StorageComposition composition2 = fakeStorageComposition(2, "music-2", 2L);
+        currentCompositions.put(1, composition1);
+        currentCompositions.put(2, composition2);
+        when(compositionsDao.selectAsStorageCompositions(any())).thenReturn(currentCompositions);
+        when(foldersDao.hasEmptyFolders(eq(asList(1L, 2L)))).thenReturn(false);
+
+        boolean applied = analyzer.applyCompositionsDelta(new LongHashMap<>(), asList(1L, 2L));
+
+        assertTrue(applied);
+        verify(compositionsInserter).applyChanges(
+                eq(emptyList()),
+                eq(emptyList()),
+                eq(asList(composition1, composition2)),
+                eq(emptyList()),
+                any(),
+                eq(emptyList()));
+    }
+
+    @Test
+    public void applyDeltaDeletedLastFolderCompositionTest() {
+        LongHashMap<StorageComposition> currentCompositions = new LongHashMap<>();
+        StorageComposition composition1 = fakeStorageComposition(1, "music-1", 1L);
+        currentCompositions.put(1, composition1);
+        when(compositionsDao.selectAsStorageCompositions(any())).thenReturn(currentCompositions);
+        when(foldersDao.hasEmptyFolders(eq(asList(1L)))).thenReturn(true);
+
+        boolean applied = analyzer.applyCompositionsDelta(new LongHashMap<>(), asList(1L));
+
+        assertFalse(applied);
+    }
+
+    @Test
+    public void applyDeltaMovedCompositionTest() {
+        LongHashMap<StorageComposition> currentCompositions = new LongHashMap<>();
+        StorageComposition composition1 = fakeStorageComposition(1, "music-1", 1L);
+        currentCompositions.put(1, composition1);
+        when(compositionsDao.selectAsStorageCompositions(any())).thenReturn(currentCompositions);
+        when(stateRepository.getRootFolderPath()).thenReturn("storage/0");
+        when(foldersDao.findFolderId(eq(null), eq("music"))).thenReturn(1L);
+        when(foldersDao.findFolderId(eq(1L), eq("new"))).thenReturn(2L);
+
+        StorageFullComposition c1 = new StorageCompositionBuilder(1, "music-1").relativePath("/storage/0/music/new").build();
+        LongHashMap<StorageFullComposition> changedCompositions = new LongHashMap<>();
+        changedCompositions.put(1, c1);
+
+        boolean applied = analyzer.applyCompositionsDelta(changedCompositions, emptyList());
+
+        assertTrue(applied);
+        verify(compositionsInserter).applyChanges(
+                eq(emptyList()),
+                eq(emptyList()),
+                eq(emptyList()),
+                eq(asList(new Change<>(composition1, c1))),
+                any(),
+                eq(emptyList()));
+    }
+
+    @Test
+    public void fullVersusDeltaSyncPerformanceTest() {
+        for (int count: new int[] { 10_000, 50_000, 100_000 }) {
+            List<StorageComposition> currentCompositions = new ArrayList<>(count);
+            LongHashMap<StorageFullComposition> actualCompositions = new LongHashMap<>(count);
+            List<StorageFolder> folders = new ArrayList<>();
+            folders.add(new StorageFolder(1L, null, "music"));
+            for (long folderId = 2; folderId < 102; folderId++) {
+                folders.add(new StorageFolder(folderId, 1L, "folder-" + folderId));
+            }
+            for (long id = 0; id < count; id++) {
+                long folderId = 2 + id % 100;
+                currentCompositions.add(fakeStorageComposition(id, "music-" + id, folderId));
+                actualCompositions.put(id, new StorageCompositionBuilder(id, "music-" + id)
+                        .relativePath("music/folder-" + folderId)
+                        .build());
+            }
+            StorageFullComposition changedComposition = new StorageCompositionBuilder(count, "music-new")
+                    .relativePath("music/folder-2")
+                    .build();
+            actualCompositions.put(count, changedComposition);
+
+            when(compositionsDao.selectAllAsStorageCompositions()).thenReturn(currentCompositions);
+            when(foldersDao.getAllFolders()).thenReturn(folders);
+            when(compositionsDao.selectAsStorageCompositions(any())).thenReturn(new LongHashMap<>());
+            when(foldersDao.findFolderId(eq(null), eq("music"))).thenReturn(1L);
+            when(foldersDao.findFolderId(eq(1L), eq("folder-2"))).thenReturn(2L);
+
+            long startTime = System.nanoTime();
+            analyzer.applyCompositionsData(actualCompositions);
+            long fullSyncTime = System.nanoTime() - startTime;
+
+            LongHashMap<StorageFullComposition> changedCompositions = new LongHashMap<>();
+            changedCompositions.put(count, changedComposition);
+            startTime = System.nanoTime();
+            boolean applied = analyzer.applyCompositionsDelta(changedCompositions, emptyList());
+            long deltaSyncTime = System.nanoTime() - startTime;
+
+            assertTrue(applied);
+            System.out.println("compositions: " + count
+                    + ", full sync: " + fullSyncTime / 1_000_000 + " ms"
+                    + ", delta sync: " + deltaSyncTime / 1_000 + " us");
+        }
+    }
+
 }
\ No newline at end of file
@@ -1,27 +1,35 @@
 package com.github.anrimian.musicplayer.data.repositories.scanner.files
 
+import androidx.collection.LongSparseArray
 import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDaoWrapper
+import com.github.anrimian.musicplayer.data.database.observer.LibraryQueryObserver
+import com.github.anrimian.musicplayer.data.storage.artwork.ArtworkThumbnailStore
 import com.github.anrimian.musicplayer.data.storage.source.CompositionSourceEditor
 import com.github.anrimian.musicplayer.domain.interactors.analytics.Analytics
 import com.github.anrimian.musicplayer.domain.models.composition.FullComposition
 import com.github.anrimian.musicplayer.domain.models.composition.source.CompositionSourceTags
+import com.github.anrimian.musicplayer.domain.models.scanner.FileScannerState
 import com.github.anrimian.musicplayer.domain.models.scanner.Idle
 import com.github.anrimian.musicplayer.domain.models.scanner.Running
 import com.github.anrimian.musicplayer.domain.repositories.StateRepository
-import io.reactivex.rxjava3.core.Maybe
 import io.reactivex.rxjava3.core.Single
+import io.reactivex.rxjava3.observers.TestObserver
 import io.reactivex.rxjava3.schedulers.Schedulers
 import io.reactivex.rxjava3.schedulers.TestScheduler
+import org.junit.Assert.assertEquals
 import org.junit.Before
 import org.junit.Test
 import org.mockito.Mockito
 import org.mockito.kotlin.*
+import java.util.*
 import java.util.concurrent.TimeUnit
 
 class FileScannerTest {
 
     private val compositionsDao: CompositionsDaoWrapper = mock()
     private val compositionSourceEditor: CompositionSourceEditor = mock()
+    private val artworkThumbnailStore: ArtworkThumbnailStore = mock()
+    private val libraryQueryObserver: LibraryQueryObserver = mock()
     private val stateRepository: StateRepository = mock()
     private val analytics: Analytics = mock()
     private val scheduler = Schedulers.trampoline()
@@ -29,8 +37,11 @@ class FileScannerTest {
     private val fileScanner = FileScanner(
             compositionsDao,
             compositionSourceEditor,
+            artworkThumbnailStore,
+            libraryQueryObserver,
             stateRepository,
             analytics,
+            scheduler,
             scheduler
     )
 
@@ -50,19 +61,19 @@ class FileScannerTest {
     fun `run successful scan`() {
         val composition: FullComposition = mock()
 
-        whenever(compositionsDao.selectNextCompositionToScan(eq(0)))
-                .thenReturn(Maybe.just(composition))
-                .thenReturn(Maybe.empty())
+        whenever(compositionsDao.selectNextCompositionsToScan(eq(0), any()))
+                .thenReturn(Single.just(listOf(composition)))
+                .thenReturn(Single.just(emptyList()))
 
         fileScanner.scheduleFileScanner()
 
-        verify(compositionsDao).setCompositionLastFileScanTime(any(), any())
+        verify(compositionsDao).updateCompositionsBySourceTags(eq(listOf(composition)), any(), any())
         verify(stateRepository).lastFileScannerVersion = eq(1)
         verify(stateRepository).lastCompleteScanTime = any()
 
-        testStateObserver.assertValues(
+        assertStates(testStateObserver,
                 Idle,
-                Running(composition),
+                composition,
                 Idle
         )
     }
@@ -70,18 +81,19 @@ class FileScannerTest {
     @Test
     fun `error with getting composition from db - do not run next loop`() {
         val exception: Exception = mock()
-        whenever(compositionsDao.selectNextCompositionToScan(eq(0)))
-                .thenReturn(Maybe.error(exception))
-                .thenReturn(Maybe.just(mock<FullComposition>()))
+        whenever(compositionsDao.selectNextCompositionsToScan(eq(0), any()))
+                .thenReturn(Single.error(exception))
+                .thenReturn(Single.just(listOf(mock())))
 
         fileScanner.scheduleFileScanner()
 
+        verify(compositionsDao, never()).updateCompositionsBySourceTags(any(), any(), any())
         verify(compositionsDao, never()).setCompositionLastFileScanTime(any(), any())
         verify(stateRepository, never()).lastFileScannerVersion = any()
         verify(stateRepository, never()).lastCompleteScanTime = any()
         verify(analytics).processNonFatalError(exception)
 
-        testStateObserver.assertValues(
+        assertStates(testStateObserver,
                 Idle
         )
     }
@@ -91,12 +103,13 @@ class FileScannerTest {
         val composition1: FullComposition = mock()
         val composition2: FullComposition = mock()
 
-        whenever(compositionsDao.selectNextCompositionToScan(eq(0)))
-                .thenReturn(Maybe.just(composition1))
-                .thenReturn(Maybe.just(composition2))
-                .thenReturn(Maybe.empty())
+        whenever(compositionsDao.selectNextCompositionsToScan(eq(0), any()))
+                .thenReturn(Single.just(listOf(composition1, composition2)))
+                .thenReturn(Single.just(emptyList()))
 
         val exception = RuntimeException()
+        Mockito.doThrow(exception)
+            .whenever(compositionsDao).updateCompositionsBySourceTags(any(), any(), any())
         Mockito.doThrow(exception)
             .doThrow(exception)
             .doThrow(exception)
@@ -105,19 +118,47 @@ class FileScannerTest {
 
         fileScanner.scheduleFileScanner()
 
+        verify(compositionsDao, times(3)).updateCompositionsBySourceTags(any(), any(), any())
         verify(compositionsDao, times(2)).setCompositionLastFileScanTime(any(), any())
         verify(analytics).processNonFatalError(exception)
         verify(stateRepository).lastFileScannerVersion = eq(1)
         verify(stateRepository).lastCompleteScanTime = any()
 
-        testStateObserver.assertValues(
+        assertStates(testStateObserver,
                 Idle,
-                Running(composition1),
-                Running(composition2),
+                composition1,
+                composition2,
                 Idle
         )
     }
 
+    @Test
+    fun `prepare artworks after tags scan is finished`() {
+        val composition1: FullComposition = mock()
+        whenever(composition1.id).thenReturn(1L)
+        val composition2: FullComposition = mock()
+        whenever(composition2.id).thenReturn(2L)
+        val dateModified = Date(100)
+
+        whenever(compositionsDao.selectNextCompositionsToScan(eq(0), any()))
+                .thenReturn(Single.just(listOf(composition1, composition2)))
+                .thenReturn(Single.just(emptyList()))
+        whenever(compositionsDao.getDateModified(1L)).thenReturn(dateModified)
+        whenever(compositionsDao.getDateModified(2L)).thenReturn(dateModified)
+        whenever(artworkThumbnailStore.prepareThumbnails(eq(1L), any()))
+            .thenThrow(RuntimeException())
+
+        fileScanner.scheduleFileScanner()
+
+        val inOrder = inOrder(compositionsDao, libraryQueryObserver, artworkThumbnailStore)
+        inOrder.verify(compositionsDao).updateCompositionsBySourceTags(any(), any(), any())
+        inOrder.verify(libraryQueryObserver).onScanFinished()
+        inOrder.verify(artworkThumbnailStore).prepareThumbnails(1L, dateModified)
+        inOrder.verify(artworkThumbnailStore).prepareThumbnails(2L, dateModified)
+        //artwork error does not break scan
+        verify(stateRepository).lastCompleteScanTime = any()
+    }
+
     @Test
     fun `test file scanner version update`() {
         whenever(stateRepository.currentFileScannerVersion).thenReturn(2)
@@ -126,20 +167,20 @@ class FileScannerTest {
 
         val composition: FullComposition = mock()
 
-        whenever(compositionsDao.selectNextCompositionToScan(any()))
-            .thenReturn(Maybe.just(composition))
-            .thenReturn(Maybe.empty())
+        whenever(compositionsDao.selectNextCompositionsToScan(any(), any()))
+            .thenReturn(Single.just(listOf(composition)))
+            .thenReturn(Single.just(emptyList()))
 
         fileScanner.scheduleFileScanner()
 
-        verify(compositionsDao, times(2)).selectNextCompositionToScan(eq(lastScanTime))
-        verify(compositionsDao).setCompositionLastFileScanTime(eq(composition), any())
+        verify(compositionsDao, times(2)).selectNextCompositionsToScan(eq(lastScanTime), any())
+        verify(compositionsDao).updateCompositionsBySourceTags(eq(listOf(composition)), any(), any())
         verify(stateRepository).lastFileScannerVersion = eq(2)
         verify(stateRepository).lastCompleteScanTime = any()
 
-        testStateObserver.assertValues(
+        assertStates(testStateObserver,
             Idle,
-            Running(composition),
+            composition,
             Idle
         )
     }
@@ -150,8 +191,11 @@ class FileScannerTest {
         val fileScanner = FileScanner(
             compositionsDao,
             compositionSourceEditor,
+            artworkThumbnailStore,
+            libraryQueryObserver,
             stateRepository,
             analytics,
+            testScheduler,
             testScheduler
         )
         val testStateObserver = fileScanner.getStateObservable().test()
@@ -159,9 +203,9 @@ class FileScannerTest {
         val composition: FullComposition = mock()
         val source: CompositionSourceTags = mock()
 
-        whenever(compositionsDao.selectNextCompositionToScan(eq(0)))
-            .thenReturn(Maybe.just(composition))
-            .thenReturn(Maybe.empty())
+        whenever(compositionsDao.selectNextCompositionsToScan(eq(0), any()))
+            .thenReturn(Single.just(listOf(composition)))
+            .thenReturn(Single.just(emptyList()))
         whenever(compositionSourceEditor.getFullTags(any()))
             .thenReturn(Single.just(source).delay(3, TimeUnit.SECONDS, testScheduler))
             .thenReturn(Single.just(source).delay(3, TimeUnit.SECONDS, testScheduler))
@@ -170,16 +214,57 @@ class FileScannerTest {
         fileScanner.scheduleFileScanner()
         testScheduler.advanceTimeBy(4, TimeUnit.SECONDS)
 
-        verify(compositionsDao).setCompositionLastFileScanTime(eq(composition), any())
-        verify(compositionsDao).updateCompositionBySourceTags(eq(composition), eq(source))
+        val tagsCaptor = argumentCaptor<LongSparseArray<CompositionSourceTags>>()
+        verify(compositionsDao).updateCompositionsBySourceTags(
+            eq(listOf(composition)),
+            tagsCaptor.capture(),
+            any()
+        )
+        assertEquals(source, tagsCaptor.firstValue.get(composition.id))
         verify(stateRepository).lastFileScannerVersion = eq(1)
         verify(stateRepository).lastCompleteScanTime = any()
 
-        testStateObserver.assertValues(
+        assertStates(testStateObserver,
             Idle,
-            Running(composition),
+            composition,
             Idle
         )
 
     }
+    @Test
+    fun `test scan progress state`() {
+        val composition1 = fakeComposition(1L, 100L)
+        val composition2 = fakeComposition(2L, 200L)
+        val composition3 = fakeComposition(3L, 300L)
+
+        whenever(compositionsDao.selectNextCompositionsToScan(eq(0), any()))
+            .thenReturn(Single.just(listOf(composition1, composition2)))
+            .thenReturn(Single.just(listOf(composition3)))
+            .thenReturn(Single.just(emptyList()))
+
+        fileScanner.scheduleFileScanner()
+
+        verify(compositionsDao).updateCompositionsBySourceTags(
+            eq(listOf(composition1, composition2)),
+            any(),
+            any()
+        )
+        verify(compositionsDao).updateCompositionsBySourceTags(eq(listOf(composition3)), any(), any())
+
+        val states = testStateObserver.values().filterIsInstance<Running>()
+        assertEquals(listOf(0, 1, 2), states.map(Running::scannedFiles))
+        assertEquals(listOf(0L, 100L, 300L), states.map(Running::processedFilesSize))
+    }
+
+    private fun fakeComposition(id: Long, size: Long): FullComposition {
+        val composition: FullComposition = mock()
+        whenever(composition.id).thenReturn(id)
+        whenever(composition.size).thenReturn(size)
+        return composition
+    }
+
+    private fun assertStates(observer: TestObserver<FileScannerState>, vararg states: Any) {
+        val values = observer.values().map { state -> if (state is Running) state.composition else state }
+        assertEquals(states.toList(), values)
+    }
 }
\ No newline at end of file
@@ -0,0 +1,177 @@
+package com.github.anrimian.musicplayer.data.repositories.scanner.loudness;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class LoudnessMeterTest {
+
+    private static final int SAMPLE_RATE = 44100;
+
+    @Test
+    public void stereoSineTest() {
+        //EBU tech 3341 case 1: stereo 1 kHz sine at -23 dBFS
+        assertEquals(-23, measure(SAMPLE_RATE, 2, sine(1000, -23, 20, SAMPLE_RATE, 2)), 0.1);
+    }
+
+    @Test
+    public void quietStereoSineTest() {
+        assertEquals(-33, measure(SAMPLE_RATE, 2, sine(1000, -33, 20, SAMPLE_RATE, 2)), 0.1);
+    }
+
+    @Test
+    public void monoSineTest() {
+        //single channel has half of stereo energy
+        assertEquals(-23.01, measure(SAMPLE_RATE, 1, sine(1000, -20, 20, SAMPLE_RATE, 1)), 0.1);
+    }
+
+    @Test
+    public void sampleRateIndependenceTest() {
+        assertEquals(-23, measure(48000, 2, sine(1000, -23, 20, 48000, 2)), 0.1);
+        assertEquals(-23, measure(96000, 2, sine(1000, -23, 20, 96000, 2)), 0.1);
+    }
+
+    @Test
+    public void relativeGateTest() {
+        //EBU tech 3341 case 3: -36, -23, -36 dBFS segments, quiet parts are gated
+        float[] samples = concat(sine(1000, -36, 10, SAMPLE_RATE, 2),
+                sine(1000, -23, 60, SAMPLE_RATE, 2),
+                sine(1000, -36, 10, SAMPLE_RATE, 2));
+        assertEquals(-23, measure(SAMPLE_RATE, 2, samples), 0.1);
+    }
+
+    @Test
+    public void absoluteGateTest() {
+        //silence is gated, quiet part is measured alone except partially filled edge blocks
+        float[] samples = concat(new float[SAMPLE_RATE * 2 * 20],
+                sine(1000, -40, 10, SAMPLE_RATE, 2),
+                new float[SAMPLE_RATE * 2 * 20]);
+        assertEquals(-40, measure(SAMPLE_RATE, 2, samples), 0.2);
+    }
+
+    @Test
+    public void kWeightingTest() {
+        //high shelf boosts high frequencies by 4 dB (0.7 dB at 1 kHz), high pass cuts low ones
+        double reference = measure(48000, 2, sine(1000, -23, 20, 48000, 2));
+        assertEquals(3.3, measure(48000, 2, sine(10000, -23, 20, 48000, 2)) - reference, 0.1);
+        assertEquals(-14, measure(48000, 2, sine(20, -23, 20, 48000, 2)) - reference, 0.2);
+    }
+
+    @Test
+    public void silenceTest() {
+        LoudnessMeter meter = new LoudnessMeter(SAMPLE_RATE, 2);
+        float[] samples = new float[SAMPLE_RATE * 2 * 10];
+        meter.process(samples, SAMPLE_RATE * 10);
+
+        assertEquals(Double.NEGATIVE_INFINITY, meter.getIntegratedLoudness(), 0);
+        assertEquals(0f, meter.getSamplePeak(), 0f);
+    }
+
+    @Test
+    public void shortInputTest() {
+        //less than one 400 ms block
+        LoudnessMeter meter = new LoudnessMeter(SAMPLE_RATE, 2);
+        float[] samples = sine(1000, -23, 0.3, SAMPLE_RATE, 2);
+        meter.process(samples, samples.length / 2);
+
+        assertEquals(Double.NEGATIVE_INFINITY, meter.getIntegratedLoudness(), 0);
+    }
+
+    @Test
+    public void surroundChannelsTest() {
+        //LFE is ignored, surround channels are weighted by +1.5 dB
+        float[] front = sine(1000, -23, 20, SAMPLE_RATE, 1);
+        float[] samples = new float[front.length * 6];
+        for (int i = 0; i < front.length; i++) {
+            samples[i * 6] = front[i];
+            samples[i * 6 + 3] = front[i];
+        }
+        assertEquals(-26, measure(SAMPLE_RATE, 6, samples), 0.1);
+
+        samples = new float[front.length * 6];
+        for (int i = 0; i < front.length; i++) {
+            samples[i * 6 + 4] = front[i];
+        }
+        assertEquals(-26 + 10 * Math.log10(1.41), measure(SAMPLE_RATE, 6, samples), 0.1);
+    }
+
+    @Test
+    public void samplePeakTest() {
+        LoudnessMeter meter = new LoudnessMeter(SAMPLE_RATE, 2);
+        float[] samples = sine(1000, -6, 1, SAMPLE_RATE, 2);
+        samples[101] = -0.9f;
+        meter.process(samples, samples.length / 2);
+
+        assertEquals(0.9f, meter.getSamplePeak(), 0f);
+    }
+
+    @Test
+    public void bufferSizeIndependenceTest() {
+        float[] samples = concat(sine(1000, -30, 5, SAMPLE_RATE, 2), sine(200, -20, 5, SAMPLE_RATE, 2));
+        double expected = measure(SAMPLE_RATE, 2, samples);
+
+        LoudnessMeter meter = new LoudnessMeter(SAMPLE_RATE, 2);
+        int frames = samples.length / 2;
+        int bufferFrames = 1000;
+        float[] buffer = new float[bufferFrames * 2];
+        for (int frame = 0; frame < frames; frame += bufferFrames) {
+            int count = Math.min(bufferFrames, frames - frame);
+            System.arraycopy(samples, frame * 2, buffer, 0, count * 2);
+            meter.process(buffer, count);
+        }
+
+        assertEquals(expected, meter.getIntegratedLoudness(), 1e-9);
+    }
+
+    @Test
+    public void throughputTest() {
+        int seconds = 60;
+        float[] samples = sine(1000, -23, seconds, SAMPLE_RATE, 2);
+        //warm up
+        measure(SAMPLE_RATE, 2, samples);
+
+        long startTime = System.nanoTime();
+        measure(SAMPLE_RATE, 2, samples);
+        long time = System.nanoTime() - startTime;
+
+        System.out.println("loudness meter, stereo: "
+                + (long) (seconds * 1_000_000_000d / time) + "x realtime at " + SAMPLE_RATE + " Hz");
+    }
+
+    private static double measure(int sampleRate, int channelCount, float[] samples) {
+        LoudnessMeter meter = new LoudnessMeter(sampleRate, channelCount);
+        meter.process(samples, samples.length / channelCount);
+        return meter.getIntegratedLoudness();
+    }
+
+    private static float[] sine(double frequency,
+                                double levelDbfs,
+                                double seconds,
+                                int sampleRate,
+                                int channelCount) {
+        double amplitude = Math.pow(10, levelDbfs / 20);
+        int frames = (int) (seconds * sampleRate);
+        float[] samples = new float[frames * channelCount];
+        for (int i = 0; i < frames; i++) {
+            float value = (float) (amplitude * Math.sin(2 * Math.PI * frequency * i / sampleRate));
+            for (int channel = 0; channel < channelCount; channel++) {
+                samples[i * channelCount + channel] = value;
+            }
+        }
+        return samples;
+    }
+
+    private static float[] concat(float[]... parts) {
+        int size = 0;
+        for (float[] part: parts) {
+            size += part.length;
+        }
+        float[] result = new float[size];
+        int offset = 0;
+        for (float[] part: parts) {
+            System.arraycopy(part, 0, result, offset, part.length);
+            offset += part.length;
+        }
+        return result;
+    }
+}
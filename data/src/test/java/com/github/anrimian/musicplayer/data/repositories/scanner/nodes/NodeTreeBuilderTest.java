@@ -1,13 +1,12 @@
 package com.github.anrimian.musicplayer.data.repositories.scanner.nodes;
 
-import androidx.collection.LongSparseArray;
-
 import com.github.anrimian.musicplayer.data.database.entities.folder.StorageFolder;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageComposition;
 import utils.TestDataProvider;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -21,12 +20,12 @@ public class NodeTreeBuilderTest {
 
     @Test
     public void createTreeFromIdMap() {
-        LongSparseArray<StorageComposition> compositionsMap = new LongSparseArray<>();
-        compositionsMap.put(1, new TestDataProvider.StorageLocalCompositionBuilder(1L, 11L, "test")
+        List<StorageComposition> compositions = new ArrayList<>();
+        compositions.add(new TestDataProvider.StorageLocalCompositionBuilder(1L, 11L, "test")
                 .folderId(null)
                 .build()
         );
-        compositionsMap.put(2, new TestDataProvider.StorageLocalCompositionBuilder(2L, 22L, "test2")
+        compositions.add(new TestDataProvider.StorageLocalCompositionBuilder(2L, 22L, "test2")
                 .folderId(4L)
                 .build()
         );
@@ -41,7 +40,7 @@ public class NodeTreeBuilderTest {
 
         LocalFolderNode<Long> rootNode = nodeTreeBuilder.createTreeFromIdMap(
                 folderEntities,
-                compositionsMap
+                compositions
         );
         assertEquals(3, rootNode.getFolders().size());
         assertEquals(1, rootNode.getFiles().size());
@@ -0,0 +1,263 @@
+package com.github.anrimian.musicplayer.data.storage.artwork;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.github.anrimian.musicplayer.data.database.dao.artwork.ArtworkThumbnailsDao;
+import com.github.anrimian.musicplayer.data.database.entities.artwork.ArtworkThumbnailEntity;
+import com.github.anrimian.musicplayer.domain.models.image.ArtworkCacheStats;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+public class ArtworkThumbnailStoreTest {
+
+    private static final byte[] COVER = { 1, 2, 3 };
+    private static final byte[] ANOTHER_COVER = { 4, 5, 6 };
+    private static final byte[] BROKEN_COVER = { 0 };
+    private static final int THUMBNAILS_SIZE = ThumbnailSize.SMALL.getPixelSize()
+            + ThumbnailSize.LARGE.getPixelSize();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final FakeThumbnailsDao thumbnailsDao = new FakeThumbnailsDao();
+    private final Map<Long, byte[]> covers = new HashMap<>();
+    private final List<Long> readCovers = new ArrayList<>();
+    private int encodedThumbnails;
+
+    private File directory;
+    private ArtworkThumbnailStore store;
+
+    @Before
+    public void setUp() {
+        directory = new File(folder.getRoot(), "thumbnails");
+        store = createStore(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void createThumbnailsOnFirstRequestTest() throws Exception {
+        covers.put(1L, COVER);
+
+        File small = store.getThumbnail(1L, new Date(100), ThumbnailSize.SMALL);
+        File large = store.getThumbnail(1L, new Date(100), ThumbnailSize.LARGE);
+
+        assertNotNull(small);
+        assertNotNull(large);
+        assertEquals(ThumbnailSize.SMALL.getPixelSize(), small.length());
+        assertEquals(ThumbnailSize.LARGE.getPixelSize(), large.length());
+        //both sizes are created at once
+        assertEquals(1, readCovers.size());
+        assertEquals(2, encodedThumbnails);
+        assertStats(THUMBNAILS_SIZE, 2, 1, 1);
+    }
+
+    @Test
+    public void hitDoesNotReadFileTest() throws Exception {
+        covers.put(1L, COVER);
+        store.getThumbnail(1L, new Date(100), ThumbnailSize.SMALL);
+
+        for (int i = 0; i < 10; i++) {
+            assertNotNull(store.getThumbnail(1L, new Date(100), ThumbnailSize.SMALL));
+        }
+
+        assertEquals(1, readCovers.size());
+        assertStats(THUMBNAILS_SIZE, 2, 10, 1);
+    }
+
+    @Test
+    public void modifiedCompositionTest() throws Exception {
+        covers.put(1L, COVER);
+        File oldFile = store.getThumbnail(1L, new Date(100), ThumbnailSize.SMALL);
+
+        covers.put(1L, ANOTHER_COVER);
+        File newFile = store.getThumbnail(1L, new Date(200), ThumbnailSize.SMALL);
+
+        assertNotNull(newFile);
+        assertNotEquals(oldFile, newFile);
+        assertEquals(2, readCovers.size());
+        assertStats(THUMBNAILS_SIZE * 2, 4, 0, 2);
+    }
+
+    @Test
+    public void compositionWithoutCoverTest() throws Exception {
+        assertNull(store.getThumbnail(1L, new Date(100), ThumbnailSize.SMALL));
+        assertNull(store.getThumbnail(1L, new Date(100), ThumbnailSize.LARGE));
+
+        //absence of cover is remembered too
+        assertEquals(1, readCovers.size());
+        assertStats(0, 0, 1, 1);
+    }
+
+    @Test
+    public void brokenCoverTest() throws Exception {
+        covers.put(1L, BROKEN_COVER);
+
+        assertNull(store.getThumbnail(1L, new Date(100), ThumbnailSize.SMALL));
+        assertNull(store.getThumbnail(1L, new Date(100), ThumbnailSize.SMALL));
+
+        assertEquals(1, readCovers.size());
+        assertNull(thumbnailsDao.selectThumbnail(1L).getHash());
+    }
+
+    @Test
+    public void sameCoverIsStoredOnceTest() throws Exception {
+        for (long id = 1; id <= 12; id++) {
+            covers.put(id, COVER.clone());
+        }
+
+        HashSet<File> files = new HashSet<>();
+        for (long id = 1; id <= 12; id++) {
+            files.add(store.getThumbnail(id, new Date(100), ThumbnailSize.SMALL));
+        }
+
+        assertEquals(1, files.size());
+        assertEquals(12, readCovers.size());
+        assertEquals(2, encodedThumbnails);
+        assertStats(THUMBNAILS_SIZE, 2, 0, 12);
+    }
+
+    @Test
+    public void prepareThumbnailsTest() throws Exception {
+        covers.put(1L, COVER);
+
+        assertTrue(store.prepareThumbnails(1L, new Date(100)));
+        assertFalse(store.prepareThumbnails(1L, new Date(100)));
+        assertNotNull(store.getThumbnail(1L, new Date(100), ThumbnailSize.LARGE));
+
+        assertEquals(1, readCovers.size());
+        assertStats(THUMBNAILS_SIZE, 2, 1, 0);
+    }
+
+    @Test
+    public void deletedFileIsCreatedAgainTest() throws Exception {
+        covers.put(1L, COVER);
+        File file = store.getThumbnail(1L, new Date(100), ThumbnailSize.SMALL);
+        assertNotNull(file);
+        assertTrue(file.delete());
+
+        File newFile = store.getThumbnail(1L, new Date(100), ThumbnailSize.SMALL);
+
+        assertEquals(file, newFile);
+        assertTrue(newFile.exists());
+        assertEquals(2, readCovers.size());
+    }
+
+    @Test
+    public void trimToSizeTest() throws Exception {
+        store = createStore(THUMBNAILS_SIZE * 3);
+        for (long id = 1; id <= 4; id++) {
+            covers.put(id, new byte[] { (byte) id });
+            store.getThumbnail(id, new Date(100), ThumbnailSize.SMALL);
+            //file times have seconds precision on some file systems
+            for (File file: directory.listFiles()) {
+                if (file.getName().startsWith(getCoverPrefix(id))) {
+                    assertTrue(file.setLastModified(id * 10_000));
+                }
+            }
+        }
+        covers.put(5L, new byte[] { 5 });
+        store.getThumbnail(5L, new Date(100), ThumbnailSize.SMALL);
+
+        ArtworkCacheStats stats = store.getStats();
+        assertTrue(stats.getSizeBytes() <= THUMBNAILS_SIZE * 3);
+        assertEquals(directory.listFiles().length, stats.getFilesCount());
+        //oldest ones are removed first
+        assertNotNull(store.getThumbnail(4L, new Date(100), ThumbnailSize.SMALL));
+        assertEquals(5, readCovers.size());
+        assertNotNull(store.getThumbnail(1L, new Date(100), ThumbnailSize.SMALL));
+        assertEquals(6, readCovers.size());
+    }
+
+    @Test
+    public void existingFilesAreCountedTest() throws Exception {
+        covers.put(1L, COVER);
+        store.getThumbnail(1L, new Date(100), ThumbnailSize.SMALL);
+        assertTrue(new File(directory, "broken.jpg.tmp").createNewFile());
+
+        ArtworkThumbnailStore newStore = createStore(Long.MAX_VALUE);
+
+        ArtworkCacheStats stats = newStore.getStats();
+        assertEquals(THUMBNAILS_SIZE, stats.getSizeBytes());
+        assertEquals(2, stats.getFilesCount());
+        assertFalse(new File(directory, "broken.jpg.tmp").exists());
+    }
+
+    @Test
+    public void hitLatencyTest() throws Exception {
+        int compositions = 1000;
+        for (long id = 0; id < compositions; id++) {
+            covers.put(id, new byte[] { (byte) (id % 100) });
+            store.prepareThumbnails(id, new Date(100));
+        }
+
+        long startTime = System.nanoTime();
+        for (long id = 0; id < compositions; id++) {
+            store.getThumbnail(id, new Date(100), ThumbnailSize.SMALL);
+        }
+        long time = System.nanoTime() - startTime;
+
+        ArtworkCacheStats stats = store.getStats();
+        assertEquals(compositions, stats.getHits());
+        assertEquals(200, stats.getFilesCount());
+        System.out.println("artwork store hit: " + time / compositions / 1000 + " us, files: "
+                + stats.getFilesCount() + " for " + compositions + " compositions");
+    }
+
+    private void assertStats(long size, int filesCount, long hits, long misses) {
+        assertEquals(new ArtworkCacheStats(size, filesCount, hits, misses), store.getStats());
+    }
+
+    private ArtworkThumbnailStore createStore(long maxSize) {
+        return new ArtworkThumbnailStore(directory,
+                thumbnailsDao,
+                id -> {
+                    readCovers.add(id);
+                    return covers.get(id);
+                },
+                (source, maxSize1) -> {
+                    if (source == BROKEN_COVER) {
+                        return null;
+                    }
+                    encodedThumbnails++;
+                    return new byte[maxSize1];
+                },
+                maxSize,
+                Schedulers.trampoline());
+    }
+
+    private String getCoverPrefix(long id) {
+        return thumbnailsDao.selectThumbnail(id).getHash();
+    }
+
+    private static class FakeThumbnailsDao implements ArtworkThumbnailsDao {
+
+        private final Map<Long, ArtworkThumbnailEntity> entities = new HashMap<>();
+
+        @Override
+        public synchronized void insert(ArtworkThumbnailEntity entity) {
+            entities.put(entity.getCompositionId(), entity);
+        }
+
+        @Override
+        public synchronized ArtworkThumbnailEntity selectThumbnail(long compositionId) {
+            return entities.get(compositionId);
+        }
+    }
+}
@@ -3,13 +3,30 @@ package com.github.anrimian.musicplayer.data.storage.source;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageMusicProvider;
 import com.github.anrimian.musicplayer.data.utils.files.ResourceFile;
 import com.github.anrimian.musicplayer.domain.models.composition.FullComposition;
+import com.github.anrimian.musicplayer.domain.utils.functions.ThrowsCallback;
 
+import org.jaudiotagger.tag.FieldKey;
+import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -19,10 +36,26 @@ public class CompositionSourceEditorTest {
     @Rule
     public ResourceFile res = new ResourceFile("/Кот Леопольд - Неприятность эту мы переживем.mp3");
 
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
     private final StorageMusicProvider musicProvider = mock(StorageMusicProvider.class);
     private final FileSourceProvider fileSourceProvider = mock(FileSourceProvider.class);
 
-    private final CompositionSourceEditor sourceEditor = new CompositionSourceEditor(musicProvider, fileSourceProvider);
+    private final CompositionSourceEditor sourceEditor = new CompositionSourceEditor(musicProvider,
+            fileSourceProvider);
+
+    @Before
+    public void setUp() throws Exception {
+        when(fileSourceProvider.useTempFile(anyString(), any())).thenAnswer(invocation -> {
+            File file = tempFolder.newFile();
+            ThrowsCallback<File> callback = invocation.getArgument(1);
+            callback.call(file);
+            long length = file.length();
+            file.delete();
+            return length;
+        });
+    }
 
     @Test
     public void testEditor() throws IOException {
@@ -139,6 +172,90 @@ public class CompositionSourceEditorTest {
         assertEquals(testName, newArtist);
     }
 
+    @Test
+    public void editTagsBatchTest() throws IOException {
+        String filePath = res.getFile().getPath();
+        when(musicProvider.getCompositionFilePath(anyLong())).thenReturn(filePath);
+
+        TagEditBatch batch = new TagEditBatch()
+                .setTitle("Test title")
+                .setArtist("Test artist")
+                .setAlbum("Test album")
+                .setAlbumArtist("Test album artist");
+        sourceEditor.editTags(anyFullComposition(), batch).blockingAwait();
+
+        assertEquals("Test title", sourceEditor.getCompositionTitle(filePath).blockingGet());
+        assertEquals("Test artist", sourceEditor.getCompositionAuthor(filePath).blockingGet());
+        assertEquals("Test album", sourceEditor.getCompositionAlbum(filePath).blockingGet());
+        assertEquals("Test album artist", sourceEditor.getCompositionAlbumArtist(filePath).blockingGet());
+    }
+
+    @Test
+    public void concurrentEditsOfFileTest() throws Exception {
+        String filePath = res.getFile().getPath();
+        TagEditBatch[] batches = {
+                new TagEditBatch().setTitle("Concurrent title"),
+                new TagEditBatch().setAlbum("Concurrent album"),
+                new TagEditBatch().setAlbumArtist("Concurrent album artist"),
+                new TagEditBatch().setLyrics("Concurrent lyrics")
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(batches.length);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (TagEditBatch batch: batches) {
+                futures.add(executor.submit(() -> sourceEditor.editTags(filePath, 1L, batch)
+                        .blockingAwait()));
+            }
+            for (Future<?> future: futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals("Concurrent title", sourceEditor.getCompositionTitle(filePath).blockingGet());
+        assertEquals("Concurrent album", sourceEditor.getCompositionAlbum(filePath).blockingGet());
+        assertEquals("Concurrent album artist", sourceEditor.getCompositionAlbumArtist(filePath).blockingGet());
+        assertEquals("Concurrent lyrics", sourceEditor.getCompositionLyrics(filePath).blockingGet());
+    }
+
+    @Test
+    public void editTagInPlaceTest() throws Exception {
+        File file = res.getFile();
+        String filePath = file.getPath();
+        long size = file.length();
+        when(musicProvider.openCompositionOutputStream(eq(1L), eq("rw")))
+                .thenAnswer(invocation -> new FileOutputStream(new RandomAccessFile(file, "rw").getFD()));
+
+        boolean edited = sourceEditor.editTagInPlace(file,
+                1L,
+                tag -> tag.setField(FieldKey.TITLE, "Test title"));
+
+        assertTrue(edited);
+        assertEquals(size, file.length());
+        assertEquals("Test title", sourceEditor.getCompositionTitle(filePath).blockingGet());
+    }
+
+    @Test
+    public void editTagInPlaceWithoutSpaceTest() throws Exception {
+        File file = res.getFile();
+        String filePath = file.getPath();
+        long size = file.length();
+        String oldTitle = sourceEditor.getCompositionTitle(filePath).blockingGet();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            sb.append('a');
+        }
+
+        boolean edited = sourceEditor.editTagInPlace(file,
+                1L,
+                tag -> tag.setField(FieldKey.LYRICS, sb.toString()));
+
+        assertFalse(edited);
+        assertEquals(size, file.length());
+        assertEquals(oldTitle, sourceEditor.getCompositionTitle(filePath).blockingGet());
+    }
+
     private FullComposition anyFullComposition() {
         return new FullComposition(
                 null,
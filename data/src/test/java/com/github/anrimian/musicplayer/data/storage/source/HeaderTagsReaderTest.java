@@ -0,0 +1,410 @@
+package com.github.anrimian.musicplayer.data.storage.source;
+
+import static com.github.anrimian.musicplayer.data.storage.source.TagFilesGenerator.ENCODING_ISO_8859_1;
+import static com.github.anrimian.musicplayer.data.storage.source.TagFilesGenerator.ENCODING_UTF_16;
+import static com.github.anrimian.musicplayer.data.storage.source.TagFilesGenerator.ENCODING_UTF_16BE;
+import static com.github.anrimian.musicplayer.data.storage.source.TagFilesGenerator.ENCODING_UTF_8;
+import static com.github.anrimian.musicplayer.data.storage.source.TagFilesGenerator.apeItem;
+import static com.github.anrimian.musicplayer.data.storage.source.TagFilesGenerator.apeTag;
+import static com.github.anrimian.musicplayer.data.storage.source.TagFilesGenerator.apeTextItem;
+import static com.github.anrimian.musicplayer.data.storage.source.TagFilesGenerator.ascii;
+import static com.github.anrimian.musicplayer.data.storage.source.TagFilesGenerator.concat;
+import static com.github.anrimian.musicplayer.data.storage.source.TagFilesGenerator.flacBlock;
+import static com.github.anrimian.musicplayer.data.storage.source.TagFilesGenerator.flacFile;
+import static com.github.anrimian.musicplayer.data.storage.source.TagFilesGenerator.id3v1Tag;
+import static com.github.anrimian.musicplayer.data.storage.source.TagFilesGenerator.id3v2Frame;
+import static com.github.anrimian.musicplayer.data.storage.source.TagFilesGenerator.id3v2LyricsBody;
+import static com.github.anrimian.musicplayer.data.storage.source.TagFilesGenerator.id3v2PictureBody;
+import static com.github.anrimian.musicplayer.data.storage.source.TagFilesGenerator.id3v2Tag;
+import static com.github.anrimian.musicplayer.data.storage.source.TagFilesGenerator.id3v2TextBody;
+import static com.github.anrimian.musicplayer.data.storage.source.TagFilesGenerator.mp4CoverItem;
+import static com.github.anrimian.musicplayer.data.storage.source.TagFilesGenerator.mp4File;
+import static com.github.anrimian.musicplayer.data.storage.source.TagFilesGenerator.mp4FreeformItem;
+import static com.github.anrimian.musicplayer.data.storage.source.TagFilesGenerator.mp4TextItem;
+import static com.github.anrimian.musicplayer.data.storage.source.TagFilesGenerator.mpegFrames;
+import static com.github.anrimian.musicplayer.data.storage.source.TagFilesGenerator.oggStream;
+import static com.github.anrimian.musicplayer.data.storage.source.TagFilesGenerator.opusHeadPacket;
+import static com.github.anrimian.musicplayer.data.storage.source.TagFilesGenerator.opusTagsPacket;
+import static com.github.anrimian.musicplayer.data.storage.source.TagFilesGenerator.randomBytes;
+import static com.github.anrimian.musicplayer.data.storage.source.TagFilesGenerator.vorbisComment;
+import static com.github.anrimian.musicplayer.data.storage.source.TagFilesGenerator.vorbisCommentPacket;
+import static com.github.anrimian.musicplayer.data.storage.source.TagFilesGenerator.vorbisIdentificationPacket;
+import static com.github.anrimian.musicplayer.data.storage.source.TagFilesGenerator.write;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import com.github.anrimian.musicplayer.data.utils.files.ResourceFile;
+import com.github.anrimian.musicplayer.domain.models.composition.source.CompositionSourceTags;
+
+import org.jaudiotagger.audio.AudioFile;
+import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.tag.FieldKey;
+import org.jaudiotagger.tag.Tag;
+import org.jaudiotagger.tag.TagOptionSingleton;
+import org.jaudiotagger.tag.images.AndroidArtwork;
+import org.jaudiotagger.tag.images.Artwork;
+import org.jaudiotagger.tag.reference.ID3V2Version;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+public class HeaderTagsReaderTest {
+
+    private static final int PICTURE_SIZE = 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Rule
+    public ResourceFile res = new ResourceFile("/Кот Леопольд - Неприятность эту мы переживем.mp3");
+
+    private final HeaderTagsReader reader = new HeaderTagsReader();
+
+    @Test
+    public void readId3v23Test() throws IOException {
+        File file = folder.newFile("v23.mp3");
+        write(file,
+                id3v2Tag(3, 0,
+                        id3v2Frame(3, "APIC", id3v2PictureBody(randomBytes(PICTURE_SIZE))),
+                        id3v2Frame(3, "TIT2", id3v2TextBody(ENCODING_ISO_8859_1, "Title")),
+                        id3v2Frame(3, "TPE1", id3v2TextBody(ENCODING_ISO_8859_1, "Artist")),
+                        id3v2Frame(3, "TALB", id3v2TextBody(ENCODING_UTF_16, "Альбом")),
+                        id3v2Frame(3, "TPE2", id3v2TextBody(ENCODING_UTF_16, "Album artist")),
+                        id3v2Frame(3, "USLT", id3v2LyricsBody(ENCODING_UTF_16, "", "Line 1\nLine 2"))
+                ),
+                mpegFrames(4096));
+
+        assertTags("Title", "Artist", "Альбом", "Album artist", "Line 1\nLine 2", reader.readTags(file));
+    }
+
+    @Test
+    public void readId3v24Test() throws IOException {
+        File file = folder.newFile("v24.mp3");
+        //unsynchronized frame with data length indicator
+        byte[] unsynchronizedTitle = concat(new byte[] { 0, 0, 0, 7 },
+                new byte[] { ENCODING_ISO_8859_1, 'T', (byte) 0xFF, 0, 'i', 't', 'l', 'e' });
+        write(file,
+                id3v2Tag(4, 0,
+                        id3v2Frame(4, "TIT2", 0x03, unsynchronizedTitle),
+                        id3v2Frame(4, "TPE1", id3v2TextBody(ENCODING_UTF_8, "Исполнитель 1", "Artist 2")),
+                        id3v2Frame(4, "APIC", id3v2PictureBody(randomBytes(PICTURE_SIZE))),
+                        id3v2Frame(4, "TALB", id3v2TextBody(ENCODING_UTF_16BE, "Album")),
+                        id3v2Frame(4, "USLT", id3v2LyricsBody(ENCODING_UTF_8, "description", "Текст"))
+                ),
+                mpegFrames(4096));
+
+        assertTags("Tÿitle", "Исполнитель 1", "Album", "", "Текст", reader.readTags(file));
+    }
+
+    @Test
+    public void readId3v22Test() throws IOException {
+        File file = folder.newFile("v22.mp3");
+        write(file,
+                id3v2Tag(2, 0,
+                        id3v2Frame(2, "TT2", id3v2TextBody(ENCODING_ISO_8859_1, "Title")),
+                        id3v2Frame(2, "PIC", randomBytes(PICTURE_SIZE)),
+                        id3v2Frame(2, "TP1", id3v2TextBody(ENCODING_ISO_8859_1, "Artist")),
+                        id3v2Frame(2, "TAL", id3v2TextBody(ENCODING_ISO_8859_1, "Album")),
+                        id3v2Frame(2, "TP2", id3v2TextBody(ENCODING_ISO_8859_1, "Album artist"))
+                ),
+                mpegFrames(4096));
+
+        assertTags("Title", "Artist", "Album", "Album artist", "", reader.readTags(file));
+    }
+
+    @Test
+    public void unsynchronizedId3v23IsNotSupportedTest() throws IOException {
+        File file = folder.newFile("unsync.mp3");
+        write(file,
+                id3v2Tag(3, 0x80, id3v2Frame(3, "TIT2", id3v2TextBody(ENCODING_ISO_8859_1, "Title"))),
+                mpegFrames(4096));
+
+        assertNull(reader.readTags(file));
+    }
+
+    @Test
+    public void readId3v1Test() throws IOException {
+        File file = folder.newFile("v1.mp3");
+        write(file, mpegFrames(4096), id3v1Tag("Title", "Artist", "Album"));
+
+        assertTags("Title", "Artist", "Album", "", "", reader.readTags(file));
+    }
+
+    @Test
+    public void readApeTest() throws IOException {
+        File file = folder.newFile("ape.mp3");
+        write(file,
+                mpegFrames(4096),
+                apeTag(
+                        apeItem("Cover Art (Front)", 0x02, randomBytes(PICTURE_SIZE)),
+                        apeTextItem("Title", "Название"),
+                        apeTextItem("Album Artist", "Album artist"),
+                        apeTextItem("Lyrics", "Lyrics")
+                ),
+                id3v1Tag("Title", "Artist", "Album"));
+
+        assertTags("Название", "Artist", "Album", "Album artist", "Lyrics", reader.readTags(file));
+    }
+
+    @Test
+    public void mpegWithoutTagsTest() throws IOException {
+        File file = folder.newFile("empty.mp3");
+        write(file, mpegFrames(4096));
+
+        assertTags("", "", "", "", "", reader.readTags(file));
+    }
+
+    @Test
+    public void readFlacTest() throws IOException {
+        File file = folder.newFile("file.flac");
+        write(file, flacFile(randomBytes(4096),
+                flacBlock(0, false, new byte[34]),
+                flacBlock(6, false, randomBytes(PICTURE_SIZE)),
+                flacBlock(4, true, vorbisComment(
+                        "title=Title",
+                        "ARTIST=Исполнитель",
+                        "ARTIST=Artist 2",
+                        "ALBUM=Album",
+                        "ALBUMARTIST=Album artist",
+                        "LYRICS=Lyrics"
+                ))
+        ));
+
+        assertTags("Title", "Исполнитель", "Album", "Album artist", "Lyrics", reader.readTags(file));
+    }
+
+    @Test
+    public void readFlacWithId3v2Test() throws IOException {
+        File file = folder.newFile("id3.flac");
+        write(file,
+                id3v2Tag(3, 0, id3v2Frame(3, "TIT2", id3v2TextBody(ENCODING_ISO_8859_1, "Id3 title"))),
+                flacFile(randomBytes(4096),
+                        flacBlock(0, false, new byte[34]),
+                        flacBlock(4, true, vorbisComment("TITLE=Title"))
+                ));
+
+        assertTags("Title", "", "", "", "", reader.readTags(file));
+    }
+
+    @Test
+    public void readOggVorbisTest() throws IOException {
+        File file = folder.newFile("file.ogg");
+        String picture = "METADATA_BLOCK_PICTURE=" + new String(randomBytes(PICTURE_SIZE), StandardCharsets.ISO_8859_1);
+        byte[] comment = vorbisComment(
+                picture,
+                "TITLE=Title",
+                "ARTIST=Artist",
+                "ALBUM=Альбом",
+                "ALBUMARTIST=Album artist",
+                "LYRICS=Lyrics"
+        );
+        //comment packet spans a lot of pages
+        write(file, oggStream(1, 10, vorbisIdentificationPacket(), vorbisCommentPacket(comment), randomBytes(4096)));
+
+        assertTags("Title", "Artist", "Альбом", "Album artist", "Lyrics", reader.readTags(file));
+    }
+
+    @Test
+    public void readOpusTest() throws IOException {
+        File file = folder.newFile("file.opus");
+        byte[] comment = vorbisComment("TITLE=Title", "ARTIST=Artist");
+        write(file, oggStream(2, 255, opusHeadPacket(), opusTagsPacket(comment), randomBytes(4096)));
+
+        assertTags("Title", "Artist", "", "", "", reader.readTags(file));
+    }
+
+    @Test
+    public void readMp4Test() throws IOException {
+        File file = folder.newFile("file.m4a");
+        write(file, mp4File(randomBytes(PICTURE_SIZE),
+                mp4TextItem("©nam", "Title"),
+                mp4TextItem("©ART", "Artist"),
+                mp4CoverItem(randomBytes(PICTURE_SIZE)),
+                mp4TextItem("©alb", "Альбом"),
+                mp4TextItem("aART", "Album artist"),
+                mp4TextItem("©lyr", "Lyrics")
+        ));
+
+        assertTags("Title", "Artist", "Альбом", "Album artist", "Lyrics", reader.readTags(file));
+    }
+
+    @Test
+    public void readId3v2ReplayGainTest() throws IOException {
+        File file = folder.newFile("rg.mp3");
+        write(file,
+                id3v2Tag(3, 0,
+                        id3v2Frame(3, "TXXX", id3v2TextBody(ENCODING_ISO_8859_1, "MusicBrainz Album Id", "id")),
+                        id3v2Frame(3, "TXXX", id3v2TextBody(ENCODING_UTF_16, "replaygain_track_gain", "-6.54 dB")),
+                        id3v2Frame(3, "TXXX", id3v2TextBody(ENCODING_ISO_8859_1, "REPLAYGAIN_TRACK_PEAK", "0.988525"))
+                ),
+                mpegFrames(4096));
+
+        assertReplayGain(-6.54f, 0.988525f, reader.readTags(file));
+    }
+
+    @Test
+    public void readApeReplayGainTest() throws IOException {
+        File file = folder.newFile("rg_ape.mp3");
+        write(file,
+                mpegFrames(4096),
+                apeTag(
+                        apeTextItem("REPLAYGAIN_TRACK_GAIN", "+2.10 dB"),
+                        apeTextItem("REPLAYGAIN_TRACK_PEAK", "0.5")
+                ));
+
+        assertReplayGain(2.1f, 0.5f, reader.readTags(file));
+    }
+
+    @Test
+    public void readVorbisReplayGainTest() throws IOException {
+        File file = folder.newFile("rg.flac");
+        write(file, flacFile(randomBytes(4096),
+                flacBlock(0, false, new byte[34]),
+                flacBlock(4, true, vorbisComment(
+                        "TITLE=Title",
+                        "REPLAYGAIN_TRACK_GAIN=-3.5 dB",
+                        "REPLAYGAIN_TRACK_PEAK=1.2"
+                ))
+        ));
+
+        assertReplayGain(-3.5f, 1.2f, reader.readTags(file));
+    }
+
+    @Test
+    public void readOpusR128GainTest() throws IOException {
+        File file = folder.newFile("rg.opus");
+        //-1.5 dB relative to -23 LUFS in Q7.8
+        byte[] comment = vorbisComment("TITLE=Title", "R128_TRACK_GAIN=-384");
+        write(file, oggStream(2, 255, opusHeadPacket(), opusTagsPacket(comment), randomBytes(4096)));
+
+        assertReplayGain(3.5f, null, reader.readTags(file));
+    }
+
+    @Test
+    public void readMp4ReplayGainTest() throws IOException {
+        File file = folder.newFile("rg.m4a");
+        write(file, mp4File(randomBytes(4096),
+                mp4TextItem("©nam", "Title"),
+                mp4FreeformItem("iTunNORM", "00000000"),
+                mp4FreeformItem("replaygain_track_gain", "-8.00 dB"),
+                mp4FreeformItem("replaygain_track_peak", "1.000000")
+        ));
+
+        CompositionSourceTags tags = reader.readTags(file);
+        assertTags("Title", "", "", "", "", tags);
+        assertReplayGain(-8f, 1f, tags);
+    }
+
+    @Test
+    public void brokenReplayGainTest() throws IOException {
+        File file = folder.newFile("rg_broken.flac");
+        write(file, flacFile(randomBytes(4096),
+                flacBlock(0, false, new byte[34]),
+                flacBlock(4, true, vorbisComment("REPLAYGAIN_TRACK_GAIN=loud", "REPLAYGAIN_TRACK_PEAK=1"))
+        ));
+
+        assertReplayGain(null, null, reader.readTags(file));
+    }
+
+    @Test
+    public void unknownFormatTest() throws IOException {
+        File file = folder.newFile("file.wav");
+        write(file, ascii("RIFF"), randomBytes(4096));
+
+        assertNull(reader.readTags(file));
+    }
+
+    @Test
+    public void compareWithJaudiotaggerTest() throws Exception {
+        for (ID3V2Version version: new ID3V2Version[] { ID3V2Version.ID3_V23, ID3V2Version.ID3_V24 }) {
+            File file = createTaggedFile(version);
+
+            CompositionSourceTags tags = reader.readTags(file);
+
+            Tag tag = AudioFileIO.read(file).getTag();
+            assertTags(tag.getFirst(FieldKey.TITLE),
+                    tag.getFirst(FieldKey.ARTIST),
+                    tag.getFirst(FieldKey.ALBUM),
+                    tag.getFirst(FieldKey.ALBUM_ARTIST),
+                    tag.getFirst(FieldKey.LYRICS),
+                    tags);
+        }
+    }
+
+    @Test
+    public void readPerformanceTest() throws Exception {
+        File file = createTaggedFile(ID3V2Version.ID3_V24);
+        int iterations = 200;
+        //warm up
+        for (int i = 0; i < 20; i++) {
+            reader.readTags(file);
+            AudioFileIO.read(file).getTag();
+        }
+
+        long startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            reader.readTags(file);
+        }
+        long headerReaderTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            Tag tag = AudioFileIO.read(file).getTag();
+            tag.getFirst(FieldKey.TITLE);
+        }
+        long jaudiotaggerTime = System.nanoTime() - startTime;
+
+        System.out.println("header reader: " + headerReaderTime / iterations / 1000 + " us per file");
+        System.out.println("jaudiotagger: " + jaudiotaggerTime / iterations / 1000 + " us per file");
+    }
+
+    private File createTaggedFile(ID3V2Version version) throws Exception {
+        File file = folder.newFile("tagged_" + version + ".mp3");
+        Files.copy(res.getFile().toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        TagOptionSingleton.getInstance().setID3V2Version(version);
+        AudioFile audioFile = AudioFileIO.read(file);
+        audioFile.setTag(audioFile.createDefaultTag());
+        Tag tag = audioFile.getTag();
+        tag.setField(FieldKey.TITLE, "Неприятность эту мы переживем");
+        tag.setField(FieldKey.ARTIST, "Кот Леопольд");
+        tag.setField(FieldKey.ALBUM, "Album");
+        tag.setField(FieldKey.ALBUM_ARTIST, "Album artist");
+        tag.setField(FieldKey.LYRICS, "Ребята, давайте жить дружно");
+        Artwork artwork = new AndroidArtwork();
+        artwork.setBinaryData(randomBytes(PICTURE_SIZE));
+        artwork.setMimeType("image/jpeg");
+        artwork.setPictureType(3);
+        tag.setField(artwork);
+        AudioFileIO.write(audioFile);
+        TagOptionSingleton.getInstance().setToDefault();
+        return file;
+    }
+
+    private void assertTags(String title,
+                            String artist,
+                            String album,
+                            String albumArtist,
+                            String lyrics,
+                            CompositionSourceTags tags) {
+        assertNotNull(tags);
+        assertEquals(title, tags.getTitle());
+        assertEquals(artist, tags.getArtist());
+        assertEquals(album, tags.getAlbum());
+        assertEquals(albumArtist, tags.getAlbumArtist());
+        assertEquals(lyrics, tags.getLyrics());
+    }
+
+    private void assertReplayGain(Float trackGain, Float trackPeak, CompositionSourceTags tags) {
+        assertNotNull(tags);
+        assertEquals(trackGain, tags.getTrackGain());
+        assertEquals(trackPeak, tags.getTrackPeak());
+    }
+}
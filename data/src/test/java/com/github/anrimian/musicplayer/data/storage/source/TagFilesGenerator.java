@@ -0,0 +1,365 @@
+package com.github.anrimian.musicplayer.data.storage.source;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds minimal audio files with tags for tag readers tests
+ */
+class TagFilesGenerator {
+
+    static final int ENCODING_ISO_8859_1 = 0;
+    static final int ENCODING_UTF_16 = 1;
+    static final int ENCODING_UTF_16BE = 2;
+    static final int ENCODING_UTF_8 = 3;
+
+    static void write(File file, byte[]... parts) throws IOException {
+        try (FileOutputStream stream = new FileOutputStream(file)) {
+            for (byte[] part: parts) {
+                stream.write(part);
+            }
+        }
+    }
+
+    static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+
+    //mpeg
+
+    static byte[] mpegFrames(int size) {
+        byte[] data = new byte[size];
+        for (int i = 0; i + 417 < size; i += 417) {
+            data[i] = (byte) 0xFF;
+            data[i + 1] = (byte) 0xFB;
+            data[i + 2] = (byte) 0x90;
+        }
+        return data;
+    }
+
+    static byte[] id3v2Tag(int version, int flags, byte[]... frames) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (byte[] frame: frames) {
+            body.write(frame, 0, frame.length);
+        }
+        body.write(new byte[100], 0, 100);//padding
+        ByteArrayOutputStream tag = new ByteArrayOutputStream();
+        writeAscii(tag, "ID3");
+        tag.write(version);
+        tag.write(0);
+        tag.write(flags);
+        writeSyncSafeInt(tag, body.size());
+        tag.write(body.toByteArray(), 0, body.size());
+        return tag.toByteArray();
+    }
+
+    static byte[] id3v2Frame(int version, String id, byte[] body) {
+        return id3v2Frame(version, id, 0, body);
+    }
+
+    static byte[] id3v2Frame(int version, String id, int flags, byte[] body) {
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        writeAscii(frame, id);
+        if (version == 2) {
+            frame.write(body.length >> 16);
+            frame.write(body.length >> 8);
+            frame.write(body.length);
+        } else {
+            if (version == 3) {
+                writeInt(frame, body.length);
+            } else {
+                writeSyncSafeInt(frame, body.length);
+            }
+            frame.write(0);
+            frame.write(flags);
+        }
+        frame.write(body, 0, body.length);
+        return frame.toByteArray();
+    }
+
+    static byte[] id3v2TextBody(int encoding, String... values) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(encoding);
+        for (int i = 0; i < values.length; i++) {
+            if (i != 0) {
+                writeTerminator(body, encoding);
+            }
+            byte[] value = values[i].getBytes(getId3v2Charset(encoding));
+            body.write(value, 0, value.length);
+        }
+        return body.toByteArray();
+    }
+
+    static byte[] id3v2LyricsBody(int encoding, String descriptor, String text) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(encoding);
+        writeAscii(body, "eng");
+        byte[] descriptorBytes = descriptor.getBytes(getId3v2Charset(encoding));
+        body.write(descriptorBytes, 0, descriptorBytes.length);
+        writeTerminator(body, encoding);
+        byte[] textBytes = text.getBytes(getId3v2Charset(encoding));
+        body.write(textBytes, 0, textBytes.length);
+        return body.toByteArray();
+    }
+
+    static byte[] id3v2PictureBody(byte[] picture) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(ENCODING_ISO_8859_1);
+        writeAscii(body, "image/jpeg");
+        body.write(0);
+        body.write(3);//front cover
+        body.write(0);//empty description
+        body.write(picture, 0, picture.length);
+        return body.toByteArray();
+    }
+
+    static byte[] id3v1Tag(String title, String artist, String album) {
+        byte[] tag = new byte[128];
+        tag[0] = 'T';
+        tag[1] = 'A';
+        tag[2] = 'G';
+        putId3v1String(tag, 3, title);
+        putId3v1String(tag, 33, artist);
+        putId3v1String(tag, 63, album);
+        tag[127] = (byte) 0xFF;//genre
+        return tag;
+    }
+
+    static byte[] apeTextItem(String key, String value) {
+        return apeItem(key, 0, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static byte[] apeItem(String key, int flags, byte[] value) {
+        ByteArrayOutputStream item = new ByteArrayOutputStream();
+        writeIntLE(item, value.length);
+        writeIntLE(item, flags);
+        writeAscii(item, key);
+        item.write(0);
+        item.write(value, 0, value.length);
+        return item.toByteArray();
+    }
+
+    static byte[] apeTag(byte[]... items) {
+        ByteArrayOutputStream tag = new ByteArrayOutputStream();
+        int itemsSize = 0;
+        for (byte[] item: items) {
+            tag.write(item, 0, item.length);
+            itemsSize += item.length;
+        }
+        writeAscii(tag, "APETAGEX");
+        writeIntLE(tag, 2000);
+        writeIntLE(tag, itemsSize + 32);
+        writeIntLE(tag, items.length);
+        writeIntLE(tag, 0);
+        tag.write(new byte[8], 0, 8);
+        return tag.toByteArray();
+    }
+
+    //vorbis comments
+
+    static byte[] vorbisComment(String... comments) {
+        ByteArrayOutputStream block = new ByteArrayOutputStream();
+        byte[] vendor = "test vendor".getBytes(StandardCharsets.UTF_8);
+        writeIntLE(block, vendor.length);
+        block.write(vendor, 0, vendor.length);
+        writeIntLE(block, comments.length);
+        for (String comment: comments) {
+            byte[] bytes = comment.getBytes(StandardCharsets.UTF_8);
+            writeIntLE(block, bytes.length);
+            block.write(bytes, 0, bytes.length);
+        }
+        return block.toByteArray();
+    }
+
+    static byte[] flacFile(byte[] audio, byte[]... blocks) {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        writeAscii(file, "fLaC");
+        for (byte[] block: blocks) {
+            file.write(block, 0, block.length);
+        }
+        file.write(audio, 0, audio.length);
+        return file.toByteArray();
+    }
+
+    static byte[] flacBlock(int type, boolean isLast, byte[] data) {
+        ByteArrayOutputStream block = new ByteArrayOutputStream();
+        block.write((isLast ? 0x80 : 0) | type);
+        block.write(data.length >> 16);
+        block.write(data.length >> 8);
+        block.write(data.length);
+        block.write(data, 0, data.length);
+        return block.toByteArray();
+    }
+
+    static byte[] vorbisIdentificationPacket() {
+        return concat(new byte[] { 1 }, ascii("vorbis"), new byte[23]);
+    }
+
+    static byte[] vorbisCommentPacket(byte[] comment) {
+        return concat(new byte[] { 3 }, ascii("vorbis"), comment, new byte[] { 1 });
+    }
+
+    static byte[] opusHeadPacket() {
+        return concat(ascii("OpusHead"), new byte[11]);
+    }
+
+    static byte[] opusTagsPacket(byte[] comment) {
+        return concat(ascii("OpusTags"), comment);
+    }
+
+    /**
+     * Puts packets into ogg pages, every page contains not more than maxSegments segments,
+     * so big packets span several pages
+     */
+    static byte[] oggStream(int serialNumber, int maxSegments, byte[]... packets) {
+        List<Integer> lacing = new ArrayList<>();
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        for (byte[] packet: packets) {
+            int remaining = packet.length;
+            while (remaining >= 255) {
+                lacing.add(255);
+                remaining -= 255;
+            }
+            lacing.add(remaining);
+            data.write(packet, 0, packet.length);
+        }
+        byte[] dataBytes = data.toByteArray();
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        int dataPosition = 0;
+        int sequence = 0;
+        for (int i = 0; i < lacing.size(); i += maxSegments) {
+            int segmentsCount = Math.min(maxSegments, lacing.size() - i);
+            int bodySize = 0;
+            for (int j = i; j < i + segmentsCount; j++) {
+                bodySize += lacing.get(j);
+            }
+            writeAscii(stream, "OggS");
+            stream.write(0);//version
+            stream.write(i == 0 ? 2 : 0);//header type
+            stream.write(new byte[8], 0, 8);//granule position
+            writeIntLE(stream, serialNumber);
+            writeIntLE(stream, sequence++);
+            writeIntLE(stream, 0);//crc
+            stream.write(segmentsCount);
+            for (int j = i; j < i + segmentsCount; j++) {
+                stream.write(lacing.get(j));
+            }
+            stream.write(dataBytes, dataPosition, bodySize);
+            dataPosition += bodySize;
+        }
+        return stream.toByteArray();
+    }
+
+    //mp4
+
+    static byte[] mp4Atom(String type, byte[]... children) {
+        ByteArrayOutputStream atom = new ByteArrayOutputStream();
+        int size = 8;
+        for (byte[] child: children) {
+            size += child.length;
+        }
+        writeInt(atom, size);
+        writeAscii(atom, type);
+        for (byte[] child: children) {
+            atom.write(child, 0, child.length);
+        }
+        return atom.toByteArray();
+    }
+
+    static byte[] mp4TextItem(String type, String value) {
+        return mp4Atom(type, mp4Atom("data", intBytes(1), intBytes(0), value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    static byte[] mp4FreeformItem(String name, String value) {
+        return mp4Atom("----",
+                mp4Atom("mean", intBytes(0), ascii("com.apple.iTunes")),
+                mp4Atom("name", intBytes(0), ascii(name)),
+                mp4Atom("data", intBytes(1), intBytes(0), value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    static byte[] mp4CoverItem(byte[] picture) {
+        return mp4Atom("covr", mp4Atom("data", intBytes(13), intBytes(0), picture));
+    }
+
+    static byte[] mp4File(byte[] mdat, byte[]... ilstItems) {
+        byte[] ftyp = mp4Atom("ftyp", ascii("M4A "), intBytes(0), ascii("M4A isom"));
+        byte[] hdlr = mp4Atom("hdlr", new byte[8], ascii("mdir"), new byte[13]);
+        byte[] meta = mp4Atom("meta", intBytes(0), hdlr, mp4Atom("ilst", ilstItems));
+        byte[] moov = mp4Atom("moov", mp4Atom("mvhd", new byte[100]), mp4Atom("udta", meta));
+        //moov after media data as written by many encoders
+        return concat(ftyp, mp4Atom("mdat", mdat), moov);
+    }
+
+    //utils
+
+    static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    static byte[] intBytes(int value) {
+        return new byte[] { (byte) (value >> 24), (byte) (value >> 16), (byte) (value >> 8), (byte) value };
+    }
+
+    static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        for (byte[] part: parts) {
+            result.write(part, 0, part.length);
+        }
+        return result.toByteArray();
+    }
+
+    private static Charset getId3v2Charset(int encoding) {
+        switch (encoding) {
+            case ENCODING_UTF_16: return StandardCharsets.UTF_16;
+            case ENCODING_UTF_16BE: return StandardCharsets.UTF_16BE;
+            case ENCODING_UTF_8: return StandardCharsets.UTF_8;
+            default: return StandardCharsets.ISO_8859_1;
+        }
+    }
+
+    private static void writeTerminator(ByteArrayOutputStream stream, int encoding) {
+        stream.write(0);
+        if (encoding == ENCODING_UTF_16 || encoding == ENCODING_UTF_16BE) {
+            stream.write(0);
+        }
+    }
+
+    private static void putId3v1String(byte[] tag, int offset, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.ISO_8859_1);
+        System.arraycopy(bytes, 0, tag, offset, Math.min(30, bytes.length));
+    }
+
+    private static void writeAscii(ByteArrayOutputStream stream, String text) {
+        byte[] bytes = ascii(text);
+        stream.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeInt(ByteArrayOutputStream stream, int value) {
+        byte[] bytes = intBytes(value);
+        stream.write(bytes, 0, 4);
+    }
+
+    private static void writeIntLE(ByteArrayOutputStream stream, int value) {
+        stream.write(value);
+        stream.write(value >> 8);
+        stream.write(value >> 16);
+        stream.write(value >> 24);
+    }
+
+    private static void writeSyncSafeInt(ByteArrayOutputStream stream, int value) {
+        stream.write((value >> 21) & 0x7F);
+        stream.write((value >> 14) & 0x7F);
+        stream.write((value >> 7) & 0x7F);
+        stream.write(value & 0x7F);
+    }
+}
@@ -0,0 +1,190 @@
+package com.github.anrimian.musicplayer.data.utils.collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import androidx.collection.LongSparseArray;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class AndroidCollectionUtilsTest {
+
+    private static final int MAX_SPARSE_ARRAY_BENCHMARK_SIZE = 100_000;
+
+    @Test
+    public void processSortedDiffChangesTest() {
+        List<long[]> oldList = asList(item(1, 1), item(2, 2), item(4, 4), item(6, 6));
+        List<long[]> newList = asList(item(2, 2), item(3, 3), item(4, 40), item(7, 7));
+
+        List<Long> deleted = new ArrayList<>();
+        List<Long> added = new ArrayList<>();
+        List<Long> modified = new ArrayList<>();
+        boolean hasChanges = AndroidCollectionUtils.processSortedDiffChanges(oldList,
+                newList,
+                item -> item[0],
+                item -> item[0],
+                (oldItem, newItem) -> oldItem[1] != newItem[1],
+                item -> deleted.add(item[0]),
+                item -> added.add(item[0]),
+                (oldItem, newItem) -> modified.add(newItem[1]));
+
+        assertTrue(hasChanges);
+        assertEquals(asList(1L, 6L), deleted);
+        assertEquals(asList(3L, 7L), added);
+        assertEquals(asList(40L), modified);
+    }
+
+    @Test
+    public void processSortedDiffWithoutChangesTest() {
+        List<long[]> list = asList(item(1, 1), item(2, 2));
+
+        boolean hasChanges = AndroidCollectionUtils.processSortedDiffChanges(list,
+                new ArrayList<>(list),
+                item -> item[0],
+                item -> item[0],
+                (oldItem, newItem) -> oldItem[1] != newItem[1],
+                item -> {},
+                item -> {},
+                (oldItem, newItem) -> {});
+
+        assertFalse(hasChanges);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void processSortedDiffUnsortedListTest() {
+        AndroidCollectionUtils.processSortedDiffChanges(asList(item(2, 2), item(1, 1)),
+                asList(item(3, 3)),
+                item -> item[0],
+                item -> item[0],
+                (oldItem, newItem) -> false,
+                item -> {},
+                item -> {},
+                (oldItem, newItem) -> {});
+    }
+
+    @Test
+    public void sortedDiffMatchesHashDiffTest() {
+        Random random = new Random(0);
+        LongHashMap<long[]> oldMap = new LongHashMap<>();
+        LongHashMap<long[]> newMap = new LongHashMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            long key = random.nextInt(10_000);
+            oldMap.put(key, item(key, random.nextInt(3)));
+            key = random.nextInt(10_000);
+            newMap.put(key, item(key, random.nextInt(3)));
+        }
+
+        List<Long> hashResult = new ArrayList<>();
+        AndroidCollectionUtils.processDiffChanges(oldMap,
+                newMap,
+                (oldItem, newItem) -> oldItem[1] != newItem[1],
+                item -> hashResult.add(-item[0]),
+                item -> hashResult.add(item[0]),
+                (oldItem, newItem) -> hashResult.add(newItem[0] * 100_000));
+        List<Long> sortedResult = new ArrayList<>();
+        AndroidCollectionUtils.processSortedDiffChanges(oldMap.valuesSortedByKey(),
+                newMap.valuesSortedByKey(),
+                item -> item[0],
+                item -> item[0],
+                (oldItem, newItem) -> oldItem[1] != newItem[1],
+                item -> sortedResult.add(-item[0]),
+                item -> sortedResult.add(item[0]),
+                (oldItem, newItem) -> sortedResult.add(newItem[0] * 100_000));
+
+        Collections.sort(hashResult);
+        Collections.sort(sortedResult);
+        assertEquals(hashResult, sortedResult);
+    }
+
+    @Test
+    public void diffPerformanceTest() {
+        Random random = new Random(0);
+        for (int count: new int[] { 10_000, 100_000, 500_000 }) {
+            //media store doesn't guarantee rows order, database rows are read in storage id order
+            List<long[]> storageItems = new ArrayList<>(count);
+            List<long[]> dbItems = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long key = i * 2L + random.nextInt(2);
+                storageItems.add(item(key, random.nextInt(100)));
+                if (random.nextInt(100) != 0) {
+                    dbItems.add(item(key, random.nextInt(100)));
+                }
+            }
+            Collections.shuffle(storageItems, random);
+
+            //sparse array insertion of unordered keys is quadratic, skip it on huge lists
+            int sparseArrayChanges = -1;
+            long sparseArrayTime = -1;
+            if (count <= MAX_SPARSE_ARRAY_BENCHMARK_SIZE) {
+                long startTime = System.nanoTime();
+                LongSparseArray<long[]> oldSparseArray = new LongSparseArray<>();
+                for (long[] item: dbItems) {
+                    oldSparseArray.put(item[0], item);
+                }
+                LongSparseArray<long[]> newSparseArray = new LongSparseArray<>();
+                for (long[] item: storageItems) {
+                    newSparseArray.put(item[0], item);
+                }
+                sparseArrayChanges = sparseArrayDiff(oldSparseArray, newSparseArray);
+                sparseArrayTime = System.nanoTime() - startTime;
+            }
+
+            long startTime = System.nanoTime();
+            LongHashMap<long[]> storageMap = AndroidCollectionUtils.mapToHashMap(storageItems,
+                    item -> item[0]);
+            int[] mergeChanges = new int[1];
+            AndroidCollectionUtils.processSortedDiffChanges(dbItems,
+                    storageMap.valuesSortedByKey(),
+                    item -> item[0],
+                    item -> item[0],
+                    (oldItem, newItem) -> oldItem[1] != newItem[1],
+                    item -> mergeChanges[0]++,
+                    item -> mergeChanges[0]++,
+                    (oldItem, newItem) -> mergeChanges[0]++);
+            long mergeTime = System.nanoTime() - startTime;
+
+            if (sparseArrayChanges != -1) {
+                assertEquals(sparseArrayChanges, mergeChanges[0]);
+            }
+            System.out.println("items: " + count
+                    + ", sparse array: " + (sparseArrayTime == -1? "skipped" : sparseArrayTime / 1_000_000 + " ms")
+                    + ", hash map and merge: " + mergeTime / 1_000_000 + " ms");
+        }
+    }
+
+    //diff as it was done before, with binary search lookups
+    private static int sparseArrayDiff(LongSparseArray<long[]> oldMap,
+                                       LongSparseArray<long[]> newMap) {
+        int changes = 0;
+        for (int i = 0, size = oldMap.size(); i < size; i++) {
+            if (newMap.get(oldMap.keyAt(i)) == null) {
+                changes++;
+            }
+        }
+        for (int i = 0, size = newMap.size(); i < size; i++) {
+            long[] newValue = newMap.valueAt(i);
+            long[] existValue = oldMap.get(newMap.keyAt(i));
+            if (existValue == null || existValue[1] != newValue[1]) {
+                changes++;
+            }
+        }
+        return changes;
+    }
+
+    private static long[] item(long key, long value) {
+        return new long[] { key, value };
+    }
+
+    @SafeVarargs
+    private static <T> List<T> asList(T... items) {
+        List<T> list = new ArrayList<>();
+        Collections.addAll(list, items);
+        return list;
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.anrimian.musicplayer.data.utils.collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class LongHashMapTest {
+
+    @Test
+    public void putAndGetTest() {
+        LongHashMap<String> map = new LongHashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            map.put(i * 31L, "value-" + i);
+        }
+        map.put(0, "zero");
+
+        assertEquals(1000, map.size());
+        assertEquals("zero", map.get(0));
+        assertEquals("value-999", map.get(999 * 31L));
+        assertNull(map.get(1));
+        assertFalse(map.containsKey(1));
+    }
+
+    @Test
+    public void removeTest() {
+        LongHashMap<Integer> map = new LongHashMap<>();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(0);
+        for (int i = 0; i < 10_000; i++) {
+            long key = random.nextInt(2_000);
+            if (random.nextBoolean()) {
+                map.put(key, i);
+                expected.put(key, i);
+            } else {
+                map.remove(key);
+                expected.remove(key);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (long key = 0; key < 2_000; key++) {
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+
+    @Test
+    public void valuesSortedByKeyTest() {
+        LongHashMap<Long> map = new LongHashMap<>();
+        TreeMap<Long, Long> expected = new TreeMap<>();
+        Random random = new Random(0);
+        for (int i = 0; i < 1000; i++) {
+            long key = random.nextLong();
+            map.put(key, key);
+            expected.put(key, key);
+        }
+
+        assertEquals(new ArrayList<>(expected.values()), map.valuesSortedByKey());
+    }
+
+    @Test
+    public void putAllAndClearTest() {
+        LongHashMap<String> first = new LongHashMap<>();
+        first.put(1, "1");
+        LongHashMap<String> second = new LongHashMap<>();
+        second.put(1, "one");
+        second.put(2, "two");
+
+        first.putAll(second);
+        List<String> values = first.valuesSortedByKey();
+        assertEquals(2, values.size());
+        assertEquals("one", values.get(0));
+        assertEquals("two", values.get(1));
+
+        first.clear();
+        assertTrue(first.isEmpty());
+        assertFalse(first.containsKey(1));
+        assertEquals(0, first.keys().length);
+    }
+}
@@ -0,0 +1,62 @@
+package com.github.anrimian.musicplayer.data.utils.collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class LongIntHashMapTest {
+
+    @Test
+    public void putAndGetTest() {
+        LongIntHashMap map = new LongIntHashMap();
+        for (int i = 0; i < 1000; i++) {
+            map.put(i * 31L, i);
+        }
+        map.put(0, -5);
+
+        assertEquals(1000, map.size());
+        assertEquals(-5, map.get(0, -1));
+        assertEquals(999, map.get(999 * 31L, -1));
+        assertEquals(-1, map.get(1, -1));
+    }
+
+    @Test
+    public void removeTest() {
+        LongIntHashMap map = new LongIntHashMap();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(0);
+        for (int i = 0; i < 10_000; i++) {
+            long key = random.nextInt(2_000);
+            if (random.nextBoolean()) {
+                map.put(key, i);
+                expected.put(key, i);
+            } else {
+                map.remove(key);
+                expected.remove(key);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (long key = 0; key < 2_000; key++) {
+            Integer value = expected.get(key);
+            assertEquals(value != null, map.containsKey(key));
+            assertEquals(value == null? -1 : value, map.get(key, -1));
+        }
+    }
+
+    @Test
+    public void clearTest() {
+        LongIntHashMap map = new LongIntHashMap();
+        map.put(1, 1);
+        map.clear(100);
+
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(1));
+    }
+}
@@ -0,0 +1,228 @@
+package com.github.anrimian.musicplayer.data.utils.rx.schedulers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.github.anrimian.musicplayer.data.database.dao.albums.AlbumsDaoWrapper;
+import com.github.anrimian.musicplayer.data.database.dao.artist.ArtistsDaoWrapper;
+import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDaoWrapper;
+import com.github.anrimian.musicplayer.data.database.dao.folders.FoldersDaoWrapper;
+import com.github.anrimian.musicplayer.data.database.dao.genre.GenresDaoWrapper;
+import com.github.anrimian.musicplayer.data.database.dao.play_queue.PlayQueueDaoWrapper;
+import com.github.anrimian.musicplayer.data.database.entities.edit.EditJobType;
+import com.github.anrimian.musicplayer.data.repositories.library.edit.EditorRepositoryImpl;
+import com.github.anrimian.musicplayer.data.repositories.library.edit.jobs.EditJobRunner;
+import com.github.anrimian.musicplayer.data.repositories.play_queue.PlayQueueRepositoryImpl;
+import com.github.anrimian.musicplayer.data.storage.files.StorageFilesDataSource;
+import com.github.anrimian.musicplayer.data.storage.providers.music.StorageMusicProvider;
+import com.github.anrimian.musicplayer.data.storage.source.CompositionSourceEditor;
+import com.github.anrimian.musicplayer.domain.repositories.SettingsRepository;
+import com.github.anrimian.musicplayer.domain.repositories.StateRepository;
+import com.github.anrimian.musicplayer.domain.repositories.UiStateRepository;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+public class SchedulerLanesTest {
+
+    private static final long EDIT_TIME_MILLIS = 1000;
+    private static final long NAVIGATION_BUDGET_MILLIS = 100;
+
+    private final EditJobRunner editJobRunner = mock(EditJobRunner.class);
+    private final ArtistsDaoWrapper artistsDao = mock(ArtistsDaoWrapper.class);
+    private final AlbumsDaoWrapper albumsDao = mock(AlbumsDaoWrapper.class);
+    private final PlayQueueDaoWrapper playQueueDao = mock(PlayQueueDaoWrapper.class);
+    private final SettingsRepository settingsRepository = mock(SettingsRepository.class);
+    private final UiStateRepository uiStateRepository = mock(UiStateRepository.class);
+
+    private final CountDownLatch editStartedLatch = new CountDownLatch(1);
+
+    private final SchedulerLanes lanes = new SchedulerLanes();
+
+    private Disposable editDisposable;
+
+    @Before
+    public void setUp() {
+        when(settingsRepository.getRandomPlayingObservable()).thenReturn(Observable.never());
+        when(uiStateRepository.getCurrentItemIdObservable()).thenReturn(Observable.never());
+        when(playQueueDao.getNextQueueItemId(anyLong(), anyBoolean())).thenReturn(2L);
+        when(playQueueDao.getIndexPosition(anyLong(), anyBoolean())).thenReturn(1);
+
+        //long tag editing, runs on the thread of editor
+        when(editJobRunner.runJob(any(EditJobType.class), anyLong(), anyString(), isNull(), anyMap()))
+                .thenReturn(Completable.fromAction(() -> {
+                    editStartedLatch.countDown();
+                    try {
+                        Thread.sleep(EDIT_TIME_MILLIS);
+                    } catch (InterruptedException ignored) {
+                        //interrupted on tear down
+                    }
+                }));
+    }
+
+    @After
+    public void tearDown() {
+        if (editDisposable != null) {
+            editDisposable.dispose();
+        }
+        lanes.shutdown();
+    }
+
+    @Test
+    public void editorDoesNotDelayQueueNavigationTest() throws Exception {
+        EditorRepositoryImpl editorRepository = createEditorRepository(
+                lanes.getScheduler(SchedulerLane.FILE_IO));
+        PlayQueueRepositoryImpl playQueueRepository = createPlayQueueRepository(
+                lanes.getScheduler(SchedulerLane.PLAYBACK));
+
+        startEdit(editorRepository);
+        long navigationTime = measureSkipToNext(playQueueRepository);
+
+        System.out.println("skip to next during edit, separate lanes: " + navigationTime + " ms");
+        assertTrue(navigationTime < NAVIGATION_BUDGET_MILLIS);
+        assertTrue(lanes.getStats(SchedulerLane.PLAYBACK).getMaxWaitMillis() < NAVIGATION_BUDGET_MILLIS);
+        assertEquals(1, lanes.getStats(SchedulerLane.FILE_IO).getActiveTasksCount());
+    }
+
+    @Test
+    public void sharedSchedulerDelaysQueueNavigationTest() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Scheduler sharedScheduler = Schedulers.from(executor);
+            EditorRepositoryImpl editorRepository = createEditorRepository(sharedScheduler);
+            PlayQueueRepositoryImpl playQueueRepository = createPlayQueueRepository(sharedScheduler);
+
+            startEdit(editorRepository);
+            long navigationTime = measureSkipToNext(playQueueRepository);
+
+            System.out.println("skip to next during edit, shared scheduler: " + navigationTime + " ms");
+            assertTrue(navigationTime >= NAVIGATION_BUDGET_MILLIS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void queueWaitStatsTest() throws Exception {
+        Scheduler scheduler = lanes.getScheduler(SchedulerLane.DB_WRITE);
+        CountDownLatch releaseLatch = new CountDownLatch(1);
+        CountDownLatch completeLatch = new CountDownLatch(3);
+
+        scheduler.scheduleDirect(() -> {
+            try {
+                releaseLatch.await();
+            } catch (InterruptedException ignored) {}
+            completeLatch.countDown();
+        });
+        scheduler.scheduleDirect(completeLatch::countDown);
+        scheduler.scheduleDirect(completeLatch::countDown);
+        Thread.sleep(200);
+
+        LaneStats stats = lanes.getStats(SchedulerLane.DB_WRITE);
+        assertEquals(2, stats.getQueueSize());
+        assertEquals(2, stats.getMaxQueueSize());
+        assertEquals(1, stats.getActiveTasksCount());
+
+        releaseLatch.countDown();
+        assertTrue(completeLatch.await(1, TimeUnit.SECONDS));
+        Thread.sleep(50);
+
+        stats = lanes.getStats(SchedulerLane.DB_WRITE);
+        assertEquals(0, stats.getQueueSize());
+        assertEquals(3, stats.getCompletedTasksCount());
+        assertTrue(stats.getMaxWaitMillis() >= 200);
+        assertTrue(stats.getAverageWaitMillis() < stats.getMaxWaitMillis());
+    }
+
+    @Test
+    public void disposedScannerTaskIsInterruptedTest() throws Exception {
+        CountDownLatch startedLatch = new CountDownLatch(1);
+        CountDownLatch interruptedLatch = new CountDownLatch(1);
+        Disposable disposable = Completable.fromAction(() -> {
+            startedLatch.countDown();
+            try {
+                //hung file read
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interruptedLatch.countDown();
+            }
+        }).subscribeOn(lanes.getScheduler(SchedulerLane.SCANNER)).subscribe();
+        assertTrue(startedLatch.await(1, TimeUnit.SECONDS));
+
+        disposable.dispose();
+
+        assertTrue(interruptedLatch.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void lanePriorityTest() throws Exception {
+        int playbackPriority = getThreadPriority(SchedulerLane.PLAYBACK);
+        int fileIoPriority = getThreadPriority(SchedulerLane.FILE_IO);
+        int scannerPriority = getThreadPriority(SchedulerLane.SCANNER);
+        int cpuPriority = getThreadPriority(SchedulerLane.CPU);
+
+        assertTrue(playbackPriority > fileIoPriority);
+        assertTrue(fileIoPriority > scannerPriority);
+        assertTrue(fileIoPriority > cpuPriority);
+    }
+
+    private int getThreadPriority(SchedulerLane lane) {
+        return Single.fromCallable(() -> Thread.currentThread().getPriority())
+                .subscribeOn(lanes.getScheduler(lane))
+                .blockingGet();
+    }
+
+    private void startEdit(EditorRepositoryImpl editorRepository) throws InterruptedException {
+        editDisposable = editorRepository.updateArtistName("new name", 1L).subscribe();
+        assertTrue(editStartedLatch.await(1, TimeUnit.SECONDS));
+    }
+
+    private long measureSkipToNext(PlayQueueRepositoryImpl playQueueRepository) {
+        long startTime = System.nanoTime();
+        playQueueRepository.skipToNext().blockingGet();
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+    }
+
+    private EditorRepositoryImpl createEditorRepository(Scheduler scheduler) {
+        return new EditorRepositoryImpl(mock(CompositionSourceEditor.class),
+                mock(StorageFilesDataSource.class),
+                mock(CompositionsDaoWrapper.class),
+                albumsDao,
+                artistsDao,
+                mock(GenresDaoWrapper.class),
+                mock(FoldersDaoWrapper.class),
+                mock(StorageMusicProvider.class),
+                mock(StateRepository.class),
+                settingsRepository,
+                editJobRunner,
+                scheduler);
+    }
+
+    private PlayQueueRepositoryImpl createPlayQueueRepository(Scheduler scheduler) {
+        return new PlayQueueRepositoryImpl(playQueueDao,
+                settingsRepository,
+                uiStateRepository,
+                scheduler);
+    }
+}
@@ -1,13 +1,12 @@
 package utils;
 
-import androidx.collection.LongSparseArray;
-
 import com.github.anrimian.musicplayer.data.database.entities.composition.CompositionEntity;
 import com.github.anrimian.musicplayer.data.database.entities.play_queue.PlayQueueEntity;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageComposition;
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageFullComposition;
 import com.github.anrimian.musicplayer.data.storage.providers.playlists.StoragePlayList;
 import com.github.anrimian.musicplayer.data.storage.providers.playlists.StoragePlayListItem;
+import com.github.anrimian.musicplayer.data.utils.collections.LongHashMap;
 import com.github.anrimian.musicplayer.domain.models.composition.Composition;
 import com.github.anrimian.musicplayer.domain.models.composition.source.CompositionSource;
 import com.github.anrimian.musicplayer.domain.models.composition.source.LibraryCompositionSource;
@@ -42,7 +41,6 @@ public class TestDataProvider {
                 null,
                 new Date(),
                 new Date(),
-                new Date(),
                 null);
     }
 
@@ -98,8 +96,8 @@ public class TestDataProvider {
         return getFakeStoragePlayListItems().get(index);
     }
 
-    public static LongSparseArray<StorageComposition> getFakeStorageCompositionsMap() {
-        LongSparseArray<StorageComposition> compositions = new LongSparseArray<>();
+    public static LongHashMap<StorageComposition> getFakeStorageCompositionsMap() {
+        LongHashMap<StorageComposition> compositions = new LongHashMap<>();
         for (long i = 0; i < 100000; i++) {
             StorageComposition composition = fakeStorageComposition(i, "music-" + i);
             compositions.put(i, composition);
@@ -119,8 +117,8 @@ public class TestDataProvider {
         return new StoragePlayList(i, "test" + i, new Date(i), new Date(i));
     }
 
-    public static LongSparseArray<StoragePlayList> storagePlayLists(long count) {
-        LongSparseArray<StoragePlayList> items = new LongSparseArray<>();
+    public static LongHashMap<StoragePlayList> storagePlayLists(long count) {
+        LongHashMap<StoragePlayList> items = new LongHashMap<>();
         for (long i = 0; i < count; i++) {
             items.put(i, storagePlayList(i));
         }
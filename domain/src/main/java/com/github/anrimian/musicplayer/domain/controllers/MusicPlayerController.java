@@ -1,8 +1,11 @@
 package com.github.anrimian.musicplayer.domain.controllers;
 
 import com.github.anrimian.musicplayer.domain.models.composition.source.CompositionSource;
+import com.github.anrimian.musicplayer.domain.models.player.PlaybackPosition;
 import com.github.anrimian.musicplayer.domain.models.player.events.PlayerEvent;
 
+import javax.annotation.Nullable;
+
 import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.core.Single;
 
@@ -16,6 +19,13 @@ public interface MusicPlayerController {
 
     void prepareToPlay(CompositionSource composition);
 
+    /**
+     * Source to buffer after current composition for gapless transition, null to clear.
+     * When player switches to it, FinishedEvent is emitted for previous composition
+     * and following prepareToPlay() call with this source doesn't reload it
+     */
+    void setNextSource(@Nullable CompositionSource composition);
+
     void stop();
 
     void resume();
@@ -28,7 +38,10 @@ public interface MusicPlayerController {
 
     void setVolume(float volume);
 
-    Observable<Long> getTrackPositionObservable();
+    /**
+     * Emits position only on discontinuities, see {@link PlaybackPosition}
+     */
+    Observable<PlaybackPosition> getPlaybackPositionObservable();
 
     void seekBy(long millis);
 
@@ -2,6 +2,7 @@ package com.github.anrimian.musicplayer.domain.interactors.editor;
 
 import com.github.anrimian.musicplayer.domain.models.albums.Album;
 import com.github.anrimian.musicplayer.domain.models.composition.FullComposition;
+import com.github.anrimian.musicplayer.domain.models.editor.EditJobProgress;
 import com.github.anrimian.musicplayer.domain.models.genres.ShortGenre;
 import com.github.anrimian.musicplayer.domain.models.image.ImageSource;
 import com.github.anrimian.musicplayer.domain.repositories.EditorRepository;
@@ -89,6 +90,10 @@ public class EditorInteractor {
         return editorRepository.updateAlbumArtist(name, albumId);
     }
 
+    public Observable<EditJobProgress> getEditJobProgressObservable() {
+        return editorRepository.getEditJobProgressObservable();
+    }
+
     public Single<String[]> getAuthorNames() {
         return musicProviderRepository.getAuthorNames();
     }
@@ -8,6 +8,7 @@ import com.github.anrimian.musicplayer.domain.repositories.EditorRepository;
 import com.github.anrimian.musicplayer.domain.repositories.LibraryRepository;
 import com.github.anrimian.musicplayer.domain.repositories.SettingsRepository;
 import com.github.anrimian.musicplayer.domain.repositories.UiStateRepository;
+import com.github.anrimian.musicplayer.domain.utils.paging.PageSource;
 
 import java.util.List;
 
@@ -37,6 +38,10 @@ public class LibraryAlbumsInteractor {
         return musicProviderRepository.getAlbumsObservable(searchText);
     }
 
+    public Observable<PageSource<Album>> getAlbumsPageSourceObservable(@Nullable String searchText) {
+        return musicProviderRepository.getAlbumsPageSourceObservable(searchText);
+    }
+
     public Observable<List<Composition>> getAlbumItemsObservable(long albumId) {
         return musicProviderRepository.getAlbumItemsObservable(albumId);
     }
@@ -9,6 +9,7 @@ import com.github.anrimian.musicplayer.domain.repositories.EditorRepository;
 import com.github.anrimian.musicplayer.domain.repositories.LibraryRepository;
 import com.github.anrimian.musicplayer.domain.repositories.SettingsRepository;
 import com.github.anrimian.musicplayer.domain.repositories.UiStateRepository;
+import com.github.anrimian.musicplayer.domain.utils.paging.PageSource;
 
 import java.util.List;
 
@@ -38,6 +39,10 @@ public class LibraryArtistsInteractor {
         return musicProviderRepository.getArtistsObservable(searchText);
     }
 
+    public Observable<PageSource<Artist>> getArtistsPageSourceObservable(@Nullable String searchText) {
+        return musicProviderRepository.getArtistsPageSourceObservable(searchText);
+    }
+
     public Observable<List<Composition>> getCompositionsByArtist(long artistId) {
         return musicProviderRepository.getCompositionsByArtist(artistId);
     }
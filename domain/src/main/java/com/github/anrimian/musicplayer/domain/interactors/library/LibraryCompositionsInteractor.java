@@ -6,6 +6,7 @@ import com.github.anrimian.musicplayer.domain.models.utils.ListPosition;
 import com.github.anrimian.musicplayer.domain.repositories.LibraryRepository;
 import com.github.anrimian.musicplayer.domain.repositories.SettingsRepository;
 import com.github.anrimian.musicplayer.domain.repositories.UiStateRepository;
+import com.github.anrimian.musicplayer.domain.utils.paging.PageSource;
 
 import java.util.List;
 
@@ -29,6 +30,10 @@ public class LibraryCompositionsInteractor {
         return musicProviderRepository.getAllCompositionsObservable(searchText);
     }
 
+    public Observable<PageSource<Composition>> getCompositionsPageSourceObservable(String searchText) {
+        return musicProviderRepository.getAllCompositionsPageSourceObservable(searchText);
+    }
+
     public void setOrder(Order order) {
         settingsRepository.setCompositionsOrder(order);
     }
@@ -14,6 +14,7 @@ import com.github.anrimian.musicplayer.domain.repositories.MediaScannerRepositor
 import com.github.anrimian.musicplayer.domain.repositories.SettingsRepository;
 import com.github.anrimian.musicplayer.domain.repositories.UiStateRepository;
 import com.github.anrimian.musicplayer.domain.utils.ListUtils;
+import com.github.anrimian.musicplayer.domain.utils.paging.PageSource;
 
 import java.util.List;
 
@@ -58,14 +59,17 @@ public class LibraryFoldersInteractor {
         return libraryRepository.getFoldersInFolder(folderId, searchQuery);
     }
 
+    public Observable<PageSource<FileSource>> getFilesPageSourceObservable(@Nullable Long folderId,
+                                                                           @Nullable String searchQuery) {
+        return libraryRepository.getFilesPageSourceObservable(folderId, searchQuery);
+    }
+
     public Observable<FolderFileSource> getFolderObservable(long folderId) {
         return libraryRepository.getFolderObservable(folderId);
     }
 
     public void playAllMusicInFolder(@Nullable Long folderId) {
-        libraryRepository.getAllCompositionsInFolder(folderId)
-                .doOnSuccess(musicPlayerInteractor::startPlaying)
-                .subscribe();
+        musicPlayerInteractor.startPlaying(libraryRepository.getAllCompositionsInFolderPages(folderId));
     }
 
     public Single<List<Composition>> getAllCompositionsInFolder(@Nullable Long folderId) {
@@ -77,9 +81,7 @@ public class LibraryFoldersInteractor {
     }
 
     public void play(List<FileSource> fileSources) {
-        libraryRepository.getAllCompositionsInFolders(fileSources)
-                .doOnSuccess(musicPlayerInteractor::startPlaying)
-                .subscribe();
+        musicPlayerInteractor.startPlaying(libraryRepository.getAllCompositionsInFoldersPages(fileSources));
     }
 
     public void play(Long folderId, Composition composition) {
@@ -11,6 +11,7 @@ import com.github.anrimian.musicplayer.domain.repositories.EditorRepository;
 import com.github.anrimian.musicplayer.domain.repositories.LibraryRepository;
 import com.github.anrimian.musicplayer.domain.repositories.MediaScannerRepository;
 import com.github.anrimian.musicplayer.domain.repositories.UiStateRepository;
+import com.github.anrimian.musicplayer.domain.utils.paging.PageSource;
 
 import java.util.Collection;
 import java.util.LinkedHashSet;
@@ -59,6 +60,11 @@ public class LibraryFoldersScreenInteractor {
         return foldersInteractor.getFoldersInFolder(folderId, searchQuery);
     }
 
+    public Observable<PageSource<FileSource>> getFilesPageSourceObservable(@Nullable Long folderId,
+                                                                           @Nullable String searchQuery) {
+        return foldersInteractor.getFilesPageSourceObservable(folderId, searchQuery);
+    }
+
     public Observable<FolderFileSource> getFolderObservable(long folderId) {
         return foldersInteractor.getFolderObservable(folderId);
     }
@@ -13,6 +13,7 @@ import com.github.anrimian.musicplayer.domain.models.composition.source.Composit
 import com.github.anrimian.musicplayer.domain.models.composition.source.LibraryCompositionSource;
 import com.github.anrimian.musicplayer.domain.models.play_queue.PlayQueueEvent;
 import com.github.anrimian.musicplayer.domain.models.play_queue.PlayQueueItem;
+import com.github.anrimian.musicplayer.domain.models.player.PlaybackPosition;
 import com.github.anrimian.musicplayer.domain.models.player.PlayerState;
 import com.github.anrimian.musicplayer.domain.models.player.error.ErrorType;
 import com.github.anrimian.musicplayer.domain.models.player.events.ErrorEvent;
@@ -23,8 +24,13 @@ import com.github.anrimian.musicplayer.domain.repositories.LibraryRepository;
 import com.github.anrimian.musicplayer.domain.repositories.PlayQueueRepository;
 import com.github.anrimian.musicplayer.domain.repositories.SettingsRepository;
 import com.github.anrimian.musicplayer.domain.repositories.UiStateRepository;
+import com.github.anrimian.musicplayer.domain.utils.Objects;
+import com.github.anrimian.musicplayer.domain.utils.functions.Optional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.annotation.Nullable;
 
@@ -33,10 +39,16 @@ import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.core.Single;
 import io.reactivex.rxjava3.disposables.CompositeDisposable;
+import io.reactivex.rxjava3.disposables.SerialDisposable;
 import io.reactivex.rxjava3.subjects.PublishSubject;
 
 public class LibraryPlayerInteractor {
 
+    //time before end of composition when next queue item is given to player for gapless transition
+    private static final long PREBUFFER_NEXT_ITEM_MILLIS = 15000;
+    //next item is checked again while playing near the end to catch queue and play mode changes
+    private static final long PREBUFFER_CHECK_INTERVAL_MILLIS = 1000;
+
     private final PlayerCoordinatorInteractor playerCoordinatorInteractor;
     private final SettingsRepository settingsRepository;
     private final PlayQueueRepository playQueueRepository;
@@ -45,6 +57,8 @@ public class LibraryPlayerInteractor {
     private final Analytics analytics;
 
     private final CompositeDisposable playerDisposable = new CompositeDisposable();
+    private final CompositeDisposable queueLoadingDisposable = new CompositeDisposable();
+    private final SerialDisposable prebufferCheckDisposable = new SerialDisposable();
 
     private final PublishSubject<Long> trackPositionSubject = PublishSubject.create();
 
@@ -52,6 +66,10 @@ public class LibraryPlayerInteractor {
 
     @Nullable
     private PlayQueueItem currentItem;
+    @Nullable
+    private PlayQueueItem prebufferedItem;
+    @Nullable
+    private PlaybackPosition playbackPosition;
 
     public LibraryPlayerInteractor(PlayerCoordinatorInteractor playerCoordinatorInteractor,
                                    SettingsRepository settingsRepository,
@@ -81,6 +99,9 @@ public class LibraryPlayerInteractor {
 
         playerDisposable.add(playerCoordinatorInteractor.getPlayerEventsObservable(LIBRARY)
                 .subscribe(this::onMusicPlayerEventReceived));
+
+        playerDisposable.add(playerCoordinatorInteractor.getPlaybackPositionObservable(LIBRARY)
+                .subscribe(this::onPlaybackPositionChanged));
     }
 
     public void startPlaying(List<Composition> compositions) {
@@ -88,15 +109,37 @@ public class LibraryPlayerInteractor {
     }
 
     public void startPlaying(List<Composition> compositions, int firstPosition) {
-        playQueueRepository.setPlayQueue(compositions, firstPosition)
-                .doOnComplete(this::play)
-                //fixes music gap and state blinking(prepare new queue from stop state)
-                .doOnSubscribe(o -> playerCoordinatorInteractor.setInLoadingState(LIBRARY))
+        queueLoadingDisposable.clear();
+        setPlayQueue(compositions, firstPosition)
                 .doOnError(analytics::processNonFatalError)
                 .onErrorComplete()
                 .subscribe();
     }
 
+    /**
+     * Starts playing when first page is in play queue, next pages are added to end of queue.
+     * Random mode shuffles whole queue, so in this mode it waits for all pages.
+     */
+    public void startPlaying(Observable<List<Composition>> compositionPages) {
+        queueLoadingDisposable.clear();
+        Completable queueLoading;
+        if (settingsRepository.isRandomPlayingEnabled()) {
+            queueLoading = compositionPages.collect(ArrayList<Composition>::new, List::addAll)
+                    .flatMapCompletable(compositions -> setPlayQueue(compositions, NO_POSITION));
+        } else {
+            AtomicBoolean isFirstPage = new AtomicBoolean(true);
+            queueLoading = compositionPages.concatMapCompletable(compositions -> {
+                if (isFirstPage.getAndSet(false)) {
+                    return setPlayQueue(compositions, NO_POSITION);
+                }
+                return playQueueRepository.addCompositionsToEnd(compositions);
+            });
+        }
+        queueLoadingDisposable.add(queueLoading.doOnError(analytics::processNonFatalError)
+                .onErrorComplete()
+                .subscribe());
+    }
+
     public void play() {
         play(0);
     }
@@ -267,6 +310,7 @@ public class LibraryPlayerInteractor {
     }
 
     public Completable clearPlayQueue() {
+        queueLoadingDisposable.clear();
         return playQueueRepository.clearPlayQueue();
     }
 
@@ -295,10 +339,19 @@ public class LibraryPlayerInteractor {
         settingsRepository.setRandomPlayingEnabled(!settingsRepository.isRandomPlayingEnabled());
     }
 
+    private Completable setPlayQueue(List<Composition> compositions, int firstPosition) {
+        return playQueueRepository.setPlayQueue(compositions, firstPosition)
+                .doOnComplete(this::play)
+                //fixes music gap and state blinking(prepare new queue from stop state)
+                .doOnSubscribe(o -> playerCoordinatorInteractor.setInLoadingState(LIBRARY));
+    }
+
     private void onQueueItemChanged(PlayQueueEvent compositionEvent) {
         PlayQueueItem previousItem = currentItem;
         this.currentItem = compositionEvent.getPlayQueueItem();
         if (currentItem == null) {
+            prebufferedItem = null;
+            schedulePrebufferCheck();
             if (previousItem != null) {
                 reset();
             }
@@ -317,6 +370,7 @@ public class LibraryPlayerInteractor {
                 getActualTrackPosition().subscribe(actualTrackPosition -> {
                     LibraryCompositionSource source = new LibraryCompositionSource(currentComposition, actualTrackPosition);
                     if (isFileChanged) {
+                        prebufferedItem = null;
                         playerCoordinatorInteractor.prepareToPlay(source, LIBRARY);
                         return;//and cover will be not updated, f.e.?
                     }
@@ -326,12 +380,85 @@ public class LibraryPlayerInteractor {
             return;
         }
 
+        prebufferedItem = null;
+        //position of previous item is not actual, player reports new one on preparation
+        playbackPosition = null;
+        schedulePrebufferCheck();
         playerCoordinatorInteractor.prepareToPlay(
                 new LibraryCompositionSource(currentComposition, compositionEvent.getTrackPosition()),
                 LIBRARY
         );
     }
 
+    private void onPlaybackPositionChanged(PlaybackPosition position) {
+        this.playbackPosition = position;
+        schedulePrebufferCheck();
+    }
+
+    //position is reported only on discontinuities, so wait for prebuffer time with timer
+    private void schedulePrebufferCheck() {
+        PlayQueueItem item = currentItem;
+        PlaybackPosition position = playbackPosition;
+        if (item == null || position == null) {
+            prebufferCheckDisposable.set(null);
+            return;
+        }
+        long duration = item.getComposition().getDuration();
+        if (duration <= 0) {
+            prebufferCheckDisposable.set(null);
+            return;
+        }
+        long timeToPrebuffer = duration - PREBUFFER_NEXT_ITEM_MILLIS - position.getCurrentPosition();
+        Observable<Long> checksObservable;
+        if (position.isPlaying()) {
+            long delay = (long) (Math.max(timeToPrebuffer, 0) / position.getSpeed());
+            checksObservable = Observable.interval(delay,
+                    PREBUFFER_CHECK_INTERVAL_MILLIS,
+                    TimeUnit.MILLISECONDS);
+        } else if (timeToPrebuffer <= 0) {
+            checksObservable = Observable.just(0L);
+        } else {
+            prebufferCheckDisposable.set(null);
+            return;
+        }
+        prebufferCheckDisposable.set(checksObservable.subscribe(o -> checkItemToPrebuffer(item)));
+    }
+
+    private void checkItemToPrebuffer(PlayQueueItem item) {
+        getItemToPrebuffer()
+                .doOnSuccess(nextItem -> onNextItemResolved(item, nextItem.getValue()))
+                .doOnError(analytics::processNonFatalError)
+                .onErrorComplete()
+                .subscribe();
+    }
+
+    private Single<Optional<PlayQueueItem>> getItemToPrebuffer() {
+        int repeatMode = settingsRepository.getRepeatMode();
+        if (repeatMode == RepeatMode.REPEAT_COMPOSITION) {
+            return Single.just(new Optional<>(null));
+        }
+        Single<Optional<PlayQueueItem>> nextItemSource = playQueueRepository.getNextQueueItem()
+                .map(Optional::new)
+                .defaultIfEmpty(new Optional<>(null));
+        if (repeatMode == RepeatMode.REPEAT_PLAY_LIST) {
+            return nextItemSource;
+        }
+        return playQueueRepository.isCurrentCompositionAtEndOfQueue()
+                .flatMap(isLast -> isLast? Single.just(new Optional<>(null)) : nextItemSource);
+    }
+
+    private void onNextItemResolved(PlayQueueItem item, @Nullable PlayQueueItem nextItem) {
+        if (!item.equals(currentItem) || Objects.equals(prebufferedItem, nextItem)) {
+            return;
+        }
+        prebufferedItem = nextItem;
+        CompositionSource source = null;
+        if (nextItem != null) {
+            source = new LibraryCompositionSource(nextItem.getComposition(), 0);
+        }
+        playerCoordinatorInteractor.setNextSource(source, LIBRARY);
+    }
+
     private Single<Long> getActualTrackPosition() {
         return playerCoordinatorInteractor.getActualTrackPosition(LIBRARY)
                 .map(position -> {
@@ -2,12 +2,15 @@ package com.github.anrimian.musicplayer.domain.interactors.player;
 
 import com.github.anrimian.musicplayer.domain.models.composition.source.CompositionSource;
 import com.github.anrimian.musicplayer.domain.models.composition.source.LibraryCompositionSource;
+import com.github.anrimian.musicplayer.domain.models.player.PlaybackPosition;
 import com.github.anrimian.musicplayer.domain.models.player.PlayerState;
 import com.github.anrimian.musicplayer.domain.models.player.events.PlayerEvent;
 import com.github.anrimian.musicplayer.domain.repositories.UiStateRepository;
 
 import java.util.HashMap;
 
+import javax.annotation.Nullable;
+
 import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.core.Single;
 import io.reactivex.rxjava3.subjects.BehaviorSubject;
@@ -99,6 +102,12 @@ public class PlayerCoordinatorInteractor {
         }
     }
 
+    public void setNextSource(@Nullable CompositionSource compositionSource, PlayerType playerType) {
+        if (playerType == activePlayerType) {
+            playerInteractor.setNextSource(compositionSource);
+        }
+    }
+
     public void onSeekStarted(PlayerType playerType) {
         if (activePlayerType == playerType) {
             playerInteractor.onSeekStarted();
@@ -133,6 +142,11 @@ public class PlayerCoordinatorInteractor {
                 .filter(o -> isPlayerTypeActive(playerType));
     }
 
+    public Observable<PlaybackPosition> getPlaybackPositionObservable(PlayerType playerType) {
+        return playerInteractor.getPlaybackPositionObservable()
+                .filter(o -> isPlayerTypeActive(playerType));
+    }
+
     public Observable<Long> getTrackPositionObservable(PlayerType playerType) {
         return playerInteractor.getTrackPositionObservable()
                 .filter(o -> isPlayerTypeActive(playerType));
@@ -14,6 +14,7 @@ import com.github.anrimian.musicplayer.domain.controllers.SystemMusicController;
 import com.github.anrimian.musicplayer.domain.controllers.SystemServiceController;
 import com.github.anrimian.musicplayer.domain.models.composition.source.CompositionSource;
 import com.github.anrimian.musicplayer.domain.models.player.AudioFocusEvent;
+import com.github.anrimian.musicplayer.domain.models.player.PlaybackPosition;
 import com.github.anrimian.musicplayer.domain.models.player.PlayerState;
 import com.github.anrimian.musicplayer.domain.models.player.error.ErrorType;
 import com.github.anrimian.musicplayer.domain.models.player.events.ErrorEvent;
@@ -22,6 +23,8 @@ import com.github.anrimian.musicplayer.domain.models.player.events.PreparedEvent
 import com.github.anrimian.musicplayer.domain.repositories.SettingsRepository;
 import com.github.anrimian.musicplayer.domain.utils.functions.Optional;
 
+import java.util.concurrent.TimeUnit;
+
 import javax.annotation.Nullable;
 
 import io.reactivex.rxjava3.core.Observable;
@@ -32,6 +35,8 @@ import io.reactivex.rxjava3.subjects.PublishSubject;
 
 public class PlayerInteractor {
 
+    private static final long TRACK_POSITION_TICK_MILLIS = 1000;
+
     private final MusicPlayerController musicPlayerController;
     private final SystemMusicController systemMusicController;
     private final SystemServiceController systemServiceController;
@@ -73,6 +78,10 @@ public class PlayerInteractor {
         musicPlayerController.prepareToPlay(compositionSource);
     }
 
+    void setNextSource(@Nullable CompositionSource compositionSource) {
+        musicPlayerController.setNextSource(compositionSource);
+    }
+
     public void updateSource(CompositionSource source) {
         this.currentSource = source;
         currentSourceSubject.onNext(new Optional<>(currentSource));
@@ -158,8 +167,17 @@ public class PlayerInteractor {
         musicPlayerController.seekBy(-settingsRepository.getRewindValueMillis());
     }
 
+    public Observable<PlaybackPosition> getPlaybackPositionObservable() {
+        return musicPlayerController.getPlaybackPositionObservable();
+    }
+
+    /**
+     * Extrapolated position which ticks while player is playing, for ui which shows it.
+     * Ticks only while subscribed, so subscribe only when position is visible
+     */
     public Observable<Long> getTrackPositionObservable() {
-        return musicPlayerController.getTrackPositionObservable();
+        return musicPlayerController.getPlaybackPositionObservable()
+                .switchMap(this::getTrackPositionTicks);
     }
 
     public Observable<PlayerState> getPlayerStateObservable() {
@@ -209,6 +227,14 @@ public class PlayerInteractor {
         return musicPlayerController.getCurrentPlaybackSpeedObservable();
     }
 
+    private Observable<Long> getTrackPositionTicks(PlaybackPosition position) {
+        if (!position.isPlaying()) {
+            return Observable.just(position.getPosition());
+        }
+        return Observable.interval(0, TRACK_POSITION_TICK_MILLIS, TimeUnit.MILLISECONDS)
+                .map(o -> position.getCurrentPosition());
+    }
+
     private void onMusicPlayerEventReceived(PlayerEvent playerEvent) {
         if (playerEvent instanceof PreparedEvent) {
             onCompositionPrepared();
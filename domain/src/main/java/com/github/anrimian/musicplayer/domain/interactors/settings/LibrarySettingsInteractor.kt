@@ -1,12 +1,15 @@
 package com.github.anrimian.musicplayer.domain.interactors.settings
 
+import com.github.anrimian.musicplayer.domain.models.image.ArtworkCacheStats
+import com.github.anrimian.musicplayer.domain.repositories.ArtworkCacheRepository
 import com.github.anrimian.musicplayer.domain.repositories.MediaScannerRepository
 import com.github.anrimian.musicplayer.domain.repositories.SettingsRepository
 import io.reactivex.rxjava3.core.Observable
 
 class LibrarySettingsInteractor(
     private val settingsRepository: SettingsRepository,
-    private val mediaScannerRepository: MediaScannerRepository
+    private val mediaScannerRepository: MediaScannerRepository,
+    private val artworkCacheRepository: ArtworkCacheRepository
 ) {
 
     fun getAppConfirmDeleteDialogEnabledObservable(): Observable<Boolean> = settingsRepository.appConfirmDeleteDialogEnabledObservable
@@ -34,4 +37,7 @@ class LibrarySettingsInteractor(
     fun getShowAllAudioFilesEnabledObservable(): Observable<Boolean> =
         settingsRepository.showAllAudioFilesEnabledObservable
 
+    fun getArtworkCacheStatsObservable(): Observable<ArtworkCacheStats> =
+        artworkCacheRepository.statsObservable
+
 }
\ No newline at end of file
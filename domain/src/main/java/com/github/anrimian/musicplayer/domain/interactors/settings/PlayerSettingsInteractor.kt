@@ -23,6 +23,12 @@ class PlayerSettingsInteractor(private val settingsRepository: SettingsRepositor
         settingsRepository.isPauseOnZeroVolumeLevelEnabled = enabled
     }
 
+    fun isLoudnessNormalizationEnabled() = settingsRepository.isLoudnessNormalizationEnabled
+
+    fun setLoudnessNormalizationEnabled(enabled: Boolean) {
+        settingsRepository.isLoudnessNormalizationEnabled = enabled
+    }
+
     fun getSelectedEqualizerTypeObservable(): Observable<Int> = settingsRepository.selectedEqualizerTypeObservable
 
     fun getEnabledMediaPlayers(): IntArray = settingsRepository.enabledMediaPlayers
@@ -1,22 +1,33 @@
 package com.github.anrimian.musicplayer.domain.models.composition.source;
 
+import javax.annotation.Nullable;
+
 public class CompositionSourceTags {
     private final String title;
     private final String artist;
     private final String album;
     private final String albumArtist;
     private final String lyrics;
+    //replay gain in dB, relative to -18 LUFS reference
+    @Nullable
+    private final Float trackGain;
+    @Nullable
+    private final Float trackPeak;
 
     public CompositionSourceTags(String title,
                                  String artist,
                                  String album,
                                  String albumArtist,
-                                 String lyrics) {
+                                 String lyrics,
+                                 @Nullable Float trackGain,
+                                 @Nullable Float trackPeak) {
         this.title = title;
         this.artist = artist;
         this.album = album;
         this.albumArtist = albumArtist;
         this.lyrics = lyrics;
+        this.trackGain = trackGain;
+        this.trackPeak = trackPeak;
     }
 
     public String getTitle() {
@@ -38,4 +49,14 @@ public class CompositionSourceTags {
     public String getLyrics() {
         return lyrics;
     }
+
+    @Nullable
+    public Float getTrackGain() {
+        return trackGain;
+    }
+
+    @Nullable
+    public Float getTrackPeak() {
+        return trackPeak;
+    }
 }
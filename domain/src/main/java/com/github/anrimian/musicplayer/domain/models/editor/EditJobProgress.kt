@@ -0,0 +1,12 @@
+package com.github.anrimian.musicplayer.domain.models.editor
+
+/**
+ * Summary progress of running bulk edits, all zero when nothing is edited
+ */
+data class EditJobProgress(
+    val totalFiles: Int,
+    val editedFiles: Int,
+    val filesPerSecond: Float
+) {
+    fun isActive() = editedFiles < totalFiles
+}
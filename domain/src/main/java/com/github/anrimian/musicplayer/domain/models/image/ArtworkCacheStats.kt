@@ -0,0 +1,8 @@
+package com.github.anrimian.musicplayer.domain.models.image
+
+data class ArtworkCacheStats(
+    val sizeBytes: Long,
+    val filesCount: Int,
+    val hits: Long,
+    val misses: Long
+)
@@ -0,0 +1,72 @@
+package com.github.anrimian.musicplayer.domain.models.player;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Player position at the moment of last discontinuity: play, pause, seek, speed or track change.
+ * Players publish it only on discontinuities, position between them is extrapolated from
+ * update time and speed.
+ * Update time is taken from monotonic clock, see {@link #getCurrentTime()}.
+ */
+public class PlaybackPosition {
+
+    private final long position;
+    private final long updateTime;
+    private final float speed;
+    private final boolean isPlaying;
+
+    public PlaybackPosition(long position, float speed, boolean isPlaying) {
+        this(position, getCurrentTime(), speed, isPlaying);
+    }
+
+    public PlaybackPosition(long position, long updateTime, float speed, boolean isPlaying) {
+        this.position = position;
+        this.updateTime = updateTime;
+        this.speed = speed;
+        this.isPlaying = isPlaying;
+    }
+
+    public static long getCurrentTime() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public long getUpdateTime() {
+        return updateTime;
+    }
+
+    public float getSpeed() {
+        return speed;
+    }
+
+    public boolean isPlaying() {
+        return isPlaying;
+    }
+
+    public long getCurrentPosition() {
+        return getPosition(getCurrentTime());
+    }
+
+    /**
+     * @return position extrapolated to given time, not changed if player is paused
+     */
+    public long getPosition(long currentTime) {
+        if (!isPlaying || currentTime <= updateTime) {
+            return position;
+        }
+        return position + (long) ((currentTime - updateTime) * speed);
+    }
+
+    @Override
+    public String toString() {
+        return "PlaybackPosition{" +
+                "position=" + position +
+                ", updateTime=" + updateTime +
+                ", speed=" + speed +
+                ", isPlaying=" + isPlaying +
+                '}';
+    }
+}
@@ -4,4 +4,9 @@ import com.github.anrimian.musicplayer.domain.models.composition.FullComposition
 
 sealed interface FileScannerState
 object Idle: FileScannerState
-data class Running(val composition: FullComposition): FileScannerState
\ No newline at end of file
+data class Running(
+    val composition: FullComposition,
+    val scannedFiles: Int = 0,
+    val processedFilesSize: Long = 0,
+    val filesPerSecond: Float = 0f
+): FileScannerState
\ No newline at end of file
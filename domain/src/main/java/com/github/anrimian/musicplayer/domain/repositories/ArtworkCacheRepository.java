@@ -0,0 +1,10 @@
+package com.github.anrimian.musicplayer.domain.repositories;
+
+import com.github.anrimian.musicplayer.domain.models.image.ArtworkCacheStats;
+
+import io.reactivex.rxjava3.core.Observable;
+
+public interface ArtworkCacheRepository {
+
+    Observable<ArtworkCacheStats> getStatsObservable();
+}
@@ -1,6 +1,7 @@
 package com.github.anrimian.musicplayer.domain.repositories;
 
 import com.github.anrimian.musicplayer.domain.models.composition.FullComposition;
+import com.github.anrimian.musicplayer.domain.models.editor.EditJobProgress;
 import com.github.anrimian.musicplayer.domain.models.folders.FileSource;
 import com.github.anrimian.musicplayer.domain.models.genres.ShortGenre;
 import com.github.anrimian.musicplayer.domain.models.image.ImageSource;
@@ -10,6 +11,7 @@ import java.util.Collection;
 import javax.annotation.Nullable;
 
 import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.core.Single;
 
 public interface EditorRepository {
@@ -61,4 +63,6 @@ public interface EditorRepository {
     Completable removeCompositionAlbumArt(FullComposition composition);
 
     Completable updateTagsFromSource(FullComposition fullComposition);
+
+    Observable<EditJobProgress> getEditJobProgressObservable();
 }
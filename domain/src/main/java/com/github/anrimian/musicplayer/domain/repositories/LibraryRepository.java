@@ -10,6 +10,7 @@ import com.github.anrimian.musicplayer.domain.models.folders.FolderFileSource;
 import com.github.anrimian.musicplayer.domain.models.folders.IgnoredFolder;
 import com.github.anrimian.musicplayer.domain.models.genres.Genre;
 import com.github.anrimian.musicplayer.domain.models.genres.ShortGenre;
+import com.github.anrimian.musicplayer.domain.utils.paging.PageSource;
 
 import java.util.List;
 
@@ -27,12 +28,18 @@ public interface LibraryRepository {
 
     Observable<List<Composition>> getAllCompositionsObservable(@Nullable String searchText);
 
+    Observable<PageSource<Composition>> getAllCompositionsPageSourceObservable(@Nullable String searchText);
+
     Observable<FullComposition> getCompositionObservable(long id);
 
     Observable<List<Artist>> getArtistsObservable(@Nullable String searchText);
 
+    Observable<PageSource<Artist>> getArtistsPageSourceObservable(@Nullable String searchText);
+
     Observable<List<Album>> getAlbumsObservable(@Nullable String searchText);
 
+    Observable<PageSource<Album>> getAlbumsPageSourceObservable(@Nullable String searchText);
+
     Observable<List<Genre>> getGenresObservable(@Nullable String searchText);
 
     Observable<List<ShortGenre>> getShortGenresInComposition(long compositionId);
@@ -58,12 +65,25 @@ public interface LibraryRepository {
     Observable<List<FileSource>> getFoldersInFolder(@Nullable Long folderId,
                                                     @Nullable String searchQuery);
 
+    Observable<PageSource<FileSource>> getFilesPageSourceObservable(@Nullable Long folderId,
+                                                                    @Nullable String searchQuery);
+
     Observable<FolderFileSource> getFolderObservable(long folderId);
 
     Single<List<Composition>> getAllCompositionsInFolder(@Nullable Long folderId);
 
     Single<List<Composition>> getAllCompositionsInFolders(Iterable<FileSource> fileSources);
 
+    /**
+     * Same as {@link #getAllCompositionsInFolder(Long)}, but emits result in pages in play order
+     */
+    Observable<List<Composition>> getAllCompositionsInFolderPages(@Nullable Long folderId);
+
+    /**
+     * Same as {@link #getAllCompositionsInFolders(Iterable)}, but emits result in pages in play order
+     */
+    Observable<List<Composition>> getAllCompositionsInFoldersPages(Iterable<FileSource> fileSources);
+
     Completable writeErrorAboutComposition(CorruptionType errorType, Composition composition);
 
     Completable deleteComposition(Composition composition);
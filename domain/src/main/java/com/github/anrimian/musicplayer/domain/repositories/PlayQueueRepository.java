@@ -8,6 +8,7 @@ import java.util.List;
 
 import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Maybe;
 import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.core.Single;
 
@@ -30,6 +31,11 @@ public interface PlayQueueRepository {
 
     Single<Integer> skipToNext();
 
+    /**
+     * @return item which will be current after {@link #skipToNext()}, without changing current item
+     */
+    Maybe<PlayQueueItem> getNextQueueItem();
+
     void skipToPrevious();
 
     void skipToItem(long itemId);
@@ -132,6 +132,12 @@ public interface SettingsRepository {
 
     boolean isPauseOnZeroVolumeLevelEnabled();
 
+    void setLoudnessNormalizationEnabled(boolean enabled);
+
+    boolean isLoudnessNormalizationEnabled();
+
+    Observable<Boolean> getLoudnessNormalizationEnabledObservable();
+
     Observable<Boolean> getDisplayFileNameObservable();
 
     void setDisplayFileName(boolean displayFileName);
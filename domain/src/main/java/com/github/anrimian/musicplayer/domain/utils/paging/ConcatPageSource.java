@@ -0,0 +1,96 @@
+package com.github.anrimian.musicplayer.domain.utils.paging;
+
+import com.github.anrimian.musicplayer.domain.utils.functions.Mapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.rxjava3.core.Observable;
+
+/**
+ * Items of first source, then items of second source
+ */
+public class ConcatPageSource<T> implements PageSource<T> {
+
+    private final PageSource<T> first;
+    private final PageSource<T> second;
+    private final Mapper<T, Boolean> isFirstSourceItem;
+
+    public ConcatPageSource(PageSource<T> first,
+                            PageSource<T> second,
+                            Mapper<T, Boolean> isFirstSourceItem) {
+        this.first = first;
+        this.second = second;
+        this.isFirstSourceItem = isFirstSourceItem;
+    }
+
+    @Override
+    public int getCount() {
+        return first.getCount() + second.getCount();
+    }
+
+    @Override
+    public List<T> loadRange(int offset, int limit) {
+        int firstCount = first.getCount();
+        List<T> result = new ArrayList<>(limit);
+        if (offset < firstCount) {
+            result.addAll(first.loadRange(offset, Math.min(limit, firstCount - offset)));
+        }
+        int rest = limit - result.size();
+        if (rest > 0) {
+            result.addAll(second.loadRange(Math.max(0, offset - firstCount), rest));
+        }
+        return result;
+    }
+
+    @Override
+    public List<T> loadAfter(T item, int limit) {
+        if (!isFirstSourceItem.map(item)) {
+            return second.loadAfter(item, limit);
+        }
+        List<T> result = new ArrayList<>(first.loadAfter(item, limit));
+        int rest = limit - result.size();
+        //short result also means that item is not found, then page is not continued
+        if (rest > 0 && isLastItem(first, result.isEmpty()? item : result.get(result.size() - 1))) {
+            result.addAll(second.loadRange(0, rest));
+        }
+        return result;
+    }
+
+    @Override
+    public List<T> loadBefore(T item, int limit) {
+        if (isFirstSourceItem.map(item)) {
+            return first.loadBefore(item, limit);
+        }
+        List<T> items = second.loadBefore(item, limit);
+        int rest = limit - items.size();
+        if (rest > 0 && isFirstItem(second, items.isEmpty()? item : items.get(0))) {
+            int firstCount = first.getCount();
+            int offset = Math.max(0, firstCount - rest);
+            List<T> result = new ArrayList<>(first.loadRange(offset, firstCount - offset));
+            result.addAll(items);
+            return result;
+        }
+        return items;
+    }
+
+    @Override
+    public Observable<Object> getInvalidationObservable() {
+        return Observable.merge(first.getInvalidationObservable(),
+                second.getInvalidationObservable());
+    }
+
+    private boolean isLastItem(PageSource<T> source, T item) {
+        int count = source.getCount();
+        if (count == 0) {
+            return false;
+        }
+        List<T> lastItems = source.loadRange(count - 1, 1);
+        return !lastItems.isEmpty() && lastItems.get(0).equals(item);
+    }
+
+    private boolean isFirstItem(PageSource<T> source, T item) {
+        List<T> firstItems = source.loadRange(0, 1);
+        return !firstItems.isEmpty() && firstItems.get(0).equals(item);
+    }
+}
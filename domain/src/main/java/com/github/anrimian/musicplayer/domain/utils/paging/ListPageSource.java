@@ -0,0 +1,55 @@
+package com.github.anrimian.musicplayer.domain.utils.paging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import io.reactivex.rxjava3.core.Observable;
+
+/**
+ * Page source of list which is already in memory
+ */
+public class ListPageSource<T> implements PageSource<T> {
+
+    private final List<T> items;
+
+    public ListPageSource(List<T> items) {
+        this.items = items;
+    }
+
+    @Override
+    public int getCount() {
+        return items.size();
+    }
+
+    @Override
+    public List<T> loadRange(int offset, int limit) {
+        int from = Math.min(offset, items.size());
+        int to = Math.min(offset + limit, items.size());
+        return new ArrayList<>(items.subList(from, to));
+    }
+
+    @Override
+    public List<T> loadAfter(T item, int limit) {
+        int index = items.indexOf(item);
+        if (index == -1) {
+            return Collections.emptyList();
+        }
+        return loadRange(index + 1, limit);
+    }
+
+    @Override
+    public List<T> loadBefore(T item, int limit) {
+        int index = items.indexOf(item);
+        if (index == -1) {
+            return Collections.emptyList();
+        }
+        int from = Math.max(0, index - limit);
+        return loadRange(from, index - from);
+    }
+
+    @Override
+    public Observable<Object> getInvalidationObservable() {
+        return Observable.never();
+    }
+}
@@ -0,0 +1,60 @@
+package com.github.anrimian.musicplayer.domain.utils.paging;
+
+import com.github.anrimian.musicplayer.domain.utils.changes.ChangeType;
+
+/**
+ * Change of range of list positions
+ */
+public class ListUpdate {
+
+    private final ChangeType type;
+    private final int position;
+    private final int count;
+
+    public ListUpdate(ChangeType type, int position, int count) {
+        this.type = type;
+        this.position = position;
+        this.count = count;
+    }
+
+    public ChangeType getType() {
+        return type;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        ListUpdate that = (ListUpdate) o;
+
+        if (position != that.position) return false;
+        if (count != that.count) return false;
+        return type == that.type;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = type.hashCode();
+        result = 31 * result + position;
+        result = 31 * result + count;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "ListUpdate{" +
+                "type=" + type +
+                ", position=" + position +
+                ", count=" + count +
+                '}';
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.anrimian.musicplayer.domain.utils.paging;
+
+import static com.github.anrimian.musicplayer.domain.utils.ListUtils.mapList;
+
+import com.github.anrimian.musicplayer.domain.utils.functions.Mapper;
+
+import java.util.List;
+
+import io.reactivex.rxjava3.core.Observable;
+
+/**
+ * Page source of items which wrap items of another source
+ */
+public class MappedPageSource<S, T> implements PageSource<T> {
+
+    private final PageSource<S> source;
+    private final Mapper<S, T> mapper;
+    private final Mapper<T, S> sourceItemMapper;
+
+    /**
+     * @param sourceItemMapper extracts source item for keyset loading
+     */
+    public MappedPageSource(PageSource<S> source, Mapper<S, T> mapper, Mapper<T, S> sourceItemMapper) {
+        this.source = source;
+        this.mapper = mapper;
+        this.sourceItemMapper = sourceItemMapper;
+    }
+
+    @Override
+    public int getCount() {
+        return source.getCount();
+    }
+
+    @Override
+    public List<T> loadRange(int offset, int limit) {
+        return mapList(source.loadRange(offset, limit), mapper::map);
+    }
+
+    @Override
+    public List<T> loadAfter(T item, int limit) {
+        return mapList(source.loadAfter(sourceItemMapper.map(item), limit), mapper::map);
+    }
+
+    @Override
+    public List<T> loadBefore(T item, int limit) {
+        return mapList(source.loadBefore(sourceItemMapper.map(item), limit), mapper::map);
+    }
+
+    @Override
+    public Observable<Object> getInvalidationObservable() {
+        return source.getInvalidationObservable();
+    }
+}
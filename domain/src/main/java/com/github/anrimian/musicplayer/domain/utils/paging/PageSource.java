@@ -0,0 +1,32 @@
+package com.github.anrimian.musicplayer.domain.utils.paging;
+
+import java.util.List;
+
+import io.reactivex.rxjava3.core.Observable;
+
+/**
+ * Sorted list which is loaded by pages, see {@link PagedList}.
+ * Load methods are blocking and are called on fetch scheduler.
+ */
+public interface PageSource<T> {
+
+    int getCount();
+
+    List<T> loadRange(int offset, int limit);
+
+    /**
+     * @return items which go after item, or less items if item is not found in source
+     */
+    List<T> loadAfter(T item, int limit);
+
+    /**
+     * @return items which go before item, in list order, or less items if item is not
+     * found in source
+     */
+    List<T> loadBefore(T item, int limit);
+
+    /**
+     * @return emits when data of source is changed
+     */
+    Observable<Object> getInvalidationObservable();
+}
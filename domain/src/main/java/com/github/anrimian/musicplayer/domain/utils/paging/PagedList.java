@@ -0,0 +1,583 @@
+package com.github.anrimian.musicplayer.domain.utils.paging;
+
+import com.github.anrimian.musicplayer.domain.utils.changes.ChangeType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.disposables.CompositeDisposable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import io.reactivex.rxjava3.subjects.CompletableSubject;
+import io.reactivex.rxjava3.subjects.PublishSubject;
+
+/**
+ * List of {@link PageSource} items which keeps in memory only pages around accessed positions.
+ * <p>
+ * Page is loaded by keyset from its loaded neighbour page, or by offset when there is no
+ * loaded neighbour, e.g. after fast scroll. Count of cached pages is bounded, least recently
+ * used pages are dropped. Not loaded items are returned as null placeholders and
+ * {@link ListUpdate} is emitted when they are loaded.
+ * <p>
+ * When source is changed, only pages around last accessed position are reloaded and changes
+ * are emitted as ranges, so whole list is never loaded or diffed.
+ * <p>
+ * Methods must be called on notify scheduler thread.
+ */
+public class PagedList<T> {
+
+    public static final int PAGE_SIZE = 50;
+    public static final int MAX_CACHED_PAGES = 10;
+
+    //pages loaded before and after accessed page
+    private static final int PREFETCH_PAGES = 1;
+    //for full list loading, keeps count of queries low
+    private static final int ALL_ITEMS_PAGE_SIZE = 500;
+
+    private final PageSource<T> source;
+    private final ContentComparator<T> contentComparator;
+    private final int pageSize;
+    private final int maxCachedPages;
+    private final Scheduler fetchScheduler;
+    private final Scheduler notifyScheduler;
+
+    //access order, least recently used page goes first
+    private final LinkedHashMap<Integer, List<T>> pages = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<Integer> loadingPages = new HashSet<>();
+
+    private final PublishSubject<ListUpdate> updatesSubject = PublishSubject.create();
+    private final PublishSubject<Throwable> errorSubject = PublishSubject.create();
+    private final CompletableSubject loadedSubject = CompletableSubject.create();
+
+    private final CompositeDisposable pagesDisposable = new CompositeDisposable();
+    private final CompositeDisposable windowDisposable = new CompositeDisposable();
+
+    private int size;
+    private int lastAccessedPosition;
+    //incremented on window reload, pages loaded from previous data are ignored
+    private int generation;
+    private boolean isReloading;
+    private boolean hasPendingReload;
+
+    /**
+     * @param initialPosition position around which first pages are loaded, e.g. restored
+     *                        list position
+     * @return list when its first pages are loaded. Source changes are applied to the same
+     * list, new list is emitted only on resubscription
+     */
+    public static <T> Observable<PagedList<T>> observe(PageSource<T> source,
+                                                       ContentComparator<T> contentComparator,
+                                                       int initialPosition,
+                                                       Scheduler fetchScheduler,
+                                                       Scheduler notifyScheduler) {
+        return observe(source,
+                contentComparator,
+                initialPosition,
+                PAGE_SIZE,
+                MAX_CACHED_PAGES,
+                fetchScheduler,
+                notifyScheduler);
+    }
+
+    static <T> Observable<PagedList<T>> observe(PageSource<T> source,
+                                                ContentComparator<T> contentComparator,
+                                                int initialPosition,
+                                                int pageSize,
+                                                int maxCachedPages,
+                                                Scheduler fetchScheduler,
+                                                Scheduler notifyScheduler) {
+        return Observable.defer(() -> {
+            PagedList<T> list = new PagedList<>(source,
+                    contentComparator,
+                    pageSize,
+                    maxCachedPages,
+                    fetchScheduler,
+                    notifyScheduler);
+            list.lastAccessedPosition = Math.max(0, initialPosition);
+
+            //subscribed before the first load, so changes made during it are not missed
+            Observable<PagedList<T>> invalidations = source.getInvalidationObservable()
+                    .observeOn(notifyScheduler)
+                    .doOnNext(o -> list.invalidate())
+                    .ignoreElements()
+                    .toObservable();
+            Observable<PagedList<T>> errors = list.errorSubject.flatMap(Observable::error);
+            Observable<PagedList<T>> firstLoad = Completable.fromAction(list::reloadWindow)
+                    .andThen(list.loadedSubject)
+                    .andThen(Observable.just(list));
+            return Observable.merge(invalidations, errors, firstLoad)
+                    .doFinally(list::release);
+        }).subscribeOn(notifyScheduler);
+    }
+
+    /**
+     * @return list which is fully loaded from memory, for small lists
+     */
+    public static <T> PagedList<T> fromList(List<T> items) {
+        PagedList<T> list = new PagedList<>(new ListPageSource<>(items),
+                Object::equals,
+                Math.max(1, items.size()),
+                1,
+                Schedulers.trampoline(),
+                Schedulers.trampoline());
+        list.size = items.size();
+        if (!items.isEmpty()) {
+            list.pages.put(0, items);
+        }
+        list.loadedSubject.onComplete();
+        return list;
+    }
+
+    public static <T> PagedList<T> empty() {
+        return fromList(Collections.emptyList());
+    }
+
+    PagedList(PageSource<T> source,
+              ContentComparator<T> contentComparator,
+              int pageSize,
+              int maxCachedPages,
+              Scheduler fetchScheduler,
+              Scheduler notifyScheduler) {
+        this.source = source;
+        this.contentComparator = contentComparator;
+        this.pageSize = pageSize;
+        this.maxCachedPages = maxCachedPages;
+        this.fetchScheduler = fetchScheduler;
+        this.notifyScheduler = notifyScheduler;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return item, or null if its page is not loaded yet. Page loading is started then
+     */
+    @Nullable
+    public T get(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("position: " + position + ", size: " + size);
+        }
+        loadAround(position);
+        return peek(position);
+    }
+
+    public void loadAround(int position) {
+        lastAccessedPosition = position;
+        if (isReloading) {
+            return;
+        }
+        int pageIndex = position / pageSize;
+        loadPage(pageIndex);
+        for (int i = 1; i <= PREFETCH_PAGES; i++) {
+            loadPage(pageIndex + i);
+            loadPage(pageIndex - i);
+        }
+    }
+
+    /**
+     * @return emits after state of list is changed
+     */
+    public Observable<ListUpdate> getUpdatesObservable() {
+        return updatesSubject;
+    }
+
+    public boolean isFullyLoaded() {
+        return pages.size() == getPagesCount(size);
+    }
+
+    /**
+     * @return all items, or null if list is not fully loaded
+     */
+    @Nullable
+    public List<T> toList() {
+        if (!isFullyLoaded()) {
+            return null;
+        }
+        List<T> result = new ArrayList<>(size);
+        for (int i = 0, count = getPagesCount(size); i < count; i++) {
+            result.addAll(pages.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Loads all items from source by keyset pages, without caching them
+     */
+    public Observable<List<T>> loadAllPages() {
+        List<T> items = toList();
+        if (items != null) {
+            return Observable.just(items);
+        }
+        return Observable.<List<T>>create(emitter -> {
+            List<T> page = source.loadRange(0, ALL_ITEMS_PAGE_SIZE);
+            while (!page.isEmpty() && !emitter.isDisposed()) {
+                emitter.onNext(page);
+                if (page.size() < ALL_ITEMS_PAGE_SIZE) {
+                    break;
+                }
+                page = source.loadAfter(page.get(page.size() - 1), ALL_ITEMS_PAGE_SIZE);
+            }
+            emitter.onComplete();
+        }).subscribeOn(fetchScheduler);
+    }
+
+    public Single<List<T>> loadAll() {
+        return loadAllPages().collect(ArrayList::new, List::addAll);
+    }
+
+    int getLoadedItemsCount() {
+        int count = 0;
+        for (List<T> page: pages.values()) {
+            count += page.size();
+        }
+        return count;
+    }
+
+    void invalidate() {
+        if (isReloading) {
+            hasPendingReload = true;
+            return;
+        }
+        reloadWindow();
+    }
+
+    private void release() {
+        pagesDisposable.dispose();
+        windowDisposable.dispose();
+    }
+
+    @Nullable
+    private T peek(int position) {
+        List<T> page = pages.get(position / pageSize);
+        if (page == null) {
+            return null;
+        }
+        int index = position % pageSize;
+        return index < page.size()? page.get(index) : null;
+    }
+
+    private void loadPage(int pageIndex) {
+        if (pageIndex < 0
+                || pageIndex >= getPagesCount(size)
+                || pages.containsKey(pageIndex)
+                || loadingPages.contains(pageIndex)) {
+            return;
+        }
+        loadingPages.add(pageIndex);
+
+        int offset = pageIndex * pageSize;
+        int limit = Math.min(pageSize, size - offset);
+        //last item of previous page is anchor only if it is on its position
+        List<T> previousPage = pages.get(pageIndex - 1);
+        List<T> nextPage = pages.get(pageIndex + 1);
+        T after = previousPage != null && previousPage.size() == pageSize?
+                previousPage.get(pageSize - 1) : null;
+        T before = nextPage != null && !nextPage.isEmpty()? nextPage.get(0) : null;
+
+        int generation = this.generation;
+        pagesDisposable.add(Single.fromCallable(() -> fetchPage(offset, limit, after, before))
+                .subscribeOn(fetchScheduler)
+                .observeOn(notifyScheduler)
+                .subscribe(items -> onPageLoaded(generation, pageIndex, items),
+                        throwable -> onPageLoadingError(generation, pageIndex, throwable)));
+    }
+
+    //on fetch scheduler
+    private List<T> fetchPage(int offset, int limit, @Nullable T after, @Nullable T before) {
+        List<T> items = null;
+        if (after != null) {
+            items = source.loadAfter(after, limit);
+        } else if (before != null) {
+            items = source.loadBefore(before, limit);
+        }
+        //no loaded neighbour or anchor was changed, then position of keyset page is unknown
+        if (items == null || items.size() != limit) {
+            items = source.loadRange(offset, limit);
+        }
+        return items;
+    }
+
+    private void onPageLoaded(int generation, int pageIndex, List<T> items) {
+        if (generation != this.generation) {
+            return;
+        }
+        loadingPages.remove(pageIndex);
+        pages.put(pageIndex, items);
+        trimCache();
+
+        int position = pageIndex * pageSize;
+        int count = Math.min(items.size(), size - position);
+        if (count > 0) {
+            updatesSubject.onNext(new ListUpdate(ChangeType.MODIFY, position, count));
+        }
+    }
+
+    private void onPageLoadingError(int generation, int pageIndex, Throwable throwable) {
+        if (generation != this.generation) {
+            return;
+        }
+        loadingPages.remove(pageIndex);
+        errorSubject.onNext(throwable);
+    }
+
+    private void trimCache() {
+        int currentPage = lastAccessedPosition / pageSize;
+        Iterator<Map.Entry<Integer, List<T>>> iterator = pages.entrySet().iterator();
+        while (pages.size() > maxCachedPages && iterator.hasNext()) {
+            int pageIndex = iterator.next().getKey();
+            if (Math.abs(pageIndex - currentPage) > PREFETCH_PAGES) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private void reloadWindow() {
+        isReloading = true;
+        generation++;
+        loadingPages.clear();
+        pagesDisposable.clear();
+
+        int currentPage = lastAccessedPosition / pageSize;
+        int firstPage = Math.max(0, currentPage - PREFETCH_PAGES);
+        int lastPage = currentPage + PREFETCH_PAGES;
+        windowDisposable.clear();
+        windowDisposable.add(Single.fromCallable(() -> fetchWindow(firstPage, lastPage))
+                .subscribeOn(fetchScheduler)
+                .observeOn(notifyScheduler)
+                .subscribe(this::onWindowLoaded, this::onWindowLoadingError));
+    }
+
+    //on fetch scheduler
+    private Window<T> fetchWindow(int firstPage, int lastPage) {
+        int count = source.getCount();
+        int lastAvailablePage = Math.max(0, getPagesCount(count) - 1);
+        int from = firstPage;
+        int to = Math.min(lastPage, lastAvailablePage);
+        //list became shorter, window is moved to its end
+        if (from > lastAvailablePage) {
+            from = Math.max(0, lastAvailablePage - (lastPage - firstPage));
+            to = lastAvailablePage;
+        }
+
+        List<List<T>> pages = new ArrayList<>();
+        List<T> previousPage = null;
+        for (int pageIndex = from; pageIndex <= to; pageIndex++) {
+            int offset = pageIndex * pageSize;
+            if (offset >= count) {
+                break;
+            }
+            T after = previousPage != null && previousPage.size() == pageSize?
+                    previousPage.get(pageSize - 1) : null;
+            previousPage = fetchPage(offset, Math.min(pageSize, count - offset), after, null);
+            pages.add(previousPage);
+        }
+        return new Window<>(count, from, lastPage, pages);
+    }
+
+    private void onWindowLoaded(Window<T> window) {
+        isReloading = false;
+
+        int oldSize = size;
+        int start = window.firstPage * pageSize;
+        int oldEnd = Math.max(start, Math.min(oldSize, (window.lastPage + 1) * pageSize));
+        List<T> oldItems = new ArrayList<>(oldEnd - start);
+        for (int i = start; i < oldEnd; i++) {
+            oldItems.add(peek(i));
+        }
+        List<T> newItems = new ArrayList<>();
+        pages.clear();
+        for (int i = 0; i < window.pages.size(); i++) {
+            List<T> page = window.pages.get(i);
+            pages.put(window.firstPage + i, page);
+            newItems.addAll(page);
+        }
+        size = window.count;
+
+        for (ListUpdate update: calculateUpdates(start, oldItems, newItems, oldSize, size)) {
+            updatesSubject.onNext(update);
+        }
+        loadedSubject.onComplete();
+
+        if (hasPendingReload) {
+            hasPendingReload = false;
+            reloadWindow();
+            return;
+        }
+        //position could be changed during reload
+        if (size > 0) {
+            loadAround(Math.min(lastAccessedPosition, size - 1));
+        }
+    }
+
+    private void onWindowLoadingError(Throwable throwable) {
+        isReloading = false;
+        hasPendingReload = false;
+        errorSubject.onNext(throwable);
+    }
+
+    /**
+     * Changes in window are found by common prefix and single shift after it, it is exact for
+     * single insertion or removal of items range. Items out of window are not loaded, so only
+     * change of their count is known.
+     */
+    private List<ListUpdate> calculateUpdates(int start,
+                                              List<T> oldItems,
+                                              List<T> newItems,
+                                              int oldSize,
+                                              int newSize) {
+        List<ListUpdate> updates = new ArrayList<>();
+        if (start > oldSize) {
+            int commonCount = Math.min(oldSize, newSize);
+            addUpdate(updates, ChangeType.MODIFY, 0, commonCount);
+            addSizeUpdate(updates, commonCount, newSize - oldSize);
+            return updates;
+        }
+        int oldCount = oldItems.size();
+        int newCount = newItems.size();
+        int minCount = Math.min(oldCount, newCount);
+
+        int prefix = 0;
+        while (prefix < minCount && areItemsTheSame(oldItems.get(prefix), newItems.get(prefix))) {
+            prefix++;
+        }
+        addContentUpdates(updates, start, oldItems, 0, newItems, 0, prefix);
+
+        int currentSize = oldSize;
+        int oldFrom = prefix;
+        int newFrom = prefix;
+        int shift = findShift(oldItems, newItems, prefix);
+        if (shift > 0) {
+            addUpdate(updates, ChangeType.ADDED, start + prefix, shift);
+            currentSize += shift;
+            newFrom += shift;
+        } else if (shift < 0) {
+            addUpdate(updates, ChangeType.DELETED, start + prefix, -shift);
+            currentSize += shift;
+            oldFrom -= shift;
+        }
+
+        int alignedCount = Math.min(oldCount - oldFrom, newCount - newFrom);
+        addContentUpdates(updates, start, oldItems, oldFrom, newItems, newFrom, alignedCount);
+
+        //not aligned items of new window and stale items of old window
+        int tailStart = start + newFrom + alignedCount;
+        int tailEnd = Math.max(start + newCount, start + newFrom + oldCount - oldFrom);
+        int tailCount = Math.min(tailEnd, Math.min(currentSize, newSize)) - tailStart;
+        addUpdate(updates, ChangeType.MODIFY, tailStart, tailCount);
+
+        addSizeUpdate(updates, Math.min(start + newCount, currentSize), newSize - currentSize);
+        return updates;
+    }
+
+    /**
+     * @return count of items inserted (positive) or removed (negative) at position
+     */
+    private int findShift(List<T> oldItems, List<T> newItems, int position) {
+        if (position >= oldItems.size() || position >= newItems.size()) {
+            return 0;
+        }
+        int inserted = indexOf(newItems, oldItems.get(position), position) - position;
+        int removed = indexOf(oldItems, newItems.get(position), position) - position;
+        if (inserted > 0 && (removed <= 0 || inserted <= removed)) {
+            return inserted;
+        }
+        if (removed > 0) {
+            return -removed;
+        }
+        return 0;
+    }
+
+    private int indexOf(List<T> items, @Nullable T item, int from) {
+        for (int i = from; i < items.size(); i++) {
+            if (areItemsTheSame(item, items.get(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    //items are compared also by identity, so replaced items are updated too
+    private void addContentUpdates(List<ListUpdate> updates,
+                                   int start,
+                                   List<T> oldItems,
+                                   int oldFrom,
+                                   List<T> newItems,
+                                   int newFrom,
+                                   int count) {
+        for (int i = 0; i < count; i++) {
+            T oldItem = oldItems.get(oldFrom + i);
+            T newItem = newItems.get(newFrom + i);
+            if (!areItemsTheSame(oldItem, newItem)
+                    || !contentComparator.areContentsTheSame(oldItem, newItem)) {
+                addUpdate(updates, ChangeType.MODIFY, start + newFrom + i, 1);
+            }
+        }
+    }
+
+    private void addSizeUpdate(List<ListUpdate> updates, int position, int delta) {
+        if (delta > 0) {
+            addUpdate(updates, ChangeType.ADDED, position, delta);
+        } else if (delta < 0) {
+            addUpdate(updates, ChangeType.DELETED, position, -delta);
+        }
+    }
+
+    //merges adjacent changes of contents
+    private void addUpdate(List<ListUpdate> updates, ChangeType type, int position, int count) {
+        if (count <= 0) {
+            return;
+        }
+        if (type == ChangeType.MODIFY && !updates.isEmpty()) {
+            int lastIndex = updates.size() - 1;
+            ListUpdate last = updates.get(lastIndex);
+            if (last.getType() == ChangeType.MODIFY
+                    && last.getPosition() + last.getCount() == position) {
+                updates.set(lastIndex, new ListUpdate(type, last.getPosition(), last.getCount() + count));
+                return;
+            }
+        }
+        updates.add(new ListUpdate(type, position, count));
+    }
+
+    private boolean areItemsTheSame(@Nullable T first, @Nullable T second) {
+        return first != null && first.equals(second);
+    }
+
+    private int getPagesCount(int size) {
+        return (size + pageSize - 1) / pageSize;
+    }
+
+    public interface ContentComparator<T> {
+        boolean areContentsTheSame(T oldItem, T newItem);
+    }
+
+    private static class Window<T> {
+        final int count;
+        final int firstPage;
+        final int lastPage;
+        final List<List<T>> pages;
+
+        Window(int count, int firstPage, int lastPage, List<List<T>> pages) {
+            this.count = count;
+            this.firstPage = firstPage;
+            this.lastPage = lastPage;
+            this.pages = pages;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.github.anrimian.musicplayer.domain.interactors.player;
 
+import static com.github.anrimian.musicplayer.domain.Constants.NO_POSITION;
 import static com.github.anrimian.musicplayer.domain.interactors.TestBusinessDataProvider.currentItem;
 import static com.github.anrimian.musicplayer.domain.interactors.TestBusinessDataProvider.fakeCompositionSource;
 import static com.github.anrimian.musicplayer.domain.interactors.TestBusinessDataProvider.getFakeCompositions;
@@ -10,13 +11,18 @@ import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.github.anrimian.musicplayer.domain.interactors.analytics.Analytics;
+import com.github.anrimian.musicplayer.domain.models.composition.Composition;
 import com.github.anrimian.musicplayer.domain.models.composition.CorruptionType;
 import com.github.anrimian.musicplayer.domain.models.composition.source.CompositionSource;
+import com.github.anrimian.musicplayer.domain.models.composition.source.LibraryCompositionSource;
 import com.github.anrimian.musicplayer.domain.models.play_queue.PlayQueueEvent;
+import com.github.anrimian.musicplayer.domain.models.play_queue.PlayQueueItem;
+import com.github.anrimian.musicplayer.domain.models.player.PlaybackPosition;
 import com.github.anrimian.musicplayer.domain.models.player.events.ErrorEvent;
 import com.github.anrimian.musicplayer.domain.models.player.events.FinishedEvent;
 import com.github.anrimian.musicplayer.domain.models.player.events.PlayerEvent;
@@ -27,18 +33,30 @@ import com.github.anrimian.musicplayer.domain.repositories.PlayQueueRepository;
 import com.github.anrimian.musicplayer.domain.repositories.SettingsRepository;
 import com.github.anrimian.musicplayer.domain.repositories.UiStateRepository;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InOrder;
 import org.mockito.Mockito;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.plugins.RxJavaPlugins;
+import io.reactivex.rxjava3.schedulers.TestScheduler;
 import io.reactivex.rxjava3.subjects.BehaviorSubject;
 import io.reactivex.rxjava3.subjects.PublishSubject;
 
 public class LibraryPlayerInteractorTest {
 
+    private static final long DURATION = 180000;
+
     private final PlayerCoordinatorInteractor playerCoordinatorInteractor = mock(PlayerCoordinatorInteractor.class);
     private final SettingsRepository settingsRepository = mock(SettingsRepository.class);
     private final PlayQueueRepository playQueueRepository = mock(PlayQueueRepository.class);
@@ -50,6 +68,9 @@ public class LibraryPlayerInteractorTest {
 
     private final PublishSubject<PlayerEvent> playerEventSubject = PublishSubject.create();
     private final BehaviorSubject<PlayQueueEvent> currentCompositionSubject = BehaviorSubject.createDefault(currentItem(0));
+    private final PublishSubject<PlaybackPosition> playbackPositionSubject = PublishSubject.create();
+
+    private final TestScheduler testScheduler = new TestScheduler();
 
     private final InOrder inOrder = Mockito.inOrder(playQueueRepository,
             playerCoordinatorInteractor,
@@ -57,13 +78,17 @@ public class LibraryPlayerInteractorTest {
 
     @Before
     public void setUp() {
+        RxJavaPlugins.setComputationSchedulerHandler(scheduler -> testScheduler);
+
         when(playQueueRepository.setPlayQueue(any())).thenReturn(Completable.complete());
         when(playQueueRepository.setPlayQueue(any(), anyInt())).thenReturn(Completable.complete());
+        when(playQueueRepository.addCompositionsToEnd(any())).thenReturn(Completable.complete());
         when(playQueueRepository.getCurrentQueueItemObservable())
                 .thenReturn(currentCompositionSubject);
         when(playQueueRepository.skipToNext()).thenReturn(Single.just(1));
 
         when(playerCoordinatorInteractor.getPlayerEventsObservable(any())).thenReturn(playerEventSubject);
+        when(playerCoordinatorInteractor.getPlaybackPositionObservable(any())).thenReturn(playbackPositionSubject);
         when(playerCoordinatorInteractor.getActualTrackPosition(any())).thenReturn(Single.just(0L));
 
         when(musicProviderRepository.writeErrorAboutComposition(any(), any()))
@@ -83,6 +108,11 @@ public class LibraryPlayerInteractorTest {
         );
     }
 
+    @After
+    public void tearDown() {
+        RxJavaPlugins.reset();
+    }
+
     @Test
     public void startPlayingTest() {
         libraryPlayerInteractor.startPlaying(getFakeCompositions(), 0);
@@ -91,6 +121,34 @@ public class LibraryPlayerInteractorTest {
         verify(playerCoordinatorInteractor).prepareToPlay(eq(fakeCompositionSource(0)), any());
     }
 
+    @Test
+    public void startPlayingPagesTest() {
+        List<Composition> compositions = getFakeCompositions();
+        List<Composition> firstPage = compositions.subList(0, 10);
+        List<Composition> secondPage = compositions.subList(10, 20);
+
+        libraryPlayerInteractor.startPlaying(Observable.just(firstPage, secondPage));
+
+        inOrder.verify(playQueueRepository).setPlayQueue(firstPage, NO_POSITION);
+        inOrder.verify(playQueueRepository).addCompositionsToEnd(secondPage);
+        verify(playerCoordinatorInteractor).prepareToPlay(eq(fakeCompositionSource(0)), any());
+    }
+
+    @Test
+    public void startPlayingPagesInRandomModeTest() {
+        when(settingsRepository.isRandomPlayingEnabled()).thenReturn(true);
+        List<Composition> compositions = getFakeCompositions();
+        List<Composition> firstPage = compositions.subList(0, 10);
+        List<Composition> secondPage = compositions.subList(10, 20);
+
+        libraryPlayerInteractor.startPlaying(Observable.just(firstPage, secondPage));
+
+        List<Composition> expected = new ArrayList<>(firstPage);
+        expected.addAll(secondPage);
+        verify(playQueueRepository).setPlayQueue(expected, NO_POSITION);
+        verify(playQueueRepository, never()).addCompositionsToEnd(any());
+    }
+
     @Test
     public void playWithoutPreparingTest() {
         libraryPlayerInteractor.play();
@@ -254,4 +312,137 @@ public class LibraryPlayerInteractorTest {
         inOrder.verify(playerCoordinatorInteractor).onSeekFinished(eq(0L), any());
     }
 
+    @Test
+    public void prebufferNextItemBeforeEndTest() {
+        when(playQueueRepository.isCurrentCompositionAtEndOfQueue()).thenReturn(Single.just(false));
+        PlayQueueItem nextItem = longItem(11);
+        when(playQueueRepository.getNextQueueItem()).thenReturn(Maybe.just(nextItem));
+
+        libraryPlayerInteractor.play();
+
+        currentCompositionSubject.onNext(new PlayQueueEvent(longItem(10), 0L));
+        CompositionSource source = new LibraryCompositionSource(longComposition(10), 0);
+        inOrder.verify(playerCoordinatorInteractor).prepareToPlay(eq(source), any());
+
+        playbackPositionSubject.onNext(pausedPosition(10000L));
+        verify(playerCoordinatorInteractor, never()).setNextSource(any(), any());
+
+        playbackPositionSubject.onNext(pausedPosition(DURATION - 10000L));
+        playbackPositionSubject.onNext(pausedPosition(DURATION - 9000L));
+        CompositionSource nextSource = new LibraryCompositionSource(longComposition(11), 0);
+        inOrder.verify(playerCoordinatorInteractor).setNextSource(eq(nextSource), eq(PlayerType.LIBRARY));
+
+        //track boundary, player already switched to buffered source
+        playerEventSubject.onNext(new FinishedEvent(source));
+        inOrder.verify(playQueueRepository).skipToNext();
+
+        currentCompositionSubject.onNext(new PlayQueueEvent(nextItem, 0L));
+        inOrder.verify(playerCoordinatorInteractor).prepareToPlay(eq(nextSource), any());
+
+        verify(playerCoordinatorInteractor, times(1)).setNextSource(any(), any());
+    }
+
+    @Test
+    public void prebufferWithRepeatPlayListModeAtEndTest() {
+        when(settingsRepository.getRepeatMode()).thenReturn(RepeatMode.REPEAT_PLAY_LIST);
+        when(playQueueRepository.isCurrentCompositionAtEndOfQueue()).thenReturn(Single.just(true));
+        when(playQueueRepository.getNextQueueItem()).thenReturn(Maybe.just(longItem(0)));
+
+        libraryPlayerInteractor.play();
+        currentCompositionSubject.onNext(new PlayQueueEvent(longItem(10), 0L));
+
+        playbackPositionSubject.onNext(pausedPosition(DURATION - 1000L));
+
+        CompositionSource nextSource = new LibraryCompositionSource(longComposition(0), 0);
+        verify(playerCoordinatorInteractor).setNextSource(eq(nextSource), eq(PlayerType.LIBRARY));
+    }
+
+    @Test
+    public void noPrebufferAtEndOfQueueTest() {
+        when(playQueueRepository.isCurrentCompositionAtEndOfQueue()).thenReturn(Single.just(true));
+        when(playQueueRepository.getNextQueueItem()).thenReturn(Maybe.just(longItem(0)));
+
+        libraryPlayerInteractor.play();
+        currentCompositionSubject.onNext(new PlayQueueEvent(longItem(10), 0L));
+
+        playbackPositionSubject.onNext(pausedPosition(DURATION - 1000L));
+
+        verify(playerCoordinatorInteractor, never()).setNextSource(any(), any());
+    }
+
+    @Test
+    public void clearPrebufferedItemOnRepeatCompositionModeTest() {
+        when(playQueueRepository.isCurrentCompositionAtEndOfQueue()).thenReturn(Single.just(false));
+        when(playQueueRepository.getNextQueueItem()).thenReturn(Maybe.just(longItem(11)));
+
+        libraryPlayerInteractor.play();
+        currentCompositionSubject.onNext(new PlayQueueEvent(longItem(10), 0L));
+
+        playbackPositionSubject.onNext(pausedPosition(DURATION - 10000L));
+        CompositionSource nextSource = new LibraryCompositionSource(longComposition(11), 0);
+        inOrder.verify(playerCoordinatorInteractor).setNextSource(eq(nextSource), eq(PlayerType.LIBRARY));
+
+        when(settingsRepository.getRepeatMode()).thenReturn(RepeatMode.REPEAT_COMPOSITION);
+        playbackPositionSubject.onNext(pausedPosition(DURATION - 9000L));
+        inOrder.verify(playerCoordinatorInteractor).setNextSource(eq(null), eq(PlayerType.LIBRARY));
+    }
+
+    @Test
+    public void prebufferNextItemWhilePlayingTest() {
+        when(playQueueRepository.isCurrentCompositionAtEndOfQueue()).thenReturn(Single.just(false));
+        when(playQueueRepository.getNextQueueItem()).thenReturn(Maybe.just(longItem(11)));
+
+        libraryPlayerInteractor.play();
+        currentCompositionSubject.onNext(new PlayQueueEvent(longItem(10), 0L));
+
+        //only one position event at start of playback, prebuffer time is waited by timer
+        playbackPositionSubject.onNext(new PlaybackPosition(0L, 2f, true));
+
+        testScheduler.advanceTimeBy((DURATION - 20000L) / 2, TimeUnit.MILLISECONDS);
+        verify(playerCoordinatorInteractor, never()).setNextSource(any(), any());
+
+        testScheduler.advanceTimeBy(5000L, TimeUnit.MILLISECONDS);
+        CompositionSource nextSource = new LibraryCompositionSource(longComposition(11), 0);
+        verify(playerCoordinatorInteractor).setNextSource(eq(nextSource), eq(PlayerType.LIBRARY));
+
+        //checks are repeated near the end
+        when(settingsRepository.getRepeatMode()).thenReturn(RepeatMode.REPEAT_COMPOSITION);
+        testScheduler.advanceTimeBy(1000L, TimeUnit.MILLISECONDS);
+        verify(playerCoordinatorInteractor).setNextSource(eq(null), eq(PlayerType.LIBRARY));
+    }
+
+    @Test
+    public void noPrebufferChecksAfterPauseTest() {
+        libraryPlayerInteractor.play();
+        currentCompositionSubject.onNext(new PlayQueueEvent(longItem(10), 0L));
+
+        playbackPositionSubject.onNext(new PlaybackPosition(0L, 1f, true));
+        playbackPositionSubject.onNext(pausedPosition(10000L));
+
+        testScheduler.advanceTimeBy(DURATION, TimeUnit.MILLISECONDS);
+        verify(playQueueRepository, never()).getNextQueueItem();
+        verify(playerCoordinatorInteractor, never()).setNextSource(any(), any());
+    }
+
+    private PlaybackPosition pausedPosition(long position) {
+        return new PlaybackPosition(position, 1f, false);
+    }
+
+    private PlayQueueItem longItem(long id) {
+        return new PlayQueueItem(id, longComposition(id));
+    }
+
+    private Composition longComposition(long id) {
+        return new Composition(null,
+                null,
+                "fileName",
+                DURATION,
+                0,
+                id,
+                id,
+                new Date(0),
+                new Date(0),
+                null);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.github.anrimian.musicplayer.domain.models.player;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class PlaybackPositionTest {
+
+    @Test
+    public void playingPositionTest() {
+        PlaybackPosition position = new PlaybackPosition(1000L, 5000L, 1f, true);
+
+        assertEquals(1000L, position.getPosition(5000L));
+        assertEquals(3000L, position.getPosition(7000L));
+    }
+
+    @Test
+    public void speedTest() {
+        PlaybackPosition position = new PlaybackPosition(1000L, 5000L, 1.5f, true);
+
+        assertEquals(4000L, position.getPosition(7000L));
+    }
+
+    @Test
+    public void pausedPositionTest() {
+        PlaybackPosition position = new PlaybackPosition(1000L, 5000L, 1f, false);
+
+        assertEquals(1000L, position.getPosition(7000L));
+    }
+
+    @Test
+    public void positionBeforeUpdateTimeTest() {
+        PlaybackPosition position = new PlaybackPosition(1000L, 5000L, 1f, true);
+
+        assertEquals(1000L, position.getPosition(4000L));
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.anrimian.musicplayer.domain.utils.paging;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ConcatPageSourceTest {
+
+    @Test
+    public void loadRangeTest() {
+        ConcatPageSource<String> source = createSource(3, 5);
+
+        assertEquals(8, source.getCount());
+        assertEquals(asList("f1", "f2", "c0", "c1"), source.loadRange(1, 4));
+        assertEquals(asList("c3", "c4"), source.loadRange(6, 10));
+    }
+
+    @Test
+    public void loadAfterTest() {
+        ConcatPageSource<String> source = createSource(3, 5);
+
+        assertEquals(asList("f1", "f2", "c0"), source.loadAfter("f0", 3));
+        assertEquals(asList("c0", "c1"), source.loadAfter("f2", 2));
+        assertEquals(asList("c3", "c4"), source.loadAfter("c2", 5));
+    }
+
+    @Test
+    public void loadBeforeTest() {
+        ConcatPageSource<String> source = createSource(3, 5);
+
+        assertEquals(asList("f2", "c0", "c1"), source.loadBefore("c2", 3));
+        assertEquals(asList("f1", "f2"), source.loadBefore("c0", 2));
+        assertEquals(asList("f0", "f1"), source.loadBefore("f2", 5));
+    }
+
+    @Test
+    public void emptyFirstSourceTest() {
+        ConcatPageSource<String> source = createSource(0, 5);
+
+        assertEquals(asList("c0", "c1"), source.loadRange(0, 2));
+        assertEquals(emptyList(), source.loadBefore("c0", 2));
+    }
+
+    @Test
+    public void emptySecondSourceTest() {
+        ConcatPageSource<String> source = createSource(3, 0);
+
+        assertEquals(asList("f1", "f2"), source.loadAfter("f0", 5));
+        assertEquals(emptyList(), source.loadAfter("f2", 5));
+    }
+
+    private static ConcatPageSource<String> createSource(int firstCount, int secondCount) {
+        return new ConcatPageSource<>(new ListPageSource<>(items("f", firstCount)),
+                new ListPageSource<>(items("c", secondCount)),
+                item -> item.startsWith("f"));
+    }
+
+    private static List<String> items(String prefix, int count) {
+        List<String> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(prefix + i);
+        }
+        return items;
+    }
+}
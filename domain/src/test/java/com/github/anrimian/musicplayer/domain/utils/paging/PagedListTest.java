@@ -0,0 +1,344 @@
+package com.github.anrimian.musicplayer.domain.utils.paging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.github.anrimian.musicplayer.domain.utils.changes.ChangeType;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.observers.TestObserver;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import io.reactivex.rxjava3.schedulers.TestScheduler;
+import io.reactivex.rxjava3.subjects.PublishSubject;
+
+public class PagedListTest {
+
+    private static final int PAGE_SIZE = 10;
+    private static final int MAX_CACHED_PAGES = 5;
+
+    private final TestSource source = new TestSource();
+
+    @Test
+    public void loadFirstPagesTest() {
+        source.fill(1000);
+
+        PagedList<Item> list = observe(Schedulers.trampoline());
+
+        assertEquals(1000, list.size());
+        assertEquals(item(0), list.get(0));
+        //current and prefetched page
+        assertEquals(2 * PAGE_SIZE, list.getLoadedItemsCount());
+        assertEquals(1, source.countQueries);
+        assertFalse(list.isFullyLoaded());
+        assertNull(list.toList());
+    }
+
+    @Test
+    public void restorePositionTest() {
+        source.fill(1000);
+
+        PagedList<Item> list = observe(Schedulers.trampoline(), 505);
+
+        assertEquals(3 * PAGE_SIZE, list.getLoadedItemsCount());
+        assertEquals(item(505), list.get(505));
+    }
+
+    @Test
+    public void placeholderTest() {
+        source.fill(1000);
+        TestScheduler fetchScheduler = new TestScheduler();
+        TestObserver<PagedList<Item>> observer = PagedList.observe(source,
+                Item::isContentTheSame,
+                0,
+                PAGE_SIZE,
+                MAX_CACHED_PAGES,
+                fetchScheduler,
+                Schedulers.trampoline())
+                .test();
+        observer.assertNoValues();
+        fetchScheduler.triggerActions();
+        PagedList<Item> list = observer.values().get(0);
+        TestObserver<ListUpdate> updatesObserver = list.getUpdatesObservable().test();
+
+        assertNull(list.get(500));
+        fetchScheduler.triggerActions();
+
+        assertEquals(item(500), list.get(500));
+        updatesObserver.assertValueAt(0, new ListUpdate(ChangeType.MODIFY, 500, PAGE_SIZE));
+    }
+
+    @Test
+    public void keysetLoadingTest() {
+        source.fill(1000);
+        PagedList<Item> list = observe(Schedulers.trampoline());
+        int rangeQueries = source.rangeQueries;
+
+        //neighbour page is loaded, next page is selected after its last item
+        list.get(15);
+        assertEquals(item(25), list.get(25));
+        assertEquals(rangeQueries, source.rangeQueries);
+        assertTrue(source.afterQueries > 0);
+
+        //fast scroll, no loaded neighbours
+        assertEquals(item(705), list.get(705));
+        assertTrue(source.rangeQueries > rangeQueries);
+    }
+
+    @Test
+    public void cacheBoundTest() {
+        source.fill(1000);
+        PagedList<Item> list = observe(Schedulers.trampoline());
+
+        for (int i = 0; i < list.size(); i++) {
+            assertEquals(item(i), list.get(i));
+            assertTrue(list.getLoadedItemsCount() <= MAX_CACHED_PAGES * PAGE_SIZE);
+        }
+        for (int i = list.size() - 1; i >= 0; i--) {
+            assertEquals(item(i), list.get(i));
+            assertTrue(list.getLoadedItemsCount() <= MAX_CACHED_PAGES * PAGE_SIZE);
+        }
+    }
+
+    @Test
+    public void insertTest() {
+        source.fill(1000);
+        PagedList<Item> list = observe(Schedulers.trampoline());
+        TestObserver<ListUpdate> updatesObserver = list.getUpdatesObservable().test();
+
+        source.items.add(5, new Item(5000, "new"));
+        source.invalidate();
+
+        updatesObserver.assertValueAt(0, new ListUpdate(ChangeType.ADDED, 5, 1));
+        assertEquals(1001, list.size());
+        assertEquals(5000, list.get(5).id);
+        assertEquals(item(5), list.get(6));
+    }
+
+    @Test
+    public void deleteTest() {
+        source.fill(1000);
+        PagedList<Item> list = observe(Schedulers.trampoline());
+        TestObserver<ListUpdate> updatesObserver = list.getUpdatesObservable().test();
+
+        source.items.subList(3, 6).clear();
+        source.invalidate();
+
+        updatesObserver.assertValueAt(0, new ListUpdate(ChangeType.DELETED, 3, 3));
+        assertEquals(997, list.size());
+        assertEquals(item(6), list.get(3));
+    }
+
+    @Test
+    public void modifyTest() {
+        source.fill(1000);
+        PagedList<Item> list = observe(Schedulers.trampoline());
+        TestObserver<ListUpdate> updatesObserver = list.getUpdatesObservable().test();
+
+        source.items.set(7, new Item(7, "changed"));
+        source.items.set(8, new Item(8, "changed"));
+        source.invalidate();
+
+        updatesObserver.assertValues(new ListUpdate(ChangeType.MODIFY, 7, 2));
+        assertEquals("changed", list.get(7).name);
+    }
+
+    @Test
+    public void changeOutOfWindowTest() {
+        source.fill(1000);
+        PagedList<Item> list = observe(Schedulers.trampoline());
+        TestObserver<ListUpdate> updatesObserver = list.getUpdatesObservable().test();
+
+        source.items.remove(900);
+        source.invalidate();
+
+        updatesObserver.assertValues(new ListUpdate(ChangeType.DELETED, 2 * PAGE_SIZE, 1));
+        assertEquals(999, list.size());
+    }
+
+    @Test
+    public void clearTest() {
+        source.fill(1000);
+        PagedList<Item> list = observe(Schedulers.trampoline(), 500);
+        TestObserver<ListUpdate> updatesObserver = list.getUpdatesObservable().test();
+
+        source.items.clear();
+        source.invalidate();
+
+        updatesObserver.assertValues(new ListUpdate(ChangeType.DELETED, 0, 1000));
+        assertTrue(list.isEmpty());
+    }
+
+    @Test
+    public void fromListTest() {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            items.add(item(i));
+        }
+
+        PagedList<Item> list = PagedList.fromList(items);
+
+        assertEquals(3, list.size());
+        assertTrue(list.isFullyLoaded());
+        assertEquals(items, list.toList());
+        assertTrue(PagedList.empty().isFullyLoaded());
+    }
+
+    @Test
+    public void loadAllTest() {
+        source.fill(1234);
+        PagedList<Item> list = observe(Schedulers.trampoline());
+
+        List<Item> items = list.loadAll().blockingGet();
+
+        assertEquals(source.items, items);
+        assertEquals(2 * PAGE_SIZE, list.getLoadedItemsCount());
+        assertEquals(1, source.countQueries);
+    }
+
+    @Test
+    public void bigListTest() {
+        int count = 100_000;
+        source.fill(count);
+        Runtime runtime = Runtime.getRuntime();
+        long usedMemory = runtime.totalMemory() - runtime.freeMemory();
+
+        long startTime = System.nanoTime();
+        PagedList<Item> list = PagedList.observe(source,
+                Item::isContentTheSame,
+                0,
+                Schedulers.trampoline(),
+                Schedulers.trampoline())
+                .test()
+                .values()
+                .get(0);
+        long firstPageTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        for (int i = 0; i < count; i += PagedList.PAGE_SIZE) {
+            assertNotNull(list.get(i));
+        }
+        long scrollTime = System.nanoTime() - startTime;
+        long listMemory = runtime.totalMemory() - runtime.freeMemory() - usedMemory;
+
+        int loadedItems = list.getLoadedItemsCount();
+        assertTrue(loadedItems <= PagedList.MAX_CACHED_PAGES * PagedList.PAGE_SIZE);
+
+        System.out.println("list size: " + count
+                + ", loaded items: " + loadedItems
+                + ", first page: " + firstPageTime / 1_000_000 + " ms"
+                + ", scroll: " + scrollTime / 1_000_000 + " ms"
+                + ", memory delta: " + listMemory / 1024 + " kb");
+    }
+
+    private PagedList<Item> observe(Scheduler scheduler) {
+        return observe(scheduler, 0);
+    }
+
+    private PagedList<Item> observe(Scheduler scheduler, int position) {
+        return PagedList.observe(source,
+                Item::isContentTheSame,
+                position,
+                PAGE_SIZE,
+                MAX_CACHED_PAGES,
+                scheduler,
+                scheduler)
+                .test()
+                .values()
+                .get(0);
+    }
+
+    private static Item item(int id) {
+        return new Item(id, "item " + id);
+    }
+
+    private static class Item {
+        final long id;
+        final String name;
+
+        Item(long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        boolean isContentTheSame(Item other) {
+            return name.equals(other.name);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            return id == ((Item) o).id;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id);
+        }
+
+        @Override
+        public String toString() {
+            return "Item{" + "id=" + id + ", name='" + name + '\'' + '}';
+        }
+    }
+
+    private static class TestSource implements PageSource<Item> {
+
+        final List<Item> items = new ArrayList<>();
+        final PublishSubject<Object> invalidationSubject = PublishSubject.create();
+
+        int countQueries;
+        int rangeQueries;
+        int afterQueries;
+
+        private final ListPageSource<Item> listSource = new ListPageSource<>(items);
+
+        void fill(int count) {
+            for (int i = 0; i < count; i++) {
+                items.add(item(i));
+            }
+        }
+
+        void invalidate() {
+            invalidationSubject.onNext(new Object());
+        }
+
+        @Override
+        public int getCount() {
+            countQueries++;
+            return listSource.getCount();
+        }
+
+        @Override
+        public List<Item> loadRange(int offset, int limit) {
+            rangeQueries++;
+            return listSource.loadRange(offset, limit);
+        }
+
+        @Override
+        public List<Item> loadAfter(Item item, int limit) {
+            afterQueries++;
+            return listSource.loadAfter(item, limit);
+        }
+
+        @Override
+        public List<Item> loadBefore(Item item, int limit) {
+            return listSource.loadBefore(item, limit);
+        }
+
+        @Override
+        public Observable<Object> getInvalidationObservable() {
+            return invalidationSubject;
+        }
+    }
+}
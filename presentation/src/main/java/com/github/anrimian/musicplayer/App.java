@@ -35,6 +35,7 @@ public class App extends Application {
         ) {
             appComponent.widgetUpdater().start();
             appComponent.mediaScannerRepository().runStorageObserver();
+            appComponent.editJobRunner().resumeJobs();
         }
     }
 }
@@ -2,9 +2,13 @@ package com.github.anrimian.musicplayer.di.app;
 
 
 import com.github.anrimian.musicplayer.data.controllers.music.equalizer.EqualizerController;
+import com.github.anrimian.musicplayer.data.database.observer.LibraryQueryObserver;
+import com.github.anrimian.musicplayer.data.repositories.library.edit.jobs.EditJobRunner;
+import com.github.anrimian.musicplayer.data.storage.artwork.ArtworkThumbnailStore;
 import com.github.anrimian.musicplayer.data.storage.files.StorageFilesDataSource;
 import com.github.anrimian.musicplayer.data.storage.providers.albums.StorageAlbumsProvider;
 import com.github.anrimian.musicplayer.data.storage.source.CompositionSourceProvider;
+import com.github.anrimian.musicplayer.data.utils.rx.schedulers.SchedulerLanes;
 import com.github.anrimian.musicplayer.di.app.editor.album.AlbumEditorComponent;
 import com.github.anrimian.musicplayer.di.app.editor.album.AlbumEditorModule;
 import com.github.anrimian.musicplayer.di.app.editor.composition.CompositionEditorComponent;
@@ -83,6 +87,10 @@ public interface AppComponent {
     UiStateRepository uiStateRepository();
     MediaScannerRepository mediaScannerRepository();
     CompositionSourceProvider sourceRepository();
+    ArtworkThumbnailStore artworkThumbnailStore();
+    SchedulerLanes schedulerLanes();
+    EditJobRunner editJobRunner();
+    LibraryQueryObserver libraryQueryObserver();
     LoggerRepository loggerRepository();
     StorageAlbumsProvider storageAlbumsProvider();
 
@@ -1,5 +1,8 @@
 package com.github.anrimian.musicplayer.di.app;
 
+import static com.github.anrimian.musicplayer.di.app.SchedulerModule.IO_SCHEDULER;
+import static com.github.anrimian.musicplayer.di.app.SchedulerModule.PLAYBACK_SCHEDULER;
+
 import android.content.Context;
 
 import com.github.anrimian.musicplayer.data.database.AppDatabase;
@@ -8,8 +11,10 @@ import com.github.anrimian.musicplayer.data.database.dao.albums.AlbumsDao;
 import com.github.anrimian.musicplayer.data.database.dao.albums.AlbumsDaoWrapper;
 import com.github.anrimian.musicplayer.data.database.dao.artist.ArtistsDao;
 import com.github.anrimian.musicplayer.data.database.dao.artist.ArtistsDaoWrapper;
+import com.github.anrimian.musicplayer.data.database.dao.artwork.ArtworkThumbnailsDao;
 import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDao;
 import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDaoWrapper;
+import com.github.anrimian.musicplayer.data.database.dao.edit.EditJobsDaoWrapper;
 import com.github.anrimian.musicplayer.data.database.dao.folders.FoldersDao;
 import com.github.anrimian.musicplayer.data.database.dao.folders.FoldersDaoWrapper;
 import com.github.anrimian.musicplayer.data.database.dao.genre.GenreDao;
@@ -18,12 +23,15 @@ import com.github.anrimian.musicplayer.data.database.dao.play_list.PlayListDao;
 import com.github.anrimian.musicplayer.data.database.dao.play_list.PlayListsDaoWrapper;
 import com.github.anrimian.musicplayer.data.database.dao.play_queue.PlayQueueDao;
 import com.github.anrimian.musicplayer.data.database.dao.play_queue.PlayQueueDaoWrapper;
+import com.github.anrimian.musicplayer.data.database.observer.LibraryQueryObserver;
 
 import javax.annotation.Nonnull;
+import javax.inject.Named;
 import javax.inject.Singleton;
 
 import dagger.Module;
 import dagger.Provides;
+import io.reactivex.rxjava3.core.Scheduler;
 
 /**
  * Created on 20.11.2017.
@@ -63,8 +71,11 @@ public class DbModule {
     @Provides
     @Nonnull
     @Singleton
-    PlayQueueDaoWrapper playQueueDaoWrapper(AppDatabase appDatabase, PlayQueueDao playQueueDao) {
-        return new PlayQueueDaoWrapper(appDatabase, playQueueDao);
+    PlayQueueDaoWrapper playQueueDaoWrapper(AppDatabase appDatabase,
+                                            PlayQueueDao playQueueDao,
+                                            LibraryQueryObserver queryObserver,
+                                            @Named(PLAYBACK_SCHEDULER) Scheduler scheduler) {
+        return new PlayQueueDaoWrapper(appDatabase, playQueueDao, queryObserver, scheduler);
     }
 
     @Provides
@@ -93,15 +104,18 @@ public class DbModule {
     @Singleton
     AlbumsDaoWrapper albumsDaoWrapper(AppDatabase appDatabase,
                                       AlbumsDao albumsDao,
-                                      ArtistsDao artistsDao) {
-        return new AlbumsDaoWrapper(appDatabase, albumsDao, artistsDao);
+                                      ArtistsDao artistsDao,
+                                      LibraryQueryObserver queryObserver) {
+        return new AlbumsDaoWrapper(appDatabase, albumsDao, artistsDao, queryObserver);
     }
 
     @Provides
     @Nonnull
     @Singleton
-    ArtistsDaoWrapper artistsDaoWrapper(ArtistsDao artistsDao) {
-        return new ArtistsDaoWrapper(artistsDao);
+    ArtistsDaoWrapper artistsDaoWrapper(AppDatabase appDatabase,
+                                        ArtistsDao artistsDao,
+                                        LibraryQueryObserver queryObserver) {
+        return new ArtistsDaoWrapper(appDatabase, artistsDao, queryObserver);
     }
 
     @Provides
@@ -109,8 +123,9 @@ public class DbModule {
     @Singleton
     GenresDaoWrapper genresDaoWrapper(AppDatabase appDatabase,
                                       GenreDao genreDao,
-                                      CompositionsDao compositionsDao) {
-        return new GenresDaoWrapper(appDatabase, genreDao, compositionsDao);
+                                      CompositionsDao compositionsDao,
+                                      LibraryQueryObserver queryObserver) {
+        return new GenresDaoWrapper(appDatabase, genreDao, compositionsDao, queryObserver);
     }
 
     @Provides
@@ -119,14 +134,24 @@ public class DbModule {
     CompositionsDaoWrapper compositionsDaoWrapper(AppDatabase appDatabase,
                                                   ArtistsDao artistsDao,
                                                   CompositionsDao compositionsDao,
-                                                  AlbumsDao albumsDao) {
+                                                  AlbumsDao albumsDao,
+                                                  LibraryQueryObserver queryObserver) {
         return new CompositionsDaoWrapper(appDatabase,
                 artistsDao,
                 compositionsDao,
-                albumsDao
+                albumsDao,
+                queryObserver
         );
     }
 
+    @Provides
+    @Nonnull
+    @Singleton
+    LibraryQueryObserver libraryQueryObserver(AppDatabase appDatabase,
+                                              @Named(IO_SCHEDULER) Scheduler scheduler) {
+        return new LibraryQueryObserver(appDatabase, scheduler);
+    }
+
     @Provides
     @Nonnull
     @Singleton
@@ -134,13 +159,28 @@ public class DbModule {
         return appDatabase.foldersDao();
     }
 
+    @Provides
+    @Nonnull
+    @Singleton
+    ArtworkThumbnailsDao artworkThumbnailsDao(AppDatabase appDatabase) {
+        return appDatabase.artworkThumbnailsDao();
+    }
+
+    @Provides
+    @Nonnull
+    @Singleton
+    EditJobsDaoWrapper editJobsDaoWrapper(AppDatabase appDatabase) {
+        return new EditJobsDaoWrapper(appDatabase, appDatabase.editJobsDao());
+    }
+
     @Provides
     @Nonnull
     @Singleton
     FoldersDaoWrapper foldersDaoWrapper(AppDatabase appDatabase,
                                         FoldersDao foldersDao,
-                                        CompositionsDaoWrapper compositionsDao) {
-        return new FoldersDaoWrapper(appDatabase, foldersDao, compositionsDao);
+                                        CompositionsDaoWrapper compositionsDao,
+                                        LibraryQueryObserver queryObserver) {
+        return new FoldersDaoWrapper(appDatabase, foldersDao, compositionsDao, queryObserver);
     }
 
     @Provides
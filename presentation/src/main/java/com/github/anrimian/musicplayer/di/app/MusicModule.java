@@ -1,8 +1,8 @@
 package com.github.anrimian.musicplayer.di.app;
 
 
-import static com.github.anrimian.musicplayer.di.app.SchedulerModule.DB_SCHEDULER;
 import static com.github.anrimian.musicplayer.di.app.SchedulerModule.IO_SCHEDULER;
+import static com.github.anrimian.musicplayer.di.app.SchedulerModule.PLAYBACK_SCHEDULER;
 import static com.github.anrimian.musicplayer.di.app.SchedulerModule.UI_SCHEDULER;
 
 import android.content.Context;
@@ -14,7 +14,9 @@ import com.github.anrimian.musicplayer.data.controllers.music.SystemMusicControl
 import com.github.anrimian.musicplayer.data.controllers.music.equalizer.EqualizerController;
 import com.github.anrimian.musicplayer.data.controllers.music.equalizer.external.ExternalEqualizer;
 import com.github.anrimian.musicplayer.data.controllers.music.equalizer.internal.InternalEqualizer;
+import com.github.anrimian.musicplayer.data.controllers.music.equalizer.software.SoftwareEqualizer;
 import com.github.anrimian.musicplayer.data.controllers.music.error.PlayerErrorParser;
+import com.github.anrimian.musicplayer.data.controllers.music.loudness.LoudnessGainProvider;
 import com.github.anrimian.musicplayer.data.database.dao.albums.AlbumsDaoWrapper;
 import com.github.anrimian.musicplayer.data.database.dao.artist.ArtistsDaoWrapper;
 import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDaoWrapper;
@@ -124,11 +126,11 @@ class MusicModule {
     PlayQueueRepository playQueueRepository(PlayQueueDaoWrapper playQueueDao,
                                             SettingsRepository settingsPreferences,
                                             UiStateRepository uiStateRepository,
-                                            @Named(DB_SCHEDULER) Scheduler dbScheduler) {
+                                            @Named(PLAYBACK_SCHEDULER) Scheduler scheduler) {
         return new PlayQueueRepositoryImpl(playQueueDao,
                 settingsPreferences,
                 uiStateRepository,
-                dbScheduler);
+                scheduler);
     }
 
     @Provides
@@ -149,7 +151,8 @@ class MusicModule {
                                                        @Named(IO_SCHEDULER) Scheduler ioScheduler,
                                                        PlayerErrorParser playerErrorParser,
                                                        Analytics analytics,
-                                                       EqualizerController equalizerController) {
+                                                       EqualizerController equalizerController,
+                                                       LoudnessGainProvider loudnessGainProvider) {
         return new MusicPlayerControllerImpl(uiStateRepository,
                 settingsRepository,
                 context,
@@ -158,7 +161,17 @@ class MusicModule {
                 ioScheduler,
                 playerErrorParser,
                 analytics,
-                equalizerController);
+                equalizerController,
+                loudnessGainProvider);
+    }
+
+    @Provides
+    @NonNull
+    @Singleton
+    LoudnessGainProvider loudnessGainProvider(CompositionsDaoWrapper compositionsDao,
+                                              SettingsRepository settingsRepository,
+                                              @Named(PLAYBACK_SCHEDULER) Scheduler scheduler) {
+        return new LoudnessGainProvider(compositionsDao, settingsRepository, scheduler);
     }
 
     @Provides
@@ -219,7 +232,7 @@ class MusicModule {
     CompositionSourceProvider sourceRepository(CompositionsDaoWrapper compositionsDao,
                                                StorageMusicProvider storageMusicProvider,
                                                CompositionSourceEditor compositionSourceEditor,
-                                               @Named(DB_SCHEDULER) Scheduler scheduler) {
+                                               @Named(PLAYBACK_SCHEDULER) Scheduler scheduler) {
         return new CompositionSourceProvider(
                 compositionsDao,
                 storageMusicProvider,
@@ -233,8 +246,12 @@ class MusicModule {
     @Singleton
     EqualizerController equalizerController(SettingsRepository settingsRepository,
                                             ExternalEqualizer externalEqualizer,
-                                            InternalEqualizer internalEqualizer) {
-        return new EqualizerController(settingsRepository, externalEqualizer, internalEqualizer);
+                                            InternalEqualizer internalEqualizer,
+                                            SoftwareEqualizer softwareEqualizer) {
+        return new EqualizerController(settingsRepository,
+                externalEqualizer,
+                internalEqualizer,
+                softwareEqualizer);
     }
 
     @Provides
@@ -252,6 +269,13 @@ class MusicModule {
         return new InternalEqualizer(equalizerStateRepository, analytics);
     }
 
+    @Provides
+    @NonNull
+    @Singleton
+    SoftwareEqualizer softwareEqualizer(Context context) {
+        return new SoftwareEqualizer(EqualizerStateRepository.softwareEqualizerStateRepository(context));
+    }
+
     @Provides
     @NonNull
     @Singleton
@@ -275,8 +299,10 @@ class MusicModule {
 
     @Provides
     @Nonnull
-    EqualizerRepository equalizerRepository(InternalEqualizer internalEqualizer) {
-        return new EqualizerRepositoryImpl(internalEqualizer);
+    EqualizerRepository equalizerRepository(InternalEqualizer internalEqualizer,
+                                            SoftwareEqualizer softwareEqualizer,
+                                            SettingsRepository settingsRepository) {
+        return new EqualizerRepositoryImpl(internalEqualizer, softwareEqualizer, settingsRepository);
     }
 
     @Provides
@@ -2,6 +2,9 @@ package com.github.anrimian.musicplayer.di.app;
 
 import androidx.annotation.NonNull;
 
+import com.github.anrimian.musicplayer.data.utils.rx.schedulers.SchedulerLane;
+import com.github.anrimian.musicplayer.data.utils.rx.schedulers.SchedulerLanes;
+
 import java.util.concurrent.Executors;
 
 import javax.inject.Named;
@@ -24,6 +27,10 @@ public class SchedulerModule {
     public static final String UI_SCHEDULER = "ui_scheduler";
     public static final String DB_SCHEDULER = "db_scheduler";
     public static final String SLOW_BG_SCHEDULER = "slow_bg_scheduler";
+    public static final String PLAYBACK_SCHEDULER = "playback_scheduler";
+    public static final String FILE_IO_SCHEDULER = "file_io_scheduler";
+    public static final String SCANNER_SCHEDULER = "scanner_scheduler";
+    public static final String CPU_SCHEDULER = "cpu_scheduler";
 
     @Provides
     @NonNull
@@ -45,8 +52,8 @@ public class SchedulerModule {
     @NonNull
     @Named(DB_SCHEDULER)
     @Singleton
-    Scheduler provideDBScheduler() {
-        return Schedulers.from(Executors.newSingleThreadExecutor());
+    Scheduler provideDBScheduler(SchedulerLanes schedulerLanes) {
+        return schedulerLanes.getScheduler(SchedulerLane.DB_WRITE);
     }
 
     @Provides
@@ -56,4 +63,43 @@ public class SchedulerModule {
     Scheduler provideSlowBgScheduler() {
         return Schedulers.from(Executors.newSingleThreadExecutor());
     }
+
+    @Provides
+    @NonNull
+    @Named(PLAYBACK_SCHEDULER)
+    @Singleton
+    Scheduler providePlaybackScheduler(SchedulerLanes schedulerLanes) {
+        return schedulerLanes.getScheduler(SchedulerLane.PLAYBACK);
+    }
+
+    @Provides
+    @NonNull
+    @Named(FILE_IO_SCHEDULER)
+    @Singleton
+    Scheduler provideFileIoScheduler(SchedulerLanes schedulerLanes) {
+        return schedulerLanes.getScheduler(SchedulerLane.FILE_IO);
+    }
+
+    @Provides
+    @NonNull
+    @Named(SCANNER_SCHEDULER)
+    @Singleton
+    Scheduler provideScannerScheduler(SchedulerLanes schedulerLanes) {
+        return schedulerLanes.getScheduler(SchedulerLane.SCANNER);
+    }
+
+    @Provides
+    @NonNull
+    @Named(CPU_SCHEDULER)
+    @Singleton
+    Scheduler provideCpuScheduler(SchedulerLanes schedulerLanes) {
+        return schedulerLanes.getScheduler(SchedulerLane.CPU);
+    }
+
+    @Provides
+    @NonNull
+    @Singleton
+    SchedulerLanes provideSchedulerLanes() {
+        return new SchedulerLanes();
+    }
 }
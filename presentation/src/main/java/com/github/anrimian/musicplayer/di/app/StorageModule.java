@@ -1,7 +1,9 @@
 package com.github.anrimian.musicplayer.di.app;
 
-import static com.github.anrimian.musicplayer.di.app.SchedulerModule.DB_SCHEDULER;
+import static com.github.anrimian.musicplayer.di.app.SchedulerModule.CPU_SCHEDULER;
+import static com.github.anrimian.musicplayer.di.app.SchedulerModule.FILE_IO_SCHEDULER;
 import static com.github.anrimian.musicplayer.di.app.SchedulerModule.IO_SCHEDULER;
+import static com.github.anrimian.musicplayer.di.app.SchedulerModule.SCANNER_SCHEDULER;
 
 import android.content.Context;
 import android.os.Build;
@@ -11,18 +13,27 @@ import com.github.anrimian.musicplayer.data.database.dao.albums.AlbumsDao;
 import com.github.anrimian.musicplayer.data.database.dao.albums.AlbumsDaoWrapper;
 import com.github.anrimian.musicplayer.data.database.dao.artist.ArtistsDao;
 import com.github.anrimian.musicplayer.data.database.dao.artist.ArtistsDaoWrapper;
+import com.github.anrimian.musicplayer.data.database.dao.artwork.ArtworkThumbnailsDao;
 import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDao;
 import com.github.anrimian.musicplayer.data.database.dao.compositions.CompositionsDaoWrapper;
 import com.github.anrimian.musicplayer.data.database.dao.compositions.StorageCompositionsInserter;
+import com.github.anrimian.musicplayer.data.database.dao.edit.EditJobsDaoWrapper;
 import com.github.anrimian.musicplayer.data.database.dao.folders.FoldersDao;
 import com.github.anrimian.musicplayer.data.database.dao.folders.FoldersDaoWrapper;
 import com.github.anrimian.musicplayer.data.database.dao.genre.GenresDaoWrapper;
 import com.github.anrimian.musicplayer.data.database.dao.play_list.PlayListsDaoWrapper;
+import com.github.anrimian.musicplayer.data.database.observer.LibraryQueryObserver;
 import com.github.anrimian.musicplayer.data.repositories.library.edit.EditorRepositoryImpl;
+import com.github.anrimian.musicplayer.data.repositories.library.edit.jobs.EditJobRunner;
 import com.github.anrimian.musicplayer.data.repositories.scanner.MediaScannerRepositoryImpl;
+import com.github.anrimian.musicplayer.data.repositories.scanner.MediaStoreChangePipeline;
 import com.github.anrimian.musicplayer.data.repositories.scanner.StorageCompositionAnalyzer;
 import com.github.anrimian.musicplayer.data.repositories.scanner.StoragePlaylistAnalyzer;
 import com.github.anrimian.musicplayer.data.repositories.scanner.files.FileScanner;
+import com.github.anrimian.musicplayer.data.repositories.scanner.loudness.LoudnessScanner;
+import com.github.anrimian.musicplayer.data.repositories.scanner.loudness.MediaCodecAudioDecoder;
+import com.github.anrimian.musicplayer.data.storage.artwork.ArtworkThumbnailStore;
+import com.github.anrimian.musicplayer.data.storage.artwork.BitmapThumbnailEncoder;
 import com.github.anrimian.musicplayer.data.storage.files.StorageFilesDataSource;
 import com.github.anrimian.musicplayer.data.storage.files.StorageFilesDataSourceApi30;
 import com.github.anrimian.musicplayer.data.storage.files.StorageFilesDataSourceImpl;
@@ -31,9 +42,11 @@ import com.github.anrimian.musicplayer.data.storage.providers.genres.StorageGenr
 import com.github.anrimian.musicplayer.data.storage.providers.music.StorageMusicProvider;
 import com.github.anrimian.musicplayer.data.storage.providers.playlists.StoragePlayListsProvider;
 import com.github.anrimian.musicplayer.data.storage.source.CompositionSourceEditor;
+import com.github.anrimian.musicplayer.data.storage.source.CompositionSourceProvider;
 import com.github.anrimian.musicplayer.data.storage.source.FileSourceProvider;
 import com.github.anrimian.musicplayer.domain.interactors.analytics.Analytics;
 import com.github.anrimian.musicplayer.domain.interactors.editor.EditorInteractor;
+import com.github.anrimian.musicplayer.domain.repositories.ArtworkCacheRepository;
 import com.github.anrimian.musicplayer.domain.repositories.EditorRepository;
 import com.github.anrimian.musicplayer.domain.repositories.LibraryRepository;
 import com.github.anrimian.musicplayer.domain.repositories.LoggerRepository;
@@ -41,6 +54,8 @@ import com.github.anrimian.musicplayer.domain.repositories.MediaScannerRepositor
 import com.github.anrimian.musicplayer.domain.repositories.SettingsRepository;
 import com.github.anrimian.musicplayer.domain.repositories.StateRepository;
 
+import java.io.File;
+
 import javax.annotation.Nonnull;
 import javax.inject.Named;
 import javax.inject.Singleton;
@@ -48,10 +63,13 @@ import javax.inject.Singleton;
 import dagger.Module;
 import dagger.Provides;
 import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.schedulers.Schedulers;
 
 @Module
 public class StorageModule {
 
+    private static final String ARTWORK_THUMBNAILS_DIRECTORY = "artwork_thumbnails";
+
     @Provides
     @Nonnull
     @Singleton
@@ -99,10 +117,10 @@ public class StorageModule {
                                                  GenresDaoWrapper genresDao,
                                                  FoldersDaoWrapper foldersDao,
                                                  StorageMusicProvider storageMusicProvider,
-                                                 StorageGenresProvider storageGenresProvider,
                                                  StateRepository stateRepository,
                                                  SettingsRepository settingsRepository,
-                                                 @Named(DB_SCHEDULER) Scheduler scheduler) {
+                                                 EditJobRunner editJobRunner,
+                                                 @Named(FILE_IO_SCHEDULER) Scheduler scheduler) {
         return new EditorRepositoryImpl(
                 sourceEditor,
                 filesDataSource,
@@ -112,9 +130,32 @@ public class StorageModule {
                 genresDao,
                 foldersDao,
                 storageMusicProvider,
-                storageGenresProvider,
                 stateRepository,
                 settingsRepository,
+                editJobRunner,
+                scheduler);
+    }
+
+    @Provides
+    @Nonnull
+    @Singleton
+    EditJobRunner editJobRunner(EditJobsDaoWrapper editJobsDao,
+                                CompositionSourceEditor sourceEditor,
+                                AlbumsDaoWrapper albumsDao,
+                                ArtistsDaoWrapper artistsDao,
+                                GenresDaoWrapper genresDao,
+                                StorageMusicProvider storageMusicProvider,
+                                StorageGenresProvider storageGenresProvider,
+                                Analytics analytics,
+                                @Named(FILE_IO_SCHEDULER) Scheduler scheduler) {
+        return new EditJobRunner(editJobsDao,
+                sourceEditor,
+                albumsDao,
+                artistsDao,
+                genresDao,
+                storageMusicProvider,
+                storageGenresProvider,
+                analytics,
                 scheduler);
     }
 
@@ -140,10 +181,57 @@ public class StorageModule {
     @Singleton
     FileScanner fileScanner(CompositionsDaoWrapper compositionsDao,
                             CompositionSourceEditor compositionSourceEditor,
+                            ArtworkThumbnailStore artworkThumbnailStore,
+                            LibraryQueryObserver libraryQueryObserver,
                             StateRepository stateRepository,
                             Analytics analytics,
-                            @Named(IO_SCHEDULER) Scheduler scheduler) {
-        return new FileScanner(compositionsDao, compositionSourceEditor, stateRepository, analytics, scheduler);
+                            @Named(SCANNER_SCHEDULER) Scheduler scheduler) {
+        return new FileScanner(compositionsDao,
+                compositionSourceEditor,
+                artworkThumbnailStore,
+                libraryQueryObserver,
+                stateRepository,
+                analytics,
+                scheduler,
+                Schedulers.computation());
+    }
+
+    @Provides
+    @Nonnull
+    @Singleton
+    ArtworkThumbnailStore artworkThumbnailStore(Context context,
+                                                ArtworkThumbnailsDao artworkThumbnailsDao,
+                                                CompositionSourceProvider compositionSourceProvider,
+                                                @Named(IO_SCHEDULER) Scheduler scheduler) {
+        long maxSizeBytes = 100 * 1024 * 1024;//100 MB
+        return new ArtworkThumbnailStore(new File(context.getFilesDir(), ARTWORK_THUMBNAILS_DIRECTORY),
+                artworkThumbnailsDao,
+                compositionSourceProvider::readCompositionArtwork,
+                new BitmapThumbnailEncoder(),
+                maxSizeBytes,
+                scheduler);
+    }
+
+    @Provides
+    @Nonnull
+    ArtworkCacheRepository artworkCacheRepository(ArtworkThumbnailStore artworkThumbnailStore) {
+        return artworkThumbnailStore;
+    }
+
+    @Provides
+    @Nonnull
+    @Singleton
+    LoudnessScanner loudnessScanner(Context context,
+                                    CompositionsDaoWrapper compositionsDao,
+                                    CompositionSourceProvider compositionSourceProvider,
+                                    StateRepository stateRepository,
+                                    Analytics analytics,
+                                    @Named(CPU_SCHEDULER) Scheduler scheduler) {
+        return new LoudnessScanner(compositionsDao,
+                new MediaCodecAudioDecoder(context, compositionSourceProvider),
+                stateRepository,
+                analytics,
+                scheduler);
     }
 
     @Provides
@@ -158,6 +246,8 @@ public class StorageModule {
                                                   StorageCompositionAnalyzer compositionAnalyzer,
                                                   StoragePlaylistAnalyzer storagePlaylistAnalyzer,
                                                   FileScanner fileScanner,
+                                                  LoudnessScanner loudnessScanner,
+                                                  MediaStoreChangePipeline changePipeline,
                                                   LoggerRepository loggerRepository,
                                                   Analytics analytics,
                                                   @Named(IO_SCHEDULER) Scheduler scheduler) {
@@ -170,11 +260,20 @@ public class StorageModule {
                 compositionAnalyzer,
                 storagePlaylistAnalyzer,
                 fileScanner,
+                loudnessScanner,
+                changePipeline,
                 loggerRepository,
                 analytics,
                 scheduler);
     }
 
+    @Provides
+    @Nonnull
+    @Singleton
+    MediaStoreChangePipeline mediaStoreChangePipeline(@Named(IO_SCHEDULER) Scheduler scheduler) {
+        return new MediaStoreChangePipeline(scheduler, scheduler);
+    }
+
     @Provides
     @Nonnull
     StorageCompositionAnalyzer compositionAnalyzer(CompositionsDaoWrapper compositionsDao,
@@ -11,6 +11,7 @@ import dagger.Module;
 import dagger.Provides;
 import io.reactivex.rxjava3.core.Scheduler;
 
+import static com.github.anrimian.musicplayer.di.app.SchedulerModule.IO_SCHEDULER;
 import static com.github.anrimian.musicplayer.di.app.SchedulerModule.UI_SCHEDULER;
 
 @Module
@@ -20,7 +21,8 @@ public class AlbumsModule {
     @Nonnull
     AlbumsListPresenter artistsListPresenter(LibraryAlbumsInteractor interactor,
                                              ErrorParser errorParser,
-                                             @Named(UI_SCHEDULER) Scheduler uiScheduler) {
-        return new AlbumsListPresenter(interactor, errorParser, uiScheduler);
+                                             @Named(UI_SCHEDULER) Scheduler uiScheduler,
+                                             @Named(IO_SCHEDULER) Scheduler ioScheduler) {
+        return new AlbumsListPresenter(interactor, errorParser, uiScheduler, ioScheduler);
     }
 }
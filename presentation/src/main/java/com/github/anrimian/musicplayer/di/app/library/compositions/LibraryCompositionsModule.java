@@ -14,6 +14,7 @@ import dagger.Module;
 import dagger.Provides;
 import io.reactivex.rxjava3.core.Scheduler;
 
+import static com.github.anrimian.musicplayer.di.app.SchedulerModule.IO_SCHEDULER;
 import static com.github.anrimian.musicplayer.di.app.SchedulerModule.UI_SCHEDULER;
 
 /**
@@ -30,13 +31,15 @@ public class LibraryCompositionsModule {
                                                               LibraryPlayerInteractor playerInteractor,
                                                               DisplaySettingsInteractor displaySettingsInteractor,
                                                               ErrorParser errorParser,
-                                                              @Named(UI_SCHEDULER) Scheduler uiScheduler) {
+                                                              @Named(UI_SCHEDULER) Scheduler uiScheduler,
+                                                              @Named(IO_SCHEDULER) Scheduler ioScheduler) {
         return new LibraryCompositionsPresenter(interactor,
                 playListsInteractor,
                 playerInteractor,
                 displaySettingsInteractor,
                 errorParser,
-                uiScheduler);
+                uiScheduler,
+                ioScheduler);
     }
 
 }
@@ -14,6 +14,7 @@ import dagger.Module;
 import dagger.Provides;
 import io.reactivex.rxjava3.core.Scheduler;
 
+import static com.github.anrimian.musicplayer.di.app.SchedulerModule.IO_SCHEDULER;
 import static com.github.anrimian.musicplayer.di.app.SchedulerModule.UI_SCHEDULER;
 
 /**
@@ -36,12 +37,14 @@ public class FolderModule {
                                                     LibraryPlayerInteractor playerInteractor,
                                                     DisplaySettingsInteractor displaySettingsInteractor,
                                                     ErrorParser errorParser,
-                                                    @Named(UI_SCHEDULER) Scheduler uiScheduler) {
+                                                    @Named(UI_SCHEDULER) Scheduler uiScheduler,
+                                                    @Named(IO_SCHEDULER) Scheduler ioScheduler) {
         return new LibraryFoldersPresenter(folderId,
                 interactor,
                 playerInteractor,
                 displaySettingsInteractor,
                 errorParser,
-                uiScheduler);
+                uiScheduler,
+                ioScheduler);
     }
 }
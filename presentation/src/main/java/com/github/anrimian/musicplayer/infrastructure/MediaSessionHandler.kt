@@ -6,6 +6,7 @@ import android.content.Intent
 import android.net.Uri
 import android.os.Bundle
 import android.os.ResultReceiver
+import android.os.SystemClock
 import android.support.v4.media.MediaDescriptionCompat
 import android.support.v4.media.MediaMetadataCompat
 import android.support.v4.media.RatingCompat
@@ -21,6 +22,7 @@ import com.github.anrimian.musicplayer.domain.models.composition.source.Composit
 import com.github.anrimian.musicplayer.domain.models.composition.source.LibraryCompositionSource
 import com.github.anrimian.musicplayer.domain.models.play_queue.PlayQueueEvent
 import com.github.anrimian.musicplayer.domain.models.play_queue.PlayQueueItem
+import com.github.anrimian.musicplayer.domain.models.player.PlaybackPosition
 import com.github.anrimian.musicplayer.domain.models.player.PlayerState
 import com.github.anrimian.musicplayer.domain.models.player.modes.RepeatMode
 import com.github.anrimian.musicplayer.domain.models.player.service.MusicNotificationSetting
@@ -45,6 +47,10 @@ private const val SHUFFLE_ACTION_ID = "shuffle_action_id"
 private const val FAST_FORWARD_ACTION_ID = "fast_forward_action_id"
 private const val REWIND_ACTION_ID = "rewind_action_id"
 
+//big queues don't fit into binder transaction, so session gets only items around current one
+private const val QUEUE_WINDOW_SIZE = 100
+private const val QUEUE_WINDOW_EDGE_DISTANCE = 10
+
 class MediaSessionHandler(private val context: Context,
                           private val playerInteractor: PlayerInteractor,
                           private val libraryPlayerInteractor: LibraryPlayerInteractor,
@@ -108,7 +114,7 @@ class MediaSessionHandler(private val context: Context,
                 playerInteractor.playerStateObservable,
                 libraryPlayerInteractor.currentQueueItemObservable,
                 playerInteractor.currentSourceObservable,
-                playerInteractor.trackPositionObservable,
+                playerInteractor.playbackPositionObservable,
                 playerInteractor.currentPlaybackSpeedObservable,
                 musicServiceInteractor.repeatModeObservable,
                 musicServiceInteractor.randomModeObservable,
@@ -156,10 +162,7 @@ class MediaSessionHandler(private val context: Context,
                 FormatUtils.getRepeatModeIcon(playbackState.repeatMode)
         )
 
-        playbackStateBuilder.setState(
-                toMediaState(playbackState.playerState),
-                playbackState.trackPosition,
-                playbackState.playbackSpeed)
+        setState(playbackStateBuilder, playbackState)
 
         playbackStateBuilder.setActiveQueueItemId(0L)
 
@@ -212,10 +215,7 @@ class MediaSessionHandler(private val context: Context,
 //      if (!isSourceEqual) {
 //          newTrackPosition = CompositionSourceModelHelper.getTrackPosition(newCompositionSource);
 //      }
-        playbackStateBuilder.setState(
-                toMediaState(playbackState.playerState),
-                playbackState.trackPosition,
-                playbackState.playbackSpeed)
+        setState(playbackStateBuilder, playbackState)
 
         val playQueueCurrentItemId = playbackState.playQueueCurrentItem.playQueueItem?.id ?: 0L
         playbackStateBuilder.setActiveQueueItemId(playQueueCurrentItemId)
@@ -237,6 +237,16 @@ class MediaSessionHandler(private val context: Context,
         else -> PlaybackStateCompat.REPEAT_MODE_NONE
     }
 
+    //state is updated only on position discontinuities, session extrapolates position by itself
+    private fun setState(builder: PlaybackStateCompat.Builder, playbackState: PlaybackState) {
+        builder.setState(
+                toMediaState(playbackState.playerState),
+                playbackState.playbackPosition.currentPosition,
+                playbackState.playbackSpeed,
+                SystemClock.elapsedRealtime()
+        )
+    }
+
     private fun subscribeOnMediaSessionMetadata() {
         mediaSessionDisposable.add(Observable.combineLatest(
                 playerInteractor.currentSourceObservable,
@@ -267,24 +277,38 @@ class MediaSessionHandler(private val context: Context,
     }
 
     private fun subscribeOnPlayQueue() {
+        val queueWindow = MediaSessionQueueWindow(
+                QUEUE_WINDOW_SIZE,
+                QUEUE_WINDOW_EDGE_DISTANCE,
+                this::toSessionQueueItem
+        )
         mediaSessionDisposable.add(Observable.combineLatest(
                 libraryPlayerInteractor.playQueueObservable.toObservable(),
+                libraryPlayerInteractor.currentQueueItemObservable,
                 playerInteractor.currentSourceObservable,
-                ::toSessionQueueItems
-        ).subscribe(this::onPlayQueueReceived))
+                { playQueue: List<PlayQueueItem>,
+                  currentItemEvent: PlayQueueEvent,
+                  currentSource: Optional<CompositionSource> ->
+                    toSessionQueueItems(queueWindow, playQueue, currentItemEvent, currentSource)
+                }
+        ).filter { playQueue -> playQueue.value != null }
+                .subscribe(this::onPlayQueueReceived))
     }
 
-    private fun onPlayQueueReceived(playQueue: List<MediaSessionCompat.QueueItem>) {
-        mediaSession?.setQueue(playQueue)
+    private fun onPlayQueueReceived(playQueue: Optional<List<MediaSessionCompat.QueueItem>>) {
+        mediaSession?.setQueue(playQueue.value)
     }
 
-    private fun toSessionQueueItems(playQueue: List<PlayQueueItem>,
+    private fun toSessionQueueItems(queueWindow: MediaSessionQueueWindow<MediaSessionCompat.QueueItem>,
+                                    playQueue: List<PlayQueueItem>,
+                                    currentItemEvent: PlayQueueEvent,
                                     currentSource: Optional<CompositionSource>
-    ): List<MediaSessionCompat.QueueItem> {
-        return when(currentSource.value) {
-            is LibraryCompositionSource -> playQueue.map(this::toSessionQueueItem)
-            else -> emptyList()
+    ): Optional<List<MediaSessionCompat.QueueItem>> {
+        val queueItems = when(currentSource.value) {
+            is LibraryCompositionSource -> queueWindow.update(playQueue, currentItemEvent.playQueueItem?.id)
+            else -> queueWindow.update(emptyList(), null)
         }
+        return Optional(queueItems)
     }
 
     private fun toSessionQueueItem(item: PlayQueueItem): MediaSessionCompat.QueueItem {
@@ -325,7 +349,7 @@ class MediaSessionHandler(private val context: Context,
         lateinit var playerState: PlayerState
         lateinit var playQueueCurrentItem: PlayQueueEvent
         var currentSource: CompositionSource? = null
-        var trackPosition: Long = 0
+        lateinit var playbackPosition: PlaybackPosition
         var playbackSpeed: Float = 0.0f
         var repeatMode: Int = 0
         var randomMode: Boolean = false
@@ -334,7 +358,7 @@ class MediaSessionHandler(private val context: Context,
                 playerState: PlayerState,
                 playQueueCurrentItem: PlayQueueEvent,
                 currentSource: Optional<CompositionSource>,
-                trackPosition: Long,
+                playbackPosition: PlaybackPosition,
                 playbackSpeed: Float,
                 repeatMode: Int,
                 randomMode: Boolean
@@ -342,7 +366,7 @@ class MediaSessionHandler(private val context: Context,
             this.playerState = playerState
             this.playQueueCurrentItem = playQueueCurrentItem
             this.currentSource = currentSource.value
-            this.trackPosition = trackPosition
+            this.playbackPosition = playbackPosition
             this.playbackSpeed = playbackSpeed
             this.repeatMode = repeatMode
             this.randomMode = randomMode
@@ -0,0 +1,101 @@
+package com.github.anrimian.musicplayer.infrastructure
+
+import com.github.anrimian.musicplayer.domain.models.play_queue.PlayQueueItem
+import com.github.anrimian.musicplayer.domain.models.utils.PlayQueueItemHelper
+
+/**
+ * Part of play queue around current item which is published to media session.
+ * Whole queue can be too big for binder transaction, so session gets only [windowSize] items.
+ * Window stays in place while current item is not closer than [edgeDistance] to its edges
+ * and then moves to keep current item in the middle.
+ * Items are mapped only when they enter the window or their composition is changed.
+ *
+ * Not thread safe, expected to be used from one subscription.
+ */
+class MediaSessionQueueWindow<T>(
+        private val windowSize: Int,
+        private val edgeDistance: Int,
+        private val mapper: (PlayQueueItem) -> T
+) {
+
+    private var windowStart = 0
+    private var currentIndex = -1
+
+    private var windowItems: List<PlayQueueItem>? = null
+    private var mappedItems = HashMap<Long, MappedItem<T>>()
+
+    /**
+     * @return mapped items of visible window or null if window is not changed
+     */
+    fun update(queue: List<PlayQueueItem>, currentItemId: Long?): List<T>? {
+        currentIndex = findCurrentIndex(queue, currentItemId)
+        windowStart = getWindowStart(queue.size, currentIndex)
+        val newWindowItems = queue.subList(windowStart, minOf(windowStart + windowSize, queue.size))
+        if (isSameWindow(newWindowItems)) {
+            return null
+        }
+        //copy, queue list can be changed by its owner
+        windowItems = ArrayList(newWindowItems)
+
+        val newMappedItems = HashMap<Long, MappedItem<T>>(newWindowItems.size * 2)
+        val result = ArrayList<T>(newWindowItems.size)
+        for (item in newWindowItems) {
+            var mappedItem = mappedItems[item.id]
+            if (mappedItem == null || !PlayQueueItemHelper.areSourcesTheSame(mappedItem.item, item)) {
+                mappedItem = MappedItem(item, mapper(item))
+            }
+            newMappedItems[item.id] = mappedItem
+            result.add(mappedItem.value)
+        }
+        mappedItems = newMappedItems
+        return result
+    }
+
+    private fun findCurrentIndex(queue: List<PlayQueueItem>, currentItemId: Long?): Int {
+        if (currentItemId == null) {
+            return -1
+        }
+        //usually current item is the same or the next one, check it before full search
+        for (index in currentIndex - 1..currentIndex + 1) {
+            if (index >= 0 && index < queue.size && queue[index].id == currentItemId) {
+                return index
+            }
+        }
+        return queue.indexOfFirst { item -> item.id == currentItemId }
+    }
+
+    private fun getWindowStart(queueSize: Int, currentIndex: Int): Int {
+        val maxStart = queueSize - windowSize
+        if (maxStart <= 0) {
+            return 0
+        }
+        val start = windowStart.coerceIn(0, maxStart)
+        if (currentIndex == -1) {
+            return start
+        }
+        val isNearStart = start > 0 && currentIndex < start + edgeDistance
+        val isNearEnd = start < maxStart && currentIndex >= start + windowSize - edgeDistance
+        if (isNearStart || isNearEnd) {
+            return (currentIndex - windowSize / 2).coerceIn(0, maxStart)
+        }
+        return start
+    }
+
+    private fun isSameWindow(newWindowItems: List<PlayQueueItem>): Boolean {
+        val oldWindowItems = windowItems ?: return false
+        if (oldWindowItems.size != newWindowItems.size) {
+            return false
+        }
+        for (i in oldWindowItems.indices) {
+            val oldItem = oldWindowItems[i]
+            val newItem = newWindowItems[i]
+            if (oldItem.id != newItem.id || !PlayQueueItemHelper.areSourcesTheSame(oldItem, newItem)) {
+                return false
+            }
+        }
+        return true
+    }
+
+    private class MappedItem<T>(val item: PlayQueueItem, val value: T)
+
+}
@@ -72,9 +72,17 @@ public class CompositionItemWrapper {
         iconClickableArea = itemView.findViewById(R.id.icon_clickable_area);
 
         if (iconClickableArea != null) {
-            iconClickableArea.setOnClickListener(v -> onIconClickListener.call(composition));
+            iconClickableArea.setOnClickListener(v -> {
+                if (composition != null) {
+                    onIconClickListener.call(composition);
+                }
+            });
         }
-        clickableItem.setOnClickListener(v -> onClickListener.call(composition));
+        clickableItem.setOnClickListener(v -> {
+            if (composition != null) {
+                onClickListener.call(composition);
+            }
+        });
     }
 
     public void bind(Composition composition, boolean showCovers) {
@@ -89,6 +97,18 @@ public class CompositionItemWrapper {
         showAsPlaying(false, false);
     }
 
+    /**
+     * Shows empty item while composition is not loaded
+     */
+    public void bindPlaceholder() {
+        this.composition = null;
+        tvMusicName.setText(null);
+        tvAdditionalInfo.setText(null);
+        clickableItem.setContentDescription(null);
+        showCompositionImage(false);
+        showAsPlaying(false, false);
+    }
+
     public void update(Composition composition, List<Object> payloads) {
         this.composition = composition;
         for (Object payload: payloads) {
@@ -114,7 +134,7 @@ public class CompositionItemWrapper {
 
     public void showCompositionImage(boolean showCovers) {
         if (ivMusicIcon != null) {
-            if (showCovers) {
+            if (showCovers && composition != null) {
                 Components.getAppComponent().imageLoader().displayImage(ivMusicIcon,
                         composition,
                         this::onCoverImageLoadFinished);
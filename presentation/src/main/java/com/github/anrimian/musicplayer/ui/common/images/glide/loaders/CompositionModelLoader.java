@@ -1,27 +1,27 @@
 package com.github.anrimian.musicplayer.ui.common.images.glide.loaders;
 
-import android.content.Context;
 import android.graphics.Bitmap;
-import android.media.MediaMetadataRetriever;
+import android.graphics.BitmapFactory;
 
 import androidx.annotation.NonNull;
 
 import com.bumptech.glide.Priority;
 import com.bumptech.glide.load.data.DataFetcher;
-import com.github.anrimian.musicplayer.R;
-import com.github.anrimian.musicplayer.data.storage.source.CompositionSourceProvider;
+import com.bumptech.glide.request.target.Target;
+import com.github.anrimian.musicplayer.data.storage.artwork.ArtworkThumbnailStore;
+import com.github.anrimian.musicplayer.data.storage.artwork.ThumbnailSize;
 import com.github.anrimian.musicplayer.ui.common.images.glide.util.AppModelLoader;
 import com.github.anrimian.musicplayer.ui.common.images.models.CompositionImage;
-import com.github.anrimian.musicplayer.ui.utils.ImageUtils;
+
+import java.io.File;
+import java.util.Date;
 
 public class CompositionModelLoader extends AppModelLoader<CompositionImage, Bitmap> {
 
-    private final Context context;
-    private final CompositionSourceProvider compositionSourceProvider;
+    private final ArtworkThumbnailStore artworkThumbnailStore;
 
-    public CompositionModelLoader(Context context, CompositionSourceProvider compositionSourceProvider) {
-        this.context = context;
-        this.compositionSourceProvider = compositionSourceProvider;
+    public CompositionModelLoader(ArtworkThumbnailStore artworkThumbnailStore) {
+        this.artworkThumbnailStore = artworkThumbnailStore;
     }
 
     @Override
@@ -33,30 +33,33 @@ public class CompositionModelLoader extends AppModelLoader<CompositionImage, Bit
     protected void loadData(CompositionImage compositionImage,
                             @NonNull Priority priority,
                             @NonNull DataFetcher.DataCallback<? super Bitmap> callback) {
-        MediaMetadataRetriever mmr = null;
+        loadData(compositionImage, Target.SIZE_ORIGINAL, Target.SIZE_ORIGINAL, priority, callback);
+    }
+
+    @Override
+    protected void loadData(CompositionImage compositionImage,
+                            int width,
+                            int height,
+                            @NonNull Priority priority,
+                            @NonNull DataFetcher.DataCallback<? super Bitmap> callback) {
         try {
-            long id = compositionImage.getId();
-            byte[] imageBytes = compositionSourceProvider.getCompositionArtworkBinaryData(id)
-                    .blockingGet();
-
-            if (imageBytes == null) {
-                mmr = new MediaMetadataRetriever();
-                mmr.setDataSource(compositionSourceProvider.getCompositionFileDescriptor(id));
-                imageBytes = mmr.getEmbeddedPicture();
-            }
+            int requestedSize = width == Target.SIZE_ORIGINAL || height == Target.SIZE_ORIGINAL
+                    ? Integer.MAX_VALUE
+                    : Math.max(width, height);
+            Date dateModified = compositionImage.getLastModifyTime();
+            File file = artworkThumbnailStore.getThumbnail(compositionImage.getId(),
+                    dateModified == null ? new Date(0) : dateModified,
+                    ThumbnailSize.forRequestedSize(requestedSize));
 
             Bitmap bitmap = null;
-            if (imageBytes != null) {
-                int coverSize = context.getResources().getInteger(R.integer.icon_image_full_size);
-                bitmap = ImageUtils.decodeBitmap(imageBytes, coverSize);
+            if (file != null) {
+                BitmapFactory.Options opt = new BitmapFactory.Options();
+                opt.inPreferredConfig = Bitmap.Config.RGB_565;
+                bitmap = BitmapFactory.decodeFile(file.getPath(), opt);
             }
             callback.onDataReady(bitmap);
         } catch (Exception e) {
             callback.onLoadFailed(e);
-        } finally {
-            if (mmr != null) {
-                mmr.release();
-            }
         }
     }
 
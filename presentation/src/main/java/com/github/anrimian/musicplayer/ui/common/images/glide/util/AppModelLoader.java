@@ -43,6 +43,14 @@ public abstract class AppModelLoader<Model, Data> {
                                      @NonNull Priority priority,
                                      @NonNull DataFetcher.DataCallback<? super Data> callback);
 
+    protected void loadData(Model model,
+                            int width,
+                            int height,
+                            @NonNull Priority priority,
+                            @NonNull DataFetcher.DataCallback<? super Data> callback) {
+        loadData(model, priority, callback);
+    }
+
     private static class SimpleLoaderFactory<Model, Data> implements ModelLoaderFactory<Model, Data> {
 
         private final Class<Data> dataClass;
@@ -84,7 +92,7 @@ public abstract class AppModelLoader<Model, Data> {
                                             @NonNull Options options) {
             return new LoadData<>(
                     new ObjectKey(appModelLoader.getModelKey(model)),
-                    new SimpleDataFetcher<>(model, dataClass, appModelLoader)
+                    new SimpleDataFetcher<>(model, width, height, dataClass, appModelLoader)
             );
         }
 
@@ -97,20 +105,26 @@ public abstract class AppModelLoader<Model, Data> {
     private static class SimpleDataFetcher<Model, Data> implements DataFetcher<Data> {
 
         private final Model model;
+        private final int width;
+        private final int height;
         private final Class<Data> dataClass;
         private final AppModelLoader<Model, Data> appModelLoader;
 
         public SimpleDataFetcher(Model model,
+                                 int width,
+                                 int height,
                                  Class<Data> dataClass,
                                  AppModelLoader<Model, Data> appModelLoader) {
             this.model = model;
+            this.width = width;
+            this.height = height;
             this.dataClass = dataClass;
             this.appModelLoader = appModelLoader;
         }
 
         @Override
         public void loadData(@NonNull Priority priority, @NonNull DataCallback<? super Data> callback) {
-            appModelLoader.loadData(model, priority, callback);
+            appModelLoader.loadData(model, width, height, priority, callback);
         }
 
         @Override
@@ -1,10 +1,9 @@
 package com.github.anrimian.musicplayer.ui.common.mvp;
 
+import com.github.anrimian.musicplayer.domain.utils.paging.PagedList;
 import com.github.anrimian.musicplayer.ui.common.error.ErrorCommand;
 import com.github.anrimian.musicplayer.ui.utils.moxy.SingleStateByTagStrategy;
 
-import java.util.List;
-
 import moxy.MvpView;
 import moxy.viewstate.strategy.StateStrategyType;
 import moxy.viewstate.strategy.alias.AddToEndSingle;
@@ -29,5 +28,5 @@ public interface ListMvpView<T> extends MvpView {
     void showLoadingError(ErrorCommand errorCommand);
 
     @AddToEndSingle
-    void updateList(List<T> list);
+    void updateList(PagedList<T> list);
 }
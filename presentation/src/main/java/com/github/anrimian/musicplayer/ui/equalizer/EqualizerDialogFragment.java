@@ -96,7 +96,8 @@ public class EqualizerDialogFragment extends MvpBottomSheetDialogFragment
 
         viewBinding.rbUseSystemEqualizer.setOnClickListener(v -> enableSystemEqualizer());
         viewBinding.btnOpenSystemEqualizer.setOnClickListener(v -> openSystemEqualizer());
-        viewBinding.rbUseAppEqualizer.setOnClickListener(v -> enableAppEqualizer());
+        viewBinding.rbUseAppEqualizer.setOnClickListener(v -> enableInAppEqualizer(EqualizerType.APP));
+        viewBinding.rbUseSoftwareEqualizer.setOnClickListener(v -> enableInAppEqualizer(EqualizerType.SOFTWARE));
         viewBinding.rbDisableEqualizer.setOnClickListener(v -> disableEqualizer());
         viewBinding.ivClose.setOnClickListener(v -> dismissAllowingStateLoss());
         viewBinding.btnRestartSystemEqualizer.setOnClickListener(v -> presenter.onRestartAppEqClicked());
@@ -136,6 +137,9 @@ public class EqualizerDialogFragment extends MvpBottomSheetDialogFragment
 
     @Override
     public void displayEqualizerConfig(EqualizerConfig equalizerConfig) {
+        //app and software equalizers have different bands
+        bandsViewList.clear();
+        viewBinding.llBands.removeAllViews();
         for (Band band: equalizerConfig.getBands()) {
 
             PartialEqualizerBandBinding binding = PartialEqualizerBandBinding.inflate(LayoutInflater.from(getContext()));
@@ -204,9 +208,13 @@ public class EqualizerDialogFragment extends MvpBottomSheetDialogFragment
         showActiveEqualizer(EqualizerType.EXTERNAL);
     }
 
-    private void enableAppEqualizer() {
-        equalizerController.enableEqualizer(EqualizerType.APP);
-        showActiveEqualizer(EqualizerType.APP);
+    private void enableInAppEqualizer(int type) {
+        int previousType = equalizerController.getSelectedEqualizerType();
+        equalizerController.enableEqualizer(type);
+        showActiveEqualizer(type);
+        if (previousType != type) {
+            presenter.onInAppEqualizerChanged();
+        }
     }
 
     private void openSystemEqualizer() {
@@ -222,9 +230,10 @@ public class EqualizerDialogFragment extends MvpBottomSheetDialogFragment
     private void showActiveEqualizer(int type) {
         viewBinding.rbUseSystemEqualizer.setChecked(type == EqualizerType.EXTERNAL);
         viewBinding.rbUseAppEqualizer.setChecked(type == EqualizerType.APP);
+        viewBinding.rbUseSoftwareEqualizer.setChecked(type == EqualizerType.SOFTWARE);
         viewBinding.rbDisableEqualizer.setChecked(type == EqualizerType.NONE);
 
-        setInAppEqualizerSettingsEnabled(type == EqualizerType.APP);
+        setInAppEqualizerSettingsEnabled(type == EqualizerType.APP || type == EqualizerType.SOFTWARE);
     }
 
     private void setInAppEqualizerSettingsEnabled(boolean enabled) {
@@ -16,8 +16,10 @@ class EqualizerPresenter(
     private var eqInitializationState: EqInitializationState? = null
     private var configLoadingError = false
     private var equalizerStateError = false
+    private var isSubscribedOnEqualizerState = false
 
     private lateinit var equalizerConfig: EqualizerConfig
+    private var equalizerState: EqualizerState? = null
 
     override fun onFirstViewAttach() {
         super.onFirstViewAttach()
@@ -62,12 +64,16 @@ class EqualizerPresenter(
         }
     }
 
+    fun onInAppEqualizerChanged() {
+        loadEqualizerConfig()
+    }
+
     fun onRestartAppEqClicked() {
         interactor.tryToReattachEqualizer()
         if (configLoadingError) {
             loadEqualizerConfig()
         } else if (equalizerStateError) {
-            subscribeOnEqualizerState(equalizerConfig)
+            subscribeOnEqualizerState()
         }
     }
 
@@ -77,7 +83,13 @@ class EqualizerPresenter(
         viewState.displayEqualizerConfig(config)
         tryToShowRestartEqButton()
 
-        subscribeOnEqualizerState(config)
+        val state = equalizerState
+        if (state != null) {
+            viewState.displayEqualizerState(state, config)
+        }
+        if (!isSubscribedOnEqualizerState) {
+            subscribeOnEqualizerState()
+        }
     }
 
     private fun onEqConfigError(throwable: Throwable) {
@@ -86,21 +98,21 @@ class EqualizerPresenter(
         tryToShowRestartEqButton()
     }
 
-    private fun subscribeOnEqualizerState(config: EqualizerConfig) {
+    private fun subscribeOnEqualizerState() {
+        isSubscribedOnEqualizerState = true
         interactor.equalizerStateObservable
-            .subscribeOnUi(
-                { equalizerState -> onEqualizerStateReceived(equalizerState, config) },
-                this::onEqStateError
-            )
+            .subscribeOnUi(this::onEqualizerStateReceived, this::onEqStateError)
     }
 
-    private fun onEqualizerStateReceived(equalizerState: EqualizerState, config: EqualizerConfig) {
+    private fun onEqualizerStateReceived(equalizerState: EqualizerState) {
+        this.equalizerState = equalizerState
         equalizerStateError = false
-        viewState.displayEqualizerState(equalizerState, config)
+        viewState.displayEqualizerState(equalizerState, equalizerConfig)
         tryToShowRestartEqButton()
     }
 
     private fun onEqStateError(throwable: Throwable) {
+        isSubscribedOnEqualizerState = false
         equalizerStateError = true
         viewState.showErrorMessage(errorParser.parseError(throwable))
         tryToShowRestartEqButton()
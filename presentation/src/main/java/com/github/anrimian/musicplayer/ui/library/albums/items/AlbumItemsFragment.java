@@ -23,6 +23,7 @@ import com.github.anrimian.musicplayer.domain.models.composition.Composition;
 import com.github.anrimian.musicplayer.domain.models.composition.CurrentComposition;
 import com.github.anrimian.musicplayer.domain.models.playlist.PlayList;
 import com.github.anrimian.musicplayer.domain.models.utils.ListPosition;
+import com.github.anrimian.musicplayer.domain.utils.paging.PagedList;
 import com.github.anrimian.musicplayer.ui.common.dialogs.DialogUtils;
 import com.github.anrimian.musicplayer.ui.common.dialogs.composition.CompositionActionDialogFragment;
 import com.github.anrimian.musicplayer.ui.common.error.ErrorCommand;
@@ -122,8 +123,7 @@ public class AlbumItemsFragment extends BaseLibraryCompositionsFragment implemen
 
         RecyclerViewUtils.attachFastScroller(recyclerView, true);
 
-        adapter = new CompositionsAdapter(recyclerView,
-                presenter.getSelectedCompositions(),
+        adapter = new CompositionsAdapter(presenter.getSelectedCompositions(),
                 presenter::onCompositionClicked,
                 presenter::onCompositionLongClick,
                 presenter::onCompositionIconClicked,
@@ -231,8 +231,8 @@ public class AlbumItemsFragment extends BaseLibraryCompositionsFragment implemen
     }
 
     @Override
-    public void updateList(List<Composition> genres) {
-        adapter.submitList(genres);
+    public void updateList(PagedList<Composition> compositions) {
+        adapter.submitList(compositions);
     }
 
     @Override
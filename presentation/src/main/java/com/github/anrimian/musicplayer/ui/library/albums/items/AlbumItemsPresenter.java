@@ -9,11 +9,10 @@ import com.github.anrimian.musicplayer.domain.interactors.settings.DisplaySettin
 import com.github.anrimian.musicplayer.domain.models.albums.Album;
 import com.github.anrimian.musicplayer.domain.models.composition.Composition;
 import com.github.anrimian.musicplayer.domain.models.utils.ListPosition;
+import com.github.anrimian.musicplayer.domain.utils.paging.PagedList;
 import com.github.anrimian.musicplayer.ui.common.error.parser.ErrorParser;
 import com.github.anrimian.musicplayer.ui.library.common.compositions.BaseLibraryCompositionsPresenter;
 
-import java.util.List;
-
 import javax.annotation.Nullable;
 
 import io.reactivex.rxjava3.core.Observable;
@@ -52,8 +51,8 @@ public class AlbumItemsPresenter extends BaseLibraryCompositionsPresenter<AlbumI
 
     @NonNull
     @Override
-    protected Observable<List<Composition>> getCompositionsObservable(String searchText) {
-        return interactor.getAlbumItemsObservable(albumId);
+    protected Observable<PagedList<Composition>> getCompositionsObservable(String searchText) {
+        return interactor.getAlbumItemsObservable(albumId).map(PagedList::fromList);
     }
 
     @Override
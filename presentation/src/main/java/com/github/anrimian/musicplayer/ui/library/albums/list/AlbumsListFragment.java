@@ -21,6 +21,7 @@ import com.github.anrimian.musicplayer.domain.models.albums.Album;
 import com.github.anrimian.musicplayer.domain.models.order.Order;
 import com.github.anrimian.musicplayer.domain.models.order.OrderType;
 import com.github.anrimian.musicplayer.domain.models.utils.ListPosition;
+import com.github.anrimian.musicplayer.domain.utils.paging.PagedList;
 import com.github.anrimian.musicplayer.ui.common.error.ErrorCommand;
 import com.github.anrimian.musicplayer.ui.common.format.MessagesUtils;
 import com.github.anrimian.musicplayer.ui.common.menu.PopupMenuWindow;
@@ -40,7 +41,6 @@ import com.github.anrimian.musicplayer.ui.utils.fragments.navigation.FragmentNav
 import com.github.anrimian.musicplayer.ui.utils.views.recycler_view.RecyclerViewUtils;
 import com.google.android.material.snackbar.Snackbar;
 
-import java.util.List;
 
 import moxy.presenter.InjectPresenter;
 import moxy.presenter.ProvidePresenter;
@@ -83,7 +83,7 @@ public class AlbumsListFragment extends LibraryFragment implements
 
         viewBinding.progressStateView.onTryAgainClick(presenter::onTryAgainLoadCompositionsClicked);
 
-        adapter = new AlbumsAdapter(recyclerView, this::goToAlbumScreen, this::onAlbumMenuClicked);
+        adapter = new AlbumsAdapter(this::goToAlbumScreen, this::onAlbumMenuClicked);
         recyclerView.setAdapter(adapter);
 
         layoutManager = new LinearLayoutManager(getContext());
@@ -147,7 +147,7 @@ public class AlbumsListFragment extends LibraryFragment implements
     }
 
     @Override
-    public void submitList(List<Album> albums) {
+    public void submitList(PagedList<Album> albums) {
         adapter.submitList(albums);
     }
 
@@ -4,22 +4,27 @@ import com.github.anrimian.musicplayer.data.utils.rx.RxUtils
 import com.github.anrimian.musicplayer.domain.interactors.library.LibraryAlbumsInteractor
 import com.github.anrimian.musicplayer.domain.models.albums.Album
 import com.github.anrimian.musicplayer.domain.models.order.Order
+import com.github.anrimian.musicplayer.domain.models.utils.AlbumHelper
 import com.github.anrimian.musicplayer.domain.models.utils.ListPosition
 import com.github.anrimian.musicplayer.domain.utils.TextUtils
+import com.github.anrimian.musicplayer.domain.utils.changes.ChangeType
+import com.github.anrimian.musicplayer.domain.utils.paging.ListUpdate
+import com.github.anrimian.musicplayer.domain.utils.paging.PagedList
 import com.github.anrimian.musicplayer.ui.common.error.parser.ErrorParser
 import com.github.anrimian.musicplayer.ui.common.mvp.AppPresenter
 import io.reactivex.rxjava3.core.Scheduler
 import io.reactivex.rxjava3.disposables.Disposable
-import java.util.*
 
 class AlbumsListPresenter(private val interactor: LibraryAlbumsInteractor,
                           errorParser: ErrorParser,
-                          uiScheduler: Scheduler) 
+                          uiScheduler: Scheduler,
+                          private val ioScheduler: Scheduler) 
     : AppPresenter<AlbumsListView>(uiScheduler, errorParser) {
     
     private var albumsDisposable: Disposable? = null
+    private var albumsUpdatesDisposable: Disposable? = null
     
-    private var albums: List<Album> = ArrayList()
+    private var albums: PagedList<Album> = PagedList.empty()
     
     private var searchText: String? = null
 
@@ -58,7 +63,15 @@ class AlbumsListPresenter(private val interactor: LibraryAlbumsInteractor,
             viewState.showLoading()
         }
         RxUtils.dispose(albumsDisposable, presenterDisposable)
-        albumsDisposable = interactor.getAlbumsObservable(searchText)
+        val initialPosition = interactor.savedListPosition?.position ?: 0
+        albumsDisposable = interactor.getAlbumsPageSourceObservable(searchText)
+                .switchMap { source ->
+                    PagedList.observe(source,
+                            AlbumHelper::areSourcesTheSame,
+                            initialPosition,
+                            ioScheduler,
+                            uiScheduler)
+                }
                 .observeOn(uiScheduler)
                 .subscribe(this::onAlbumsReceived, this::onAlbumsReceivingError)
         presenterDisposable.add(albumsDisposable!!)
@@ -69,11 +82,33 @@ class AlbumsListPresenter(private val interactor: LibraryAlbumsInteractor,
         viewState.showLoadingError(errorCommand)
     }
 
-    private fun onAlbumsReceived(albums: List<Album>) {
+    private fun onAlbumsReceived(albums: PagedList<Album>) {
         val firstReceive = this.albums.isEmpty()
 
         this.albums = albums
         viewState.submitList(albums)
+        RxUtils.dispose(albumsUpdatesDisposable, presenterDisposable)
+        albumsUpdatesDisposable = albums.updatesObservable
+                .subscribe(this::onAlbumsUpdated)
+        presenterDisposable.add(albumsUpdatesDisposable!!)
+
+        showListState()
+        if (!albums.isEmpty() && firstReceive) {
+            val listPosition = interactor.savedListPosition
+            if (listPosition != null) {
+                viewState.restoreListPosition(listPosition)
+            }
+        }
+    }
+
+    //list changes are applied by adapter, here only empty state is updated
+    private fun onAlbumsUpdated(update: ListUpdate) {
+        if (update.type != ChangeType.MODIFY) {
+            showListState()
+        }
+    }
+
+    private fun showListState() {
         if (albums.isEmpty()) {
             if (TextUtils.isEmpty(searchText)) {
                 viewState.showEmptyList()
@@ -82,12 +117,6 @@ class AlbumsListPresenter(private val interactor: LibraryAlbumsInteractor,
             }
         } else {
             viewState.showList()
-            if (firstReceive) {
-                val listPosition = interactor.savedListPosition
-                if (listPosition != null) {
-                    viewState.restoreListPosition(listPosition)
-                }
-            }
         }
     }
 }
\ No newline at end of file
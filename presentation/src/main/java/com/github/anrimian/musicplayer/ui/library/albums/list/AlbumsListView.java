@@ -3,11 +3,10 @@ package com.github.anrimian.musicplayer.ui.library.albums.list;
 import com.github.anrimian.musicplayer.domain.models.albums.Album;
 import com.github.anrimian.musicplayer.domain.models.order.Order;
 import com.github.anrimian.musicplayer.domain.models.utils.ListPosition;
+import com.github.anrimian.musicplayer.domain.utils.paging.PagedList;
 import com.github.anrimian.musicplayer.ui.common.error.ErrorCommand;
 import com.github.anrimian.musicplayer.ui.utils.moxy.SingleStateByTagStrategy;
 
-import java.util.List;
-
 import moxy.MvpView;
 import moxy.viewstate.strategy.StateStrategyType;
 import moxy.viewstate.strategy.alias.AddToEndSingle;
@@ -34,7 +33,7 @@ public interface AlbumsListView extends MvpView {
     void showLoadingError(ErrorCommand errorCommand);
 
     @AddToEndSingle
-    void submitList(List<Album> albums);
+    void submitList(PagedList<Album> albums);
 
     @OneExecution
     void showErrorMessage(ErrorCommand errorCommand);
@@ -31,8 +31,16 @@ public class AlbumViewHolder extends BaseViewHolder {
         super(parent, R.layout.item_album);
         viewBinding = ItemAlbumBinding.bind(itemView);
 
-        viewBinding.clickableItem.setOnClickListener(v -> itemClickListener.call(album));
-        viewBinding.btnActionsMenu.setOnClickListener(v -> onItemMenuClickListener.onItemClick(v, album));
+        viewBinding.clickableItem.setOnClickListener(v -> {
+            if (album != null) {
+                itemClickListener.call(album);
+            }
+        });
+        viewBinding.btnActionsMenu.setOnClickListener(v -> {
+            if (album != null) {
+                onItemMenuClickListener.onItemClick(v, album);
+            }
+        });
     }
 
     public void bind(Album album) {
@@ -42,6 +50,15 @@ public class AlbumViewHolder extends BaseViewHolder {
         showCover();
     }
 
+    public void bindPlaceholder() {
+        album = null;
+        viewBinding.tvAlbumName.setText(null);
+        viewBinding.tvCompositionsCount.setText(null);
+        viewBinding.clickableItem.setContentDescription(null);
+        Components.getAppComponent().imageLoader().clearImage(viewBinding.ivMusicIcon);
+        viewBinding.ivMusicIcon.setImageResource(R.drawable.ic_album_placeholder);
+    }
+
     public void update(Album album, List<Object> payloads) {
         this.album = album;
         for (Object payload: payloads) {
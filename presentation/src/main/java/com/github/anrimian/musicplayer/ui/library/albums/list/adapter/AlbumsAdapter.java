@@ -3,26 +3,24 @@ package com.github.anrimian.musicplayer.ui.library.albums.list.adapter;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
-import androidx.recyclerview.widget.RecyclerView;
 
 import com.github.anrimian.musicplayer.domain.models.albums.Album;
 import com.github.anrimian.musicplayer.domain.models.utils.AlbumHelper;
 import com.github.anrimian.musicplayer.domain.utils.functions.Callback;
 import com.github.anrimian.musicplayer.ui.utils.OnViewItemClickListener;
 import com.github.anrimian.musicplayer.ui.utils.views.recycler_view.diff_utils.SimpleDiffItemCallback;
-import com.github.anrimian.musicplayer.ui.utils.views.recycler_view.diff_utils.adapter.DiffListAdapter;
+import com.github.anrimian.musicplayer.ui.utils.views.recycler_view.diff_utils.adapter.PagedListAdapter;
 
 import java.util.List;
 
-public class AlbumsAdapter extends DiffListAdapter<Album, AlbumViewHolder> {
+public class AlbumsAdapter extends PagedListAdapter<Album, AlbumViewHolder> {
 
     private final Callback<Album> onClickListener;
     private final OnViewItemClickListener<Album> onItemMenuClickListener;
 
-    public AlbumsAdapter(RecyclerView recyclerView,
-                         Callback<Album> onClickListener,
+    public AlbumsAdapter(Callback<Album> onClickListener,
                          OnViewItemClickListener<Album> onItemMenuClickListener) {
-        super(recyclerView, new SimpleDiffItemCallback<>(
+        super(new SimpleDiffItemCallback<>(
                 AlbumHelper::areSourcesTheSame,
                 AlbumHelper::getChangePayload)
         );
@@ -38,7 +36,12 @@ public class AlbumsAdapter extends DiffListAdapter<Album, AlbumViewHolder> {
 
     @Override
     public void onBindViewHolder(@NonNull AlbumViewHolder holder, int position) {
-        holder.bind(getItem(position));
+        Album album = getItem(position);
+        if (album == null) {
+            holder.bindPlaceholder();
+        } else {
+            holder.bind(album);
+        }
     }
 
     @Override
@@ -49,7 +52,10 @@ public class AlbumsAdapter extends DiffListAdapter<Album, AlbumViewHolder> {
             super.onBindViewHolder(holder, position, payloads);
             return;
         }
-        holder.update(getItem(position), payloads);
+        Album album = getItem(position);
+        if (album != null) {
+            holder.update(album, payloads);
+        }
     }
 
     @Override
@@ -20,6 +20,7 @@ import com.github.anrimian.musicplayer.domain.models.composition.CurrentComposit
 import com.github.anrimian.musicplayer.domain.models.playlist.PlayList
 import com.github.anrimian.musicplayer.domain.models.utils.ListPosition
 import com.github.anrimian.musicplayer.domain.utils.functions.BooleanConditionRunner
+import com.github.anrimian.musicplayer.domain.utils.paging.PagedList
 import com.github.anrimian.musicplayer.ui.common.dialogs.DialogUtils
 import com.github.anrimian.musicplayer.ui.common.dialogs.composition.CompositionActionDialogFragment
 import com.github.anrimian.musicplayer.ui.common.dialogs.input.InputTextDialogFragment
@@ -220,7 +221,9 @@ class ArtistItemsFragment : BaseLibraryCompositionsFragment(),
         viewBinding.progressStateView.showMessage(errorCommand.message, true)
     }
 
-    override fun updateList(compositions: List<Composition>) {
+    //artist compositions list is always fully loaded
+    override fun updateList(pagedList: PagedList<Composition>) {
+        val compositions = pagedList.toList() ?: emptyList()
         val list: MutableList<Any> = ArrayList()
         list.add(artistAlbumsPresenter)
         list.addAll(compositions)
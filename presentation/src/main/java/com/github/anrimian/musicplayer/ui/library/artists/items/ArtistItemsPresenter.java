@@ -14,6 +14,7 @@ import com.github.anrimian.musicplayer.domain.models.albums.Album;
 import com.github.anrimian.musicplayer.domain.models.artist.Artist;
 import com.github.anrimian.musicplayer.domain.models.composition.Composition;
 import com.github.anrimian.musicplayer.domain.models.utils.ListPosition;
+import com.github.anrimian.musicplayer.domain.utils.paging.PagedList;
 import com.github.anrimian.musicplayer.ui.common.error.parser.ErrorParser;
 import com.github.anrimian.musicplayer.ui.library.common.compositions.BaseLibraryCompositionsPresenter;
 
@@ -62,8 +63,8 @@ public class ArtistItemsPresenter extends BaseLibraryCompositionsPresenter<Artis
 
     @NonNull
     @Override
-    protected Observable<List<Composition>> getCompositionsObservable(String searchText) {
-        return interactor.getCompositionsByArtist(artistId);
+    protected Observable<PagedList<Composition>> getCompositionsObservable(String searchText) {
+        return interactor.getCompositionsByArtist(artistId).map(PagedList::fromList);
     }
 
     @Override
@@ -26,6 +26,7 @@ import com.github.anrimian.musicplayer.domain.models.artist.Artist;
 import com.github.anrimian.musicplayer.domain.models.order.Order;
 import com.github.anrimian.musicplayer.domain.models.order.OrderType;
 import com.github.anrimian.musicplayer.domain.models.utils.ListPosition;
+import com.github.anrimian.musicplayer.domain.utils.paging.PagedList;
 import com.github.anrimian.musicplayer.ui.common.dialogs.input.InputTextDialogFragment;
 import com.github.anrimian.musicplayer.ui.common.error.ErrorCommand;
 import com.github.anrimian.musicplayer.ui.common.menu.PopupMenuWindow;
@@ -47,7 +48,6 @@ import com.github.anrimian.musicplayer.ui.utils.fragments.navigation.FragmentNav
 import com.github.anrimian.musicplayer.ui.utils.views.recycler_view.RecyclerViewUtils;
 import com.google.android.material.snackbar.Snackbar;
 
-import java.util.List;
 
 import moxy.presenter.InjectPresenter;
 import moxy.presenter.ProvidePresenter;
@@ -97,8 +97,7 @@ public class ArtistsListFragment extends LibraryFragment implements
 
         binding.progressStateView.onTryAgainClick(presenter::onTryAgainLoadCompositionsClicked);
 
-        adapter = new ArtistsAdapter(recyclerView,
-                this::goToArtistScreen,
+        adapter = new ArtistsAdapter(this::goToArtistScreen,
                 this::onArtistMenuClicked);
         recyclerView.setAdapter(adapter);
 
@@ -175,7 +174,7 @@ public class ArtistsListFragment extends LibraryFragment implements
     }
 
     @Override
-    public void submitList(List<Artist> artists) {
+    public void submitList(PagedList<Artist> artists) {
         adapter.submitList(artists);
     }
 
@@ -4,23 +4,28 @@ import com.github.anrimian.musicplayer.data.utils.rx.RxUtils
 import com.github.anrimian.musicplayer.domain.interactors.library.LibraryArtistsInteractor
 import com.github.anrimian.musicplayer.domain.models.artist.Artist
 import com.github.anrimian.musicplayer.domain.models.order.Order
+import com.github.anrimian.musicplayer.domain.models.utils.ArtistHelper
 import com.github.anrimian.musicplayer.domain.models.utils.ListPosition
 import com.github.anrimian.musicplayer.domain.utils.TextUtils
+import com.github.anrimian.musicplayer.domain.utils.changes.ChangeType
+import com.github.anrimian.musicplayer.domain.utils.paging.ListUpdate
+import com.github.anrimian.musicplayer.domain.utils.paging.PagedList
 import com.github.anrimian.musicplayer.ui.common.error.parser.ErrorParser
 import com.github.anrimian.musicplayer.ui.common.mvp.AppPresenter
 import io.reactivex.rxjava3.core.Completable
 import io.reactivex.rxjava3.core.Scheduler
 import io.reactivex.rxjava3.disposables.Disposable
-import java.util.*
 
 class ArtistsListPresenter(private val interactor: LibraryArtistsInteractor,
                            errorParser: ErrorParser,
-                           uiScheduler: Scheduler) 
+                           uiScheduler: Scheduler,
+                           private val ioScheduler: Scheduler) 
     : AppPresenter<ArtistsListView>(uiScheduler, errorParser) {
     
     private var artistsDisposable: Disposable? = null
+    private var artistsUpdatesDisposable: Disposable? = null
 
-    private var artists: List<Artist> = ArrayList()
+    private var artists: PagedList<Artist> = PagedList.empty()
     
     private var searchText: String? = null
 
@@ -75,7 +80,15 @@ class ArtistsListPresenter(private val interactor: LibraryArtistsInteractor,
             viewState.showLoading()
         }
         RxUtils.dispose(artistsDisposable, presenterDisposable)
-        artistsDisposable = interactor.getArtistsObservable(searchText)
+        val initialPosition = interactor.savedListPosition?.position ?: 0
+        artistsDisposable = interactor.getArtistsPageSourceObservable(searchText)
+                .switchMap { source ->
+                    PagedList.observe(source,
+                            ArtistHelper::areSourcesTheSame,
+                            initialPosition,
+                            ioScheduler,
+                            uiScheduler)
+                }
                 .observeOn(uiScheduler)
                 .subscribe(this::onArtistsReceived, this::onArtistsReceivingError)
         presenterDisposable.add(artistsDisposable!!)
@@ -86,11 +99,33 @@ class ArtistsListPresenter(private val interactor: LibraryArtistsInteractor,
         viewState.showLoadingError(errorCommand)
     }
 
-    private fun onArtistsReceived(artists: List<Artist>) {
+    private fun onArtistsReceived(artists: PagedList<Artist>) {
         val firstReceive = this.artists.isEmpty()
 
         this.artists = artists
         viewState.submitList(artists)
+        RxUtils.dispose(artistsUpdatesDisposable, presenterDisposable)
+        artistsUpdatesDisposable = artists.updatesObservable
+                .subscribe(this::onArtistsUpdated)
+        presenterDisposable.add(artistsUpdatesDisposable!!)
+
+        showListState()
+        if (!artists.isEmpty() && firstReceive) {
+            val listPosition = interactor.savedListPosition
+            if (listPosition != null) {
+                viewState.restoreListPosition(listPosition)
+            }
+        }
+    }
+
+    //list changes are applied by adapter, here only empty state is updated
+    private fun onArtistsUpdated(update: ListUpdate) {
+        if (update.type != ChangeType.MODIFY) {
+            showListState()
+        }
+    }
+
+    private fun showListState() {
         if (artists.isEmpty()) {
             if (TextUtils.isEmpty(searchText)) {
                 viewState.showEmptyList()
@@ -99,12 +134,6 @@ class ArtistsListPresenter(private val interactor: LibraryArtistsInteractor,
             }
         } else {
             viewState.showList()
-            if (firstReceive) {
-                val listPosition = interactor.savedListPosition
-                if (listPosition != null) {
-                    viewState.restoreListPosition(listPosition)
-                }
-            }
         }
     }
 
@@ -3,11 +3,10 @@ package com.github.anrimian.musicplayer.ui.library.artists.list;
 import com.github.anrimian.musicplayer.domain.models.artist.Artist;
 import com.github.anrimian.musicplayer.domain.models.order.Order;
 import com.github.anrimian.musicplayer.domain.models.utils.ListPosition;
+import com.github.anrimian.musicplayer.domain.utils.paging.PagedList;
 import com.github.anrimian.musicplayer.ui.common.error.ErrorCommand;
 import com.github.anrimian.musicplayer.ui.utils.moxy.SingleStateByTagStrategy;
 
-import java.util.List;
-
 import moxy.MvpView;
 import moxy.viewstate.strategy.StateStrategyType;
 import moxy.viewstate.strategy.alias.AddToEndSingle;
@@ -40,7 +39,7 @@ public interface ArtistsListView extends MvpView {
     void hideRenameProgress();
 
     @AddToEndSingle
-    void submitList(List<Artist> artists);
+    void submitList(PagedList<Artist> artists);
 
     @OneExecution
     void showErrorMessage(ErrorCommand errorCommand);
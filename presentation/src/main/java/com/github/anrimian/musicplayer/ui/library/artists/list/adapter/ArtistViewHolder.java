@@ -29,8 +29,16 @@ public class ArtistViewHolder extends BaseViewHolder {
         super(parent, R.layout.item_artist);
         viewBinding = ItemArtistBinding.bind(itemView);
 
-        viewBinding.clickableItem.setOnClickListener(v -> itemClickListener.call(artist));
-        viewBinding.btnActionsMenu.setOnClickListener(v -> onItemMenuClickListener.onItemClick(v, artist));
+        viewBinding.clickableItem.setOnClickListener(v -> {
+            if (artist != null) {
+                itemClickListener.call(artist);
+            }
+        });
+        viewBinding.btnActionsMenu.setOnClickListener(v -> {
+            if (artist != null) {
+                onItemMenuClickListener.onItemClick(v, artist);
+            }
+        });
     }
 
     public void bind(Artist artist) {
@@ -39,6 +47,13 @@ public class ArtistViewHolder extends BaseViewHolder {
         showCompositionsCount();
     }
 
+    public void bindPlaceholder() {
+        artist = null;
+        viewBinding.tvArtistName.setText(null);
+        viewBinding.tvAdditionalInfo.setText(null);
+        viewBinding.clickableItem.setContentDescription(null);
+    }
+
     public void update(Artist artist, List<Object> payloads) {
         this.artist = artist;
         for (Object payload: payloads) {
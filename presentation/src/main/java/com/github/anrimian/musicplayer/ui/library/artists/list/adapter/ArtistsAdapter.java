@@ -3,26 +3,24 @@ package com.github.anrimian.musicplayer.ui.library.artists.list.adapter;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
-import androidx.recyclerview.widget.RecyclerView;
 
 import com.github.anrimian.musicplayer.domain.models.artist.Artist;
 import com.github.anrimian.musicplayer.domain.models.utils.ArtistHelper;
 import com.github.anrimian.musicplayer.domain.utils.functions.Callback;
 import com.github.anrimian.musicplayer.ui.utils.OnViewItemClickListener;
 import com.github.anrimian.musicplayer.ui.utils.views.recycler_view.diff_utils.SimpleDiffItemCallback;
-import com.github.anrimian.musicplayer.ui.utils.views.recycler_view.diff_utils.adapter.DiffListAdapter;
+import com.github.anrimian.musicplayer.ui.utils.views.recycler_view.diff_utils.adapter.PagedListAdapter;
 
 import java.util.List;
 
-public class ArtistsAdapter extends DiffListAdapter<Artist, ArtistViewHolder> {
+public class ArtistsAdapter extends PagedListAdapter<Artist, ArtistViewHolder> {
 
     private final Callback<Artist> onClickListener;
     private final OnViewItemClickListener<Artist> onItemMenuClickListener;
 
-    public ArtistsAdapter(RecyclerView recyclerView,
-                          Callback<Artist> onClickListener,
+    public ArtistsAdapter(Callback<Artist> onClickListener,
                           OnViewItemClickListener<Artist> onItemMenuClickListener) {
-        super(recyclerView, new SimpleDiffItemCallback<>(
+        super(new SimpleDiffItemCallback<>(
                 ArtistHelper::areSourcesTheSame,
                 ArtistHelper::getChangePayload)
         );
@@ -38,7 +36,12 @@ public class ArtistsAdapter extends DiffListAdapter<Artist, ArtistViewHolder> {
 
     @Override
     public void onBindViewHolder(@NonNull ArtistViewHolder holder, int position) {
-        holder.bind(getItem(position));
+        Artist artist = getItem(position);
+        if (artist == null) {
+            holder.bindPlaceholder();
+        } else {
+            holder.bind(artist);
+        }
     }
 
     @Override
@@ -49,6 +52,9 @@ public class ArtistsAdapter extends DiffListAdapter<Artist, ArtistViewHolder> {
             super.onBindViewHolder(holder, position, payloads);
             return;
         }
-        holder.update(getItem(position), payloads);
+        Artist artist = getItem(position);
+        if (artist != null) {
+            holder.update(artist, payloads);
+        }
     }
 }
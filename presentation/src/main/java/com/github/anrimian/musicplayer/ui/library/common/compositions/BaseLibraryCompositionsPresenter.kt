@@ -10,6 +10,9 @@ import com.github.anrimian.musicplayer.domain.models.playlist.PlayList
 import com.github.anrimian.musicplayer.domain.models.utils.ListPosition
 import com.github.anrimian.musicplayer.domain.utils.ListUtils
 import com.github.anrimian.musicplayer.domain.utils.TextUtils
+import com.github.anrimian.musicplayer.domain.utils.changes.ChangeType
+import com.github.anrimian.musicplayer.domain.utils.paging.ListUpdate
+import com.github.anrimian.musicplayer.domain.utils.paging.PagedList
 import com.github.anrimian.musicplayer.ui.common.error.parser.ErrorParser
 import com.github.anrimian.musicplayer.ui.common.mvp.AppPresenter
 import io.reactivex.rxjava3.core.Completable
@@ -33,8 +36,9 @@ abstract class BaseLibraryCompositionsPresenter<T : BaseLibraryCompositionsView>
 
     private var currentCompositionDisposable: Disposable? = null
     private var compositionsDisposable: Disposable? = null
+    private var compositionsUpdatesDisposable: Disposable? = null
 
-    private var compositions: List<Composition> = ArrayList()
+    private var compositions: PagedList<Composition> = PagedList.empty()
     private val selectedCompositions = LinkedHashSet<Composition>()
     private val compositionsForPlayList: MutableList<Composition> = LinkedList()
     private val compositionsToDelete: MutableList<Composition> = LinkedList()
@@ -53,7 +57,7 @@ abstract class BaseLibraryCompositionsPresenter<T : BaseLibraryCompositionsView>
     }
 
     fun onStart() {
-        if (compositions.isNotEmpty()) {
+        if (!compositions.isEmpty()) {
             subscribeOnCurrentComposition()
         }
     }
@@ -72,7 +76,7 @@ abstract class BaseLibraryCompositionsPresenter<T : BaseLibraryCompositionsView>
             if (composition == currentComposition) {
                 playerInteractor.playOrPause()
             } else {
-                playerInteractor.startPlaying(compositions, position)
+                startPlaying(position)
                 viewState.showCurrentComposition(CurrentComposition(composition, true))
             }
             return
@@ -95,7 +99,7 @@ abstract class BaseLibraryCompositionsPresenter<T : BaseLibraryCompositionsView>
         if (composition == currentComposition) {
             playerInteractor.playOrPause()
         } else {
-            playerInteractor.startPlaying(compositions, position)
+            startPlaying(position)
             viewState.showCurrentComposition(CurrentComposition(composition, true))
         }
     }
@@ -108,7 +112,7 @@ abstract class BaseLibraryCompositionsPresenter<T : BaseLibraryCompositionsView>
 
     fun onPlayAllButtonClicked() {
         if (selectedCompositions.isEmpty()) {
-            playerInteractor.startPlaying(compositions)
+            playerInteractor.startPlaying(compositions.loadAllPages())
         } else {
             playSelectedCompositions()
         }
@@ -131,7 +135,10 @@ abstract class BaseLibraryCompositionsPresenter<T : BaseLibraryCompositionsView>
     }
 
     fun onPlayNextCompositionClicked(position: Int) {
-        val composition = compositions.elementAtOrNull(position)
+        if (position < 0 || position >= compositions.size()) {
+            return
+        }
+        val composition = compositions.get(position)
         if (composition != null) {
             onPlayNextCompositionClicked(composition)
         }
@@ -178,10 +185,8 @@ abstract class BaseLibraryCompositionsPresenter<T : BaseLibraryCompositionsView>
     }
 
     fun onSelectAllButtonClicked() {
-        selectedCompositions.clear() //reselect previous feature
-        selectedCompositions.addAll(compositions)
-        viewState.showSelectionMode(compositions.size)
-        viewState.setItemsSelected(true)
+        //not loaded pages are selected too
+        compositions.loadAll().subscribeOnUi(this::onAllCompositionsSelected, this::onDefaultError)
     }
 
     fun onPlayNextSelectedCompositionsClicked() {
@@ -195,7 +200,7 @@ abstract class BaseLibraryCompositionsPresenter<T : BaseLibraryCompositionsView>
     }
 
     fun onPlayActionSelected(position: Int) {
-        playerInteractor.startPlaying(compositions, position)
+        startPlaying(position)
     }
 
     fun onSearchTextChanged(text: String?) {
@@ -221,6 +226,7 @@ abstract class BaseLibraryCompositionsPresenter<T : BaseLibraryCompositionsView>
         if (compositions.isEmpty()) {
             viewState.showLoading()
         }
+        RxUtils.dispose(compositionsUpdatesDisposable, presenterDisposable)
         RxUtils.dispose(compositionsDisposable, presenterDisposable)
         compositionsDisposable = getCompositionsObservable(searchText)
                 .observeOn(uiScheduler)
@@ -251,6 +257,20 @@ abstract class BaseLibraryCompositionsPresenter<T : BaseLibraryCompositionsView>
         }
     }
 
+    private fun onAllCompositionsSelected(compositions: List<Composition>) {
+        selectedCompositions.clear() //reselect previous feature
+        selectedCompositions.addAll(compositions)
+        viewState.showSelectionMode(compositions.size)
+        viewState.setItemsSelected(true)
+    }
+
+    private fun startPlaying(position: Int) {
+        compositions.loadAll().subscribeOnUi(
+                { list -> playerInteractor.startPlaying(list, position) },
+                this::onDefaultError
+        )
+    }
+
     private fun addCompositionsToPlayNext(compositions: List<Composition>) {
         playerInteractor.addCompositionsToPlayNext(compositions)
                 .subscribeOnUi(viewState::onCompositionsAddedToPlayNext, this::onDefaultError)
@@ -300,11 +320,33 @@ abstract class BaseLibraryCompositionsPresenter<T : BaseLibraryCompositionsView>
         viewState.showLoadingError(errorCommand)
     }
 
-    private fun onCompositionsReceived(compositions: List<Composition>) {
+    private fun onCompositionsReceived(compositions: PagedList<Composition>) {
         val firstReceive = this.compositions.isEmpty()
 
         this.compositions = compositions
         viewState.updateList(compositions)
+        RxUtils.dispose(compositionsUpdatesDisposable, presenterDisposable)
+        compositionsUpdatesDisposable = compositions.updatesObservable
+                .subscribe(this::onCompositionsUpdated)
+        presenterDisposable.add(compositionsUpdatesDisposable!!)
+
+        showListState()
+        if (!compositions.isEmpty() && firstReceive) {
+            val listPosition = getSavedListPosition()
+            if (listPosition != null) {
+                viewState.restoreListPosition(listPosition)
+            }
+        }
+    }
+
+    //list changes are applied by adapter, here only empty state is updated
+    private fun onCompositionsUpdated(update: ListUpdate) {
+        if (update.type != ChangeType.MODIFY) {
+            showListState()
+        }
+    }
+
+    private fun showListState() {
         if (compositions.isEmpty()) {
             if (TextUtils.isEmpty(searchText)) {
                 viewState.showEmptyList()
@@ -313,13 +355,6 @@ abstract class BaseLibraryCompositionsPresenter<T : BaseLibraryCompositionsView>
             }
         } else {
             viewState.showList()
-            if (firstReceive) {
-                val listPosition = getSavedListPosition()
-                if (listPosition != null) {
-                    viewState.restoreListPosition(listPosition)
-                }
-            }
-
             if (RxUtils.isInactive(currentCompositionDisposable)) {
                 subscribeOnCurrentComposition()
             }
@@ -336,7 +371,7 @@ abstract class BaseLibraryCompositionsPresenter<T : BaseLibraryCompositionsView>
             .subscribeOnUi(viewState::setDisplayCoversEnabled, errorParser::logError)
     }
 
-    protected abstract fun getCompositionsObservable(searchText: String?): Observable<List<Composition>>
+    protected abstract fun getCompositionsObservable(searchText: String?): Observable<PagedList<Composition>>
     protected abstract fun getSavedListPosition(): ListPosition?
     protected abstract fun saveListPosition(listPosition: ListPosition)
 
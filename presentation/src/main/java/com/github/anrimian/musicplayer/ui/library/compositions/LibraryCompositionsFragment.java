@@ -33,6 +33,7 @@ import com.github.anrimian.musicplayer.domain.models.order.Order;
 import com.github.anrimian.musicplayer.domain.models.order.OrderType;
 import com.github.anrimian.musicplayer.domain.models.playlist.PlayList;
 import com.github.anrimian.musicplayer.domain.models.utils.ListPosition;
+import com.github.anrimian.musicplayer.domain.utils.paging.PagedList;
 import com.github.anrimian.musicplayer.ui.common.dialogs.DialogUtils;
 import com.github.anrimian.musicplayer.ui.common.dialogs.composition.CompositionActionDialogFragment;
 import com.github.anrimian.musicplayer.ui.common.error.ErrorCommand;
@@ -119,8 +120,7 @@ public class LibraryCompositionsFragment extends BaseLibraryCompositionsFragment
 
         RecyclerViewUtils.attachFastScroller(recyclerView, true);
 
-        adapter = new CompositionsAdapter(recyclerView,
-                presenter.getSelectedCompositions(),
+        adapter = new CompositionsAdapter(presenter.getSelectedCompositions(),
                 presenter::onCompositionClicked,
                 presenter::onCompositionLongClick,
                 presenter::onCompositionIconClicked,
@@ -223,8 +223,8 @@ public class LibraryCompositionsFragment extends BaseLibraryCompositionsFragment
     }
 
     @Override
-    public void updateList(List<Composition> genres) {
-        adapter.submitList(genres);
+    public void updateList(PagedList<Composition> compositions) {
+        adapter.submitList(compositions);
     }
 
     @Override
@@ -8,12 +8,12 @@ import com.github.anrimian.musicplayer.domain.interactors.playlists.PlayListsInt
 import com.github.anrimian.musicplayer.domain.interactors.settings.DisplaySettingsInteractor;
 import com.github.anrimian.musicplayer.domain.models.composition.Composition;
 import com.github.anrimian.musicplayer.domain.models.order.Order;
+import com.github.anrimian.musicplayer.domain.models.utils.CompositionHelper;
 import com.github.anrimian.musicplayer.domain.models.utils.ListPosition;
+import com.github.anrimian.musicplayer.domain.utils.paging.PagedList;
 import com.github.anrimian.musicplayer.ui.common.error.parser.ErrorParser;
 import com.github.anrimian.musicplayer.ui.library.common.compositions.BaseLibraryCompositionsPresenter;
 
-import java.util.List;
-
 import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.core.Scheduler;
 
@@ -22,21 +22,32 @@ public class LibraryCompositionsPresenter
         extends BaseLibraryCompositionsPresenter<LibraryCompositionsView> {
 
     private final LibraryCompositionsInteractor interactor;
+    private final Scheduler ioScheduler;
 
     public LibraryCompositionsPresenter(LibraryCompositionsInteractor interactor,
                                         PlayListsInteractor playListsInteractor,
                                         LibraryPlayerInteractor playerInteractor,
                                         DisplaySettingsInteractor displaySettingsInteractor,
                                         ErrorParser errorParser,
-                                        Scheduler uiScheduler) {
+                                        Scheduler uiScheduler,
+                                        Scheduler ioScheduler) {
         super(playerInteractor, playListsInteractor, displaySettingsInteractor, errorParser, uiScheduler);
         this.interactor = interactor;
+        this.ioScheduler = ioScheduler;
     }
 
+    //whole library can be large, so only pages around visible position are loaded
     @NonNull
     @Override
-    protected Observable<List<Composition>> getCompositionsObservable(String searchText) {
-        return interactor.getCompositionsObservable(searchText);
+    protected Observable<PagedList<Composition>> getCompositionsObservable(String searchText) {
+        ListPosition listPosition = interactor.getSavedListPosition();
+        int initialPosition = listPosition == null? 0 : listPosition.getPosition();
+        return interactor.getCompositionsPageSourceObservable(searchText)
+                .switchMap(source -> PagedList.observe(source,
+                        CompositionHelper::areSourcesTheSame,
+                        initialPosition,
+                        ioScheduler,
+                        getUiScheduler()));
     }
 
     @Override
@@ -48,6 +48,7 @@ import com.github.anrimian.musicplayer.domain.models.order.Order;
 import com.github.anrimian.musicplayer.domain.models.order.OrderType;
 import com.github.anrimian.musicplayer.domain.models.playlist.PlayList;
 import com.github.anrimian.musicplayer.domain.models.utils.ListPosition;
+import com.github.anrimian.musicplayer.domain.utils.paging.PagedList;
 import com.github.anrimian.musicplayer.ui.common.dialogs.DialogUtils;
 import com.github.anrimian.musicplayer.ui.common.dialogs.composition.CompositionActionDialogFragment;
 import com.github.anrimian.musicplayer.ui.common.dialogs.input.InputTextDialogFragment;
@@ -157,8 +158,7 @@ public class LibraryFoldersFragment extends MvpAppCompatFragment
 
         RecyclerViewUtils.attachFastScroller(recyclerView, true);
 
-        adapter = new MusicFileSourceAdapter(recyclerView,
-                presenter.getSelectedFiles(),
+        adapter = new MusicFileSourceAdapter(presenter.getSelectedFiles(),
                 presenter.getSelectedMoveFiles(),
                 presenter::onCompositionClicked,
                 presenter::onFolderClicked,
@@ -282,7 +282,7 @@ public class LibraryFoldersFragment extends MvpAppCompatFragment
     }
 
     @Override
-    public void updateList(List<FileSource> list) {
+    public void updateList(PagedList<FileSource> list) {
         adapter.submitList(list);
     }
 
@@ -12,9 +12,13 @@ import com.github.anrimian.musicplayer.domain.models.folders.FolderFileSource
 import com.github.anrimian.musicplayer.domain.models.folders.IgnoredFolder
 import com.github.anrimian.musicplayer.domain.models.order.Order
 import com.github.anrimian.musicplayer.domain.models.playlist.PlayList
+import com.github.anrimian.musicplayer.domain.models.utils.FolderHelper
 import com.github.anrimian.musicplayer.domain.models.utils.ListPosition
 import com.github.anrimian.musicplayer.domain.utils.ListUtils
 import com.github.anrimian.musicplayer.domain.utils.TextUtils
+import com.github.anrimian.musicplayer.domain.utils.changes.ChangeType
+import com.github.anrimian.musicplayer.domain.utils.paging.ListUpdate
+import com.github.anrimian.musicplayer.domain.utils.paging.PagedList
 import com.github.anrimian.musicplayer.ui.common.error.parser.ErrorParser
 import com.github.anrimian.musicplayer.ui.common.mvp.AppPresenter
 import io.reactivex.rxjava3.core.Completable
@@ -32,15 +36,18 @@ class LibraryFoldersPresenter(private val folderId: Long?,
                               private val playerInteractor: LibraryPlayerInteractor,
                               private val displaySettingsInteractor: DisplaySettingsInteractor,
                               errorParser: ErrorParser,
-                              uiScheduler: Scheduler)
+                              uiScheduler: Scheduler,
+                              private val ioScheduler: Scheduler)
     : AppPresenter<LibraryFoldersView>(uiScheduler, errorParser) {
 
     private val presenterBatterySafeDisposable = CompositeDisposable()
 
     private var currentCompositionDisposable: Disposable? = null
     private var fileActionDisposable: Disposable? = null
+    private var filesDisposable: Disposable? = null
+    private var filesUpdatesDisposable: Disposable? = null
 
-    private var sourceList: List<FileSource> = ArrayList()
+    private var sourceList: PagedList<FileSource> = PagedList.empty()
     private val filesForPlayList: MutableList<FileSource> = LinkedList()
     private val filesToDelete: MutableList<FileSource> = LinkedList()
     private val selectedFiles = LinkedHashSet<FileSource>()
@@ -68,7 +75,7 @@ class LibraryFoldersPresenter(private val folderId: Long?,
     }
 
     fun onStart() {
-        if (sourceList.isNotEmpty()) {
+        if (!sourceList.isEmpty()) {
             subscribeOnCurrentComposition()
         }
     }
@@ -112,7 +119,10 @@ class LibraryFoldersPresenter(private val folderId: Long?,
     }
 
     fun onPlayNextSourceClicked(position: Int) {
-        val source = sourceList.elementAtOrNull(position) ?: return
+        if (position < 0 || position >= sourceList.size()) {
+            return
+        }
+        val source = sourceList.get(position) ?: return
         when(source) {
             is CompositionFileSource -> onPlayNextCompositionClicked(source.composition)
             is FolderFileSource -> onPlayNextFolderClicked(source)
@@ -269,10 +279,8 @@ class LibraryFoldersPresenter(private val folderId: Long?,
     }
 
     fun onSelectAllButtonClicked() {
-        selectedFiles.clear() //reselect previous feature
-        selectedFiles.addAll(sourceList)
-        viewState.showSelectionMode(selectedFiles.size)
-        viewState.setItemsSelected(true)
+        //not loaded pages are selected too
+        sourceList.loadAll().subscribeOnUi(this::onAllFilesSelected, this::onDefaultError)
     }
 
     private fun playSelectedCompositions() {
@@ -416,6 +424,13 @@ class LibraryFoldersPresenter(private val folderId: Long?,
         }
     }
 
+    private fun onAllFilesSelected(files: List<FileSource>) {
+        selectedFiles.clear() //reselect previous feature
+        selectedFiles.addAll(files)
+        viewState.showSelectionMode(selectedFiles.size)
+        viewState.setItemsSelected(true)
+    }
+
     private fun closeSelectionMode() {
         selectedFiles.clear()
         viewState.showSelectionMode(0)
@@ -509,15 +524,48 @@ class LibraryFoldersPresenter(private val folderId: Long?,
         if (sourceList.isEmpty()) {
             viewState.showLoading()
         }
-        interactor.getFoldersInFolder(folderId, searchText)
-                .subscribeOnUi(this::onFilesLoaded, this::onMusicLoadingError)
+        RxUtils.dispose(filesDisposable, presenterDisposable)
+        val initialPosition = interactor.getSavedListPosition(folderId)?.position ?: 0
+        filesDisposable = interactor.getFilesPageSourceObservable(folderId, searchText)
+                .switchMap { source ->
+                    PagedList.observe(source,
+                            FolderHelper::areSourcesTheSame,
+                            initialPosition,
+                            ioScheduler,
+                            uiScheduler)
+                }
+                .observeOn(uiScheduler)
+                .subscribe(this::onFilesLoaded, this::onMusicLoadingError)
+        presenterDisposable.add(filesDisposable!!)
     }
 
-    private fun onFilesLoaded(files: List<FileSource>) {
+    private fun onFilesLoaded(files: PagedList<FileSource>) {
         val firstReceive = this.sourceList.isEmpty()
 
         sourceList = files
         viewState.updateList(sourceList)
+        RxUtils.dispose(filesUpdatesDisposable, presenterDisposable)
+        filesUpdatesDisposable = files.updatesObservable
+                .subscribe(this::onFilesUpdated)
+        presenterDisposable.add(filesUpdatesDisposable!!)
+
+        showListState()
+        if (!sourceList.isEmpty() && firstReceive) {
+            val listPosition = interactor.getSavedListPosition(folderId)
+            if (listPosition != null) {
+                viewState.restoreListPosition(listPosition)
+            }
+        }
+    }
+
+    //list changes are applied by adapter, here only empty state is updated
+    private fun onFilesUpdated(update: ListUpdate) {
+        if (update.type != ChangeType.MODIFY) {
+            showListState()
+        }
+    }
+
+    private fun showListState() {
         if (sourceList.isEmpty()) {
             if (TextUtils.isEmpty(searchText)) {
                 viewState.showEmptyList()
@@ -526,13 +574,6 @@ class LibraryFoldersPresenter(private val folderId: Long?,
             }
         } else {
             viewState.showList()
-            if (firstReceive) {
-                val listPosition = interactor.getSavedListPosition(folderId)
-                if (listPosition != null) {
-                    viewState.restoreListPosition(listPosition)
-                }
-            }
-
             if (RxUtils.isInactive(currentCompositionDisposable)) {
                 subscribeOnCurrentComposition()
             }
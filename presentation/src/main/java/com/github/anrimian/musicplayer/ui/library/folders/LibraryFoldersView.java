@@ -8,6 +8,7 @@ import com.github.anrimian.musicplayer.domain.models.folders.IgnoredFolder;
 import com.github.anrimian.musicplayer.domain.models.order.Order;
 import com.github.anrimian.musicplayer.domain.models.playlist.PlayList;
 import com.github.anrimian.musicplayer.domain.models.utils.ListPosition;
+import com.github.anrimian.musicplayer.domain.utils.paging.PagedList;
 import com.github.anrimian.musicplayer.ui.common.error.ErrorCommand;
 import com.github.anrimian.musicplayer.ui.utils.moxy.SingleStateByTagStrategy;
 
@@ -66,7 +67,7 @@ public interface LibraryFoldersView extends MvpView {
     void goBackToParentFolderScreen();
 
     @AddToEndSingle
-    void updateList(List<FileSource> update);
+    void updateList(PagedList<FileSource> list);
 
     @OneExecution
     void showSelectOrderScreen(Order folderOrder);
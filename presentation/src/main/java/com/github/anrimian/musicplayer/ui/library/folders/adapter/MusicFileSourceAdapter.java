@@ -20,7 +20,7 @@ import com.github.anrimian.musicplayer.ui.utils.OnPositionItemClickListener;
 import com.github.anrimian.musicplayer.ui.utils.OnViewItemClickListener;
 import com.github.anrimian.musicplayer.ui.utils.views.recycler_view.SelectableViewHolder;
 import com.github.anrimian.musicplayer.ui.utils.views.recycler_view.diff_utils.SimpleDiffItemCallback;
-import com.github.anrimian.musicplayer.ui.utils.views.recycler_view.diff_utils.adapter.DiffListAdapter;
+import com.github.anrimian.musicplayer.ui.utils.views.recycler_view.diff_utils.adapter.PagedListAdapter;
 
 import java.util.HashSet;
 import java.util.List;
@@ -30,7 +30,7 @@ import java.util.Set;
  * Created on 31.10.2017.
  */
 
-public class MusicFileSourceAdapter extends DiffListAdapter<FileSource, FileViewHolder> {
+public class MusicFileSourceAdapter extends PagedListAdapter<FileSource, FileViewHolder> {
 
     private static final int TYPE_MUSIC = 1;
     private static final int TYPE_FILE = 2;
@@ -50,8 +50,7 @@ public class MusicFileSourceAdapter extends DiffListAdapter<FileSource, FileView
     private CurrentComposition currentComposition;
     private boolean isCoversEnabled;
 
-    public MusicFileSourceAdapter(RecyclerView recyclerView,
-                                  HashSet<FileSource> selectedItems,
+    public MusicFileSourceAdapter(HashSet<FileSource> selectedItems,
                                   HashSet<FileSource> selectedMoveItems,
                                   OnPositionItemClickListener<CompositionFileSource> onCompositionClickListener,
                                   OnPositionItemClickListener<FolderFileSource> onFolderClickListener,
@@ -59,7 +58,7 @@ public class MusicFileSourceAdapter extends DiffListAdapter<FileSource, FileView
                                   OnViewItemClickListener<FolderFileSource> onFolderMenuClickListener,
                                   Callback<Composition> compositionIconClickListener,
                                   OnPositionItemClickListener<CompositionFileSource> menuClickListener) {
-        super(recyclerView, new SimpleDiffItemCallback<>(
+        super(new SimpleDiffItemCallback<>(
                 FolderHelper::areSourcesTheSame,
                 FolderHelper::getChangePayload)
         );
@@ -99,6 +98,15 @@ public class MusicFileSourceAdapter extends DiffListAdapter<FileSource, FileView
         viewHolders.add(holder);
 
         FileSource fileSource = getItem(position);
+        if (fileSource == null) {
+            //placeholders are shown as compositions, see getItemViewType()
+            MusicFileViewHolder musicViewHolder = (MusicFileViewHolder) holder;
+            musicViewHolder.bindPlaceholder();
+            musicViewHolder.setSelected(false);
+            musicViewHolder.setSelectedToMove(false);
+            musicViewHolder.showCurrentComposition(currentComposition, false);
+            return;
+        }
 
         boolean selected = selectedItems.contains(fileSource);
         holder.setSelected(selected);
@@ -132,6 +140,9 @@ public class MusicFileSourceAdapter extends DiffListAdapter<FileSource, FileView
             return;
         }
         FileSource fileSource = getItem(position);
+        if (fileSource == null) {
+            return;
+        }
         switch (holder.getItemViewType()) {
             case TYPE_MUSIC: {
                 MusicFileViewHolder musicViewHolder = (MusicFileViewHolder) holder;
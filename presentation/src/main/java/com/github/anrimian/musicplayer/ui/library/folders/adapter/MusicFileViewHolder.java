@@ -35,6 +35,7 @@ public class MusicFileViewHolder extends FileViewHolder {
     private final CompositionItemWrapper compositionItemWrapper;
     private final FrameLayout clickableItem;
 
+    @Nullable
     private CompositionFileSource fileSource;
 
     private boolean selected = false;
@@ -54,13 +55,15 @@ public class MusicFileViewHolder extends FileViewHolder {
                 iconClickListener,
                 composition -> onCompositionClickListener.onItemClick(getBindingAdapterPosition(), fileSource)
         );
-        binding.btnActionsMenu.setOnClickListener(v ->
-                menuClickListener.onItemClick(getBindingAdapterPosition(), fileSource)
-        );
+        binding.btnActionsMenu.setOnClickListener(v -> {
+            if (fileSource != null) {
+                menuClickListener.onItemClick(getBindingAdapterPosition(), fileSource);
+            }
+        });
 
         if (onLongClickListener != null) {
             clickableItem.setOnLongClickListener(v -> {
-                if (selected) {
+                if (selected || fileSource == null) {
                     return false;
                 }
                 selectImmediate();
@@ -75,6 +78,11 @@ public class MusicFileViewHolder extends FileViewHolder {
         compositionItemWrapper.bind(fileSource.getComposition(), isCoversEnabled);
     }
 
+    public void bindPlaceholder() {
+        this.fileSource = null;
+        compositionItemWrapper.bindPlaceholder();
+    }
+
     public void update(CompositionFileSource fileSource, List<Object> payloads) {
         this.fileSource = fileSource;
         compositionItemWrapper.update(fileSource.getComposition(), payloads);
@@ -130,7 +138,7 @@ public class MusicFileViewHolder extends FileViewHolder {
                                        boolean animate) {
         boolean isCurrent = false;
         boolean isPlaying = false;
-        if (currentComposition != null) {
+        if (currentComposition != null && fileSource != null) {
             isCurrent = fileSource.getComposition().equals(currentComposition.getComposition());
             isPlaying = isCurrent && currentComposition.isPlaying();
         }
@@ -23,6 +23,7 @@ import com.github.anrimian.musicplayer.domain.models.composition.CurrentComposit
 import com.github.anrimian.musicplayer.domain.models.genres.Genre;
 import com.github.anrimian.musicplayer.domain.models.playlist.PlayList;
 import com.github.anrimian.musicplayer.domain.models.utils.ListPosition;
+import com.github.anrimian.musicplayer.domain.utils.paging.PagedList;
 import com.github.anrimian.musicplayer.ui.common.dialogs.DialogUtils;
 import com.github.anrimian.musicplayer.ui.common.dialogs.composition.CompositionActionDialogFragment;
 import com.github.anrimian.musicplayer.ui.common.dialogs.input.InputTextDialogFragment;
@@ -126,8 +127,7 @@ public class GenreItemsFragment extends BaseLibraryCompositionsFragment implemen
 
         RecyclerViewUtils.attachFastScroller(recyclerView, true);
 
-        adapter = new CompositionsAdapter(recyclerView,
-                presenter.getSelectedCompositions(),
+        adapter = new CompositionsAdapter(presenter.getSelectedCompositions(),
                 presenter::onCompositionClicked,
                 presenter::onCompositionLongClick,
                 presenter::onCompositionIconClicked,
@@ -235,8 +235,8 @@ public class GenreItemsFragment extends BaseLibraryCompositionsFragment implemen
     }
 
     @Override
-    public void updateList(List<Composition> genres) {
-        adapter.submitList(genres);
+    public void updateList(PagedList<Composition> compositions) {
+        adapter.submitList(compositions);
     }
 
     @Override
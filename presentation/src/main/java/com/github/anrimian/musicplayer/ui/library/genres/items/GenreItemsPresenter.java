@@ -9,11 +9,10 @@ import com.github.anrimian.musicplayer.domain.interactors.settings.DisplaySettin
 import com.github.anrimian.musicplayer.domain.models.composition.Composition;
 import com.github.anrimian.musicplayer.domain.models.genres.Genre;
 import com.github.anrimian.musicplayer.domain.models.utils.ListPosition;
+import com.github.anrimian.musicplayer.domain.utils.paging.PagedList;
 import com.github.anrimian.musicplayer.ui.common.error.parser.ErrorParser;
 import com.github.anrimian.musicplayer.ui.library.common.compositions.BaseLibraryCompositionsPresenter;
 
-import java.util.List;
-
 import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.core.Scheduler;
 import io.reactivex.rxjava3.disposables.Disposable;
@@ -54,8 +53,8 @@ public class GenreItemsPresenter extends BaseLibraryCompositionsPresenter<GenreI
 
     @NonNull
     @Override
-    protected Observable<List<Composition>> getCompositionsObservable(String searchText) {
-        return interactor.getGenreItemsObservable(genreId);
+    protected Observable<PagedList<Composition>> getCompositionsObservable(String searchText) {
+        return interactor.getGenreItemsObservable(genreId).map(PagedList::fromList);
     }
 
     @Override
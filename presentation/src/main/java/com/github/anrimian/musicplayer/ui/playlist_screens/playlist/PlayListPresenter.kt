@@ -257,6 +257,7 @@ class PlayListPresenter(private val playListId: Long,
         viewState.showDeleteCompositionError(errorCommand)
     }
 
+    //not paged: drag and drop moves items by positions in the whole list
     private fun subscribeOnCompositions() {
         viewState.showLoading()
         playListsInteractor.getCompositionsObservable(playListId)
@@ -8,7 +8,9 @@ import android.view.ViewGroup
 import com.github.anrimian.musicplayer.R
 import com.github.anrimian.musicplayer.databinding.FragmentLibrarySettingsBinding
 import com.github.anrimian.musicplayer.di.Components
+import com.github.anrimian.musicplayer.domain.models.image.ArtworkCacheStats
 import com.github.anrimian.musicplayer.ui.common.dialogs.DialogUtils
+import com.github.anrimian.musicplayer.ui.common.format.FormatUtils
 import com.github.anrimian.musicplayer.ui.common.toolbar.AdvancedToolbar
 import com.github.anrimian.musicplayer.ui.settings.folders.ExcludedFoldersFragment
 import com.github.anrimian.musicplayer.ui.utils.ViewUtils
@@ -86,6 +88,16 @@ class LibrarySettingsFragment : MvpAppCompatFragment(), FragmentLayerListener, L
         )
     }
 
+    override fun showArtworkCacheStats(stats: ArtworkCacheStats) {
+        viewBinding.tvCoversCacheStats.text = getString(
+            R.string.covers_cache_stats,
+            FormatUtils.formatSize(requireContext(), stats.sizeBytes),
+            stats.filesCount,
+            stats.hits,
+            stats.misses
+        )
+    }
+
     override fun showSelectMinAudioDurationDialog(currentValue: Long) {
         DialogUtils.showNumberPickerDialog(
             requireContext(),
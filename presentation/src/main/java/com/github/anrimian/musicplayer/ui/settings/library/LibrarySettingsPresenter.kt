@@ -18,6 +18,8 @@ class LibrarySettingsPresenter(private val librarySettingsInteractor: LibrarySet
             .unsafeSubscribeOnUi(viewState::showAllAudioFilesEnabled)
         librarySettingsInteractor.geAudioFileMinDurationMillisObservable()
             .unsafeSubscribeOnUi(viewState::showAudioFileMinDurationMillis)
+        librarySettingsInteractor.getArtworkCacheStatsObservable()
+            .unsafeSubscribeOnUi(viewState::showArtworkCacheStats)
     }
 
     fun doNotAppConfirmDialogChecked(isChecked: Boolean) {
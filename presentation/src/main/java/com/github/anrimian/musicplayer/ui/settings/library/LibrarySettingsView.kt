@@ -1,5 +1,6 @@
 package com.github.anrimian.musicplayer.ui.settings.library
 
+import com.github.anrimian.musicplayer.domain.models.image.ArtworkCacheStats
 import moxy.MvpView
 import moxy.viewstate.strategy.alias.AddToEndSingle
 import moxy.viewstate.strategy.alias.Skip
@@ -15,6 +16,9 @@ interface LibrarySettingsView : MvpView {
     @AddToEndSingle
     fun showAudioFileMinDurationMillis(millis: Long)
 
+    @AddToEndSingle
+    fun showArtworkCacheStats(stats: ArtworkCacheStats)
+
     @Skip
     fun showSelectMinAudioDurationDialog(currentValue: Long)
 
@@ -47,6 +47,7 @@ class PlayerSettingsFragment : MvpAppCompatFragment(), PlayerSettingsView {
         ViewUtils.onCheckChanged(viewBinding.cbDecreaseVolume, presenter::onDecreaseVolumeOnAudioFocusLossChecked)
         ViewUtils.onCheckChanged(viewBinding.cbPauseOnAudioFocusLoss, presenter::onPauseOnAudioFocusLossChecked)
         ViewUtils.onCheckChanged(viewBinding.cbPauseOnZeroVolumeLevel, presenter::onPauseOnZeroVolumeLevelChecked)
+        ViewUtils.onCheckChanged(viewBinding.cbLoudnessNormalization, presenter::onLoudnessNormalizationChecked)
 
         viewBinding.flEqualizerClickableArea.setOnClickListener { showEqualizerDialog() }
         viewBinding.flMediaPlayersClickableArea.setOnClickListener { showMediaPlayersSettingScreen() }
@@ -71,6 +72,10 @@ class PlayerSettingsFragment : MvpAppCompatFragment(), PlayerSettingsView {
         ViewUtils.setChecked(viewBinding.cbPauseOnZeroVolumeLevel, enabled)
     }
 
+    override fun showLoudnessNormalizationEnabled(enabled: Boolean) {
+        ViewUtils.setChecked(viewBinding.cbLoudnessNormalization, enabled)
+    }
+
     override fun showSelectedEqualizerType(type: Int) {
         viewBinding.tvEqualizerState.setText(getEqualizerTypeDescription(type))
     }
@@ -91,6 +96,7 @@ class PlayerSettingsFragment : MvpAppCompatFragment(), PlayerSettingsView {
         return when (type) {
             EqualizerType.EXTERNAL -> R.string.system_equalizer
             EqualizerType.APP -> R.string.app_equalizer
+            EqualizerType.SOFTWARE -> R.string.software_equalizer
             else -> R.string.no_equalizer
         }
     }
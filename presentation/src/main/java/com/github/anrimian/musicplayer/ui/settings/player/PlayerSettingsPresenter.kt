@@ -17,6 +17,7 @@ class PlayerSettingsPresenter(private val interactor: PlayerSettingsInteractor,
         )
         viewState.showPauseOnAudioFocusLossEnabled(interactor.isPauseOnAudioFocusLossEnabled())
         viewState.showPauseOnZeroVolumeLevelEnabled(interactor.isPauseOnZeroVolumeLevelEnabled())
+        viewState.showLoudnessNormalizationEnabled(interactor.isLoudnessNormalizationEnabled())
         viewState.showEnabledMediaPlayers(interactor.getEnabledMediaPlayers())
         subscribeOnSelectedEqualizer()
     }
@@ -36,6 +37,11 @@ class PlayerSettingsPresenter(private val interactor: PlayerSettingsInteractor,
         interactor.setPauseOnAudioFocusLossEnabled(checked)
     }
 
+    fun onLoudnessNormalizationChecked(checked: Boolean) {
+        viewState.showLoudnessNormalizationEnabled(checked)
+        interactor.setLoudnessNormalizationEnabled(checked)
+    }
+
     fun onEnabledMediaPlayersSelected(mediaPlayers: IntArray) {
         viewState.showEnabledMediaPlayers(mediaPlayers)
         interactor.setEnabledMediaPlayers(mediaPlayers)
@@ -14,6 +14,9 @@ interface PlayerSettingsView : MvpView {
     @AddToEndSingle
     fun showPauseOnZeroVolumeLevelEnabled(enabled: Boolean)
 
+    @AddToEndSingle
+    fun showLoudnessNormalizationEnabled(enabled: Boolean)
+
     @AddToEndSingle
     fun showSelectedEqualizerType(type: Int)
 
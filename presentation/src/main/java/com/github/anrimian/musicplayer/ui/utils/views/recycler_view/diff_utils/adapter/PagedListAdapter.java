@@ -0,0 +1,184 @@
+package com.github.anrimian.musicplayer.ui.utils.views.recycler_view.diff_utils.adapter;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListUpdateCallback;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.github.anrimian.musicplayer.domain.utils.paging.ListUpdate;
+import com.github.anrimian.musicplayer.domain.utils.paging.PagedList;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import io.reactivex.rxjava3.disposables.Disposable;
+
+/**
+ * Adapter for {@link PagedList}.
+ * <p>
+ * Changes of submitted list are applied by its range updates, without diff of whole list.
+ * When another list is submitted (e.g. after search or order change), it is diffed in background
+ * only if both lists are fully loaded, otherwise the list is replaced.
+ * <p>
+ * Item is null while its page is loading, view holder should show placeholder for it.
+ */
+public abstract class PagedListAdapter<T, VH extends RecyclerView.ViewHolder>
+        extends RecyclerView.Adapter<VH> {
+
+    private static final Executor DIFF_EXECUTOR = Executors.newFixedThreadPool(2);
+
+    private final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+
+    private final DiffUtil.ItemCallback<T> diffCallback;
+    private final ListUpdateCallback updateCallback = new AdapterListUpdateCallback(this);
+
+    private PagedList<T> list = PagedList.empty();
+    @Nullable
+    private Disposable updatesDisposable;
+
+    //incremented on list submit, results of previous diffs are ignored
+    private int generation;
+
+    protected PagedListAdapter(@NonNull DiffUtil.ItemCallback<T> diffCallback) {
+        this.diffCallback = diffCallback;
+    }
+
+    public void submitList(PagedList<T> newList) {
+        int runGeneration = ++generation;
+        if (newList == list) {
+            return;
+        }
+        PagedList<T> oldList = list;
+        List<T> oldItems = oldList.toList();
+        List<T> newItems = newList.toList();
+        if (oldItems == null || newItems == null || oldItems.isEmpty() || newItems.isEmpty()) {
+            latchList(newList);
+            notifyDataSetChanged();
+            return;
+        }
+        DIFF_EXECUTOR.execute(() -> {
+            DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffCallback(oldItems, newItems));
+            mainThreadHandler.post(() -> {
+                if (generation != runGeneration) {
+                    return;
+                }
+                latchList(newList);
+                //list could be changed during diff calculation
+                if (newList.size() != newItems.size()) {
+                    notifyDataSetChanged();
+                    return;
+                }
+                result.dispatchUpdatesTo(updateCallback);
+            });
+        });
+    }
+
+    @Override
+    public int getItemCount() {
+        return list.size();
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        if (updatesDisposable == null) {
+            latchList(list);
+            notifyDataSetChanged();
+        }
+    }
+
+    //list can live longer than view, so adapter doesn't listen it when detached
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        generation++;
+        disposeUpdates();
+    }
+
+    /**
+     * @return item or null if it is not loaded yet
+     */
+    @Nullable
+    protected T getItem(int position) {
+        return list.get(position);
+    }
+
+    public PagedList<T> getCurrentList() {
+        return list;
+    }
+
+    private void latchList(PagedList<T> newList) {
+        disposeUpdates();
+        list = newList;
+        updatesDisposable = newList.getUpdatesObservable().subscribe(this::onListUpdate);
+    }
+
+    private void onListUpdate(ListUpdate update) {
+        int position = update.getPosition();
+        int count = update.getCount();
+        switch (update.getType()) {
+            case ADDED: {
+                updateCallback.onInserted(position, count);
+                break;
+            }
+            case DELETED: {
+                updateCallback.onRemoved(position, count);
+                break;
+            }
+            case MODIFY: {
+                updateCallback.onChanged(position, count, null);
+                break;
+            }
+        }
+    }
+
+    private void disposeUpdates() {
+        if (updatesDisposable != null) {
+            updatesDisposable.dispose();
+            updatesDisposable = null;
+        }
+    }
+
+    private class DiffCallback extends DiffUtil.Callback {
+
+        private final List<T> oldItems;
+        private final List<T> newItems;
+
+        DiffCallback(List<T> oldItems, List<T> newItems) {
+            this.oldItems = oldItems;
+            this.newItems = newItems;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldItems.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newItems.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return diffCallback.areItemsTheSame(oldItems.get(oldItemPosition), newItems.get(newItemPosition));
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            return diffCallback.areContentsTheSame(oldItems.get(oldItemPosition), newItems.get(newItemPosition));
+        }
+
+        @Nullable
+        @Override
+        public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+            return diffCallback.getChangePayload(oldItems.get(oldItemPosition), newItems.get(newItemPosition));
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.github.anrimian.musicplayer.infrastructure;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import com.github.anrimian.musicplayer.domain.models.composition.Composition;
+import com.github.anrimian.musicplayer.domain.models.play_queue.PlayQueueItem;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+public class MediaSessionQueueWindowTest {
+
+    private int mappedCount;
+
+    private final MediaSessionQueueWindow<String> window = new MediaSessionQueueWindow<>(10, 2, item -> {
+        mappedCount++;
+        return item.getComposition().getTitle();
+    });
+
+    @Test
+    public void smallQueueTest() {
+        List<PlayQueueItem> queue = queue(5);
+
+        List<String> items = window.update(queue, 3L);
+
+        assertNotNull(items);
+        assertEquals(5, items.size());
+        assertEquals("title 0", items.get(0));
+        assertNull(window.update(queue, 4L));
+    }
+
+    @Test
+    public void windowMovesWithCurrentItemTest() {
+        List<PlayQueueItem> queue = queue(100);
+
+        List<String> items = window.update(queue, 0L);
+        assertNotNull(items);
+        assertEquals(10, items.size());
+        assertEquals("title 0", items.get(0));
+
+        for (long id = 1; id < 8; id++) {
+            assertNull(window.update(queue, id));
+        }
+
+        items = window.update(queue, 8L);
+        assertNotNull(items);
+        assertEquals("title 3", items.get(0));
+        assertEquals("title 12", items.get(9));
+        assertEquals(13, mappedCount);
+
+        items = window.update(queue, 50L);
+        assertNotNull(items);
+        assertEquals("title 45", items.get(0));
+
+        items = window.update(queue, 99L);
+        assertNotNull(items);
+        assertEquals("title 90", items.get(0));
+        assertEquals("title 99", items.get(9));
+    }
+
+    @Test
+    public void changedItemIsRemappedTest() {
+        List<PlayQueueItem> queue = queue(20);
+        List<String> items = window.update(queue, 0L);
+        assertNotNull(items);
+        assertEquals(10, mappedCount);
+
+        queue.set(3, new PlayQueueItem(3, composition(3, "new title")));
+        items = window.update(queue, 0L);
+
+        assertNotNull(items);
+        assertEquals("new title", items.get(3));
+        assertEquals(11, mappedCount);
+
+        //item out of window doesn't affect published items
+        queue.set(15, new PlayQueueItem(15, composition(15, "new title")));
+        assertNull(window.update(queue, 0L));
+    }
+
+    @Test
+    public void removedItemTest() {
+        List<PlayQueueItem> queue = queue(20);
+        window.update(queue, 0L);
+
+        queue.remove(1);
+        List<String> items = window.update(queue, 0L);
+
+        assertNotNull(items);
+        assertEquals("title 2", items.get(1));
+        assertEquals("title 10", items.get(9));
+        assertEquals(11, mappedCount);
+    }
+
+    @Test
+    public void emptyQueueTest() {
+        List<String> items = window.update(new ArrayList<>(), null);
+        assertNotNull(items);
+        assertEquals(0, items.size());
+
+        assertNull(window.update(new ArrayList<>(), null));
+
+        items = window.update(queue(3), null);
+        assertNotNull(items);
+        assertEquals(3, items.size());
+    }
+
+    @Test
+    public void mappedItemsReuseTest() {
+        List<PlayQueueItem> queue = queue(20);
+        window.update(queue, 5L);
+
+        queue.add(0, new PlayQueueItem(100, composition(100, "added")));
+        List<String> items = window.update(queue, 5L);
+
+        assertNotNull(items);
+        assertEquals("added", items.get(0));
+        assertEquals("title 0", items.get(1));
+        assertEquals(11, mappedCount);
+    }
+
+    @Test
+    public void bigQueuePerformanceTest() {
+        int count = 20_000;
+        List<PlayQueueItem> queue = queue(count);
+        MediaSessionQueueWindow<String> window = new MediaSessionQueueWindow<>(100, 10, item -> {
+            mappedCount++;
+            return item.getComposition().getTitle();
+        });
+
+        int publishCount = 0;
+        long startTime = System.nanoTime();
+        for (long id = 0; id < count; id++) {
+            if (window.update(queue, id) != null) {
+                publishCount++;
+            }
+        }
+        long time = System.nanoTime() - startTime;
+
+        System.out.println("queue size: " + count
+                + ", publications: " + publishCount
+                + ", mapped items: " + mappedCount
+                + ", update: " + time / count + " ns");
+    }
+
+    private static List<PlayQueueItem> queue(int count) {
+        List<PlayQueueItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(new PlayQueueItem(i, composition(i, "title " + i)));
+        }
+        return items;
+    }
+
+    private static Composition composition(long id, String title) {
+        return new Composition(null,
+                title,
+                null,
+                1000L,
+                100L,
+                id,
+                id,
+                new Date(0),
+                new Date(0),
+                null);
+    }
+}